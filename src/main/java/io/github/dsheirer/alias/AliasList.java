@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- * Copyright (C) 2014-2024 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -23,7 +23,6 @@ import io.github.dsheirer.alias.id.AliasID;
 import io.github.dsheirer.alias.id.broadcast.BroadcastChannel;
 import io.github.dsheirer.alias.id.dcs.Dcs;
 import io.github.dsheirer.alias.id.esn.Esn;
-import io.github.dsheirer.alias.id.priority.Priority;
 import io.github.dsheirer.alias.id.radio.P25FullyQualifiedRadio;
 import io.github.dsheirer.alias.id.radio.Radio;
 import io.github.dsheirer.alias.id.radio.RadioRange;
@@ -33,6 +32,7 @@ import io.github.dsheirer.alias.id.talkgroup.P25FullyQualifiedTalkgroup;
 import io.github.dsheirer.alias.id.talkgroup.Talkgroup;
 import io.github.dsheirer.alias.id.talkgroup.TalkgroupRange;
 import io.github.dsheirer.alias.id.tone.TonesID;
+import io.github.dsheirer.alias.index.AliasIndex;
 import io.github.dsheirer.identifier.Identifier;
 import io.github.dsheirer.identifier.IdentifierCollection;
 import io.github.dsheirer.identifier.dcs.DCSIdentifier;
@@ -49,6 +49,7 @@ import io.github.dsheirer.identifier.tone.ToneIdentifier;
 import io.github.dsheirer.identifier.tone.ToneSequence;
 import io.github.dsheirer.module.decode.dcs.DCSCode;
 import io.github.dsheirer.protocol.Protocol;
+import io.github.dsheirer.util.ThreadPool;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -59,6 +60,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import org.slf4j.Logger;
@@ -67,10 +71,17 @@ import org.slf4j.LoggerFactory;
 /**
  * List of aliases that share the same alias list name and provides convenient methods for looking up alias
  * objects that match an identifier.
+ *
+ * The alias identifier maps in this class are the editable model, and they are only accessed while holding this
+ * list's lock.  Lookups are served from an immutable, compiled alias index that is rebuilt on a background thread
+ * and published atomically, so decoder threads never lock when looking up aliases.  Edits that arrive within a short
+ * delay of each other are coalesced into a single rebuild, and lookups continue to use the previously published index
+ * until the rebuild completes.
  */
 public class AliasList
 {
     private final static Logger mLog = LoggerFactory.getLogger(AliasList.class);
+    private static final long REBUILD_DELAY_MS = 50;
     private Map<Protocol,TalkgroupAliasList> mTalkgroupProtocolMap = new EnumMap<>(Protocol.class);
     private Map<Protocol,RadioAliasList> mRadioProtocolMap = new EnumMap<>(Protocol.class);
     private Map<DCSCode,Alias> mDCSCodeAliasMap = new EnumMap<>(DCSCode.class);
@@ -78,9 +89,13 @@ public class AliasList
     private Map<Integer,Alias> mUnitStatusMap = new HashMap<>();
     private Map<Integer,Alias> mUserStatusMap = new HashMap<>();
     private Map<ToneSequence,Alias> mToneSequenceMap = new HashMap<>();
-    private boolean mHasAliasActions = false;
+    private volatile boolean mHasAliasActions = false;
     private String mName;
     private ObservableList<Alias> mAliases = FXCollections.observableArrayList(Alias.extractor());
+    private final AtomicBoolean mRebuildScheduled = new AtomicBoolean();
+    private volatile long mRevision;
+    private volatile AliasIndex mAliasIndex = new AliasIndex.Builder(0).build();
+    private final Object mIndexMonitor = new Object();
 
     /**
      * List of aliases where all aliases share the same list name.  Contains
@@ -104,13 +119,15 @@ public class AliasList
     /**
      * Adds the alias to this list
      */
-    public void addAlias(Alias alias)
+    public synchronized void addAlias(Alias alias)
     {
-        if(alias != null)
+        if(alias == null)
         {
-            alias.getAliasIdentifiers().stream().forEach(aliasID -> addAliasID(aliasID, alias));
+            return;
         }
 
+        alias.getAliasIdentifiers().stream().forEach(aliasID -> addAliasID(aliasID, alias));
+
         if(alias.hasActions())
         {
             mHasAliasActions = true;
@@ -120,6 +137,8 @@ public class AliasList
         {
             mAliases.add(alias);
         }
+
+        changed();
     }
 
     /**
@@ -300,7 +319,7 @@ public class AliasList
     /**
      * Removes the alias from this list
      */
-    public void removeAlias(Alias alias)
+    public synchronized void removeAlias(Alias alias)
     {
         //Note: because the alias' identifiers could have changed from when we initially added the alias, we have to
         //inspect every collection and map to remove the alias completely.
@@ -310,19 +329,21 @@ public class AliasList
         mRadioProtocolMap.values().stream().forEach(radioAliasList -> radioAliasList.remove(alias));
 
         Collection<Alias> collection = Collections.singleton(alias);
+        mDCSCodeAliasMap.values().removeAll(collection);
         mESNMap.values().removeAll(collection);
         mUnitStatusMap.values().removeAll(collection);
         mUserStatusMap.values().removeAll(collection);
         mToneSequenceMap.values().removeAll(collection);
 
         validate();
+        changed();
     }
 
     /**
      * Identifies all aliases with an alias identifier that has the overlap flag set, resets the flag, and then readds
      * each alias back to this alias list so that overlap can be detected again.
      */
-    public void validate()
+    public synchronized void validate()
     {
         Set<Alias> overlapAliases = new HashSet<>();
 
@@ -348,14 +369,129 @@ public class AliasList
      */
     public Alias getESNAlias(String esn)
     {
-        Alias alias = null;
+        return getIndex().getESNAlias(esn);
+    }
+
+    /**
+     * Increments the revision after an edit and schedules a background rebuild of the alias index.  Multiple edits
+     * that occur before the rebuild starts are coalesced into a single rebuild.
+     */
+    private void changed()
+    {
+        mRevision++;
+
+        if(mRebuildScheduled.compareAndSet(false, true))
+        {
+            try
+            {
+                ThreadPool.SCHEDULED.schedule(() -> ThreadPool.CACHED.execute(this::rebuild), REBUILD_DELAY_MS,
+                    TimeUnit.MILLISECONDS);
+            }
+            catch(RejectedExecutionException ree)
+            {
+                //Shutting down
+                mRebuildScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Background rebuild of the alias index.  The scheduled flag is cleared before the rebuild so that edits made
+     * during the rebuild schedule another rebuild.
+     */
+    private void rebuild()
+    {
+        mRebuildScheduled.set(false);
+
+        try
+        {
+            compileIndex();
+        }
+        catch(Throwable t)
+        {
+            mLog.error("Error compiling alias index for alias list [" + mName + "]", t);
+        }
+    }
+
+    /**
+     * Currently published alias index.  Lookups never wait for a pending rebuild.
+     */
+    private AliasIndex getIndex()
+    {
+        return mAliasIndex;
+    }
+
+    /**
+     * Waits for the published alias index to include all alias edits made before this call.
+     * @param timeout in milliseconds
+     * @return true if the published index is current
+     */
+    public boolean awaitIndex(long timeout)
+    {
+        long revision = mRevision;
+        long end = System.currentTimeMillis() + timeout;
+
+        synchronized(mIndexMonitor)
+        {
+            long remaining = timeout;
+
+            while(mAliasIndex.getRevision() < revision && remaining > 0)
+            {
+                try
+                {
+                    mIndexMonitor.wait(remaining);
+                }
+                catch(InterruptedException ie)
+                {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+
+                remaining = end - System.currentTimeMillis();
+            }
+
+            return mAliasIndex.getRevision() >= revision;
+        }
+    }
+
+    /**
+     * Compiles the alias identifier maps into a new alias index and publishes it with a single volatile write.  The
+     * list lock is held while reading the alias identifier maps, so edits wait for the rebuild but lookups don't.
+     */
+    private synchronized AliasIndex compileIndex()
+    {
+        if(mAliasIndex.getRevision() == mRevision)
+        {
+            return mAliasIndex;
+        }
 
-        if(esn != null)
+        AliasIndex.Builder builder = new AliasIndex.Builder(mRevision);
+
+        for(Map.Entry<Protocol,TalkgroupAliasList> entry: mTalkgroupProtocolMap.entrySet())
+        {
+            entry.getValue().compile(entry.getKey(), builder);
+        }
+
+        for(Map.Entry<Protocol,RadioAliasList> entry: mRadioProtocolMap.entrySet())
         {
-            alias = mESNMap.get(esn);
+            entry.getValue().compile(entry.getKey(), builder);
         }
 
-        return alias;
+        mDCSCodeAliasMap.forEach(builder::dcs);
+        mESNMap.forEach(builder::esn);
+        mUnitStatusMap.forEach(builder::unitStatus);
+        mUserStatusMap.forEach(builder::userStatus);
+        mToneSequenceMap.forEach(builder::toneSequence);
+
+        AliasIndex index = builder.build();
+        mAliasIndex = index;
+
+        synchronized(mIndexMonitor)
+        {
+            mIndexMonitor.notifyAll();
+        }
+
+        return index;
     }
 
     /**
@@ -386,7 +522,7 @@ public class AliasList
     /**
      * Updates the alias by removing it from this list and then adding it back to this list when the list name matches.
      */
-    public void updateAlias(Alias alias)
+    public synchronized void updateAlias(Alias alias)
     {
         removeAlias(alias);
 
@@ -405,93 +541,68 @@ public class AliasList
     {
         if(identifier != null)
         {
+            AliasIndex index = getIndex();
+
             switch(identifier.getForm())
             {
                 case TALKGROUP:
-                    TalkgroupIdentifier talkgroup = (TalkgroupIdentifier)identifier;
-
-                    TalkgroupAliasList talkgroupAliasList = mTalkgroupProtocolMap.get(identifier.getProtocol());
-
-                    if(talkgroupAliasList != null)
-                    {
-                        return toList(talkgroupAliasList.getAlias(talkgroup));
-                    }
-                    break;
+                    return toList(getTalkgroupAlias(index, identifier.getProtocol(), (TalkgroupIdentifier)identifier));
                 case PATCH_GROUP:
                     List<Alias> aliases = new ArrayList<>();
 
                     PatchGroupIdentifier patchGroupIdentifier = (PatchGroupIdentifier)identifier;
                     PatchGroup patchGroup = patchGroupIdentifier.getValue();
+                    Protocol protocol = patchGroupIdentifier.getProtocol();
 
-                    TalkgroupAliasList patchGroupAliasList = mTalkgroupProtocolMap.get(patchGroupIdentifier.getProtocol());
+                    Alias alias = getTalkgroupAlias(index, protocol, patchGroup.getPatchGroup());
 
-                    if(patchGroupAliasList != null)
+                    if(alias != null)
                     {
-                        Alias alias = patchGroupAliasList.getAlias(patchGroup.getPatchGroup());
+                        aliases.add(alias);
+                    }
 
-                        if(alias != null)
-                        {
-                            aliases.add(alias);
-                        }
+                    for(TalkgroupIdentifier patchedTalkgroup: patchGroup.getPatchedTalkgroupIdentifiers())
+                    {
+                        Alias patchedTalkgroupAlias = getTalkgroupAlias(index, protocol, patchedTalkgroup);
 
-                        for(TalkgroupIdentifier patchedTalkgroup: patchGroup.getPatchedTalkgroupIdentifiers())
+                        if(patchedTalkgroupAlias != null && !aliases.contains(patchedTalkgroupAlias))
                         {
-                            Alias patchedTalkgroupAlias = patchGroupAliasList.getAlias(patchedTalkgroup);
-
-                            if(patchedTalkgroupAlias != null && !aliases.contains(patchedTalkgroupAlias))
-                            {
-                                aliases.add(patchedTalkgroupAlias);
-                            }
+                            aliases.add(patchedTalkgroupAlias);
                         }
                     }
 
                     if(patchGroup.hasPatchedRadios())
                     {
-                        RadioAliasList radioAliasList = mRadioProtocolMap.get(patchGroupIdentifier.getProtocol());
-
-                        if(radioAliasList != null)
+                        for(RadioIdentifier patchedRadio: patchGroup.getPatchedRadioIdentifiers())
                         {
-                            for(RadioIdentifier patchedRadio: patchGroup.getPatchedRadioIdentifiers())
-                            {
-                                Alias patchedRadioAlias = radioAliasList.getAlias(patchedRadio);
+                            Alias patchedRadioAlias = getRadioAlias(index, protocol, patchedRadio);
 
-                                if(patchedRadioAlias != null && !aliases.contains(patchedRadioAlias))
-                                {
-                                    aliases.add(patchedRadioAlias);
-                                }
+                            if(patchedRadioAlias != null && !aliases.contains(patchedRadioAlias))
+                            {
+                                aliases.add(patchedRadioAlias);
                             }
                         }
                     }
 
                     return aliases;
                 case RADIO:
-                    RadioIdentifier radio = (RadioIdentifier)identifier;
-
-                    RadioAliasList radioAliasList = mRadioProtocolMap.get(identifier.getProtocol());
-
-                    if(radioAliasList != null)
-                    {
-                        return toList(radioAliasList.getAlias(radio));
-                    }
-                    break;
+                    return toList(getRadioAlias(index, identifier.getProtocol(), (RadioIdentifier)identifier));
                 case ESN:
                     if(identifier instanceof ESNIdentifier)
                     {
-                        return toList(getESNAlias(((ESNIdentifier)identifier).getValue()));
+                        return toList(index.getESNAlias(((ESNIdentifier)identifier).getValue()));
                     }
                     break;
                 case UNIT_STATUS:
                     if(identifier instanceof UnitStatusIdentifier)
                     {
-                        int status = ((UnitStatusIdentifier)identifier).getValue();
-                        return toList(mUserStatusMap.get(status));
+                        return toList(index.getUnitStatusAlias(((UnitStatusIdentifier)identifier).getValue()));
                     }
                     break;
                 case USER_STATUS:
                     if(identifier instanceof UserStatusIdentifier)
                     {
-                        int status = ((UserStatusIdentifier)identifier).getValue();
-                        return toList(mUserStatusMap.get(status));
+                        return toList(index.getUserStatusAlias(((UserStatusIdentifier)identifier).getValue()));
                     }
                     break;
                 case TONE:
@@ -501,23 +612,12 @@ public class AliasList
 
                         if(toneSequence != null && toneSequence.hasTones())
                         {
-                            for(Map.Entry<ToneSequence,Alias> entry: mToneSequenceMap.entrySet())
-                            {
-                                if(entry.getKey().isContainedIn(toneSequence))
-                                {
-                                    return toList(entry.getValue());
-                                }
-                            }
+                            return toList(index.getToneAlias(toneSequence));
                         }
                     }
                     else if(identifier instanceof DCSIdentifier dcsIdentifier)
                     {
-                        DCSCode dcsCode = dcsIdentifier.getValue();
-
-                        if(dcsCode != null)
-                        {
-                            return toList(mDCSCodeAliasMap.get(dcsCode));
-                        }
+                        return toList(index.getDCSAlias(dcsIdentifier.getValue()));
                     }
                     break;
             }
@@ -526,6 +626,32 @@ public class AliasList
         return Collections.emptyList();
     }
 
+    /**
+     * Alias for the talkgroup.  Fully qualified talkgroups are only matched against fully qualified talkgroup aliases.
+     */
+    private static Alias getTalkgroupAlias(AliasIndex index, Protocol protocol, TalkgroupIdentifier identifier)
+    {
+        if(identifier instanceof FullyQualifiedTalkgroupIdentifier fqti)
+        {
+            return index.getFullyQualifiedTalkgroupAlias(protocol, fqti.getFullyQualifiedTalkgroupAddress());
+        }
+
+        return index.getTalkgroupAlias(protocol, identifier.getValue());
+    }
+
+    /**
+     * Alias for the radio.  Fully qualified radios are only matched against fully qualified radio aliases.
+     */
+    private static Alias getRadioAlias(AliasIndex index, Protocol protocol, RadioIdentifier identifier)
+    {
+        if(identifier instanceof FullyQualifiedRadioIdentifier fqri)
+        {
+            return index.getFullyQualifiedRadioAlias(protocol, fqri.getFullyQualifiedRadioAddress());
+        }
+
+        return index.getRadioAlias(protocol, identifier.getValue());
+    }
+
     private static List<Alias> toList(Alias alias)
     {
         if(alias != null)
@@ -543,20 +669,7 @@ public class AliasList
      */
     public boolean isStreamable(IdentifierCollection identifierCollection)
     {
-        for(Identifier identifier: identifierCollection.getIdentifiers())
-        {
-            List<Alias> aliases = getAliases(identifier);
-
-            for(Alias alias: aliases)
-            {
-                if(alias != null && alias.isStreamable())
-                {
-                    return true;
-                }
-            }
-        }
-
-        return false;
+        return resolve(identifierCollection).isStreamable();
     }
 
     /**
@@ -566,20 +679,7 @@ public class AliasList
      */
     public boolean isRecordable(IdentifierCollection identifierCollection)
     {
-        for(Identifier identifier: identifierCollection.getIdentifiers())
-        {
-            List<Alias> aliases = getAliases(identifier);
-
-            for(Alias alias: aliases)
-            {
-                if(alias != null && alias.isRecordable())
-                {
-                    return true;
-                }
-            }
-        }
-
-        return false;
+        return resolve(identifierCollection).isRecordable();
     }
 
     /**
@@ -599,22 +699,7 @@ public class AliasList
      */
     public int getAudioPlaybackPriority(IdentifierCollection identifierCollection)
     {
-        int priority = Priority.DEFAULT_PRIORITY;
-
-        for(Identifier identifier: identifierCollection.getIdentifiers())
-        {
-            List<Alias> aliases = getAliases(identifier);
-
-            for(Alias alias: aliases)
-            {
-                if(alias != null && alias.getPlaybackPriority() < priority)
-                {
-                    priority = alias.getPlaybackPriority();
-                }
-            }
-        }
-
-        return priority;
+        return resolve(identifierCollection).getPlaybackPriority();
     }
 
     /**
@@ -624,28 +709,28 @@ public class AliasList
      */
     public List<BroadcastChannel> getBroadcastChannels(IdentifierCollection identifierCollection)
     {
-        List<BroadcastChannel> channels = new ArrayList<>();
-
-        for(Identifier identifier: identifierCollection.getIdentifiers())
-        {
-            List<Alias> aliases = getAliases(identifier);
+        return new ArrayList<>(resolve(identifierCollection).getBroadcastChannels());
+    }
 
-            for(Alias alias: aliases)
-            {
-                if(alias != null && alias.isStreamable())
-                {
-                    for(BroadcastChannel broadcastChannel: alias.getBroadcastChannels())
-                    {
-                        if(!channels.contains(broadcastChannel))
-                        {
-                            channels.add(broadcastChannel);
-                        }
-                    }
-                }
-            }
-        }
+    /**
+     * Resolved aliases for the identifiers in the collection.  The resolved aliases are cached on the collection and
+     * are only recomputed when the identifiers or this alias list change.
+     *
+     * @param identifierCollection to resolve
+     * @return resolved aliases
+     */
+    public ResolvedAliases resolve(IdentifierCollection identifierCollection)
+    {
+        return ResolvedAliases.of(this, identifierCollection);
+    }
 
-        return channels;
+    /**
+     * Revision of the published alias index.  The revision changes when an index that includes recent alias edits is
+     * published, so views resolved against an earlier index can be detected as stale.
+     */
+    public long getRevision()
+    {
+        return mAliasIndex.getRevision();
     }
 
     /**
@@ -661,35 +746,6 @@ public class AliasList
         {
         }
 
-        public Alias getAlias(TalkgroupIdentifier identifier)
-        {
-            //Attempt to do a fully qualified identifier match only
-            if(identifier instanceof FullyQualifiedTalkgroupIdentifier fqti)
-            {
-                return mFullyQualifiedTalkgroupAliasMap.get(fqti.getFullyQualifiedTalkgroupAddress());
-            }
-
-            //Attempt to match the talkgroup value
-            int value = identifier.getValue();
-
-            Alias mapValue = mTalkgroupAliasMap.get(value);
-            if (mapValue != null)
-            {
-                return mapValue;
-            }
-
-            //Alternatively, match the talkgroup to any talkgroup ranges
-            for(Map.Entry<TalkgroupRange, Alias> entry : mTalkgroupRangeAliasMap.entrySet())
-            {
-                if(entry.getKey().contains(value))
-                {
-                    return entry.getValue();
-                }
-            }
-
-            return null;
-        }
-
         public void add(Talkgroup talkgroup, Alias alias)
         {
             if(talkgroup instanceof P25FullyQualifiedTalkgroup fqt)
@@ -763,9 +819,21 @@ public class AliasList
          */
         public void remove(Alias alias)
         {
+            mFullyQualifiedTalkgroupAliasMap.values().removeAll(Collections.singleton(alias));
             mTalkgroupAliasMap.values().removeAll(Collections.singleton(alias));
             mTalkgroupRangeAliasMap.values().removeAll(Collections.singleton(alias));
         }
+
+        /**
+         * Adds the talkgroups and talkgroup ranges to the alias index builder
+         */
+        private void compile(Protocol protocol, AliasIndex.Builder builder)
+        {
+            mFullyQualifiedTalkgroupAliasMap.forEach((key, alias) -> builder.fullyQualifiedTalkgroup(protocol, key, alias));
+            mTalkgroupAliasMap.forEach((value, alias) -> builder.talkgroup(protocol, value, alias));
+            mTalkgroupRangeAliasMap.forEach((range, alias) -> builder.talkgroupRange(protocol, range.getMinTalkgroup(),
+                range.getMaxTalkgroup(), alias));
+        }
     }
 
     /**
@@ -781,35 +849,6 @@ public class AliasList
         {
         }
 
-        public Alias getAlias(RadioIdentifier identifier)
-        {
-            //Match fully qualified identifier only.
-            if(identifier instanceof FullyQualifiedRadioIdentifier fqri)
-            {
-                return mFullyQualifiedRadioAliasMap.get(fqri.getFullyQualifiedRadioAddress());
-            }
-
-            //Attempt to match against the radio identifier
-            int value = identifier.getValue();
-
-            Alias mapValue = mRadioAliasMap.get(value);
-            if(mapValue != null)
-            {
-                return mapValue;
-            }
-
-            //Alternatively, attempt to match the radio address against any radio ranges.
-            for(Map.Entry<RadioRange, Alias> entry : mRadioRangeAliasMap.entrySet())
-            {
-                if(entry.getKey().contains(value))
-                {
-                    return entry.getValue();
-                }
-            }
-
-            return null;
-        }
-
         public void add(Radio radio, Alias alias)
         {
             if(radio instanceof P25FullyQualifiedRadio fqr)
@@ -883,8 +922,20 @@ public class AliasList
          */
         public void remove(Alias alias)
         {
+            mFullyQualifiedRadioAliasMap.values().removeAll(Collections.singleton(alias));
             mRadioAliasMap.values().removeAll(Collections.singleton(alias));
             mRadioRangeAliasMap.values().removeAll(Collections.singleton(alias));
         }
+
+        /**
+         * Adds the radios and radio ranges to the alias index builder
+         */
+        private void compile(Protocol protocol, AliasIndex.Builder builder)
+        {
+            mFullyQualifiedRadioAliasMap.forEach((key, alias) -> builder.fullyQualifiedRadio(protocol, key, alias));
+            mRadioAliasMap.forEach((value, alias) -> builder.radio(protocol, value, alias));
+            mRadioRangeAliasMap.forEach((range, alias) -> builder.radioRange(protocol, range.getMinRadio(),
+                range.getMaxRadio(), alias));
+        }
     }
 }
@@ -0,0 +1,223 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.alias;
+
+import io.github.dsheirer.alias.id.broadcast.BroadcastChannel;
+import io.github.dsheirer.alias.id.priority.Priority;
+import io.github.dsheirer.identifier.Identifier;
+import io.github.dsheirer.identifier.IdentifierCollection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable view of the aliases that are resolved for each of the identifiers in an identifier collection, along
+ * with the recording, streaming, playback priority and broadcast channel settings derived from those aliases.
+ *
+ * A resolved view is cached on the identifier collection and is stamped with the collection's modification count and
+ * the alias list's revision.  The view is recomputed when either stamp changes, so that recording, streaming,
+ * playback and metadata consumers can share a single set of alias lookups for each call.  When only the identifiers
+ * change, alias lookups for the unchanged identifiers are reused from the previous view.
+ */
+public final class ResolvedAliases
+{
+    private final AliasList mAliasList;
+    private final long mRevision;
+    private final int mModificationCount;
+    private final Map<Identifier,List<Alias>> mAliasMap;
+    private final List<Alias> mToAliases;
+    private final List<Alias> mFromAliases;
+    private final List<BroadcastChannel> mBroadcastChannels;
+    private final boolean mRecordable;
+    private final boolean mStreamable;
+    private final int mPlaybackPriority;
+
+    /**
+     * Constructs an instance.  Use the of() method to access the cached instance for an identifier collection.
+     */
+    private ResolvedAliases(AliasList aliasList, IdentifierCollection identifierCollection, ResolvedAliases previous)
+    {
+        mAliasList = aliasList;
+
+        //Capture the stamps before resolving so that a concurrent change causes a recompute on the next access
+        mRevision = aliasList.getRevision();
+        mModificationCount = identifierCollection.getModificationCount();
+
+        boolean reuse = previous != null && previous.mAliasList == aliasList && previous.mRevision == mRevision;
+        List<Identifier> identifiers = identifierCollection.getIdentifiers();
+        Map<Identifier,List<Alias>> aliasMap = new HashMap<>();
+        List<BroadcastChannel> broadcastChannels = new ArrayList<>();
+        boolean recordable = false;
+        boolean streamable = false;
+        int playbackPriority = Priority.DEFAULT_PRIORITY;
+
+        for(Identifier identifier: identifiers)
+        {
+            List<Alias> aliases = reuse ? previous.mAliasMap.get(identifier) : null;
+
+            if(aliases == null)
+            {
+                aliases = aliasList.getAliases(identifier);
+            }
+
+            aliasMap.put(identifier, aliases);
+
+            for(Alias alias: aliases)
+            {
+                recordable |= alias.isRecordable();
+                playbackPriority = Math.min(playbackPriority, alias.getPlaybackPriority());
+
+                if(alias.isStreamable())
+                {
+                    streamable = true;
+
+                    for(BroadcastChannel broadcastChannel: alias.getBroadcastChannels())
+                    {
+                        if(!broadcastChannels.contains(broadcastChannel))
+                        {
+                            broadcastChannels.add(broadcastChannel);
+                        }
+                    }
+                }
+            }
+        }
+
+        mAliasMap = aliasMap;
+        mToAliases = lookup(identifierCollection.getToIdentifier());
+        mFromAliases = lookup(identifierCollection.getFromIdentifier());
+        mBroadcastChannels = Collections.unmodifiableList(broadcastChannels);
+        mRecordable = recordable;
+        mStreamable = streamable;
+        mPlaybackPriority = playbackPriority;
+    }
+
+    /**
+     * Resolved aliases for the identifier collection.  Returns the view that is cached on the collection when it is
+     * still current, otherwise resolves and caches a new view.
+     *
+     * @param aliasList for resolving aliases
+     * @param identifierCollection to resolve
+     * @return resolved aliases
+     */
+    public static ResolvedAliases of(AliasList aliasList, IdentifierCollection identifierCollection)
+    {
+        ResolvedAliases cached = identifierCollection.getResolvedAliases();
+
+        if(cached != null && cached.isCurrent(aliasList, identifierCollection))
+        {
+            return cached;
+        }
+
+        ResolvedAliases resolved = new ResolvedAliases(aliasList, identifierCollection, cached);
+        identifierCollection.setResolvedAliases(resolved);
+        return resolved;
+    }
+
+    /**
+     * Indicates if this view was resolved from the alias list's current revision and the identifier collection's
+     * current identifiers.
+     */
+    public boolean isCurrent(AliasList aliasList, IdentifierCollection identifierCollection)
+    {
+        return mAliasList == aliasList && mRevision == aliasList.getRevision() &&
+            mModificationCount == identifierCollection.getModificationCount();
+    }
+
+    /**
+     * Aliases for the identifier.  Identifiers that are not part of the resolved collection (e.g. the patched
+     * talkgroups of a patch group) are looked up from the alias list.
+     *
+     * @param identifier to alias
+     * @return aliases or an empty list
+     */
+    public List<Alias> getAliases(Identifier identifier)
+    {
+        return lookup(identifier);
+    }
+
+    private List<Alias> lookup(Identifier identifier)
+    {
+        if(identifier == null)
+        {
+            return Collections.emptyList();
+        }
+
+        List<Alias> aliases = mAliasMap.get(identifier);
+        return aliases != null ? aliases : mAliasList.getAliases(identifier);
+    }
+
+    /**
+     * Aliases for the collection's TO identifier
+     */
+    public List<Alias> getToAliases()
+    {
+        return mToAliases;
+    }
+
+    /**
+     * Aliases for the collection's FROM identifier
+     */
+    public List<Alias> getFromAliases()
+    {
+        return mFromAliases;
+    }
+
+    /**
+     * Indicates if any of the resolved aliases are recordable
+     */
+    public boolean isRecordable()
+    {
+        return mRecordable;
+    }
+
+    /**
+     * Indicates if any of the resolved aliases are streamable
+     */
+    public boolean isStreamable()
+    {
+        return mStreamable;
+    }
+
+    /**
+     * Lowest (ie highest precedence) audio playback priority of the resolved aliases, or the default priority.
+     */
+    public int getPlaybackPriority()
+    {
+        return mPlaybackPriority;
+    }
+
+    /**
+     * Broadcast channels of the resolved streamable aliases
+     */
+    public List<BroadcastChannel> getBroadcastChannels()
+    {
+        return mBroadcastChannels;
+    }
+
+    /**
+     * Alias list revision that this view was resolved from
+     */
+    public long getRevision()
+    {
+        return mRevision;
+    }
+}
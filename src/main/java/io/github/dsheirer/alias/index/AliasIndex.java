@@ -0,0 +1,393 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.alias.index;
+
+import io.github.dsheirer.alias.Alias;
+import io.github.dsheirer.identifier.tone.ToneSequence;
+import io.github.dsheirer.module.decode.dcs.DCSCode;
+import io.github.dsheirer.protocol.Protocol;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, compiled snapshot of the alias identifiers for an alias list, optimized for lookups from decoder threads.
+ *
+ * Talkgroup and radio values are held in primitive integer hash maps per protocol, talkgroup and radio ranges are
+ * held in interval trees, and lookups for values that don't have an alias are remembered in a negative lookup cache.
+ * The index is never modified after it is built, so it can be safely read from any thread without locking.  Alias
+ * edits are applied by building and publishing a replacement index.
+ */
+public final class AliasIndex
+{
+    private static final int TYPE_TALKGROUP = 0;
+    private static final int TYPE_RADIO = 1;
+    private static final int NEGATIVE_CACHE_SIZE = 4096;
+
+    private final long mRevision;
+    private final ProtocolIndex[] mTalkgroups;
+    private final ProtocolIndex[] mRadios;
+    private final Map<DCSCode,Alias> mDCSCodeAliasMap;
+    private final Map<String,Alias> mESNMap;
+    private final IntAliasMap mUnitStatusMap;
+    private final IntAliasMap mUserStatusMap;
+    private final ToneSequence[] mToneSequences;
+    private final Alias[] mToneAliases;
+    private final NegativeLookupCache mNegativeLookupCache = new NegativeLookupCache(NEGATIVE_CACHE_SIZE);
+
+    private AliasIndex(Builder builder)
+    {
+        mRevision = builder.mRevision;
+        mTalkgroups = compile(builder.mTalkgroups);
+        mRadios = compile(builder.mRadios);
+        mDCSCodeAliasMap = builder.mDCSCodeAliasMap.isEmpty() ? Map.of() : new EnumMap<>(builder.mDCSCodeAliasMap);
+        mESNMap = Map.copyOf(builder.mESNMap);
+        mUnitStatusMap = builder.mUnitStatus.toMap();
+        mUserStatusMap = builder.mUserStatus.toMap();
+        mToneSequences = builder.mToneSequences.toArray(new ToneSequence[0]);
+        mToneAliases = builder.mToneAliases.toArray(new Alias[0]);
+    }
+
+    /**
+     * Revision of the alias list that this index was compiled from
+     */
+    public long getRevision()
+    {
+        return mRevision;
+    }
+
+    /**
+     * Alias for the talkgroup value or the narrowest talkgroup range that contains the value.
+     * @param protocol of the talkgroup
+     * @param value of the talkgroup
+     * @return alias or null
+     */
+    public Alias getTalkgroupAlias(Protocol protocol, int value)
+    {
+        return get(mTalkgroups, TYPE_TALKGROUP, protocol, value);
+    }
+
+    /**
+     * Alias for the fully qualified talkgroup
+     * @param protocol of the talkgroup
+     * @param fullyQualifiedAddress of the talkgroup
+     * @return alias or null
+     */
+    public Alias getFullyQualifiedTalkgroupAlias(Protocol protocol, String fullyQualifiedAddress)
+    {
+        return getFullyQualified(mTalkgroups, protocol, fullyQualifiedAddress);
+    }
+
+    /**
+     * Alias for the radio value or the narrowest radio range that contains the value.
+     * @param protocol of the radio
+     * @param value of the radio
+     * @return alias or null
+     */
+    public Alias getRadioAlias(Protocol protocol, int value)
+    {
+        return get(mRadios, TYPE_RADIO, protocol, value);
+    }
+
+    /**
+     * Alias for the fully qualified radio
+     * @param protocol of the radio
+     * @param fullyQualifiedAddress of the radio
+     * @return alias or null
+     */
+    public Alias getFullyQualifiedRadioAlias(Protocol protocol, String fullyQualifiedAddress)
+    {
+        return getFullyQualified(mRadios, protocol, fullyQualifiedAddress);
+    }
+
+    /**
+     * Alias for the DCS code
+     */
+    public Alias getDCSAlias(DCSCode code)
+    {
+        return code != null ? mDCSCodeAliasMap.get(code) : null;
+    }
+
+    /**
+     * Alias for the ESN
+     */
+    public Alias getESNAlias(String esn)
+    {
+        return esn != null ? mESNMap.get(esn) : null;
+    }
+
+    /**
+     * Alias for the unit status value
+     */
+    public Alias getUnitStatusAlias(int status)
+    {
+        return mUnitStatusMap.get(status);
+    }
+
+    /**
+     * Alias for the user status value
+     */
+    public Alias getUserStatusAlias(int status)
+    {
+        return mUserStatusMap.get(status);
+    }
+
+    /**
+     * Alias for the first aliased tone sequence that is contained in the tone sequence.
+     *
+     * Note: tone sequence matching is a containment test rather than an exact match, so tone sequences are searched
+     * sequentially.  Tone aliases are few in practice.
+     */
+    public Alias getToneAlias(ToneSequence toneSequence)
+    {
+        if(toneSequence != null)
+        {
+            for(int x = 0; x < mToneSequences.length; x++)
+            {
+                if(mToneSequences[x].isContainedIn(toneSequence))
+                {
+                    return mToneAliases[x];
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Looks up the value in the protocol's value map, then the protocol's range tree, remembering misses.
+     */
+    private Alias get(ProtocolIndex[] indexes, int type, Protocol protocol, int value)
+    {
+        if(protocol == null)
+        {
+            return null;
+        }
+
+        ProtocolIndex index = indexes[protocol.ordinal()];
+
+        if(index == null)
+        {
+            return null;
+        }
+
+        Alias alias = index.values().get(value);
+
+        if(alias != null || index.ranges().isEmpty())
+        {
+            return alias;
+        }
+
+        long key = NegativeLookupCache.key(type, protocol.ordinal(), value);
+
+        if(mNegativeLookupCache.contains(key))
+        {
+            return null;
+        }
+
+        alias = index.ranges().get(value);
+
+        if(alias == null)
+        {
+            mNegativeLookupCache.add(key);
+        }
+
+        return alias;
+    }
+
+    private static Alias getFullyQualified(ProtocolIndex[] indexes, Protocol protocol, String fullyQualifiedAddress)
+    {
+        if(protocol == null || fullyQualifiedAddress == null)
+        {
+            return null;
+        }
+
+        ProtocolIndex index = indexes[protocol.ordinal()];
+        return index != null ? index.fullyQualified().get(fullyQualifiedAddress) : null;
+    }
+
+    private static ProtocolIndex[] compile(Map<Protocol,ProtocolBuilder> builders)
+    {
+        ProtocolIndex[] indexes = new ProtocolIndex[Protocol.values().length];
+
+        for(Map.Entry<Protocol,ProtocolBuilder> entry: builders.entrySet())
+        {
+            indexes[entry.getKey().ordinal()] = entry.getValue().build();
+        }
+
+        return indexes;
+    }
+
+    /**
+     * Compiled values, ranges and fully qualified identifiers for a single protocol
+     */
+    private record ProtocolIndex(IntAliasMap values, AliasRangeTree ranges, Map<String,Alias> fullyQualified) {}
+
+    /**
+     * Collects alias identifiers for a single protocol
+     */
+    private static class ProtocolBuilder
+    {
+        private final IntEntries mValues = new IntEntries();
+        private final IntEntries mRanges = new IntEntries();
+        private final Map<String,Alias> mFullyQualified = new HashMap<>();
+
+        private ProtocolIndex build()
+        {
+            return new ProtocolIndex(mValues.toMap(),
+                AliasRangeTree.create(mRanges.mKeys, mRanges.mMaximums, mRanges.mAliases, mRanges.mCount),
+                Map.copyOf(mFullyQualified));
+        }
+    }
+
+    /**
+     * Growable parallel arrays of integer keys (and optional range maximums) and aliases
+     */
+    private static class IntEntries
+    {
+        private int[] mKeys = new int[16];
+        private int[] mMaximums = new int[16];
+        private Alias[] mAliases = new Alias[16];
+        private int mCount;
+
+        private void add(int key, int maximum, Alias alias)
+        {
+            if(mCount == mKeys.length)
+            {
+                mKeys = Arrays.copyOf(mKeys, mCount * 2);
+                mMaximums = Arrays.copyOf(mMaximums, mCount * 2);
+                mAliases = Arrays.copyOf(mAliases, mCount * 2);
+            }
+
+            mKeys[mCount] = key;
+            mMaximums[mCount] = maximum;
+            mAliases[mCount] = alias;
+            mCount++;
+        }
+
+        private IntAliasMap toMap()
+        {
+            return IntAliasMap.create(mKeys, mAliases, mCount);
+        }
+    }
+
+    /**
+     * Builder for an alias index.  Not thread safe.
+     */
+    public static class Builder
+    {
+        private final long mRevision;
+        private final Map<Protocol,ProtocolBuilder> mTalkgroups = new EnumMap<>(Protocol.class);
+        private final Map<Protocol,ProtocolBuilder> mRadios = new EnumMap<>(Protocol.class);
+        private final Map<DCSCode,Alias> mDCSCodeAliasMap = new EnumMap<>(DCSCode.class);
+        private final Map<String,Alias> mESNMap = new HashMap<>();
+        private final IntEntries mUnitStatus = new IntEntries();
+        private final IntEntries mUserStatus = new IntEntries();
+        private final List<ToneSequence> mToneSequences = new ArrayList<>();
+        private final List<Alias> mToneAliases = new ArrayList<>();
+
+        /**
+         * Constructs an instance
+         * @param revision of the alias list that is being compiled
+         */
+        public Builder(long revision)
+        {
+            mRevision = revision;
+        }
+
+        public Builder talkgroup(Protocol protocol, int value, Alias alias)
+        {
+            mTalkgroups.computeIfAbsent(protocol, p -> new ProtocolBuilder()).mValues.add(value, value, alias);
+            return this;
+        }
+
+        public Builder talkgroupRange(Protocol protocol, int minimum, int maximum, Alias alias)
+        {
+            mTalkgroups.computeIfAbsent(protocol, p -> new ProtocolBuilder()).mRanges.add(minimum, maximum, alias);
+            return this;
+        }
+
+        public Builder fullyQualifiedTalkgroup(Protocol protocol, String address, Alias alias)
+        {
+            mTalkgroups.computeIfAbsent(protocol, p -> new ProtocolBuilder()).mFullyQualified.put(address, alias);
+            return this;
+        }
+
+        public Builder radio(Protocol protocol, int value, Alias alias)
+        {
+            mRadios.computeIfAbsent(protocol, p -> new ProtocolBuilder()).mValues.add(value, value, alias);
+            return this;
+        }
+
+        public Builder radioRange(Protocol protocol, int minimum, int maximum, Alias alias)
+        {
+            mRadios.computeIfAbsent(protocol, p -> new ProtocolBuilder()).mRanges.add(minimum, maximum, alias);
+            return this;
+        }
+
+        public Builder fullyQualifiedRadio(Protocol protocol, String address, Alias alias)
+        {
+            mRadios.computeIfAbsent(protocol, p -> new ProtocolBuilder()).mFullyQualified.put(address, alias);
+            return this;
+        }
+
+        public Builder dcs(DCSCode code, Alias alias)
+        {
+            mDCSCodeAliasMap.put(code, alias);
+            return this;
+        }
+
+        public Builder esn(String esn, Alias alias)
+        {
+            mESNMap.put(esn, alias);
+            return this;
+        }
+
+        public Builder unitStatus(int status, Alias alias)
+        {
+            mUnitStatus.add(status, status, alias);
+            return this;
+        }
+
+        public Builder userStatus(int status, Alias alias)
+        {
+            mUserStatus.add(status, status, alias);
+            return this;
+        }
+
+        public Builder toneSequence(ToneSequence toneSequence, Alias alias)
+        {
+            mToneSequences.add(toneSequence);
+            mToneAliases.add(alias);
+            return this;
+        }
+
+        /**
+         * Builds the immutable index
+         */
+        public AliasIndex build()
+        {
+            return new AliasIndex(this);
+        }
+    }
+}
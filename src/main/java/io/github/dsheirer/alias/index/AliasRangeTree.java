@@ -0,0 +1,186 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.alias.index;
+
+import io.github.dsheirer.alias.Alias;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Immutable interval tree of value ranges (e.g. talkgroup or radio ranges) to aliases.
+ *
+ * Ranges are sorted by minimum value and stored in arrays that form an implicit balanced binary search tree, where
+ * the middle element of each sub-array is the node for that sub-tree.  Each node is augmented with the largest maximum
+ * value in its sub-tree so that a point query can skip sub-trees that can't contain the value, giving O(log n + k)
+ * lookups where k is the number of ranges that contain the value.
+ *
+ * When more than one range contains the value, the narrowest range wins, and ties go to the range with the lowest
+ * minimum value.
+ */
+public final class AliasRangeTree
+{
+    private static final AliasRangeTree EMPTY = new AliasRangeTree(new int[0], new int[0], new Alias[0]);
+    private final int[] mMinimums;
+    private final int[] mMaximums;
+    private final int[] mSubTreeMaximums;
+    private final Alias[] mAliases;
+
+    private AliasRangeTree(int[] minimums, int[] maximums, Alias[] aliases)
+    {
+        mMinimums = minimums;
+        mMaximums = maximums;
+        mAliases = aliases;
+        mSubTreeMaximums = new int[minimums.length];
+        augment(0, minimums.length - 1);
+    }
+
+    /**
+     * Empty tree instance
+     */
+    public static AliasRangeTree empty()
+    {
+        return EMPTY;
+    }
+
+    /**
+     * Creates a tree from parallel range and alias arrays.
+     * @param minimums for each range, inclusive
+     * @param maximums for each range, inclusive
+     * @param aliases for each range
+     * @param count of entries to use from the arrays
+     */
+    public static AliasRangeTree create(int[] minimums, int[] maximums, Alias[] aliases, int count)
+    {
+        if(count == 0)
+        {
+            return EMPTY;
+        }
+
+        Integer[] order = new Integer[count];
+
+        for(int x = 0; x < count; x++)
+        {
+            order[x] = x;
+        }
+
+        Arrays.sort(order, Comparator.<Integer>comparingInt(x -> minimums[x]).thenComparingInt(x -> maximums[x]));
+
+        int[] sortedMinimums = new int[count];
+        int[] sortedMaximums = new int[count];
+        Alias[] sortedAliases = new Alias[count];
+
+        for(int x = 0; x < count; x++)
+        {
+            sortedMinimums[x] = minimums[order[x]];
+            sortedMaximums[x] = maximums[order[x]];
+            sortedAliases[x] = aliases[order[x]];
+        }
+
+        return new AliasRangeTree(sortedMinimums, sortedMaximums, sortedAliases);
+    }
+
+    /**
+     * Calculates the largest maximum value for each node's sub-tree
+     * @return largest maximum for the sub-tree bounded by low and high
+     */
+    private int augment(int low, int high)
+    {
+        if(low > high)
+        {
+            return Integer.MIN_VALUE;
+        }
+
+        int middle = (low + high) >>> 1;
+        int maximum = Math.max(mMaximums[middle], Math.max(augment(low, middle - 1), augment(middle + 1, high)));
+        mSubTreeMaximums[middle] = maximum;
+        return maximum;
+    }
+
+    /**
+     * Alias for the narrowest range that contains the value
+     * @param value to lookup
+     * @return alias or null
+     */
+    public Alias get(int value)
+    {
+        if(mMinimums.length == 0)
+        {
+            return null;
+        }
+
+        int best = find(0, mMinimums.length - 1, value, -1);
+        return best >= 0 ? mAliases[best] : null;
+    }
+
+    /**
+     * Searches the sub-tree bounded by low and high for the narrowest range that contains the value.
+     * @return index of the best matching range or the best argument when there is no better match
+     */
+    private int find(int low, int high, int value, int best)
+    {
+        while(low <= high)
+        {
+            int middle = (low + high) >>> 1;
+
+            if(mSubTreeMaximums[middle] < value)
+            {
+                return best;
+            }
+
+            best = find(low, middle - 1, value, best);
+
+            if(mMinimums[middle] > value)
+            {
+                //All ranges to the right start after the value
+                return best;
+            }
+
+            if(mMaximums[middle] >= value && (best < 0 || width(middle) < width(best)))
+            {
+                best = middle;
+            }
+
+            low = middle + 1;
+        }
+
+        return best;
+    }
+
+    private long width(int index)
+    {
+        return (long)mMaximums[index] - mMinimums[index];
+    }
+
+    /**
+     * Number of ranges in the tree
+     */
+    public int size()
+    {
+        return mMinimums.length;
+    }
+
+    /**
+     * Indicates if the tree is empty
+     */
+    public boolean isEmpty()
+    {
+        return mMinimums.length == 0;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.alias.index;
+
+import io.github.dsheirer.alias.Alias;
+
+/**
+ * Immutable open addressing hash map of primitive integer keys (e.g. talkgroup or radio values) to aliases.  Keys are
+ * stored in a primitive array so that a lookup doesn't box the key or chase map entry objects.
+ */
+public final class IntAliasMap
+{
+    private static final IntAliasMap EMPTY = new IntAliasMap(new int[1], new Alias[1], 0);
+    private final int[] mKeys;
+    private final Alias[] mValues;
+    private final int mMask;
+    private final int mSize;
+
+    private IntAliasMap(int[] keys, Alias[] values, int size)
+    {
+        mKeys = keys;
+        mValues = values;
+        mMask = keys.length - 1;
+        mSize = size;
+    }
+
+    /**
+     * Empty map instance
+     */
+    public static IntAliasMap empty()
+    {
+        return EMPTY;
+    }
+
+    /**
+     * Creates a map from parallel key and value arrays.  Later duplicate keys replace earlier ones.
+     * @param keys to map
+     * @param values for each key, non-null
+     * @param count of entries to use from the arrays
+     */
+    public static IntAliasMap create(int[] keys, Alias[] values, int count)
+    {
+        if(count == 0)
+        {
+            return EMPTY;
+        }
+
+        //Power of 2 capacity with a load factor of 0.5 or less
+        int capacity = Integer.highestOneBit(Math.max(count, 1) * 2 - 1) << 1;
+        int[] tableKeys = new int[capacity];
+        Alias[] tableValues = new Alias[capacity];
+        int mask = capacity - 1;
+        int size = 0;
+
+        for(int x = 0; x < count; x++)
+        {
+            int slot = hash(keys[x]) & mask;
+
+            while(tableValues[slot] != null && tableKeys[slot] != keys[x])
+            {
+                slot = (slot + 1) & mask;
+            }
+
+            if(tableValues[slot] == null)
+            {
+                size++;
+            }
+
+            tableKeys[slot] = keys[x];
+            tableValues[slot] = values[x];
+        }
+
+        return new IntAliasMap(tableKeys, tableValues, size);
+    }
+
+    /**
+     * Alias mapped to the key
+     * @param key to lookup
+     * @return alias or null
+     */
+    public Alias get(int key)
+    {
+        int slot = hash(key) & mMask;
+        Alias value;
+
+        while((value = mValues[slot]) != null)
+        {
+            if(mKeys[slot] == key)
+            {
+                return value;
+            }
+
+            slot = (slot + 1) & mMask;
+        }
+
+        return null;
+    }
+
+    /**
+     * Number of mapped keys
+     */
+    public int size()
+    {
+        return mSize;
+    }
+
+    /**
+     * Indicates if the map is empty
+     */
+    public boolean isEmpty()
+    {
+        return mSize == 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "IntAliasMap size:" + mSize + " capacity:" + mKeys.length;
+    }
+
+    /**
+     * Fibonacci hash to spread sequential talkgroup and radio values across the table
+     */
+    private static int hash(int key)
+    {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
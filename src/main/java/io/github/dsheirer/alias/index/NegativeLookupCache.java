@@ -0,0 +1,81 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.alias.index;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free, direct mapped cache of lookup keys that are known to have no alias.  Decoders repeatedly lookup the same
+ * un-aliased talkgroups and radios, so caching the misses avoids repeating the range search for each lookup.
+ *
+ * Each slot holds one key and a colliding key simply replaces it.  The cache is owned by a single immutable alias
+ * index, so it never has to be invalidated: an alias edit publishes a new index with a new, empty cache.
+ */
+public final class NegativeLookupCache
+{
+    private static final long OCCUPIED = 1L << 63;
+    private final AtomicLongArray mSlots;
+    private final int mMask;
+
+    /**
+     * Constructs an instance
+     * @param size of the cache, rounded up to a power of 2
+     */
+    public NegativeLookupCache(int size)
+    {
+        int capacity = Integer.highestOneBit(Math.max(size, 2) - 1) << 1;
+        mSlots = new AtomicLongArray(capacity);
+        mMask = capacity - 1;
+    }
+
+    /**
+     * Creates a cache key for a lookup
+     * @param type of lookup, 0-255
+     * @param ordinal of the protocol
+     * @param value looked up
+     * @return key
+     */
+    public static long key(int type, int ordinal, int value)
+    {
+        return OCCUPIED | ((long)(type & 0xFF) << 48) | ((long)(ordinal & 0xFFFF) << 32) | (value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Indicates if the key was previously recorded as a miss
+     */
+    public boolean contains(long key)
+    {
+        return mSlots.getOpaque(slot(key)) == key;
+    }
+
+    /**
+     * Records the key as a miss
+     */
+    public void add(long key)
+    {
+        mSlots.setOpaque(slot(key), key);
+    }
+
+    private int slot(long key)
+    {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int)(hash >>> 40) & mMask;
+    }
+}
@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- * Copyright (C) 2014-2024 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -19,8 +19,8 @@
 
 package io.github.dsheirer.audio;
 
-import io.github.dsheirer.alias.Alias;
 import io.github.dsheirer.alias.AliasList;
+import io.github.dsheirer.alias.ResolvedAliases;
 import io.github.dsheirer.alias.id.broadcast.BroadcastChannel;
 import io.github.dsheirer.alias.id.priority.Priority;
 import io.github.dsheirer.identifier.Identifier;
@@ -449,28 +449,32 @@ public class AudioSegment implements Listener<IdentifierUpdateNotification>
             mEncrypted.set(eki.isEncrypted());
         }
 
-        List<Alias> aliases = mAliasList.getAliases(identifier);
+        ResolvedAliases resolvedAliases = getResolvedAliases();
 
-        for(Alias alias: aliases)
+        if(resolvedAliases.isRecordable())
         {
-            if(alias.isRecordable())
-            {
-                mRecordAudio.set(true);
-            }
-
-            //Add all broadcast channels for the alias ... let the set handle duplication.
-            mBroadcastChannels.addAll(alias.getBroadcastChannels());
+            mRecordAudio.set(true);
+        }
 
-            //Only assign a playback priority if it is lower priority than the current setting.
-            int playbackPriority = alias.getPlaybackPriority();
+        //Add all broadcast channels for the aliases ... let the set handle duplication.
+        mBroadcastChannels.addAll(resolvedAliases.getBroadcastChannels());
 
-            if(playbackPriority < mMonitorPriority.get())
-            {
-                mMonitorPriority.set(playbackPriority);
-            }
+        //Only assign a playback priority if it is lower priority than the current setting.
+        if(resolvedAliases.getPlaybackPriority() < mMonitorPriority.get())
+        {
+            mMonitorPriority.set(resolvedAliases.getPlaybackPriority());
         }
     }
 
+    /**
+     * Resolved aliases for the identifiers in this audio segment.  The resolved aliases are computed once for each
+     * identifier change or alias list edit and shared by the recording, streaming and playback consumers.
+     */
+    public ResolvedAliases getResolvedAliases()
+    {
+        return mAliasList.resolve(mIdentifierCollection);
+    }
+
     /**
      * Indicates if this audio segment has been flagged as a duplicate audio call
      */
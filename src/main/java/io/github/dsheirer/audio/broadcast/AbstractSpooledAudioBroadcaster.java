@@ -0,0 +1,208 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.audio.broadcast;
+
+import io.github.dsheirer.audio.broadcast.spool.ISpoolUploader;
+import io.github.dsheirer.audio.broadcast.spool.SpoolEvent;
+import io.github.dsheirer.audio.broadcast.spool.SpoolResult;
+import io.github.dsheirer.audio.broadcast.spool.UploadSpool;
+import io.github.dsheirer.sample.Listener;
+import java.nio.file.Path;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Base class for completed call upload broadcasters (e.g. Broadcastify Calls, Rdio Scanner and OpenMHz).
+ *
+ * Completed audio recordings are resolved into a set of upload form field values and placed into a persistent upload
+ * spool that manages concurrent uploads, retry with backoff and age-off for the broadcaster.  The audio recording is
+ * released back to the broadcast model as soon as it is spooled, since the spool holds its own copy of the file.
+ *
+ * Subclasses provide the form field values for a recording and the service specific upload of a spooled entry.
+ */
+public abstract class AbstractSpooledAudioBroadcaster<T extends BroadcastConfiguration> extends AbstractAudioBroadcaster<T>
+    implements ISpoolUploader
+{
+    private final static Logger mLog = LoggerFactory.getLogger(AbstractSpooledAudioBroadcaster.class);
+    private final UploadSpool mUploadSpool;
+
+    /**
+     * Constructs an instance
+     * @param broadcastConfiguration to use for this broadcaster
+     * @param streamingDirectory parent directory for the upload spool directory
+     */
+    public AbstractSpooledAudioBroadcaster(T broadcastConfiguration, Path streamingDirectory)
+    {
+        super(broadcastConfiguration);
+        mUploadSpool = new UploadSpool(broadcastConfiguration.getName(),
+            UploadSpool.getSpoolDirectory(streamingDirectory, broadcastConfiguration), this,
+            broadcastConfiguration.getMaximumConcurrentUploads(), broadcastConfiguration.getMaximumRecordingAge());
+        mUploadSpool.setListener(new SpoolEventListener());
+    }
+
+    /**
+     * Upload spool for this broadcaster
+     */
+    public UploadSpool getUploadSpool()
+    {
+        return mUploadSpool;
+    }
+
+    /**
+     * Resolves the upload form field values for the audio recording.  This is invoked once when the recording is
+     * spooled and the values are persisted with the spool entry, so subclasses should not include values that can
+     * change with the configuration, like API keys.
+     * @param audioRecording to resolve
+     * @return map of form field names to values
+     */
+    protected abstract Map<String,String> getUploadFields(AudioRecording audioRecording);
+
+    /**
+     * Stops the upload spool.  Pending uploads remain in the spool journal and are resumed on the next start.
+     */
+    @Override
+    public void dispose()
+    {
+        mUploadSpool.stop();
+    }
+
+    /**
+     * Signals the upload spool when the broadcaster connects so that pending uploads are dispatched.
+     */
+    @Override
+    public void setBroadcastState(BroadcastState broadcastState)
+    {
+        super.setBroadcastState(broadcastState);
+
+        if(broadcastState == BroadcastState.CONNECTED)
+        {
+            mUploadSpool.signal();
+        }
+    }
+
+    @Override
+    public int getAudioQueueSize()
+    {
+        return mUploadSpool.getBacklog();
+    }
+
+    @Override
+    public void receive(AudioRecording audioRecording)
+    {
+        try
+        {
+            if(isValid(audioRecording) && audioRecording.getRecordingLength() > 0)
+            {
+                if(!mUploadSpool.offer(audioRecording.getPath(), audioRecording.getStartTime(),
+                    audioRecording.getRecordingLength(), getUploadFields(audioRecording)))
+                {
+                    incrementErrorAudioCount();
+                    broadcast(new BroadcastEvent(this, BroadcastEvent.Event.BROADCASTER_ERROR_COUNT_CHANGE));
+                }
+            }
+        }
+        catch(Exception e)
+        {
+            mLog.error("Error spooling audio recording for upload", e);
+            incrementErrorAudioCount();
+            broadcast(new BroadcastEvent(this, BroadcastEvent.Event.BROADCASTER_ERROR_COUNT_CHANGE));
+        }
+        finally
+        {
+            audioRecording.removePendingReplay();
+        }
+    }
+
+    /**
+     * Indicates if the audio recording is non-null and not too old, meaning that the age of the recording has not
+     * exceeded the max age value indicated in the broadcast configuration.
+     * @param audioRecording to test
+     * @return true if the recording is valid
+     */
+    protected boolean isValid(AudioRecording audioRecording)
+    {
+        return audioRecording != null && System.currentTimeMillis() - audioRecording.getStartTime() <=
+            getBroadcastConfiguration().getMaximumRecordingAge();
+    }
+
+    /**
+     * Maps an HTTP response status code to a spool result.  Request timeouts, rate limiting and server errors are
+     * considered transient and are retried, while any other non-success status is a permanent failure.
+     * @param statusCode from the server response
+     * @return spool result
+     */
+    protected static SpoolResult getSpoolResult(int statusCode)
+    {
+        if(statusCode >= 200 && statusCode < 300)
+        {
+            return SpoolResult.SUCCESS;
+        }
+        else if(statusCode == 408 || statusCode == 429 || statusCode >= 500)
+        {
+            return SpoolResult.RETRY;
+        }
+
+        return SpoolResult.FAILED;
+    }
+
+    /**
+     * Translates upload spool events into broadcaster counts and broadcast events.
+     */
+    public class SpoolEventListener implements Listener<SpoolEvent>
+    {
+        @Override
+        public void receive(SpoolEvent spoolEvent)
+        {
+            switch(spoolEvent.getEvent())
+            {
+                case UPLOADED:
+                    incrementStreamedAudioCount();
+                    broadcast(new BroadcastEvent(AbstractSpooledAudioBroadcaster.this,
+                        BroadcastEvent.Event.BROADCASTER_STREAMED_COUNT_CHANGE));
+                    break;
+                case RETRY:
+                    //Flag the temporary error so that the broadcaster re-tests the connection before uploading again
+                    setBroadcastState(BroadcastState.TEMPORARY_BROADCAST_ERROR);
+                    incrementErrorAudioCount();
+                    broadcast(new BroadcastEvent(AbstractSpooledAudioBroadcaster.this,
+                        BroadcastEvent.Event.BROADCASTER_ERROR_COUNT_CHANGE));
+                    break;
+                case ERROR:
+                    incrementErrorAudioCount();
+                    broadcast(new BroadcastEvent(AbstractSpooledAudioBroadcaster.this,
+                        BroadcastEvent.Event.BROADCASTER_ERROR_COUNT_CHANGE));
+                    break;
+                case AGED_OFF:
+                    incrementAgedOffAudioCount();
+                    broadcast(new BroadcastEvent(AbstractSpooledAudioBroadcaster.this,
+                        BroadcastEvent.Event.BROADCASTER_AGED_OFF_COUNT_CHANGE));
+                    break;
+                case QUEUE_CHANGE:
+                    broadcast(new BroadcastEvent(AbstractSpooledAudioBroadcaster.this,
+                        BroadcastEvent.Event.BROADCASTER_QUEUE_CHANGE));
+                    break;
+                case DUPLICATE:
+                default:
+                    break;
+            }
+        }
+    }
+}
@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- * Copyright (C) 2014-2024 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -20,7 +20,7 @@
 package io.github.dsheirer.audio.broadcast;
 
 import io.github.dsheirer.alias.Alias;
-import io.github.dsheirer.alias.AliasList;
+import io.github.dsheirer.alias.ResolvedAliases;
 import io.github.dsheirer.alias.id.broadcast.BroadcastChannel;
 import io.github.dsheirer.audio.AudioSegment;
 import io.github.dsheirer.identifier.Identifier;
@@ -170,11 +170,11 @@ public class AudioStreamingManager implements Listener<AudioSegment>
                             }
                             else
                             {
-                                AliasList aliasList = audioSegment.getAliasList();
+                                ResolvedAliases resolvedAliases = audioSegment.getResolvedAliases();
 
                                 for(Identifier identifier: ids)
                                 {
-                                    List<Alias> aliases = aliasList.getAliases(identifier);
+                                    List<Alias> aliases = resolvedAliases.getAliases(identifier);
                                     Set<BroadcastChannel> broadcastChannels = new HashSet<>();
                                     for(Alias alias: aliases)
                                     {
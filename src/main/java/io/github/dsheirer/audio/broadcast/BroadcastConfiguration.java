@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- * Copyright (C) 2014-2022 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -44,6 +44,7 @@ import org.slf4j.LoggerFactory;
 
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.util.UUID;
 
 @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.PROPERTY, property = "type")
 @JsonSubTypes({
@@ -60,6 +61,7 @@ public abstract class BroadcastConfiguration
     private final static Logger mLog = LoggerFactory.getLogger(BroadcastConfiguration.class);
     // Static unique channel identifier tracking
     private static int UNIQUE_ID = 0;
+    public static final int DEFAULT_MAXIMUM_CONCURRENT_UPLOADS = 4;
 
     private BroadcastFormat mBroadcastFormat = BroadcastFormat.MP3;
     protected StringProperty mName = new SimpleStringProperty();
@@ -68,9 +70,11 @@ public abstract class BroadcastConfiguration
     protected StringProperty mPassword = new SimpleStringProperty();
     protected LongProperty mDelay = new SimpleLongProperty();
     protected LongProperty mMaximumRecordingAge = new SimpleLongProperty(10 * 60 * 1000); //10 minutes default
+    protected IntegerProperty mMaximumConcurrentUploads = new SimpleIntegerProperty(DEFAULT_MAXIMUM_CONCURRENT_UPLOADS);
     protected BooleanProperty mEnabled = new SimpleBooleanProperty(false);
     protected BooleanProperty mValid = new SimpleBooleanProperty();
     private int mId = ++UNIQUE_ID;
+    private String mSpoolId;
 
     public BroadcastConfiguration()
     {
@@ -86,6 +90,37 @@ public abstract class BroadcastConfiguration
         return mId;
     }
 
+    /**
+     * Persistent unique identifier for the upload spool of this configuration.  An identifier is created the first time
+     * it is requested for configurations that don't have one, and is saved with the playlist.
+     */
+    @JacksonXmlProperty(isAttribute = true, localName = "spool_id")
+    public String getSpoolId()
+    {
+        if(mSpoolId == null)
+        {
+            mSpoolId = UUID.randomUUID().toString();
+        }
+
+        return mSpoolId;
+    }
+
+    /**
+     * Sets the persistent upload spool identifier
+     */
+    public void setSpoolId(String spoolId)
+    {
+        mSpoolId = spoolId;
+    }
+
+    /**
+     * Indicates if this configuration has a persistent upload spool identifier
+     */
+    public boolean hasSpoolId()
+    {
+        return mSpoolId != null;
+    }
+
     /**
      * Creates a copy/clone of the configuration
      */
@@ -341,6 +376,33 @@ public abstract class BroadcastConfiguration
         mMaximumRecordingAge.set(age);
     }
 
+    /**
+     * Maximum concurrent uploads as a property
+     */
+    public IntegerProperty maximumConcurrentUploadsProperty()
+    {
+        return mMaximumConcurrentUploads;
+    }
+
+    /**
+     * Maximum number of simultaneous recording uploads to the server.  Only applies to completed call upload
+     * services (e.g. Broadcastify Calls, Rdio Scanner and OpenMHz) and is ignored by streaming services.
+     */
+    @JacksonXmlProperty(isAttribute = true, localName = "maximum_concurrent_uploads")
+    public int getMaximumConcurrentUploads()
+    {
+        return mMaximumConcurrentUploads.get();
+    }
+
+    /**
+     * Sets the maximum number of simultaneous recording uploads to the server.
+     * @param maximum uploads, minimum of 1
+     */
+    public void setMaximumConcurrentUploads(int maximum)
+    {
+        mMaximumConcurrentUploads.set(Math.max(1, maximum));
+    }
+
     /**
      * Indicates if this broadcaster is enable, meaning that it will automatically connect on startup.
      */
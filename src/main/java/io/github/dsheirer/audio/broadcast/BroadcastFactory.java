@@ -41,6 +41,7 @@ import io.github.dsheirer.audio.convert.InputAudioFormat;
 import io.github.dsheirer.audio.convert.MP3Setting;
 import io.github.dsheirer.audio.convert.MP3SilenceGenerator;
 import io.github.dsheirer.preference.UserPreferences;
+import java.nio.file.Path;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -61,18 +62,19 @@ public class BroadcastFactory
         {
             InputAudioFormat inputAudioFormat = userPreferences.getMP3Preference().getAudioSampleRate();
             MP3Setting mp3Setting = userPreferences.getMP3Preference().getMP3Setting();
+            Path streamingDirectory = userPreferences.getDirectoryPreference().getDirectoryStreaming();
 
             switch(configuration.getBroadcastServerType())
             {
                 case BROADCASTIFY_CALL:
                     return new BroadcastifyCallBroadcaster((BroadcastifyCallConfiguration)configuration,
-                            inputAudioFormat, mp3Setting, aliasModel);
+                            inputAudioFormat, mp3Setting, aliasModel, streamingDirectory);
                 case RDIOSCANNER_CALL:
                     return new RdioScannerBroadcaster((RdioScannerConfiguration)configuration,
-                            inputAudioFormat, mp3Setting, aliasModel);
+                            inputAudioFormat, mp3Setting, aliasModel, streamingDirectory);
                 case OPENMHZ:
                     return new OpenMHzBroadcaster((OpenMHzConfiguration)configuration,
-                        inputAudioFormat, mp3Setting, aliasModel);
+                        inputAudioFormat, mp3Setting, aliasModel, streamingDirectory);
                 case BROADCASTIFY:
                     return new IcecastTCPAudioBroadcaster((BroadcastifyFeedConfiguration) configuration,
                             inputAudioFormat, mp3Setting, aliasModel);
@@ -23,10 +23,11 @@ import com.google.common.net.HttpHeaders;
 import io.github.dsheirer.alias.Alias;
 import io.github.dsheirer.alias.AliasList;
 import io.github.dsheirer.alias.AliasModel;
-import io.github.dsheirer.audio.broadcast.AbstractAudioBroadcaster;
+import io.github.dsheirer.audio.broadcast.AbstractSpooledAudioBroadcaster;
 import io.github.dsheirer.audio.broadcast.AudioRecording;
-import io.github.dsheirer.audio.broadcast.BroadcastEvent;
 import io.github.dsheirer.audio.broadcast.BroadcastState;
+import io.github.dsheirer.audio.broadcast.spool.SpoolEntry;
+import io.github.dsheirer.audio.broadcast.spool.SpoolResult;
 import io.github.dsheirer.audio.convert.InputAudioFormat;
 import io.github.dsheirer.audio.convert.MP3Setting;
 import io.github.dsheirer.gui.playlist.radioreference.RadioReferenceDecoder;
@@ -42,16 +43,16 @@ import io.github.dsheirer.identifier.radio.RadioIdentifier;
 import io.github.dsheirer.identifier.talkgroup.TalkgroupIdentifier;
 import io.github.dsheirer.util.ThreadPool;
 import java.io.FileNotFoundException;
-import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.CompletionException;
-import java.util.concurrent.LinkedTransferQueue;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
@@ -60,9 +61,11 @@ import org.slf4j.LoggerFactory;
 /**
  * Audio broadcaster to push completed audio recordings to the Broadcastify call push API.
  *
+ * Recordings are uploaded through the broadcaster's persistent upload spool.
+ *
  * Note: this is not the same as the Broadcastify Feeds (ie streaming) service
  */
-public class BroadcastifyCallBroadcaster extends AbstractAudioBroadcaster<BroadcastifyCallConfiguration>
+public class BroadcastifyCallBroadcaster extends AbstractSpooledAudioBroadcaster<BroadcastifyCallConfiguration>
 {
     private final static Logger mLog = LoggerFactory.getLogger(BroadcastifyCallBroadcaster.class);
 
@@ -71,13 +74,6 @@ public class BroadcastifyCallBroadcaster extends AbstractAudioBroadcaster<Broadc
     private static final String DEFAULT_SUBTYPE = "form-data";
     private static final String MULTIPART_FORM_DATA = MULTIPART_TYPE + "/" + DEFAULT_SUBTYPE;
     private ScheduledFuture<?> mBroadcastifyTestFuture;
-    private Queue<AudioRecording> mAudioRecordingQueue = new LinkedTransferQueue<>();
-    private ScheduledFuture<?> mAudioRecordingProcessorFuture;
-    private HttpClient mHttpClient = HttpClient.newBuilder()
-        .version(HttpClient.Version.HTTP_2)
-        .followRedirects(HttpClient.Redirect.NORMAL)
-        .connectTimeout(Duration.ofSeconds(20))
-        .build();
     private long mLastConnectionAttempt;
     private long mConnectionAttemptInterval = 5000; //Every 5 seconds
     final private AliasModel mAliasModel;
@@ -86,16 +82,17 @@ public class BroadcastifyCallBroadcaster extends AbstractAudioBroadcaster<Broadc
      * Constructs an instance of the broadcaster
      * @param config to use
      * @param aliasModel for access to aliases
+     * @param streamingDirectory parent directory for the upload spool
      */
     public BroadcastifyCallBroadcaster(BroadcastifyCallConfiguration config, InputAudioFormat inputAudioFormat,
-                                       MP3Setting mp3Setting, AliasModel aliasModel)
+                                       MP3Setting mp3Setting, AliasModel aliasModel, Path streamingDirectory)
     {
-        super(config);
+        super(config, streamingDirectory);
         mAliasModel = aliasModel;
     }
 
     /**
-     * Starts the audio recording processor thread
+     * Starts the upload spool
      */
     @Override
     public void start()
@@ -120,15 +117,11 @@ public class BroadcastifyCallBroadcaster extends AbstractAudioBroadcaster<Broadc
             mBroadcastifyTestFuture = ThreadPool.SCHEDULED.scheduleAtFixedRate(new BroadcastifyCallTest(), getBroadcastConfiguration().getTestInterval(), getBroadcastConfiguration().getTestInterval(), TimeUnit.MINUTES);
         }
 
-        if(mAudioRecordingProcessorFuture == null)
-        {
-            mAudioRecordingProcessorFuture = ThreadPool.SCHEDULED.scheduleAtFixedRate(new AudioRecordingProcessor(),
-                0, 500, TimeUnit.MILLISECONDS);
-        }
+        getUploadSpool().start();
     }
 
     /**
-     * Stops the audio recording processor thread
+     * Stops the upload spool
      */
     @Override
     public void stop()
@@ -138,13 +131,9 @@ public class BroadcastifyCallBroadcaster extends AbstractAudioBroadcaster<Broadc
             mBroadcastifyTestFuture.cancel(true);
             mBroadcastifyTestFuture = null;
         }
-        if(mAudioRecordingProcessorFuture != null)
-        {
-            mAudioRecordingProcessorFuture.cancel(true);
-            mAudioRecordingProcessorFuture = null;
-            dispose();
-            setBroadcastState(BroadcastState.DISCONNECTED);
-        }
+
+        dispose();
+        setBroadcastState(BroadcastState.DISCONNECTED);
     }
 
     public class BroadcastifyCallTest implements Runnable
@@ -164,25 +153,10 @@ public class BroadcastifyCallBroadcaster extends AbstractAudioBroadcaster<Broadc
         }
     }
 
-    /**
-     * Prepares for disposal
-     */
-    @Override
-    public void dispose()
-    {
-        AudioRecording audioRecording = mAudioRecordingQueue.poll();
-
-        while(audioRecording != null)
-        {
-            audioRecording.removePendingReplay();
-            audioRecording = mAudioRecordingQueue.poll();
-        }
-    }
-
     /**
      * Indicates if this broadcaster continues to have successful connections to and transactions with the remote
      * server.  If there is a connectivity or other issue, the broadcast state is set to temporary error and
-     * the audio processor thread will persistently invoke this method to attempt a reconnect.
+     * the upload spool will persistently invoke this method to attempt a reconnect.
      */
     private boolean connected()
     {
@@ -208,205 +182,134 @@ public class BroadcastifyCallBroadcaster extends AbstractAudioBroadcaster<Broadc
     }
 
     @Override
-    public int getAudioQueueSize()
+    public boolean isAvailable()
     {
-        return mAudioRecordingQueue.size();
+        return connected();
     }
 
     @Override
-    public void receive(AudioRecording audioRecording)
+    public long getReconnectInterval()
     {
-        mAudioRecordingQueue.offer(audioRecording);
-        broadcast(new BroadcastEvent(this, BroadcastEvent.Event.BROADCASTER_QUEUE_CHANGE));
+        return mConnectionAttemptInterval;
     }
 
     /**
-     * Indicates if the audio recording is non-null and not too old, meaning that the age of the recording has not
-     * exceeded the max age value indicated in the broadcast configuration.  Audio recordings that are too old will be
-     * deleted to ensure that the in-memory queue size doesn't blow up.
-     * @param audioRecording to test
-     * @return true if the recording is valid
+     * Resolves the call form fields from the audio recording identifiers and aliases.
      */
-    private boolean isValid(AudioRecording audioRecording)
+    @Override
+    protected Map<String,String> getUploadFields(AudioRecording audioRecording)
     {
-        return audioRecording != null && System.currentTimeMillis() - audioRecording.getStartTime() <=
-            getBroadcastConfiguration().getMaximumRecordingAge();
+        Map<String,String> fields = new LinkedHashMap<>();
+        fields.put(FormField.CALL_DURATION.name(), String.valueOf(audioRecording.getRecordingLength() / 1E3f));
+        fields.put(FormField.TIMESTAMP.name(), String.valueOf((int)(audioRecording.getStartTime() / 1E3)));
+        fields.put(FormField.TALKGROUP_ID.name(), getTo(audioRecording));
+        fields.put(FormField.RADIO_ID.name(), getFrom(audioRecording));
+        fields.put(FormField.FREQUENCY.name(), String.valueOf(getFrequency(audioRecording)));
+        fields.put(FormField.ENCODING.name(), ENCODING_TYPE_MP3);
+        return fields;
     }
 
     /**
-     * Processes any enqueued audio recordings.  The broadcastify calls API uses a two-step process that includes
-     * requesting an upload URL and then uploading the audio recording to that URL.  This method employs asynchronous
-     * interaction with the server, so multiple audio recording uploads can occur simultaneously.
+     * Uploads the spooled call.  The broadcastify calls API uses a two-step process that includes requesting an
+     * upload URL and then uploading the audio recording to that URL.
      */
-    private void processRecordingQueue()
+    @Override
+    public CompletableFuture<SpoolResult> upload(SpoolEntry entry, HttpClient httpClient)
     {
-        while(connected() && !mAudioRecordingQueue.isEmpty())
+        BroadcastifyCallBuilder bodyBuilder = new BroadcastifyCallBuilder();
+        bodyBuilder.addPart(FormField.API_KEY, getBroadcastConfiguration().getApiKey())
+            .addPart(FormField.SYSTEM_ID, getBroadcastConfiguration().getSystemID());
+
+        for(Map.Entry<String,String> field: entry.getFields().entrySet())
         {
-            final AudioRecording audioRecording = mAudioRecordingQueue.poll();
-            broadcast(new BroadcastEvent(this, BroadcastEvent.Event.BROADCASTER_QUEUE_CHANGE));
+            bodyBuilder.addPart(FormField.valueOf(field.getKey()), field.getValue());
+        }
 
-            if(isValid(audioRecording) && audioRecording.getRecordingLength() > 0)
-            {
-                float durationSeconds = (float)(audioRecording.getRecordingLength() / 1E3f);
-                long timestampSeconds = (int)(audioRecording.getStartTime() / 1E3);
-                String talkgroup = getTo(audioRecording);
-                String radioId = getFrom(audioRecording);
-                float frequency = getFrequency(audioRecording);
-
-                BroadcastifyCallBuilder bodyBuilder = new BroadcastifyCallBuilder();
-                bodyBuilder.addPart(FormField.API_KEY, getBroadcastConfiguration().getApiKey())
-                    .addPart(FormField.SYSTEM_ID, getBroadcastConfiguration().getSystemID())
-                    .addPart(FormField.CALL_DURATION, durationSeconds)
-                    .addPart(FormField.TIMESTAMP, timestampSeconds)
-                    .addPart(FormField.TALKGROUP_ID, talkgroup)
-                    .addPart(FormField.RADIO_ID, radioId)
-                    .addPart(FormField.FREQUENCY, frequency)
-                    .addPart(FormField.ENCODING, ENCODING_TYPE_MP3);
-
-                try
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(getBroadcastConfiguration().getHost()))
+            .header(HttpHeaders.CONTENT_TYPE, MULTIPART_FORM_DATA + "; boundary=" + bodyBuilder.getBoundary())
+            .header(HttpHeaders.USER_AGENT, "sdrtrunk")
+            .header(HttpHeaders.ACCEPT, "*/*")
+            .POST(bodyBuilder.build())
+            .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+            .handle((stringHttpResponse, throwable) -> {
+                if(throwable != null)
                 {
-                    HttpRequest request = HttpRequest.newBuilder()
-                        .uri(URI.create(getBroadcastConfiguration().getHost()))
-                        .header(HttpHeaders.CONTENT_TYPE, MULTIPART_FORM_DATA + "; boundary=" + bodyBuilder.getBoundary())
-                        .header(HttpHeaders.USER_AGENT, "sdrtrunk")
-                        .header(HttpHeaders.ACCEPT, "*/*")
-                        .POST(bodyBuilder.build())
-                        .build();
-
-                    mHttpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
-                        .whenComplete((stringHttpResponse, throwable) -> {
-                            if(throwable != null || stringHttpResponse.statusCode() != 200)
-                            {
-                                if(throwable instanceof IOException || throwable instanceof CompletionException)
-                                {
-                                    //We get socket reset exceptions occasionally when the remote server doesn't
-                                    //fully read our request and immediately responds.
-                                }
-                                else
-                                {
-                                    mLog.error("Error while sending upload URL request" + throwable.getLocalizedMessage());
-                                    setBroadcastState(BroadcastState.TEMPORARY_BROADCAST_ERROR);
-                                }
-                                incrementErrorAudioCount();
-                                broadcast(new BroadcastEvent(BroadcastifyCallBroadcaster.this,
-                                    BroadcastEvent.Event.BROADCASTER_ERROR_COUNT_CHANGE));
-                            }
-                            else
-                            {
-                                String urlResponse = stringHttpResponse.body();
-
-                                if(urlResponse.startsWith("0 "))
-                                {
-                                    HttpRequest.BodyPublisher filePublisher = null;
-
-                                    try
-                                    {
-                                        filePublisher = HttpRequest.BodyPublishers.ofFile(audioRecording.getPath());
-                                    }
-                                    catch(FileNotFoundException fnfe)
-                                    {
-                                        mLog.error("Broadcastify calls API - audio recording file not found - ignoring upload");
-                                    }
-
-                                    if(filePublisher != null)
-                                    {
-                                        HttpRequest fileRequest = HttpRequest.newBuilder()
-                                            .uri(URI.create(urlResponse.substring(2)))
-                                            .header(HttpHeaders.USER_AGENT, "sdrtrunk")
-                                            .header(HttpHeaders.CONTENT_TYPE, "audio/mpeg")
-                                            .PUT(filePublisher)
-                                            .build();
-
-                                        mHttpClient.sendAsync(fileRequest, HttpResponse.BodyHandlers.ofString())
-                                            .whenComplete((fileResponse, throwable1) -> {
-                                                if(throwable1 != null || fileResponse.statusCode() != 200)
-                                                {
-                                                    if(throwable1 instanceof IOException || throwable1 instanceof CompletionException)
-                                                    {
-                                                        //We get socket reset exceptions occasionally when the remote server doesn't
-                                                        //fully read our request and immediately responds.
-                                                    }
-                                                    else
-                                                    {
-                                                        setBroadcastState(BroadcastState.TEMPORARY_BROADCAST_ERROR);
-                                                        mLog.error("Broadcastify calls API file upload fail [" +
-                                                            fileResponse.statusCode() + "] response [" +
-                                                            fileResponse.body() + "]");
-                                                    }
-
-                                                    incrementErrorAudioCount();
-                                                    broadcast(new BroadcastEvent(BroadcastifyCallBroadcaster.this,
-                                                        BroadcastEvent.Event.BROADCASTER_ERROR_COUNT_CHANGE));
-                                                }
-                                                else
-                                                {
-                                                    incrementStreamedAudioCount();
-                                                    broadcast(new BroadcastEvent(BroadcastifyCallBroadcaster.this,
-                                                        BroadcastEvent.Event.BROADCASTER_STREAMED_COUNT_CHANGE));
-                                                }
-
-                                                audioRecording.removePendingReplay();
-                                            });
-                                    }
-                                    else
-                                    {
-                                        //Register an error for the file not found exception
-                                        mLog.error("Broadcastify calls API - upload file not found [" +
-                                            audioRecording.getPath().toString() + "]");
-                                        incrementErrorAudioCount();
-                                        broadcast(new BroadcastEvent(BroadcastifyCallBroadcaster.this,
-                                            BroadcastEvent.Event.BROADCASTER_ERROR_COUNT_CHANGE));
-                                        audioRecording.removePendingReplay();
-                                    }
-                                }
-                                else if(urlResponse.startsWith("1 SKIPPED"))
-                                {
-                                    //Broadcastify is telling us to skip audio upload - someone already uploaded it
-                                    audioRecording.removePendingReplay();
-                                }
-                                else
-                                {
-                                    mLog.error("Broadcastify calls API upload URL request failed [" + urlResponse + "]");
-                                    setBroadcastState(BroadcastState.TEMPORARY_BROADCAST_ERROR);
-                                    incrementErrorAudioCount();
-                                    broadcast(new BroadcastEvent(BroadcastifyCallBroadcaster.this,
-                                        BroadcastEvent.Event.BROADCASTER_ERROR_COUNT_CHANGE));
-                                    audioRecording.removePendingReplay();
-                                }
-                            }
-                        });
+                    //We get socket reset exceptions occasionally when the remote server doesn't fully read our
+                    //request and immediately responds.
+                    return CompletableFuture.completedFuture(SpoolResult.RETRY);
                 }
-                catch(Exception e)
+
+                String urlResponse = stringHttpResponse.body() != null ? stringHttpResponse.body() : "";
+
+                if(stringHttpResponse.statusCode() != 200)
                 {
-                    mLog.error("Unknown Error", e);
-                    setBroadcastState(BroadcastState.ERROR);
-                    incrementErrorAudioCount();
-                    broadcast(new BroadcastEvent(this, BroadcastEvent.Event.BROADCASTER_ERROR_COUNT_CHANGE));
-                    audioRecording.removePendingReplay();
+                    mLog.error("Broadcastify calls API upload URL request failed [" +
+                        stringHttpResponse.statusCode() + "] response [" + urlResponse + "]");
+                    SpoolResult result = getSpoolResult(stringHttpResponse.statusCode());
+                    return CompletableFuture.completedFuture(result == SpoolResult.SUCCESS ? SpoolResult.FAILED : result);
                 }
-            }
-        }
+                else if(urlResponse.startsWith("0 "))
+                {
+                    return uploadFile(entry, urlResponse.substring(2), httpClient);
+                }
+                else if(urlResponse.startsWith("1 SKIPPED"))
+                {
+                    //Broadcastify is telling us to skip audio upload - someone already uploaded it
+                    return CompletableFuture.completedFuture(SpoolResult.DUPLICATE);
+                }
+
+                mLog.error("Broadcastify calls API upload URL request failed [" + urlResponse + "]");
+                return CompletableFuture.completedFuture(SpoolResult.FAILED);
+            })
+            .thenCompose(future -> future);
+    }
 
-        //If we're not connected and there are recordings in the queue, check the recording at the head of the queue
-        // and start age-off once the recordings become too old.  The recordings should be time ordered in the queue.
-        AudioRecording audioRecording = mAudioRecordingQueue.peek();
+    /**
+     * Uploads the spooled audio file to the URL provided by the Broadcastify calls API
+     * @param entry to upload
+     * @param url for the file upload
+     * @param httpClient to use
+     * @return future upload result
+     */
+    private CompletableFuture<SpoolResult> uploadFile(SpoolEntry entry, String url, HttpClient httpClient)
+    {
+        HttpRequest.BodyPublisher filePublisher;
 
-        while(audioRecording != null)
+        try
         {
-            if(isValid(audioRecording))
-            {
-                return;
-            }
-            else
-            {
-                //Remove the recording from the queue, remove a replay, and peek at the next recording in the queue
-                mAudioRecordingQueue.poll();
-                audioRecording.removePendingReplay();
-                incrementAgedOffAudioCount();
-                broadcast(new BroadcastEvent(this, BroadcastEvent.Event.BROADCASTER_AGED_OFF_COUNT_CHANGE));
-                audioRecording = mAudioRecordingQueue.peek();
-            }
+            filePublisher = HttpRequest.BodyPublishers.ofFile(entry.getPath());
+        }
+        catch(FileNotFoundException fnfe)
+        {
+            mLog.error("Broadcastify calls API - upload file not found [" + entry.getPath() + "]");
+            return CompletableFuture.completedFuture(SpoolResult.FAILED);
         }
+
+        HttpRequest fileRequest = HttpRequest.newBuilder()
+            .uri(URI.create(url))
+            .header(HttpHeaders.USER_AGENT, "sdrtrunk")
+            .header(HttpHeaders.CONTENT_TYPE, "audio/mpeg")
+            .PUT(filePublisher)
+            .build();
+
+        return httpClient.sendAsync(fileRequest, HttpResponse.BodyHandlers.ofString())
+            .handle((fileResponse, throwable) -> {
+                if(throwable != null)
+                {
+                    return SpoolResult.RETRY;
+                }
+                else if(fileResponse.statusCode() != 200)
+                {
+                    mLog.error("Broadcastify calls API file upload fail [" + fileResponse.statusCode() +
+                        "] response [" + fileResponse.body() + "]");
+                    return getSpoolResult(fileResponse.statusCode());
+                }
+
+                return SpoolResult.SUCCESS;
+            });
     }
 
     /**
@@ -555,15 +458,6 @@ public class BroadcastifyCallBroadcaster extends AbstractAudioBroadcaster<Broadc
         }
     }
 
-    public class AudioRecordingProcessor implements Runnable
-    {
-        @Override
-        public void run()
-        {
-            processRecordingQueue();
-        }
-    }
-
     public static void main(String[] args)
     {
         mLog.debug("Starting ...");
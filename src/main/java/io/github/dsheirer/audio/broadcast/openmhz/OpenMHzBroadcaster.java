@@ -17,16 +17,17 @@
  * ****************************************************************************
  */
 
- package io.github.dsheirer.audio.broadcast.openmhz;
+package io.github.dsheirer.audio.broadcast.openmhz;
 
 import com.google.common.net.HttpHeaders;
 import io.github.dsheirer.alias.Alias;
 import io.github.dsheirer.alias.AliasList;
 import io.github.dsheirer.alias.AliasModel;
-import io.github.dsheirer.audio.broadcast.AbstractAudioBroadcaster;
+import io.github.dsheirer.audio.broadcast.AbstractSpooledAudioBroadcaster;
 import io.github.dsheirer.audio.broadcast.AudioRecording;
-import io.github.dsheirer.audio.broadcast.BroadcastEvent;
 import io.github.dsheirer.audio.broadcast.BroadcastState;
+import io.github.dsheirer.audio.broadcast.spool.SpoolEntry;
+import io.github.dsheirer.audio.broadcast.spool.SpoolResult;
 import io.github.dsheirer.audio.convert.InputAudioFormat;
 import io.github.dsheirer.audio.convert.MP3Setting;
 import io.github.dsheirer.gui.playlist.radioreference.RadioReferenceDecoder;
@@ -40,7 +41,6 @@ import io.github.dsheirer.identifier.patch.PatchGroup;
 import io.github.dsheirer.identifier.patch.PatchGroupIdentifier;
 import io.github.dsheirer.identifier.radio.RadioIdentifier;
 import io.github.dsheirer.identifier.talkgroup.TalkgroupIdentifier;
-import io.github.dsheirer.util.ThreadPool;
 import java.io.IOException;
 import java.net.ConnectException;
 import java.net.URI;
@@ -48,14 +48,13 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Queue;
-import java.util.concurrent.CompletionException;
-import java.util.concurrent.LinkedTransferQueue;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -64,8 +63,9 @@ import org.slf4j.LoggerFactory;
  /**
   * Audio broadcaster to push completed audio recordings to the OpenMHz call upload API.
   *
+  * Recordings are uploaded through the broadcaster's persistent upload spool.
   */
- public class OpenMHzBroadcaster extends AbstractAudioBroadcaster<OpenMHzConfiguration>
+ public class OpenMHzBroadcaster extends AbstractSpooledAudioBroadcaster<OpenMHzConfiguration>
  {
      private final static Logger mLog = LoggerFactory.getLogger(OpenMHzBroadcaster.class);
 
@@ -74,13 +74,6 @@ import org.slf4j.LoggerFactory;
      private static final String DEFAULT_SUBTYPE = "form-data";
      private static final String MULTIPART_FORM_DATA = MULTIPART_TYPE + "/" + DEFAULT_SUBTYPE;
      private static final String APPLICATION_FORM_URLENCODED = "application/x-www-form-urlencoded";
-     private Queue<AudioRecording> mAudioRecordingQueue = new LinkedTransferQueue<>();
-     private ScheduledFuture<?> mAudioRecordingProcessorFuture;
-     private HttpClient mHttpClient = HttpClient.newBuilder()
-         .version(HttpClient.Version.HTTP_2)
-         .followRedirects(HttpClient.Redirect.NORMAL)
-         .connectTimeout(Duration.ofSeconds(20))
-         .build();
      private long mLastConnectionAttempt;
      private long mConnectionAttemptInterval = 5000; //Every 5 seconds
      private AliasModel mAliasModel;
@@ -89,16 +82,17 @@ import org.slf4j.LoggerFactory;
       * Constructs an instance of the broadcaster
       * @param config to use
       * @param aliasModel for access to aliases
+      * @param streamingDirectory parent directory for the upload spool
       */
      public OpenMHzBroadcaster(OpenMHzConfiguration config, InputAudioFormat inputAudioFormat,
-                                        MP3Setting mp3Setting, AliasModel aliasModel)
+                                        MP3Setting mp3Setting, AliasModel aliasModel, Path streamingDirectory)
      {
-         super(config);
+         super(config, streamingDirectory);
          mAliasModel = aliasModel;
      }
 
      /**
-      * Starts the audio recording processor thread
+      * Starts the upload spool
       */
      @Override
      public void start()
@@ -122,47 +116,23 @@ import org.slf4j.LoggerFactory;
              setBroadcastState(BroadcastState.ERROR);
          }
 
-         if(mAudioRecordingProcessorFuture == null)
-         {
-             mAudioRecordingProcessorFuture = ThreadPool.SCHEDULED.scheduleAtFixedRate(new AudioRecordingProcessor(),
-                 0, 500, TimeUnit.MILLISECONDS);
-         }
+         getUploadSpool().start();
      }
 
      /**
-      * Stops the audio recording processor thread
+      * Stops the upload spool
       */
      @Override
      public void stop()
      {
-         if(mAudioRecordingProcessorFuture != null)
-         {
-             mAudioRecordingProcessorFuture.cancel(true);
-             mAudioRecordingProcessorFuture = null;
-             dispose();
-             setBroadcastState(BroadcastState.DISCONNECTED);
-         }
-     }
-
-     /**
-      * Prepares for disposal
-      */
-     @Override
-     public void dispose()
-     {
-         AudioRecording audioRecording = mAudioRecordingQueue.poll();
-
-         while(audioRecording != null)
-         {
-             audioRecording.removePendingReplay();
-             audioRecording = mAudioRecordingQueue.poll();
-         }
+         dispose();
+         setBroadcastState(BroadcastState.DISCONNECTED);
      }
 
      /**
       * Indicates if this broadcaster continues to have successful connections to and transactions with the remote
       * server.  If there is a connectivity or other issue, the broadcast state is set to temporary error and
-      * the audio processor thread will persistently invoke this method to attempt a reconnect.
+      * the upload spool will persistently invoke this method to attempt a reconnect.
       */
      private boolean connected()
      {
@@ -195,185 +165,96 @@ import org.slf4j.LoggerFactory;
      }
 
      @Override
-     public int getAudioQueueSize()
+     public boolean isAvailable()
      {
-         return mAudioRecordingQueue.size();
+         return connected();
      }
 
      @Override
-     public void receive(AudioRecording audioRecording)
+     public long getReconnectInterval()
      {
-         mAudioRecordingQueue.offer(audioRecording);
-         broadcast(new BroadcastEvent(this, BroadcastEvent.Event.BROADCASTER_QUEUE_CHANGE));
+         return mConnectionAttemptInterval;
      }
 
      /**
-      * Indicates if the audio recording is non-null and not too old, meaning that the age of the recording has not
-      * exceeded the max age value indicated in the broadcast configuration.  Audio recordings that are too old will be
-      * deleted to ensure that the in-memory queue size doesn't blow up.
-      * @param audioRecording to test
-      * @return true if the recording is valid
+      * Resolves the call form fields from the audio recording identifiers and aliases.
       */
-     private boolean isValid(AudioRecording audioRecording)
+     @Override
+     protected Map<String,String> getUploadFields(AudioRecording audioRecording)
      {
-         return audioRecording != null && System.currentTimeMillis() - audioRecording.getStartTime() <=
-             getBroadcastConfiguration().getMaximumRecordingAge();
+         long timestampSeconds = (int)(audioRecording.getStartTime() / 1E3);
+
+         Map<String,String> fields = new LinkedHashMap<>();
+         fields.put(FormField.FREQ.name(), String.valueOf(getFrequency(audioRecording)));
+         fields.put(FormField.START_TIME.name(), String.valueOf(timestampSeconds));
+         fields.put(FormField.STOP_TIME.name(), String.valueOf(timestampSeconds));
+         fields.put(FormField.CALL_LENGTH.name(), String.valueOf((int)(audioRecording.getRecordingLength() / 1E3f)));
+         fields.put(FormField.TALKGROUP_NUM.name(), getTo(audioRecording));
+         fields.put(FormField.EMERGENCY.name(), "0");
+         fields.put(FormField.PATCH_LIST.name(), getPatches(audioRecording));
+         fields.put(FormField.TALKER_ALIAS.name(), getTalkerAlias(audioRecording));
+         fields.put(FormField.SOURCE_LIST.name(), "[{ \"pos\": 0.00, \"src\": " + getFrom(audioRecording) + "}]");
+         return fields;
      }
 
      /**
-      * Processes any enqueued audio recordings. This method employs asynchronous
-      * interaction with the server, so multiple audio recording uploads can occur simultaneously.
+      * Uploads the spooled call to the OpenMHz upload API.
       */
-     private void processRecordingQueue()
+     @Override
+     public CompletableFuture<SpoolResult> upload(SpoolEntry entry, HttpClient httpClient)
      {
+         byte[] audioBytes;
+
+         try
+         {
+             audioBytes = Files.readAllBytes(entry.getPath());
+         }
+         catch(IOException e)
+         {
+             mLog.error("OpenMHz API - upload file not found [" + entry.getPath() + "]");
+             return CompletableFuture.completedFuture(SpoolResult.FAILED);
+         }
+
+         String uri = getBroadcastConfiguration().getHost() + "/" + getBroadcastConfiguration().getSystemName() + "/upload";
 
+         OpenMHzBuilder bodyBuilder = new OpenMHzBuilder();
+         bodyBuilder.addFile(audioBytes);
 
-         while(connected() && !mAudioRecordingQueue.isEmpty())
+         for(Map.Entry<String,String> field: entry.getFields().entrySet())
          {
-             final AudioRecording audioRecording = mAudioRecordingQueue.poll();
-             broadcast(new BroadcastEvent(this, BroadcastEvent.Event.BROADCASTER_QUEUE_CHANGE));
+             bodyBuilder.addPart(FormField.valueOf(field.getKey()), field.getValue());
 
-             if(isValid(audioRecording) && audioRecording.getRecordingLength() > 0)
+             //The API key is not persisted in the spool and is inserted in the original field order
+             if(field.getKey().equals(FormField.EMERGENCY.name()))
              {
-                 int durationSeconds = (int)(audioRecording.getRecordingLength() / 1E3f);
-                 long timestampSeconds = (int)(audioRecording.getStartTime() / 1E3);
-                 String talkgroup = getTo(audioRecording);
-                 String radioId = getFrom(audioRecording);
-                 String talkerAlias = getTalkerAlias(audioRecording);
-                 Long frequency = getFrequency(audioRecording);
-                 String patches = getPatches(audioRecording);
-                 String talkgroupLabel = getTalkgroupLabel(audioRecording);
-                 String talkgroupGroup = getTalkgroupGroup(audioRecording);
-                 String systemLabel = getSystemLabel(audioRecording);
-
-                 try
+                 bodyBuilder.addPart(FormField.API_KEY, getBroadcastConfiguration().getApiKey());
+             }
+         }
+
+         HttpRequest fileRequest = HttpRequest.newBuilder()
+             .uri(URI.create(uri))
+             .header(HttpHeaders.CONTENT_TYPE, MULTIPART_FORM_DATA + "; boundary=" + bodyBuilder.getBoundary())
+             .header(HttpHeaders.USER_AGENT, "sdrtrunk")
+             .POST(bodyBuilder.build())
+             .build();
+
+         return httpClient.sendAsync(fileRequest, HttpResponse.BodyHandlers.ofString())
+             .handle((fileResponse, throwable) -> {
+                 if(throwable != null)
                  {
-                     byte[] audioBytes = null;
-
-                     try
-                     {
-                         audioBytes = Files.readAllBytes(audioRecording.getPath());
-                     }
-                     catch(IOException e)
-                     {
-                         mLog.error("OpenMHz - audio recording file not found - ignoring upload");
-                     }
-
-                     if(audioBytes != null)
-                     {
-                        String uri = getBroadcastConfiguration().getHost() + "/" + getBroadcastConfiguration().getSystemName() + "/upload";
-
-                         OpenMHzBuilder bodyBuilder = new OpenMHzBuilder();
-                             bodyBuilder
-                             .addFile(audioBytes)
-                             .addPart(FormField.FREQ, frequency)
-                             .addPart(FormField.START_TIME, timestampSeconds)
-                             .addPart(FormField.STOP_TIME, timestampSeconds)
-                             .addPart(FormField.CALL_LENGTH, durationSeconds)
-                             .addPart(FormField.TALKGROUP_NUM, talkgroup)
-                             .addPart(FormField.EMERGENCY, 0)
-                             .addPart(FormField.API_KEY, getBroadcastConfiguration().getApiKey())
-                             .addPart(FormField.PATCH_LIST, patches)
-                             .addPart(FormField.TALKER_ALIAS, talkerAlias)
-                             .addPart(FormField.SOURCE_LIST, "[{ \"pos\": 0.00, \"src\": " + radioId + "}]");
-
-                         HttpRequest fileRequest = HttpRequest.newBuilder()
-                             .uri(URI.create(uri))
-                             .header(HttpHeaders.CONTENT_TYPE, MULTIPART_FORM_DATA + "; boundary=" + bodyBuilder.getBoundary())
-                             .header(HttpHeaders.USER_AGENT, "sdrtrunk")
-                             .POST(bodyBuilder.build())
-                             .build();
-
-                         mHttpClient.sendAsync(fileRequest, HttpResponse.BodyHandlers.ofString())
-                             .whenComplete((fileResponse, throwable1) -> {
-                                 if(throwable1 != null || fileResponse.statusCode() != 200)
-                                 {
-                                     if(throwable1 instanceof IOException || throwable1 instanceof CompletionException)
-                                     {
-                                         //We get socket reset exceptions occasionally when the remote server doesn't
-                                         //fully read our request and immediately responds.
-                                         setBroadcastState(BroadcastState.TEMPORARY_BROADCAST_ERROR);
-                                         mLog.error("OpenMHz API file upload fail [" +
-                                             fileResponse.statusCode() + "] response [" +
-                                             fileResponse.body() + "]");
-                                     }
-                                     else
-                                     {
-                                         setBroadcastState(BroadcastState.TEMPORARY_BROADCAST_ERROR);
-                                         mLog.error("OpenMHz API file upload fail [" +
-                                             fileResponse.statusCode() + "] response [" +
-                                             fileResponse.body() + "]");
-                                     }
-
-                                     incrementErrorAudioCount();
-                                     broadcast(new BroadcastEvent(OpenMHzBroadcaster.this,
-                                         BroadcastEvent.Event.BROADCASTER_ERROR_COUNT_CHANGE));
-                                 }
-                                 else
-                                 {
-
-                                     if(fileResponse.statusCode() == 200)
-                                     {
-                                         incrementStreamedAudioCount();
-                                         broadcast(new BroadcastEvent(OpenMHzBroadcaster.this,
-                                             BroadcastEvent.Event.BROADCASTER_STREAMED_COUNT_CHANGE)); 
-                                         audioRecording.removePendingReplay(); 
-                                     }
-                                     else
-                                     {
-                                         setBroadcastState(BroadcastState.TEMPORARY_BROADCAST_ERROR);
-                                         mLog.error("OpenMHz API file upload fail [" +
-                                             fileResponse.statusCode() + "] response [" +
-                                             fileResponse.body() + "]");
-                                     }
-
-
-                                 }
-
-                             });
-                     }
-                     else
-                     {
-                         //Register an error for the file not found exception
-                         mLog.error("OpenMHz API - upload file not found [" +
-                             audioRecording.getPath().toString() + "]");
-                         incrementErrorAudioCount();
-                         broadcast(new BroadcastEvent(OpenMHzBroadcaster.this,
-                             BroadcastEvent.Event.BROADCASTER_ERROR_COUNT_CHANGE));
-                         audioRecording.removePendingReplay();
-                     }
+                     //We get socket reset exceptions occasionally when the remote server doesn't fully read our
+                     //request and immediately responds.
+                     mLog.error("OpenMHz API file upload fail [" + throwable.getLocalizedMessage() + "]");
+                     return SpoolResult.RETRY;
                  }
-                 catch(Exception e)
+                 else if(fileResponse.statusCode() != 200)
                  {
-                     mLog.error("Unknown Error", e);
-                     setBroadcastState(BroadcastState.ERROR);
-                     incrementErrorAudioCount();
-                     broadcast(new BroadcastEvent(this, BroadcastEvent.Event.BROADCASTER_ERROR_COUNT_CHANGE));
-                     audioRecording.removePendingReplay();
+                     mLog.error("OpenMHz API file upload fail [" + fileResponse.statusCode() + "] response [" +
+                         fileResponse.body() + "]");
                  }
-             }
-         }
 
-         //If we're not connected and there are recordings in the queue, check the recording at the head of the queue
-         // and start age-off once the recordings become too old.  The recordings should be time ordered in the queue.
-         AudioRecording audioRecording = mAudioRecordingQueue.peek();
-
-         while(audioRecording != null)
-         {
-             if(isValid(audioRecording))
-             {
-                 return;
-             }
-             else
-             {
-                 //Remove the recording from the queue, remove a replay, and peek at the next recording in the queue
-                 mAudioRecordingQueue.poll();
-                 audioRecording.removePendingReplay();
-                 incrementAgedOffAudioCount();
-                 broadcast(new BroadcastEvent(this, BroadcastEvent.Event.BROADCASTER_AGED_OFF_COUNT_CHANGE));
-                 audioRecording = mAudioRecordingQueue.peek();
-             }
-         }
+                 return getSpoolResult(fileResponse.statusCode());
+             });
      }
 
      /**
@@ -635,15 +516,6 @@ import org.slf4j.LoggerFactory;
          }
      }
 
-     public class AudioRecordingProcessor implements Runnable
-     {
-         @Override
-         public void run()
-         {
-             processRecordingQueue();
-         }
-     }
-
      public static void main(String[] args)
      {
          mLog.debug("Starting ...");
@@ -19,6 +19,7 @@
 
  package io.github.dsheirer.gui.playlist.streaming;
 
+ import io.github.dsheirer.audio.broadcast.BroadcastConfiguration;
  import io.github.dsheirer.audio.broadcast.BroadcastServerType;
  import io.github.dsheirer.audio.broadcast.openmhz.OpenMHzBroadcaster;
  import io.github.dsheirer.audio.broadcast.openmhz.OpenMHzConfiguration;
@@ -44,6 +45,7 @@
      private final static Logger mLog = LoggerFactory.getLogger(OpenMHzEditor.class);
      private TextField mSystemNameTextField;
      private IntegerTextField mMaxAgeTextField;
+     private IntegerTextField mMaxUploadsTextField;
      private TextField mApiKeyTextField;
      private TextField mHostTextField;
      private GridPane mEditorPane;
@@ -66,6 +68,7 @@
          getApiKeyTextField().setDisable(item == null);
          getHostTextField().setDisable(item == null);
          getMaxAgeTextField().setDisable(item == null);
+         getMaxUploadsTextField().setDisable(item == null);
 
          if(item != null)
          {
@@ -73,6 +76,7 @@
              getApiKeyTextField().setText(item.getApiKey());
              getHostTextField().setText(item.getHost());
              getMaxAgeTextField().set((int)(item.getMaximumRecordingAge() / 1000));
+             getMaxUploadsTextField().set(item.getMaximumConcurrentUploads());
          }
          else
          {
@@ -80,6 +84,7 @@
              getApiKeyTextField().setText(null);
              getHostTextField().setText(null);
              getMaxAgeTextField().set(0);
+             getMaxUploadsTextField().set(0);
          }
 
          modifiedProperty().set(false);
@@ -99,6 +104,8 @@
              getItem().setHost(getHostTextField().getText());
              getItem().setApiKey(getApiKeyTextField().getText());
              getItem().setMaximumRecordingAge(getMaxAgeTextField().get() * 1000);
+             getItem().setMaximumConcurrentUploads(getMaxUploadsTextField().get() != null ?
+                 getMaxUploadsTextField().get() : BroadcastConfiguration.DEFAULT_MAXIMUM_CONCURRENT_UPLOADS);
          }
 
          super.save();
@@ -176,6 +183,14 @@
              GridPane.setConstraints(getMaxAgeTextField(), 1, row);
              mEditorPane.getChildren().add(getMaxAgeTextField());
 
+             Label maxUploadsLabel = new Label("Max Concurrent Uploads");
+             GridPane.setHalignment(maxUploadsLabel, HPos.RIGHT);
+             GridPane.setConstraints(maxUploadsLabel, 0, ++row);
+             mEditorPane.getChildren().add(maxUploadsLabel);
+
+             GridPane.setConstraints(getMaxUploadsTextField(), 1, row);
+             mEditorPane.getChildren().add(getMaxUploadsTextField());
+
          }
 
          return mEditorPane;
@@ -193,6 +208,18 @@
          return mMaxAgeTextField;
      }
 
+     private IntegerTextField getMaxUploadsTextField()
+     {
+         if(mMaxUploadsTextField == null)
+         {
+             mMaxUploadsTextField = new IntegerTextField();
+             mMaxUploadsTextField.setDisable(true);
+             mMaxUploadsTextField.textProperty().addListener(mEditorModificationListener);
+         }
+
+         return mMaxUploadsTextField;
+     }
+
      private TextField getHostTextField()
      {
          if(mHostTextField == null)
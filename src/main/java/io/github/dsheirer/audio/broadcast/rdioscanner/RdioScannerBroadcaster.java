@@ -23,10 +23,11 @@ import com.google.common.net.HttpHeaders;
 import io.github.dsheirer.alias.Alias;
 import io.github.dsheirer.alias.AliasList;
 import io.github.dsheirer.alias.AliasModel;
-import io.github.dsheirer.audio.broadcast.AbstractAudioBroadcaster;
+import io.github.dsheirer.audio.broadcast.AbstractSpooledAudioBroadcaster;
 import io.github.dsheirer.audio.broadcast.AudioRecording;
-import io.github.dsheirer.audio.broadcast.BroadcastEvent;
 import io.github.dsheirer.audio.broadcast.BroadcastState;
+import io.github.dsheirer.audio.broadcast.spool.SpoolEntry;
+import io.github.dsheirer.audio.broadcast.spool.SpoolResult;
 import io.github.dsheirer.audio.convert.InputAudioFormat;
 import io.github.dsheirer.audio.convert.MP3Setting;
 import io.github.dsheirer.gui.playlist.radioreference.RadioReferenceDecoder;
@@ -40,21 +41,19 @@ import io.github.dsheirer.identifier.patch.PatchGroup;
 import io.github.dsheirer.identifier.patch.PatchGroupIdentifier;
 import io.github.dsheirer.identifier.radio.RadioIdentifier;
 import io.github.dsheirer.identifier.talkgroup.TalkgroupIdentifier;
-import io.github.dsheirer.util.ThreadPool;
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Queue;
-import java.util.concurrent.CompletionException;
-import java.util.concurrent.LinkedTransferQueue;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -62,8 +61,9 @@ import org.slf4j.LoggerFactory;
 /**
  * Audio broadcaster to push completed audio recordings to the Rdio Scanner call upload API.
  *
+ * Recordings are uploaded through the broadcaster's persistent upload spool.
  */
-public class RdioScannerBroadcaster extends AbstractAudioBroadcaster<RdioScannerConfiguration>
+public class RdioScannerBroadcaster extends AbstractSpooledAudioBroadcaster<RdioScannerConfiguration>
 {
     private final static Logger mLog = LoggerFactory.getLogger(RdioScannerBroadcaster.class);
 
@@ -71,13 +71,6 @@ public class RdioScannerBroadcaster extends AbstractAudioBroadcaster<RdioScanner
     private static final String MULTIPART_TYPE = "multipart";
     private static final String DEFAULT_SUBTYPE = "form-data";
     private static final String MULTIPART_FORM_DATA = MULTIPART_TYPE + "/" + DEFAULT_SUBTYPE;
-    private Queue<AudioRecording> mAudioRecordingQueue = new LinkedTransferQueue<>();
-    private ScheduledFuture<?> mAudioRecordingProcessorFuture;
-    private HttpClient mHttpClient = HttpClient.newBuilder()
-        .version(HttpClient.Version.HTTP_2)
-        .followRedirects(HttpClient.Redirect.NORMAL)
-        .connectTimeout(Duration.ofSeconds(20))
-        .build();
     private long mLastConnectionAttempt;
     private long mConnectionAttemptInterval = 5000; //Every 5 seconds
     private AliasModel mAliasModel;
@@ -86,16 +79,17 @@ public class RdioScannerBroadcaster extends AbstractAudioBroadcaster<RdioScanner
      * Constructs an instance of the broadcaster
      * @param config to use
      * @param aliasModel for access to aliases
+     * @param streamingDirectory parent directory for the upload spool
      */
     public RdioScannerBroadcaster(RdioScannerConfiguration config, InputAudioFormat inputAudioFormat,
-                                       MP3Setting mp3Setting, AliasModel aliasModel)
+                                       MP3Setting mp3Setting, AliasModel aliasModel, Path streamingDirectory)
     {
-        super(config);
+        super(config, streamingDirectory);
         mAliasModel = aliasModel;
     }
 
     /**
-     * Starts the audio recording processor thread
+     * Starts the upload spool
      */
     @Override
     public void start()
@@ -117,47 +111,23 @@ public class RdioScannerBroadcaster extends AbstractAudioBroadcaster<RdioScanner
             setBroadcastState(BroadcastState.ERROR);
         }
 
-        if(mAudioRecordingProcessorFuture == null)
-        {
-            mAudioRecordingProcessorFuture = ThreadPool.SCHEDULED.scheduleAtFixedRate(new AudioRecordingProcessor(),
-                0, 500, TimeUnit.MILLISECONDS);
-        }
+        getUploadSpool().start();
     }
 
     /**
-     * Stops the audio recording processor thread
+     * Stops the upload spool
      */
     @Override
     public void stop()
     {
-        if(mAudioRecordingProcessorFuture != null)
-        {
-            mAudioRecordingProcessorFuture.cancel(true);
-            mAudioRecordingProcessorFuture = null;
-            dispose();
-            setBroadcastState(BroadcastState.DISCONNECTED);
-        }
-    }
-
-    /**
-     * Prepares for disposal
-     */
-    @Override
-    public void dispose()
-    {
-        AudioRecording audioRecording = mAudioRecordingQueue.poll();
-
-        while(audioRecording != null)
-        {
-            audioRecording.removePendingReplay();
-            audioRecording = mAudioRecordingQueue.poll();
-        }
+        dispose();
+        setBroadcastState(BroadcastState.DISCONNECTED);
     }
 
     /**
      * Indicates if this broadcaster continues to have successful connections to and transactions with the remote
      * server.  If there is a connectivity or other issue, the broadcast state is set to temporary error and
-     * the audio processor thread will persistently invoke this method to attempt a reconnect.
+     * the upload spool will persistently invoke this method to attempt a reconnect.
      *
      * Rdio Scanner does not have a test API endpoint, so we look for the incomplete call response.
      */
@@ -185,194 +155,110 @@ public class RdioScannerBroadcaster extends AbstractAudioBroadcaster<RdioScanner
     }
 
     @Override
-    public int getAudioQueueSize()
+    public boolean isAvailable()
     {
-        return mAudioRecordingQueue.size();
+        return connected();
     }
 
     @Override
-    public void receive(AudioRecording audioRecording)
+    public long getReconnectInterval()
     {
-        mAudioRecordingQueue.offer(audioRecording);
-        broadcast(new BroadcastEvent(this, BroadcastEvent.Event.BROADCASTER_QUEUE_CHANGE));
+        return mConnectionAttemptInterval;
     }
 
     /**
-     * Indicates if the audio recording is non-null and not too old, meaning that the age of the recording has not
-     * exceeded the max age value indicated in the broadcast configuration.  Audio recordings that are too old will be
-     * deleted to ensure that the in-memory queue size doesn't blow up.
-     * @param audioRecording to test
-     * @return true if the recording is valid
+     * Resolves the call form fields from the audio recording identifiers and aliases.
      */
-    private boolean isValid(AudioRecording audioRecording)
+    @Override
+    protected Map<String,String> getUploadFields(AudioRecording audioRecording)
     {
-        return audioRecording != null && System.currentTimeMillis() - audioRecording.getStartTime() <=
-            getBroadcastConfiguration().getMaximumRecordingAge();
+        String path = audioRecording.getPath().toString();
+        // Remove TEMPORARY_STREAM_FILE_SUFFIX
+        String audioName = path.substring(path.substring(0, path.lastIndexOf("_")).lastIndexOf("_") + 1);
+
+        Map<String,String> fields = new LinkedHashMap<>();
+        fields.put(FormField.AUDIO_NAME.name(), audioName);
+        fields.put(FormField.DATE_TIME.name(), String.valueOf((int)(audioRecording.getStartTime() / 1E3)));
+        fields.put(FormField.TALKGROUP_ID.name(), getTo(audioRecording));
+        fields.put(FormField.SOURCE.name(), getFrom(audioRecording));
+        fields.put(FormField.FREQUENCY.name(), String.valueOf(getFrequency(audioRecording)));
+        fields.put(FormField.TALKER_ALIAS.name(), getTalkerAlias(audioRecording));
+        fields.put(FormField.TALKGROUP_LABEL.name(), getTalkgroupLabel(audioRecording));
+        fields.put(FormField.TALKGROUP_GROUP.name(), getTalkgroupGroup(audioRecording));
+        fields.put(FormField.SYSTEM_LABEL.name(), getSystemLabel(audioRecording));
+        fields.put(FormField.PATCHES.name(), getPatches(audioRecording));
+        return fields;
     }
 
     /**
-     * Processes any enqueued audio recordings. This method employs asynchronous
-     * interaction with the server, so multiple audio recording uploads can occur simultaneously.
+     * Uploads the spooled call to the Rdio Scanner call upload API.
      */
-    private void processRecordingQueue()
+    @Override
+    public CompletableFuture<SpoolResult> upload(SpoolEntry entry, HttpClient httpClient)
     {
+        byte[] audioBytes;
 
-        
-        while(connected() && !mAudioRecordingQueue.isEmpty())
+        try
+        {
+            audioBytes = Files.readAllBytes(entry.getPath());
+        }
+        catch(IOException e)
         {
-            final AudioRecording audioRecording = mAudioRecordingQueue.poll();
-            broadcast(new BroadcastEvent(this, BroadcastEvent.Event.BROADCASTER_QUEUE_CHANGE));
+            mLog.error("Rdio Scanner API - upload file not found [" + entry.getPath() + "]");
+            return CompletableFuture.completedFuture(SpoolResult.FAILED);
+        }
+
+        RdioScannerBuilder bodyBuilder = new RdioScannerBuilder();
+        bodyBuilder.addPart(FormField.KEY, getBroadcastConfiguration().getApiKey())
+            .addPart(FormField.SYSTEM, getBroadcastConfiguration().getSystemID())
+            .addAudioName(entry.getField(FormField.AUDIO_NAME.name()))
+            .addFile(audioBytes);
 
-            if(isValid(audioRecording) && audioRecording.getRecordingLength() > 0)
+        for(Map.Entry<String,String> field: entry.getFields().entrySet())
+        {
+            if(!field.getKey().equals(FormField.AUDIO_NAME.name()))
             {
-                float durationSeconds = (float)(audioRecording.getRecordingLength() / 1E3f);
-                long timestampSeconds = (int)(audioRecording.getStartTime() / 1E3);
-                String talkgroup = getTo(audioRecording);
-                String radioId = getFrom(audioRecording);
-                String talkerAlias = getTalkerAlias(audioRecording);
-                Long frequency = getFrequency(audioRecording);
-                String patches = getPatches(audioRecording);
-                String talkgroupLabel = getTalkgroupLabel(audioRecording);
-                String talkgroupGroup = getTalkgroupGroup(audioRecording);
-                String systemLabel = getSystemLabel(audioRecording);
-                String path = audioRecording.getPath().toString();
-                // Remove TEMPORARY_STREAM_FILE_SUFFIX
-                String audioName = path.substring(path.substring(0, path.lastIndexOf("_")).lastIndexOf("_") + 1);
-
-                try
+                bodyBuilder.addPart(FormField.valueOf(field.getKey()), field.getValue());
+            }
+        }
+
+        HttpRequest fileRequest = HttpRequest.newBuilder()
+            .uri(URI.create(getBroadcastConfiguration().getHost()))
+            .header(HttpHeaders.CONTENT_TYPE, MULTIPART_FORM_DATA + "; boundary=" + bodyBuilder.getBoundary())
+            .header(HttpHeaders.USER_AGENT, "sdrtrunk")
+            .POST(bodyBuilder.build())
+            .build();
+
+        return httpClient.sendAsync(fileRequest, HttpResponse.BodyHandlers.ofString())
+            .handle((fileResponse, throwable) -> {
+                if(throwable != null)
                 {
-                    byte[] audioBytes = null;
+                    //We get socket reset exceptions occasionally when the remote server doesn't fully read our
+                    //request and immediately responds.
+                    mLog.error("Rdio Scanner API file upload fail [" + throwable.getLocalizedMessage() + "]");
+                    return SpoolResult.RETRY;
+                }
 
-                    try
-                    {
-                        audioBytes = Files.readAllBytes(audioRecording.getPath());
-                    }
-                    catch(IOException e)
-                    {
-                        mLog.error("Rdio Scanner API - audio recording file not found - ignoring upload");
-                    }
+                String fileResponseString = fileResponse.body() != null ? fileResponse.body() : "";
 
-                    if(audioBytes != null)
+                if(fileResponse.statusCode() == 200)
+                {
+                    if(fileResponseString.contains("Call imported successfully."))
                     {
-
-                        RdioScannerBuilder bodyBuilder = new RdioScannerBuilder();
-                            bodyBuilder.addPart(FormField.KEY, getBroadcastConfiguration().getApiKey())
-                            .addPart(FormField.SYSTEM, getBroadcastConfiguration().getSystemID())
-                            .addAudioName(audioName)
-                            .addFile(audioBytes)
-                            .addPart(FormField.DATE_TIME, timestampSeconds)
-                            .addPart(FormField.TALKGROUP_ID, talkgroup)
-                            .addPart(FormField.SOURCE, radioId)
-                            .addPart(FormField.FREQUENCY, frequency)
-                            .addPart(FormField.TALKER_ALIAS, talkerAlias)
-                            .addPart(FormField.TALKGROUP_LABEL, talkgroupLabel)
-                            .addPart(FormField.TALKGROUP_GROUP, talkgroupGroup)
-                            .addPart(FormField.SYSTEM_LABEL, systemLabel)
-                            .addPart(FormField.PATCHES, patches);
-
-                        HttpRequest fileRequest = HttpRequest.newBuilder()
-                            .uri(URI.create(getBroadcastConfiguration().getHost()))
-                            .header(HttpHeaders.CONTENT_TYPE, MULTIPART_FORM_DATA + "; boundary=" + bodyBuilder.getBoundary())
-                            .header(HttpHeaders.USER_AGENT, "sdrtrunk")
-                            .POST(bodyBuilder.build())
-                            .build();
-
-                        mHttpClient.sendAsync(fileRequest, HttpResponse.BodyHandlers.ofString())
-                            .whenComplete((fileResponse, throwable1) -> {
-                                if(throwable1 != null || fileResponse.statusCode() != 200)
-                                {
-                                    if(throwable1 instanceof IOException || throwable1 instanceof CompletionException)
-                                    {
-                                        //We get socket reset exceptions occasionally when the remote server doesn't
-                                        //fully read our request and immediately responds.
-                                        setBroadcastState(BroadcastState.TEMPORARY_BROADCAST_ERROR);
-                                        mLog.error("Rdio Scanner API file upload fail [" +
-                                            fileResponse.statusCode() + "] response [" +
-                                            fileResponse.body() + "]");
-                                    }
-                                    else
-                                    {
-                                        setBroadcastState(BroadcastState.TEMPORARY_BROADCAST_ERROR);
-                                        mLog.error("Rdio Scanner API file upload fail [" +
-                                            fileResponse.statusCode() + "] response [" +
-                                            fileResponse.body() + "]");
-                                    }
-
-                                    incrementErrorAudioCount();
-                                    broadcast(new BroadcastEvent(RdioScannerBroadcaster.this,
-                                        BroadcastEvent.Event.BROADCASTER_ERROR_COUNT_CHANGE));
-                                }
-                                else
-                                {
-                                    String fileResponseString = fileResponse.body();
-
-                                    if(fileResponseString.contains("Call imported successfully."))
-                                    {
-                                        incrementStreamedAudioCount();
-                                        broadcast(new BroadcastEvent(RdioScannerBroadcaster.this,
-                                            BroadcastEvent.Event.BROADCASTER_STREAMED_COUNT_CHANGE)); 
-                                        audioRecording.removePendingReplay(); 
-                                    }
-                                    else if(fileResponseString.contains("duplicate call rejected"))
-                                    {
-                                        //Rdio Scanner is telling us to skip audio upload - someone already uploaded it
-                                        audioRecording.removePendingReplay();
-                                    }
-                                    else
-                                    {
-                                        setBroadcastState(BroadcastState.TEMPORARY_BROADCAST_ERROR);
-                                        mLog.error("Rdio Scanner API file upload fail [" +
-                                            fileResponse.statusCode() + "] response [" +
-                                            fileResponse.body() + "]");
-                                    }
-
-
-                                }
-                         
-                            });
+                        return SpoolResult.SUCCESS;
                     }
-                    else
+                    else if(fileResponseString.contains("duplicate call rejected"))
                     {
-                        //Register an error for the file not found exception
-                        mLog.error("Rdio Scanner API - upload file not found [" +
-                            audioRecording.getPath().toString() + "]");
-                        incrementErrorAudioCount();
-                        broadcast(new BroadcastEvent(RdioScannerBroadcaster.this,
-                            BroadcastEvent.Event.BROADCASTER_ERROR_COUNT_CHANGE));
-                        audioRecording.removePendingReplay();
+                        //Rdio Scanner is telling us to skip audio upload - someone already uploaded it
+                        return SpoolResult.DUPLICATE;
                     }
                 }
-                catch(Exception e)
-                {
-                    mLog.error("Unknown Error", e);
-                    setBroadcastState(BroadcastState.ERROR);
-                    incrementErrorAudioCount();
-                    broadcast(new BroadcastEvent(this, BroadcastEvent.Event.BROADCASTER_ERROR_COUNT_CHANGE));
-                    audioRecording.removePendingReplay();
-                }
-            }
-        }
 
-        //If we're not connected and there are recordings in the queue, check the recording at the head of the queue
-        // and start age-off once the recordings become too old.  The recordings should be time ordered in the queue.
-        AudioRecording audioRecording = mAudioRecordingQueue.peek();
-
-        while(audioRecording != null)
-        {
-            if(isValid(audioRecording))
-            {
-                return;
-            }
-            else
-            {
-                //Remove the recording from the queue, remove a replay, and peek at the next recording in the queue
-                mAudioRecordingQueue.poll();
-                audioRecording.removePendingReplay();
-                incrementAgedOffAudioCount();
-                broadcast(new BroadcastEvent(this, BroadcastEvent.Event.BROADCASTER_AGED_OFF_COUNT_CHANGE));
-                audioRecording = mAudioRecordingQueue.peek();
-            }
-        }
+                mLog.error("Rdio Scanner API file upload fail [" + fileResponse.statusCode() + "] response [" +
+                    fileResponseString + "]");
+                SpoolResult result = getSpoolResult(fileResponse.statusCode());
+                return result == SpoolResult.SUCCESS ? SpoolResult.FAILED : result;
+            });
     }
 
     /**
@@ -613,15 +499,6 @@ public class RdioScannerBroadcaster extends AbstractAudioBroadcaster<RdioScanner
         }
     }
 
-    public class AudioRecordingProcessor implements Runnable
-    {
-        @Override
-        public void run()
-        {
-            processRecordingQueue();
-        }
-    }
-
     public static void main(String[] args)
     {
         mLog.debug("Starting ...");
@@ -0,0 +1,54 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.audio.broadcast.spool;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Service specific uploader used by an upload spool to transfer a spooled recording to a remote server.
+ */
+public interface ISpoolUploader
+{
+    long DEFAULT_RECONNECT_INTERVAL_MS = 5000;
+
+    /**
+     * Indicates if the remote service is currently available for uploads.  The spool will not dispatch uploads while
+     * the uploader is unavailable, but will continue to age-off expired entries.
+     */
+    boolean isAvailable();
+
+    /**
+     * Interval in milliseconds for the spool to re-check availability while the uploader is unavailable and there are
+     * pending uploads.
+     */
+    default long getReconnectInterval()
+    {
+        return DEFAULT_RECONNECT_INTERVAL_MS;
+    }
+
+    /**
+     * Asynchronously uploads the spooled entry.
+     * @param entry to upload
+     * @param httpClient shared by all uploads for the spool target so that connections are reused
+     * @return future that completes with the upload result.  Exceptional completion is treated as a RETRY result.
+     */
+    CompletableFuture<SpoolResult> upload(SpoolEntry entry, HttpClient httpClient);
+}
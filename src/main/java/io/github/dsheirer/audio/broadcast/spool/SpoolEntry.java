@@ -0,0 +1,162 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.audio.broadcast.spool;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pending upload held in an upload spool.  Contains the spooled audio file and the set of form field values that were
+ * resolved from the audio recording identifiers and aliases at the time the recording was spooled, so that the upload
+ * can be recreated after an application restart without access to the original identifier collection.
+ */
+public class SpoolEntry
+{
+    private final long mId;
+    private final Path mPath;
+    private final long mSpoolTime;
+    private final long mStartTime;
+    private final long mRecordingLength;
+    private final Map<String,String> mFields;
+    private int mAttempts;
+    private long mNextAttemptTime;
+
+    /**
+     * Constructs an instance
+     * @param id unique within the spool
+     * @param path to the spooled audio file
+     * @param spoolTime when the entry was added to the spool in milliseconds since epoch
+     * @param startTime of the audio recording in milliseconds since epoch
+     * @param recordingLength in milliseconds
+     * @param fields resolved for the upload, keyed by the uploader's form field name
+     */
+    public SpoolEntry(long id, Path path, long spoolTime, long startTime, long recordingLength, Map<String,String> fields)
+    {
+        mId = id;
+        mPath = path;
+        mSpoolTime = spoolTime;
+        mStartTime = startTime;
+        mRecordingLength = recordingLength;
+        mFields = new LinkedHashMap<>(fields);
+    }
+
+    /**
+     * Spool entry identifier
+     */
+    public long getId()
+    {
+        return mId;
+    }
+
+    /**
+     * Path to the spooled audio recording file
+     */
+    public Path getPath()
+    {
+        return mPath;
+    }
+
+    /**
+     * Timestamp when the entry was added to the spool
+     */
+    public long getSpoolTime()
+    {
+        return mSpoolTime;
+    }
+
+    /**
+     * Recording start time in milliseconds since epoch
+     */
+    public long getStartTime()
+    {
+        return mStartTime;
+    }
+
+    /**
+     * Recording length in milliseconds
+     */
+    public long getRecordingLength()
+    {
+        return mRecordingLength;
+    }
+
+    /**
+     * Unmodifiable map of upload form field values
+     */
+    public Map<String,String> getFields()
+    {
+        return Collections.unmodifiableMap(mFields);
+    }
+
+    /**
+     * Access a form field value
+     * @param key of the field
+     * @return value or null
+     */
+    public String getField(String key)
+    {
+        return mFields.get(key);
+    }
+
+    /**
+     * Number of failed upload attempts
+     */
+    public int getAttempts()
+    {
+        return mAttempts;
+    }
+
+    /**
+     * Earliest time that the next upload attempt can be made
+     */
+    public long getNextAttemptTime()
+    {
+        return mNextAttemptTime;
+    }
+
+    /**
+     * Registers a failed upload attempt and schedules the next attempt using exponential backoff.
+     * @param initialBackoff for the first retry in milliseconds
+     * @param maximumBackoff ceiling in milliseconds
+     * @param now current timestamp
+     */
+    public void scheduleRetry(long initialBackoff, long maximumBackoff, long now)
+    {
+        long backoff = initialBackoff << Math.min(mAttempts, 20);
+        mAttempts++;
+        mNextAttemptTime = now + Math.min(backoff, maximumBackoff);
+    }
+
+    /**
+     * Indicates if the entry can be attempted at the specified time
+     */
+    public boolean isReady(long now)
+    {
+        return now >= mNextAttemptTime;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Spool Entry [" + mId + "] file [" + mPath.getFileName() + "] attempts [" + mAttempts + "]";
+    }
+}
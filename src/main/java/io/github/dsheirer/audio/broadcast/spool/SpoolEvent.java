@@ -0,0 +1,66 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.audio.broadcast.spool;
+
+/**
+ * Upload spool event to notify the owning broadcaster of spool activity.
+ */
+public class SpoolEvent
+{
+    private final Event mEvent;
+    private final SpoolEntry mSpoolEntry;
+
+    /**
+     * Constructs an instance
+     * @param event type
+     * @param spoolEntry that is the subject of the event, or null for queue change events
+     */
+    public SpoolEvent(Event event, SpoolEntry spoolEntry)
+    {
+        mEvent = event;
+        mSpoolEntry = spoolEntry;
+    }
+
+    /**
+     * Event type
+     */
+    public Event getEvent()
+    {
+        return mEvent;
+    }
+
+    /**
+     * Spool entry that is the subject of this event.  May be null.
+     */
+    public SpoolEntry getSpoolEntry()
+    {
+        return mSpoolEntry;
+    }
+
+    public enum Event
+    {
+        UPLOADED,
+        DUPLICATE,
+        RETRY,
+        ERROR,
+        AGED_OFF,
+        QUEUE_CHANGE;
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.audio.broadcast.spool;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only, line oriented journal of upload spool activity.  Each spooled entry is recorded with an ADD line when
+ * it enters the spool and a DONE line when it leaves the spool (uploaded, rejected or aged off).  On startup, the
+ * journal is replayed to recover any entries that were still pending when the application was shutdown and the
+ * journal is then compacted to contain only the recovered entries.
+ *
+ * Line format (tab separated, field values URL encoded):
+ *   A id spoolTime startTime length fileName key=value&key=value
+ *   D id
+ */
+public class SpoolJournal
+{
+    private final static Logger mLog = LoggerFactory.getLogger(SpoolJournal.class);
+    public static final String JOURNAL_FILE_NAME = "spool.journal";
+    private static final String TEMPORARY_JOURNAL_FILE_NAME = "spool.journal.tmp";
+    private static final String ADD = "A";
+    private static final String DONE = "D";
+    private static final String TAB = "\t";
+    private final Path mDirectory;
+    private BufferedWriter mWriter;
+    private int mDoneCount;
+
+    /**
+     * Constructs an instance
+     * @param directory containing the journal and the spooled audio files.
+     */
+    public SpoolJournal(Path directory)
+    {
+        mDirectory = directory;
+    }
+
+    /**
+     * Path to the journal file
+     */
+    public Path getPath()
+    {
+        return mDirectory.resolve(JOURNAL_FILE_NAME);
+    }
+
+    /**
+     * Number of DONE records appended since the last compaction.
+     */
+    public int getDoneCount()
+    {
+        return mDoneCount;
+    }
+
+    /**
+     * Replays the journal and returns any entries that were not marked as done and that still have a spooled audio
+     * file.  The journal is compacted and opened for appending.
+     * @return recovered pending entries in spool order.
+     * @throws IOException if the journal cannot be read or created
+     */
+    public synchronized List<SpoolEntry> open() throws IOException
+    {
+        Files.createDirectories(mDirectory);
+
+        Map<Long,SpoolEntry> entries = new LinkedHashMap<>();
+        Path journal = getPath();
+
+        if(Files.exists(journal))
+        {
+            try(BufferedReader reader = Files.newBufferedReader(journal, StandardCharsets.UTF_8))
+            {
+                String line;
+
+                while((line = reader.readLine()) != null)
+                {
+                    try
+                    {
+                        String[] parts = line.split(TAB, -1);
+
+                        if(parts.length >= 7 && parts[0].equals(ADD))
+                        {
+                            SpoolEntry entry = new SpoolEntry(Long.parseLong(parts[1]),
+                                mDirectory.resolve(decode(parts[5])), Long.parseLong(parts[2]),
+                                Long.parseLong(parts[3]), Long.parseLong(parts[4]), decodeFields(parts[6]));
+                            entries.put(entry.getId(), entry);
+                        }
+                        else if(parts.length >= 2 && parts[0].equals(DONE))
+                        {
+                            entries.remove(Long.parseLong(parts[1]));
+                        }
+                    }
+                    catch(Exception e)
+                    {
+                        //A partially written trailing line is expected if the application terminated abnormally
+                        mLog.warn("Ignoring malformed upload spool journal line in [" + journal + "]");
+                    }
+                }
+            }
+        }
+
+        List<SpoolEntry> recovered = new ArrayList<>();
+
+        for(SpoolEntry entry: entries.values())
+        {
+            if(Files.exists(entry.getPath()))
+            {
+                recovered.add(entry);
+            }
+        }
+
+        compact(recovered);
+        return recovered;
+    }
+
+    /**
+     * Records that the entry was added to the spool.
+     */
+    public synchronized void add(SpoolEntry entry) throws IOException
+    {
+        write(ADD + TAB + entry.getId() + TAB + entry.getSpoolTime() + TAB + entry.getStartTime() + TAB +
+            entry.getRecordingLength() + TAB + encode(entry.getPath().getFileName().toString()) + TAB +
+            encodeFields(entry.getFields()));
+    }
+
+    /**
+     * Records that the entry was removed from the spool.
+     */
+    public synchronized void done(SpoolEntry entry) throws IOException
+    {
+        write(DONE + TAB + entry.getId());
+        mDoneCount++;
+    }
+
+    /**
+     * Rewrites the journal to contain only the pending entries and reopens the journal for appending.  The rewrite
+     * is performed against a temporary file that atomically replaces the existing journal.
+     * @param pending entries to retain
+     */
+    public synchronized void compact(Collection<SpoolEntry> pending) throws IOException
+    {
+        close();
+
+        Path temporary = mDirectory.resolve(TEMPORARY_JOURNAL_FILE_NAME);
+
+        try(BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8))
+        {
+            mWriter = writer;
+
+            for(SpoolEntry entry: pending)
+            {
+                add(entry);
+            }
+        }
+        finally
+        {
+            mWriter = null;
+        }
+
+        try
+        {
+            Files.move(temporary, getPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch(IOException ioe)
+        {
+            Files.move(temporary, getPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        mDoneCount = 0;
+        mWriter = Files.newBufferedWriter(getPath(), StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+            StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Closes the journal
+     */
+    public synchronized void close()
+    {
+        if(mWriter != null)
+        {
+            try
+            {
+                mWriter.close();
+            }
+            catch(IOException ioe)
+            {
+                mLog.error("Error closing upload spool journal [" + getPath() + "]", ioe);
+            }
+
+            mWriter = null;
+        }
+    }
+
+    /**
+     * Appends and flushes a journal line.
+     */
+    private void write(String line) throws IOException
+    {
+        if(mWriter == null)
+        {
+            throw new IOException("Upload spool journal is not open");
+        }
+
+        mWriter.write(line);
+        mWriter.newLine();
+        mWriter.flush();
+    }
+
+    private static String encode(String value)
+    {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String decode(String value)
+    {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String encodeFields(Map<String,String> fields)
+    {
+        StringBuilder sb = new StringBuilder();
+
+        for(Map.Entry<String,String> entry: fields.entrySet())
+        {
+            if(entry.getValue() != null)
+            {
+                if(!sb.isEmpty())
+                {
+                    sb.append("&");
+                }
+
+                sb.append(encode(entry.getKey())).append("=").append(encode(entry.getValue()));
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private static Map<String,String> decodeFields(String encoded)
+    {
+        Map<String,String> fields = new LinkedHashMap<>();
+
+        if(!encoded.isEmpty())
+        {
+            for(String pair: encoded.split("&"))
+            {
+                int split = pair.indexOf('=');
+
+                if(split > 0)
+                {
+                    fields.put(decode(pair.substring(0, split)), decode(pair.substring(split + 1)));
+                }
+            }
+        }
+
+        return fields;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.audio.broadcast.spool;
+
+import io.github.dsheirer.util.LatencyHistogram;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Upload spool metrics: backlog depth, in-flight uploads, outcome counters and upload latency.
+ */
+public class SpoolMetrics
+{
+    private final AtomicInteger mBacklog = new AtomicInteger();
+    private final AtomicInteger mInFlight = new AtomicInteger();
+    private final AtomicLong mUploaded = new AtomicLong();
+    private final AtomicLong mDuplicates = new AtomicLong();
+    private final AtomicLong mRetries = new AtomicLong();
+    private final AtomicLong mErrors = new AtomicLong();
+    private final AtomicLong mAgedOff = new AtomicLong();
+    private final LatencyHistogram mUploadLatency = new LatencyHistogram("Upload Latency", "ms");
+    private final LatencyHistogram mQueueLatency = new LatencyHistogram("Spool-To-Upload Latency", "ms");
+
+    /**
+     * Number of entries in the spool, including in-flight uploads.
+     */
+    public int getBacklog()
+    {
+        return mBacklog.get();
+    }
+
+    void setBacklog(int backlog)
+    {
+        mBacklog.set(backlog);
+    }
+
+    /**
+     * Number of uploads currently in progress.
+     */
+    public int getInFlight()
+    {
+        return mInFlight.get();
+    }
+
+    void incrementInFlight()
+    {
+        mInFlight.incrementAndGet();
+    }
+
+    void decrementInFlight()
+    {
+        mInFlight.decrementAndGet();
+    }
+
+    /**
+     * Count of successful uploads
+     */
+    public long getUploaded()
+    {
+        return mUploaded.get();
+    }
+
+    /**
+     * Count of uploads rejected by the server as duplicates
+     */
+    public long getDuplicates()
+    {
+        return mDuplicates.get();
+    }
+
+    /**
+     * Count of upload attempts that failed with a transient error and were rescheduled.
+     */
+    public long getRetries()
+    {
+        return mRetries.get();
+    }
+
+    /**
+     * Count of permanently failed uploads
+     */
+    public long getErrors()
+    {
+        return mErrors.get();
+    }
+
+    /**
+     * Count of entries removed from the spool for exceeding the maximum age.
+     */
+    public long getAgedOff()
+    {
+        return mAgedOff.get();
+    }
+
+    /**
+     * Latency of each upload attempt, from dispatch until the server response.
+     */
+    public LatencyHistogram getUploadLatency()
+    {
+        return mUploadLatency;
+    }
+
+    /**
+     * Latency from when a recording enters the spool until it is successfully uploaded.
+     */
+    public LatencyHistogram getQueueLatency()
+    {
+        return mQueueLatency;
+    }
+
+    void record(SpoolResult result)
+    {
+        switch(result)
+        {
+            case SUCCESS -> mUploaded.incrementAndGet();
+            case DUPLICATE -> mDuplicates.incrementAndGet();
+            case RETRY -> mRetries.incrementAndGet();
+            case FAILED -> mErrors.incrementAndGet();
+        }
+    }
+
+    void incrementAgedOff()
+    {
+        mAgedOff.incrementAndGet();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Backlog:" + getBacklog() + " In-Flight:" + getInFlight() + " Uploaded:" + getUploaded() +
+            " Duplicate:" + getDuplicates() + " Retries:" + getRetries() + " Errors:" + getErrors() +
+            " Aged-Off:" + getAgedOff() + " " + mUploadLatency + " " + mQueueLatency;
+    }
+}
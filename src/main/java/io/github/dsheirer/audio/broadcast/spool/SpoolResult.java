@@ -0,0 +1,47 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.audio.broadcast.spool;
+
+/**
+ * Outcome of a single spool entry upload attempt.
+ */
+public enum SpoolResult
+{
+    /**
+     * Upload accepted by the remote server.  Entry is removed from the spool.
+     */
+    SUCCESS,
+
+    /**
+     * Remote server indicated that it already has the call (e.g. duplicate or skipped).  Entry is removed from the
+     * spool without counting an error.
+     */
+    DUPLICATE,
+
+    /**
+     * Transient failure (connection reset, timeout, server busy).  Entry is retained and retried with backoff.
+     */
+    RETRY,
+
+    /**
+     * Permanent failure (rejected request, missing file).  Entry is removed from the spool and counted as an error.
+     */
+    FAILED;
+}
@@ -0,0 +1,571 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.audio.broadcast.spool;
+
+import io.github.dsheirer.audio.broadcast.BroadcastConfiguration;
+import io.github.dsheirer.sample.Listener;
+import io.github.dsheirer.util.ThreadPool;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent upload spool for a single call upload target (e.g. one Rdio Scanner, Broadcastify Calls or OpenMHz
+ * configuration).
+ *
+ * Completed audio recordings are copied (hard-linked when possible) into the spool directory and recorded in an
+ * append-only journal so that pending uploads survive an application restart.  The spool processor runs when it is
+ * signalled that an entry was added, an upload completed or the uploader became available, and when the next retry
+ * backoff or age-off time is reached.  While the uploader is unavailable, the processor also runs at the uploader's
+ * reconnect interval to re-check availability.  It dispatches pending entries, oldest first, to the service specific uploader
+ * while limiting the number of concurrent uploads for the target.  Transient failures are retried with exponential backoff and entries that exceed
+ * the maximum recording age are aged off.  All uploads for the target share a single HTTP client so that server
+ * connections are reused across uploads.
+ */
+public class UploadSpool
+{
+    private final static Logger mLog = LoggerFactory.getLogger(UploadSpool.class);
+    public static final String SPOOL_DIRECTORY = "spool";
+    public static final long DEFAULT_INITIAL_BACKOFF_MS = 1000;
+    public static final long DEFAULT_MAXIMUM_BACKOFF_MS = 60000;
+    private static final int COMPACTION_THRESHOLD = 500;
+
+    private final String mName;
+    private final Path mDirectory;
+    private final ISpoolUploader mUploader;
+    private final SpoolJournal mJournal;
+    private final SpoolMetrics mMetrics = new SpoolMetrics();
+    private final Map<Long,SpoolEntry> mEntries = new LinkedHashMap<>();
+    private final Set<Long> mInFlight = new HashSet<>();
+    private final Semaphore mPermits;
+    private final AtomicLong mNextId = new AtomicLong(1);
+    private final AtomicBoolean mRunning = new AtomicBoolean();
+    private final AtomicBoolean mProcessPending = new AtomicBoolean();
+    private final Object mStateLock = new Object();
+    private final Processor mProcessor = new Processor();
+    private final long mMaximumAge;
+    private final long mInitialBackoff;
+    private final long mMaximumBackoff;
+    private final HttpClient mHttpClient;
+    private Listener<SpoolEvent> mListener;
+    private ScheduledFuture<?> mWakeupFuture;
+
+    /**
+     * Constructs an instance
+     * @param name of the spool target for logging
+     * @param directory for the spool journal and spooled audio files.  Each target must use a separate directory.
+     * @param uploader to perform the service specific upload
+     * @param maximumConcurrentUploads for this target
+     * @param maximumAge of a recording in milliseconds before it is aged off
+     * @param initialBackoff delay in milliseconds after the first transient upload failure
+     * @param maximumBackoff delay ceiling in milliseconds for successive transient upload failures
+     */
+    public UploadSpool(String name, Path directory, ISpoolUploader uploader, int maximumConcurrentUploads,
+                       long maximumAge, long initialBackoff, long maximumBackoff)
+    {
+        mName = name;
+        mDirectory = directory;
+        mUploader = uploader;
+        mJournal = new SpoolJournal(directory);
+        mPermits = new Semaphore(Math.max(1, maximumConcurrentUploads));
+        mMaximumAge = maximumAge;
+        mInitialBackoff = initialBackoff;
+        mMaximumBackoff = maximumBackoff;
+        mHttpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(20))
+            .build();
+    }
+
+    /**
+     * Constructs an instance using the default backoff settings.
+     */
+    public UploadSpool(String name, Path directory, ISpoolUploader uploader, int maximumConcurrentUploads,
+                       long maximumAge)
+    {
+        this(name, directory, uploader, maximumConcurrentUploads, maximumAge, DEFAULT_INITIAL_BACKOFF_MS,
+            DEFAULT_MAXIMUM_BACKOFF_MS);
+    }
+
+    /**
+     * Creates the spool directory path for a broadcast configuration.  The directory is keyed by the persistent spool
+     * identifier of the configuration so that renaming a configuration, or two configurations with the same name,
+     * don't share or orphan a spool.
+     * @param streamingDirectory parent directory for temporary streaming recordings
+     * @param configuration for the spool target
+     * @return spool directory for the configuration
+     */
+    public static Path getSpoolDirectory(Path streamingDirectory, BroadcastConfiguration configuration)
+    {
+        String name = configuration.getBroadcastServerType().name() + "_" + configuration.getSpoolId();
+        return streamingDirectory.resolve(SPOOL_DIRECTORY).resolve(name.replaceAll("[^A-Za-z0-9._-]", "_"));
+    }
+
+    /**
+     * Registers a listener to receive spool events.  Events are delivered on spool processing and HTTP client
+     * completion threads.
+     */
+    public void setListener(Listener<SpoolEvent> listener)
+    {
+        mListener = listener;
+    }
+
+    /**
+     * Spool metrics
+     */
+    public SpoolMetrics getMetrics()
+    {
+        return mMetrics;
+    }
+
+    /**
+     * Shared HTTP client for this spool target.
+     */
+    public HttpClient getHttpClient()
+    {
+        return mHttpClient;
+    }
+
+    /**
+     * Number of pending entries in the spool, including in-flight uploads.
+     */
+    public int getBacklog()
+    {
+        synchronized(mEntries)
+        {
+            return mEntries.size();
+        }
+    }
+
+    /**
+     * Opens the journal, recovers any pending entries from a previous run and starts the spool processor.
+     */
+    public void start()
+    {
+        synchronized(mStateLock)
+        {
+            if(!mRunning.compareAndSet(false, true))
+            {
+                return;
+            }
+
+            try
+            {
+                List<SpoolEntry> recovered = mJournal.open();
+
+                synchronized(mEntries)
+                {
+                    for(SpoolEntry entry: recovered)
+                    {
+                        mEntries.put(entry.getId(), entry);
+                        mNextId.set(Math.max(mNextId.get(), entry.getId() + 1));
+                    }
+
+                    mMetrics.setBacklog(mEntries.size());
+                }
+
+                if(!recovered.isEmpty())
+                {
+                    mLog.info("Upload spool [" + mName + "] recovered [" + recovered.size() + "] pending uploads");
+                    broadcast(new SpoolEvent(SpoolEvent.Event.QUEUE_CHANGE, null));
+                }
+            }
+            catch(IOException ioe)
+            {
+                mLog.error("Upload spool [" + mName + "] unable to open journal in [" + mDirectory +
+                    "] - pending uploads will not survive a restart", ioe);
+            }
+        }
+
+        signal();
+    }
+
+    /**
+     * Stops the spool processor and closes the journal.  Pending entries remain in the journal and are recovered on
+     * the next start.  Uploads that are in progress when stopped are not marked as done and will be retried.
+     */
+    public void stop()
+    {
+        synchronized(mStateLock)
+        {
+            if(!mRunning.compareAndSet(true, false))
+            {
+                return;
+            }
+
+            synchronized(mEntries)
+            {
+                if(mWakeupFuture != null)
+                {
+                    mWakeupFuture.cancel(false);
+                    mWakeupFuture = null;
+                }
+
+                mJournal.close();
+                mEntries.clear();
+                mInFlight.clear();
+                mMetrics.setBacklog(0);
+            }
+
+            mLog.info("Upload spool [" + mName + "] stopped - " + mMetrics);
+        }
+    }
+
+    /**
+     * Adds an audio recording to the spool.
+     * @param recording path to the completed audio recording.  The spool makes its own copy of the file so the
+     * caller remains responsible for the original file.
+     * @param startTime of the recording in milliseconds since epoch
+     * @param recordingLength in milliseconds
+     * @param fields resolved for the upload
+     * @return true if the recording was spooled
+     */
+    public boolean offer(Path recording, long startTime, long recordingLength, Map<String,String> fields)
+    {
+        SpoolEntry entry;
+
+        //Hold the state lock so that the spool can't be stopped between the running check and the journal update
+        synchronized(mStateLock)
+        {
+            if(!mRunning.get())
+            {
+                return false;
+            }
+
+            long id = mNextId.getAndIncrement();
+            Path spooled = mDirectory.resolve(id + "_" + recording.getFileName().toString());
+
+            try
+            {
+                try
+                {
+                    Files.createLink(spooled, recording);
+                }
+                catch(IOException | UnsupportedOperationException e)
+                {
+                    Files.copy(recording, spooled);
+                }
+
+                entry = new SpoolEntry(id, spooled, System.currentTimeMillis(), startTime, recordingLength, fields);
+                mJournal.add(entry);
+
+                synchronized(mEntries)
+                {
+                    mEntries.put(id, entry);
+                    mMetrics.setBacklog(mEntries.size());
+                }
+            }
+            catch(IOException ioe)
+            {
+                mLog.error("Upload spool [" + mName + "] unable to spool recording [" + recording + "]", ioe);
+                deleteFile(spooled);
+                return false;
+            }
+        }
+
+        broadcast(new SpoolEvent(SpoolEvent.Event.QUEUE_CHANGE, entry));
+        signal();
+        return true;
+    }
+
+    /**
+     * Signals the spool processor to run.  Signals that arrive while the processor is pending are coalesced into a
+     * single run.  Uploaders should signal the spool when they become available.
+     */
+    public void signal()
+    {
+        if(mRunning.get() && mProcessPending.compareAndSet(false, true))
+        {
+            ThreadPool.CACHED.execute(mProcessor);
+        }
+    }
+
+    /**
+     * Ages off expired entries and dispatches ready entries to the uploader while upload permits are available, and
+     * schedules a wakeup for the earliest retry backoff or age-off time of the remaining entries.
+     */
+    private void process()
+    {
+        long now = System.currentTimeMillis();
+        List<SpoolEntry> expired = new ArrayList<>();
+        List<SpoolEntry> dispatch = new ArrayList<>();
+        boolean available = mUploader.isAvailable();
+
+        synchronized(mEntries)
+        {
+            if(!mRunning.get())
+            {
+                return;
+            }
+
+            long wakeup = Long.MAX_VALUE;
+            boolean waiting = false;
+
+            for(SpoolEntry entry: mEntries.values())
+            {
+                if(!mInFlight.contains(entry.getId()))
+                {
+                    if(now - entry.getStartTime() > mMaximumAge)
+                    {
+                        expired.add(entry);
+                    }
+                    else if(available && entry.isReady(now) && mPermits.tryAcquire())
+                    {
+                        mInFlight.add(entry.getId());
+                        dispatch.add(entry);
+                    }
+                    else
+                    {
+                        //Entries waiting on a permit are signalled when an upload completes, so these entries only
+                        //need a wakeup for the backoff, age-off and, while unavailable, reconnect times
+                        wakeup = Math.min(wakeup, entry.getStartTime() + mMaximumAge + 1);
+                        waiting = true;
+
+                        if(!entry.isReady(now))
+                        {
+                            wakeup = Math.min(wakeup, entry.getNextAttemptTime());
+                        }
+                    }
+                }
+            }
+
+            //Re-check availability at the reconnect interval so that the backlog drains after the service recovers
+            if(waiting && !available)
+            {
+                wakeup = Math.min(wakeup, now + mUploader.getReconnectInterval());
+            }
+
+            if(mWakeupFuture != null)
+            {
+                mWakeupFuture.cancel(false);
+                mWakeupFuture = null;
+            }
+
+            if(wakeup != Long.MAX_VALUE)
+            {
+                mWakeupFuture = ThreadPool.SCHEDULED.schedule(this::signal, Math.max(0, wakeup - now),
+                    TimeUnit.MILLISECONDS);
+            }
+        }
+
+        for(SpoolEntry entry: expired)
+        {
+            remove(entry);
+            mMetrics.incrementAgedOff();
+            broadcast(new SpoolEvent(SpoolEvent.Event.AGED_OFF, entry));
+        }
+
+        for(SpoolEntry entry: dispatch)
+        {
+            upload(entry);
+        }
+    }
+
+    /**
+     * Dispatches the entry to the uploader
+     */
+    private void upload(SpoolEntry entry)
+    {
+        mMetrics.incrementInFlight();
+        long dispatched = System.currentTimeMillis();
+        CompletableFuture<SpoolResult> future;
+
+        try
+        {
+            future = mUploader.upload(entry, mHttpClient);
+        }
+        catch(Throwable t)
+        {
+            mLog.error("Upload spool [" + mName + "] error dispatching upload for " + entry, t);
+            future = CompletableFuture.completedFuture(SpoolResult.RETRY);
+        }
+
+        future.whenComplete((result, throwable) -> complete(entry, throwable != null || result == null ?
+            SpoolResult.RETRY : result, System.currentTimeMillis() - dispatched));
+    }
+
+    /**
+     * Processes the upload result for an entry.
+     */
+    private void complete(SpoolEntry entry, SpoolResult result, long latency)
+    {
+        mMetrics.decrementInFlight();
+        mMetrics.getUploadLatency().add(latency);
+        mMetrics.record(result);
+
+        synchronized(mEntries)
+        {
+            mInFlight.remove(entry.getId());
+
+            if(result == SpoolResult.RETRY)
+            {
+                entry.scheduleRetry(mInitialBackoff, mMaximumBackoff, System.currentTimeMillis());
+            }
+        }
+
+        mPermits.release();
+
+        switch(result)
+        {
+            case SUCCESS:
+                mMetrics.getQueueLatency().add(System.currentTimeMillis() - entry.getSpoolTime());
+                remove(entry);
+                broadcast(new SpoolEvent(SpoolEvent.Event.UPLOADED, entry));
+                break;
+            case DUPLICATE:
+                remove(entry);
+                broadcast(new SpoolEvent(SpoolEvent.Event.DUPLICATE, entry));
+                break;
+            case FAILED:
+                remove(entry);
+                broadcast(new SpoolEvent(SpoolEvent.Event.ERROR, entry));
+                break;
+            case RETRY:
+                broadcast(new SpoolEvent(SpoolEvent.Event.RETRY, entry));
+                break;
+        }
+
+        signal();
+    }
+
+    /**
+     * Removes the entry from the spool, records the removal in the journal and deletes the spooled audio file.
+     */
+    private void remove(SpoolEntry entry)
+    {
+        List<SpoolEntry> pending = null;
+
+        synchronized(mEntries)
+        {
+            if(mEntries.remove(entry.getId()) == null)
+            {
+                return;
+            }
+
+            mMetrics.setBacklog(mEntries.size());
+
+            if(mRunning.get())
+            {
+                try
+                {
+                    mJournal.done(entry);
+
+                    if(mJournal.getDoneCount() > COMPACTION_THRESHOLD)
+                    {
+                        pending = new ArrayList<>(mEntries.values());
+                    }
+                }
+                catch(IOException ioe)
+                {
+                    mLog.error("Upload spool [" + mName + "] error updating journal", ioe);
+                }
+            }
+
+            if(pending != null)
+            {
+                try
+                {
+                    mJournal.compact(pending);
+                }
+                catch(IOException ioe)
+                {
+                    mLog.error("Upload spool [" + mName + "] error compacting journal", ioe);
+                }
+            }
+        }
+
+        deleteFile(entry.getPath());
+        broadcast(new SpoolEvent(SpoolEvent.Event.QUEUE_CHANGE, entry));
+    }
+
+    /**
+     * Deletes the file, if it exists.
+     */
+    private void deleteFile(Path path)
+    {
+        try
+        {
+            Files.deleteIfExists(path);
+        }
+        catch(IOException ioe)
+        {
+            mLog.error("Upload spool [" + mName + "] unable to delete spooled file [" + path + "]", ioe);
+        }
+    }
+
+    /**
+     * Broadcasts the event to the registered listener
+     */
+    private void broadcast(SpoolEvent event)
+    {
+        Listener<SpoolEvent> listener = mListener;
+
+        if(listener != null)
+        {
+            try
+            {
+                listener.receive(event);
+            }
+            catch(Throwable t)
+            {
+                mLog.error("Upload spool [" + mName + "] error broadcasting spool event", t);
+            }
+        }
+    }
+
+    /**
+     * Spool processor
+     */
+    public class Processor implements Runnable
+    {
+        @Override
+        public void run()
+        {
+            //Clear the pending flag first so that a signal that arrives during processing schedules another run
+            mProcessPending.set(false);
+
+            try
+            {
+                process();
+            }
+            catch(Throwable t)
+            {
+                mLog.error("Upload spool [" + mName + "] error processing spool", t);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.audio.playback;
+
+import io.github.dsheirer.controller.NamingThreadFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Real-time mixing engine that services all audio outputs from a single thread.  Each cycle, every registered audio
+ * output mixes its active audio segments and tops up its source data line to the configured output latency using
+ * non-blocking writes, so one thread can keep several outputs fed without any output blocking another.
+ */
+public class AudioMixingEngine
+{
+    private final static Logger mLog = LoggerFactory.getLogger(AudioMixingEngine.class);
+    private static final int MINIMUM_PERIOD_MS = 5;
+    private final List<AudioOutput> mAudioOutputs = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService mExecutorService =
+        Executors.newSingleThreadScheduledExecutor(new NamingThreadFactory("sdrtrunk audio mixer"));
+    private ScheduledFuture<?> mMixingFuture;
+    private int mOutputLatency;
+
+    /**
+     * Constructs an instance and starts the mixing thread.
+     * @param outputLatency target amount of buffered output audio in milliseconds
+     */
+    public AudioMixingEngine(int outputLatency)
+    {
+        setOutputLatency(outputLatency);
+    }
+
+    /**
+     * Target amount of audio buffered in each output's source data line, in milliseconds.
+     */
+    public int getOutputLatency()
+    {
+        return mOutputLatency;
+    }
+
+    /**
+     * Sets the output latency and reschedules the mixing cycle to run four times per latency period.  Audio outputs
+     * read the latency when they are created.
+     */
+    public synchronized void setOutputLatency(int outputLatency)
+    {
+        mOutputLatency = outputLatency;
+
+        if(mMixingFuture != null)
+        {
+            mMixingFuture.cancel(false);
+        }
+
+        long period = Math.max(MINIMUM_PERIOD_MS, outputLatency / 4);
+        mMixingFuture = mExecutorService.scheduleAtFixedRate(this::mix, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registers the audio output for mixing
+     */
+    public void add(AudioOutput audioOutput)
+    {
+        mAudioOutputs.add(audioOutput);
+    }
+
+    /**
+     * Unregisters and disposes the audio output.  Disposal runs on the mixing thread so that it can't overlap a
+     * mixing cycle for the output.
+     */
+    public void remove(AudioOutput audioOutput)
+    {
+        mAudioOutputs.remove(audioOutput);
+
+        if(!mExecutorService.isShutdown())
+        {
+            mExecutorService.execute(audioOutput::dispose);
+        }
+        else
+        {
+            audioOutput.dispose();
+        }
+    }
+
+    /**
+     * Stops the mixing thread and disposes all audio outputs.
+     */
+    public synchronized void dispose()
+    {
+        for(AudioOutput audioOutput: mAudioOutputs)
+        {
+            remove(audioOutput);
+        }
+
+        mExecutorService.shutdown();
+    }
+
+    /**
+     * Mixing cycle
+     */
+    private void mix()
+    {
+        for(AudioOutput audioOutput: mAudioOutputs)
+        {
+            try
+            {
+                audioOutput.process();
+            }
+            catch(Throwable t)
+            {
+                mLog.error("Error while mixing audio for output [" + audioOutput.getChannelName() + "]", t);
+            }
+        }
+    }
+}
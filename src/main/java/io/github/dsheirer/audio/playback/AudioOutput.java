@@ -21,7 +21,6 @@ package io.github.dsheirer.audio.playback;
 import com.google.common.eventbus.Subscribe;
 import io.github.dsheirer.audio.AudioEvent;
 import io.github.dsheirer.audio.AudioSegment;
-import io.github.dsheirer.controller.NamingThreadFactory;
 import io.github.dsheirer.eventbus.MyEventBus;
 import io.github.dsheirer.identifier.IdentifierCollection;
 import io.github.dsheirer.identifier.IdentifierUpdateNotification;
@@ -31,13 +30,10 @@ import io.github.dsheirer.preference.UserPreferences;
 import io.github.dsheirer.sample.Broadcaster;
 import io.github.dsheirer.sample.Listener;
 import io.github.dsheirer.source.mixer.MixerChannel;
-import java.nio.ByteBuffer;
-import java.util.concurrent.Executors;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.LinkedTransferQueue;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,13 +51,21 @@ import javax.sound.sampled.SourceDataLine;
 /**
  * Audio output/playback channel for a single audio mixer channel.  Providers support for playback of audio segments
  * and broadcasts audio segment metadata to registered listeners (ie gui components).
+ *
+ * Multiple audio segments can play simultaneously.  Each active segment is read incrementally through a mixer track
+ * and summed into a preallocated float accumulator.  Tracks with a lower monitor priority than the highest priority
+ * active track are ducked.  The audio mixing engine invokes process() from a single thread to mix and top up the
+ * source data line to the configured output latency.
  */
 public abstract class AudioOutput implements LineListener, Listener<IdentifierUpdateNotification>
 {
     private final static Logger mLog = LoggerFactory.getLogger(AudioOutput.class);
     private static final LoggingSuppressor LOGGING_SUPPRESSOR = new LoggingSuppressor(mLog);
-    private int mBufferStartThreshold;
-    private int mBufferStopThreshold;
+
+    /**
+     * Gain applied to tracks that have a lower priority than the highest priority active track.
+     */
+    public static final float DUCKING_GAIN = 0.25f;
     private Listener<IdentifierCollection> mIdentifierCollectionListener;
     private Broadcaster<AudioEvent> mAudioEventBroadcaster = new Broadcaster<>();
     private SourceDataLine mOutput;
@@ -71,19 +75,23 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
     private BooleanControl mMuteControl;
     private AudioEvent mAudioStartEvent;
     private AudioEvent mAudioStopEvent;
-    private boolean mCanProcessAudio = false;
+    private volatile boolean mCanProcessAudio = false;
     private LinkedTransferQueue<AudioSegment> mAudioSegmentQueue = new LinkedTransferQueue<>();
-    private AudioSegment mCurrentAudioSegment;
-    private int mCurrentBufferIndex = 0;
+    private List<MixerTrack> mTracks = new CopyOnWriteArrayList<>();
+    private volatile AudioSegment mLeadAudioSegment;
     private UserPreferences mUserPreferences;
-    private ByteBuffer mAudioSegmentStartTone;
-    private ByteBuffer mAudioSegmentDropTone;
+    private float[] mAudioSegmentStartTone;
+    private float[] mAudioSegmentDropTone;
     private boolean mRunning = false;
-    private ScheduledExecutorService mScheduledExecutorService;
-    private ScheduledFuture<?> mProcessorFuture;
     private boolean mDropDuplicates;
-    private long mOutputLastTimestamp = 0;
-    private static final long STALE_PLAYBACK_THRESHOLD_MS = 500;
+    private long mPrerollStartTimestamp = 0;
+    private int mMaximumMixedSegments;
+    private int mOutputLatency;
+    private int mTargetBufferedBytes;
+    private float[] mAccumulator;
+    private byte[] mOutputBuffer;
+    private boolean mUnderrun = false;
+    private AtomicLong mUnderrunCount = new AtomicLong();
     private AudioFormat mAudioFormat;
     private Line.Info mLineInfo;
     private int mRequestedBufferSize;
@@ -93,9 +101,6 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
      * underlying sourcedataline specified by the mixer and mixer channel
      * arguments.
      *
-     * Maintains an internal non-blocking audio packet queue and processes this
-     * queue 25 times a second (every 40 ms).
-     *
      * @param mixer to obtain source data line
      * @param mixerChannel either mono or left/right stereo
      * @param audioFormat to use during playback
@@ -107,10 +112,10 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
     {
         mMixer = mixer;
         mMixerChannel = mixerChannel;
-        mScheduledExecutorService = Executors.newSingleThreadScheduledExecutor(new NamingThreadFactory(
-                "sdrtrunk audio output " + mixerChannel.name()));
         mUserPreferences = userPreferences;
         mDropDuplicates = mUserPreferences.getCallManagementPreference().isDuplicatePlaybackSuppressionEnabled();
+        mMaximumMixedSegments = mUserPreferences.getPlaybackPreference().getMaximumMixedSegments();
+        mOutputLatency = mUserPreferences.getPlaybackPreference().getOutputLatency();
         mAudioFormat = audioFormat;
         mLineInfo = lineInfo;
         mRequestedBufferSize = requestedBufferSize;
@@ -121,45 +126,42 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
 
             if(mOutput != null)
             {
-                mOutput.open(audioFormat, requestedBufferSize);
+                int frameSize = audioFormat.getFrameSize();
+                int latencyBytes = (int)(audioFormat.getFrameRate() * mOutputLatency / 1000) * frameSize;
 
-                //Start threshold: buffer is full with 10% or less of capacity remaining
-                mBufferStartThreshold = (int) (mOutput.getBufferSize() * 0.10);
+                //The line buffer must hold the target latency plus headroom for the mixing cycle jitter
+                mOutput.open(audioFormat, Math.max(requestedBufferSize, latencyBytes * 2));
 
-                //Stop threshold: buffer is empty with 90% or more capacity available
-                mBufferStopThreshold = (int) (mOutput.getBufferSize() * 0.90);
+                //Target fill level: the output latency, limited to the buffer actually allocated by the line
+                mTargetBufferedBytes = Math.min(latencyBytes, mOutput.getBufferSize() - frameSize);
+                mTargetBufferedBytes -= mTargetBufferedBytes % frameSize;
+                mAccumulator = new float[mTargetBufferedBytes / frameSize];
+                mOutputBuffer = new byte[mTargetBufferedBytes];
 
                 mOutput.addLineListener(this);
 
-                if(mOutput != null)
+                try
                 {
-                    try
-                    {
-                        Control gain = mOutput.getControl(FloatControl.Type.MASTER_GAIN);
-                        mGainControl = (FloatControl) gain;
-                    }
-                    catch(IllegalArgumentException iae)
-                    {
-                        LOGGING_SUPPRESSOR.error("no gain control", 2, "Couldn't obtain " +
-                            "MASTER GAIN control for stereo line [" + mixer.getMixerInfo().getName() + " | " +
-                                getChannelName() + "]");
-                    }
-
-                    try
-                    {
-                        Control mute = mOutput.getControl(BooleanControl.Type.MUTE);
-                        mMuteControl = (BooleanControl) mute;
-                    }
-                    catch(IllegalArgumentException iae)
-                    {
-                        LOGGING_SUPPRESSOR.error("no mute control", 2, "Couldn't obtain " +
-                            "MUTE control for stereo line [" + mixer.getMixerInfo().getName() + " | " +
+                    Control gain = mOutput.getControl(FloatControl.Type.MASTER_GAIN);
+                    mGainControl = (FloatControl) gain;
+                }
+                catch(IllegalArgumentException iae)
+                {
+                    LOGGING_SUPPRESSOR.error("no gain control", 2, "Couldn't obtain " +
+                        "MASTER GAIN control for stereo line [" + mixer.getMixerInfo().getName() + " | " +
                             getChannelName() + "]");
-                    }
+                }
 
-					//Run the queue processor task every 100 milliseconds or 10 times a second
-                    mProcessorFuture = mScheduledExecutorService.scheduleAtFixedRate(new AudioSegmentProcessor(),
-                        0, 100, TimeUnit.MILLISECONDS);
+                try
+                {
+                    Control mute = mOutput.getControl(BooleanControl.Type.MUTE);
+                    mMuteControl = (BooleanControl) mute;
+                }
+                catch(IllegalArgumentException iae)
+                {
+                    LOGGING_SUPPRESSOR.error("no mute control", 2, "Couldn't obtain " +
+                        "MUTE control for stereo line [" + mixer.getMixerInfo().getName() + " | " +
+                        getChannelName() + "]");
                 }
 
                 mAudioStartEvent = new AudioEvent(AudioEvent.Type.AUDIO_STARTED, getChannelName());
@@ -180,12 +182,55 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
     }
 
     /**
-     * Indicates if this audio output doesn't currently have any audio segments queued for playback.
+     * Indicates if this audio output doesn't currently have any audio segments queued or playing.
      * @return true if empty
      */
     public boolean isEmpty()
     {
-        return mAudioSegmentQueue.isEmpty();
+        return mAudioSegmentQueue.isEmpty() && mTracks.isEmpty();
+    }
+
+    /**
+     * Indicates if this audio output can accept another audio segment for simultaneous playback without exceeding
+     * the maximum number of mixed audio segments.
+     */
+    public boolean hasCapacity()
+    {
+        return mCanProcessAudio && mAudioSegmentQueue.size() + getActiveTrackCount() < mMaximumMixedSegments;
+    }
+
+    /**
+     * Number of audio segment tracks currently being mixed, excluding tone-only tracks.
+     */
+    public int getActiveTrackCount()
+    {
+        int count = 0;
+
+        for(MixerTrack track: mTracks)
+        {
+            if(track.getAudioSegment() != null)
+            {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Number of times that playback ran out of buffered audio while audio segments were still active.
+     */
+    public long getUnderrunCount()
+    {
+        return mUnderrunCount.get();
+    }
+
+    /**
+     * Target amount of buffered audio in milliseconds
+     */
+    public int getOutputLatency()
+    {
+        return mOutputLatency;
     }
 
     /**
@@ -204,11 +249,22 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
     }
 
     /**
-     * Indicates if the audio segment is linked to the current playback audio segment
+     * Indicates if the audio segment is linked to an audio segment that is currently playing on this output
      */
     public boolean isLinkedTo(AudioSegment audioSegment)
     {
-        return audioSegment.isLinked() && audioSegment.isLinkedTo(mCurrentAudioSegment);
+        if(audioSegment.isLinked())
+        {
+            for(MixerTrack track: mTracks)
+            {
+                if(track.isLinkedTo(audioSegment))
+                {
+                    return true;
+                }
+            }
+        }
+
+        return false;
     }
 
     /**
@@ -217,9 +273,11 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
     @Override
     public void receive(IdentifierUpdateNotification identifierUpdateNotification)
     {
-        if(mCurrentAudioSegment != null)
+        AudioSegment leadAudioSegment = mLeadAudioSegment;
+
+        if(leadAudioSegment != null)
         {
-            IdentifierCollection identifierCollection = mCurrentAudioSegment.getIdentifierCollection();
+            IdentifierCollection identifierCollection = leadAudioSegment.getIdentifierCollection();
 
             if(identifierCollection != null)
             {
@@ -237,6 +295,7 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
         if(preferenceType == PreferenceType.PLAYBACK)
         {
             updateToneInsertionAudioClips();
+            mMaximumMixedSegments = mUserPreferences.getPlaybackPreference().getMaximumMixedSegments();
         }
         else if(preferenceType == PreferenceType.DUPLICATE_CALL_DETECTION)
         {
@@ -249,242 +308,278 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
      */
     private void updateToneInsertionAudioClips()
     {
-        mAudioSegmentStartTone = null;
-        mAudioSegmentDropTone = null;
+        mAudioSegmentStartTone = mUserPreferences.getPlaybackPreference().getStartTone();
+        mAudioSegmentDropTone = mUserPreferences.getPlaybackPreference().getDropTone();
+    }
 
-        float[] start = mUserPreferences.getPlaybackPreference().getStartTone();
+    /**
+     * Indicates if the audio segment should be thrown away because it is marked as duplicate or do-not-monitor.
+     * @param audioSegment to evaluate
+     * @return true if the audio should be thrown away.
+     */
+    private boolean isThrowaway(AudioSegment audioSegment)
+    {
+        return audioSegment != null && (audioSegment.isDoNotMonitor() || mDropDuplicates && (audioSegment.isDuplicate()));
+    }
 
-        if(start != null)
+    /**
+     * Releases an audio segment that is no longer being played.
+     */
+    private void disposeAudioSegment(AudioSegment audioSegment)
+    {
+        if(audioSegment != null)
         {
-            mAudioSegmentStartTone = convert(start);
-        }
-
-        float[] drop = mUserPreferences.getPlaybackPreference().getDropTone();
+            if(audioSegment == mLeadAudioSegment)
+            {
+                audioSegment.removeIdentifierUpdateNotificationListener(this);
+                mLeadAudioSegment = null;
+            }
 
-        if(drop != null)
-        {
-            mAudioSegmentDropTone = convert(drop);
+            audioSegment.decrementConsumerCount();
         }
     }
 
     /**
-     * Writes the audio buffer data to the source data line.  If the data line is not currently playing, write as
-     * much of the buffer to the data line as will fit, start the dataline, and then finish writing the residual
-     * buffer content to the data line as a blocking call.
-     *
-     * @param buffer of audio to playback
+     * Transfers newly queued audio segments into mixer tracks.  A segment that is linked to a segment that is already
+     * playing is chained to that segment's track so that it plays after it.
      */
-    private void playAudio(ByteBuffer buffer)
+    private void admitQueuedAudioSegments()
     {
-        if(mOutput == null)
-        {
-            LOGGING_SUPPRESSOR.error("null output", 2, "Audio Output is null - ignoring audio playback request");
-            return;
-        }
+        AudioSegment audioSegment = mAudioSegmentQueue.poll();
 
-        if(buffer != null && buffer.array().length > 0)
+        while(audioSegment != null)
         {
-            int wrote = 0;
-
-            //If the output data line is not running, we can only write up to the available capacity.  So, only write
-            //what will fit initially, start playback, and then use a blocking write for the remainder.
-            if(!mOutput.isRunning())
+            if(isThrowaway(audioSegment))
             {
-                int toWrite = mOutput.available();
+                audioSegment.decrementConsumerCount();
+            }
+            else
+            {
+                MixerTrack linkedTrack = null;
 
-                if(toWrite > buffer.array().length)
+                for(MixerTrack track: mTracks)
                 {
-                    toWrite = buffer.array().length;
+                    if(track.getNextAudioSegment() == null && track.getAudioSegment() != null &&
+                        audioSegment.isLinkedTo(track.getAudioSegment()))
+                    {
+                        linkedTrack = track;
+                        break;
+                    }
                 }
 
-                //Top off the buffer and check if we can start it
-                wrote += mOutput.write(buffer.array(), 0, toWrite);
-                mOutputLastTimestamp = System.currentTimeMillis();
-
-                checkStart();
-
-                //Something is causing the source data line to fail to accept audio byte data via the write() method
-                //and this seems to have started around JDK22, maybe.  When this happens, close and then re-open the
-                //data line to clear the error state.  Note: in testing this error condition, the line is showing
-                //the buffer is empty and the capacity is fully available, so it should have accepted attempts to write
-                //data, but it failed, as indicated by wrote=0.
-                if(!mOutput.isRunning() && wrote <= 0)
+                if(linkedTrack != null)
                 {
-                    mOutput.close();
-
-                    try
-                    {
-                        mOutput.open();
-                    }
-                    catch(Exception e)
-                    {
-                        mLog.error("Error after closing and attempting to reopen audio output", e);
-                    }
+                    linkedTrack.setNextAudioSegment(audioSegment);
+                }
+                else
+                {
+                    mTracks.add(new MixerTrack(audioSegment, mAudioSegmentStartTone));
                 }
             }
 
-            if(mOutput.isRunning() && wrote < buffer.array().length)
-            {
-                //This will block until the buffer is fully written to the data line
-                mOutput.write(buffer.array(), wrote, buffer.array().length - wrote);
-                mOutputLastTimestamp = System.currentTimeMillis();
-            }
+            audioSegment = mAudioSegmentQueue.poll();
         }
     }
 
     /**
-     * Dispose of the currently assigned audio segment.
+     * Removes finished tracks and tracks whose audio segment was flagged as duplicate or do-not-monitor during
+     * playback, inserting a drop tone for interrupted tracks.  Tracks with a chained next audio segment advance to
+     * the next segment.
      */
-    private void disposeCurrentAudioSegment()
+    private void updateTracks()
     {
-        if(mCurrentAudioSegment != null)
+        for(MixerTrack track: mTracks)
         {
-            mCurrentAudioSegment.decrementConsumerCount();
-            mCurrentAudioSegment.removeIdentifierUpdateNotificationListener(this);
-            mCurrentAudioSegment = null;
-            broadcast(null);
-        }
-    }
+            AudioSegment audioSegment = track.getAudioSegment();
 
-    /**
-     * Loads the next audio segment from the queue.
-     */
-    private void loadNextAudioSegment()
-    {
-        AudioSegment audioSegment = mAudioSegmentQueue.poll();
-
-        boolean verificationInProgress = (audioSegment != null);
-
-        while(verificationInProgress)
-        {
-            if(audioSegment != null)
+            if(audioSegment != null && isThrowaway(audioSegment))
             {
-                //Throw away the audio segment if it has been flagged as do not monitor or is duplicate
-                if(isThrowaway(audioSegment))
+                if(track.hasStarted() && mAudioSegmentDropTone != null)
                 {
-                    audioSegment.decrementConsumerCount();
-                    audioSegment = mAudioSegmentQueue.poll();
+                    mTracks.add(new MixerTrack(mAudioSegmentDropTone, track.getPriority()));
                 }
-                else
+
+                disposeAudioSegment(audioSegment);
+
+                if(track.advance(mAudioSegmentStartTone) == null)
                 {
-                    verificationInProgress = false;
+                    mTracks.remove(track);
                 }
             }
-            else
+            else if(track.isFinished())
             {
-                verificationInProgress = false;
+                disposeAudioSegment(audioSegment);
+
+                if(track.advance(mAudioSegmentStartTone) == null)
+                {
+                    mTracks.remove(track);
+                }
             }
         }
+    }
 
-        mCurrentAudioSegment = audioSegment;
+    /**
+     * Updates the lead audio segment, the oldest of the highest priority audio segments, whose identifiers are
+     * broadcast to the registered identifier collection listener.
+     */
+    private void updateLeadAudioSegment()
+    {
+        AudioSegment lead = null;
+        int leadPriority = Integer.MAX_VALUE;
 
-        if(audioSegment != null)
+        for(MixerTrack track: mTracks)
         {
-            mCurrentAudioSegment.addIdentifierUpdateNotificationListener(this);
-            broadcast(mCurrentAudioSegment.getIdentifierCollection());
+            AudioSegment audioSegment = track.getAudioSegment();
+
+            if(audioSegment != null && track.getPriority() < leadPriority)
+            {
+                lead = audioSegment;
+                leadPriority = track.getPriority();
+            }
         }
 
-        mCurrentBufferIndex = 0;
+        if(lead != mLeadAudioSegment)
+        {
+            if(mLeadAudioSegment != null)
+            {
+                mLeadAudioSegment.removeIdentifierUpdateNotificationListener(this);
+            }
+
+            mLeadAudioSegment = lead;
+
+            if(lead != null)
+            {
+                lead.addIdentifierUpdateNotificationListener(this);
+                broadcast(lead.getIdentifierCollection());
+            }
+            else
+            {
+                broadcast(null);
+            }
+        }
     }
 
     /**
-     * Indicates if the audio segment should be thrown away because it is marked as duplicate or do-not-monitor.
-     * @param audioSegment to evaluate
-     * @return true if the audio should be thrown away.
+     * Mixes the active tracks into the accumulator.  Tracks below the highest active priority are ducked.
+     * @param length maximum number of samples to mix
+     * @return number of samples mixed, which is the largest number of samples available from any single track.
      */
-    private boolean isThrowaway(AudioSegment audioSegment)
+    private int mix(int length)
     {
-        return audioSegment != null && (audioSegment.isDoNotMonitor() || mDropDuplicates && (audioSegment.isDuplicate()));
+        return MixerTrack.mix(mTracks, mAccumulator, length, DUCKING_GAIN);
     }
 
     /**
-     * Manage audio segment playback and process audio segment buffers.  This method is designed to be called
-     * by a threaded processor repeatedly to playback the current audio segment and check for and start newly
-     * added audio segments.  It also handles starting and stopping the playback source data line to avoid audio
-     * discontinuities due to buffer underruns.
+     * Writes the mixed samples to the source data line.  The caller ensures that the line has sufficient capacity,
+     * so this call doesn't block.
+     *
+     * @param length of mixed samples to write
      */
-    private void processAudio()
+    private void write(int length)
     {
-        if(mCurrentAudioSegment == null)
+        int bytes = convert(mAccumulator, length, mOutputBuffer);
+
+        if(!mRunning && mPrerollStartTimestamp == 0)
         {
-            loadNextAudioSegment();
+            mPrerollStartTimestamp = System.currentTimeMillis();
         }
 
-        //Evaluate current audio segment to see if the status has changed for duplicate or do-not-monitor.
-        while(isThrowaway(mCurrentAudioSegment))
+        int wrote = mOutput.write(mOutputBuffer, 0, bytes);
+
+        //Something is causing the source data line to fail to accept audio byte data via the write() method
+        //and this seems to have started around JDK22, maybe.  When this happens, close and then re-open the
+        //data line to clear the error state.  Note: in testing this error condition, the line is showing
+        //the buffer is empty and the capacity is fully available, so it should have accepted attempts to write
+        //data, but it failed, as indicated by wrote=0.
+        if(!mOutput.isRunning() && wrote <= 0 && bytes > 0)
         {
-            if(mCurrentBufferIndex > 0)
+            mOutput.close();
+
+            try
+            {
+                mOutput.open();
+            }
+            catch(Exception e)
             {
-                playAudio(mAudioSegmentDropTone);
+                mLog.error("Error after closing and attempting to reopen audio output", e);
             }
+        }
+    }
 
-            disposeCurrentAudioSegment();
-            loadNextAudioSegment();
+    /**
+     * Mixes the active audio segments and tops up the source data line to the target output latency.  This method is
+     * invoked repeatedly by the audio mixing engine thread.  It also handles starting and stopping the source data
+     * line, so that playback starts with a full pre-roll and stops when all audio has played.
+     */
+    public void process()
+    {
+        if(!mCanProcessAudio || mOutput == null)
+        {
+            return;
         }
 
-        while(mCurrentAudioSegment != null && mCurrentBufferIndex < mCurrentAudioSegment.getAudioBufferCount())
+        admitQueuedAudioSegments();
+        updateTracks();
+        updateLeadAudioSegment();
+
+        int frameSize = mAudioFormat.getFrameSize();
+        int buffered = mOutput.getBufferSize() - mOutput.available();
+
+        if(!mTracks.isEmpty())
         {
-            //Continuously evaluate current audio segment to see if the status has changed for duplicate or do-not-monitor.
-            if(isThrowaway(mCurrentAudioSegment))
-            {
-                if(mCurrentBufferIndex > 0)
-                {
-                    playAudio(mAudioSegmentDropTone);
-                }
+            int needed = Math.min((mTargetBufferedBytes - buffered) / frameSize, mAccumulator.length);
 
-                disposeCurrentAudioSegment();
-            }
-            else
+            if(needed > 0)
             {
-                if(mCurrentBufferIndex == 0)
-                {
-                    playAudio(mAudioSegmentStartTone);
-                }
+                int mixed = mix(needed);
 
-                try
+                if(mixed > 0)
                 {
-                    float[] audioBuffer = mCurrentAudioSegment.getAudioBuffers().get(mCurrentBufferIndex++);
-
-                    if(audioBuffer != null)
-                    {
-                        ByteBuffer audio = convert(audioBuffer);
-                        //This call blocks until all audio bytes are dumped into the data line.
-                        playAudio(audio);
-                    }
+                    write(mixed);
+                    buffered += mixed * frameSize;
+                    mUnderrun = false;
                 }
-                catch(Exception e)
+                else if(mRunning && buffered < frameSize && !mUnderrun)
                 {
-                    mLog.error("Error while processing audio for [" + mMixerChannel.name() + "]", e);
+                    //Playback drained while audio segments are still active - count it and re-buffer
+                    mUnderrun = true;
+                    mUnderrunCount.incrementAndGet();
+                    mOutput.stop();
+                    mRunning = false;
                 }
             }
         }
 
-        //Check for completed and fully-played audio segment to closeout
-        if(mCurrentAudioSegment != null &&
-           mCurrentAudioSegment.isComplete() &&
-           (mCurrentBufferIndex >= mCurrentAudioSegment.getAudioBufferCount()))
-        {
-            disposeCurrentAudioSegment();
-        }
-
-        checkStop();
+        checkStart(buffered);
+        checkStop(buffered);
     }
 
     /**
-     * Prepares this audio output for disposal.
+     * Prepares this audio output for disposal.  This should be invoked from the mixing thread, via the audio mixing
+     * engine, so that it doesn't overlap with a mixing cycle.
      */
     public void dispose()
     {
         MyEventBus.getGlobalEventBus().unregister(this);
         mCanProcessAudio = false;
 
-        if(mProcessorFuture != null)
+        for(MixerTrack track: mTracks)
+        {
+            disposeAudioSegment(track.getAudioSegment());
+            disposeAudioSegment(track.getNextAudioSegment());
+        }
+
+        mTracks.clear();
+
+        AudioSegment queued = mAudioSegmentQueue.poll();
+
+        while(queued != null)
         {
-            mProcessorFuture.cancel(true);
+            queued.decrementConsumerCount();
+            queued = mAudioSegmentQueue.poll();
         }
 
-        mProcessorFuture = null;
-        disposeCurrentAudioSegment();
+        broadcast(null);
         mAudioEventBroadcaster.clear();
         mIdentifierCollectionListener = null;
 
@@ -499,9 +594,32 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
     }
 
     /**
-     * Converts the audio buffer data into a byte buffer format appropriate for the underlying source data line.
+     * Converts the mixed audio samples into the byte format for the underlying source data line.  Samples that
+     * exceed the -1.0 to 1.0 range after mixing are clipped.
+     *
+     * @param samples buffer of mixed samples
+     * @param length number of samples to convert
+     * @param output byte array with capacity for the converted samples
+     * @return number of bytes written to the output array
+     */
+    protected abstract int convert(float[] samples, int length, byte[] output);
+
+    /**
+     * Converts a sample to a clipped 16-bit value
      */
-    protected abstract ByteBuffer convert(float[] buffer);
+    protected static short toShort(float sample)
+    {
+        if(sample > 1.0f)
+        {
+            return Short.MAX_VALUE;
+        }
+        else if(sample < -1.0f)
+        {
+            return -Short.MAX_VALUE;
+        }
+
+        return (short)(sample * Short.MAX_VALUE);
+    }
 
     /**
      * Audio output channel name
@@ -562,68 +680,42 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
      */
     private void broadcast(IdentifierCollection identifierCollection)
     {
-        if(mIdentifierCollectionListener != null)
+        Listener<IdentifierCollection> listener = mIdentifierCollectionListener;
+
+        if(listener != null)
         {
-            mIdentifierCollectionListener.receive(identifierCollection);
+            listener.receive(identifierCollection);
         }
     }
 
     /**
-     * Starts audio playback once audio buffer is almost full and remaining capacity falls below the start threshold.
+     * Starts audio playback once the line is filled to the target latency, or once the pre-roll period has elapsed
+     * for audio that is arriving slower than real time or that is shorter than the target latency.
      *
-     * Note: this method should only be invoked from the processAudio() method
+     * Note: this method should only be invoked from the process() method
      */
-    private void checkStart()
+    private void checkStart(int buffered)
     {
-        if(mCanProcessAudio && !mOutput.isRunning() && mOutput.available() <= mBufferStartThreshold)
+        if(!mRunning && buffered > 0 && (buffered >= mTargetBufferedBytes ||
+            System.currentTimeMillis() - mPrerollStartTimestamp >= mOutputLatency))
         {
             mOutput.start();
             mRunning = true;
+            mPrerollStartTimestamp = 0;
         }
     }
 
     /**
-     * Stops audio playback and drains the audio buffer to empty when the audio buffer is mostly empty and the
-     * available buffer capacity exceeds the stop threshold
+     * Stops audio playback once all tracks have finished and the line has played all buffered audio.
      *
-     * Note: this method should only be invoked from the processAudio() method
+     * Note: this method should only be invoked from the process() method
      */
-    private void checkStop()
+    private void checkStop(int buffered)
     {
-        if(mRunning)
+        if(mRunning && mTracks.isEmpty() && buffered < mAudioFormat.getFrameSize())
         {
-            //If the output buffer falls below the threshold then drain the output and stop playback
-            if(mOutput.isRunning())
-            {
-                if(mOutput.available() >= mBufferStopThreshold)
-                {
-                    mOutput.drain();
-                    mOutput.stop();
-                    mRunning = false;
-                }
-                //Detect when we have a partially filled output that will neither start nor stop and the last write
-                //timestamp was more than the staleness threshold (500 ms) -- stop the output and discard stale contents
-                else if(mOutput.available() < mBufferStopThreshold &&
-                        mOutput.available() > mBufferStartThreshold &&
-                        (System.currentTimeMillis() - mOutputLastTimestamp >= STALE_PLAYBACK_THRESHOLD_MS))
-                {
-                    mOutput.stop();
-                    //Discard the stale buffer contents.
-                    mOutput.flush();
-                    mRunning = false;
-                }
-            }
-            //If output playback stopped on its own because the buffer emptied, then cleanup
-            else
-            {
-                mRunning = false;
-            }
-
-            //If we stopped audio playback, broadcast a null identifier to clear the gui panel
-            if(!mRunning)
-            {
-                broadcast(null);
-            }
+            mOutput.stop();
+            mRunning = false;
         }
     }
 
@@ -686,30 +778,4 @@ public abstract class AudioOutput implements LineListener, Listener<IdentifierUp
             mAudioEventBroadcaster.broadcast(mAudioStopEvent);
         }
     }
-
-    /**
-     * Runnable audio segment processor
-     */
-    public class AudioSegmentProcessor implements Runnable
-    {
-        private AtomicBoolean mProcessing = new AtomicBoolean();
-
-        @Override
-        public void run()
-        {
-            if(mProcessing.compareAndSet(false, true))
-            {
-                try
-                {
-                    processAudio();
-                }
-                catch(Throwable t)
-                {
-                    mLog.error("Error while processing audio buffers", t);
-                }
-
-                mProcessing.set(false);
-            }
-        }
-    }
 }
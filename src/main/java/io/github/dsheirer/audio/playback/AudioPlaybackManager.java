@@ -68,6 +68,7 @@ public class AudioPlaybackManager implements Listener<AudioSegment>, IAudioContr
             Executors.newSingleThreadScheduledExecutor(new NamingThreadFactory("sdrtrunk audio manager"));
     private AudioSegmentPrioritySorter mAudioSegmentPrioritySorter = new AudioSegmentPrioritySorter();
     private ReentrantLock mAudioOutputLock = new ReentrantLock();
+    private AudioMixingEngine mAudioMixingEngine;
 
     /**
      * Constructs an instance.
@@ -77,6 +78,7 @@ public class AudioPlaybackManager implements Listener<AudioSegment>, IAudioContr
     public AudioPlaybackManager(UserPreferences userPreferences)
     {
         mUserPreferences = userPreferences;
+        mAudioMixingEngine = new AudioMixingEngine(mUserPreferences.getPlaybackPreference().getOutputLatency());
         MyEventBus.getGlobalEventBus().register(this);
 
         MixerChannelConfiguration configuration = mUserPreferences.getPlaybackPreference().getMixerChannelConfiguration();
@@ -224,7 +226,7 @@ public class AudioPlaybackManager implements Listener<AudioSegment>, IAudioContr
 
                 try
                 {
-                    //Assign empty audio outputs first
+                    //Assign empty audio outputs first, then mix into outputs that have spare mixing capacity
                     for(AudioOutput audioOutput: mAudioOutputs)
                     {
                         if(audioOutput.isEmpty())
@@ -237,6 +239,19 @@ public class AudioPlaybackManager implements Listener<AudioSegment>, IAudioContr
                             }
                         }
                     }
+
+                    for(AudioOutput audioOutput: mAudioOutputs)
+                    {
+                        while(audioOutput.hasCapacity())
+                        {
+                            audioOutput.play(mAudioSegments.remove(0));
+
+                            if(mAudioSegments.isEmpty())
+                            {
+                                return;
+                            }
+                        }
+                    }
                 }
                 finally
                 {
@@ -269,6 +284,8 @@ public class AudioPlaybackManager implements Listener<AudioSegment>, IAudioContr
             mProcessingTask = null;
         }
 
+        mAudioMixingEngine.dispose();
+
         mNewAudioSegmentQueue.clear();
         mAudioSegments.clear();
     }
@@ -283,8 +300,16 @@ public class AudioPlaybackManager implements Listener<AudioSegment>, IAudioContr
         if(preferenceType == PreferenceType.PLAYBACK)
         {
             MixerChannelConfiguration configuration = mUserPreferences.getPlaybackPreference().getMixerChannelConfiguration();
+            int outputLatency = mUserPreferences.getPlaybackPreference().getOutputLatency();
+            boolean latencyChanged = outputLatency != mAudioMixingEngine.getOutputLatency();
+
+            if(latencyChanged)
+            {
+                mAudioMixingEngine.setOutputLatency(outputLatency);
+            }
 
-            if(configuration != null && !configuration.equals(mMixerChannelConfiguration))
+            //Audio outputs size their buffers from the output latency, so recreate them when the latency changes
+            if(configuration != null && (latencyChanged || !configuration.equals(mMixerChannelConfiguration)))
             {
                 try
                 {
@@ -317,7 +342,7 @@ public class AudioPlaybackManager implements Listener<AudioSegment>, IAudioContr
             {
                 for(AudioOutput audioOutput: mAudioOutputs)
                 {
-                    audioOutput.dispose();
+                    mAudioMixingEngine.remove(audioOutput);
                 }
 
                 mAudioOutputs.clear();
@@ -327,13 +352,16 @@ public class AudioPlaybackManager implements Listener<AudioSegment>, IAudioContr
                     case MONO:
                         AudioOutput mono = new MonoAudioOutput(entry.getMixer(), mUserPreferences);
                         mAudioOutputs.add(mono);
+                        mAudioMixingEngine.add(mono);
                         break;
                     case STEREO:
                         AudioOutput left = new StereoAudioOutput(entry.getMixer(), MixerChannel.LEFT, mUserPreferences);
                         mAudioOutputs.add(left);
+                        mAudioMixingEngine.add(left);
 
                         AudioOutput right = new StereoAudioOutput(entry.getMixer(), MixerChannel.RIGHT, mUserPreferences);
                         mAudioOutputs.add(right);
+                        mAudioMixingEngine.add(right);
                         break;
                     default:
                         throw new AudioException("Unsupported mixer channel configuration: " + entry.getMixerChannel());
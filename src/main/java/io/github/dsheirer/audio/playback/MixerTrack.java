@@ -0,0 +1,245 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.audio.playback;
+
+import io.github.dsheirer.audio.AudioSegment;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Playback cursor for a single audio segment that is being mixed into an audio output.  A track can optionally play
+ * a tone (e.g. start or drop tone) ahead of the segment audio, or it can be a tone-only track.
+ *
+ * The track reads incrementally from the audio segment as audio buffers are added, so a segment can be mixed while
+ * the call is still in progress.  A linked (continuation) audio segment can be chained to the track so that it plays
+ * immediately after the current segment, instead of being mixed over it.
+ *
+ * Note: cursor methods are only accessed by the mixing thread.  The segment accessors are safe to call from any
+ * thread.
+ */
+public class MixerTrack
+{
+    private volatile AudioSegment mAudioSegment;
+    private volatile AudioSegment mNextAudioSegment;
+    private final int mTonePriority;
+    private float[] mTone;
+    private int mToneOffset;
+    private int mBufferIndex;
+    private int mBufferOffset;
+
+    /**
+     * Constructs a track for the audio segment
+     * @param audioSegment to play
+     * @param tone to play before the audio segment, or null
+     */
+    public MixerTrack(AudioSegment audioSegment, float[] tone)
+    {
+        mAudioSegment = audioSegment;
+        mTone = tone;
+        mTonePriority = audioSegment.monitorPriorityProperty().get();
+    }
+
+    /**
+     * Constructs a tone-only track
+     * @param tone to play
+     * @param priority for ducking
+     */
+    public MixerTrack(float[] tone, int priority)
+    {
+        mTone = tone;
+        mTonePriority = priority;
+    }
+
+    /**
+     * Current audio segment or null for a tone-only track
+     */
+    public AudioSegment getAudioSegment()
+    {
+        return mAudioSegment;
+    }
+
+    /**
+     * Linked audio segment that is queued to play after the current audio segment, or null.
+     */
+    public AudioSegment getNextAudioSegment()
+    {
+        return mNextAudioSegment;
+    }
+
+    /**
+     * Chains a linked audio segment to play after the current audio segment.
+     */
+    public void setNextAudioSegment(AudioSegment audioSegment)
+    {
+        mNextAudioSegment = audioSegment;
+    }
+
+    /**
+     * Indicates if the audio segment is linked to this track's current or next audio segment
+     */
+    public boolean isLinkedTo(AudioSegment audioSegment)
+    {
+        AudioSegment current = mAudioSegment;
+        AudioSegment next = mNextAudioSegment;
+        return audioSegment.isLinked() && ((current != null && audioSegment.isLinkedTo(current)) ||
+            (next != null && audioSegment.isLinkedTo(next)));
+    }
+
+    /**
+     * Playback priority of this track, where a lower value is a higher priority.
+     */
+    public int getPriority()
+    {
+        AudioSegment audioSegment = mAudioSegment;
+        return audioSegment != null ? audioSegment.monitorPriorityProperty().get() : mTonePriority;
+    }
+
+    /**
+     * Indicates if any of the current audio segment's audio has been played
+     */
+    public boolean hasStarted()
+    {
+        return mBufferIndex > 0 || mBufferOffset > 0;
+    }
+
+    /**
+     * Indicates if the track has played all of its tone and audio and the audio segment is complete.
+     */
+    public boolean isFinished()
+    {
+        if(mTone != null)
+        {
+            return false;
+        }
+
+        AudioSegment audioSegment = mAudioSegment;
+
+        return audioSegment == null || (audioSegment.isComplete() && mBufferIndex >= audioSegment.getAudioBufferCount());
+    }
+
+    /**
+     * Advances the track to the chained next audio segment.
+     * @param tone to play before the next segment, or null
+     * @return the next audio segment, or null if there isn't a chained next audio segment
+     */
+    public AudioSegment advance(float[] tone)
+    {
+        AudioSegment next = mNextAudioSegment;
+        mNextAudioSegment = null;
+        mAudioSegment = next;
+        mTone = next != null ? tone : null;
+        mToneOffset = 0;
+        mBufferIndex = 0;
+        mBufferOffset = 0;
+        return next;
+    }
+
+    /**
+     * Mixes the tracks into the accumulator.  Tracks below the highest priority of the tracks are ducked.
+     * @param tracks to mix
+     * @param accumulator to receive the mixed samples, starting at index zero
+     * @param length maximum number of samples to mix
+     * @param duckingGain to apply to the lower priority tracks
+     * @return number of samples mixed, which is the largest number of samples available from any single track.
+     */
+    public static int mix(List<MixerTrack> tracks, float[] accumulator, int length, float duckingGain)
+    {
+        Arrays.fill(accumulator, 0, length, 0.0f);
+
+        int highestPriority = Integer.MAX_VALUE;
+
+        for(MixerTrack track: tracks)
+        {
+            highestPriority = Math.min(highestPriority, track.getPriority());
+        }
+
+        int mixed = 0;
+
+        for(MixerTrack track: tracks)
+        {
+            float gain = track.getPriority() > highestPriority ? duckingGain : 1.0f;
+            mixed = Math.max(mixed, track.read(accumulator, length, gain));
+        }
+
+        return mixed;
+    }
+
+    /**
+     * Mixes up to length samples from this track into the accumulator.
+     * @param accumulator to add samples into, starting at index zero
+     * @param length maximum number of samples to mix
+     * @param gain to apply to this track's samples
+     * @return number of samples mixed, which is less than length when the track doesn't have enough audio available.
+     */
+    public int read(float[] accumulator, int length, float gain)
+    {
+        int count = 0;
+
+        while(count < length)
+        {
+            if(mTone != null)
+            {
+                int toCopy = Math.min(length - count, mTone.length - mToneOffset);
+
+                for(int x = 0; x < toCopy; x++)
+                {
+                    accumulator[count++] += mTone[mToneOffset++] * gain;
+                }
+
+                if(mToneOffset >= mTone.length)
+                {
+                    mTone = null;
+                    mToneOffset = 0;
+                }
+
+                continue;
+            }
+
+            AudioSegment audioSegment = mAudioSegment;
+
+            if(audioSegment == null || mBufferIndex >= audioSegment.getAudioBufferCount())
+            {
+                break;
+            }
+
+            float[] buffer = audioSegment.getAudioBuffer(mBufferIndex);
+
+            if(buffer == null)
+            {
+                break;
+            }
+
+            int toCopy = Math.min(length - count, buffer.length - mBufferOffset);
+
+            for(int x = 0; x < toCopy; x++)
+            {
+                accumulator[count++] += buffer[mBufferOffset++] * gain;
+            }
+
+            if(mBufferOffset >= buffer.length)
+            {
+                mBufferIndex++;
+                mBufferOffset = 0;
+            }
+        }
+
+        return count;
+    }
+}
@@ -23,9 +23,6 @@ import io.github.dsheirer.preference.UserPreferences;
 import io.github.dsheirer.source.mixer.MixerChannel;
 
 import javax.sound.sampled.Mixer;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.ShortBuffer;
 
 /**
  * Mono Audio output implementation
@@ -41,25 +38,20 @@ public class MonoAudioOutput extends AudioOutput
     }
 
     /**
-     * Converts the audio packet data into mono audio frames.
+     * Converts the mixed samples into little-endian 16-bit mono audio frames.
      */
-    protected ByteBuffer convert(float[] samples)
+    @Override
+    protected int convert(float[] samples, int length, byte[] output)
     {
-        ByteBuffer buffer = null;
+        int offset = 0;
 
-        if(samples.length > 0)
+        for(int x = 0; x < length; x++)
         {
-			/* Little-endian byte buffer */
-            buffer = ByteBuffer.allocate(samples.length * 2).order(ByteOrder.LITTLE_ENDIAN);
-
-            ShortBuffer shortBuffer = buffer.asShortBuffer();
-
-            for(float sample : samples)
-            {
-                shortBuffer.put((short) (sample * Short.MAX_VALUE));
-            }
+            short sample = toShort(samples[x]);
+            output[offset++] = (byte)(sample & 0xFF);
+            output[offset++] = (byte)((sample >> 8) & 0xFF);
         }
 
-        return buffer;
+        return offset;
     }
 }
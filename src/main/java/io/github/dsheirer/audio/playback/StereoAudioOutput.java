@@ -23,9 +23,6 @@ import io.github.dsheirer.preference.UserPreferences;
 import io.github.dsheirer.source.mixer.MixerChannel;
 
 import javax.sound.sampled.Mixer;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.ShortBuffer;
 
 /**
  * Stereo audio output implementation.
@@ -41,39 +38,37 @@ public class StereoAudioOutput extends AudioOutput
     }
 
     /**
-     * Converts the audio packet data into stereo audio frames with the mixer
-     * channel containing the audio and the other channel containing zero
-     * valued (silent) samples.
+     * Converts the mixed samples into little-endian 16-bit stereo audio frames with the mixer channel containing the
+     * audio and the other channel containing zero valued (silent) samples.
      */
-    protected ByteBuffer convert(float[] samples)
+    @Override
+    protected int convert(float[] samples, int length, byte[] output)
     {
-        ByteBuffer buffer = null;
+        int offset = 0;
+        boolean left = getMixerChannel() == MixerChannel.LEFT;
 
-        if(samples.length > 0)
+        for(int x = 0; x < length; x++)
         {
-			/* Little-endian byte buffer */
-            buffer = ByteBuffer.allocate(samples.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+            short sample = toShort(samples[x]);
+            byte low = (byte)(sample & 0xFF);
+            byte high = (byte)((sample >> 8) & 0xFF);
 
-            ShortBuffer shortBuffer = buffer.asShortBuffer();
-
-            if(getMixerChannel() == MixerChannel.LEFT)
+            if(left)
             {
-                for(float sample : samples)
-                {
-                    shortBuffer.put((short) (sample * Short.MAX_VALUE));
-                    shortBuffer.put((short) 0);
-                }
+                output[offset++] = low;
+                output[offset++] = high;
+                output[offset++] = 0;
+                output[offset++] = 0;
             }
             else
             {
-                for(float sample : samples)
-                {
-                    shortBuffer.put((short) 0);
-                    shortBuffer.put((short) (sample * Short.MAX_VALUE));
-                }
+                output[offset++] = 0;
+                output[offset++] = 0;
+                output[offset++] = low;
+                output[offset++] = high;
             }
         }
 
-        return buffer;
+        return offset;
     }
 }
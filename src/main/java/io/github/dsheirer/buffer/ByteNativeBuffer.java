@@ -21,6 +21,7 @@ package io.github.dsheirer.buffer;
 
 import io.github.dsheirer.sample.complex.ComplexSamples;
 import io.github.dsheirer.sample.complex.InterleavedComplexSamples;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 
 /**
@@ -73,6 +74,30 @@ public class ByteNativeBuffer extends AbstractNativeBuffer
         return mSamples.length / 2;
     }
 
+    @Override
+    public NativeSampleFormat getNativeSampleFormat()
+    {
+        return NativeSampleFormat.UNSIGNED_8_BIT_IQ;
+    }
+
+    @Override
+    public void writeNative(ByteBuffer buffer)
+    {
+        buffer.put(mSamples);
+    }
+
+    @Override
+    public float getNativeDcOffsetI()
+    {
+        return mAverageDc;
+    }
+
+    @Override
+    public float getNativeDcOffsetQ()
+    {
+        return mAverageDc;
+    }
+
     @Override
     public Iterator<ComplexSamples> iterator()
     {
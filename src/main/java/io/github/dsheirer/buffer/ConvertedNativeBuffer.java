@@ -0,0 +1,222 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.buffer;
+
+import io.github.dsheirer.sample.SampleUtils;
+import io.github.dsheirer.sample.complex.ComplexSamples;
+import io.github.dsheirer.sample.complex.InterleavedComplexSamples;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Native buffer wrapper that converts the raw samples of the wrapped buffer at most once per sample format and shares
+ * the converted samples with every consumer of the buffer.  This allows a tuner to feed several consumers (e.g.
+ * channelizer, spectrum display and heterodyne channels) without repeating the raw sample conversion per consumer.
+ *
+ * Each format (non-interleaved or interleaved) is converted lazily on the first request for that format.  When the
+ * other format is already converted, the requested format is derived from it with a simple copy instead of
+ * converting the raw samples again.
+ *
+ * The converted samples are held while the buffer is being broadcast and the broadcaster calls release() once every
+ * consumer has received the buffer, so that buffers retained for history don't also retain the converted samples.
+ * A request after the release converts the raw samples again without caching them.  Consumers that never request
+ * the samples (e.g. a native recorder) don't affect the cache.
+ *
+ * Note: converted sample arrays are shared across consumers and threads and must be treated as read-only.
+ */
+public class ConvertedNativeBuffer implements INativeBuffer
+{
+    private final INativeBuffer mNativeBuffer;
+    private volatile List<ComplexSamples> mSamples;
+    private volatile List<InterleavedComplexSamples> mInterleavedSamples;
+    private boolean mReleased;
+
+    /**
+     * Constructs an instance
+     * @param nativeBuffer to wrap
+     */
+    public ConvertedNativeBuffer(INativeBuffer nativeBuffer)
+    {
+        mNativeBuffer = nativeBuffer;
+    }
+
+    /**
+     * Wrapped native buffer
+     */
+    public INativeBuffer getNativeBuffer()
+    {
+        return mNativeBuffer;
+    }
+
+    @Override
+    public Iterator<ComplexSamples> iterator()
+    {
+        List<ComplexSamples> samples = mSamples;
+
+        if(samples == null)
+        {
+            synchronized(this)
+            {
+                samples = mSamples;
+
+                if(samples == null)
+                {
+                    samples = convert();
+
+                    if(!mReleased)
+                    {
+                        mSamples = samples;
+                    }
+                }
+            }
+        }
+
+        return samples.iterator();
+    }
+
+    @Override
+    public Iterator<InterleavedComplexSamples> iteratorInterleaved()
+    {
+        List<InterleavedComplexSamples> samples = mInterleavedSamples;
+
+        if(samples == null)
+        {
+            synchronized(this)
+            {
+                samples = mInterleavedSamples;
+
+                if(samples == null)
+                {
+                    samples = convertInterleaved();
+
+                    if(!mReleased)
+                    {
+                        mInterleavedSamples = samples;
+                    }
+                }
+            }
+        }
+
+        return samples.iterator();
+    }
+
+    /**
+     * Releases the converted samples once the buffer has been delivered to all consumers.  Later requests convert the
+     * raw samples again without caching them.
+     */
+    public synchronized void release()
+    {
+        mReleased = true;
+        mSamples = null;
+        mInterleavedSamples = null;
+    }
+
+    /**
+     * Converts to non-interleaved samples, from the interleaved samples when available, otherwise from the raw samples.
+     */
+    private List<ComplexSamples> convert()
+    {
+        List<ComplexSamples> converted = new ArrayList<>(1);
+        List<InterleavedComplexSamples> interleaved = mInterleavedSamples;
+
+        if(interleaved != null)
+        {
+            for(InterleavedComplexSamples samples: interleaved)
+            {
+                converted.add(SampleUtils.deinterleave(samples.samples(), samples.timestamp()));
+            }
+        }
+        else
+        {
+            mNativeBuffer.iterator().forEachRemaining(converted::add);
+        }
+
+        return Collections.unmodifiableList(converted);
+    }
+
+    /**
+     * Converts to interleaved samples, from the non-interleaved samples when available, otherwise from the raw samples.
+     */
+    private List<InterleavedComplexSamples> convertInterleaved()
+    {
+        List<InterleavedComplexSamples> converted = new ArrayList<>(1);
+        List<ComplexSamples> samples = mSamples;
+
+        if(samples != null)
+        {
+            for(ComplexSamples complexSamples: samples)
+            {
+                converted.add(new InterleavedComplexSamples(SampleUtils.interleave(complexSamples),
+                    complexSamples.timestamp()));
+            }
+        }
+        else
+        {
+            mNativeBuffer.iteratorInterleaved().forEachRemaining(converted::add);
+        }
+
+        return Collections.unmodifiableList(converted);
+    }
+
+    @Override
+    public int sampleCount()
+    {
+        return mNativeBuffer.sampleCount();
+    }
+
+    @Override
+    public long getTimestamp()
+    {
+        return mNativeBuffer.getTimestamp();
+    }
+
+    @Override
+    public NativeSampleFormat getNativeSampleFormat()
+    {
+        return mNativeBuffer.getNativeSampleFormat();
+    }
+
+    @Override
+    public int getNativeByteCount()
+    {
+        return mNativeBuffer.getNativeByteCount();
+    }
+
+    @Override
+    public void writeNative(ByteBuffer buffer)
+    {
+        mNativeBuffer.writeNative(buffer);
+    }
+
+    @Override
+    public float getNativeDcOffsetI()
+    {
+        return mNativeBuffer.getNativeDcOffsetI();
+    }
+
+    @Override
+    public float getNativeDcOffsetQ()
+    {
+        return mNativeBuffer.getNativeDcOffsetQ();
+    }
+}
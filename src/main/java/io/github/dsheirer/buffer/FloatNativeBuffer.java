@@ -23,6 +23,7 @@ import io.github.dsheirer.sample.SampleUtils;
 import io.github.dsheirer.sample.complex.ComplexSamples;
 import io.github.dsheirer.sample.complex.InterleavedComplexSamples;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Iterator;
 
@@ -82,6 +83,13 @@ public class FloatNativeBuffer extends AbstractNativeBuffer
         return mInterleavedComplexSamples.length / 2;
     }
 
+    @Override
+    public void writeNative(ByteBuffer buffer)
+    {
+        buffer.asFloatBuffer().put(mInterleavedComplexSamples);
+        buffer.position(buffer.position() + (mInterleavedComplexSamples.length * 4));
+    }
+
     private class ComplexSamplesIterator implements  Iterator<ComplexSamples>
     {
         private int mBufferPointer = 0;
@@ -22,6 +22,7 @@ package io.github.dsheirer.buffer;
 import io.github.dsheirer.sample.complex.ComplexSamples;
 import io.github.dsheirer.sample.complex.InterleavedComplexSamples;
 
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 
 /**
@@ -50,4 +51,55 @@ public interface INativeBuffer
      * @return millis since epoch
      */
     long getTimestamp();
+
+    /**
+     * Raw sample format of this buffer for recording the samples without conversion.  Implementations that don't
+     * override this method are recorded as 32-bit float samples.
+     */
+    default NativeSampleFormat getNativeSampleFormat()
+    {
+        return NativeSampleFormat.FLOAT_32_BIT_IQ;
+    }
+
+    /**
+     * Number of bytes needed to write the raw samples in the native sample format.
+     */
+    default int getNativeByteCount()
+    {
+        return getNativeSampleFormat().getByteCount(sampleCount());
+    }
+
+    /**
+     * Writes the raw samples to the byte buffer in the native sample format, using the byte buffer's byte order for
+     * multi-byte samples.  The byte buffer must have at least getNativeByteCount() bytes remaining.
+     * @param buffer to write to
+     */
+    default void writeNative(ByteBuffer buffer)
+    {
+        Iterator<InterleavedComplexSamples> iterator = iteratorInterleaved();
+
+        while(iterator.hasNext())
+        {
+            for(float sample: iterator.next().samples())
+            {
+                buffer.putFloat(sample);
+            }
+        }
+    }
+
+    /**
+     * Measured DC offset that is removed from the in-phase (or real) samples when the raw samples are converted.
+     */
+    default float getNativeDcOffsetI()
+    {
+        return 0.0f;
+    }
+
+    /**
+     * Measured DC offset that is removed from the quadrature samples when the raw samples are converted.
+     */
+    default float getNativeDcOffsetQ()
+    {
+        return 0.0f;
+    }
 }
@@ -0,0 +1,119 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.buffer;
+
+/**
+ * Raw sample formats produced by the tuners, used to record native buffers without converting them to float or
+ * 16-bit samples.  Each format has a stable identifier for storing in recording file headers.
+ */
+public enum NativeSampleFormat
+{
+    /**
+     * Interleaved I/Q 8-bit unsigned samples (e.g. RTL-SDR)
+     */
+    UNSIGNED_8_BIT_IQ(1, 2, "8-bit Unsigned I/Q"),
+
+    /**
+     * Interleaved I/Q 8-bit signed samples (e.g. HackRF)
+     */
+    SIGNED_8_BIT_IQ(2, 2, "8-bit Signed I/Q"),
+
+    /**
+     * Real 12-bit unsigned samples at twice the complex sample rate, with two samples packed into three bytes
+     * (e.g. Airspy).
+     */
+    PACKED_12_BIT_REAL(3, 3, "12-bit Packed Real"),
+
+    /**
+     * Interleaved I/Q 16-bit signed samples (e.g. SDRPlay RSP)
+     */
+    SIGNED_16_BIT_IQ(4, 4, "16-bit Signed I/Q"),
+
+    /**
+     * Interleaved Q/I 16-bit signed samples (e.g. Airspy HF)
+     */
+    SIGNED_16_BIT_QI(5, 4, "16-bit Signed Q/I"),
+
+    /**
+     * Interleaved I/Q 32-bit float samples
+     */
+    FLOAT_32_BIT_IQ(6, 8, "32-bit Float I/Q");
+
+    private int mId;
+    private int mBytesPerSample;
+    private String mLabel;
+
+    NativeSampleFormat(int id, int bytesPerSample, String label)
+    {
+        mId = id;
+        mBytesPerSample = bytesPerSample;
+        mLabel = label;
+    }
+
+    /**
+     * Stable identifier for this format
+     */
+    public int getId()
+    {
+        return mId;
+    }
+
+    /**
+     * Number of bytes used to store each complex sample
+     */
+    public int getBytesPerSample()
+    {
+        return mBytesPerSample;
+    }
+
+    /**
+     * Number of bytes used to store the number of complex samples
+     * @param sampleCount complex samples
+     * @return byte count
+     */
+    public int getByteCount(int sampleCount)
+    {
+        return sampleCount * mBytesPerSample;
+    }
+
+    /**
+     * Lookup the format from the identifier
+     * @param id of the format
+     * @return format or null if the identifier is not recognized
+     */
+    public static NativeSampleFormat fromId(int id)
+    {
+        for(NativeSampleFormat format: values())
+        {
+            if(format.getId() == id)
+            {
+                return format;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public String toString()
+    {
+        return mLabel;
+    }
+}
@@ -21,6 +21,7 @@ package io.github.dsheirer.buffer;
 
 import io.github.dsheirer.sample.complex.ComplexSamples;
 import io.github.dsheirer.sample.complex.InterleavedComplexSamples;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 
 /**
@@ -78,6 +79,30 @@ public class SignedByteNativeBuffer extends AbstractNativeBuffer
         return mSamples.length / 2;
     }
 
+    @Override
+    public NativeSampleFormat getNativeSampleFormat()
+    {
+        return NativeSampleFormat.SIGNED_8_BIT_IQ;
+    }
+
+    @Override
+    public void writeNative(ByteBuffer buffer)
+    {
+        buffer.put(mSamples);
+    }
+
+    @Override
+    public float getNativeDcOffsetI()
+    {
+        return mIAverageDc;
+    }
+
+    @Override
+    public float getNativeDcOffsetQ()
+    {
+        return mQAverageDc;
+    }
+
     @Override
     public Iterator<ComplexSamples> iterator()
     {
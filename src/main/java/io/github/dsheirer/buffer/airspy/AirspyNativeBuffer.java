@@ -20,9 +20,11 @@
 package io.github.dsheirer.buffer.airspy;
 
 import io.github.dsheirer.buffer.AbstractNativeBuffer;
+import io.github.dsheirer.buffer.NativeSampleFormat;
 import io.github.dsheirer.sample.complex.ComplexSamples;
 import io.github.dsheirer.sample.complex.InterleavedComplexSamples;
 import io.github.dsheirer.vector.calibrate.Implementation;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 
 /**
@@ -75,6 +77,40 @@ public class AirspyNativeBuffer extends AbstractNativeBuffer
         return mSamples.length / 2;
     }
 
+    @Override
+    public NativeSampleFormat getNativeSampleFormat()
+    {
+        return NativeSampleFormat.PACKED_12_BIT_REAL;
+    }
+
+    /**
+     * Packs each pair of 12-bit real samples into three bytes.
+     */
+    @Override
+    public void writeNative(ByteBuffer buffer)
+    {
+        for(int x = 0; x < mSamples.length; x += 2)
+        {
+            int sample1 = mSamples[x] & 0xFFF;
+            int sample2 = mSamples[x + 1] & 0xFFF;
+            buffer.put((byte)sample1);
+            buffer.put((byte)((sample1 >> 8) | (sample2 << 4)));
+            buffer.put((byte)(sample2 >> 4));
+        }
+    }
+
+    @Override
+    public float getNativeDcOffsetI()
+    {
+        return mAverageDc;
+    }
+
+    @Override
+    public float getNativeDcOffsetQ()
+    {
+        return mAverageDc;
+    }
+
     @Override
     public Iterator<ComplexSamples> iterator()
     {
@@ -101,10 +101,21 @@ public class AirspyNativeBufferFactory extends AbstractNativeBufferFactory
     public INativeBuffer getBuffer(ByteBuffer buffer, long timestamp)
     {
         short[] samples = mConverter.convert(buffer);
+        return getBuffer(samples, mConverter.getAverageDc(), timestamp);
+    }
 
+    /**
+     * Creates a native buffer from unpacked 12-bit samples, for example when replaying a native baseband recording.
+     * @param samples unpacked 12-bit samples, length must be a multiple of the iterator fragment size
+     * @param averageDc offset for the samples
+     * @param timestamp of the first sample
+     * @return native buffer
+     */
+    public INativeBuffer getBuffer(short[] samples, float averageDc, long timestamp)
+    {
         INativeBuffer nativeBuffer = new AirspyNativeBuffer(samples,
                 Arrays.copyOf(mResidualI, mResidualI.length),
-                Arrays.copyOf(mResidualQ, mResidualQ.length), mConverter.getAverageDc(), timestamp,
+                Arrays.copyOf(mResidualQ, mResidualQ.length), averageDc, timestamp,
                 mInterleavedIteratorImplementation, mNonInterleavedIteratorImplementation, getSamplesPerMillisecond());
 
         extractResidual(samples);
@@ -20,8 +20,10 @@
 package io.github.dsheirer.buffer.airspy.hf;
 
 import io.github.dsheirer.buffer.AbstractNativeBuffer;
+import io.github.dsheirer.buffer.NativeSampleFormat;
 import io.github.dsheirer.sample.complex.ComplexSamples;
 import io.github.dsheirer.sample.complex.InterleavedComplexSamples;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 
 /**
@@ -63,6 +65,31 @@ public class AirspyHfNativeBuffer extends AbstractNativeBuffer
         return mInterleavedSamples.length / 2;
     }
 
+    @Override
+    public NativeSampleFormat getNativeSampleFormat()
+    {
+        return NativeSampleFormat.SIGNED_16_BIT_QI;
+    }
+
+    @Override
+    public void writeNative(ByteBuffer buffer)
+    {
+        buffer.asShortBuffer().put(mInterleavedSamples);
+        buffer.position(buffer.position() + (mInterleavedSamples.length * 2));
+    }
+
+    @Override
+    public float getNativeDcOffsetI()
+    {
+        return mAverageDc;
+    }
+
+    @Override
+    public float getNativeDcOffsetQ()
+    {
+        return mAverageDc;
+    }
+
     /**
      * Scalar implementation of complex samples buffer iterator
      */
@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- * Copyright (C) 2014-2024 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -26,6 +26,7 @@ import io.github.dsheirer.identifier.Identifier;
 import io.github.dsheirer.identifier.decoder.DecoderLogicalChannelNameIdentifier;
 import io.github.dsheirer.preference.PreferenceType;
 import io.github.dsheirer.sample.Listener;
+import io.github.dsheirer.util.UpdateCoalescer;
 import java.awt.EventQueue;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -56,6 +57,7 @@ public class ChannelMetadataModel extends AbstractTableModel implements IChannel
     private List<ChannelMetadata> mChannelMetadata = new ArrayList();
     private Map<ChannelMetadata,Channel> mMetadataChannelMap = new HashMap();
     private Listener<ChannelAndMetadata> mChannelAddListener;
+    private UpdateCoalescer<ChannelMetadata> mUpdateCoalescer = UpdateCoalescer.forSwing(1000, this::updateRows);
 
     public ChannelMetadataModel()
     {
@@ -313,47 +315,29 @@ public class ChannelMetadataModel extends AbstractTableModel implements IChannel
         return null;
     }
 
+    /**
+     * Queues the channel metadata row to be refreshed with the next batch of updates on the Swing event thread.
+     */
     @Override
     public void updated(ChannelMetadata channelMetadata, ChannelMetadataField channelMetadataField)
     {
-        final int rowIndex = mChannelMetadata.indexOf(channelMetadata);
+        mUpdateCoalescer.add(channelMetadata);
+    }
 
-        if(rowIndex >= 0)
+    /**
+     * Refreshes the rows for a batch of updated channel metadata.  Updates for channel metadata that were removed
+     * from the model in the meantime are dropped.
+     */
+    private void updateRows(List<ChannelMetadata> channelMetadatas)
+    {
+        for(ChannelMetadata channelMetadata: channelMetadatas)
         {
-            //Execute on the swing thread to avoid threading issues
-            EventQueue.invokeLater(new Runnable()
+            int rowIndex = mChannelMetadata.indexOf(channelMetadata);
+
+            if(rowIndex >= 0)
             {
-                @Override
-                public void run()
-                {
-                    switch(channelMetadataField)
-                    {
-                        case CONFIGURATION_CHANNEL:
-                            fireTableCellUpdated(rowIndex, COLUMN_CONFIGURATION_CHANNEL);
-                            break;
-                        case CONFIGURATION_FREQUENCY:
-                            fireTableCellUpdated(rowIndex, COLUMN_CONFIGURATION_FREQUENCY);
-                            break;
-                        case DECODER_CHANNEL_NAME:
-                            fireTableCellUpdated(rowIndex, COLUMN_DECODER_LOGICAL_CHANNEL_NAME);
-                            break;
-                        case DECODER_TYPE:
-                            fireTableCellUpdated(rowIndex, COLUMN_DECODER_TYPE);
-                            break;
-                        case DECODER_STATE:
-                            fireTableCellUpdated(rowIndex, COLUMN_DECODER_STATE);
-                            break;
-                        case USER_FROM:
-                            fireTableCellUpdated(rowIndex, COLUMN_USER_FROM);
-                            fireTableCellUpdated(rowIndex, COLUMN_USER_FROM_ALIAS);
-                            break;
-                        case USER_TO:
-                            fireTableCellUpdated(rowIndex, COLUMN_USER_TO);
-                            fireTableCellUpdated(rowIndex, COLUMN_USER_TO_ALIAS);
-                            break;
-                    }
-                }
-            });
+                fireTableRowsUpdated(rowIndex, rowIndex);
+            }
         }
     }
 }
@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- * Copyright (C) 2014-2024 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -50,6 +50,14 @@ public abstract class AbstractDecoderState extends Module implements ActivitySum
 
     public abstract DecoderType getDecoderType();
 
+    /**
+     * Duplicate event detector that is shared by all decoder states.
+     */
+    public static DecodeEventDuplicateDetector getDuplicateEventDetector()
+    {
+        return mDuplicateEventDetector;
+    }
+
     /**
      * Implements module start and sets the mRunning flag to true so that messages can be processed.
      */
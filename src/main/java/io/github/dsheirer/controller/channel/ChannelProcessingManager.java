@@ -43,6 +43,7 @@ import io.github.dsheirer.preference.UserPreferences;
 import io.github.dsheirer.record.RecorderFactory;
 import io.github.dsheirer.sample.Broadcaster;
 import io.github.dsheirer.sample.Listener;
+import io.github.dsheirer.sample.complex.ComplexSamples;
 import io.github.dsheirer.source.Source;
 import io.github.dsheirer.source.SourceEvent;
 import io.github.dsheirer.source.SourceException;
@@ -50,16 +51,20 @@ import io.github.dsheirer.source.config.SourceConfigTuner;
 import io.github.dsheirer.source.config.SourceConfigTunerMultipleFrequency;
 import io.github.dsheirer.source.tuner.channel.TunerChannelSource;
 import io.github.dsheirer.source.tuner.manager.TunerManager;
+import io.github.dsheirer.util.LatencyHistogram;
 import io.github.dsheirer.util.ThreadPool;
 import java.awt.GraphicsEnvironment;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import javafx.application.Platform;
@@ -71,6 +76,10 @@ import org.slf4j.LoggerFactory;
  * for each channel that is enabled.  The processing chain contains all of the components needed to decode a specific
  * channel and protocol along with all logging and baseband or bitstream recording.  Audio recording is handled outside
  * of this class by the RecorderManager.
+ *
+ * Channel start requests received over the event bus (e.g. traffic channel grants) are started on a thread pool so
+ * that several channels can start at the same time.  Starts are serialized per channel, and the tuner channel source
+ * allocation is serialized per tuner by the tuner's own lock.
  */
 public class ChannelProcessingManager implements Listener<ChannelEvent>
 {
@@ -79,6 +88,10 @@ public class ChannelProcessingManager implements Listener<ChannelEvent>
     private static final String TUNER_UNAVAILABLE_DESCRIPTION = "TUNER UNAVAILABLE";
     private Map<Channel,ProcessingChain> mProcessingChainsMap = new ConcurrentHashMap<>();
     private Lock mLock = new ReentrantLock();
+    private Map<Channel,ChannelLock> mChannelLocks = new ConcurrentHashMap<>();
+    private LatencyHistogram mSourceLatency = new LatencyHistogram("Channel Start - Request To Source Allocated", "ms");
+    private LatencyHistogram mStartLatency = new LatencyHistogram("Channel Start - Request To Processing Started", "ms");
+    private LatencyHistogram mFirstSamplesLatency = new LatencyHistogram("Channel Start - Request To First Samples", "ms");
 
     private ChannelSourceEventErrorListener mSourceErrorListener = new ChannelSourceEventErrorListener();
     private List<Listener<AudioSegment>> mAudioSegmentListeners = new CopyOnWriteArrayList<>();
@@ -91,8 +104,8 @@ public class ChannelProcessingManager implements Listener<ChannelEvent>
     private TunerManager mTunerManager;
     private AliasModel mAliasModel;
     private UserPreferences mUserPreferences;
-    private List<Long> mLoggedFrequencies = new ArrayList<>();
-    private List<ScheduledFuture<?>> mDelayedChannelStartTasks = new ArrayList<>();
+    private Set<Long> mLoggedFrequencies = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private List<ScheduledFuture<?>> mDelayedChannelStartTasks = new CopyOnWriteArrayList<>();
 
     /**
      * Constructs the channel processing manager
@@ -251,9 +264,8 @@ public class ChannelProcessingManager implements Listener<ChannelEvent>
                         {
                             long frequency = ((SourceConfigTuner)channel.getSourceConfiguration()).getFrequency();
 
-                            if(!mLoggedFrequencies.contains(frequency))
+                            if(mLoggedFrequencies.add(frequency))
                             {
-                                mLoggedFrequencies.add(frequency);
                                 mLog.error("Error starting requested channel [" + channel.getName() + ":" + frequency +
                                     "] - " + ce.getMessage());
                             }
@@ -263,9 +275,8 @@ public class ChannelProcessingManager implements Listener<ChannelEvent>
                             List<Long> frequencies = ((SourceConfigTunerMultipleFrequency)channel
                                 .getSourceConfiguration()).getFrequencies();
 
-                            if(frequencies.size() > 0 && !mLoggedFrequencies.contains(frequencies.get(0)))
+                            if(frequencies.size() > 0 && mLoggedFrequencies.add(frequencies.get(0)))
                             {
-                                mLoggedFrequencies.add(frequencies.get(0));
                                 mLog.error("Error starting requested channel [" + channel.getName() + ":" + frequencies +
                                     "] - " + ce.getMessage());
                             }
@@ -319,29 +330,66 @@ public class ChannelProcessingManager implements Listener<ChannelEvent>
     }
 
     /**
-     * Request to start processing a channel received over the Guava event bus.
+     * Request to start processing a channel received over the Guava event bus.  The channel is started on the thread
+     * pool so that the requesting channel's event bus thread isn't blocked and so that concurrent requests (e.g.
+     * traffic channel grants) can be started in parallel.
+     *
+     * A stop for the channel that is processed before the queued start runs cancels the start.
      *
-     * Note: since this is received over the event bus, we handle any channel exceptions inside this method.
+     * Note: since this is received over the event bus, we handle any channel exceptions when processing the request.
      */
     @Subscribe
     public void startChannelRequest(ChannelStartProcessingRequest request)
     {
         if(!isProcessing(request.getChannel()))
         {
-            try
-            {
-                startProcessing(request);
-            }
-            catch(ChannelException ce)
+            //Reserve the channel lock while the start is queued and capture the stop count to detect a later stop
+            ChannelLock lock = acquireChannelLock(request.getChannel());
+            long stopCount = lock.getStopCount();
+            ThreadPool.CACHED.execute(() -> processStartRequest(request, lock, stopCount));
+        }
+    }
+
+    /**
+     * Processes a queued request to start a channel and schedules another attempt if the start fails and the request
+     * is a persistent attempt.  The request is discarded if the channel was stopped after the request was queued.
+     * @param request to start a channel
+     * @param lock for the channel, reserved when the request was queued
+     * @param stopCount for the channel when the request was queued
+     */
+    private void processStartRequest(ChannelStartProcessingRequest request, ChannelLock lock, long stopCount)
+    {
+        boolean retry = false;
+
+        lock.lock();
+
+        try
+        {
+            if(lock.getStopCount() == stopCount && !isProcessing(request.getChannel()))
             {
-                if(request.isPersistentAttempt())
-                {
-                    ScheduledFuture<?> future = ThreadPool.SCHEDULED
-                        .schedule(new DelayedChannelStartTask(request), 500, TimeUnit.MILLISECONDS);
-                    mDelayedChannelStartTasks.add(future);
-                }
+                startProcessingLocked(request);
             }
         }
+        catch(ChannelException ce)
+        {
+            retry = request.isPersistentAttempt();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
+        if(retry)
+        {
+            //The delayed start task keeps the channel lock reservation
+            ScheduledFuture<?> future = ThreadPool.SCHEDULED
+                .schedule(new DelayedChannelStartTask(request, lock, stopCount), 500, TimeUnit.MILLISECONDS);
+            mDelayedChannelStartTasks.add(future);
+        }
+        else
+        {
+            releaseChannelLock(request.getChannel());
+        }
     }
 
     /**
@@ -376,11 +424,53 @@ public class ChannelProcessingManager implements Listener<ChannelEvent>
     }
 
     /**
-     * Starts a channel processing
+     * Reserves and returns the lock used to serialize starting and stopping for the channel.  Release the reservation
+     * with releaseChannelLock() so that the lock is removed once it has no more users.
+     */
+    private ChannelLock acquireChannelLock(Channel channel)
+    {
+        return mChannelLocks.compute(channel, (key, lock) -> {
+            ChannelLock channelLock = lock != null ? lock : new ChannelLock();
+            channelLock.mUsers++;
+            return channelLock;
+        });
+    }
+
+    /**
+     * Releases a reservation on the channel lock and removes the lock when it has no more users.
+     */
+    private void releaseChannelLock(Channel channel)
+    {
+        mChannelLocks.computeIfPresent(channel, (key, lock) -> --lock.mUsers > 0 ? lock : null);
+    }
+
+    /**
+     * Starts a channel processing.  Starts for different channels can run concurrently.
+     * @param request containing channel and other details
+     * @throws ChannelException if a source is not available for the channel
+     */
+    private void startProcessing(ChannelStartProcessingRequest request) throws ChannelException
+    {
+        ChannelLock lock = acquireChannelLock(request.getChannel());
+        lock.lock();
+
+        try
+        {
+            startProcessingLocked(request);
+        }
+        finally
+        {
+            lock.unlock();
+            releaseChannelLock(request.getChannel());
+        }
+    }
+
+    /**
+     * Starts a channel processing.  The caller must hold the channel lock.
      * @param request containing channel and other details
      * @throws ChannelException if a source is not available for the channel
      */
-    private synchronized void startProcessing(ChannelStartProcessingRequest request) throws ChannelException
+    private void startProcessingLocked(ChannelStartProcessingRequest request) throws ChannelException
     {
         Channel channel = request.getChannel();
 
@@ -418,6 +508,8 @@ public class ChannelProcessingManager implements Listener<ChannelEvent>
             throw new ChannelException("No Tuner Available");
         }
 
+        mSourceLatency.add(getElapsedMilliseconds(request));
+
         ProcessingChain processingChain = new ProcessingChain(channel, mAliasModel);
 
         //Certain decoders aggregate the decode events in the parent channel that also includes any events produced
@@ -533,6 +625,8 @@ public class ChannelProcessingManager implements Listener<ChannelEvent>
 
         if(addProcessingChain(channel, processingChain))
         {
+            new FirstSamplesMonitor(request, processingChain);
+
             try
             {
                 processingChain.start();
@@ -542,6 +636,8 @@ public class ChannelProcessingManager implements Listener<ChannelEvent>
                 mLog.error("Error caught during processing chain startup - continuing", t);
             }
 
+            mStartLatency.add(getElapsedMilliseconds(request));
+
             if(GraphicsEnvironment.isHeadless())
             {
                 channel.setProcessing(true);
@@ -635,6 +731,28 @@ public class ChannelProcessingManager implements Listener<ChannelEvent>
      * @param channel to stop
      */
     private void stopProcessing(Channel channel) throws ChannelException
+    {
+        ChannelLock lock = acquireChannelLock(channel);
+        lock.lock();
+
+        try
+        {
+            //Cancel any start requests that are queued for the channel
+            lock.stopped();
+            stopProcessingLocked(channel);
+        }
+        finally
+        {
+            lock.unlock();
+            releaseChannelLock(channel);
+        }
+    }
+
+    /**
+     * Stops the channel processing.  The caller must hold the channel lock.
+     * @param channel to stop
+     */
+    private void stopProcessingLocked(Channel channel) throws ChannelException
     {
         ProcessingChain processingChain = removeProcessingChain(channel);
 
@@ -809,16 +927,89 @@ public class ChannelProcessingManager implements Listener<ChannelEvent>
         mChannelEventBroadcaster.removeListener(listener);
     }
 
+    /**
+     * Elapsed time since the start request was created.
+     */
+    private static long getElapsedMilliseconds(ChannelStartProcessingRequest request)
+    {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - request.getRequestTimestamp());
+    }
+
+    /**
+     * One-shot listener that records the channel start latency when the first samples arrive from the source.
+     */
+    private class FirstSamplesMonitor
+    {
+        private final AtomicBoolean mReceived = new AtomicBoolean();
+        private final ChannelStartProcessingRequest mRequest;
+        private final ProcessingChain mProcessingChain;
+        private final Listener<ComplexSamples> mComplexListener = samples -> received();
+        private final Listener<float[]> mRealListener = samples -> received();
+
+        /**
+         * Constructs an instance and registers with the processing chain.
+         */
+        public FirstSamplesMonitor(ChannelStartProcessingRequest request, ProcessingChain processingChain)
+        {
+            mRequest = request;
+            mProcessingChain = processingChain;
+            mProcessingChain.addBasebandSamplesListener(mComplexListener);
+            mProcessingChain.addDemodulatedAudioListener(mRealListener);
+        }
+
+        private void received()
+        {
+            if(mReceived.compareAndSet(false, true))
+            {
+                mFirstSamplesLatency.add(getElapsedMilliseconds(mRequest));
+                mProcessingChain.removeBasebandSamplesListener(mComplexListener);
+                mProcessingChain.removeDemodulatedAudioListener(mRealListener);
+            }
+        }
+    }
+
+    /**
+     * Lock that serializes starting and stopping a channel.  Counts stops so that a queued start request can detect
+     * that the channel was stopped after the start was requested, and counts the users of the lock (including queued
+     * start requests) so that the lock can be removed once it's no longer used.
+     */
+    private static class ChannelLock extends ReentrantLock
+    {
+        //Modified only within the channel lock map compute functions
+        private int mUsers;
+        private volatile long mStopCount;
+
+        /**
+         * Number of times the channel was stopped
+         */
+        public long getStopCount()
+        {
+            return mStopCount;
+        }
+
+        /**
+         * Records that the channel was stopped.  Invoke while holding this lock.
+         */
+        public void stopped()
+        {
+            mStopCount++;
+        }
+    }
+
     /**
      * Task to scheduling attempt to start a channel after previous attempts failed for lack of tuner channel
      */
     public class DelayedChannelStartTask implements Runnable
     {
         private ChannelStartProcessingRequest mRequest;
+        private ChannelLock mLock;
+        private long mStopCount;
 
-        public DelayedChannelStartTask(ChannelStartProcessingRequest request)
+        public DelayedChannelStartTask(ChannelStartProcessingRequest request, ChannelLock lock, long stopCount)
         {
             mRequest = request;
+            mLock = lock;
+            mStopCount = stopCount;
         }
 
         @Override
@@ -827,7 +1018,7 @@ public class ChannelProcessingManager implements Listener<ChannelEvent>
             try
             {
                 mDelayedChannelStartTasks.remove(this);
-                startChannelRequest(mRequest);
+                processStartRequest(mRequest, mLock, mStopCount);
             }
             catch(Throwable t)
             {
@@ -904,6 +1095,11 @@ public class ChannelProcessingManager implements Listener<ChannelEvent>
         StringBuilder sb = new StringBuilder();
         sb.append("Channel Processing Manager - Diagnostics Report\n\n");
         sb.append(DIVIDER);
+        sb.append("\tChannel Start Latency\n");
+        sb.append("\t").append(mSourceLatency).append("\n");
+        sb.append("\t").append(mStartLatency).append("\n");
+        sb.append("\t").append(mFirstSamplesLatency).append("\n");
+        sb.append(DIVIDER);
         sb.append("\tChannel to Processing Chain Map Contents\n");
         Map<Channel,ProcessingChain> mapCopy = new HashMap<>(mProcessingChainsMap);
         for(Map.Entry<Channel,ProcessingChain> entry: mapCopy.entrySet())
@@ -41,6 +41,7 @@ public class ChannelStartProcessingRequest extends ModuleEventBusMessage
     private final List<PreloadDataContent<?>> mPreloadDataContents = new ArrayList<>();
     private DecodeEventHistory mParentDecodeEventHistory;
     private DecodeEventHistory mChildDecodeEventHistory;
+    private final long mRequestTimestamp = System.nanoTime();
     private boolean mPersistentAttempt;
 
     /**
@@ -109,6 +110,15 @@ public class ChannelStartProcessingRequest extends ModuleEventBusMessage
         return mPersistentAttempt;
     }
 
+    /**
+     * Time that this request was created, for measuring channel start latency.
+     * @return request timestamp from System.nanoTime()
+     */
+    public long getRequestTimestamp()
+    {
+        return mRequestTimestamp;
+    }
+
     /**
      * Channel to start processing
      * @return channel to start
@@ -19,6 +19,7 @@
 package io.github.dsheirer.dsp.filter;
 
 import io.github.dsheirer.dsp.filter.decimate.IRealDecimationFilter;
+import io.github.dsheirer.dsp.filter.design.FilterDesignCache;
 import io.github.dsheirer.dsp.filter.design.FilterDesignException;
 import io.github.dsheirer.dsp.filter.fir.FIRFilterSpecification;
 import io.github.dsheirer.dsp.filter.fir.real.IRealFilter;
@@ -705,14 +706,16 @@ public class FilterFactory
      */
     public static float[] getTaps(FIRFilterSpecification specification) throws FilterDesignException
     {
-        RemezFIRFilterDesigner designer = new RemezFIRFilterDesigner(specification);
+        return FilterDesignCache.getInstance().get("remez:" + specification.getCacheKey(), () -> {
+            RemezFIRFilterDesigner designer = new RemezFIRFilterDesigner(specification);
 
-        if(designer.isValid())
-        {
-            return designer.getImpulseResponse();
-        }
+            if(designer.isValid())
+            {
+                return designer.getImpulseResponse();
+            }
 
-        return null;
+            return null;
+        });
     }
 
     /**
@@ -842,6 +845,18 @@ public class FilterFactory
      */
     public static float[] getSincM2Channelizer(double channelBandwidth, int channels, int tapsPerChannel,
                                                boolean logResults) throws FilterDesignException
+    {
+        return FilterDesignCache.getInstance().get("sincM2Channelizer:" + channelBandwidth + "," + channels + "," +
+            tapsPerChannel, () -> designSincM2Channelizer(channelBandwidth, channels, tapsPerChannel, logResults));
+    }
+
+    /**
+     * Designs the polyphase M2 channelizer sync filter.
+     *
+     * @see #getSincM2Channelizer(double, int, int, boolean)
+     */
+    private static float[] designSincM2Channelizer(double channelBandwidth, int channels, int tapsPerChannel,
+                                                   boolean logResults) throws FilterDesignException
     {
         int currentTapsPerChannel = tapsPerChannel;
         int filterLength = (channels * currentTapsPerChannel) - 1;
@@ -33,6 +33,7 @@ public abstract class AbstractComplexPolyphaseChannelizer implements Listener<In
     private final static Logger mLog = LoggerFactory.getLogger(AbstractComplexPolyphaseChannelizer.class);
     private Broadcaster<SourceEvent> mSourceChangeBroadcaster = new Broadcaster();
     private List<PolyphaseChannelSource> mChannels = new CopyOnWriteArrayList<>();
+    private List<IChannelResultsListener> mChannelResultsListeners = new CopyOnWriteArrayList<>();
     private double mSampleRate;
     private int mChannelCount;
     private int mSubChannelCount;
@@ -108,6 +109,27 @@ public abstract class AbstractComplexPolyphaseChannelizer implements Listener<In
         {
             channel.receiveChannelResults(channelResultsList, mCurrentSamplesTimestamp);
         }
+
+        for(IChannelResultsListener listener : mChannelResultsListeners)
+        {
+            listener.receiveChannelResults(channelResultsList, mCurrentSamplesTimestamp);
+        }
+    }
+
+    /**
+     * Adds a listener to receive the raw output for all channels, independent of the registered channel sources.
+     */
+    public void addChannelResultsListener(IChannelResultsListener listener)
+    {
+        mChannelResultsListeners.add(listener);
+    }
+
+    /**
+     * Removes the raw channel output listener
+     */
+    public void removeChannelResultsListener(IChannelResultsListener listener)
+    {
+        mChannelResultsListeners.remove(listener);
     }
 
     /**
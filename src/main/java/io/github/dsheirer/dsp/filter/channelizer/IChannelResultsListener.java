@@ -0,0 +1,38 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.dsp.filter.channelizer;
+
+import java.util.List;
+
+/**
+ * Listener for the raw (all channels) output of a polyphase channelizer.  Each results array contains one
+ * interleaved complex sample (I, Q) for each of the channelizer's channels, in channel index order.
+ *
+ * Note: results arrays are shared with the channelizer's channel sources and must be treated as read-only.
+ */
+public interface IChannelResultsListener
+{
+    /**
+     * Receives a batch of channel results arrays
+     * @param channelResultsList arrays of interleaved I/Q samples, one sample per channel
+     * @param timestamp of the most recent input samples
+     */
+    void receiveChannelResults(List<float[]> channelResultsList, long timestamp);
+}
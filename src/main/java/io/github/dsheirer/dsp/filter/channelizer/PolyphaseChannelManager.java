@@ -21,6 +21,8 @@ package io.github.dsheirer.dsp.filter.channelizer;
 import io.github.dsheirer.buffer.INativeBuffer;
 import io.github.dsheirer.buffer.INativeBufferProvider;
 import io.github.dsheirer.controller.channel.event.ChannelStopProcessingRequest;
+import io.github.dsheirer.dsp.filter.channelizer.occupancy.ChannelOccupancyLogger;
+import io.github.dsheirer.dsp.filter.channelizer.occupancy.ChannelOccupancyMonitor;
 import io.github.dsheirer.dsp.filter.design.FilterDesignException;
 import io.github.dsheirer.eventbus.MyEventBus;
 import io.github.dsheirer.log.LoggingSuppressor;
@@ -60,6 +62,9 @@ import org.slf4j.LoggerFactory;
  * 2.0 to a minimum of 25.0 kHz channel sample rate.  If the baseband stream provider sample rate is not evenly
  * divisible by 12.5 kHz channels for an even number of channels, the channel bandwidth will be increased.
  *
+ * A channel occupancy monitor taps the channelizer output to measure activity across all channels while the
+ * channelizer is running, optionally logging the activity when an occupancy log format is configured.
+ *
  * Note: add this channel manager as a source event listener to the complex buffer provider to ensure this manager
  * adapts to changes in source frequency and sample rate.
  */
@@ -82,6 +87,8 @@ public class PolyphaseChannelManager implements ISourceEventProcessor
     private NativeBufferReceiver mNativeBufferReceiver = new NativeBufferReceiver();
     private Dispatcher mBufferDispatcher;
     private Map<Integer,float[]> mOutputProcessorFilters = new HashMap<>();
+    private ChannelOccupancyMonitor mOccupancyMonitor;
+    private ChannelOccupancyLogger mOccupancyLogger;
     private boolean mRunning = true;
 
     /**
@@ -110,6 +117,14 @@ public class PolyphaseChannelManager implements ISourceEventProcessor
         }
 
         mChannelCalculator = new ChannelCalculator(sampleRate, channelCount, frequency, CHANNEL_OVERSAMPLING);
+        mOccupancyMonitor = new ChannelOccupancyMonitor(mChannelCalculator);
+        mOccupancyLogger = ChannelOccupancyLogger.create();
+
+        if(mOccupancyLogger != null)
+        {
+            mOccupancyMonitor.addListener(mOccupancyLogger);
+        }
+
         mBufferDispatcher = new Dispatcher("sdrtrunk polyphase buffer processor", 10);
         mBufferDispatcher.setListener(mNativeBufferReceiver);
     }
@@ -163,6 +178,11 @@ public class PolyphaseChannelManager implements ISourceEventProcessor
         {
             MyEventBus.getGlobalEventBus().post(new ChannelStopProcessingRequest(tunerChannelSource));
         }
+
+        if(mOccupancyLogger != null)
+        {
+            mOccupancyLogger.close();
+        }
     }
 
     /**
@@ -177,6 +197,15 @@ public class PolyphaseChannelManager implements ISourceEventProcessor
         }
     }
 
+    /**
+     * Channel occupancy monitor for the full tuner bandwidth.  The monitor only produces occupancy snapshots while
+     * the channelizer is running, meaning while at least one channel is sourced from this manager.
+     */
+    public ChannelOccupancyMonitor getOccupancyMonitor()
+    {
+        return mOccupancyMonitor;
+    }
+
     /**
      * Current channel bandwidth/spacing.
      */
@@ -346,6 +375,7 @@ public class PolyphaseChannelManager implements ISourceEventProcessor
             {
                 mPolyphaseChannelizer = new ComplexPolyphaseChannelizerM2(tunerSampleRate,
                     POLYPHASE_CHANNELIZER_TAPS_PER_CHANNEL);
+                mPolyphaseChannelizer.addChannelResultsListener(mOccupancyMonitor);
             }
             catch(IllegalArgumentException iae)
             {
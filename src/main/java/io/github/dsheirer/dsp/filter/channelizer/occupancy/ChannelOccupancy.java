@@ -0,0 +1,61 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.dsp.filter.channelizer.occupancy;
+
+/**
+ * Snapshot of the channel activity across the full bandwidth of a tuner.  Channels are ordered by frequency, low to
+ * high.
+ *
+ * @param timestamp of the snapshot
+ * @param channelBandwidth of each channel in hertz
+ * @param frequencies center frequency of each channel in hertz
+ * @param powerDb smoothed average power of each channel in dB full scale
+ * @param active indicates if each channel's power exceeds the noise floor by the activity threshold
+ * @param noiseFloorDb estimated noise floor (median channel power) in dB full scale
+ */
+public record ChannelOccupancy(long timestamp, double channelBandwidth, long[] frequencies, float[] powerDb,
+                               boolean[] active, float noiseFloorDb)
+{
+    /**
+     * Number of channels
+     */
+    public int getChannelCount()
+    {
+        return frequencies.length;
+    }
+
+    /**
+     * Number of active channels
+     */
+    public int getActiveCount()
+    {
+        int count = 0;
+
+        for(boolean channelActive: active)
+        {
+            if(channelActive)
+            {
+                count++;
+            }
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.dsp.filter.channelizer.occupancy;
+
+import io.github.dsheirer.module.log.AsyncLogWriter;
+import io.github.dsheirer.sample.Listener;
+import io.github.dsheirer.util.TimeStamp;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logs channel occupancy snapshots to a CSV or JSON Lines file.  Snapshots are aggregated over each one second
+ * interval to a duty cycle (fraction of snapshots where the channel was active) and the maximum power for each
+ * channel, and only the channels that were active during the interval are written.
+ *
+ * The log file is created on the first write and is named with the tuner center frequency and the creation time.
+ * Lines are written by an asynchronous log writer, so that the channelizer thread doesn't wait on the disk.
+ */
+public class ChannelOccupancyLogger implements Listener<ChannelOccupancy>, AutoCloseable
+{
+    private static final Logger mLog = LoggerFactory.getLogger(ChannelOccupancyLogger.class);
+    private static final long INTERVAL_MS = 1000;
+    private static final String CSV_HEADER = "timestamp,frequency,duty_cycle,max_power_db,noise_floor_db";
+    private static OccupancyLogFormat sLogFormat = OccupancyLogFormat.NONE;
+    private static Path sLogDirectory;
+
+    private final OccupancyLogFormat mFormat;
+    private final Path mDirectory;
+    private AsyncLogWriter mWriter;
+    private long mIntervalStart;
+    private long[] mFrequencies;
+    private int[] mActiveCounts;
+    private float[] mMaxPowerDb;
+    private float mNoiseFloorSum;
+    private int mSnapshotCount;
+
+    /**
+     * Constructs an instance
+     * @param format for the log file
+     * @param directory for the log file
+     */
+    public ChannelOccupancyLogger(OccupancyLogFormat format, Path directory)
+    {
+        if(format == null || format == OccupancyLogFormat.NONE)
+        {
+            throw new IllegalArgumentException("Occupancy log format must be CSV or JSON");
+        }
+
+        mFormat = format;
+        mDirectory = directory;
+    }
+
+    /**
+     * Sets the log format and directory used by channel managers that are created after this call.
+     * @param format for logging, or NONE to disable logging
+     * @param directory for log files
+     */
+    public static void setLogConfiguration(OccupancyLogFormat format, Path directory)
+    {
+        sLogFormat = format != null ? format : OccupancyLogFormat.NONE;
+        sLogDirectory = directory;
+    }
+
+    /**
+     * Creates an occupancy logger using the configured log format and directory.
+     * @return logger or null if logging is disabled
+     */
+    public static ChannelOccupancyLogger create()
+    {
+        if(sLogFormat == OccupancyLogFormat.NONE || sLogDirectory == null)
+        {
+            return null;
+        }
+
+        return new ChannelOccupancyLogger(sLogFormat, sLogDirectory);
+    }
+
+    @Override
+    public synchronized void receive(ChannelOccupancy occupancy)
+    {
+        if(mFrequencies == null || !Arrays.equals(mFrequencies, occupancy.frequencies()))
+        {
+            //Tuner frequency or sample rate changed - write the partial interval and start over
+            writeInterval();
+            mFrequencies = occupancy.frequencies();
+            mActiveCounts = new int[mFrequencies.length];
+            mMaxPowerDb = new float[mFrequencies.length];
+            Arrays.fill(mMaxPowerDb, Float.NEGATIVE_INFINITY);
+            mIntervalStart = occupancy.timestamp();
+        }
+        else if(occupancy.timestamp() - mIntervalStart >= INTERVAL_MS)
+        {
+            writeInterval();
+            mIntervalStart = occupancy.timestamp();
+        }
+
+        boolean[] active = occupancy.active();
+        float[] powerDb = occupancy.powerDb();
+
+        for(int x = 0; x < active.length; x++)
+        {
+            if(active[x])
+            {
+                mActiveCounts[x]++;
+            }
+
+            mMaxPowerDb[x] = Math.max(mMaxPowerDb[x], powerDb[x]);
+        }
+
+        mNoiseFloorSum += occupancy.noiseFloorDb();
+        mSnapshotCount++;
+    }
+
+    /**
+     * Writes the aggregated interval for the active channels and resets the aggregation.
+     */
+    private void writeInterval()
+    {
+        if(mSnapshotCount == 0)
+        {
+            return;
+        }
+
+        if(mWriter == null)
+        {
+            mWriter = createWriter(mFrequencies[mFrequencies.length / 2]);
+        }
+
+        float noiseFloor = mNoiseFloorSum / mSnapshotCount;
+
+        if(mFormat == OccupancyLogFormat.CSV)
+        {
+            for(int x = 0; x < mFrequencies.length; x++)
+            {
+                if(mActiveCounts[x] > 0)
+                {
+                    mWriter.write(mIntervalStart + "," + mFrequencies[x] + "," + dutyCycle(mActiveCounts[x]) + "," +
+                        format(mMaxPowerDb[x]) + "," + format(noiseFloor));
+                }
+            }
+        }
+        else
+        {
+            StringBuilder sb = new StringBuilder();
+            sb.append("{\"timestamp\":").append(mIntervalStart);
+            sb.append(",\"noise_floor_db\":").append(format(noiseFloor));
+            sb.append(",\"channels\":[");
+            boolean first = true;
+
+            for(int x = 0; x < mFrequencies.length; x++)
+            {
+                if(mActiveCounts[x] > 0)
+                {
+                    if(!first)
+                    {
+                        sb.append(',');
+                    }
+
+                    sb.append("{\"frequency\":").append(mFrequencies[x]);
+                    sb.append(",\"duty_cycle\":").append(dutyCycle(mActiveCounts[x]));
+                    sb.append(",\"max_power_db\":").append(format(mMaxPowerDb[x])).append('}');
+                    first = false;
+                }
+            }
+
+            sb.append("]}");
+            mWriter.write(sb.toString());
+        }
+
+        Arrays.fill(mActiveCounts, 0);
+        Arrays.fill(mMaxPowerDb, Float.NEGATIVE_INFINITY);
+        mNoiseFloorSum = 0.0f;
+        mSnapshotCount = 0;
+    }
+
+    /**
+     * Creates and starts the log writer.  The log file is created on the writer thread.
+     * @param centerFrequency of the tuner for the log file name
+     */
+    private AsyncLogWriter createWriter(long centerFrequency)
+    {
+        AsyncLogWriter writer = new AsyncLogWriter(() -> {
+            Path path = mDirectory.resolve("occupancy_" + centerFrequency + "_" +
+                TimeStamp.getFileFormattedDateTime() + mFormat.getExtension());
+
+            try
+            {
+                Files.createDirectories(mDirectory);
+            }
+            catch(IOException ioe)
+            {
+                mLog.error("Error creating channel occupancy log directory [" + mDirectory + "]", ioe);
+            }
+
+            mLog.info("Logging channel occupancy to [" + path + "]");
+            return path;
+        }, mFormat == OccupancyLogFormat.CSV ? CSV_HEADER : null);
+        writer.start();
+        return writer;
+    }
+
+    /**
+     * Fraction of the interval snapshots where the channel was active, with two decimal places
+     */
+    private String dutyCycle(int activeCount)
+    {
+        return String.valueOf(Math.round(activeCount * 100.0f / mSnapshotCount) / 100.0f);
+    }
+
+    /**
+     * Formats the value with one decimal place
+     */
+    private static String format(float value)
+    {
+        return String.valueOf(Math.round(value * 10.0f) / 10.0f);
+    }
+
+    /**
+     * Writes the partial interval and closes the log file.  The log file is closed on the writer thread.
+     */
+    @Override
+    public synchronized void close()
+    {
+        writeInterval();
+        mFrequencies = null;
+
+        if(mWriter != null)
+        {
+            mWriter.close();
+            mWriter = null;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.dsp.filter.channelizer.occupancy;
+
+import io.github.dsheirer.dsp.filter.channelizer.ChannelCalculator;
+import io.github.dsheirer.dsp.filter.channelizer.IChannelResultsListener;
+import io.github.dsheirer.sample.Broadcaster;
+import io.github.dsheirer.sample.Listener;
+import java.util.Arrays;
+import java.util.List;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Low-cost channel occupancy monitor that taps the output of a polyphase channelizer.  The channelizer already
+ * computes every channel across the tuner bandwidth, so the monitor only accumulates the squared I/Q sample values
+ * per channel (vectorized), and periodically converts the accumulated energy to a smoothed average power per channel
+ * and publishes a channel occupancy snapshot.
+ *
+ * A channel is active when its smoothed power exceeds the noise floor, estimated as the median channel power, by the
+ * activity threshold.
+ *
+ * Note: channel results are received on the channelizer's processing thread and snapshots are published on that
+ * thread.
+ */
+public class ChannelOccupancyMonitor implements IChannelResultsListener
+{
+    private static final VectorSpecies<Float> VECTOR_SPECIES = FloatVector.SPECIES_PREFERRED;
+    public static final long DEFAULT_PUBLISH_INTERVAL_MS = 100;
+    private static final float SMOOTHING = 0.3f;
+    private static final float ACTIVITY_THRESHOLD_DB = 6.0f;
+    private static final float MINIMUM_POWER = 1E-12f;
+
+    private final Broadcaster<ChannelOccupancy> mBroadcaster = new Broadcaster<>();
+    private final ChannelCalculator mChannelCalculator;
+    private final long mPublishInterval;
+    private float[] mAccumulator;
+    private float[] mAveragePower;
+    private int mSampleCount;
+    private long mLastPublish;
+    private double mIndexCenterFrequency;
+    private long[] mFrequencies;
+    private int[] mFrequencyOrder;
+    private volatile ChannelOccupancy mLatest;
+
+    /**
+     * Constructs an instance
+     * @param channelCalculator for mapping channel indexes to frequencies
+     * @param publishInterval in milliseconds between snapshots
+     */
+    public ChannelOccupancyMonitor(ChannelCalculator channelCalculator, long publishInterval)
+    {
+        mChannelCalculator = channelCalculator;
+        mPublishInterval = publishInterval;
+    }
+
+    /**
+     * Constructs an instance with the default publish interval
+     */
+    public ChannelOccupancyMonitor(ChannelCalculator channelCalculator)
+    {
+        this(channelCalculator, DEFAULT_PUBLISH_INTERVAL_MS);
+    }
+
+    /**
+     * Adds a listener to receive channel occupancy snapshots
+     */
+    public void addListener(Listener<ChannelOccupancy> listener)
+    {
+        mBroadcaster.addListener(listener);
+    }
+
+    /**
+     * Removes the channel occupancy snapshot listener
+     */
+    public void removeListener(Listener<ChannelOccupancy> listener)
+    {
+        mBroadcaster.removeListener(listener);
+    }
+
+    /**
+     * Most recent channel occupancy snapshot, or null if the channelizer hasn't produced enough samples
+     */
+    public ChannelOccupancy getLatest()
+    {
+        return mLatest;
+    }
+
+    @Override
+    public void receiveChannelResults(List<float[]> channelResultsList, long timestamp)
+    {
+        for(float[] channelResults: channelResultsList)
+        {
+            if(mAccumulator == null || mAccumulator.length != channelResults.length)
+            {
+                mAccumulator = new float[channelResults.length];
+                mAveragePower = null;
+                mSampleCount = 0;
+            }
+
+            accumulate(channelResults);
+        }
+
+        mSampleCount += channelResultsList.size();
+
+        if(mLastPublish == 0)
+        {
+            mLastPublish = timestamp;
+        }
+        else if(timestamp - mLastPublish >= mPublishInterval && mSampleCount > 0)
+        {
+            publish(timestamp);
+            mLastPublish = timestamp;
+        }
+    }
+
+    /**
+     * Adds the squared sample values to the energy accumulator
+     */
+    private void accumulate(float[] samples)
+    {
+        int bound = VECTOR_SPECIES.loopBound(samples.length);
+        int x = 0;
+
+        for(; x < bound; x += VECTOR_SPECIES.length())
+        {
+            FloatVector sample = FloatVector.fromArray(VECTOR_SPECIES, samples, x);
+            sample.fma(sample, FloatVector.fromArray(VECTOR_SPECIES, mAccumulator, x)).intoArray(mAccumulator, x);
+        }
+
+        for(; x < samples.length; x++)
+        {
+            mAccumulator[x] += samples[x] * samples[x];
+        }
+    }
+
+    /**
+     * Converts the accumulated energy to smoothed average power per channel and publishes a snapshot.
+     */
+    private void publish(long timestamp)
+    {
+        int channelCount = mAccumulator.length / 2;
+
+        if(channelCount != mChannelCalculator.getChannelCount())
+        {
+            //Channelizer and channel calculator are being reconfigured for a new sample rate
+            resetAccumulator();
+            return;
+        }
+
+        updateFrequencies(channelCount);
+
+        if(mAveragePower == null)
+        {
+            mAveragePower = new float[channelCount];
+
+            for(int x = 0; x < channelCount; x++)
+            {
+                mAveragePower[x] = (mAccumulator[2 * x] + mAccumulator[2 * x + 1]) / mSampleCount;
+            }
+        }
+        else
+        {
+            for(int x = 0; x < channelCount; x++)
+            {
+                float power = (mAccumulator[2 * x] + mAccumulator[2 * x + 1]) / mSampleCount;
+                mAveragePower[x] += SMOOTHING * (power - mAveragePower[x]);
+            }
+        }
+
+        resetAccumulator();
+
+        float[] powerDb = new float[channelCount];
+
+        for(int x = 0; x < channelCount; x++)
+        {
+            powerDb[x] = (float)(10.0 * Math.log10(Math.max(mAveragePower[mFrequencyOrder[x]], MINIMUM_POWER)));
+        }
+
+        float[] sorted = Arrays.copyOf(powerDb, channelCount);
+        Arrays.sort(sorted);
+        float noiseFloor = sorted[channelCount / 2];
+        boolean[] active = new boolean[channelCount];
+
+        for(int x = 0; x < channelCount; x++)
+        {
+            active[x] = powerDb[x] - noiseFloor >= ACTIVITY_THRESHOLD_DB;
+        }
+
+        ChannelOccupancy occupancy = new ChannelOccupancy(timestamp, mChannelCalculator.getChannelBandwidth(),
+            mFrequencies, powerDb, active, noiseFloor);
+        mLatest = occupancy;
+        mBroadcaster.broadcast(occupancy);
+    }
+
+    /**
+     * Clears the energy accumulator for the next interval
+     */
+    private void resetAccumulator()
+    {
+        Arrays.fill(mAccumulator, 0.0f);
+        mSampleCount = 0;
+    }
+
+    /**
+     * Updates the channel frequencies and the channel index order (sorted by frequency) when the tuner center
+     * frequency or the channel count changes.
+     */
+    private void updateFrequencies(int channelCount)
+    {
+        if(mFrequencies != null && mFrequencies.length == channelCount &&
+            mIndexCenterFrequency == mChannelCalculator.getCenterFrequency())
+        {
+            return;
+        }
+
+        mIndexCenterFrequency = mChannelCalculator.getCenterFrequency();
+        Integer[] order = new Integer[channelCount];
+        long[] indexFrequencies = new long[channelCount];
+
+        for(int x = 0; x < channelCount; x++)
+        {
+            order[x] = x;
+            indexFrequencies[x] = (long)mChannelCalculator.getIndexCenterFrequency(x,
+                ChannelCalculator.IndexBoundaryPolicy.ADJUST_NEGATIVE);
+        }
+
+        Arrays.sort(order, (a, b) -> Long.compare(indexFrequencies[a], indexFrequencies[b]));
+        mFrequencyOrder = new int[channelCount];
+        long[] frequencies = new long[channelCount];
+
+        for(int x = 0; x < channelCount; x++)
+        {
+            mFrequencyOrder[x] = order[x];
+            frequencies[x] = indexFrequencies[order[x]];
+        }
+
+        mFrequencies = frequencies;
+    }
+}
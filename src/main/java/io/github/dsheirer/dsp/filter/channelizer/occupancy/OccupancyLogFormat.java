@@ -0,0 +1,53 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.dsp.filter.channelizer.occupancy;
+
+/**
+ * File format for channel occupancy logs
+ */
+public enum OccupancyLogFormat
+{
+    NONE("None", null),
+    CSV("CSV", ".csv"),
+    JSON("JSON Lines", ".json");
+
+    private String mLabel;
+    private String mExtension;
+
+    OccupancyLogFormat(String label, String extension)
+    {
+        mLabel = label;
+        mExtension = extension;
+    }
+
+    /**
+     * File extension for the format, or null for NONE
+     */
+    public String getExtension()
+    {
+        return mExtension;
+    }
+
+    @Override
+    public String toString()
+    {
+        return mLabel;
+    }
+}
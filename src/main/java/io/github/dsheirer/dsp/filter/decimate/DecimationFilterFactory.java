@@ -19,6 +19,8 @@
 
 package io.github.dsheirer.dsp.filter.decimate;
 
+import io.github.dsheirer.dsp.filter.FilterFactory;
+import io.github.dsheirer.dsp.window.WindowType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -70,6 +72,44 @@ public class DecimationFilterFactory
         }
     }
 
+    /**
+     * Half-band filter coefficients for the first (highest sample rate) stage of the real-valued decimation filter
+     * for the decimation rate.  The first stage followed by a real decimation filter for half of the decimation rate
+     * is equivalent to the real decimation filter for the full decimation rate, which allows the first stage to be
+     * implemented separately (e.g. fused with a mixer).
+     *
+     * Note: the filter lengths and window types must match the outermost stage of each RealDecimateXnFilter class.
+     *
+     * @param decimationRate requested @see SUPPORTED_RATES
+     * @return half-band filter coefficients, or null if the decimation rate is 0 or 1 (no decimation)
+     */
+    public static float[] getFirstStageCoefficients(int decimationRate)
+    {
+        switch(decimationRate)
+        {
+            case 0:
+            case 1:
+                return null;
+            case 2:
+                return FilterFactory.getHalfBand(63, WindowType.HAMMING);
+            case 4:
+                return FilterFactory.getHalfBand(23, WindowType.BLACKMAN);
+            case 8:
+            case 16:
+                return FilterFactory.getHalfBand(15, WindowType.BLACKMAN);
+            case 32:
+            case 64:
+            case 128:
+            case 256:
+            case 512:
+            case 1024:
+                return FilterFactory.getHalfBand(11, WindowType.BLACKMAN);
+            default:
+                throw new IllegalArgumentException("Unsupported decimation rate: " + decimationRate +
+                        ".  Supported decimation rates are:" + SUPPORTED_RATES);
+        }
+    }
+
     /**
      * Finds the greatest factor of 2 decimation rate that is less than the requested rate.
      * @param requestedRate for decimation
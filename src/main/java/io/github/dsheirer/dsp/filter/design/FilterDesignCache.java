@@ -0,0 +1,340 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.dsp.filter.design;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process-wide cache of filter designs keyed by the complete design specification.  Iterative designs like Remez and
+ * the band-edge optimized windowed-sinc channelizer filters are expensive and are otherwise redesigned each time a
+ * channel starts, so the cache avoids repeating the design for a specification that has already been designed.
+ *
+ * When a storage directory is configured, each design is also persisted to disk so that designs survive application
+ * restarts, and preload() loads the persisted designs into memory, so that the designs used by the configured
+ * channels are ready before the channels start.
+ *
+ * Cached coefficient arrays are never exposed directly - callers receive a copy.
+ */
+public class FilterDesignCache
+{
+    private final static Logger mLog = LoggerFactory.getLogger(FilterDesignCache.class);
+    private static final FilterDesignCache INSTANCE = new FilterDesignCache();
+    private static final int FILE_MAGIC = 0x46494C54; //FILT
+    private static final int FILE_VERSION = 1;
+    private static final String FILE_EXTENSION = ".filter";
+    private final Map<String,float[]> mDesigns = new ConcurrentHashMap<>();
+    private final AtomicLong mHits = new AtomicLong();
+    private final AtomicLong mMisses = new AtomicLong();
+    private volatile Path mStorageDirectory;
+
+    /**
+     * Filter designer that produces the coefficients on a cache miss.
+     */
+    @FunctionalInterface
+    public interface Designer
+    {
+        /**
+         * Designs the filter
+         * @return filter coefficients or null if the design is not valid
+         * @throws FilterDesignException if the filter can't be designed
+         */
+        float[] design() throws FilterDesignException;
+    }
+
+    private FilterDesignCache()
+    {
+    }
+
+    /**
+     * Singleton instance of the filter design cache
+     */
+    public static FilterDesignCache getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Sets the directory for persisting filter designs.  Designs are cached in memory only when the directory is null.
+     * @param directory for filter design files, or null
+     */
+    public void setStorageDirectory(Path directory)
+    {
+        mStorageDirectory = directory;
+    }
+
+    /**
+     * Gets the cached filter design for the key, or designs, caches and persists the filter on a cache miss.  Designs
+     * that return null are not cached.
+     *
+     * @param key that uniquely identifies the complete filter specification
+     * @param designer to design the filter on a cache miss
+     * @return copy of the filter coefficients, or null if the designer returned null
+     * @throws FilterDesignException if the designer fails
+     */
+    public float[] get(String key, Designer designer) throws FilterDesignException
+    {
+        float[] coefficients = mDesigns.get(key);
+
+        if(coefficients == null)
+        {
+            coefficients = load(key);
+
+            if(coefficients == null)
+            {
+                mMisses.incrementAndGet();
+                coefficients = designer.design();
+
+                if(coefficients == null)
+                {
+                    return null;
+                }
+
+                store(key, coefficients);
+            }
+            else
+            {
+                mHits.incrementAndGet();
+            }
+
+            mDesigns.put(key, coefficients);
+        }
+        else
+        {
+            mHits.incrementAndGet();
+        }
+
+        return coefficients.clone();
+    }
+
+    /**
+     * Loads all persisted filter designs from the storage directory into memory.  This is intended to be invoked
+     * once at startup from a background thread.
+     * @return number of designs loaded
+     */
+    public int preload()
+    {
+        Path directory = mStorageDirectory;
+        int count = 0;
+
+        if(directory != null && Files.isDirectory(directory))
+        {
+            try(DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + FILE_EXTENSION))
+            {
+                for(Path path: stream)
+                {
+                    try(DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path))))
+                    {
+                        String key = readHeader(input);
+
+                        if(key != null && !mDesigns.containsKey(key))
+                        {
+                            mDesigns.put(key, readCoefficients(input));
+                            count++;
+                        }
+                    }
+                    catch(IOException ioe)
+                    {
+                        mLog.warn("Ignoring unreadable filter design file [" + path + "]");
+                    }
+                }
+            }
+            catch(IOException ioe)
+            {
+                mLog.error("Error preloading filter designs from [" + directory + "]", ioe);
+            }
+
+            mLog.info("Preloaded [" + count + "] filter designs from [" + directory + "]");
+        }
+
+        return count;
+    }
+
+    /**
+     * Number of designs cached in memory
+     */
+    public int size()
+    {
+        return mDesigns.size();
+    }
+
+    /**
+     * Count of requests that were served from memory or disk
+     */
+    public long getHitCount()
+    {
+        return mHits.get();
+    }
+
+    /**
+     * Count of requests that required a new filter design
+     */
+    public long getMissCount()
+    {
+        return mMisses.get();
+    }
+
+    /**
+     * Clears the in-memory cache.  Persisted designs are retained.
+     */
+    public void clear()
+    {
+        mDesigns.clear();
+    }
+
+    /**
+     * Loads the persisted design for the key
+     * @return coefficients or null if the design isn't persisted or can't be read
+     */
+    private float[] load(String key)
+    {
+        Path path = getPath(key);
+
+        if(path != null && Files.exists(path))
+        {
+            try(DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path))))
+            {
+                if(key.equals(readHeader(input)))
+                {
+                    return readCoefficients(input);
+                }
+            }
+            catch(IOException ioe)
+            {
+                mLog.warn("Unable to read filter design file [" + path + "] - filter will be redesigned");
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Persists the design.  The file is written to a temporary file first and then moved into place so that a
+     * concurrent reader never sees a partial file.
+     */
+    private void store(String key, float[] coefficients)
+    {
+        Path path = getPath(key);
+
+        if(path != null)
+        {
+            Path temporary = path.resolveSibling(path.getFileName() + "." + Thread.currentThread().threadId() + ".tmp");
+
+            try
+            {
+                Files.createDirectories(path.getParent());
+
+                try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary))))
+                {
+                    output.writeInt(FILE_MAGIC);
+                    output.writeInt(FILE_VERSION);
+                    output.writeUTF(key);
+                    output.writeInt(coefficients.length);
+
+                    for(float coefficient: coefficients)
+                    {
+                        output.writeFloat(coefficient);
+                    }
+                }
+
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch(IOException ioe)
+            {
+                mLog.warn("Unable to persist filter design to [" + path + "]", ioe);
+
+                try
+                {
+                    Files.deleteIfExists(temporary);
+                }
+                catch(IOException ioe2)
+                {
+                    //Ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads and validates the file header
+     * @return design key or null if the header is not valid
+     */
+    private static String readHeader(DataInputStream input) throws IOException
+    {
+        if(input.readInt() != FILE_MAGIC || input.readInt() != FILE_VERSION)
+        {
+            return null;
+        }
+
+        return input.readUTF();
+    }
+
+    private static float[] readCoefficients(DataInputStream input) throws IOException
+    {
+        float[] coefficients = new float[input.readInt()];
+
+        for(int x = 0; x < coefficients.length; x++)
+        {
+            coefficients[x] = input.readFloat();
+        }
+
+        return coefficients;
+    }
+
+    /**
+     * File path for the design key, using a hash of the key as the file name.
+     * @return path or null if there is no storage directory
+     */
+    private Path getPath(String key)
+    {
+        Path directory = mStorageDirectory;
+
+        if(directory == null)
+        {
+            return null;
+        }
+
+        try
+        {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(hash, 0, 16) + FILE_EXTENSION);
+        }
+        catch(NoSuchAlgorithmException nsae)
+        {
+            return null;
+        }
+    }
+}
@@ -61,6 +61,24 @@ public class FIRFilterSpecification
         return sb.toString();
     }
 
+    /**
+     * Key that uniquely identifies this complete specification, for caching filter designs.
+     */
+    public String getCacheKey()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(mRemezFilterType.name()).append(",").append(mOrder).append(",").append(mGridDensity);
+
+        for(FrequencyBand band : mFrequencyBands)
+        {
+            sb.append("|").append(band.getStart()).append(",").append(band.getEnd()).append(",")
+                .append(band.getAmplitude()).append(",").append(band.getRippleDB()).append(",")
+                .append(band.mWeight);
+        }
+
+        return sb.toString();
+    }
+
     public void addFrequencyBand(FrequencyBand band)
     {
         mFrequencyBands.add(band);
@@ -23,7 +23,6 @@ import io.github.dsheirer.dsp.filter.FilterFactory;
 import io.github.dsheirer.dsp.filter.design.FilterDesignException;
 import io.github.dsheirer.dsp.filter.fir.FIRFilterSpecification;
 import io.github.dsheirer.dsp.filter.fir.real.IRealFilter;
-import io.github.dsheirer.dsp.filter.fir.remez.RemezFIRFilterDesigner;
 import io.github.dsheirer.sample.Listener;
 import java.util.Arrays;
 import org.slf4j.Logger;
@@ -77,12 +76,7 @@ public class LTRDecoder implements Listener<float[]>
 
         try
         {
-            RemezFIRFilterDesigner designer = new RemezFIRFilterDesigner(specification);
-
-            if(designer.isValid())
-            {
-                sLowPassFilterCoefficients = designer.getImpulseResponse();
-            }
+            sLowPassFilterCoefficients = FilterFactory.getTaps(specification);
         }
         catch(FilterDesignException fde)
         {
@@ -0,0 +1,236 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.dsp.mixer;
+
+import io.github.dsheirer.sample.complex.ComplexSamples;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Fused complex mixer and half-band decimation filter.  This is the first (full sample rate) stage of a digital down
+ * converter: samples are mixed with a complex oscillator and written directly into the half-band filter's delay line,
+ * so the full rate mixed samples are never allocated as separate arrays.
+ *
+ * The oscillator runs in SIMD lanes, where each lane is rotated by the lane count times the phase increment per
+ * vector step.  The lanes are re-derived from a double precision phase accumulator at the start of every block of
+ * samples so that single precision rotation error can't accumulate.
+ *
+ * Note: the frequency can be changed from any thread, but process() must only be invoked by one thread at a time.
+ */
+public class MixingHalfBandDecimator
+{
+    private static final VectorSpecies<Float> VECTOR_SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final double TWO_PI = Math.PI * 2.0;
+    private static final float CENTER_COEFFICIENT = 0.5f;
+    private static final int BLOCK_SIZE = 1024;
+
+    private final float[] mCoefficients;
+    private final int mBufferOverlap;
+    private final double mSampleRate;
+    private final float[] mLaneI = new float[VECTOR_SPECIES.length()];
+    private final float[] mLaneQ = new float[VECTOR_SPECIES.length()];
+    private float[] mIBuffer;
+    private float[] mQBuffer;
+    private volatile double mFrequency;
+    private double mAnglePerSample;
+    private double mPhase;
+
+    /**
+     * Constructs an instance
+     * @param frequency of the mixing oscillator in hertz
+     * @param sampleRate of the incoming samples in hertz
+     * @param coefficients for the half-band decimation filter, or null to mix without decimation.  Coefficients
+     * must be odd-length and symmetrical with zero-valued odd index coefficients except for the 0.5 center coefficient.
+     */
+    public MixingHalfBandDecimator(double frequency, double sampleRate, float[] coefficients)
+    {
+        if(coefficients != null && (coefficients.length + 1) % 4 != 0)
+        {
+            throw new IllegalArgumentException("Half-band filter coefficients must be odd-length and symmetrical (length = [x * 4 + 1]");
+        }
+
+        mCoefficients = coefficients;
+        mBufferOverlap = coefficients != null ? coefficients.length - 1 : 0;
+        mSampleRate = sampleRate;
+        setFrequency(frequency);
+    }
+
+    /**
+     * Sets the oscillator frequency.  The change is applied at the start of the next process() call.
+     * @param frequency in hertz
+     */
+    public void setFrequency(double frequency)
+    {
+        mFrequency = frequency;
+    }
+
+    /**
+     * Current oscillator frequency
+     * @return frequency in hertz
+     */
+    public double getFrequency()
+    {
+        return mFrequency;
+    }
+
+    /**
+     * Decimation rate of this stage
+     * @return 2, or 1 when there is no decimation filter
+     */
+    public int getDecimation()
+    {
+        return mCoefficients != null ? 2 : 1;
+    }
+
+    /**
+     * Mixes and decimates the samples.
+     * @param i samples
+     * @param q samples
+     * @param timestamp of the first sample
+     * @return mixed and decimated samples
+     */
+    public ComplexSamples process(float[] i, float[] q, long timestamp)
+    {
+        mAnglePerSample = TWO_PI * mFrequency / mSampleRate;
+
+        if(mCoefficients == null)
+        {
+            float[] iMixed = new float[i.length];
+            float[] qMixed = new float[q.length];
+            mix(i, q, iMixed, qMixed, 0);
+            return new ComplexSamples(iMixed, qMixed, timestamp);
+        }
+
+        if(i.length % 2 != 0)
+        {
+            throw new IllegalArgumentException("Samples array length must be an integer multiple of 2");
+        }
+
+        mIBuffer = prepare(mIBuffer, i.length);
+        mQBuffer = prepare(mQBuffer, i.length);
+        mix(i, q, mIBuffer, mQBuffer, mBufferOverlap);
+        return new ComplexSamples(filter(mIBuffer, i.length), filter(mQBuffer, i.length), timestamp);
+    }
+
+    /**
+     * Mixes the samples with the oscillator and stores the results in the output arrays.
+     */
+    private void mix(float[] i, float[] q, float[] iOutput, float[] qOutput, int outputOffset)
+    {
+        int lanes = VECTOR_SPECIES.length();
+        double stepAngle = mAnglePerSample * lanes;
+        FloatVector stepCos = FloatVector.broadcast(VECTOR_SPECIES, (float)Math.cos(stepAngle));
+        FloatVector stepSin = FloatVector.broadcast(VECTOR_SPECIES, (float)Math.sin(stepAngle));
+
+        int vectorBound = VECTOR_SPECIES.loopBound(i.length);
+        int x = 0;
+
+        while(x < vectorBound)
+        {
+            //Re-derive the oscillator lanes from the precise phase at the start of each block
+            for(int lane = 0; lane < lanes; lane++)
+            {
+                double angle = mPhase + (x + lane) * mAnglePerSample;
+                mLaneI[lane] = (float)Math.cos(angle);
+                mLaneQ[lane] = (float)Math.sin(angle);
+            }
+
+            FloatVector oscI = FloatVector.fromArray(VECTOR_SPECIES, mLaneI, 0);
+            FloatVector oscQ = FloatVector.fromArray(VECTOR_SPECIES, mLaneQ, 0);
+            int blockEnd = Math.min(vectorBound, x + BLOCK_SIZE);
+
+            for(; x < blockEnd; x += lanes)
+            {
+                FloatVector sampleI = FloatVector.fromArray(VECTOR_SPECIES, i, x);
+                FloatVector sampleQ = FloatVector.fromArray(VECTOR_SPECIES, q, x);
+                oscI.mul(sampleI).sub(oscQ.mul(sampleQ)).intoArray(iOutput, outputOffset + x);
+                oscQ.mul(sampleI).add(oscI.mul(sampleQ)).intoArray(qOutput, outputOffset + x);
+
+                FloatVector rotatedI = oscI.mul(stepCos).sub(oscQ.mul(stepSin));
+                oscQ = oscI.mul(stepSin).add(oscQ.mul(stepCos));
+                oscI = rotatedI;
+            }
+        }
+
+        for(; x < i.length; x++)
+        {
+            double angle = mPhase + x * mAnglePerSample;
+            float cos = (float)Math.cos(angle);
+            float sin = (float)Math.sin(angle);
+            iOutput[outputOffset + x] = cos * i[x] - sin * q[x];
+            qOutput[outputOffset + x] = sin * i[x] + cos * q[x];
+        }
+
+        mPhase = (mPhase + i.length * mAnglePerSample) % TWO_PI;
+    }
+
+    /**
+     * Prepares the filter delay line buffer by moving the residual samples from the previous call to the beginning of
+     * the buffer, resizing the buffer as needed.
+     */
+    private float[] prepare(float[] buffer, int sampleCount)
+    {
+        int bufferLength = sampleCount + mBufferOverlap;
+
+        if(buffer == null)
+        {
+            return new float[bufferLength];
+        }
+
+        if(buffer.length != bufferLength)
+        {
+            float[] resized = new float[bufferLength];
+            System.arraycopy(buffer, buffer.length - mBufferOverlap, resized, 0, mBufferOverlap);
+            return resized;
+        }
+
+        System.arraycopy(buffer, sampleCount, buffer, 0, mBufferOverlap);
+        return buffer;
+    }
+
+    /**
+     * Half-band decimation filter applied over the delay line buffer.
+     */
+    private float[] filter(float[] buffer, int sampleCount)
+    {
+        float[] filtered = new float[sampleCount / 2];
+        int half = mBufferOverlap / 2;
+        float accumulator;
+
+        for(int bufferPointer = 0; bufferPointer < sampleCount; bufferPointer += 2)
+        {
+            accumulator = 0.0f;
+
+            for(int coefficientPointer = 0; coefficientPointer < half; coefficientPointer += 2)
+            {
+                //Half band filter coefficients are mirrored, so we add the mirrored samples and then multiply by
+                //one of the coefficients to achieve the same effect.
+                accumulator += mCoefficients[coefficientPointer] *
+                        (buffer[bufferPointer + coefficientPointer] +
+                                buffer[bufferPointer + (mBufferOverlap - coefficientPointer)]);
+            }
+
+            accumulator += buffer[bufferPointer + half] * CENTER_COEFFICIENT;
+            filtered[bufferPointer / 2] = accumulator;
+        }
+
+        return filtered;
+    }
+}
@@ -31,6 +31,7 @@ import io.github.dsheirer.controller.channel.Channel;
 import io.github.dsheirer.controller.channel.ChannelAutoStartFrame;
 import io.github.dsheirer.controller.channel.ChannelException;
 import io.github.dsheirer.controller.channel.ChannelSelectionManager;
+import io.github.dsheirer.dsp.filter.design.FilterDesignCache;
 import io.github.dsheirer.eventbus.MyEventBus;
 import io.github.dsheirer.gui.icon.ViewIconManagerRequest;
 import io.github.dsheirer.gui.playlist.ViewPlaylistRequest;
@@ -60,6 +61,7 @@ import io.github.dsheirer.source.tuner.ui.TunerSpectralDisplayManager;
 import io.github.dsheirer.spectrum.DisableSpectrumWaterfallMenuItem;
 import io.github.dsheirer.spectrum.ShowTunerMenuItem;
 import io.github.dsheirer.spectrum.SpectralDisplayPanel;
+import io.github.dsheirer.spectrum.remote.SpectrumService;
 import io.github.dsheirer.util.ThreadPool;
 import io.github.dsheirer.util.TimeStamp;
 import io.github.dsheirer.vector.calibrate.CalibrationManager;
@@ -119,6 +121,7 @@ public class SDRTrunk implements Listener<TunerEvent>
     private static final String CONTROLLER_PANEL_IDENTIFIER = BASE_WINDOW_NAME + ".control.panel";
     private static final String SPECTRAL_PANEL_IDENTIFIER = BASE_WINDOW_NAME + ".spectral.panel";
     private static final String WINDOW_FRAME_IDENTIFIER = BASE_WINDOW_NAME + ".frame";
+    private static final String FILTER_DESIGN_FOLDER = "filters";
 
     private boolean mBroadcastStatusVisible;
     private boolean mResourceStatusVisible;
@@ -130,6 +133,7 @@ public class SDRTrunk implements Listener<TunerEvent>
     private DiagnosticMonitor mDiagnosticMonitor;
     private IconModel mIconModel = new IconModel();
     private PlaylistManager mPlaylistManager;
+    private EventLogManager mEventLogManager;
     private SettingsManager mSettingsManager;
     private SpectralDisplayPanel mSpectralPanel;
     private JFrame mMainGui;
@@ -137,6 +141,7 @@ public class SDRTrunk implements Listener<TunerEvent>
     private JavaFxWindowManager mJavaFxWindowManager;
     private UserPreferences mUserPreferences = new UserPreferences();
     private TunerManager mTunerManager;
+    private SpectrumService mSpectrumService;
     private ApplicationLog mApplicationLog;
     private ResourceMonitor mResourceMonitor;
     private JFXPanel mResourceStatusPanel;
@@ -186,6 +191,11 @@ public class SDRTrunk implements Listener<TunerEvent>
         //Log current properties setting
         SystemProperties.getInstance().logCurrentSettings();
 
+        //Persist filter designs across restarts and preload previously designed filters before channels start
+        FilterDesignCache.getInstance().setStorageDirectory(SystemProperties.getInstance()
+            .getApplicationFolder(FILTER_DESIGN_FOLDER));
+        ThreadPool.CACHED.submit(() -> FilterDesignCache.getInstance().preload());
+
         //Register FontAwesome so we can use the fonts in Swing windows
         IconFontSwing.register(FontAwesome.getIconFont());
 
@@ -195,8 +205,8 @@ public class SDRTrunk implements Listener<TunerEvent>
         mSettingsManager = new SettingsManager();
 
         AliasModel aliasModel = new AliasModel();
-        EventLogManager eventLogManager = new EventLogManager(aliasModel, mUserPreferences);
-        mPlaylistManager = new PlaylistManager(mUserPreferences, mTunerManager, aliasModel, eventLogManager, mIconModel);
+        mEventLogManager = new EventLogManager(aliasModel, mUserPreferences);
+        mPlaylistManager = new PlaylistManager(mUserPreferences, mTunerManager, aliasModel, mEventLogManager, mIconModel);
 
         boolean headless = GraphicsEnvironment.isHeadless();
 
@@ -204,6 +214,9 @@ public class SDRTrunk implements Listener<TunerEvent>
                 mTunerManager, headless);
         mDiagnosticMonitor.start();
 
+        //Optional local HTTP spectrum/waterfall service for remote monitoring (primarily when headless)
+        mSpectrumService = SpectrumService.create(mTunerManager.getDiscoveredTunerModel());
+
         if(!headless)
         {
             mJavaFxWindowManager = new JavaFxWindowManager(mUserPreferences, mTunerManager, mPlaylistManager);
@@ -648,11 +661,18 @@ public class SDRTrunk implements Listener<TunerEvent>
         mJavaFxWindowManager.shutdown();
         mLog.info("Stopping channels ...");
         mPlaylistManager.getChannelProcessingManager().shutdown();
+        mEventLogManager.shutdown();
         mAudioRecordingManager.stop();
         mResourceMonitor.stop();
 
         mLog.info("Stopping spectral display ...");
         mSpectralPanel.clearTuner();
+
+        if(mSpectrumService != null)
+        {
+            mSpectrumService.stop();
+        }
+
         mLog.info("Stopping tuners ...");
         mTunerManager.stop();
         mLog.info("Shutdown complete.");
@@ -41,8 +41,6 @@ import io.github.dsheirer.source.tuner.channel.TunerChannelSource;
 import io.github.dsheirer.spectrum.ComplexDftProcessor;
 import io.github.dsheirer.spectrum.FrequencyOverlayPanel;
 import io.github.dsheirer.spectrum.SpectrumPanel;
-import io.github.dsheirer.spectrum.converter.ComplexDecibelConverter;
-import io.github.dsheirer.spectrum.converter.DFTResultsConverter;
 import java.awt.Component;
 import java.awt.EventQueue;
 import java.awt.event.ComponentEvent;
@@ -148,7 +146,7 @@ public class ChannelSpectrumPanel extends JPanel implements Listener<ProcessingC
                     LOGGER.info(sb.toString());
                     LOGGER.info("Output Processor: " + pcs.getStateDescription());
                 }
-                else if(source instanceof HalfBandTunerChannelSource<?> hbtcs)
+                else if(source instanceof HalfBandTunerChannelSource hbtcs)
                 {
                     StringBuilder sb = new StringBuilder();
                     sb.append("Heterodyne Channel - CF:").append(FREQUENCY_FORMAT.format(hbtcs.getFrequency() / 1E6d));
@@ -223,9 +221,7 @@ public class ChannelSpectrumPanel extends JPanel implements Listener<ProcessingC
 //        mSplitPane.setDividerLocation(0.5);
 
         mSampleStreamTapModule.setListener(mComplexDftProcessor);
-        DFTResultsConverter DFTResultsConverter = new ComplexDecibelConverter();
-        mComplexDftProcessor.addConverter(DFTResultsConverter);
-        DFTResultsConverter.addListener(mSpectrumPanel);
+        mComplexDftProcessor.addListener(mSpectrumPanel);
         mSpectrumPanel.clearSpectrum();
     }
 
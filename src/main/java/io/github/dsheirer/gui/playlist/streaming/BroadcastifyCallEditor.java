@@ -19,6 +19,7 @@
 
 package io.github.dsheirer.gui.playlist.streaming;
 
+import io.github.dsheirer.audio.broadcast.BroadcastConfiguration;
 import io.github.dsheirer.audio.broadcast.BroadcastServerType;
 import io.github.dsheirer.audio.broadcast.broadcastify.BroadcastifyCallBroadcaster;
 import io.github.dsheirer.audio.broadcast.broadcastify.BroadcastifyCallConfiguration;
@@ -45,6 +46,7 @@ public class BroadcastifyCallEditor extends AbstractBroadcastEditor<Broadcastify
     private IntegerTextField mSystemIdTextField;
     private Button mTestButton;
     private IntegerTextField mMaxAgeTextField;
+    private IntegerTextField mMaxUploadsTextField;
     private TextField mApiKeyTextField;
     private TextField mHostTextField;
     private GridPane mEditorPane;
@@ -69,6 +71,7 @@ public class BroadcastifyCallEditor extends AbstractBroadcastEditor<Broadcastify
         getApiKeyTextField().setDisable(item == null);
         getHostTextField().setDisable(item == null);
         getMaxAgeTextField().setDisable(item == null);
+        getMaxUploadsTextField().setDisable(item == null);
         getTestEnabledToggleSwitch().setDisable(item == null);
         getTestIntervalTextField().setDisable(item == null);
 
@@ -78,6 +81,7 @@ public class BroadcastifyCallEditor extends AbstractBroadcastEditor<Broadcastify
             getApiKeyTextField().setText(item.getApiKey());
             getHostTextField().setText(item.getHost());
             getMaxAgeTextField().set((int)(item.getMaximumRecordingAge() / 1000));
+            getMaxUploadsTextField().set(item.getMaximumConcurrentUploads());
             getTestEnabledToggleSwitch().setSelected(item.isTestEnabled());
             getTestIntervalTextField().set(item.getTestInterval());
         }
@@ -87,6 +91,7 @@ public class BroadcastifyCallEditor extends AbstractBroadcastEditor<Broadcastify
             getApiKeyTextField().setText(null);
             getHostTextField().setText(null);
             getMaxAgeTextField().set(0);
+            getMaxUploadsTextField().set(0);
             getTestEnabledToggleSwitch().setSelected(false);
             getTestIntervalTextField().set(15);
         }
@@ -109,6 +114,8 @@ public class BroadcastifyCallEditor extends AbstractBroadcastEditor<Broadcastify
             getItem().setHost(getHostTextField().getText());
             getItem().setApiKey(getApiKeyTextField().getText());
             getItem().setMaximumRecordingAge(getMaxAgeTextField().get() * 1000);
+            getItem().setMaximumConcurrentUploads(getMaxUploadsTextField().get() != null ?
+                getMaxUploadsTextField().get() : BroadcastConfiguration.DEFAULT_MAXIMUM_CONCURRENT_UPLOADS);
             getItem().setTestEnabled(getTestEnabledToggleSwitch().isSelected());
             getItem().setTestInterval(getTestIntervalTextField().get());
         }
@@ -188,6 +195,14 @@ public class BroadcastifyCallEditor extends AbstractBroadcastEditor<Broadcastify
             GridPane.setConstraints(getMaxAgeTextField(), 1, row);
             mEditorPane.getChildren().add(getMaxAgeTextField());
 
+            Label maxUploadsLabel = new Label("Max Concurrent Uploads");
+            GridPane.setHalignment(maxUploadsLabel, HPos.RIGHT);
+            GridPane.setConstraints(maxUploadsLabel, 0, ++row);
+            mEditorPane.getChildren().add(maxUploadsLabel);
+
+            GridPane.setConstraints(getMaxUploadsTextField(), 1, row);
+            mEditorPane.getChildren().add(getMaxUploadsTextField());
+
             Label testEnabledLabel = new Label("Send Periodic Keep-Alive");
             GridPane.setHalignment(testEnabledLabel, HPos.RIGHT);
             GridPane.setConstraints(testEnabledLabel, 0, ++row);
@@ -223,6 +238,18 @@ public class BroadcastifyCallEditor extends AbstractBroadcastEditor<Broadcastify
         return mMaxAgeTextField;
     }
 
+    private IntegerTextField getMaxUploadsTextField()
+    {
+        if(mMaxUploadsTextField == null)
+        {
+            mMaxUploadsTextField = new IntegerTextField();
+            mMaxUploadsTextField.setDisable(true);
+            mMaxUploadsTextField.textProperty().addListener(mEditorModificationListener);
+        }
+
+        return mMaxUploadsTextField;
+    }
+
     private TextField getHostTextField()
     {
         if(mHostTextField == null)
@@ -19,6 +19,7 @@
 
 package io.github.dsheirer.gui.playlist.streaming;
 
+import io.github.dsheirer.audio.broadcast.BroadcastConfiguration;
 import io.github.dsheirer.audio.broadcast.BroadcastServerType;
 import io.github.dsheirer.audio.broadcast.rdioscanner.RdioScannerConfiguration;
 import io.github.dsheirer.gui.control.IntegerTextField;
@@ -40,6 +41,7 @@ public class RdioScannerEditor extends AbstractBroadcastEditor<RdioScannerConfig
     private static final String API_PATH = "/api/call-upload";
     private IntegerTextField mSystemIdTextField;
     private IntegerTextField mMaxAgeTextField;
+    private IntegerTextField mMaxUploadsTextField;
     private TextField mApiKeyTextField;
     private TextField mHostTextField;
     private GridPane mEditorPane;
@@ -62,6 +64,7 @@ public class RdioScannerEditor extends AbstractBroadcastEditor<RdioScannerConfig
         getApiKeyTextField().setDisable(item == null);
         getHostTextField().setDisable(item == null);
         getMaxAgeTextField().setDisable(item == null);
+        getMaxUploadsTextField().setDisable(item == null);
 
         if(item != null)
         {
@@ -76,6 +79,7 @@ public class RdioScannerEditor extends AbstractBroadcastEditor<RdioScannerConfig
 
             getHostTextField().setText(url);
             getMaxAgeTextField().set((int)(item.getMaximumRecordingAge() / 1000));
+            getMaxUploadsTextField().set(item.getMaximumConcurrentUploads());
         }
         else
         {
@@ -83,6 +87,7 @@ public class RdioScannerEditor extends AbstractBroadcastEditor<RdioScannerConfig
             getApiKeyTextField().setText(null);
             getHostTextField().setText(null);
             getMaxAgeTextField().set(0);
+            getMaxUploadsTextField().set(0);
         }
 
         modifiedProperty().set(false);
@@ -109,6 +114,8 @@ public class RdioScannerEditor extends AbstractBroadcastEditor<RdioScannerConfig
             }
             getItem().setApiKey(getApiKeyTextField().getText());
             getItem().setMaximumRecordingAge(getMaxAgeTextField().get() * 1000);
+            getItem().setMaximumConcurrentUploads(getMaxUploadsTextField().get() != null ?
+                getMaxUploadsTextField().get() : BroadcastConfiguration.DEFAULT_MAXIMUM_CONCURRENT_UPLOADS);
         }
 
         super.save();
@@ -191,6 +198,14 @@ public class RdioScannerEditor extends AbstractBroadcastEditor<RdioScannerConfig
             GridPane.setConstraints(getMaxAgeTextField(), 1, row);
             mEditorPane.getChildren().add(getMaxAgeTextField());
 
+            Label maxUploadsLabel = new Label("Max Concurrent Uploads");
+            GridPane.setHalignment(maxUploadsLabel, HPos.RIGHT);
+            GridPane.setConstraints(maxUploadsLabel, 0, ++row);
+            mEditorPane.getChildren().add(maxUploadsLabel);
+
+            GridPane.setConstraints(getMaxUploadsTextField(), 1, row);
+            mEditorPane.getChildren().add(getMaxUploadsTextField());
+
         }
 
         return mEditorPane;
@@ -208,6 +223,18 @@ public class RdioScannerEditor extends AbstractBroadcastEditor<RdioScannerConfig
         return mMaxAgeTextField;
     }
 
+    private IntegerTextField getMaxUploadsTextField()
+    {
+        if(mMaxUploadsTextField == null)
+        {
+            mMaxUploadsTextField = new IntegerTextField();
+            mMaxUploadsTextField.setDisable(true);
+            mMaxUploadsTextField.textProperty().addListener(mEditorModificationListener);
+        }
+
+        return mMaxUploadsTextField;
+    }
+
     private TextField getHostTextField()
     {
         if(mHostTextField == null)
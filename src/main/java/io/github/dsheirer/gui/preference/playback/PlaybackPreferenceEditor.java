@@ -35,6 +35,7 @@ import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.Separator;
+import javafx.scene.control.Spinner;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
@@ -68,6 +69,8 @@ public class PlaybackPreferenceEditor extends HBox
     private ComboBox<ToneVolume> mStartToneVolumeComboBox;
     private ComboBox<ToneFrequency> mDropToneFrequencyComboBox;
     private ComboBox<ToneVolume> mDropToneVolumeComboBox;
+    private Spinner<Integer> mOutputLatencySpinner;
+    private Spinner<Integer> mMaximumMixedSegmentsSpinner;
 
     public PlaybackPreferenceEditor(UserPreferences userPreferences)
     {
@@ -117,11 +120,47 @@ public class PlaybackPreferenceEditor extends HBox
             mEditorPane.add(dropVolumeLabel, 3, row);
             mEditorPane.add(getDropToneVolumeComboBox(), 4, row);
             mEditorPane.add(getTestDropToneButton(), 5, row);
+
+            mEditorPane.add(new Separator(Orientation.HORIZONTAL), 0, ++row, 6, 1);
+            mEditorPane.add(new Label("Audio Mixing"), 0, ++row, 2, 1);
+            Label latencyLabel = new Label("Output Latency (ms):");
+            GridPane.setHalignment(latencyLabel, HPos.RIGHT);
+            mEditorPane.add(latencyLabel, 0, ++row, 2, 1);
+            mEditorPane.add(getOutputLatencySpinner(), 2, row);
+            Label mixedLabel = new Label("Simultaneous Calls:");
+            GridPane.setHalignment(mixedLabel, HPos.RIGHT);
+            mEditorPane.add(mixedLabel, 3, row);
+            mEditorPane.add(getMaximumMixedSegmentsSpinner(), 4, row);
         }
 
         return mEditorPane;
     }
 
+    private Spinner<Integer> getOutputLatencySpinner()
+    {
+        if(mOutputLatencySpinner == null)
+        {
+            mOutputLatencySpinner = new Spinner<>(PlaybackPreference.MINIMUM_OUTPUT_LATENCY_MS,
+                PlaybackPreference.MAXIMUM_OUTPUT_LATENCY_MS, mPlaybackPreference.getOutputLatency(), 10);
+            mOutputLatencySpinner.valueProperty()
+                .addListener((observable, oldValue, newValue) -> mPlaybackPreference.setOutputLatency(newValue));
+        }
+
+        return mOutputLatencySpinner;
+    }
+
+    private Spinner<Integer> getMaximumMixedSegmentsSpinner()
+    {
+        if(mMaximumMixedSegmentsSpinner == null)
+        {
+            mMaximumMixedSegmentsSpinner = new Spinner<>(1, 8, mPlaybackPreference.getMaximumMixedSegments());
+            mMaximumMixedSegmentsSpinner.valueProperty()
+                .addListener((observable, oldValue, newValue) -> mPlaybackPreference.setMaximumMixedSegments(newValue));
+        }
+
+        return mMaximumMixedSegmentsSpinner;
+    }
+
     private ComboBox<MixerChannelConfiguration> getMixerComboBox()
     {
         if(mMixerComboBox == null)
@@ -21,12 +21,14 @@ package io.github.dsheirer.gui.preference.record;
 
 import io.github.dsheirer.preference.UserPreferences;
 import io.github.dsheirer.preference.record.RecordPreference;
+import io.github.dsheirer.record.BasebandRecordFormat;
 import io.github.dsheirer.record.RecordFormat;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.geometry.Insets;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.Spinner;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
@@ -43,6 +45,10 @@ public class RecordPreferenceEditor extends HBox
     private RecordPreference mRecordPreference;
     private GridPane mEditorPane;
     private ComboBox<RecordFormat> mRecordFormatComboBox;
+    private Spinner<Integer> mEncoderThreadsSpinner;
+    private Spinner<Integer> mWriterThreadsSpinner;
+    private ComboBox<BasebandRecordFormat> mBasebandRecordFormatComboBox;
+    private Spinner<Integer> mBasebandSegmentSizeSpinner;
 
     public RecordPreferenceEditor(UserPreferences userPreferences)
     {
@@ -64,6 +70,20 @@ public class RecordPreferenceEditor extends HBox
             mEditorPane.add(label, 0, 0);
 
             mEditorPane.add(getRecordFormatComboBox(), 1, 0);
+
+            mEditorPane.add(new Label("Encoder Threads:"), 0, 1);
+            mEditorPane.add(getEncoderThreadsSpinner(), 1, 1);
+
+            mEditorPane.add(new Label("Writer Threads:"), 0, 2);
+            mEditorPane.add(getWriterThreadsSpinner(), 1, 2);
+
+            mEditorPane.add(new Label("Thread changes take effect on the next application start"), 0, 3, 2, 1);
+
+            mEditorPane.add(new Label("Tuner Baseband Recording Format:"), 0, 4);
+            mEditorPane.add(getBasebandRecordFormatComboBox(), 1, 4);
+
+            mEditorPane.add(new Label("Native Recording Segment Size (MB):"), 0, 5);
+            mEditorPane.add(getBasebandSegmentSizeSpinner(), 1, 5);
         }
 
         return mEditorPane;
@@ -88,4 +108,54 @@ public class RecordPreferenceEditor extends HBox
 
         return mRecordFormatComboBox;
     }
+
+    private Spinner<Integer> getEncoderThreadsSpinner()
+    {
+        if(mEncoderThreadsSpinner == null)
+        {
+            mEncoderThreadsSpinner = new Spinner<>(1, 16, mRecordPreference.getEncoderThreads());
+            mEncoderThreadsSpinner.valueProperty()
+                .addListener((observable, oldValue, newValue) -> mRecordPreference.setEncoderThreads(newValue));
+        }
+
+        return mEncoderThreadsSpinner;
+    }
+
+    private Spinner<Integer> getWriterThreadsSpinner()
+    {
+        if(mWriterThreadsSpinner == null)
+        {
+            mWriterThreadsSpinner = new Spinner<>(1, 16, mRecordPreference.getWriterThreads());
+            mWriterThreadsSpinner.valueProperty()
+                .addListener((observable, oldValue, newValue) -> mRecordPreference.setWriterThreads(newValue));
+        }
+
+        return mWriterThreadsSpinner;
+    }
+
+    private ComboBox<BasebandRecordFormat> getBasebandRecordFormatComboBox()
+    {
+        if(mBasebandRecordFormatComboBox == null)
+        {
+            mBasebandRecordFormatComboBox = new ComboBox<>();
+            mBasebandRecordFormatComboBox.getItems().addAll(BasebandRecordFormat.values());
+            mBasebandRecordFormatComboBox.getSelectionModel().select(mRecordPreference.getBasebandRecordFormat());
+            mBasebandRecordFormatComboBox.getSelectionModel().selectedItemProperty()
+                .addListener((observable, oldValue, newValue) -> mRecordPreference.setBasebandRecordFormat(newValue));
+        }
+
+        return mBasebandRecordFormatComboBox;
+    }
+
+    private Spinner<Integer> getBasebandSegmentSizeSpinner()
+    {
+        if(mBasebandSegmentSizeSpinner == null)
+        {
+            mBasebandSegmentSizeSpinner = new Spinner<>(64, 16384, mRecordPreference.getBasebandSegmentSize(), 64);
+            mBasebandSegmentSizeSpinner.valueProperty()
+                .addListener((observable, oldValue, newValue) -> mRecordPreference.setBasebandSegmentSize(newValue));
+        }
+
+        return mBasebandSegmentSizeSpinner;
+    }
 }
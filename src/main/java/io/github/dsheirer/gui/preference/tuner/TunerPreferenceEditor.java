@@ -19,9 +19,11 @@
 
 package io.github.dsheirer.gui.preference.tuner;
 
+import io.github.dsheirer.dsp.filter.channelizer.occupancy.OccupancyLogFormat;
 import io.github.dsheirer.preference.UserPreferences;
 import io.github.dsheirer.preference.source.ChannelizerType;
 import io.github.dsheirer.preference.source.TunerPreference;
+import io.github.dsheirer.source.tuner.channel.DigitalDownConverterBank;
 import javafx.geometry.HPos;
 import javafx.geometry.Insets;
 import javafx.geometry.Orientation;
@@ -30,6 +32,9 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.Separator;
+import javafx.scene.control.Spinner;
+import javafx.scene.control.SpinnerValueFactory;
+import javafx.scene.control.Tooltip;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 
@@ -52,6 +57,10 @@ public class TunerPreferenceEditor extends HBox
     private Label mHelpTextPolyphaseLabel;
     private Label mHeterodyneLabel;
     private Label mHelpTextHeterodyneLabel;
+    private Label mHeterodyneThreadsLabel;
+    private Spinner<Integer> mHeterodyneThreadsSpinner;
+    private Label mOccupancyLogLabel;
+    private ChoiceBox<OccupancyLogFormat> mOccupancyLogFormatChoiceBox;
     private ChoiceBox<RspDuoSelectionMode> mRspDuoTunerModeChoiceBox;
     private Label mRspDuoModeLabel;
 
@@ -76,10 +85,16 @@ public class TunerPreferenceEditor extends HBox
             mEditorPane.add(getPolyphaseLabel(), 0, ++row, 2, 1);
             mEditorPane.add(getHelpTextPolyphaseLabel(), 0, ++row, 2, 3);
             row += 3;
+            GridPane.setHalignment(getOccupancyLogLabel(), HPos.RIGHT);
+            mEditorPane.add(getOccupancyLogLabel(), 0, row);
+            mEditorPane.add(getOccupancyLogFormatChoiceBox(), 1, row++);
             mEditorPane.add(new Label(" "), 0, row);
             mEditorPane.add(getHeterodyneLabel(), 0, ++row, 2, 1);
             mEditorPane.add(getHelpTextHeterodyneLabel(), 0, ++row, 2, 3);
             row += 3;
+            GridPane.setHalignment(getHeterodyneThreadsLabel(), HPos.RIGHT);
+            mEditorPane.add(getHeterodyneThreadsLabel(), 0, row);
+            mEditorPane.add(getHeterodyneThreadsSpinner(), 1, row++);
             mEditorPane.add(new Separator(Orientation.HORIZONTAL), 0, row, 2, 1);
             mEditorPane.add(getRspDuoModeLabel(), 0, ++row);
             mEditorPane.add(getRspDuoTunerModeChoiceBox(), 1, row);
@@ -166,6 +181,58 @@ public class TunerPreferenceEditor extends HBox
         return mHelpTextHeterodyneLabel;
     }
 
+    private Label getHeterodyneThreadsLabel()
+    {
+        if(mHeterodyneThreadsLabel == null)
+        {
+            mHeterodyneThreadsLabel = new Label("Heterodyne Threads Per Tuner");
+        }
+
+        return mHeterodyneThreadsLabel;
+    }
+
+    private Spinner<Integer> getHeterodyneThreadsSpinner()
+    {
+        if(mHeterodyneThreadsSpinner == null)
+        {
+            mHeterodyneThreadsSpinner = new Spinner<>(new SpinnerValueFactory.IntegerSpinnerValueFactory(1,
+                    DigitalDownConverterBank.MAXIMUM_THREAD_COUNT, mTunerPreference.getHeterodyneThreads()));
+            mHeterodyneThreadsSpinner.setPrefWidth(80);
+            mHeterodyneThreadsSpinner.valueProperty().addListener((observable, oldValue, newValue) ->
+                    mTunerPreference.setHeterodyneThreads(newValue));
+            mHeterodyneThreadsSpinner.setTooltip(new Tooltip("Number of threads that each tuner uses to down " +
+                    "convert heterodyne channels.  Changes take effect when the application is restarted."));
+        }
+
+        return mHeterodyneThreadsSpinner;
+    }
+
+    private Label getOccupancyLogLabel()
+    {
+        if(mOccupancyLogLabel == null)
+        {
+            mOccupancyLogLabel = new Label("Channel Occupancy Log");
+        }
+
+        return mOccupancyLogLabel;
+    }
+
+    private ChoiceBox<OccupancyLogFormat> getOccupancyLogFormatChoiceBox()
+    {
+        if(mOccupancyLogFormatChoiceBox == null)
+        {
+            mOccupancyLogFormatChoiceBox = new ChoiceBox<>();
+            mOccupancyLogFormatChoiceBox.getItems().addAll(OccupancyLogFormat.values());
+            mOccupancyLogFormatChoiceBox.getSelectionModel().select(mTunerPreference.getOccupancyLogFormat());
+            mOccupancyLogFormatChoiceBox.setOnAction(event -> mTunerPreference
+                    .setOccupancyLogFormat(mOccupancyLogFormatChoiceBox.getSelectionModel().getSelectedItem()));
+            mOccupancyLogFormatChoiceBox.setTooltip(new Tooltip("Logs the activity of all polyphase channels to " +
+                    "the event logs folder.  Changes take effect when the application is restarted."));
+        }
+
+        return mOccupancyLogFormatChoiceBox;
+    }
+
     private ChoiceBox<RspDuoSelectionMode> getRspDuoTunerModeChoiceBox()
     {
         if(mRspDuoTunerModeChoiceBox == null)
@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- * Copyright (C) 2014-2024 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -19,26 +19,34 @@
 
 package io.github.dsheirer.identifier;
 
+import io.github.dsheirer.alias.ResolvedAliases;
 import io.github.dsheirer.identifier.configuration.AliasListConfigurationIdentifier;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.RandomAccess;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * (Immutable) Collection of identifiers with convenient accessor methods
  *
+ * Identifiers are held in an immutable snapshot of identifier and (class, form, role) key arrays.  Accessors scan the
+ * compact key array without allocating, and changes (see the mutable subclass) publish a replacement snapshot.  Since
+ * a snapshot is never modified, copies of a collection share the snapshot instead of copying the identifiers.
+ *
  * @see MutableIdentifierCollection for the mutable version of this class
  */
 public class IdentifierCollection
 {
     private final static Logger mLog = LoggerFactory.getLogger(IdentifierCollection.class);
-    protected List<Identifier> mIdentifiers = new CopyOnWriteArrayList<>();
+    protected volatile Snapshot mIdentifiers = Snapshot.EMPTY;
     protected AliasListConfigurationIdentifier mAliasListConfigurationIdentifier;
     private int mTimeslot = 0;
+    private volatile int mModificationCount;
+    private volatile ResolvedAliases mResolvedAliases;
 
     /**
      * Constructs an empty identifier collection for the specified timeslot
@@ -64,6 +72,26 @@ public class IdentifierCollection
 
     public IdentifierCollection(Collection<Identifier> identifiers, int timeslot)
     {
+        this(timeslot);
+
+        //Share the snapshot from another collection
+        if(identifiers instanceof Snapshot snapshot)
+        {
+            mIdentifiers = snapshot;
+
+            for(Identifier identifier: snapshot.mIdentifiers)
+            {
+                if(identifier instanceof AliasListConfigurationIdentifier aliasList)
+                {
+                    mAliasListConfigurationIdentifier = aliasList;
+                }
+            }
+
+            return;
+        }
+
+        Snapshot snapshot = Snapshot.EMPTY;
+
         for(Identifier identifier: identifiers)
         {
             if(identifier == null)
@@ -71,13 +99,15 @@ public class IdentifierCollection
                 throw new IllegalArgumentException("Identifier cannot be null");
             }
 
-            mIdentifiers.add(identifier);
+            snapshot = snapshot.append(identifier);
 
             if(identifier instanceof AliasListConfigurationIdentifier)
             {
                 mAliasListConfigurationIdentifier = (AliasListConfigurationIdentifier)identifier;
             }
         }
+
+        mIdentifiers = snapshot;
     }
 
     public int getTimeslot()
@@ -90,6 +120,41 @@ public class IdentifierCollection
         mTimeslot = timeslot;
     }
 
+    /**
+     * Count of changes to the identifiers in this collection, used to detect when cached values derived from the
+     * identifiers are out of date.
+     */
+    public int getModificationCount()
+    {
+        return mModificationCount;
+    }
+
+    /**
+     * Signals that the identifiers in this collection have changed.
+     */
+    protected void modified()
+    {
+        mModificationCount++;
+    }
+
+    /**
+     * Cached resolved aliases for this collection.
+     * @see ResolvedAliases#of for accessing the current resolved aliases
+     * @return cached resolved aliases or null
+     */
+    public ResolvedAliases getResolvedAliases()
+    {
+        return mResolvedAliases;
+    }
+
+    /**
+     * Caches the resolved aliases for this collection.
+     */
+    public void setResolvedAliases(ResolvedAliases resolvedAliases)
+    {
+        mResolvedAliases = resolvedAliases;
+    }
+
     /**
      * Alias List configuration identifier containing the name of the alias list for this collection.
      * @return alias list or null
@@ -108,11 +173,12 @@ public class IdentifierCollection
     }
 
     /**
-     * Immutable list of identifiers contained in this collection
+     * Immutable list of identifiers contained in this collection.  The list is a snapshot that doesn't change when
+     * the collection is subsequently updated.
      */
     public List<Identifier> getIdentifiers()
     {
-        return Collections.unmodifiableList(mIdentifiers);
+        return mIdentifiers;
     }
 
     /**
@@ -131,17 +197,7 @@ public class IdentifierCollection
      */
     public List<Identifier> getIdentifiers(IdentifierClass identifierClass)
     {
-        List<Identifier> identifiers = new ArrayList<>();
-
-        for(Identifier identifier : mIdentifiers)
-        {
-            if(identifier.getIdentifierClass() == identifierClass)
-            {
-                identifiers.add(identifier);
-            }
-        }
-
-        return identifiers;
+        return getIdentifiers(Snapshot.CLASS_MASK, Snapshot.key(identifierClass, null, null));
     }
 
     /**
@@ -152,17 +208,7 @@ public class IdentifierCollection
      */
     public List<Identifier> getIdentifiers(Form form)
     {
-        List<Identifier> identifiers = new ArrayList<>();
-
-        for(Identifier identifier : mIdentifiers)
-        {
-            if(identifier.getForm() == form)
-            {
-                identifiers.add(identifier);
-            }
-        }
-
-        return identifiers;
+        return getIdentifiers(Snapshot.FORM_MASK, Snapshot.key(null, form, null));
     }
 
     /**
@@ -173,36 +219,7 @@ public class IdentifierCollection
      */
     public List<Identifier> getIdentifiers(Role role)
     {
-        List<Identifier> identifiers = new ArrayList<>();
-
-        for(Identifier identifier : mIdentifiers)
-        {
-            try
-            {
-                if(identifier.getRole() == role)
-                {
-                    identifiers.add(identifier);
-                }
-            }
-            catch(NullPointerException npe)
-            {
-                StringBuilder sb = new StringBuilder();
-                for(Identifier i : mIdentifiers)
-                {
-                    if(i == null)
-                    {
-                        sb.append("Identifier: (null)").append("\n");
-                    }
-                    else
-                    {
-                        sb.append("Identifier: ").append(i).append(" Class:").append(i.getClass()).append("\n");
-                    }
-                }
-                mLog.warn("An identifier in a collection is somehow null ...\n" + sb);
-            }
-        }
-
-        return identifiers;
+        return getIdentifiers(Snapshot.ROLE_MASK, Snapshot.key(null, null, role));
     }
 
     /**
@@ -214,17 +231,7 @@ public class IdentifierCollection
      */
     public List<Identifier> getIdentifiers(IdentifierClass identifierClass, Role role)
     {
-        List<Identifier> identifiers = new ArrayList<>();
-
-        for(Identifier identifier : mIdentifiers)
-        {
-            if(identifier.getIdentifierClass() == identifierClass && identifier.getRole() == role)
-            {
-                identifiers.add(identifier);
-            }
-        }
-
-        return identifiers;
+        return getIdentifiers(Snapshot.CLASS_MASK | Snapshot.ROLE_MASK, Snapshot.key(identifierClass, null, role));
     }
 
     /**
@@ -236,17 +243,50 @@ public class IdentifierCollection
      */
     public List<Identifier> getIdentifiers(IdentifierClass identifierClass, Form form)
     {
-        List<Identifier> identifiers = new ArrayList<>();
+        return getIdentifiers(Snapshot.CLASS_MASK | Snapshot.FORM_MASK, Snapshot.key(identifierClass, form, null));
+    }
 
-        for(Identifier identifier : mIdentifiers)
+    /**
+     * Identifiers with keys that match the key for the masked fields.  Returns a shared empty list when there are no matches.
+     */
+    private List<Identifier> getIdentifiers(int mask, int key)
+    {
+        Snapshot snapshot = mIdentifiers;
+        List<Identifier> identifiers = null;
+        key &= mask;
+
+        for(int x = 0; x < snapshot.mKeys.length; x++)
         {
-            if(identifier.getIdentifierClass() == identifierClass && identifier.getForm() == form)
+            if((snapshot.mKeys[x] & mask) == key)
             {
-                identifiers.add(identifier);
+                if(identifiers == null)
+                {
+                    identifiers = new ArrayList<>(2);
+                }
+
+                identifiers.add(snapshot.mIdentifiers[x]);
             }
         }
 
-        return identifiers;
+        return identifiers != null ? identifiers : Collections.emptyList();
+    }
+
+    /**
+     * First identifier with a key that matches the key for the masked fields, or null.
+     */
+    private Identifier getFirst(Snapshot snapshot, int mask, int key)
+    {
+        key &= mask;
+
+        for(int x = 0; x < snapshot.mKeys.length; x++)
+        {
+            if((snapshot.mKeys[x] & mask) == key)
+            {
+                return snapshot.mIdentifiers[x];
+            }
+        }
+
+        return null;
     }
 
     /**
@@ -259,17 +299,7 @@ public class IdentifierCollection
      */
     public Identifier getIdentifier(IdentifierClass identifierClass, Form form, Role role)
     {
-        for(Identifier identifier : mIdentifiers)
-        {
-            if(identifier.getIdentifierClass() == identifierClass &&
-                identifier.getForm() == form &&
-                identifier.getRole() == role)
-            {
-                return identifier;
-            }
-        }
-
-        return null;
+        return getFirst(mIdentifiers, Snapshot.ALL_MASK, Snapshot.key(identifierClass, form, role));
     }
 
     /**
@@ -279,20 +309,7 @@ public class IdentifierCollection
      */
     public boolean hasIdentifier(Identifier toCheck)
     {
-        if(toCheck == null)
-        {
-            return false;
-        }
-
-        for(Identifier identifier : mIdentifiers)
-        {
-            if(identifier.equals(toCheck))
-            {
-                return true;
-            }
-        }
-
-        return false;
+        return toCheck != null && mIdentifiers.indexOf(toCheck) >= 0;
     }
 
     /**
@@ -300,28 +317,22 @@ public class IdentifierCollection
      */
     public Identifier getFromIdentifier()
     {
-        Identifier from = getIdentifier(IdentifierClass.USER, Form.RADIO, Role.FROM);
+        Snapshot snapshot = mIdentifiers;
+        Identifier from = getFirst(snapshot, Snapshot.ALL_MASK, Snapshot.key(IdentifierClass.USER, Form.RADIO, Role.FROM));
 
         if(from != null)
         {
             return from;
         }
 
-        List<Identifier> identifiers = getIdentifiers(Form.TELEPHONE_NUMBER);
-
-        if(!identifiers.isEmpty())
-        {
-            return identifiers.get(0);
-        }
-
-        List<Identifier> fromIdentifiers = getIdentifiers(Role.FROM);
+        from = getFirst(snapshot, Snapshot.FORM_MASK, Snapshot.key(null, Form.TELEPHONE_NUMBER, null));
 
-        if(!fromIdentifiers.isEmpty())
+        if(from != null)
         {
-            return fromIdentifiers.get(0);
+            return from;
         }
 
-        return null;
+        return getFirst(snapshot, Snapshot.ROLE_MASK, Snapshot.key(null, null, Role.FROM));
     }
 
     /**
@@ -329,38 +340,42 @@ public class IdentifierCollection
      */
     public Identifier getToIdentifier()
     {
-        Identifier to = getIdentifier(IdentifierClass.USER, Form.PATCH_GROUP, Role.TO);
+        Snapshot snapshot = mIdentifiers;
+        Identifier to = getFirst(snapshot, Snapshot.ALL_MASK, Snapshot.key(IdentifierClass.USER, Form.PATCH_GROUP, Role.TO));
 
         if(to != null)
         {
             return to;
         }
 
-        to = getIdentifier(IdentifierClass.USER, Form.TALKGROUP, Role.TO);
+        to = getFirst(snapshot, Snapshot.ALL_MASK, Snapshot.key(IdentifierClass.USER, Form.TALKGROUP, Role.TO));
 
         if(to != null)
         {
             return to;
         }
 
-        to = getIdentifier(IdentifierClass.USER, Form.RADIO, Role.TO);
+        to = getFirst(snapshot, Snapshot.ALL_MASK, Snapshot.key(IdentifierClass.USER, Form.RADIO, Role.TO));
 
         if(to != null)
         {
             return to;
         }
 
-        List<Identifier> toIdentifiers = getIdentifiers(Role.TO);
+        int toRole = Snapshot.key(null, null, Role.TO) & Snapshot.ROLE_MASK;
+        int encryptionKey = Snapshot.key(null, Form.ENCRYPTION_KEY, null) & Snapshot.FORM_MASK;
 
-        for(Identifier identifier: toIdentifiers)
+        for(int x = 0; x < snapshot.mKeys.length; x++)
         {
-            if(identifier.getForm() != Form.ENCRYPTION_KEY)
+            int key = snapshot.mKeys[x];
+
+            if((key & Snapshot.ROLE_MASK) == toRole && (key & Snapshot.FORM_MASK) != encryptionKey)
             {
-                return identifier;
+                return snapshot.mIdentifiers[x];
             }
         }
 
-        return to;
+        return null;
     }
 
     /**
@@ -387,4 +402,133 @@ public class IdentifierCollection
         }
         return sb.toString();
     }
+
+    /**
+     * Immutable snapshot of identifiers and their packed (class, form, role) keys.  The arrays are never modified
+     * after construction, so a snapshot can be shared by any number of collections and handed off to other threads.
+     * Each change creates a new snapshot with a single copy of the (small) arrays.
+     */
+    protected static final class Snapshot extends AbstractList<Identifier> implements RandomAccess
+    {
+        static final Snapshot EMPTY = new Snapshot(new Identifier[0], new int[0]);
+        static final int CLASS_MASK = 0xFF0000;
+        static final int FORM_MASK = 0x00FF00;
+        static final int ROLE_MASK = 0x0000FF;
+        static final int ALL_MASK = CLASS_MASK | FORM_MASK | ROLE_MASK;
+        private static final int NONE = 0xFF;
+
+        private final Identifier[] mIdentifiers;
+        private final int[] mKeys;
+
+        private Snapshot(Identifier[] identifiers, int[] keys)
+        {
+            mIdentifiers = identifiers;
+            mKeys = keys;
+        }
+
+        /**
+         * Packs the identifier class, form and role ordinals into a key.  Null arguments are packed as a reserved
+         * value that doesn't match any ordinal.
+         */
+        static int key(IdentifierClass identifierClass, Form form, Role role)
+        {
+            return ((identifierClass != null ? identifierClass.ordinal() : NONE) << 16) |
+                ((form != null ? form.ordinal() : NONE) << 8) |
+                (role != null ? role.ordinal() : NONE);
+        }
+
+        private static int key(Identifier identifier)
+        {
+            return key(identifier.getIdentifierClass(), identifier.getForm(), identifier.getRole());
+        }
+
+        /**
+         * New snapshot with the identifier appended
+         */
+        Snapshot append(Identifier identifier)
+        {
+            int length = mIdentifiers.length;
+            Identifier[] identifiers = new Identifier[length + 1];
+            int[] keys = new int[length + 1];
+            System.arraycopy(mIdentifiers, 0, identifiers, 0, length);
+            System.arraycopy(mKeys, 0, keys, 0, length);
+            identifiers[length] = identifier;
+            keys[length] = key(identifier);
+            return new Snapshot(identifiers, keys);
+        }
+
+        /**
+         * New snapshot with the identifier at the index removed
+         */
+        Snapshot removeAt(int index)
+        {
+            int length = mIdentifiers.length;
+
+            if(length == 1)
+            {
+                return EMPTY;
+            }
+
+            Identifier[] identifiers = new Identifier[length - 1];
+            int[] keys = new int[length - 1];
+            System.arraycopy(mIdentifiers, 0, identifiers, 0, index);
+            System.arraycopy(mKeys, 0, keys, 0, index);
+            System.arraycopy(mIdentifiers, index + 1, identifiers, index, length - index - 1);
+            System.arraycopy(mKeys, index + 1, keys, index, length - index - 1);
+            return new Snapshot(identifiers, keys);
+        }
+
+        /**
+         * New snapshot with the identifier at the index removed and the replacement identifier appended, using a
+         * single copy of the arrays.
+         */
+        Snapshot replaceAt(int index, Identifier replacement)
+        {
+            int length = mIdentifiers.length;
+            Identifier[] identifiers = new Identifier[length];
+            int[] keys = new int[length];
+            System.arraycopy(mIdentifiers, 0, identifiers, 0, index);
+            System.arraycopy(mKeys, 0, keys, 0, index);
+            System.arraycopy(mIdentifiers, index + 1, identifiers, index, length - index - 1);
+            System.arraycopy(mKeys, index + 1, keys, index, length - index - 1);
+            identifiers[length - 1] = replacement;
+            keys[length - 1] = key(replacement);
+            return new Snapshot(identifiers, keys);
+        }
+
+        @Override
+        public Identifier get(int index)
+        {
+            return mIdentifiers[index];
+        }
+
+        @Override
+        public int size()
+        {
+            return mIdentifiers.length;
+        }
+
+        @Override
+        public int indexOf(Object object)
+        {
+            if(object instanceof Identifier)
+            {
+                for(int x = 0; x < mIdentifiers.length; x++)
+                {
+                    if(mIdentifiers[x].equals(object))
+                    {
+                        return x;
+                    }
+                }
+            }
+
+            return -1;
+        }
+
+        @Override
+        public boolean contains(Object object)
+        {
+            return indexOf(object) >= 0;
+        }
+    }
 }
@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- * Copyright (C) 2014-2024 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -122,9 +122,8 @@ public class MutableIdentifierCollection extends IdentifierCollection implements
      */
     private void add(Identifier identifier)
     {
-        if(identifier.isValid() && !mIdentifiers.contains(identifier))
+        if(identifier.isValid() && addSnapshot(identifier))
         {
-            mIdentifiers.add(identifier);
             notifyAdd(identifier);
         }
 
@@ -143,9 +142,9 @@ public class MutableIdentifierCollection extends IdentifierCollection implements
      */
     private void silentAdd(Identifier identifier)
     {
-        if(identifier.isValid() && !mIdentifiers.contains(identifier))
+        if(identifier.isValid())
         {
-            mIdentifiers.add(identifier);
+            addSnapshot(identifier);
         }
 
         //Retain a reference to the alias list identifier separately so that it can be accessed quickly.
@@ -155,12 +154,101 @@ public class MutableIdentifierCollection extends IdentifierCollection implements
         }
     }
 
+    /**
+     * Publishes a new snapshot with the identifier appended, if the identifier is not already in the collection.
+     * @return true if the identifier was added
+     */
+    private synchronized boolean addSnapshot(Identifier identifier)
+    {
+        if(mIdentifiers.indexOf(identifier) >= 0)
+        {
+            return false;
+        }
+
+        mIdentifiers = mIdentifiers.append(identifier);
+        modified();
+        return true;
+    }
+
+    /**
+     * Publishes a new snapshot with the identifier removed.
+     * @return true if the identifier was removed
+     */
+    private synchronized boolean removeSnapshot(Identifier identifier)
+    {
+        int index = mIdentifiers.indexOf(identifier);
+
+        if(index < 0)
+        {
+            return false;
+        }
+
+        mIdentifiers = mIdentifiers.removeAt(index);
+        modified();
+        return true;
+    }
+
+    /**
+     * Publishes a new snapshot with the existing identifier removed and the replacement identifier appended, using a
+     * single snapshot copy.  Falls back to a separate remove and add when the existing identifier is no longer in
+     * the collection or the replacement is already in the collection.
+     * @return true if the existing identifier was replaced
+     */
+    private synchronized boolean replaceSnapshot(Identifier existing, Identifier replacement)
+    {
+        int index = mIdentifiers.indexOf(existing);
+
+        if(index < 0 || !replacement.isValid() || mIdentifiers.indexOf(replacement) >= 0)
+        {
+            return false;
+        }
+
+        mIdentifiers = mIdentifiers.replaceAt(index, replacement);
+        modified();
+        return true;
+    }
+
+    /**
+     * Replaces the existing identifier with the replacement identifier and notifies the listener of the removal and
+     * the addition.
+     */
+    private void replace(Identifier existing, Identifier replacement)
+    {
+        if(replaceSnapshot(existing, replacement))
+        {
+            notifyRemove(existing);
+            notifyAdd(replacement);
+            updateAliasListConfiguration(existing, replacement);
+        }
+        else
+        {
+            remove(existing);
+            add(replacement);
+        }
+    }
+
+    /**
+     * Updates the retained alias list identifier reference after a replacement
+     */
+    private void updateAliasListConfiguration(Identifier existing, Identifier replacement)
+    {
+        if(existing instanceof AliasListConfigurationIdentifier)
+        {
+            mAliasListConfigurationIdentifier = null;
+        }
+
+        if(replacement instanceof AliasListConfigurationIdentifier aliasList)
+        {
+            mAliasListConfigurationIdentifier = aliasList;
+        }
+    }
+
     /**
      * Removes the identifier from this collection
      */
     public void remove(Identifier identifier)
     {
-        if(mIdentifiers.remove(identifier))
+        if(removeSnapshot(identifier))
         {
             notifyRemove(identifier);
         }
@@ -177,7 +265,7 @@ public class MutableIdentifierCollection extends IdentifierCollection implements
      */
     public void silentRemove(Identifier identifier)
     {
-        mIdentifiers.remove(identifier);
+        removeSnapshot(identifier);
 
         //Remove the reference to the alias list identifier.
         if(identifier instanceof AliasListConfigurationIdentifier)
@@ -204,8 +292,7 @@ public class MutableIdentifierCollection extends IdentifierCollection implements
             {
                 if(!existing.equals(identifier))
                 {
-                    remove(existing);
-                    add(identifier);
+                    replace(existing, identifier);
                 }
                 //Always replace a radio identifier with a fully qualified variant of itself
                 else if(existing instanceof  RadioIdentifier &&
@@ -241,8 +328,15 @@ public class MutableIdentifierCollection extends IdentifierCollection implements
             {
                 if(!existing.equals(identifier))
                 {
-                    silentRemove(existing);
-                    silentAdd(identifier);
+                    if(replaceSnapshot(existing, identifier))
+                    {
+                        updateAliasListConfiguration(existing, identifier);
+                    }
+                    else
+                    {
+                        silentRemove(existing);
+                        silentAdd(identifier);
+                    }
                 }
             }
             else
@@ -281,7 +375,7 @@ public class MutableIdentifierCollection extends IdentifierCollection implements
      */
     public void remove(IdentifierClass identifierClass)
     {
-        List<Identifier> identifiers = new ArrayList<>(mIdentifiers);
+        List<Identifier> identifiers = mIdentifiers;
 
         for(Identifier identifier: identifiers)
         {
@@ -297,7 +391,7 @@ public class MutableIdentifierCollection extends IdentifierCollection implements
      */
     public void remove(Form form)
     {
-        List<Identifier> identifiers = new ArrayList<>(mIdentifiers);
+        List<Identifier> identifiers = mIdentifiers;
 
         for(Identifier identifier: identifiers)
         {
@@ -313,7 +407,7 @@ public class MutableIdentifierCollection extends IdentifierCollection implements
      */
     public void remove(Role role)
     {
-        List<Identifier> identifiers = new ArrayList<>(mIdentifiers);
+        List<Identifier> identifiers = mIdentifiers;
 
         for(Identifier identifier: identifiers)
         {
@@ -329,7 +423,7 @@ public class MutableIdentifierCollection extends IdentifierCollection implements
      */
     public void remove(IdentifierClass identifierClass, Form form, Role role)
     {
-        List<Identifier> identifiers = new ArrayList<>(mIdentifiers);
+        List<Identifier> identifiers = mIdentifiers;
 
         for(Identifier identifier: identifiers)
         {
@@ -347,7 +441,7 @@ public class MutableIdentifierCollection extends IdentifierCollection implements
      */
     public void remove(IdentifierClass identifierClass, Role role)
     {
-        List<Identifier> identifiers = new ArrayList<>(mIdentifiers);
+        List<Identifier> identifiers = mIdentifiers;
 
         for(Identifier identifier: identifiers)
         {
@@ -385,12 +479,11 @@ public class MutableIdentifierCollection extends IdentifierCollection implements
     }
 
     /**
-     * Creates a copy of this collection and resets the updated flag so that future invocations of this
-     * method will return a copy with the updated flag set to false.
+     * Creates an immutable copy of this collection.  The copy shares this collection's current identifier snapshot,
+     * so no identifiers are copied, and it isn't affected by subsequent changes to this collection.
      */
     public IdentifierCollection copyOf()
     {
-        IdentifierCollection copy = new IdentifierCollection(getIdentifiers(), getTimeslot());
-        return copy;
+        return new IdentifierCollection(getIdentifiers(), getTimeslot());
     }
 }
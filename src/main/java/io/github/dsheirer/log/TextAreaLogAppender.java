@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- * Copyright (C) 2014-2022 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -21,30 +21,58 @@ package io.github.dsheirer.log;
 
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.AppenderBase;
-import javafx.application.Platform;
+import io.github.dsheirer.util.UpdateCoalescer;
+import java.util.List;
 import javafx.scene.control.TextArea;
 
 /**
  * Logback Log Appender that continuously writes to a JavaFX text area
  *
+ * Log messages are coalesced and appended to the text area in batches on the JavaFX application thread.  When
+ * messages arrive faster than they can be displayed, the oldest pending messages are dropped and a marker line with
+ * the number of dropped lines is shown in their place.
+ *
  * Note: this appender doesn't trim/truncate the text in the text area.
  */
 public class TextAreaLogAppender extends AppenderBase<ILoggingEvent>
 {
+    private static final int MAXIMUM_PENDING = 1000;
     private TextArea mTextArea;
+    private UpdateCoalescer<ILoggingEvent> mUpdateCoalescer = UpdateCoalescer.forJavaFx(MAXIMUM_PENDING, this::appendBatch);
 
     public TextAreaLogAppender(TextArea textArea, String name)
     {
         mTextArea = textArea;
         setName(name);
+        mUpdateCoalescer.setDroppedListener(this::appendDropped);
     }
 
     @Override
     protected void append(ILoggingEvent eventObject)
     {
-        Platform.runLater(() ->
+        mUpdateCoalescer.add(eventObject);
+    }
+
+    /**
+     * Appends a marker for log lines that were dropped from the batch that follows
+     */
+    private void appendDropped(int dropped)
+    {
+        mTextArea.appendText("\n... " + dropped + " lines dropped ...");
+    }
+
+    /**
+     * Appends a batch of logging events to the text area
+     */
+    private void appendBatch(List<ILoggingEvent> events)
+    {
+        StringBuilder sb = new StringBuilder();
+
+        for(ILoggingEvent event: events)
         {
-            mTextArea.appendText("\n" + eventObject.getMessage());
-        });
+            sb.append("\n").append(event.getMessage());
+        }
+
+        mTextArea.appendText(sb.toString());
     }
 }
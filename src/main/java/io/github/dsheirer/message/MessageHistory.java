@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- *  Copyright (C) 2014-2020 Dennis Sheirer
+ *  Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -37,7 +37,7 @@ public class MessageHistory extends HistoryModule<IMessage> implements IMessageL
      */
     public MessageHistory(int historySize)
     {
-        super(historySize);
+        super(historySize, IMessage::getTimestamp);
     }
 
     /**
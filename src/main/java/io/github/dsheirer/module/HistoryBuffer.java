@@ -0,0 +1,257 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.module;
+
+import io.github.dsheirer.sample.Listener;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Fixed capacity, thread-safe history of items with de-duplication.
+ *
+ * Items are appended into fixed size chunks and each slot in a chunk is written exactly once.  Eviction of the oldest
+ * item only advances the head of the history, and a chunk is released once all of its items are evicted.  Since a
+ * written slot never changes, a snapshot of the history only has to capture the chunk references and the head and
+ * tail positions, and it can be iterated without copying the items and without holding a lock.
+ *
+ * Items are de-duplicated by identity (e.g. a decode event that is re-broadcast after an update) using a hash set of
+ * the retained items.
+ *
+ * @param <T> type of item
+ */
+public class HistoryBuffer<T>
+{
+    private static final int CHUNK_SIZE = 64;
+    private final ArrayDeque<Object[]> mChunks = new ArrayDeque<>();
+    private final Set<T> mRetained = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final int mCapacity;
+    private Listener<T> mEvictionListener;
+    private long mFirstChunkSequence;
+    private long mHead;
+    private long mTail;
+
+    /**
+     * Constructs an instance
+     * @param capacity maximum number of retained items
+     */
+    public HistoryBuffer(int capacity)
+    {
+        if(capacity < 1)
+        {
+            throw new IllegalArgumentException("History capacity must be at least 1");
+        }
+
+        mCapacity = capacity;
+    }
+
+    /**
+     * Maximum number of retained items
+     */
+    public int getCapacity()
+    {
+        return mCapacity;
+    }
+
+    /**
+     * Registers an optional listener to receive each item as it is evicted from the history (e.g. to spill the item
+     * to disk).  The listener is invoked on the thread that adds items.
+     * @param listener to receive evicted items, or null to clear the listener
+     */
+    public synchronized void setEvictionListener(Listener<T> listener)
+    {
+        mEvictionListener = listener;
+    }
+
+    /**
+     * Adds the item to the history, evicting the oldest item when the history is full.
+     * @param item to add
+     * @return true if the item was added or false if the item is already in the history
+     */
+    public boolean add(T item)
+    {
+        T evicted = null;
+        Listener<T> evictionListener;
+
+        synchronized(this)
+        {
+            if(item == null || !mRetained.add(item))
+            {
+                return false;
+            }
+
+            if(mTail - mHead == mCapacity)
+            {
+                evicted = evict();
+            }
+
+            int offset = (int)(mTail % CHUNK_SIZE);
+
+            if(offset == 0)
+            {
+                if(mChunks.isEmpty())
+                {
+                    mFirstChunkSequence = mTail / CHUNK_SIZE;
+                }
+
+                mChunks.addLast(new Object[CHUNK_SIZE]);
+            }
+
+            mChunks.peekLast()[offset] = item;
+            mTail++;
+            evictionListener = mEvictionListener;
+        }
+
+        if(evicted != null && evictionListener != null)
+        {
+            evictionListener.receive(evicted);
+        }
+
+        return true;
+    }
+
+    /**
+     * Evicts the oldest item and releases its chunk once all of the chunk's items are evicted.
+     */
+    @SuppressWarnings("unchecked")
+    private T evict()
+    {
+        T evicted = (T)mChunks.peekFirst()[(int)(mHead % CHUNK_SIZE)];
+        mRetained.remove(evicted);
+        mHead++;
+
+        if(mHead % CHUNK_SIZE == 0)
+        {
+            mChunks.pollFirst();
+            mFirstChunkSequence++;
+        }
+
+        return evicted;
+    }
+
+    /**
+     * Indicates if the item is currently retained in the history
+     */
+    public synchronized boolean contains(T item)
+    {
+        return mRetained.contains(item);
+    }
+
+    /**
+     * Number of retained items
+     */
+    public synchronized int size()
+    {
+        return (int)(mTail - mHead);
+    }
+
+    /**
+     * Removes all items from the history.  Existing snapshots are not affected.
+     */
+    public synchronized void clear()
+    {
+        mChunks.clear();
+        mRetained.clear();
+        mFirstChunkSequence = 0;
+        mHead = 0;
+        mTail = 0;
+    }
+
+    /**
+     * Removes all items from the history and passes them, oldest to newest, to the eviction listener (e.g. to spill
+     * the retained items to disk when the history is stopped).  Existing snapshots are not affected.
+     */
+    public void evictAll()
+    {
+        List<T> evicted;
+        Listener<T> evictionListener;
+
+        synchronized(this)
+        {
+            evicted = snapshot();
+            evictionListener = mEvictionListener;
+            clear();
+        }
+
+        if(evictionListener != null)
+        {
+            for(T item: evicted)
+            {
+                evictionListener.receive(item);
+            }
+        }
+    }
+
+    /**
+     * Immutable snapshot of the retained items, ordered oldest to newest.  The snapshot shares the history's chunks
+     * and is not affected by items that are subsequently added or evicted.
+     */
+    public synchronized List<T> snapshot()
+    {
+        if(mTail == mHead)
+        {
+            return Collections.emptyList();
+        }
+
+        return new Snapshot<>(mChunks.toArray(new Object[0][]), mFirstChunkSequence, mHead, (int)(mTail - mHead));
+    }
+
+    /**
+     * Read-only view of a range of the write-once history chunks.
+     */
+    private static class Snapshot<T> extends AbstractList<T> implements RandomAccess
+    {
+        private final Object[][] mChunks;
+        private final long mFirstChunkSequence;
+        private final long mHead;
+        private final int mSize;
+
+        private Snapshot(Object[][] chunks, long firstChunkSequence, long head, int size)
+        {
+            mChunks = chunks;
+            mFirstChunkSequence = firstChunkSequence;
+            mHead = head;
+            mSize = size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index)
+        {
+            if(index < 0 || index >= mSize)
+            {
+                throw new IndexOutOfBoundsException("Index " + index + " size " + mSize);
+            }
+
+            long sequence = mHead + index;
+            return (T)mChunks[(int)(sequence / CHUNK_SIZE - mFirstChunkSequence)][(int)(sequence % CHUNK_SIZE)];
+        }
+
+        @Override
+        public int size()
+        {
+            return mSize;
+        }
+    }
+}
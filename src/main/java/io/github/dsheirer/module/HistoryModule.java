@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- * Copyright (C) 2014-2023 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -21,35 +21,60 @@ package io.github.dsheirer.module;
 
 import io.github.dsheirer.sample.Broadcaster;
 import io.github.dsheirer.sample.Listener;
-import java.util.ArrayList;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.function.ToLongFunction;
 
 /**
- * Abstract base history module.  Maintains a history of items and constrains the total history size.  Adds support
- * for registering a listener to receive a copy of new items as they arrive.
+ * Abstract base history module.  Maintains a fixed size history of items in a ring buffer.  Adds support for
+ * registering a listener to receive a copy of new items as they arrive.
  *
- * Note: internal history items are de-duplicated.  However, all items are passed through to the listener.
+ * Optionally, items that are evicted from the history, and the retained items when the module is stopped, can be
+ * spilled to a log file for long term retention.
+ *
+ * Note: internal history items are de-duplicated by identity.  However, all items are passed through to the listener.
  */
 public abstract class HistoryModule<T> extends Module implements Listener<T>
 {
-    private List<T> mItems = new ArrayList<>();
+    private static final long MAXIMUM_SPILL_FILE_SIZE = 20 * 1024 * 1024;
+    private final HistoryBuffer<T> mItems;
     private Broadcaster<T> mBroadcaster = new Broadcaster<>();
-    private int mMaximumHistorySize;
+    private final ToLongFunction<T> mTimestampFunction;
+    private HistorySpillWriter<T> mSpillWriter;
 
     /**
      * Constructs an instance
+     * @param maximumHistorySize to retain
+     * @param timestampFunction to access the timestamp of an item for spilled items
      */
-    public HistoryModule(int maximumHistorySize)
+    public HistoryModule(int maximumHistorySize, ToLongFunction<T> timestampFunction)
     {
-        mMaximumHistorySize = maximumHistorySize;
+        mItems = new HistoryBuffer<>(maximumHistorySize);
+        mTimestampFunction = timestampFunction;
     }
 
     /**
-     * Access a copy of the events from this event history
+     * Access an immutable snapshot of the items in this history, ordered oldest to newest.  The snapshot shares the
+     * history storage and is not affected by subsequent history changes.
      */
     public List<T> getItems()
     {
-        return new ArrayList<>(mItems);
+        return mItems.snapshot();
+    }
+
+    /**
+     * Enables spilling items that are evicted from the history to the log file.  Invoke before starting the module.
+     * @param path for the spill log file
+     */
+    public void setSpillPath(Path path)
+    {
+        if(mSpillWriter != null)
+        {
+            mSpillWriter.stop();
+        }
+
+        mSpillWriter = path != null ? new HistorySpillWriter<>(path, MAXIMUM_SPILL_FILE_SIZE, mTimestampFunction) : null;
+        mItems.setEvictionListener(mSpillWriter);
     }
 
     @Override
@@ -61,13 +86,27 @@ public abstract class HistoryModule<T> extends Module implements Listener<T>
     @Override
     public void start()
     {
+        if(mSpillWriter != null)
+        {
+            mSpillWriter.start();
+        }
     }
 
     @Override
     public void stop()
     {
-        mItems.clear();
         mBroadcaster.clear();
+
+        if(mSpillWriter != null)
+        {
+            //Spill the retained items so that the log file contains the complete history
+            mItems.evictAll();
+            mSpillWriter.stop();
+        }
+        else
+        {
+            mItems.clear();
+        }
     }
 
     /**
@@ -94,16 +133,7 @@ public abstract class HistoryModule<T> extends Module implements Listener<T>
     @Override
     public void receive(T item)
     {
-        while(mItems.size() > mMaximumHistorySize)
-        {
-            mItems.remove(0);
-        }
-
-        if(!mItems.contains(item))
-        {
-            mItems.add(item);
-        }
-
+        mItems.add(item);
         mBroadcaster.broadcast(item);
     }
 }
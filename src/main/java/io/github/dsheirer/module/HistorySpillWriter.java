@@ -0,0 +1,227 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.module;
+
+import io.github.dsheirer.sample.Listener;
+import io.github.dsheirer.util.ThreadPool;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Spills items that are evicted from a history buffer to a text log file for long term retention.  Evicted items
+ * are queued and written by a periodic task on the shared scheduled thread pool, so that the producer thread never
+ * blocks on file IO.  When the log file exceeds the maximum size, it is rolled over to a single backup file
+ * (e.g. channel_messages.log.1).
+ *
+ * Each item is logged with its own timestamp rather than the time that it was written.
+ *
+ * @param <T> type of item, logged using the item's toString() value
+ */
+public class HistorySpillWriter<T> implements Listener<T>
+{
+    private static final Logger mLog = LoggerFactory.getLogger(HistorySpillWriter.class);
+    private static final long FLUSH_INTERVAL_MS = 1000;
+    private static final int MAXIMUM_QUEUE_SIZE = 10000;
+    private final SimpleDateFormat mTimestampFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+    private final ConcurrentLinkedQueue<SpillEntry> mQueue = new ConcurrentLinkedQueue<>();
+    private final Path mPath;
+    private final long mMaximumFileSize;
+    private final ToLongFunction<T> mTimestampFunction;
+    private BufferedWriter mWriter;
+    private long mFileSize;
+    private ScheduledFuture<?> mFlushFuture;
+    private final AtomicInteger mDroppedCount = new AtomicInteger();
+
+    /**
+     * Constructs an instance
+     * @param path for the log file
+     * @param maximumFileSize in bytes before the log file is rolled over
+     * @param timestampFunction to access the timestamp of each item
+     */
+    public HistorySpillWriter(Path path, long maximumFileSize, ToLongFunction<T> timestampFunction)
+    {
+        mPath = path;
+        mMaximumFileSize = maximumFileSize;
+        mTimestampFunction = timestampFunction;
+    }
+
+    /**
+     * Log file path
+     */
+    public Path getPath()
+    {
+        return mPath;
+    }
+
+    /**
+     * Starts the periodic write task.
+     */
+    public synchronized void start()
+    {
+        if(mFlushFuture == null)
+        {
+            mFlushFuture = ThreadPool.SCHEDULED.scheduleAtFixedRate(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops the periodic write task, writes any queued items and closes the log file.
+     */
+    public synchronized void stop()
+    {
+        if(mFlushFuture != null)
+        {
+            mFlushFuture.cancel(false);
+            mFlushFuture = null;
+        }
+
+        flush();
+        close();
+    }
+
+    /**
+     * Queues the evicted item for writing.  Items are dropped if the queue is full because the file can't be written.
+     */
+    @Override
+    public void receive(T item)
+    {
+        if(mQueue.size() < MAXIMUM_QUEUE_SIZE)
+        {
+            mQueue.offer(new SpillEntry(mTimestampFunction.applyAsLong(item), item.toString()));
+        }
+        else
+        {
+            mDroppedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Writes the queued items to the log file.
+     */
+    public synchronized void flush()
+    {
+        if(mQueue.isEmpty())
+        {
+            return;
+        }
+
+        List<SpillEntry> entries = new ArrayList<>();
+        SpillEntry next = mQueue.poll();
+
+        while(next != null)
+        {
+            entries.add(next);
+            next = mQueue.poll();
+        }
+
+        try
+        {
+            for(SpillEntry entry: entries)
+            {
+                String text = mTimestampFormat.format(entry.timestamp()) + " " + entry.text() + System.lineSeparator();
+
+                if(mWriter == null || mFileSize >= mMaximumFileSize)
+                {
+                    rollover();
+                }
+
+                mWriter.write(text);
+                mFileSize += text.length();
+            }
+
+            int dropped = mDroppedCount.getAndSet(0);
+
+            if(dropped > 0)
+            {
+                mLog.warn("History spill queue overflow - dropped [" + dropped + "] items for [" + mPath + "]");
+            }
+
+            mWriter.flush();
+        }
+        catch(IOException ioe)
+        {
+            mLog.error("Error writing history spill file [" + mPath + "]", ioe);
+            close();
+        }
+    }
+
+    /**
+     * Opens the log file, moving the current log file to the backup file when it exceeds the maximum size.
+     */
+    private void rollover() throws IOException
+    {
+        close();
+
+        if(Files.exists(mPath) && Files.size(mPath) >= mMaximumFileSize)
+        {
+            Files.move(mPath, mPath.resolveSibling(mPath.getFileName() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        if(mPath.getParent() != null)
+        {
+            Files.createDirectories(mPath.getParent());
+        }
+
+        mWriter = Files.newBufferedWriter(mPath, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+        mFileSize = Files.size(mPath);
+    }
+
+    /**
+     * Closes the log file
+     */
+    private void close()
+    {
+        if(mWriter != null)
+        {
+            try
+            {
+                mWriter.close();
+            }
+            catch(IOException ioe)
+            {
+                mLog.error("Error closing history spill file [" + mPath + "]", ioe);
+            }
+
+            mWriter = null;
+        }
+    }
+
+    /**
+     * Queued item text and the item's timestamp
+     */
+    private record SpillEntry(long timestamp, String text) {}
+}
@@ -54,6 +54,7 @@ import io.github.dsheirer.module.decode.event.IDecodeEventListener;
 import io.github.dsheirer.module.decode.event.IDecodeEventProvider;
 import io.github.dsheirer.module.decode.traffic.TrafficChannelManager;
 import io.github.dsheirer.module.log.EventLogger;
+import io.github.dsheirer.properties.SystemProperties;
 import io.github.dsheirer.record.binary.BinaryRecorder;
 import io.github.dsheirer.record.wave.ComplexSamplesWaveRecorder;
 import io.github.dsheirer.sample.Broadcaster;
@@ -74,6 +75,7 @@ import io.github.dsheirer.source.heartbeat.Heartbeat;
 import io.github.dsheirer.source.heartbeat.IHeartbeatListener;
 import io.github.dsheirer.source.heartbeat.IHeartbeatProvider;
 import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -104,6 +106,8 @@ import org.slf4j.LoggerFactory;
 public class ProcessingChain implements Listener<ChannelEvent>
 {
     private final static Logger mLog = LoggerFactory.getLogger(ProcessingChain.class);
+    public static final String HISTORY_SPILL_ENABLED_PROPERTY = "history.spill.enabled";
+    private static final String HISTORY_SPILL_FOLDER = "history";
 
     private Broadcaster<float[]> mDemodulatedAudioBufferBroadcaster = new Broadcaster();
     private Broadcaster<ComplexSamples> mBasebandComplexSamplesBroadcaster = new Broadcaster<>();
@@ -147,6 +151,16 @@ public class ProcessingChain implements Listener<ChannelEvent>
             mChannelState = new MultiChannelState(channel, aliasModel, channel.getDecodeConfiguration().getTimeslots());
         }
 
+        if(SystemProperties.getInstance().get(HISTORY_SPILL_ENABLED_PROPERTY, false))
+        {
+            Path folder = SystemProperties.getInstance().getApplicationFolder(HISTORY_SPILL_FOLDER);
+            //Include the unique channel ID so that channels with the same name don't share a spill file
+            String name = String.valueOf(channel.getName()).replaceAll("[^A-Za-z0-9._-]", "_") + "_" +
+                    channel.getChannelID();
+            mDecodeEventHistory.setSpillPath(folder.resolve(name + "_events.log"));
+            mMessageHistory.setSpillPath(folder.resolve(name + "_messages.log"));
+        }
+
         addModule(mChannelState);
         addModule(mDecodeEventHistory);
         addModule(mMessageHistory);
@@ -993,6 +1007,22 @@ public class ProcessingChain implements Listener<ChannelEvent>
         mSquelchStateEventBroadcaster.removeListener(listener);
     }
 
+    /**
+     * Adds listener to receive the complex baseband sample buffers from the source.
+     */
+    public void addBasebandSamplesListener(Listener<ComplexSamples> listener)
+    {
+        mBasebandComplexSamplesBroadcaster.addListener(listener);
+    }
+
+    /**
+     * Removes the listener from receiving complex baseband sample buffers.
+     */
+    public void removeBasebandSamplesListener(Listener<ComplexSamples> listener)
+    {
+        mBasebandComplexSamplesBroadcaster.removeListener(listener);
+    }
+
     /**
      * Adds listener to receive demodulated audio buffers from an modules that produce demodulated audio.
      */
@@ -23,7 +23,6 @@ import io.github.dsheirer.dsp.filter.FilterFactory;
 import io.github.dsheirer.dsp.filter.design.FilterDesignException;
 import io.github.dsheirer.dsp.filter.fir.FIRFilterSpecification;
 import io.github.dsheirer.dsp.filter.fir.real.IRealFilter;
-import io.github.dsheirer.dsp.filter.fir.remez.RemezFIRFilterDesigner;
 import io.github.dsheirer.module.decode.Decoder;
 import io.github.dsheirer.module.decode.DecoderType;
 import io.github.dsheirer.sample.Listener;
@@ -82,12 +81,7 @@ public class DCSDecoder extends Decoder implements IRealBufferListener, Listener
 
         try
         {
-            RemezFIRFilterDesigner designer = new RemezFIRFilterDesigner(specification);
-
-            if(designer.isValid())
-            {
-                sLowPassFilterCoefficients = designer.getImpulseResponse();
-            }
+            sLowPassFilterCoefficients = FilterFactory.getTaps(specification);
         }
         catch(FilterDesignException fde)
         {
@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- * Copyright (C) 2014-2024 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -49,6 +49,7 @@ import io.github.dsheirer.module.decode.event.DecodeEventHistoryResponse;
 import io.github.dsheirer.module.decode.event.DecodeEventType;
 import io.github.dsheirer.module.decode.event.IDecodeEvent;
 import io.github.dsheirer.module.decode.event.IDecodeEventProvider;
+import io.github.dsheirer.module.decode.traffic.TrafficChannelAllocator;
 import io.github.dsheirer.module.decode.traffic.TrafficChannelManager;
 import io.github.dsheirer.sample.Listener;
 import io.github.dsheirer.source.SourceType;
@@ -64,7 +65,6 @@ import java.util.Objects;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.locks.ReentrantLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -97,8 +97,7 @@ public class DMRTrafficChannelManager extends TrafficChannelManager implements I
 
     private Queue<Channel> mAvailableTrafficChannels = new ConcurrentLinkedQueue<>();
     private List<Channel> mAllocatedTrafficChannels;
-    private Map<Long,Channel> mAllocatedChannelFrequencyMap = new ConcurrentHashMap<>();
-    private ReentrantLock mLock = new ReentrantLock();
+    private final TrafficChannelAllocator mAllocator;
     private Map<Long,IDecodeEvent> mCallEventsTS1 = new ConcurrentHashMap<>();
     private Map<Long,IDecodeEvent> mCallEventsTS2 = new ConcurrentHashMap<>();
     private Listener<ChannelEvent> mChannelEventListener;
@@ -122,6 +121,7 @@ public class DMRTrafficChannelManager extends TrafficChannelManager implements I
     public DMRTrafficChannelManager(Channel parentChannel)
     {
         mParentChannel = parentChannel;
+        mAllocator = new TrafficChannelAllocator(parentChannel.getName());
 
         if(parentChannel.getDecodeConfiguration() instanceof DecodeConfigDMR)
         {
@@ -153,26 +153,26 @@ public class DMRTrafficChannelManager extends TrafficChannelManager implements I
             return;
         }
 
-        mLock.lock();
+        mAllocator.lockAll();
 
         try
         {
-            Channel existing = mAllocatedChannelFrequencyMap.get(previous);
+            Channel existing = mAllocator.getChannel(previous);
 
             //Only remove the channel if it is non-null and it matches the current control channel.
             if(channel.equals(existing))
             {
                 //Unlock the frequency in the channel rotation monitor
                 getInterModuleEventBus().post(FrequencyLockChangeRequest.unlock(previous));
-                mAllocatedChannelFrequencyMap.remove(previous);
+                mAllocator.remove(previous);
             }
 
-            mAllocatedChannelFrequencyMap.put(current, channel);
+            mAllocator.reserve(current, channel);
             getInterModuleEventBus().post(FrequencyLockChangeRequest.lock(current));
         }
         finally
         {
-            mLock.unlock();
+            mAllocator.unlockAll();
         }
     }
 
@@ -228,7 +228,8 @@ public class DMRTrafficChannelManager extends TrafficChannelManager implements I
     public void convertToTrafficChannel(Channel channel, long currentFrequency, IChannelDescriptor restChannel,
                                         DMRNetworkConfigurationMonitor networkConfigurationMonitor)
     {
-        mLock.lock();
+        //Conversion touches both the current and the rest frequencies
+        mAllocator.lockAll();
 
         try
         {
@@ -236,7 +237,7 @@ public class DMRTrafficChannelManager extends TrafficChannelManager implements I
 
             //Only do the conversion of the original channel has multiple frequencies defined and the rest channel is
             //one of those frequencies
-            if(rest > 0 && !mAllocatedChannelFrequencyMap.containsKey(rest) &&
+            if(rest > 0 && !mAllocator.isAllocated(rest) &&
                     channel.getSourceConfiguration().getSourceType() == SourceType.TUNER_MULTIPLE_FREQUENCIES)
             {
                 SourceConfigTunerMultipleFrequency originalSourceConfig = (SourceConfigTunerMultipleFrequency)channel.getSourceConfiguration();
@@ -271,7 +272,7 @@ public class DMRTrafficChannelManager extends TrafficChannelManager implements I
                     //no longer allocate traffic channels.
                     getInterModuleEventBus().post(new ChannelConversionRequest(channel, trafficChannel));
 
-                    mAllocatedChannelFrequencyMap.put(currentFrequency, trafficChannel);
+                    mAllocator.reserve(currentFrequency, trafficChannel);
 
                     //Set the preferred frequency to use when restarting the original channel
                     originalSourceConfig.setPreferredFrequency(rest);
@@ -313,7 +314,7 @@ public class DMRTrafficChannelManager extends TrafficChannelManager implements I
         }
         finally
         {
-            mLock.unlock();
+            mAllocator.unlockAll();
         }
     }
 
@@ -372,11 +373,20 @@ public class DMRTrafficChannelManager extends TrafficChannelManager implements I
     public void processChannelGrant(DMRChannel channel, IdentifierCollection identifierCollection,
                                     Opcode opcode, long timestamp, boolean encrypted)
     {
-        mLock.lock();
+        long frequency = channel.getDownlinkFrequency();
+
+        //If we don't have a frequency value for the channel, use the channel number as a place holder.  We won't
+        //allocate a traffic channel for it, but we can track the related channel grant event.
+        if(frequency == 0)
+        {
+            frequency = channel.getChannelNumber();
+        }
+
+        mAllocator.lock(frequency);
 
         try
         {
-            boolean allocated = mAllocatedChannelFrequencyMap.containsKey(channel.getDownlinkFrequency());
+            boolean allocated = mAllocator.isAllocated(channel.getDownlinkFrequency());
 
             if(allocated)
             {
@@ -384,14 +394,6 @@ public class DMRTrafficChannelManager extends TrafficChannelManager implements I
             }
             else
             {
-                long frequency = channel.getDownlinkFrequency();
-
-                //If we don't have a frequency value for the channel, use the channel number as a place holder.  We won't
-                //allocate a traffic channel for it, but we can track the related channel grant event.
-                if(frequency == 0)
-                {
-                    frequency = channel.getChannelNumber();
-                }
 
                 Map<Long,IDecodeEvent> eventMap = channel.getTimeslot() == 1 ? mCallEventsTS1 : mCallEventsTS2;
                 IDecodeEvent temp = eventMap.get(frequency);
@@ -466,14 +468,13 @@ public class DMRTrafficChannelManager extends TrafficChannelManager implements I
                     return;
                 }
 
-                Channel trafficChannel = mAvailableTrafficChannels.poll();
+                Channel trafficChannel = mAllocator.allocate(frequency, mAvailableTrafficChannels);
 
                 if(trafficChannel != null)
                 {
                     SourceConfigTuner sourceConfig = new SourceConfigTuner();
                     sourceConfig.setFrequency(frequency);
                     trafficChannel.setSourceConfiguration(sourceConfig);
-                    mAllocatedChannelFrequencyMap.put(frequency, trafficChannel);
                     //Preload the channel grant event for the traffic channel to use/maintain
                     if(trafficChannel.getDecodeConfiguration() instanceof DecodeConfigDMR config)
                     {
@@ -505,7 +506,7 @@ public class DMRTrafficChannelManager extends TrafficChannelManager implements I
         }
         finally
         {
-            mLock.unlock();
+            mAllocator.unlock(frequency);
         }
     }
 
@@ -696,42 +697,42 @@ public class DMRTrafficChannelManager extends TrafficChannelManager implements I
     @Override
     public void start()
     {
-        mLock.lock();
+        mAllocator.lockAll();
 
         try
         {
-            for(Long frequency: mAllocatedChannelFrequencyMap.keySet())
+            for(Long frequency: mAllocator.getAllocatedFrequencies())
             {
                 getInterModuleEventBus().post(FrequencyLockChangeRequest.lock(frequency));
             }
         }
         finally
         {
-            mLock.unlock();
+            mAllocator.unlockAll();
         }
     }
 
     @Override
     public void stop()
     {
-        mLock.lock();
+        mAllocator.lockAll();
 
         try
         {
             mAvailableTrafficChannels.clear();
 
-            List<Channel> channels = new ArrayList<>(mAllocatedChannelFrequencyMap.values());
-
             //Issue a disable request for each traffic channel
-            for(Channel channel: channels)
+            for(Channel channel: mAllocator.getAllocatedChannels())
             {
                 broadcast(new ChannelEvent(channel, Event.REQUEST_DISABLE));
             }
         }
         finally
         {
-            mLock.unlock();
+            mAllocator.unlockAll();
         }
+
+        mLog.info(mAllocator.toString());
     }
 
     /**
@@ -746,7 +747,7 @@ public class DMRTrafficChannelManager extends TrafficChannelManager implements I
          */
         private void removeCallEvents(long frequency)
         {
-            mLock.lock();
+            mAllocator.lock(frequency);
 
             try
             {
@@ -755,7 +756,7 @@ public class DMRTrafficChannelManager extends TrafficChannelManager implements I
             }
             finally
             {
-                mLock.unlock();
+                mAllocator.unlock(frequency);
             }
         }
 
@@ -765,7 +766,7 @@ public class DMRTrafficChannelManager extends TrafficChannelManager implements I
          */
         private void setChannelStartRejected(long frequency)
         {
-            mLock.lock();
+            mAllocator.lock(frequency);
 
             try
             {
@@ -803,7 +804,7 @@ public class DMRTrafficChannelManager extends TrafficChannelManager implements I
             }
             finally
             {
-                mLock.unlock();
+                mAllocator.unlock(frequency);
             }
         }
 
@@ -824,75 +825,53 @@ public class DMRTrafficChannelManager extends TrafficChannelManager implements I
             {
                 switch(channelEvent.getEvent())
                 {
+                    case NOTIFICATION_PROCESSING_START:
+                        mAllocator.started(channel);
+                        break;
                     case NOTIFICATION_PROCESSING_STOP:
-                        long frequencyToRemove = 0;
-
-                        mLock.lock();
+                        Long frequencyToRemove = mAllocator.getFrequency(channel);
 
-                        try
+                        if(frequencyToRemove != null)
                         {
-                            for(Map.Entry<Long,Channel> entry: mAllocatedChannelFrequencyMap.entrySet())
-                            {
-                                if(channel == entry.getValue() && entry.getKey() != null)
-                                {
-                                    frequencyToRemove = entry.getKey();
-                                    removeCallEvents(entry.getKey());
-                                    break;
-                                }
-                            }
+                            mAllocator.lock(frequencyToRemove);
 
-                            if(frequencyToRemove > 0)
+                            try
                             {
-                                mAllocatedChannelFrequencyMap.remove(frequencyToRemove);
+                                removeCallEvents(frequencyToRemove);
 
-                                //Unlock the frequency in the channel rotation monitor
-                                getInterModuleEventBus().post(FrequencyLockChangeRequest.unlock(frequencyToRemove));
+                                //Returns the traffic channel to the queue to be reused.  A channel that is no longer
+                                //allocated was already returned and must not be added again, since it may have been
+                                //allocated to another call in the meantime.
+                                mAllocator.release(channel, mAvailableTrafficChannels);
                             }
-
-                            //Add the traffic channel back to the queue to be reused
-                            if(!mAvailableTrafficChannels.contains(channel))
+                            finally
                             {
-                                mAvailableTrafficChannels.add(channel);
+                                mAllocator.unlock(frequencyToRemove);
                             }
-                        }
-                        finally
-                        {
-                            mLock.unlock();
+
+                            //Unlock the frequency in the channel rotation monitor
+                            getInterModuleEventBus().post(FrequencyLockChangeRequest.unlock(frequencyToRemove));
                         }
                         break;
                     case NOTIFICATION_PROCESSING_START_REJECTED:
-                        mLock.lock();
-                        try
+                        Long frequencyToUpdate = mAllocator.getFrequency(channel);
+
+                        if(frequencyToUpdate != null)
                         {
-                            long frequencyToUpdate = 0;
+                            mAllocator.lock(frequencyToUpdate);
 
-                            for(Map.Entry<Long,Channel> entry: mAllocatedChannelFrequencyMap.entrySet())
+                            try
                             {
-                                if(channel == entry.getValue() && entry.getKey() != null)
-                                {
-                                    frequencyToUpdate = entry.getKey();
-                                    setChannelStartRejected(entry.getKey());
-                                    break;
-                                }
+                                setChannelStartRejected(frequencyToUpdate);
+                                mAllocator.release(channel, mAvailableTrafficChannels);
                             }
-
-                            if(frequencyToUpdate > 0)
+                            finally
                             {
-                                mAllocatedChannelFrequencyMap.remove(frequencyToUpdate);
-
-                                //Unlock the frequency in the channel rotation monitor
-                                getInterModuleEventBus().post(FrequencyLockChangeRequest.unlock(frequencyToUpdate));
+                                mAllocator.unlock(frequencyToUpdate);
                             }
 
-                            //Add the traffic channel back to the queue to be reused
-                            if(!mAvailableTrafficChannels.contains(channel))
-                            {
-                                mAvailableTrafficChannels.add(channel);
-                            }
-                        }
-                        finally
-                        {
-                            mLock.unlock();
+                            //Unlock the frequency in the channel rotation monitor
+                            getInterModuleEventBus().post(FrequencyLockChangeRequest.unlock(frequencyToUpdate));
                         }
                         break;
                 }
@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- * Copyright (C) 2014-2023 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -19,19 +19,29 @@
 
 package io.github.dsheirer.module.decode.event;
 
+import io.github.dsheirer.util.UpdateCoalescer;
 import java.awt.EventQueue;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
-
+import java.util.Map;
 import javax.swing.table.AbstractTableModel;
 
 /**
  * AbstractTableModel implementation supporting clearable method options.
+ *
+ * Items are displayed newest first.  Items received from producer threads are coalesced and applied to the model as
+ * a single bulk change per display frame (see enqueue()).  Item rows are tracked by identity, so that updates to an
+ * existing item can be located without scanning the history.
  */
 public abstract class ClearableHistoryModel<T> extends AbstractTableModel
 {
     public static final int DEFAULT_HISTORY_SIZE = 200;
-    private LinkedList<T> mItems = new LinkedList<>();
+    private final transient UpdateCoalescer<T> mUpdateCoalescer = UpdateCoalescer.forSwing(DEFAULT_HISTORY_SIZE, this::apply);
+    //Items ordered oldest to newest, with the sequence number for each item.
+    private final List<T> mItems = new ArrayList<>();
+    private final Map<T,Long> mSequences = new IdentityHashMap<>();
+    private long mFirstSequence;
     private int mHistorySize = DEFAULT_HISTORY_SIZE;
 
     /**
@@ -41,37 +51,123 @@ public abstract class ClearableHistoryModel<T> extends AbstractTableModel
      */
     public T getItem(int index)
     {
-        if(index < mItems.size())
+        if(index >= 0 && index < mItems.size())
         {
-            return mItems.get(index);
+            return mItems.get(mItems.size() - 1 - index);
         }
 
         return null;
     }
 
+    /**
+     * Queues the item to be added to or updated in the model with the next batch of updates on the Swing event
+     * thread.  Can be invoked from any thread.
+     * @param item to add or update
+     */
+    protected void enqueue(T item)
+    {
+        mUpdateCoalescer.add(item);
+    }
+
     /**
      * Adds the item to the top of the item list and removes any tail items while the item list size exceeds the
-     * maximum history size for this model.
+     * maximum history size for this model.  If the item is already in the model, the item's row is updated.
+     *
+     * Note: invoke on the Swing event thread.
      * @param item to add
      */
     public void add(T item)
     {
-        if(mItems.contains(item))
+        apply(List.of(item));
+    }
+
+    /**
+     * Applies a batch of new and updated items as bulk table changes.  New items that would be immediately pushed out
+     * of the history by newer items in the same batch, and updates to items that are no longer in the history, are
+     * dropped.
+     * @param items ordered oldest to newest
+     */
+    private void apply(List<T> items)
+    {
+        List<T> added = new ArrayList<>();
+        List<T> updated = new ArrayList<>();
+
+        for(T item: items)
         {
-            int itemRow = mItems.indexOf(item);
-            fireTableRowsUpdated(itemRow, itemRow);
+            if(mSequences.containsKey(item))
+            {
+                updated.add(item);
+            }
+            else
+            {
+                added.add(item);
+            }
+        }
+
+        if(added.size() > mHistorySize)
+        {
+            added = added.subList(added.size() - mHistorySize, added.size());
         }
-        else
+
+        if(!added.isEmpty())
         {
-            mItems.addFirst(item);
-            fireTableRowsInserted(0, 0);
+            long sequence = mFirstSequence + mItems.size();
 
-            while(mItems.size() > mHistorySize)
+            for(T item: added)
             {
-                mItems.removeLast();
-                fireTableRowsDeleted(mItems.size() - 1, mItems.size() - 1);
+                mItems.add(item);
+                mSequences.put(item, sequence++);
             }
+
+            fireTableRowsInserted(0, added.size() - 1);
         }
+
+        int excess = mItems.size() - mHistorySize;
+
+        if(excess > 0)
+        {
+            List<T> evicted = mItems.subList(0, excess);
+
+            for(T item: evicted)
+            {
+                mSequences.remove(item);
+            }
+
+            evicted.clear();
+            mFirstSequence += excess;
+            fireTableRowsDeleted(mItems.size(), mItems.size() + excess - 1);
+        }
+
+        int firstRow = Integer.MAX_VALUE;
+        int lastRow = -1;
+
+        for(T item: updated)
+        {
+            Long sequence = mSequences.get(item);
+
+            if(sequence != null)
+            {
+                int row = (int)(mFirstSequence + mItems.size() - 1 - sequence);
+                firstRow = Math.min(firstRow, row);
+                lastRow = Math.max(lastRow, row);
+            }
+        }
+
+        if(lastRow >= 0)
+        {
+            fireTableRowsUpdated(firstRow, lastRow);
+        }
+    }
+
+    /**
+     * Removes all items
+     */
+    private void removeAll()
+    {
+        mFirstSequence += mItems.size();
+        mItems.clear();
+        mSequences.clear();
+        fireTableDataChanged();
     }
 
     /**
@@ -79,24 +175,20 @@ public abstract class ClearableHistoryModel<T> extends AbstractTableModel
      */
     public void clear()
     {
-        EventQueue.invokeLater(() -> {
-            mItems.clear();
-            fireTableDataChanged();
-        });
+        mUpdateCoalescer.clear();
+        EventQueue.invokeLater(this::removeAll);
     }
 
     /**
      * Clears the current messages and loads the messages argument
+     * @param items ordered oldest to newest
      */
     public void clearAndSet(List<T> items)
     {
+        mUpdateCoalescer.clear();
         EventQueue.invokeLater(() -> {
-            mItems.clear();
-            fireTableDataChanged();
-            for(T item: items)
-            {
-                add(item);
-            }
+            removeAll();
+            apply(items);
         });
     }
 
@@ -116,6 +208,7 @@ public abstract class ClearableHistoryModel<T> extends AbstractTableModel
     public void setHistorySize(int historySize)
     {
         mHistorySize = historySize;
+        mUpdateCoalescer.setMaximumPending(historySize);
     }
 
     @Override
@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- * Copyright (C) 2014-2024 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -19,19 +19,42 @@
 
 package io.github.dsheirer.module.decode.event;
 
+import io.github.dsheirer.channel.IChannelDescriptor;
+import io.github.dsheirer.identifier.Form;
+import io.github.dsheirer.identifier.Identifier;
+import io.github.dsheirer.identifier.IdentifierClass;
+import io.github.dsheirer.identifier.IdentifierCollection;
+import io.github.dsheirer.identifier.Role;
 import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Provides duplicate decode event detection support
+ * Provides duplicate decode event detection support.
+ *
+ * Each event is reduced to a key of the event type, TO and FROM identifiers, channel frequency and details.  Keys are
+ * held in a concurrent map along with the time bucket when they were first seen, so checking and inserting an event is
+ * a single map operation.  Each time bucket keeps the list of keys that were inserted during the bucket, and the keys
+ * are removed when the bucket expires, so there is no scan over all tracked events.
+ *
+ * Duplicate counts are tracked per source (channel name) to show how much redundant coverage each channel provides.
  */
 public class DecodeEventDuplicateDetector
 {
     private static final long EVENT_MAX_AGE_MILLISECONDS = Duration.ofMinutes(1).toMillis();
-    private Map<DecodeEventType,DecodeEventTracker> mTrackerMap = new HashMap<>();
+    private static final long BUCKET_MILLISECONDS = Duration.ofSeconds(5).toMillis();
+    private static final long WINDOW_BUCKETS = EVENT_MAX_AGE_MILLISECONDS / BUCKET_MILLISECONDS;
+
+    private final Map<EventKey,Long> mKeyBuckets = new ConcurrentHashMap<>();
+    private final Map<Long,Queue<EventKey>> mBucketKeys = new ConcurrentHashMap<>();
+    private final Map<String,SourceStatistics> mSourceStatistics = new ConcurrentHashMap<>();
+    private volatile long mCurrentBucket = Long.MIN_VALUE;
 
     /**
      * Indicates if the event is a duplicate event.
@@ -39,7 +62,7 @@ public class DecodeEventDuplicateDetector
      * @param timestamp of a current message to trigger time-based event age off.
      * @return true if the event is a duplicate.
      */
-    public synchronized boolean isDuplicate(IDecodeEvent event, long timestamp)
+    public boolean isDuplicate(IDecodeEvent event, long timestamp)
     {
         //Null event types and voice call event types are not tracked by this detector
         if(event.getEventType() == null || event.getEventType().isVoiceCallEvent())
@@ -47,90 +70,195 @@ public class DecodeEventDuplicateDetector
             return false;
         }
 
-        if(!mTrackerMap.containsKey(event.getEventType()))
+        IdentifierCollection identifiers = event.getIdentifierCollection();
+        Identifier to = identifiers.getToIdentifier();
+
+        //Events without a TO identifier or details are not tracked.  Events with empty details are tracked.
+        if(to == null || event.getDetails() == null)
         {
-            mTrackerMap.put(event.getEventType(), new DecodeEventTracker());
+            return false;
         }
 
-        boolean duplicate = mTrackerMap.get(event.getEventType()).isDuplicate(event);
+        long bucket = Math.floorDiv(timestamp, BUCKET_MILLISECONDS);
 
-        for(DecodeEventTracker tracker: mTrackerMap.values())
+        if(bucket > mCurrentBucket)
         {
-            tracker.ageOff(timestamp);
+            advance(bucket);
         }
 
+        EventKey key = EventKey.create(event, to, identifiers.getFromIdentifier());
+        Long previous = mKeyBuckets.putIfAbsent(key, bucket);
+        boolean duplicate = false;
+
+        if(previous != null)
+        {
+            //An expired key that hasn't been removed yet is replaced.  If another thread replaced it first, this event
+            //is a duplicate of that thread's event.
+            duplicate = previous > bucket - WINDOW_BUCKETS || !mKeyBuckets.replace(key, previous, bucket);
+        }
+
+        if(!duplicate)
+        {
+            mBucketKeys.computeIfAbsent(bucket, b -> new ConcurrentLinkedQueue<>()).add(key);
+        }
+
+        getSourceStatistics(event).add(duplicate);
         return duplicate;
     }
 
     /**
-     * Tracks all decode events for a given decode event type
+     * Advances the current time bucket and removes the keys from buckets that are outside of the window.
      */
-    private class DecodeEventTracker
+    private synchronized void advance(long bucket)
     {
-        private Map<String,IDecodeEvent> mDecodeEventMap = new HashMap<>();
+        if(bucket <= mCurrentBucket)
+        {
+            return;
+        }
 
-        /**
-         * Checks the event for duplicate
-         * @param event to check
-         * @return true if duplicate
-         */
-        public boolean isDuplicate(IDecodeEvent event)
+        mCurrentBucket = bucket;
+        long oldest = bucket - WINDOW_BUCKETS;
+
+        for(Long expired: new ArrayList<>(mBucketKeys.keySet()))
         {
-            if(event.getIdentifierCollection().getToIdentifier() == null || event.getDetails() == null)
+            if(expired <= oldest)
             {
-                return false;
+                Queue<EventKey> keys = mBucketKeys.remove(expired);
+
+                if(keys != null)
+                {
+                    for(EventKey key: keys)
+                    {
+                        mKeyBuckets.remove(key, expired);
+                    }
+                }
             }
+        }
+    }
 
-            String key = getKey(event);
+    /**
+     * Duplicate detection key for an event.  The channel frequency is used rather than the channel descriptor so that
+     * the same channel reported by different sites or receivers produces the same key.
+     */
+    private record EventKey(DecodeEventType eventType, Identifier to, Identifier from, long frequency, String details)
+    {
+        public static EventKey create(IDecodeEvent event, Identifier to, Identifier from)
+        {
+            IChannelDescriptor channel = event.getChannelDescriptor();
+            return new EventKey(event.getEventType(), to, from, channel != null ? channel.getDownlinkFrequency() : 0,
+                    event.getDetails());
+        }
+    }
 
-            if(key == null || key.isEmpty())
-            {
-                return false;
-            }
+    /**
+     * Statistics for the channel (source) that produced the event.
+     */
+    private SourceStatistics getSourceStatistics(IDecodeEvent event)
+    {
+        Identifier channelName = event.getIdentifierCollection()
+                .getIdentifier(IdentifierClass.CONFIGURATION, Form.CHANNEL_NAME, Role.ANY);
+        String source = channelName != null ? channelName.toString() :
+                (event.getProtocol() != null ? event.getProtocol().toString() : "Unknown");
+        return mSourceStatistics.computeIfAbsent(source, SourceStatistics::new);
+    }
 
-            if(mDecodeEventMap.containsKey(key))
-            {
-                return true;
-            }
-            else
+    /**
+     * Number of event keys currently tracked
+     */
+    public int getTrackedCount()
+    {
+        return mKeyBuckets.size();
+    }
+
+    /**
+     * Snapshot of the duplicate statistics for each source, ordered by source name.
+     */
+    public List<SourceStatistics> getSourceStatistics()
+    {
+        List<SourceStatistics> statistics = new ArrayList<>(mSourceStatistics.values());
+        statistics.sort(Comparator.comparing(SourceStatistics::getSource));
+        return statistics;
+    }
+
+    /**
+     * Duplicate detection statistics for the diagnostic report
+     */
+    public String getDiagnosticInformation()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Decode Event Duplicate Detection\n");
+        sb.append("Tracked Event Signatures: ").append(getTrackedCount()).append("\n");
+
+        for(SourceStatistics statistics: getSourceStatistics())
+        {
+            sb.append("\t").append(statistics).append("\n");
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Event and duplicate counts for a single source
+     */
+    public static class SourceStatistics
+    {
+        private final String mSource;
+        private final LongAdder mEventCount = new LongAdder();
+        private final LongAdder mDuplicateCount = new LongAdder();
+
+        private SourceStatistics(String source)
+        {
+            mSource = source;
+        }
+
+        private void add(boolean duplicate)
+        {
+            mEventCount.increment();
+
+            if(duplicate)
             {
-                mDecodeEventMap.put(key, event);
+                mDuplicateCount.increment();
             }
+        }
 
-            return false;
+        /**
+         * Source (channel) name
+         */
+        public String getSource()
+        {
+            return mSource;
         }
 
         /**
-         * Generates a unique event key that is a combinatio of the TO identifier value and the details of the event.
-         * @param event for the key
-         * @return generated key.
+         * Number of events checked
          */
-        private static String getKey(IDecodeEvent event)
+        public long getEventCount()
         {
-            return event.getIdentifierCollection().getToIdentifier().toString() + event.getDetails();
+            return mEventCount.sum();
         }
 
         /**
-         * Removes all decode events from the duplicate detection map that are too old.
-         * @param timestamp for the current messaging.
+         * Number of events detected as duplicates
          */
-        public void ageOff(long timestamp)
+        public long getDuplicateCount()
         {
-            long threshold = timestamp - EVENT_MAX_AGE_MILLISECONDS;
-            List<String> toRemove = new ArrayList<>();
+            return mDuplicateCount.sum();
+        }
 
-            for(Map.Entry<String,IDecodeEvent> entry: mDecodeEventMap.entrySet())
-            {
-                if(entry.getValue() == null || entry.getValue().getTimeStart() < threshold)
-                {
-                    toRemove.add(entry.getKey());
-                }
-            }
+        /**
+         * Ratio of duplicate events to checked events, 0.0 to 1.0
+         */
+        public double getDuplicateRate()
+        {
+            long events = getEventCount();
+            return events > 0 ? (double)getDuplicateCount() / events : 0.0;
+        }
 
-            for(String key: toRemove)
-            {
-                mDecodeEventMap.remove(key);
-            }
+        @Override
+        public String toString()
+        {
+            return mSource + " Events:" + getEventCount() + " Duplicates:" + getDuplicateCount() +
+                    String.format(" Rate:%.1f%%", getDuplicateRate() * 100.0);
         }
     }
 }
@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- *  Copyright (C) 2014-2020 Dennis Sheirer
+ *  Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -33,7 +33,7 @@ public class DecodeEventHistory extends HistoryModule<IDecodeEvent> implements I
      */
     public DecodeEventHistory(int historySize)
     {
-        super(historySize);
+        super(historySize, IDecodeEvent::getTimeStart);
     }
 
     /**
@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- * Copyright (C) 2014-2024 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -61,18 +61,17 @@ import io.github.dsheirer.module.decode.p25.phase2.message.mac.MacOpcode;
 import io.github.dsheirer.module.decode.p25.reference.DataServiceOptions;
 import io.github.dsheirer.module.decode.p25.reference.ServiceOptions;
 import io.github.dsheirer.module.decode.p25.reference.VoiceServiceOptions;
+import io.github.dsheirer.module.decode.traffic.TrafficChannelAllocator;
 import io.github.dsheirer.module.decode.traffic.TrafficChannelManager;
 import io.github.dsheirer.sample.Listener;
 import io.github.dsheirer.source.config.SourceConfigTuner;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedTransferQueue;
-import java.util.concurrent.locks.ReentrantLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -96,8 +95,9 @@ import org.slf4j.LoggerFactory;
  * a channel event is broadcast indicating that the channel could not be activated.  On teardown of an activated traffic
  * channel, a channel event is broadcast to indicate the traffic channels is no longer active.
  *
- * The ReentrantLock (mLock) protects threaded access to the mTSxChannelGrantEventMaps and to the allocated and
- * available traffic channel lists and queues.
+ * The traffic channel allocator (mAllocator) tracks the allocated traffic channels and provides striped per-frequency
+ * locks that protect threaded access to the call event trackers for each frequency, so that grants and updates for
+ * different frequencies are processed concurrently.  Free traffic channels are held in lock-free queues.
  */
 public class P25TrafficChannelManager extends TrafficChannelManager implements IDecodeEventProvider, IChannelEventListener,
     IChannelEventProvider, IMessageListener
@@ -111,10 +111,9 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
     private Queue<Channel> mAvailablePhase2TrafficChannelQueue = new LinkedTransferQueue<>();
     private List<Channel> mManagedPhase1TrafficChannels;
     private List<Channel> mManagedPhase2TrafficChannels;
-    private Map<Long,Channel> mAllocatedTrafficChannelMap = new HashMap<>();
-    private Map<Long,P25TrafficChannelEventTracker> mTS1ChannelGrantEventMap = new HashMap<>();
-    private Map<Long,P25TrafficChannelEventTracker> mTS2ChannelGrantEventMap = new HashMap<>();
-    private ReentrantLock mLock = new ReentrantLock();
+    private Map<Long,P25TrafficChannelEventTracker> mTS1ChannelGrantEventMap = new ConcurrentHashMap<>();
+    private Map<Long,P25TrafficChannelEventTracker> mTS2ChannelGrantEventMap = new ConcurrentHashMap<>();
+    private final TrafficChannelAllocator mAllocator;
     private Map<Integer, IFrequencyBand> mFrequencyBandMap = new ConcurrentHashMap<>();
     private Listener<ChannelEvent> mChannelEventListener;
     private Listener<IDecodeEvent> mDecodeEventListener;
@@ -134,6 +133,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
     public P25TrafficChannelManager(Channel parentChannel)
     {
         mParentChannel = parentChannel;
+        mAllocator = new TrafficChannelAllocator(parentChannel.getName());
 
         if(parentChannel.getDecodeConfiguration() instanceof DecodeConfigP25Phase1 phase1)
         {
@@ -182,12 +182,12 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
             return;
         }
 
-        mLock.lock();
+        mAllocator.lockAll();
 
         try
         {
             //Shutdown all existing traffic channels and clear the maps.
-            List<Channel> trafficChannelsToDisable = new ArrayList<>(mAllocatedTrafficChannelMap.values());
+            List<Channel> trafficChannelsToDisable = mAllocator.getAllocatedChannels();
 
             for(Channel channelToDisable : trafficChannelsToDisable)
             {
@@ -201,14 +201,14 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
             mTS2ChannelGrantEventMap.clear();
 
             //Remove the control channel from the previous frequency
-            mAllocatedTrafficChannelMap.remove(previous);
+            mAllocator.remove(previous);
 
             //Store the current control channel in the allocated channel map so that we don't allocate a traffic channel against it
-            mAllocatedTrafficChannelMap.put(current, parentChannel);
+            mAllocator.reserve(current, parentChannel);
         }
         finally
         {
-            mLock.unlock();
+            mAllocator.unlockAll();
         }
     }
 
@@ -403,11 +403,11 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
     {
         if(channel.getDownlinkFrequency() > 0)
         {
-            mLock.lock();
+            mAllocator.lock(channel.getDownlinkFrequency());
 
             try
             {
-                boolean processing = mAllocatedTrafficChannelMap.containsKey(channel.getDownlinkFrequency());
+                boolean processing = mAllocator.isAllocated(channel.getDownlinkFrequency());
 
                 if(!processing)
                 {
@@ -416,7 +416,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
             }
             finally
             {
-                mLock.unlock();
+                mAllocator.unlock(channel.getDownlinkFrequency());
             }
         }
     }
@@ -432,7 +432,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
     {
         boolean completed = false;
 
-        mLock.lock();
+        mAllocator.lock(frequency);
 
         try
         {
@@ -447,7 +447,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
         }
         finally
         {
-            mLock.unlock();
+            mAllocator.unlock(frequency);
         }
 
         return completed;
@@ -467,7 +467,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
     {
         boolean completed = false;
 
-        mLock.lock();
+        mAllocator.lock(frequency);
 
         try
         {
@@ -482,7 +482,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
         }
         finally
         {
-            mLock.unlock();
+            mAllocator.unlock(frequency);
         }
 
         return completed;
@@ -504,7 +504,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
      */
     public void processP2TrafficCurrentUser(long frequency, int timeslot, Identifier identifier, long timestamp)
     {
-        mLock.lock();
+        mAllocator.lock(frequency);
 
         try
         {
@@ -525,7 +525,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
         }
         finally
         {
-            mLock.unlock();
+            mAllocator.unlock(frequency);
         }
     }
 
@@ -540,7 +540,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
 
         if(frequency > 0)
         {
-            mLock.lock();
+            mAllocator.lock(frequency);
 
             try
             {
@@ -573,10 +573,10 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
 
                 //Even though we have a tracked event, the initial channel grant may have been rejected.  Check to
                 // see if there is a traffic channel allocated.  If not, allocate one and update the event description.
-                if(!mAllocatedTrafficChannelMap.containsKey(frequency) && !mIgnoreDataCalls &&
+                if(!mAllocator.isAllocated(frequency) && !mIgnoreDataCalls &&
                         (getCurrentControlFrequency() != frequency))
                 {
-                    Channel trafficChannel = mAvailablePhase2TrafficChannelQueue.poll();
+                    Channel trafficChannel = mAllocator.allocate(frequency, mAvailablePhase2TrafficChannelQueue);
 
                     if(trafficChannel != null)
                     {
@@ -617,7 +617,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
             }
             finally
             {
-                mLock.unlock();
+                mAllocator.unlock(frequency);
             }
         }
     }
@@ -631,7 +631,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
      */
     public void processP2TrafficVoice(long frequency, int timeslot, long timestamp)
     {
-        mLock.lock();
+        mAllocator.lock(frequency);
 
         try
         {
@@ -651,7 +651,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
         }
         finally
         {
-            mLock.unlock();
+            mAllocator.unlock(frequency);
         }
     }
 
@@ -670,7 +670,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
                                                           ServiceOptions serviceOptions, MacOpcode macOpcode,
                                                           IdentifierCollection ic, long timestamp, String additionalDetails, String context)
     {
-        mLock.lock();
+        mAllocator.lock(frequency);
 
         try
         {
@@ -711,7 +711,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
         }
         finally
         {
-            mLock.unlock();
+            mAllocator.unlock(frequency);
         }
     }
 
@@ -727,7 +727,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
     public void processP2ChannelGrant(APCO25Channel apco25Channel, ServiceOptions serviceOptions,
                                       IdentifierCollection ic, MacOpcode macOpcode, long timestamp, String context)
     {
-        mLock.lock();
+        mAllocator.lock(apco25Channel.getDownlinkFrequency());
 
         try
         {
@@ -766,7 +766,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
         }
         finally
         {
-            mLock.unlock();
+            mAllocator.unlock(apco25Channel.getDownlinkFrequency());
         }
     }
 
@@ -782,7 +782,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
     public void processP1ControlDirectedChannelGrant(APCO25Channel apco25Channel, ServiceOptions serviceOptions,
                                                      IdentifierCollection ic, Opcode opcode, long timestamp, String context)
     {
-        mLock.lock();
+        mAllocator.lock(apco25Channel.getDownlinkFrequency());
 
         try
         {
@@ -802,7 +802,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
         }
         finally
         {
-            mLock.unlock();
+            mAllocator.unlock(apco25Channel.getDownlinkFrequency());
         }
     }
 
@@ -818,7 +818,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
                                           EncryptionKeyIdentifier eki, ServiceOptions serviceOptions,
                                           IChannelDescriptor channelDescriptor, long timestamp)
     {
-        mLock.lock();
+        mAllocator.lock(frequency);
 
         try
         {
@@ -858,7 +858,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
         }
         finally
         {
-            mLock.unlock();
+            mAllocator.unlock(frequency);
         }
     }
 
@@ -901,7 +901,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
      */
     public void processP1TrafficCurrentUser(long frequency, Identifier identifier, long timestamp, String context)
     {
-        mLock.lock();
+        mAllocator.lock(frequency);
 
         try
         {
@@ -929,7 +929,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
         }
         finally
         {
-            mLock.unlock();
+            mAllocator.unlock(frequency);
         }
     }
 
@@ -947,7 +947,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
      */
     public void processP1TrafficLDU1(long frequency, List<Identifier> identifiers, long timestamp, String context)
     {
-        mLock.lock();
+        mAllocator.lock(frequency);
 
         try
         {
@@ -1004,7 +1004,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
         }
         finally
         {
-            mLock.unlock();
+            mAllocator.unlock(frequency);
         }
     }
 
@@ -1022,7 +1022,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
                                             DecodeEventType decodeEventType, ServiceOptions serviceOptions,
                                             IdentifierCollection ic, long timestamp, String additionalDetails, String context)
     {
-        mLock.lock();
+        mAllocator.lock(frequency);
 
         try
         {
@@ -1061,7 +1061,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
         }
         finally
         {
-            mLock.unlock();
+            mAllocator.unlock(frequency);
         }
     }
 
@@ -1082,7 +1082,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
     public void processP1ControlAnnouncedTrafficUpdate(APCO25Channel channel, ServiceOptions serviceOptions,
                                                        IdentifierCollection ic, Opcode opcode, long timestamp, String context)
     {
-        mLock.lock();
+        mAllocator.lock(channel.getDownlinkFrequency());
 
         try
         {
@@ -1108,7 +1108,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
         }
         finally
         {
-            mLock.unlock();
+            mAllocator.unlock(channel.getDownlinkFrequency());
         }
     }
 
@@ -1122,7 +1122,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
     {
         boolean completed = false;
 
-        mLock.lock();
+        mAllocator.lock(frequency);
 
         try
         {
@@ -1137,7 +1137,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
         }
         finally
         {
-            mLock.unlock();
+            mAllocator.unlock(frequency);
         }
 
         return completed;
@@ -1146,7 +1146,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
     /**
      * Sends a channel start request to the ChannelProcessingManager.
      *
-     * Note: this method is not thread safe and the calling method must protect access using mLock.
+     * Note: the calling method must hold the allocator lock for the channel frequency.
      *
      * @param trafficChannel to use for the traffic channel
      * @param apco25Channel that describes the traffic channel downlink frequency
@@ -1172,8 +1172,6 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
                 p2.setScrambleParameters(mPhase2ScrambleParameters.copy());
             }
 
-            mAllocatedTrafficChannelMap.put(apco25Channel.getDownlinkFrequency(), trafficChannel);
-
             ChannelStartProcessingRequest startChannelRequest = new ChannelStartProcessingRequest(trafficChannel,
                     apco25Channel, identifierCollection, this);
             startChannelRequest.addPreloadDataContent(new PatchGroupPreLoadDataContent(identifierCollection, timestamp));
@@ -1185,11 +1183,11 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
             //Return the channel to the traffic channel pool since we didn't start it.
             if(mManagedPhase1TrafficChannels.contains(trafficChannel))
             {
-                mAvailablePhase1TrafficChannelQueue.add(trafficChannel);
+                mAllocator.release(trafficChannel, mAvailablePhase1TrafficChannelQueue);
             }
             else if(mManagedPhase2TrafficChannels.contains(trafficChannel))
             {
-                mAvailablePhase2TrafficChannelQueue.add(trafficChannel);
+                mAllocator.release(trafficChannel, mAvailablePhase2TrafficChannelQueue);
             }
         }
     }
@@ -1198,7 +1196,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
      * Processes Phase 1 control-only channel grants to allocate traffic channels and track overall channel usage.
      * Generates a tracked decode event for each new channel that is allocated.
      *
-     * Note: this method is not thread safe and the calling method must protect access using mLock.
+     * Note: the calling method must hold the allocator lock for the channel frequency.
      *
      * @param apco25Channel for the traffic channel
      * @param serviceOptions for the traffic channel - optional can be null
@@ -1241,9 +1239,9 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
 
             //Even though we have a tracked event, the initial channel grant may have been rejected.  Check to see if there
             //is a traffic channel allocated.  If not, allocate one and update the event description.
-            if(!mAllocatedTrafficChannelMap.containsKey(frequency) && !(mIgnoreDataCalls && isDataChannelGrant))
+            if(!mAllocator.isAllocated(frequency) && !(mIgnoreDataCalls && isDataChannelGrant))
             {
-                Channel trafficChannel = mAvailablePhase1TrafficChannelQueue.poll();
+                Channel trafficChannel = mAllocator.allocate(frequency, mAvailablePhase1TrafficChannelQueue);
 
                 if(trafficChannel != null)
                 {
@@ -1298,9 +1296,9 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
         addTracker(tracker, frequency, P25P1Message.TIMESLOT_1);
 
         //Allocate a traffic channel for the downlink frequency if one isn't already allocated
-        if(!mAllocatedTrafficChannelMap.containsKey(frequency))
+        if(!mAllocator.isAllocated(frequency))
         {
-            Channel trafficChannel = mAvailablePhase1TrafficChannelQueue.poll();
+            Channel trafficChannel = mAllocator.allocate(frequency, mAvailablePhase1TrafficChannelQueue);
 
             if(trafficChannel == null)
             {
@@ -1318,7 +1316,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
      * Processes Phase 2 channel grants from both the control channel and from traffic channels to allocate traffic
      * channels and track overall channel usage.  Generates decode events for each new channel that is allocated.
      *
-     * Note: this method is not thread safe and the calling method must protect access using mLock.
+     * Note: the calling method must hold the allocator lock for the channel frequency.
      *
      * @param apco25Channel for the traffic channel
      * @param serviceOptions for the traffic channel - optional can be null
@@ -1366,10 +1364,10 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
 
             //Even though we have a tracked event, the initial channel grant may have been rejected.  Check to see if there
             //is a traffic channel allocated.  If not, allocate one and update the event description.
-            if(!mAllocatedTrafficChannelMap.containsKey(frequency) && !(mIgnoreDataCalls && isDataChannelGrant) &&
+            if(!mAllocator.isAllocated(frequency) && !(mIgnoreDataCalls && isDataChannelGrant) &&
                 (getCurrentControlFrequency() != frequency))
             {
-                Channel trafficChannel = mAvailablePhase2TrafficChannelQueue.poll();
+                Channel trafficChannel = mAllocator.allocate(frequency, mAvailablePhase2TrafficChannelQueue);
 
                 if(trafficChannel != null)
                 {
@@ -1413,9 +1411,9 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
         addTracker(tracker, frequency, timeslot);
 
         //Allocate a traffic channel for the downlink frequency if one isn't already allocated
-        if(!mAllocatedTrafficChannelMap.containsKey(frequency) && frequency != getCurrentControlFrequency())
+        if(!mAllocator.isAllocated(frequency) && frequency != getCurrentControlFrequency())
         {
-            Channel trafficChannel = mAvailablePhase2TrafficChannelQueue.poll();
+            Channel trafficChannel = mAllocator.allocate(frequency, mAvailablePhase2TrafficChannelQueue);
 
             if(trafficChannel == null)
             {
@@ -1635,7 +1633,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
     @Override
     public void stop()
     {
-        List<Channel> channels = new ArrayList<>(mAllocatedTrafficChannelMap.values());
+        List<Channel> channels = mAllocator.getAllocatedChannels();
 
         //Issue a disable request for each traffic channel
         for(Channel channel: channels)
@@ -1648,6 +1646,7 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
         mAvailablePhase2TrafficChannelQueue.clear();
         mTS1ChannelGrantEventMap.clear();
         mTS2ChannelGrantEventMap.clear();
+        mLog.info(mAllocator.toString());
     }
 
     /**
@@ -1724,107 +1723,94 @@ public class P25TrafficChannelManager extends TrafficChannelManager implements I
 
             if(mManagedPhase1TrafficChannels.contains(channel))
             {
-                mLock.lock();
-
-                try
-                {
-                    switch(channelEvent.getEvent())
-                    {
-                        case NOTIFICATION_PROCESSING_STOP:
-                            mAllocatedTrafficChannelMap.entrySet()
-                                    .stream()
-                                    .filter(entry -> entry.getValue() == channel)
-                                    .map(Map.Entry::getKey)
-                                    .findFirst()
-                                    .ifPresent(frequency -> {
-                                        mAllocatedTrafficChannelMap.remove(frequency);
-                                        removeTracker(frequency, P25P1Message.TIMESLOT_1);
-                                        mAvailablePhase1TrafficChannelQueue.add(channel);
-                                    });
-                            break;
-                        case NOTIFICATION_PROCESSING_START_REJECTED:
-                            mAllocatedTrafficChannelMap.entrySet().stream()
-                                    .filter(entry -> entry.getValue() == channel)
-                                    .map(Map.Entry::getKey)
-                                    .findFirst()
-                                    .ifPresent(rejectedFrequency -> {
-                                        mAllocatedTrafficChannelMap.remove(rejectedFrequency);
-                                        mAvailablePhase1TrafficChannelQueue.add(channel);
-
-                                        //Leave the event in the map so that it doesn't get recreated.  The channel
-                                        //processing manager set the 'tuner not available' in the details already
-                                        P25TrafficChannelEventTracker tracker = getTracker(rejectedFrequency, P25P1Message.TIMESLOT_1);
-
-                                        if(tracker != null && !tracker.getEvent().getDetails().contains(CHANNEL_START_REJECTED))
-                                        {
-                                            tracker.setDetails(CHANNEL_START_REJECTED + " " + channelEvent.getDescription() +
-                                                    (tracker.getEvent().getDetails() != null ? " - " + tracker.getEvent().getDetails() : ""));
-                                        }
-                                        broadcast(tracker);
-                                    });
-                            break;
-                    }
-                }
-                finally
-                {
-                    mLock.unlock();
-                }
+                process(channelEvent, mAvailablePhase1TrafficChannelQueue, false);
             }
             else if(mManagedPhase2TrafficChannels.contains(channel))
             {
-                mLock.lock();
+                process(channelEvent, mAvailablePhase2TrafficChannelQueue, true);
+            }
+        }
+
+        /**
+         * Processes a channel event for a managed traffic channel.
+         * @param channelEvent to process
+         * @param pool that owns the traffic channel
+         * @param phase2 indicates if the channel is a two-timeslot phase 2 traffic channel
+         */
+        private void process(ChannelEvent channelEvent, Queue<Channel> pool, boolean phase2)
+        {
+            Channel channel = channelEvent.getChannel();
+
+            if(channelEvent.getEvent() == Event.NOTIFICATION_PROCESSING_START)
+            {
+                mAllocator.started(channel);
+                return;
+            }
 
-                try
+            if(channelEvent.getEvent() != Event.NOTIFICATION_PROCESSING_STOP &&
+               channelEvent.getEvent() != Event.NOTIFICATION_PROCESSING_START_REJECTED)
+            {
+                return;
+            }
+
+            Long frequency = mAllocator.getFrequency(channel);
+
+            if(frequency == null)
+            {
+                return;
+            }
+
+            mAllocator.lock(frequency);
+
+            try
+            {
+                if(mAllocator.release(channel, pool) == null)
                 {
-                    switch(channelEvent.getEvent())
+                    return;
+                }
+
+                if(channelEvent.getEvent() == Event.NOTIFICATION_PROCESSING_STOP)
+                {
+                    //Remove tracker from both timeslots
+                    removeTracker(frequency, P25P1Message.TIMESLOT_1);
+
+                    if(phase2)
                     {
-                        case NOTIFICATION_PROCESSING_STOP:
-                            mAllocatedTrafficChannelMap.entrySet()
-                                    .stream()
-                                    .filter(entry -> entry.getValue() == channel)
-                                    .map(Map.Entry::getKey)
-                                    .findFirst()
-                                    .ifPresent(frequency -> {
-                                        mAllocatedTrafficChannelMap.remove(frequency);
-                                        mAvailablePhase2TrafficChannelQueue.add(channel);
-                                        //Remove tracker from both timeslots
-                                        removeTracker(frequency, P25P1Message.TIMESLOT_1);
-                                        removeTracker(frequency, P25P1Message.TIMESLOT_2);
-                                    });
-                            break;
-                        case NOTIFICATION_PROCESSING_START_REJECTED:
-                            mAllocatedTrafficChannelMap.entrySet().stream()
-                                    .filter(entry -> entry.getValue() == channel)
-                                    .map(Map.Entry::getKey)
-                                    .findFirst()
-                                    .ifPresent(rejectedFrequency -> {
-                                        mAllocatedTrafficChannelMap.remove(rejectedFrequency);
-                                        mAvailablePhase2TrafficChannelQueue.add(channel);
-
-                                        //Leave the tracked event in the map so that it doesn't get recreated.  The channel
-                                        //processing manager set the 'tuner not available' in the details already
-                                        P25TrafficChannelEventTracker tracker = getTracker(rejectedFrequency, P25P1Message.TIMESLOT_1);
-                                        if (tracker != null)
-                                        {
-                                            broadcast(tracker);
-                                        }
-
-                                        //Leave the tracked event in the map so that it doesn't get recreated.  The channel
-                                        //processing manager set the 'tuner not available' in the details already
-                                        P25TrafficChannelEventTracker tracker2 = getTracker(rejectedFrequency, P25P1Message.TIMESLOT_2);
-                                        if (tracker2 != null)
-                                        {
-                                            broadcast(tracker2);
-                                        }
-                                    });
-                            break;
+                        removeTracker(frequency, P25P1Message.TIMESLOT_2);
                     }
                 }
-                finally
+                else
                 {
-                    mLock.unlock();
+                    //Leave the tracked event in the map so that it doesn't get recreated.  The channel
+                    //processing manager set the 'tuner not available' in the details already
+                    P25TrafficChannelEventTracker tracker = getTracker(frequency, P25P1Message.TIMESLOT_1);
+
+                    if(!phase2 && tracker != null && !tracker.getEvent().getDetails().contains(CHANNEL_START_REJECTED))
+                    {
+                        tracker.setDetails(CHANNEL_START_REJECTED + " " + channelEvent.getDescription() +
+                                (tracker.getEvent().getDetails() != null ? " - " + tracker.getEvent().getDetails() : ""));
+                    }
+
+                    if(tracker != null)
+                    {
+                        broadcast(tracker);
+                    }
+
+                    if(phase2)
+                    {
+                        P25TrafficChannelEventTracker tracker2 = getTracker(frequency, P25P1Message.TIMESLOT_2);
+
+                        if(tracker2 != null)
+                        {
+                            broadcast(tracker2);
+                        }
+                    }
                 }
             }
+            finally
+            {
+                mAllocator.unlock(frequency);
+            }
         }
     }
 }
@@ -0,0 +1,315 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.module.decode.traffic;
+
+import io.github.dsheirer.controller.channel.Channel;
+import io.github.dsheirer.util.LatencyHistogram;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrent traffic channel allocator for traffic channel managers.
+ *
+ * Allocated traffic channels are tracked in a concurrent map keyed by downlink frequency, and free traffic channels
+ * are held in lock-free pools (queues) that are owned by the traffic channel manager.  Access to the per-frequency
+ * (and per-timeslot) call event state of the traffic channel manager is protected by a set of striped locks, so that
+ * channel grants and updates for different frequencies, for example from several control channels of a multi-site
+ * system, don't block each other.  Operations that affect all frequencies can acquire all stripes with lockAll().
+ *
+ * Tracks allocation metrics: grant-to-start latency from allocation until the channel processing manager reports
+ * that the traffic channel started, lock contention and traffic channel pool exhaustion.
+ */
+public class TrafficChannelAllocator
+{
+    private static final int STRIPE_COUNT = 16;
+    private final Map<Long,Channel> mAllocatedChannels = new ConcurrentHashMap<>();
+    private final Map<Channel,Long> mAllocationTimestamps = new ConcurrentHashMap<>();
+    private final ReentrantLock[] mStripes = new ReentrantLock[STRIPE_COUNT];
+    private final LatencyHistogram mGrantToStartLatency;
+    private final LongAdder mLockCount = new LongAdder();
+    private final LongAdder mContendedLockCount = new LongAdder();
+    private final LongAdder mAllocationCount = new LongAdder();
+    private final LongAdder mPoolExhaustedCount = new LongAdder();
+    private final String mName;
+
+    /**
+     * Constructs an instance
+     * @param name for the allocator metrics (e.g. the control channel name)
+     */
+    public TrafficChannelAllocator(String name)
+    {
+        mName = name;
+        mGrantToStartLatency = new LatencyHistogram(name + " Grant To Start Latency", "ms");
+
+        for(int x = 0; x < STRIPE_COUNT; x++)
+        {
+            mStripes[x] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Acquires the lock that protects the state for the frequency.  Release the lock with unlock(frequency).
+     * @param frequency to lock
+     */
+    public void lock(long frequency)
+    {
+        ReentrantLock lock = getStripe(frequency);
+        mLockCount.increment();
+
+        if(!lock.tryLock())
+        {
+            mContendedLockCount.increment();
+            lock.lock();
+        }
+    }
+
+    /**
+     * Releases the lock for the frequency
+     * @param frequency to unlock
+     */
+    public void unlock(long frequency)
+    {
+        getStripe(frequency).unlock();
+    }
+
+    /**
+     * Acquires the locks for all frequencies, in stripe order.  Release the locks with unlockAll().
+     */
+    public void lockAll()
+    {
+        for(ReentrantLock stripe: mStripes)
+        {
+            stripe.lock();
+        }
+    }
+
+    /**
+     * Releases the locks for all frequencies
+     */
+    public void unlockAll()
+    {
+        for(int x = STRIPE_COUNT - 1; x >= 0; x--)
+        {
+            mStripes[x].unlock();
+        }
+    }
+
+    /**
+     * Lock stripe for the frequency
+     */
+    private ReentrantLock getStripe(long frequency)
+    {
+        long hash = frequency * 0x9E3779B97F4A7C15L;
+        return mStripes[(int)(hash >>> 60) & (STRIPE_COUNT - 1)];
+    }
+
+    /**
+     * Indicates if a channel is allocated to the frequency
+     */
+    public boolean isAllocated(long frequency)
+    {
+        return mAllocatedChannels.containsKey(frequency);
+    }
+
+    /**
+     * Channel allocated to the frequency
+     * @return channel or null
+     */
+    public Channel getChannel(long frequency)
+    {
+        return mAllocatedChannels.get(frequency);
+    }
+
+    /**
+     * Snapshot of the allocated channels
+     */
+    public List<Channel> getAllocatedChannels()
+    {
+        return new ArrayList<>(mAllocatedChannels.values());
+    }
+
+    /**
+     * Snapshot of the currently allocated frequencies.
+     */
+    public List<Long> getAllocatedFrequencies()
+    {
+        return new ArrayList<>(mAllocatedChannels.keySet());
+    }
+
+    /**
+     * Allocates a free traffic channel from the pool to the frequency.
+     * @param frequency for the traffic channel
+     * @param pool of free traffic channels
+     * @return allocated traffic channel, or null if the frequency is already allocated or the pool is empty
+     */
+    public Channel allocate(long frequency, Queue<Channel> pool)
+    {
+        if(mAllocatedChannels.containsKey(frequency))
+        {
+            return null;
+        }
+
+        Channel channel = pool.poll();
+
+        if(channel == null)
+        {
+            mPoolExhaustedCount.increment();
+            return null;
+        }
+
+        if(mAllocatedChannels.putIfAbsent(frequency, channel) != null)
+        {
+            pool.offer(channel);
+            return null;
+        }
+
+        mAllocationTimestamps.put(channel, System.currentTimeMillis());
+        mAllocationCount.increment();
+        return channel;
+    }
+
+    /**
+     * Reserves the frequency for a channel that is not allocated from a pool (e.g. the control channel) so that a
+     * traffic channel is not allocated against it.
+     */
+    public void reserve(long frequency, Channel channel)
+    {
+        mAllocatedChannels.put(frequency, channel);
+    }
+
+    /**
+     * Removes the allocation or reservation for the frequency without returning the channel to a pool.
+     */
+    public void remove(long frequency)
+    {
+        Channel channel = mAllocatedChannels.remove(frequency);
+
+        if(channel != null)
+        {
+            mAllocationTimestamps.remove(channel);
+        }
+    }
+
+    /**
+     * Frequency that the traffic channel is allocated to
+     * @param channel to find
+     * @return frequency, or null if the channel is not allocated
+     */
+    public Long getFrequency(Channel channel)
+    {
+        for(Map.Entry<Long,Channel> entry: mAllocatedChannels.entrySet())
+        {
+            if(entry.getValue() == channel)
+            {
+                return entry.getKey();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Releases the traffic channel allocation and returns the channel to the pool.
+     * @param channel to release
+     * @param pool to receive the released channel
+     * @return frequency that was released, or null if the channel was not allocated
+     */
+    public Long release(Channel channel, Queue<Channel> pool)
+    {
+        Long frequency = getFrequency(channel);
+
+        if(frequency != null && mAllocatedChannels.remove(frequency, channel))
+        {
+            mAllocationTimestamps.remove(channel);
+            pool.offer(channel);
+            return frequency;
+        }
+
+        return null;
+    }
+
+    /**
+     * Records the grant-to-start latency when the channel processing manager reports that the traffic channel started.
+     * @param channel that started
+     */
+    public void started(Channel channel)
+    {
+        Long allocated = mAllocationTimestamps.remove(channel);
+
+        if(allocated != null)
+        {
+            mGrantToStartLatency.add(System.currentTimeMillis() - allocated);
+        }
+    }
+
+    /**
+     * Removes all allocations and reservations
+     */
+    public void clear()
+    {
+        mAllocatedChannels.clear();
+        mAllocationTimestamps.clear();
+    }
+
+    /**
+     * Grant to start latency for allocated traffic channels
+     */
+    public LatencyHistogram getGrantToStartLatency()
+    {
+        return mGrantToStartLatency;
+    }
+
+    /**
+     * Number of lock acquisitions that had to wait for another thread
+     */
+    public long getContendedLockCount()
+    {
+        return mContendedLockCount.sum();
+    }
+
+    /**
+     * Number of allocation attempts that failed because the traffic channel pool was empty
+     */
+    public long getPoolExhaustedCount()
+    {
+        return mPoolExhaustedCount.sum();
+    }
+
+    /**
+     * Number of traffic channel allocations
+     */
+    public long getAllocationCount()
+    {
+        return mAllocationCount.sum();
+    }
+
+    @Override
+    public String toString()
+    {
+        return mName + " Traffic Channel Allocations:" + getAllocationCount() + " Pool Exhausted:" +
+            getPoolExhaustedCount() + " Lock Contention:" + getContendedLockCount() + "/" + mLockCount.sum() + " " +
+            mGrantToStartLatency;
+    }
+}
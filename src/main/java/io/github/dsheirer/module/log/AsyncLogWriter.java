@@ -0,0 +1,423 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+
+package io.github.dsheirer.module.log;
+
+import io.github.dsheirer.controller.NamingThreadFactory;
+import io.github.dsheirer.util.ThreadPool;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Asynchronous log file writer.  Producer threads (e.g. decoders) enqueue formatted lines on a lock-free queue and a
+ * single writer thread, shared by all log writers, drains the queues in batches.  Lines are written through a buffered
+ * writer that is flushed once per batch, so the producer threads never wait on the disk.
+ *
+ * The log file can be rotated when it exceeds a maximum size or age, and closed log files can optionally be
+ * compressed (gzip) on a background thread.
+ *
+ * Use closeAll() during application shutdown to close the running writers and wait for the queued lines to be written
+ * and the closed log files to be compressed.
+ */
+public class AsyncLogWriter
+{
+    private static final Logger mLog = LoggerFactory.getLogger(AsyncLogWriter.class);
+    private static final ScheduledExecutorService WRITER_EXECUTOR =
+            Executors.newSingleThreadScheduledExecutor(new NamingThreadFactory("sdrtrunk log writer"));
+    private static final long FLUSH_INTERVAL_MS = 1000;
+    private static final int BATCH_SIZE = 512;
+    private static final int MAXIMUM_PENDING_LINES = 50000;
+    private static final int BUFFER_SIZE = 65536;
+    private static final Set<AsyncLogWriter> RUNNING_WRITERS = ConcurrentHashMap.newKeySet();
+    private static final Set<CompletableFuture<Void>> PENDING_CLOSES = ConcurrentHashMap.newKeySet();
+
+    private final Queue<String> mQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger mPendingCount = new AtomicInteger();
+    private final AtomicInteger mDroppedCount = new AtomicInteger();
+    private final AtomicBoolean mDrainScheduled = new AtomicBoolean();
+    private final Set<CompletableFuture<Void>> mCompressions = ConcurrentHashMap.newKeySet();
+    private final Supplier<Path> mPathSupplier;
+    private final String mHeader;
+    private long mMaximumFileSize;
+    private long mMaximumFileAge;
+    private boolean mCompress;
+    private ScheduledFuture<?> mFlushFuture;
+    private volatile boolean mRunning;
+    private volatile Path mPath;
+    private BufferedWriter mWriter;
+    private long mCharactersWritten;
+    private long mOpenedTimestamp;
+    private boolean mFailed;
+
+    /**
+     * Constructs an instance
+     * @param pathSupplier to create the path for each new log file, invoked when the log is opened or rotated.
+     * @param header to write at the start of each log file, or null.
+     */
+    public AsyncLogWriter(Supplier<Path> pathSupplier, String header)
+    {
+        mPathSupplier = pathSupplier;
+        mHeader = header;
+    }
+
+    /**
+     * Sets the log rotation policy.  Invoke before starting the writer.
+     * @param maximumFileSize in bytes (approximate) before the log is rotated, or 0 for no size limit.
+     * @param maximumFileAge in milliseconds before the log is rotated, or 0 for no age limit.
+     * @param compress true to gzip each log file once it is closed.
+     */
+    public void setRotation(long maximumFileSize, long maximumFileAge, boolean compress)
+    {
+        mMaximumFileSize = maximumFileSize;
+        mMaximumFileAge = maximumFileAge;
+        mCompress = compress;
+    }
+
+    /**
+     * Starts the periodic flush of queued lines.  The log file is created and the header is written on the writer
+     * thread.
+     */
+    public synchronized void start()
+    {
+        if(!mRunning)
+        {
+            mRunning = true;
+            mFailed = false;
+            WRITER_EXECUTOR.execute(() -> {
+                if(mWriter == null && !mFailed)
+                {
+                    openFile();
+                }
+            });
+            mFlushFuture = WRITER_EXECUTOR.scheduleWithFixedDelay(() -> drain(false), 0, FLUSH_INTERVAL_MS,
+                    TimeUnit.MILLISECONDS);
+            RUNNING_WRITERS.add(this);
+        }
+    }
+
+    /**
+     * Stops the writer.  Queued lines are written and the log file is closed (and compressed) on the writer thread.
+     * @return future that completes once the log file is closed and, when enabled, the log file and any rotated log
+     * files are compressed.
+     */
+    public synchronized CompletableFuture<Void> close()
+    {
+        if(!mRunning)
+        {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        mRunning = false;
+        RUNNING_WRITERS.remove(this);
+
+        if(mFlushFuture != null)
+        {
+            mFlushFuture.cancel(false);
+            mFlushFuture = null;
+        }
+
+        CompletableFuture<Path> closed = new CompletableFuture<>();
+
+        WRITER_EXECUTOR.execute(() -> {
+            drain(true);
+            closed.complete(closeFile());
+        });
+
+        CompletableFuture<Void> future = closed.thenCompose(this::compress)
+                .thenCompose(ignored -> CompletableFuture.allOf(mCompressions.toArray(new CompletableFuture[0])));
+        PENDING_CLOSES.add(future);
+        future.whenComplete((ignored, throwable) -> PENDING_CLOSES.remove(future));
+        return future;
+    }
+
+    /**
+     * Closes all running log writers and waits for all closed writers to finish writing the queued lines and
+     * compressing the closed log files.  Invoke during application shutdown.
+     * @param timeout in milliseconds to wait
+     */
+    public static void closeAll(long timeout)
+    {
+        for(AsyncLogWriter writer: new ArrayList<>(RUNNING_WRITERS))
+        {
+            writer.close();
+        }
+
+        try
+        {
+            CompletableFuture.allOf(PENDING_CLOSES.toArray(new CompletableFuture[0])).get(timeout, TimeUnit.MILLISECONDS);
+        }
+        catch(TimeoutException te)
+        {
+            mLog.warn("Timeout waiting for log writers to close - some log lines may be lost");
+        }
+        catch(ExecutionException ee)
+        {
+            mLog.error("Error while closing log writers", ee);
+        }
+        catch(InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues the line for writing.  Lines are dropped (and counted) when the writer thread falls too far behind.
+     * @param line to write, without a line terminator.
+     */
+    public void write(String line)
+    {
+        if(!mRunning)
+        {
+            return;
+        }
+
+        if(mPendingCount.get() >= MAXIMUM_PENDING_LINES)
+        {
+            if(mDroppedCount.getAndIncrement() % 10000 == 0)
+            {
+                mLog.warn("Log writer queue is full - dropping lines for log [" + mPath + "]");
+            }
+
+            return;
+        }
+
+        mQueue.offer(line != null ? line : "");
+
+        //Drain early when a full batch is waiting, rather than waiting for the flush interval
+        if(mPendingCount.incrementAndGet() >= BATCH_SIZE && mDrainScheduled.compareAndSet(false, true))
+        {
+            WRITER_EXECUTOR.execute(() -> drain(false));
+        }
+    }
+
+    /**
+     * Path of the current log file, or null if the log file hasn't been created.
+     */
+    public Path getPath()
+    {
+        return mPath;
+    }
+
+    /**
+     * Number of lines that were dropped because the writer queue was full.
+     */
+    public int getDroppedCount()
+    {
+        return mDroppedCount.get();
+    }
+
+    /**
+     * Writes queued lines to the log file and flushes the file.  Invoked only on the writer thread.
+     * @param closing true for the final drain when the writer is closed.
+     */
+    private void drain(boolean closing)
+    {
+        mDrainScheduled.set(false);
+
+        //A drain that was scheduled by a write that raced close() runs after the close task and must not open a new
+        //log file that would never be closed.
+        if(!closing && !mRunning)
+        {
+            return;
+        }
+
+        String line = mQueue.poll();
+
+        if(line == null)
+        {
+            return;
+        }
+
+        try
+        {
+            while(line != null)
+            {
+                mPendingCount.decrementAndGet();
+
+                if(!mFailed)
+                {
+                    if(mWriter != null && isRotationRequired())
+                    {
+                        compress(closeFile());
+                    }
+
+                    if(mWriter == null)
+                    {
+                        openFile();
+                    }
+
+                    if(mWriter != null)
+                    {
+                        mWriter.write(line);
+                        mWriter.write('\n');
+                        mCharactersWritten += line.length() + 1;
+                    }
+                }
+
+                line = mQueue.poll();
+            }
+
+            if(mWriter != null)
+            {
+                mWriter.flush();
+            }
+        }
+        catch(IOException ioe)
+        {
+            mLog.error("Error writing to log file [" + mPath + "] - logging is disabled for this log", ioe);
+            closeFile();
+            mFailed = true;
+        }
+    }
+
+    /**
+     * Indicates if the current log file has exceeded the maximum size or age.
+     */
+    private boolean isRotationRequired()
+    {
+        return (mMaximumFileSize > 0 && mCharactersWritten >= mMaximumFileSize) ||
+                (mMaximumFileAge > 0 && System.currentTimeMillis() - mOpenedTimestamp >= mMaximumFileAge);
+    }
+
+    /**
+     * Creates a new log file and writes the header.
+     */
+    private void openFile()
+    {
+        Path path = mPathSupplier.get();
+
+        try
+        {
+            mWriter = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(path), StandardCharsets.UTF_8),
+                    BUFFER_SIZE);
+            mPath = path;
+            mCharactersWritten = 0;
+            mOpenedTimestamp = System.currentTimeMillis();
+
+            if(mHeader != null)
+            {
+                mWriter.write(mHeader);
+                mWriter.write('\n');
+                mCharactersWritten += mHeader.length() + 1;
+            }
+
+            mWriter.flush();
+        }
+        catch(IOException ioe)
+        {
+            mLog.error("Couldn't create log file [" + path + "] - logging is disabled for this log", ioe);
+            mWriter = null;
+            mFailed = true;
+        }
+    }
+
+    /**
+     * Closes the current log file.
+     * @return path of the closed file, or null if there was no open file.
+     */
+    private Path closeFile()
+    {
+        Path path = null;
+
+        if(mWriter != null)
+        {
+            path = mPath;
+
+            try
+            {
+                mWriter.close();
+            }
+            catch(IOException ioe)
+            {
+                mLog.error("Error closing log file [" + path + "]", ioe);
+            }
+
+            mWriter = null;
+        }
+
+        return path;
+    }
+
+    /**
+     * Compresses the closed log file to a .gz file on a background thread and deletes the original file, when
+     * compression is enabled.
+     * @param path of the closed log file, or null.
+     * @return future that completes when the compression is finished.
+     */
+    private CompletableFuture<Void> compress(Path path)
+    {
+        if(!mCompress || path == null)
+        {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+            Path compressed = path.resolveSibling(path.getFileName() + ".gz");
+
+            try(InputStream in = Files.newInputStream(path);
+                OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed), BUFFER_SIZE))
+            {
+                in.transferTo(out);
+            }
+            catch(IOException ioe)
+            {
+                mLog.error("Error compressing log file [" + path + "]", ioe);
+                return;
+            }
+
+            try
+            {
+                Files.delete(path);
+            }
+            catch(IOException ioe)
+            {
+                mLog.error("Error deleting compressed log file [" + path + "]", ioe);
+            }
+        }, ThreadPool.CACHED);
+
+        mCompressions.add(future);
+        future.whenComplete((ignored, throwable) -> mCompressions.remove(future));
+        return future;
+    }
+}
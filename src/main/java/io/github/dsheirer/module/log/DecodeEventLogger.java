@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- * Copyright (C) 2014-2024 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -18,6 +18,7 @@
  */
 package io.github.dsheirer.module.log;
 
+import io.github.dsheirer.alias.Alias;
 import io.github.dsheirer.alias.AliasList;
 import io.github.dsheirer.alias.AliasModel;
 import io.github.dsheirer.channel.IChannelDescriptor;
@@ -31,19 +32,25 @@ import io.github.dsheirer.module.decode.event.IDecodeEvent;
 import io.github.dsheirer.module.decode.event.IDecodeEventListener;
 import io.github.dsheirer.preference.TimestampFormat;
 import io.github.dsheirer.sample.Listener;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.text.DecimalFormat;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.QuoteMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class DecodeEventLogger extends EventLogger implements IDecodeEventListener, Listener<IDecodeEvent>
 {
-    private SimpleDateFormat mTimestampFormat = TimestampFormat.TIMESTAMP_COLONS.getFormatter();
+    private static final Logger mLog = LoggerFactory.getLogger(DecodeEventLogger.class);
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter
+            .ofPattern(TimestampFormat.TIMESTAMP_COLONS.getFormat()).withZone(ZoneId.systemDefault());
     private DecimalFormat mFrequencyFormat = new DecimalFormat("0.000000");
+    private final StringBuilder mRow = new StringBuilder(256);
     private AliasList mAliasList;
     private AliasModel mAliasModel;
 
@@ -66,7 +73,12 @@ public class DecodeEventLogger extends EventLogger implements IDecodeEventListen
     @Override
     public void receive(IDecodeEvent decodeEvent)
     {
-        write(toCSV(decodeEvent));
+        String row = toCSV(decodeEvent);
+
+        if(row != null)
+        {
+            write(row);
+        }
     }
 
     @Override
@@ -91,87 +103,93 @@ public class DecodeEventLogger extends EventLogger implements IDecodeEventListen
         return "TIMESTAMP,DURATION_MS,PROTOCOL,EVENT,FROM,TO,CHANNEL_NUMBER,FREQUENCY,TIMESLOT,DETAILS,EVENT_ID";
     }
 
-    private String toCSV(IDecodeEvent event)
+    /**
+     * Formats the event as a CSV row.  The event is formatted on the calling thread since decode events continue to be
+     * updated after they are logged, but the row builder and formatters are reused across events.
+     */
+    private synchronized String toCSV(IDecodeEvent event)
     {
-        List<Object> cells = new ArrayList<>();
-
-        cells.add(mTimestampFormat.format(new Date(event.getTimeStart())));
-        cells.add(event.getDuration() > 0 ? event.getDuration() : "");
-        cells.add(event.getProtocol());
-        cells.add(event.getEventType());
+        mRow.setLength(0);
 
-        Identifier fromIdentifier = event.getIdentifierCollection().getFromIdentifier();
-        if(fromIdentifier != null)
-        {
-            cells.add(fromIdentifier);
-        }
-        else
+        try
         {
-            cells.add("");
-        }
+            cell(TIMESTAMP_FORMATTER.format(Instant.ofEpochMilli(event.getTimeStart())), true);
+            cell(event.getDuration() > 0 ? event.getDuration() : "", false);
+            cell(event.getProtocol(), false);
+            cell(event.getEventType(), false);
 
-        Identifier toIdentifier = event.getIdentifierCollection().getToIdentifier();
+            Identifier fromIdentifier = event.getIdentifierCollection().getFromIdentifier();
+            cell(fromIdentifier != null ? fromIdentifier : "", false);
 
-        if(toIdentifier != null)
-        {
-            Identifier identifier = event.getIdentifierCollection()
-                .getIdentifier(IdentifierClass.CONFIGURATION,Form.ALIAS_LIST,Role.ANY);
-            mAliasList = mAliasModel.getAliasList((AliasListConfigurationIdentifier)identifier);
+            Identifier toIdentifier = event.getIdentifierCollection().getToIdentifier();
 
-            if(mAliasList != null)
+            if(toIdentifier != null)
             {
-                String mystring = (!mAliasList.getAliases(toIdentifier).isEmpty()) ?
-                    mAliasList.getAliases(toIdentifier).toString() : "";
-                cells.add(mystring + " (" + toIdentifier + ")");
+                Identifier identifier = event.getIdentifierCollection()
+                    .getIdentifier(IdentifierClass.CONFIGURATION,Form.ALIAS_LIST,Role.ANY);
+                mAliasList = mAliasModel.getAliasList((AliasListConfigurationIdentifier)identifier);
+
+                if(mAliasList != null)
+                {
+                    List<Alias> aliases = mAliasList.getAliases(toIdentifier);
+                    String mystring = !aliases.isEmpty() ? aliases.toString() : "";
+                    cell(mystring + " (" + toIdentifier + ")", false);
+                }
+                else
+                {
+                    cell("", false);
+                }
             }
             else
             {
-                cells.add("");
+                cell("", false);
             }
-        }
-        else
-        {
-            cells.add("");
-        }
 
-        IChannelDescriptor descriptor = event.getChannelDescriptor();
-        cells.add(descriptor != null ? descriptor : "");
+            IChannelDescriptor descriptor = event.getChannelDescriptor();
+            cell(descriptor != null ? descriptor : "", false);
 
-        if(descriptor != null)
-        {
-            cells.add(mFrequencyFormat.format(descriptor.getDownlinkFrequency() / 1e6d));
-        }
-        else
-        {
-            Identifier frequency = event.getIdentifierCollection()
-                    .getIdentifier(IdentifierClass.CONFIGURATION, Form.CHANNEL_FREQUENCY, Role.ANY);
-
-            if(frequency instanceof FrequencyConfigurationIdentifier)
+            if(descriptor != null)
             {
-                cells.add(mFrequencyFormat
-                        .format(((FrequencyConfigurationIdentifier)frequency).getValue() / 1e6d));
-
+                cell(mFrequencyFormat.format(descriptor.getDownlinkFrequency() / 1e6d), false);
             }
             else
             {
-                cells.add("");
+                Identifier frequency = event.getIdentifierCollection()
+                        .getIdentifier(IdentifierClass.CONFIGURATION, Form.CHANNEL_FREQUENCY, Role.ANY);
+
+                if(frequency instanceof FrequencyConfigurationIdentifier)
+                {
+                    cell(mFrequencyFormat.format(((FrequencyConfigurationIdentifier)frequency).getValue() / 1e6d), false);
+                }
+                else
+                {
+                    cell("", false);
+                }
             }
-        }
 
-        if(event.hasTimeslot())
-        {
-            cells.add("TS:" + event.getTimeslot());
+            cell(event.hasTimeslot() ? "TS:" + event.getTimeslot() : "", false);
+
+            String details = event.getDetails();
+            cell(details != null ? details : "", false);
+
+            cell(event.hashCode(), false);
         }
-        else
+        catch(IOException ioe)
         {
-            cells.add("");
+            mLog.error("Error formatting decode event log entry", ioe);
+            return null;
         }
 
-        String details = event.getDetails();
-        cells.add(details != null ? details : "");
-
-        cells.add(event.hashCode());
+        return mRow.toString();
+    }
 
-        return mCsvFormat.format(cells.toArray());
+    /**
+     * Appends the value to the current row as a quoted CSV cell.
+     * @param value to append
+     * @param first true if this is the first cell in the row
+     */
+    private void cell(Object value, boolean first) throws IOException
+    {
+        mCsvFormat.print(value, mRow, first);
     }
 }
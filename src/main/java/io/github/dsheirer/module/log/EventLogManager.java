@@ -1,7 +1,7 @@
 /*
  * ******************************************************************************
  * sdrtrunk
- * Copyright (C) 2014-2018 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -23,22 +23,38 @@ import io.github.dsheirer.alias.AliasModel;
 import io.github.dsheirer.controller.channel.Channel;
 import io.github.dsheirer.module.Module;
 import io.github.dsheirer.module.log.config.EventLogConfiguration;
+import io.github.dsheirer.module.log.store.EventStore;
+import io.github.dsheirer.module.log.store.EventStoreLogger;
 import io.github.dsheirer.preference.UserPreferences;
+import io.github.dsheirer.properties.SystemProperties;
 import io.github.dsheirer.source.config.SourceConfigTuner;
 import io.github.dsheirer.util.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class EventLogManager
 {
     private final static Logger mLog = LoggerFactory.getLogger(EventLogManager.class);
+    public static final String ROTATION_SIZE_MB_PROPERTY = "event.log.rotation.size.mb";
+    public static final String ROTATION_HOURS_PROPERTY = "event.log.rotation.hours";
+    public static final String COMPRESS_PROPERTY = "event.log.compress";
+    private static final int DEFAULT_ROTATION_SIZE_MB = 0;
+    public static final String EVENT_STORE_ENABLED_PROPERTY = "event.store.enabled";
+    public static final String EVENT_STORE_RETENTION_DAYS_PROPERTY = "event.store.retention.days";
+    private static final int DEFAULT_EVENT_STORE_RETENTION_DAYS = 365;
+    private static final String EVENT_STORE_FOLDER = "event_store";
+    private static final long SHUTDOWN_TIMEOUT_MS = 10000;
 
     private UserPreferences mUserPreferences;
     private AliasModel mAliasModel;
+    private EventStore mEventStore;
+    private boolean mEventStoreFailed;
 
     public EventLogManager(AliasModel aliasModel, UserPreferences userPreferences)
     {
@@ -80,10 +96,79 @@ public class EventLogManager
             }
         }
 
+        EventStore eventStore = getEventStore();
+
+        if(eventStore != null)
+        {
+            loggers.add(new EventStoreLogger(eventStore));
+        }
+
         return loggers;
     }
 
+    /**
+     * Shared decode event store, opened on first use when the event store is enabled.
+     * @return event store or null if the event store is disabled or couldn't be opened.
+     */
+    public synchronized EventStore getEventStore()
+    {
+        if(mEventStore == null && !mEventStoreFailed &&
+                SystemProperties.getInstance().get(EVENT_STORE_ENABLED_PROPERTY, false))
+        {
+            Path directory = mUserPreferences.getDirectoryPreference().getDirectoryEventLog().resolve(EVENT_STORE_FOLDER);
+            EventStore eventStore = new EventStore(directory, false);
+            int days = SystemProperties.getInstance().get(EVENT_STORE_RETENTION_DAYS_PROPERTY,
+                    DEFAULT_EVENT_STORE_RETENTION_DAYS);
+            eventStore.setRetention(TimeUnit.DAYS.toMillis(days));
+
+            try
+            {
+                eventStore.open();
+                eventStore.start();
+                mEventStore = eventStore;
+                mLog.info("Decode event store opened [" + directory + "]");
+            }
+            catch(IOException ioe)
+            {
+                mLog.error("Couldn't open decode event store [" + directory + "] - event store is disabled", ioe);
+                mEventStoreFailed = true;
+            }
+        }
+
+        return mEventStore;
+    }
+
+    /**
+     * Closes the event log writers and the decode event store, if open.
+     */
+    public synchronized void shutdown()
+    {
+        //Wait for the event loggers that were closed when the channels stopped to finish writing
+        AsyncLogWriter.closeAll(SHUTDOWN_TIMEOUT_MS);
+
+        if(mEventStore != null)
+        {
+            mEventStore.close();
+            mEventStore = null;
+        }
+    }
+
     public EventLogger getLogger(EventLogType eventLogType, String prefix, long frequency)
+    {
+        EventLogger logger = createLogger(eventLogType, prefix, frequency);
+
+        if(logger != null)
+        {
+            SystemProperties properties = SystemProperties.getInstance();
+            long size = properties.get(ROTATION_SIZE_MB_PROPERTY, DEFAULT_ROTATION_SIZE_MB) * 1024l * 1024l;
+            long age = properties.get(ROTATION_HOURS_PROPERTY, 0) * 3600000l;
+            logger.setRotation(size, age, properties.get(COMPRESS_PROPERTY, false));
+        }
+
+        return logger;
+    }
+
+    private EventLogger createLogger(EventLogType eventLogType, String prefix, long frequency)
     {
         StringBuilder sb = new StringBuilder();
 
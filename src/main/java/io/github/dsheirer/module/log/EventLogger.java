@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- * Copyright (C) 2014-2022 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -20,24 +20,21 @@ package io.github.dsheirer.module.log;
 
 import io.github.dsheirer.module.Module;
 import io.github.dsheirer.util.TimeStamp;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
 import java.nio.file.Path;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
+/**
+ * Base event logger.  Log entries are queued and written to the log file asynchronously by an AsyncLogWriter, so that
+ * the decoder threads that produce the entries don't wait on the disk.
+ */
 public abstract class EventLogger extends Module
 {
-    private final static Logger mLog = LoggerFactory.getLogger(EventLogger.class);
-
     private Path mLogDirectory;
     private String mFileNameSuffix;
-    private String mLogFileName;
     private long mFrequency;
-    protected Writer mLogFile;
+    private long mMaximumFileSize;
+    private long mMaximumFileAge;
+    private boolean mCompress;
+    private volatile AsyncLogWriter mLogWriter;
 
     public EventLogger(Path logDirectory, String fileNameSuffix, long frequency)
     {
@@ -48,9 +45,11 @@ public abstract class EventLogger extends Module
 
     public String toString()
     {
-        if(mLogFileName != null)
+        AsyncLogWriter writer = mLogWriter;
+
+        if(writer != null && writer.getPath() != null)
         {
-            return mLogFileName;
+            return writer.getPath().toString();
         }
         else
         {
@@ -60,64 +59,62 @@ public abstract class EventLogger extends Module
 
     public abstract String getHeader();
 
+    /**
+     * Sets the log file rotation policy.  Invoke before starting the logger.
+     * @param maximumFileSize in bytes before the log file is rotated, or 0 for no size limit.
+     * @param maximumFileAge in milliseconds before the log file is rotated, or 0 for no age limit.
+     * @param compress true to gzip each log file once it is closed.
+     */
+    public void setRotation(long maximumFileSize, long maximumFileAge, boolean compress)
+    {
+        mMaximumFileSize = maximumFileSize;
+        mMaximumFileAge = maximumFileAge;
+        mCompress = compress;
+    }
+
+    /**
+     * Creates the path for a new log file, named with the current timestamp.
+     */
+    private Path createLogPath()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(TimeStamp.getLongTimeStamp("_"));
+        sb.append("_");
+        sb.append(mFrequency);
+        sb.append("_Hz_");
+        sb.append(mFileNameSuffix);
+
+        return mLogDirectory.resolve(sb.toString());
+    }
+
     @Override
     public void start()
     {
-        if(mLogFile == null)
+        if(mLogWriter == null)
         {
-            try
-            {
-                StringBuilder sb = new StringBuilder();
-                sb.append(mLogDirectory);
-                sb.append(File.separator);
-                sb.append(TimeStamp.getLongTimeStamp("_"));
-                sb.append("_");
-                sb.append(mFrequency);
-                sb.append("_Hz_");
-                sb.append(mFileNameSuffix);
-
-                mLogFileName = sb.toString();
-                mLogFile = new OutputStreamWriter(new FileOutputStream(mLogFileName));
-
-                write(getHeader());
-            }
-            catch(FileNotFoundException e)
-            {
-                mLog.error("Couldn't create log file in directory:" + mLogDirectory);
-            }
+            mLogWriter = new AsyncLogWriter(this::createLogPath, getHeader());
+            mLogWriter.setRotation(mMaximumFileSize, mMaximumFileAge, mCompress);
+            mLogWriter.start();
         }
     }
 
     public void stop()
     {
-        if(mLogFile != null)
+        if(mLogWriter != null)
         {
-            try
-            {
-                mLogFile.flush();
-                mLogFile.close();
-                mLogFile = null;
-            }
-            catch(Exception e)
-            {
-                mLog.error("Couldn't close log file:" + mFileNameSuffix);
-            }
+            //The log file is closed on the writer thread.  Application shutdown waits for it via closeAll().
+            mLogWriter.close();
+            mLogWriter = null;
         }
     }
 
     protected void write(String eventLogEntry)
     {
-        try
-        {
-            if(mLogFile != null)
-            {
-                mLogFile.write((eventLogEntry != null ? eventLogEntry : "") + "\n");
-                mLogFile.flush();
-            }
-        }
-        catch(Exception e)
+        AsyncLogWriter writer = mLogWriter;
+
+        if(writer != null)
         {
-            mLog.error("Error writing entry to event log file", e);
+            writer.write(eventLogEntry);
         }
     }
 }
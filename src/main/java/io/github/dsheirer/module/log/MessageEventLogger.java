@@ -20,9 +20,10 @@ package io.github.dsheirer.module.log;
 import io.github.dsheirer.message.IMessage;
 import io.github.dsheirer.message.IMessageListener;
 import io.github.dsheirer.sample.Listener;
-import io.github.dsheirer.util.TimeStamp;
-
 import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 
 public class MessageEventLogger extends EventLogger implements IMessageListener, Listener<IMessage>
 {
@@ -31,6 +32,8 @@ public class MessageEventLogger extends EventLogger implements IMessageListener,
         BINARY, DECODED
     }
 
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd HHmmss")
+            .withZone(ZoneId.systemDefault());
     private Type mType;
 
     public MessageEventLogger(Path logDirectory, String fileNameSuffix, Type type, long frequency)
@@ -53,8 +56,8 @@ public class MessageEventLogger extends EventLogger implements IMessageListener,
     @Override
     public void receive(IMessage message)
     {
-        StringBuilder sb = new StringBuilder();
-        sb.append(TimeStamp.getTimeStamp(message.getTimestamp(), " "));
+        StringBuilder sb = new StringBuilder(128);
+        TIMESTAMP_FORMATTER.formatTo(Instant.ofEpochMilli(message.getTimestamp()), sb);
         sb.append(",");
         sb.append((message.isValid() ? "PASSED" : "FAILED"));
         sb.append(",");
@@ -0,0 +1,202 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+
+package io.github.dsheirer.module.log.store;
+
+import io.github.dsheirer.module.log.store.SegmentIndex.Dimension;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Event store query.  All criteria are optional and are combined (AND).  Create instances with the builder.
+ */
+public class EventQuery
+{
+    private final long mStart;
+    private final long mEnd;
+    private final int mLimit;
+    private final Map<Dimension,String> mDimensions;
+
+    private EventQuery(Builder builder)
+    {
+        mStart = builder.mStart;
+        mEnd = builder.mEnd;
+        mLimit = builder.mLimit;
+        mDimensions = Collections.unmodifiableMap(new EnumMap<>(builder.mDimensions));
+    }
+
+    /**
+     * Start of the time range (inclusive) in milliseconds
+     */
+    public long getStart()
+    {
+        return mStart;
+    }
+
+    /**
+     * End of the time range (exclusive) in milliseconds
+     */
+    public long getEnd()
+    {
+        return mEnd;
+    }
+
+    /**
+     * Maximum number of (most recent) events to return
+     */
+    public int getLimit()
+    {
+        return mLimit;
+    }
+
+    /**
+     * Index dimension values to match
+     */
+    public Map<Dimension,String> getDimensions()
+    {
+        return mDimensions;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Event Query [" + mStart + " - " + mEnd + "] " + mDimensions + " limit:" + mLimit;
+    }
+
+    /**
+     * Creates a new query builder
+     */
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    /**
+     * Builder for event queries
+     */
+    public static class Builder
+    {
+        private long mStart = Long.MIN_VALUE;
+        private long mEnd = Long.MAX_VALUE;
+        private int mLimit = Integer.MAX_VALUE;
+        private final Map<Dimension,String> mDimensions = new EnumMap<>(Dimension.class);
+
+        private Builder()
+        {
+        }
+
+        /**
+         * Events that start at or after the timestamp
+         */
+        public Builder start(long start)
+        {
+            mStart = start;
+            return this;
+        }
+
+        /**
+         * Events that start before the timestamp
+         */
+        public Builder end(long end)
+        {
+            mEnd = end;
+            return this;
+        }
+
+        /**
+         * Maximum number of (most recent) events to return
+         */
+        public Builder limit(int limit)
+        {
+            mLimit = limit;
+            return this;
+        }
+
+        /**
+         * Events to the talkgroup value
+         */
+        public Builder talkgroup(String talkgroup)
+        {
+            return dimension(Dimension.TALKGROUP, talkgroup);
+        }
+
+        /**
+         * Events from or to the radio value
+         */
+        public Builder radio(String radio)
+        {
+            return dimension(Dimension.RADIO, radio);
+        }
+
+        /**
+         * Events for the system (or WACN) value
+         */
+        public Builder system(String system)
+        {
+            return dimension(Dimension.SYSTEM, system);
+        }
+
+        /**
+         * Events for the site value
+         */
+        public Builder site(String site)
+        {
+            return dimension(Dimension.SITE, site);
+        }
+
+        /**
+         * Events of the event type, as labeled by DecodeEventType.toString()
+         */
+        public Builder eventType(String eventType)
+        {
+            return dimension(Dimension.EVENT_TYPE, eventType);
+        }
+
+        private Builder dimension(Dimension dimension, String value)
+        {
+            if(value != null)
+            {
+                mDimensions.put(dimension, value);
+            }
+            else
+            {
+                mDimensions.remove(dimension);
+            }
+
+            return this;
+        }
+
+        public EventQuery build()
+        {
+            if(mStart >= mEnd)
+            {
+                throw new IllegalArgumentException("Query start must be before the end");
+            }
+
+            if(mLimit <= 0)
+            {
+                throw new IllegalArgumentException("Query limit must be greater than zero");
+            }
+
+            return new EventQuery(this);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+
+package io.github.dsheirer.module.log.store;
+
+import io.github.dsheirer.channel.IChannelDescriptor;
+import io.github.dsheirer.identifier.Form;
+import io.github.dsheirer.identifier.Identifier;
+import io.github.dsheirer.identifier.IdentifierClass;
+import io.github.dsheirer.identifier.IdentifierCollection;
+import io.github.dsheirer.identifier.Role;
+import io.github.dsheirer.identifier.configuration.FrequencyConfigurationIdentifier;
+import io.github.dsheirer.module.decode.event.IDecodeEvent;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Immutable snapshot of a decode event as stored in the event store.  Decode events are updated while a call is in
+ * progress, so each update is stored as a new version of the event.  Versions of the same event share the event key.
+ *
+ * @param timestamp of the event start in milliseconds
+ * @param duration of the event in milliseconds
+ * @param protocol name
+ * @param eventType name
+ * @param from identifier display value, or null
+ * @param to identifier display value, or null
+ * @param talkgroup value of the TO talkgroup, or null
+ * @param radio value of the FROM radio, or null
+ * @param targetRadio value of the TO radio for private calls, or null
+ * @param system value of the system or WACN, or null
+ * @param site value of the site, or null
+ * @param channel descriptor, or null
+ * @param frequency of the channel in hertz, or 0
+ * @param timeslot of the event, or 0
+ * @param details of the event, or null
+ * @param eventId to identify versions of the same event
+ */
+public record EventRecord(long timestamp, long duration, String protocol, String eventType, String from, String to,
+                          String talkgroup, String radio, String targetRadio, String system, String site,
+                          String channel, long frequency, int timeslot, String details, int eventId)
+{
+    private static final int VERSION = 1;
+
+    /**
+     * Creates a record from the current state of the decode event.
+     */
+    public static EventRecord from(IDecodeEvent event)
+    {
+        IdentifierCollection identifiers = event.getIdentifierCollection();
+        Identifier from = identifiers.getFromIdentifier();
+        Identifier to = identifiers.getToIdentifier();
+
+        String talkgroup = null;
+        String targetRadio = null;
+
+        if(to != null && (to.getForm() == Form.TALKGROUP || to.getForm() == Form.PATCH_GROUP))
+        {
+            talkgroup = value(to);
+        }
+        else if(to != null && to.getForm() == Form.RADIO)
+        {
+            targetRadio = value(to);
+        }
+
+        String radio = (from != null && from.getForm() == Form.RADIO) ? value(from) : null;
+        String system = first(identifiers, Form.SYSTEM);
+
+        if(system == null)
+        {
+            system = first(identifiers, Form.WACN);
+        }
+
+        IChannelDescriptor descriptor = event.getChannelDescriptor();
+        long frequency = 0;
+
+        if(descriptor != null)
+        {
+            frequency = descriptor.getDownlinkFrequency();
+        }
+        else if(identifiers.getIdentifier(IdentifierClass.CONFIGURATION, Form.CHANNEL_FREQUENCY, Role.ANY)
+                instanceof FrequencyConfigurationIdentifier frequencyIdentifier)
+        {
+            frequency = frequencyIdentifier.getValue();
+        }
+
+        return new EventRecord(event.getTimeStart(), event.getDuration(),
+                event.getProtocol() != null ? event.getProtocol().toString() : null,
+                event.getEventType() != null ? event.getEventType().toString() : null,
+                from != null ? from.toString() : null, to != null ? to.toString() : null, talkgroup, radio,
+                targetRadio, system, first(identifiers, Form.SITE), descriptor != null ? descriptor.toString() : null,
+                frequency, event.hasTimeslot() ? event.getTimeslot() : 0, event.getDetails(), event.hashCode());
+    }
+
+    /**
+     * Key that identifies all versions of the same event.
+     */
+    public long getEventKey()
+    {
+        return (timestamp * 31) ^ eventId;
+    }
+
+    /**
+     * Raw value of the identifier, used as the index key.
+     */
+    private static String value(Identifier identifier)
+    {
+        return identifier.getValue() != null ? identifier.getValue().toString() : null;
+    }
+
+    /**
+     * Raw value of the first identifier with the form, or null.
+     */
+    private static String first(IdentifierCollection identifiers, Form form)
+    {
+        List<Identifier> list = identifiers.getIdentifiers(form);
+        return list.isEmpty() ? null : value(list.get(0));
+    }
+
+    /**
+     * Writes the record in the compact binary format.
+     */
+    public void write(DataOutput output) throws IOException
+    {
+        output.writeByte(VERSION);
+        writeVarLong(output, timestamp);
+        writeVarLong(output, duration);
+        writeString(output, protocol);
+        writeString(output, eventType);
+        writeString(output, from);
+        writeString(output, to);
+        writeString(output, talkgroup);
+        writeString(output, radio);
+        writeString(output, targetRadio);
+        writeString(output, system);
+        writeString(output, site);
+        writeString(output, channel);
+        writeVarLong(output, frequency);
+        writeVarLong(output, timeslot);
+        writeString(output, details);
+        output.writeInt(eventId);
+    }
+
+    /**
+     * Reads a record written in the compact binary format.
+     */
+    public static EventRecord read(DataInput input) throws IOException
+    {
+        int version = input.readByte();
+
+        if(version != VERSION)
+        {
+            throw new IOException("Unsupported event record version [" + version + "]");
+        }
+
+        return new EventRecord(readVarLong(input), readVarLong(input), readString(input), readString(input),
+                readString(input), readString(input), readString(input), readString(input), readString(input),
+                readString(input), readString(input), readString(input), readVarLong(input), (int)readVarLong(input),
+                readString(input), input.readInt());
+    }
+
+    /**
+     * Writes an unsigned variable length integer, 7 bits per byte.
+     */
+    static void writeVarLong(DataOutput output, long value) throws IOException
+    {
+        while((value & ~0x7FL) != 0)
+        {
+            output.writeByte((int)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        output.writeByte((int)value);
+    }
+
+    /**
+     * Reads an unsigned variable length integer.
+     */
+    static long readVarLong(DataInput input) throws IOException
+    {
+        long value = 0;
+        int shift = 0;
+        int b;
+
+        do
+        {
+            if(shift > 63)
+            {
+                throw new IOException("Malformed variable length integer");
+            }
+
+            b = input.readUnsignedByte();
+            value |= (long)(b & 0x7F) << shift;
+            shift += 7;
+        }
+        while((b & 0x80) != 0);
+
+        return value;
+    }
+
+    /**
+     * Writes a nullable UTF-8 string prefixed with its length plus one, where a zero length indicates null.
+     */
+    static void writeString(DataOutput output, String value) throws IOException
+    {
+        if(value == null)
+        {
+            writeVarLong(output, 0);
+        }
+        else
+        {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(output, bytes.length + 1);
+            output.write(bytes);
+        }
+    }
+
+    /**
+     * Reads a nullable UTF-8 string.
+     */
+    static String readString(DataInput input) throws IOException
+    {
+        int length = (int)readVarLong(input);
+
+        if(length == 0)
+        {
+            return null;
+        }
+
+        byte[] bytes = new byte[length - 1];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
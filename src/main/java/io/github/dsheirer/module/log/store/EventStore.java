@@ -0,0 +1,571 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+
+package io.github.dsheirer.module.log.store;
+
+import io.github.dsheirer.util.ThreadPool;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only, segment based store for decode events with secondary indexes on event timestamp, talkgroup, radio,
+ * system, site and event type.
+ *
+ * Events are queued by the producer threads and appended to the active segment in batches on a scheduled thread.
+ * The active segment is sealed (index written to disk) when it exceeds the maximum segment size or age.  Each update
+ * to a decode event is stored as a new version of the event and queries return the most recent version of each event.
+ *
+ * Maintenance runs periodically: segments that are older than the retention period are deleted and runs of small
+ * sealed segments that cover no more than the maximum segment age are compacted into a single segment, dropping
+ * superseded event versions.
+ */
+public class EventStore
+{
+    private static final Logger mLog = LoggerFactory.getLogger(EventStore.class);
+    public static final long DEFAULT_MAXIMUM_SEGMENT_SIZE = 64 * 1024 * 1024;
+    public static final long DEFAULT_MAXIMUM_SEGMENT_AGE = TimeUnit.DAYS.toMillis(1);
+    private static final long FLUSH_INTERVAL_MS = 1000;
+    private static final long MAINTENANCE_INTERVAL_MINUTES = 60;
+    private static final int MAXIMUM_PENDING_EVENTS = 100000;
+    private static final String COMPACTION_FOLDER = "compaction";
+
+    private final Path mDirectory;
+    private final boolean mReadOnly;
+    private final List<Segment> mSegments = new ArrayList<>();
+    private final Queue<EventRecord> mPendingRecords = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger mPendingCount = new AtomicInteger();
+    private final AtomicInteger mDroppedCount = new AtomicInteger();
+    private final AtomicBoolean mCompacting = new AtomicBoolean();
+    private Segment mActiveSegment;
+    private long mNextSequence;
+    private long mMaximumSegmentSize = DEFAULT_MAXIMUM_SEGMENT_SIZE;
+    private long mMaximumSegmentAge = DEFAULT_MAXIMUM_SEGMENT_AGE;
+    private long mRetention;
+    private ScheduledFuture<?> mFlushFuture;
+    private ScheduledFuture<?> mMaintenanceFuture;
+    private boolean mOpen;
+
+    /**
+     * Constructs an instance
+     * @param directory for the segment files
+     * @param readOnly to open the store for queries only (e.g. while the store is in use by another process).
+     */
+    public EventStore(Path directory, boolean readOnly)
+    {
+        mDirectory = directory;
+        mReadOnly = readOnly;
+    }
+
+    /**
+     * Sets the maximum size and age of the active segment before it is sealed and a new segment is started.
+     */
+    public void setSegmentLimits(long maximumSize, long maximumAge)
+    {
+        mMaximumSegmentSize = maximumSize;
+        mMaximumSegmentAge = maximumAge;
+    }
+
+    /**
+     * Sets the retention period.  Segments where all events are older than the retention period are deleted during
+     * maintenance.
+     * @param retention in milliseconds, or 0 to retain all events.
+     */
+    public void setRetention(long retention)
+    {
+        mRetention = retention;
+    }
+
+    /**
+     * Opens the store, recovers any segments that were not sealed and starts a new active segment.
+     */
+    public synchronized void open() throws IOException
+    {
+        if(mOpen)
+        {
+            return;
+        }
+
+        if(!mReadOnly)
+        {
+            Files.createDirectories(mDirectory);
+        }
+
+        List<Long> sequences = new ArrayList<>();
+
+        if(Files.isDirectory(mDirectory))
+        {
+            try(Stream<Path> paths = Files.list(mDirectory))
+            {
+                paths.mapToLong(Segment::getSequence).filter(sequence -> sequence >= 0).sorted()
+                        .forEach(sequences::add);
+            }
+        }
+
+        for(long sequence: sequences)
+        {
+            Segment segment = Segment.open(mDirectory, sequence, mReadOnly);
+
+            if(!mReadOnly)
+            {
+                segment.seal();
+            }
+
+            mSegments.add(segment);
+            mNextSequence = sequence + 1;
+        }
+
+        mOpen = true;
+    }
+
+    /**
+     * Starts the scheduled appending of queued events and the periodic maintenance.
+     */
+    public synchronized void start()
+    {
+        if(mOpen && !mReadOnly && mFlushFuture == null)
+        {
+            mFlushFuture = ThreadPool.SCHEDULED.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS,
+                    FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            mMaintenanceFuture = ThreadPool.SCHEDULED.scheduleWithFixedDelay(
+                    () -> ThreadPool.CACHED.execute(this::maintain), 1, MAINTENANCE_INTERVAL_MINUTES,
+                    TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Queues the event record to be appended to the store.  Records are dropped (and counted) when the queue is full.
+     */
+    public void add(EventRecord record)
+    {
+        if(mPendingCount.get() >= MAXIMUM_PENDING_EVENTS)
+        {
+            if(mDroppedCount.getAndIncrement() % 10000 == 0)
+            {
+                mLog.warn("Event store queue is full - dropping events");
+            }
+
+            return;
+        }
+
+        mPendingRecords.offer(record);
+        mPendingCount.incrementAndGet();
+    }
+
+    /**
+     * Appends all queued records to the active segment.
+     */
+    public synchronized void flush()
+    {
+        if(!mOpen || mReadOnly)
+        {
+            return;
+        }
+
+        List<EventRecord> records = new ArrayList<>();
+        EventRecord record = mPendingRecords.poll();
+
+        while(record != null)
+        {
+            mPendingCount.decrementAndGet();
+            records.add(record);
+            record = mPendingRecords.poll();
+        }
+
+        if(records.isEmpty())
+        {
+            return;
+        }
+
+        try
+        {
+            if(mActiveSegment != null && isRollRequired(mActiveSegment))
+            {
+                mActiveSegment.seal();
+                mActiveSegment = null;
+            }
+
+            if(mActiveSegment == null)
+            {
+                mActiveSegment = Segment.create(mDirectory, mNextSequence++);
+                mSegments.add(mActiveSegment);
+            }
+
+            mActiveSegment.append(records);
+        }
+        catch(IOException ioe)
+        {
+            mLog.error("Error appending " + records.size() + " events to the event store", ioe);
+        }
+    }
+
+    private boolean isRollRequired(Segment segment)
+    {
+        return segment.getSize() >= mMaximumSegmentSize ||
+                System.currentTimeMillis() - segment.getCreated() >= mMaximumSegmentAge;
+    }
+
+    /**
+     * Queries the store.
+     * @return the most recent version of each matching event, ordered newest first and limited to the query limit.
+     */
+    public synchronized List<EventRecord> query(EventQuery query) throws IOException
+    {
+        Map<Long,EventRecord> latest = new LinkedHashMap<>();
+
+        for(Segment segment: mSegments)
+        {
+            if(segment.overlaps(query.getStart(), query.getEnd()))
+            {
+                int[] ordinals = segment.getIndex().select(query);
+
+                if(ordinals.length > 0)
+                {
+                    for(EventRecord record: segment.read(ordinals))
+                    {
+                        latest.put(record.getEventKey(), record);
+                    }
+                }
+            }
+        }
+
+        List<EventRecord> results = new ArrayList<>(latest.values());
+        results.sort(Comparator.comparingLong(EventRecord::timestamp).reversed());
+
+        if(results.size() > query.getLimit())
+        {
+            return new ArrayList<>(results.subList(0, query.getLimit()));
+        }
+
+        return results;
+    }
+
+    /**
+     * Seals the active segment when it is too old, deletes segments that are past the retention period and compacts
+     * small sealed segments.  Runs on a cached thread so that a long compaction doesn't hold up the scheduled pool.
+     */
+    private void maintain()
+    {
+        try
+        {
+            synchronized(this)
+            {
+                if(!mOpen)
+                {
+                    return;
+                }
+
+                if(mActiveSegment != null && isRollRequired(mActiveSegment))
+                {
+                    mActiveSegment.seal();
+                    mActiveSegment = null;
+                }
+            }
+
+            if(mRetention > 0)
+            {
+                applyRetention(System.currentTimeMillis() - mRetention);
+            }
+
+            compact();
+        }
+        catch(Throwable t)
+        {
+            mLog.error("Error during event store maintenance", t);
+        }
+    }
+
+    /**
+     * Deletes sealed segments where all events started before the cutoff timestamp.
+     * @return number of deleted segments
+     */
+    public synchronized int applyRetention(long cutoff) throws IOException
+    {
+        int deleted = 0;
+
+        for(Segment segment: new ArrayList<>(mSegments))
+        {
+            if(segment.isSealed() && segment.getCount() > 0 && segment.getMaximumTimestamp() < cutoff)
+            {
+                segment.delete();
+                mSegments.remove(segment);
+                deleted++;
+            }
+        }
+
+        if(deleted > 0)
+        {
+            mLog.info("Event store retention deleted " + deleted + " segments");
+        }
+
+        return deleted;
+    }
+
+    /**
+     * Compacts runs of adjacent sealed segments whose combined size is less than the maximum segment size into a
+     * single segment, keeping only the most recent version of each event.  A run is also limited to events that span
+     * no more than the maximum segment age, so that a compacted segment ages out of the retention period at about the
+     * same time as its events.
+     *
+     * The store lock is only held while selecting the runs and while swapping in each merged segment, so appends and
+     * queries continue while the segments are merged.
+     * @return number of segments that were removed by compaction
+     */
+    public int compact() throws IOException
+    {
+        if(mReadOnly || !mCompacting.compareAndSet(false, true))
+        {
+            return 0;
+        }
+
+        try
+        {
+            int removed = 0;
+
+            for(List<Segment> run: getCompactionRuns())
+            {
+                removed += merge(run);
+            }
+
+            return removed;
+        }
+        finally
+        {
+            mCompacting.set(false);
+        }
+    }
+
+    /**
+     * Snapshot of the runs of sealed segments that can be merged.  Only runs with two or more segments are included.
+     */
+    private synchronized List<List<Segment>> getCompactionRuns()
+    {
+        List<List<Segment>> runs = new ArrayList<>();
+
+        if(!mOpen)
+        {
+            return runs;
+        }
+
+        List<Segment> run = new ArrayList<>();
+        long runSize = 0;
+        long runStart = Long.MAX_VALUE;
+        long runEnd = Long.MIN_VALUE;
+
+        for(Segment segment: mSegments)
+        {
+            long start = segment.getCount() > 0 ? Math.min(runStart, segment.getMinimumTimestamp()) : runStart;
+            long end = segment.getCount() > 0 ? Math.max(runEnd, segment.getMaximumTimestamp()) : runEnd;
+
+            if(segment.isSealed() && runSize + segment.getSize() < mMaximumSegmentSize &&
+                    (start > end || end - start < mMaximumSegmentAge))
+            {
+                run.add(segment);
+                runSize += segment.getSize();
+                runStart = start;
+                runEnd = end;
+            }
+            else
+            {
+                if(run.size() > 1)
+                {
+                    runs.add(run);
+                }
+
+                run = new ArrayList<>();
+                runSize = 0;
+                runStart = Long.MAX_VALUE;
+                runEnd = Long.MIN_VALUE;
+
+                if(segment.isSealed())
+                {
+                    run.add(segment);
+                    runSize = segment.getSize();
+
+                    if(segment.getCount() > 0)
+                    {
+                        runStart = segment.getMinimumTimestamp();
+                        runEnd = segment.getMaximumTimestamp();
+                    }
+                }
+            }
+        }
+
+        if(run.size() > 1)
+        {
+            runs.add(run);
+        }
+
+        return runs;
+    }
+
+    /**
+     * Merges the run of segments into a single segment that replaces the first segment of the run.  The merged
+     * segment is written to a separate folder without holding the store lock and then moved into place, so an
+     * interrupted compaction leaves either the original segments or a merged segment plus duplicate versions that are
+     * removed by the next compaction.
+     */
+    private int merge(List<Segment> run) throws IOException
+    {
+        Map<Long,EventRecord> latest = new LinkedHashMap<>();
+
+        for(Segment segment: run)
+        {
+            for(EventRecord record: segment.readAll())
+            {
+                latest.remove(record.getEventKey());
+                latest.put(record.getEventKey(), record);
+            }
+        }
+
+        Segment first = run.get(0);
+        Path compactionDirectory = mDirectory.resolve(COMPACTION_FOLDER);
+        Files.createDirectories(compactionDirectory);
+        Segment merged = Segment.create(compactionDirectory, first.getSequence());
+
+        try
+        {
+            merged.append(new ArrayList<>(latest.values()));
+            merged.seal();
+            merged.close();
+        }
+        catch(IOException ioe)
+        {
+            merged.delete();
+            throw ioe;
+        }
+
+        if(!replace(run, merged))
+        {
+            merged.delete();
+            return 0;
+        }
+
+        mLog.info("Event store compacted " + run.size() + " segments into segment " + first.getSequence());
+        return run.size() - 1;
+    }
+
+    /**
+     * Swaps the merged segment in for the run of segments.
+     * @return false if the store was closed or a segment in the run was deleted while the run was being merged.
+     */
+    private synchronized boolean replace(List<Segment> run, Segment merged) throws IOException
+    {
+        if(!mOpen || !mSegments.containsAll(run))
+        {
+            return false;
+        }
+
+        Segment first = run.get(0);
+
+        for(Segment segment: run)
+        {
+            segment.close();
+        }
+
+        Files.move(merged.getDataPath(), first.getDataPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        Files.move(merged.getIndexPath(), first.getIndexPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+
+        for(int x = 1; x < run.size(); x++)
+        {
+            run.get(x).delete();
+        }
+
+        int position = mSegments.indexOf(first);
+        mSegments.removeAll(run);
+        mSegments.add(position, Segment.open(mDirectory, first.getSequence(), false));
+        return true;
+    }
+
+    /**
+     * Number of segments in the store, including the active segment
+     */
+    public synchronized int getSegmentCount()
+    {
+        return mSegments.size();
+    }
+
+    /**
+     * Number of events dropped because the queue was full
+     */
+    public int getDroppedCount()
+    {
+        return mDroppedCount.get();
+    }
+
+    /**
+     * Appends any queued events, seals the active segment and closes the store.
+     */
+    public synchronized void close()
+    {
+        if(mFlushFuture != null)
+        {
+            mFlushFuture.cancel(false);
+            mFlushFuture = null;
+        }
+
+        if(mMaintenanceFuture != null)
+        {
+            mMaintenanceFuture.cancel(false);
+            mMaintenanceFuture = null;
+        }
+
+        flush();
+
+        if(mActiveSegment != null)
+        {
+            try
+            {
+                mActiveSegment.seal();
+            }
+            catch(IOException ioe)
+            {
+                mLog.error("Error sealing the active event store segment", ioe);
+            }
+
+            mActiveSegment = null;
+        }
+
+        for(Segment segment: mSegments)
+        {
+            segment.close();
+        }
+
+        mSegments.clear();
+        mOpen = false;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+
+package io.github.dsheirer.module.log.store;
+
+import io.github.dsheirer.module.Module;
+import io.github.dsheirer.module.decode.event.IDecodeEvent;
+import io.github.dsheirer.module.decode.event.IDecodeEventListener;
+import io.github.dsheirer.sample.Listener;
+
+/**
+ * Channel module that snapshots each decode event and adds it to the shared event store.
+ */
+public class EventStoreLogger extends Module implements IDecodeEventListener, Listener<IDecodeEvent>
+{
+    private final EventStore mEventStore;
+    private volatile boolean mRunning;
+
+    /**
+     * Constructs an instance
+     * @param eventStore to receive the decode events
+     */
+    public EventStoreLogger(EventStore eventStore)
+    {
+        mEventStore = eventStore;
+    }
+
+    @Override
+    public void receive(IDecodeEvent decodeEvent)
+    {
+        if(mRunning)
+        {
+            mEventStore.add(EventRecord.from(decodeEvent));
+        }
+    }
+
+    @Override
+    public Listener<IDecodeEvent> getDecodeEventListener()
+    {
+        return this;
+    }
+
+    @Override
+    public void reset()
+    {
+    }
+
+    @Override
+    public void start()
+    {
+        mRunning = true;
+    }
+
+    @Override
+    public void stop()
+    {
+        mRunning = false;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+
+package io.github.dsheirer.module.log.store;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Command line query tool for the event store.  The store is opened read-only, so it can be queried while the
+ * application is running.
+ *
+ * Usage: EventStoreQuery --store <directory> [--from <date/time>] [--to <date/time>] [--talkgroup <value>]
+ * [--radio <value>] [--system <value>] [--site <value>] [--type <event type>] [--limit <count>]
+ *
+ * Dates are local yyyy-MM-dd or yyyy-MM-ddTHH:mm[:ss] values.
+ */
+public class EventStoreQuery
+{
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+
+    public static void main(String[] args) throws IOException
+    {
+        Path store = null;
+        EventQuery.Builder builder = EventQuery.builder().limit(1000);
+
+        try
+        {
+            for(int x = 0; x < args.length; x++)
+            {
+                String value = x + 1 < args.length ? args[x + 1] : null;
+
+                if(value == null)
+                {
+                    throw new IllegalArgumentException("Missing value for argument " + args[x]);
+                }
+
+                switch(args[x])
+                {
+                    case "--store" -> store = Path.of(value);
+                    case "--from" -> builder.start(parse(value));
+                    case "--to" -> builder.end(parse(value));
+                    case "--talkgroup" -> builder.talkgroup(value);
+                    case "--radio" -> builder.radio(value);
+                    case "--system" -> builder.system(value);
+                    case "--site" -> builder.site(value);
+                    case "--type" -> builder.eventType(value);
+                    case "--limit" -> builder.limit(Integer.parseInt(value));
+                    default -> throw new IllegalArgumentException("Unrecognized argument " + args[x]);
+                }
+
+                x++;
+            }
+
+            if(store == null)
+            {
+                throw new IllegalArgumentException("The --store directory argument is required");
+            }
+        }
+        catch(IllegalArgumentException iae)
+        {
+            System.err.println(iae.getMessage());
+            System.err.println("Usage: EventStoreQuery --store <directory> [--from <date/time>] [--to <date/time>] " +
+                    "[--talkgroup <value>] [--radio <value>] [--system <value>] [--site <value>] " +
+                    "[--type <event type>] [--limit <count>]");
+            System.exit(1);
+            return;
+        }
+
+        EventQuery query = builder.build();
+        EventStore eventStore = new EventStore(store, true);
+        eventStore.open();
+
+        long start = System.nanoTime();
+        List<EventRecord> records = eventStore.query(query);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println("TIMESTAMP,DURATION_MS,PROTOCOL,EVENT,FROM,TO,CHANNEL,FREQUENCY,TIMESLOT,DETAILS");
+
+        for(EventRecord record: records)
+        {
+            System.out.println(format(record));
+        }
+
+        System.err.println(records.size() + " events in " + (elapsed / 1000000) + " ms");
+        eventStore.close();
+    }
+
+    /**
+     * Parses a local date or date/time value to epoch milliseconds.
+     */
+    private static long parse(String value)
+    {
+        LocalDateTime dateTime = value.contains("T") ? LocalDateTime.parse(value) :
+                LocalDate.parse(value).atStartOfDay();
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static String format(EventRecord record)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(TIMESTAMP_FORMATTER.format(Instant.ofEpochMilli(record.timestamp()))).append(",");
+        sb.append(record.duration() > 0 ? record.duration() : "").append(",");
+        sb.append(quote(record.protocol())).append(",");
+        sb.append(quote(record.eventType())).append(",");
+        sb.append(quote(record.from())).append(",");
+        sb.append(quote(record.to())).append(",");
+        sb.append(quote(record.channel())).append(",");
+        sb.append(record.frequency() > 0 ? record.frequency() : "").append(",");
+        sb.append(record.timeslot() > 0 ? "TS:" + record.timeslot() : "").append(",");
+        sb.append(quote(record.details()));
+        return sb.toString();
+    }
+
+    private static String quote(String value)
+    {
+        return value == null ? "" : "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
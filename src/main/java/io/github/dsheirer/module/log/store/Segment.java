@@ -0,0 +1,482 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+
+package io.github.dsheirer.module.log.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Event store segment: an append-only data file of framed event records and an index file that is written when the
+ * segment is sealed.  Each record frame is the payload length (int), a CRC32C checksum of the payload (int) and the
+ * payload.  Segments that were not sealed (e.g. after a crash) are recovered by scanning the data file up to the last
+ * complete record.
+ *
+ * Sealed segments only keep the index header in memory.  The full index is loaded on demand and held with a soft
+ * reference so that months of history can be queried without holding every index in memory.
+ */
+public class Segment
+{
+    private static final Logger mLog = LoggerFactory.getLogger(Segment.class);
+    public static final String DATA_EXTENSION = ".dat";
+    public static final String INDEX_EXTENSION = ".idx";
+    private static final String FILE_PREFIX = "segment-";
+    private static final int FRAME_HEADER_SIZE = 8;
+    private static final int MAXIMUM_RECORD_SIZE = 1024 * 1024;
+
+    private final long mSequence;
+    private final Path mDataPath;
+    private final Path mIndexPath;
+    private final boolean mReadOnly;
+    private FileChannel mChannel;
+    private SegmentIndex mIndexHeader;
+    private SegmentIndex mActiveIndex;
+    private SoftReference<SegmentIndex> mIndexReference = new SoftReference<>(null);
+    private long mSize;
+    private long mCreated;
+
+    private Segment(Path directory, long sequence, boolean readOnly)
+    {
+        mSequence = sequence;
+        mDataPath = directory.resolve(getFileName(sequence) + DATA_EXTENSION);
+        mIndexPath = directory.resolve(getFileName(sequence) + INDEX_EXTENSION);
+        mReadOnly = readOnly;
+    }
+
+    /**
+     * File name (without extension) for the segment sequence number.
+     */
+    public static String getFileName(long sequence)
+    {
+        return String.format("%s%016d", FILE_PREFIX, sequence);
+    }
+
+    /**
+     * Parses the sequence number from a segment data file name.
+     * @return sequence number or -1 if the path is not a segment data file.
+     */
+    public static long getSequence(Path path)
+    {
+        String name = path.getFileName().toString();
+
+        if(name.startsWith(FILE_PREFIX) && name.endsWith(DATA_EXTENSION))
+        {
+            try
+            {
+                return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - DATA_EXTENSION.length()));
+            }
+            catch(NumberFormatException nfe)
+            {
+                //Not a segment file
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Creates a new empty (active) segment
+     */
+    public static Segment create(Path directory, long sequence) throws IOException
+    {
+        Segment segment = new Segment(directory, sequence, false);
+        Files.deleteIfExists(segment.mIndexPath);
+        segment.mChannel = FileChannel.open(segment.mDataPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment.mActiveIndex = new SegmentIndex();
+        segment.mCreated = System.currentTimeMillis();
+        return segment;
+    }
+
+    /**
+     * Opens an existing segment.  Sealed segments with a valid index only load the index header.  Other segments
+     * are recovered by scanning the data file, and the data file is truncated after the last complete record unless
+     * the segment is opened read-only.  Recovered segments are left unsealed.
+     */
+    public static Segment open(Path directory, long sequence, boolean readOnly) throws IOException
+    {
+        Segment segment = new Segment(directory, sequence, readOnly);
+        segment.mChannel = readOnly ? FileChannel.open(segment.mDataPath, StandardOpenOption.READ) :
+                FileChannel.open(segment.mDataPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment.mSize = segment.mChannel.size();
+        segment.mCreated = System.currentTimeMillis();
+
+        if(Files.exists(segment.mIndexPath))
+        {
+            try
+            {
+                SegmentIndex header = SegmentIndex.readHeader(segment.mIndexPath);
+
+                if(header.getDataSize() == segment.mSize)
+                {
+                    segment.mIndexHeader = header;
+                    return segment;
+                }
+
+                mLog.warn("Event store segment index doesn't match the data file - rebuilding [" + segment.mIndexPath + "]");
+            }
+            catch(IOException ioe)
+            {
+                mLog.warn("Error reading event store segment index - rebuilding [" + segment.mIndexPath + "]", ioe);
+            }
+        }
+
+        segment.recover();
+        return segment;
+    }
+
+    /**
+     * Rebuilds the index by scanning the data file and truncates any incomplete record at the end of the file.
+     */
+    private void recover() throws IOException
+    {
+        SegmentIndex index = new SegmentIndex();
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+        long offset = 0;
+
+        while(offset + FRAME_HEADER_SIZE <= mSize)
+        {
+            header.clear();
+            readFully(header, offset);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+
+            if(length <= 0 || length > MAXIMUM_RECORD_SIZE || offset + FRAME_HEADER_SIZE + length > mSize)
+            {
+                break;
+            }
+
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(payload, offset + FRAME_HEADER_SIZE);
+
+            if(checksum(payload.array()) != checksum)
+            {
+                break;
+            }
+
+            long end = offset + FRAME_HEADER_SIZE + length;
+            index.add(decode(payload.array()), offset, end);
+            offset = end;
+        }
+
+        if(offset < mSize)
+        {
+            mLog.warn("Event store segment [" + mDataPath + "] has " + (mSize - offset) +
+                    " bytes of incomplete records after offset " + offset);
+
+            if(!mReadOnly)
+            {
+                mChannel.truncate(offset);
+                mSize = offset;
+            }
+        }
+
+        if(!mReadOnly)
+        {
+            Files.deleteIfExists(mIndexPath);
+        }
+
+        mActiveIndex = index;
+    }
+
+    /**
+     * Segment sequence number
+     */
+    public long getSequence()
+    {
+        return mSequence;
+    }
+
+    /**
+     * Size of the data file in bytes
+     */
+    public long getSize()
+    {
+        return mSize;
+    }
+
+    /**
+     * Time (wall clock) when this segment was created or opened
+     */
+    public long getCreated()
+    {
+        return mCreated;
+    }
+
+    /**
+     * Indicates if the segment is sealed (immutable with an index file)
+     */
+    public boolean isSealed()
+    {
+        return mActiveIndex == null;
+    }
+
+    /**
+     * Number of records in the segment
+     */
+    public int getCount()
+    {
+        return mActiveIndex != null ? mActiveIndex.getCount() : mIndexHeader.getCount();
+    }
+
+    /**
+     * Earliest event timestamp in the segment
+     */
+    public long getMinimumTimestamp()
+    {
+        return mActiveIndex != null ? mActiveIndex.getMinimumTimestamp() : mIndexHeader.getMinimumTimestamp();
+    }
+
+    /**
+     * Latest event timestamp in the segment
+     */
+    public long getMaximumTimestamp()
+    {
+        return mActiveIndex != null ? mActiveIndex.getMaximumTimestamp() : mIndexHeader.getMaximumTimestamp();
+    }
+
+    /**
+     * Indicates if any of the records in this segment can fall within the time range.
+     */
+    public boolean overlaps(long start, long end)
+    {
+        return getCount() > 0 && getMinimumTimestamp() < end && getMaximumTimestamp() >= start;
+    }
+
+    /**
+     * Full index for the segment, loaded from the index file when the segment is sealed.
+     */
+    public SegmentIndex getIndex() throws IOException
+    {
+        if(mActiveIndex != null)
+        {
+            return mActiveIndex;
+        }
+
+        SegmentIndex index = mIndexReference.get();
+
+        if(index == null)
+        {
+            index = SegmentIndex.read(mIndexPath);
+            mIndexReference = new SoftReference<>(index);
+        }
+
+        return index;
+    }
+
+    /**
+     * Appends the records to the data file with a single write and adds them to the index.
+     */
+    public void append(List<EventRecord> records) throws IOException
+    {
+        if(isSealed() || mReadOnly)
+        {
+            throw new IllegalStateException("Can't append to a sealed or read-only segment");
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(records.size() * 128);
+        DataOutputStream output = new DataOutputStream(buffer);
+        long[] offsets = new long[records.size() + 1];
+
+        for(int x = 0; x < records.size(); x++)
+        {
+            offsets[x] = mSize + buffer.size();
+            byte[] payload = encode(records.get(x));
+            output.writeInt(payload.length);
+            output.writeInt(checksum(payload));
+            output.write(payload);
+        }
+
+        offsets[records.size()] = mSize + buffer.size();
+
+        ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+        long position = mSize;
+
+        while(bytes.hasRemaining())
+        {
+            position += mChannel.write(bytes, position);
+        }
+
+        mSize = position;
+
+        for(int x = 0; x < records.size(); x++)
+        {
+            mActiveIndex.add(records.get(x), offsets[x], offsets[x + 1]);
+        }
+    }
+
+    /**
+     * Reads the records at the ordinals.
+     * @param ordinals in ascending order
+     */
+    public List<EventRecord> read(int[] ordinals) throws IOException
+    {
+        SegmentIndex index = getIndex();
+        List<EventRecord> records = new ArrayList<>(ordinals.length);
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+
+        for(int ordinal: ordinals)
+        {
+            long offset = index.getOffset(ordinal);
+            header.clear();
+            readFully(header, offset);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+
+            if(length <= 0 || length > MAXIMUM_RECORD_SIZE)
+            {
+                throw new IOException("Invalid record length [" + length + "] in event store segment [" + mDataPath + "]");
+            }
+
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(payload, offset + FRAME_HEADER_SIZE);
+
+            if(checksum(payload.array()) != checksum)
+            {
+                throw new IOException("Record checksum mismatch in event store segment [" + mDataPath + "]");
+            }
+
+            records.add(decode(payload.array()));
+        }
+
+        return records;
+    }
+
+    /**
+     * Reads all records in the segment in append order.
+     */
+    public List<EventRecord> readAll() throws IOException
+    {
+        int[] ordinals = new int[getCount()];
+
+        for(int x = 0; x < ordinals.length; x++)
+        {
+            ordinals[x] = x;
+        }
+
+        return read(ordinals);
+    }
+
+    /**
+     * Forces the data to disk and writes the index file.  The segment is immutable after sealing.
+     */
+    public void seal() throws IOException
+    {
+        if(!isSealed() && !mReadOnly)
+        {
+            mChannel.force(true);
+            mActiveIndex.write(mIndexPath);
+            mIndexReference = new SoftReference<>(mActiveIndex);
+            mIndexHeader = SegmentIndex.readHeader(mIndexPath);
+            mActiveIndex = null;
+        }
+    }
+
+    /**
+     * Closes the data file.
+     */
+    public void close()
+    {
+        try
+        {
+            mChannel.close();
+        }
+        catch(IOException ioe)
+        {
+            mLog.error("Error closing event store segment [" + mDataPath + "]", ioe);
+        }
+    }
+
+    /**
+     * Closes and deletes the segment files.
+     */
+    public void delete() throws IOException
+    {
+        close();
+        Files.deleteIfExists(mIndexPath);
+        Files.deleteIfExists(mDataPath);
+    }
+
+    /**
+     * Path of the segment data file
+     */
+    public Path getDataPath()
+    {
+        return mDataPath;
+    }
+
+    /**
+     * Path of the segment index file
+     */
+    public Path getIndexPath()
+    {
+        return mIndexPath;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException
+    {
+        while(buffer.hasRemaining())
+        {
+            int read = mChannel.read(buffer, position);
+
+            if(read < 0)
+            {
+                throw new IOException("Unexpected end of event store segment [" + mDataPath + "]");
+            }
+
+            position += read;
+        }
+    }
+
+    private static byte[] encode(EventRecord record) throws IOException
+    {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+        record.write(new DataOutputStream(buffer));
+        return buffer.toByteArray();
+    }
+
+    private static EventRecord decode(byte[] payload) throws IOException
+    {
+        return EventRecord.read(new DataInputStream(new ByteArrayInputStream(payload)));
+    }
+
+    private static int checksum(byte[] payload)
+    {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int)crc.getValue();
+    }
+}
@@ -0,0 +1,451 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+
+package io.github.dsheirer.module.log.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Index for the records in an event store segment.  Records are numbered (ordinal) in the order that they were
+ * appended to the segment.  The index holds the file offset and event timestamp of each record, and sorted posting
+ * lists of record ordinals for each talkgroup, radio, system, site and event type value.
+ */
+public class SegmentIndex
+{
+    /**
+     * Secondary index dimensions
+     */
+    public enum Dimension
+    {
+        TALKGROUP, RADIO, SYSTEM, SITE, EVENT_TYPE
+    }
+
+    private static final int MAGIC = 0x53454958;
+    private static final int VERSION = 1;
+    private static final int[] EMPTY = new int[0];
+
+    private long[] mOffsets = new long[256];
+    private long[] mTimestamps = new long[256];
+    private int mCount;
+    private long mDataSize;
+    private long mMinimumTimestamp = Long.MAX_VALUE;
+    private long mMaximumTimestamp = Long.MIN_VALUE;
+    private final Map<Dimension,Map<String,Postings>> mPostings = new EnumMap<>(Dimension.class);
+
+    /**
+     * Constructs an empty index
+     */
+    public SegmentIndex()
+    {
+        for(Dimension dimension: Dimension.values())
+        {
+            mPostings.put(dimension, new HashMap<>());
+        }
+    }
+
+    /**
+     * Adds the record to the index.
+     * @param record to index
+     * @param offset of the record in the segment data file
+     * @param end offset of the record in the segment data file
+     */
+    public void add(EventRecord record, long offset, long end)
+    {
+        if(mCount == mOffsets.length)
+        {
+            mOffsets = Arrays.copyOf(mOffsets, mCount * 2);
+            mTimestamps = Arrays.copyOf(mTimestamps, mCount * 2);
+        }
+
+        int ordinal = mCount++;
+        mOffsets[ordinal] = offset;
+        mTimestamps[ordinal] = record.timestamp();
+        mMinimumTimestamp = Math.min(mMinimumTimestamp, record.timestamp());
+        mMaximumTimestamp = Math.max(mMaximumTimestamp, record.timestamp());
+        mDataSize = end;
+
+        post(Dimension.TALKGROUP, record.talkgroup(), ordinal);
+        post(Dimension.RADIO, record.radio(), ordinal);
+
+        if(record.targetRadio() != null && !record.targetRadio().equals(record.radio()))
+        {
+            post(Dimension.RADIO, record.targetRadio(), ordinal);
+        }
+
+        post(Dimension.SYSTEM, record.system(), ordinal);
+        post(Dimension.SITE, record.site(), ordinal);
+        post(Dimension.EVENT_TYPE, record.eventType(), ordinal);
+    }
+
+    private void post(Dimension dimension, String key, int ordinal)
+    {
+        if(key != null)
+        {
+            mPostings.get(dimension).computeIfAbsent(key, k -> new Postings()).add(ordinal);
+        }
+    }
+
+    /**
+     * Number of indexed records
+     */
+    public int getCount()
+    {
+        return mCount;
+    }
+
+    /**
+     * Length of the segment data file that is covered by this index.
+     */
+    public long getDataSize()
+    {
+        return mDataSize;
+    }
+
+    /**
+     * File offset of the record
+     */
+    public long getOffset(int ordinal)
+    {
+        return mOffsets[ordinal];
+    }
+
+    /**
+     * Earliest event timestamp in the segment, or Long.MAX_VALUE when empty.
+     */
+    public long getMinimumTimestamp()
+    {
+        return mMinimumTimestamp;
+    }
+
+    /**
+     * Latest event timestamp in the segment, or Long.MIN_VALUE when empty.
+     */
+    public long getMaximumTimestamp()
+    {
+        return mMaximumTimestamp;
+    }
+
+    /**
+     * Indicates if any of the records in this segment can fall within the time range.
+     */
+    public boolean overlaps(long start, long end)
+    {
+        return mCount > 0 && mMinimumTimestamp < end && mMaximumTimestamp >= start;
+    }
+
+    /**
+     * Selects the ordinals of the records that match the query dimensions and time range.
+     * @return ordinals in ascending order
+     */
+    public int[] select(EventQuery query)
+    {
+        int[] ordinals = null;
+
+        for(Map.Entry<Dimension,String> entry: query.getDimensions().entrySet())
+        {
+            Postings postings = mPostings.get(entry.getKey()).get(entry.getValue());
+
+            if(postings == null)
+            {
+                return EMPTY;
+            }
+
+            ordinals = ordinals == null ? postings.toArray() : intersect(ordinals, postings);
+
+            if(ordinals.length == 0)
+            {
+                return EMPTY;
+            }
+        }
+
+        boolean allTimes = query.getStart() <= mMinimumTimestamp && query.getEnd() > mMaximumTimestamp;
+
+        if(ordinals == null)
+        {
+            ordinals = new int[mCount];
+
+            for(int x = 0; x < mCount; x++)
+            {
+                ordinals[x] = x;
+            }
+        }
+
+        if(allTimes)
+        {
+            return ordinals;
+        }
+
+        int count = 0;
+
+        for(int ordinal: ordinals)
+        {
+            long timestamp = mTimestamps[ordinal];
+
+            if(timestamp >= query.getStart() && timestamp < query.getEnd())
+            {
+                ordinals[count++] = ordinal;
+            }
+        }
+
+        return count == ordinals.length ? ordinals : Arrays.copyOf(ordinals, count);
+    }
+
+    /**
+     * Intersection of the sorted ordinals and the posting list.
+     */
+    private static int[] intersect(int[] ordinals, Postings postings)
+    {
+        int[] result = new int[Math.min(ordinals.length, postings.mSize)];
+        int count = 0;
+        int a = 0;
+        int b = 0;
+
+        while(a < ordinals.length && b < postings.mSize)
+        {
+            int ordinal = postings.mOrdinals[b];
+
+            if(ordinals[a] == ordinal)
+            {
+                result[count++] = ordinal;
+                a++;
+                b++;
+            }
+            else if(ordinals[a] < ordinal)
+            {
+                a++;
+            }
+            else
+            {
+                b++;
+            }
+        }
+
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Writes the index to the file, followed by a checksum.
+     */
+    public void write(Path path) throws IOException
+    {
+        CRC32C crc = new CRC32C();
+
+        try(DataOutputStream output = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(path), 65536), crc)))
+        {
+            writeHeader(output);
+
+            long previousOffset = 0;
+            long previousTimestamp = 0;
+
+            for(int x = 0; x < mCount; x++)
+            {
+                EventRecord.writeVarLong(output, mOffsets[x] - previousOffset);
+                EventRecord.writeVarLong(output, zigzag(mTimestamps[x] - previousTimestamp));
+                previousOffset = mOffsets[x];
+                previousTimestamp = mTimestamps[x];
+            }
+
+            for(Dimension dimension: Dimension.values())
+            {
+                Map<String,Postings> postingsMap = mPostings.get(dimension);
+                EventRecord.writeVarLong(output, postingsMap.size());
+
+                for(Map.Entry<String,Postings> entry: postingsMap.entrySet())
+                {
+                    EventRecord.writeString(output, entry.getKey());
+                    Postings postings = entry.getValue();
+                    EventRecord.writeVarLong(output, postings.mSize);
+
+                    int previous = 0;
+
+                    for(int x = 0; x < postings.mSize; x++)
+                    {
+                        EventRecord.writeVarLong(output, postings.mOrdinals[x] - previous);
+                        previous = postings.mOrdinals[x];
+                    }
+                }
+            }
+
+            output.flush();
+            output.writeInt((int)crc.getValue());
+        }
+    }
+
+    private void writeHeader(DataOutputStream output) throws IOException
+    {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(mCount);
+        output.writeLong(mDataSize);
+        output.writeLong(mMinimumTimestamp);
+        output.writeLong(mMaximumTimestamp);
+    }
+
+    /**
+     * Reads only the header values (count, data size and time range) from the index file, for pruning segments
+     * without loading the full index.
+     */
+    public static SegmentIndex readHeader(Path path) throws IOException
+    {
+        try(DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 64)))
+        {
+            SegmentIndex index = new SegmentIndex();
+            index.readHeader(input);
+            return index;
+        }
+    }
+
+    private void readHeader(DataInputStream input) throws IOException
+    {
+        if(input.readInt() != MAGIC)
+        {
+            throw new IOException("Not an event store segment index");
+        }
+
+        int version = input.readInt();
+
+        if(version != VERSION)
+        {
+            throw new IOException("Unsupported event store segment index version [" + version + "]");
+        }
+
+        mCount = input.readInt();
+        mDataSize = input.readLong();
+        mMinimumTimestamp = input.readLong();
+        mMaximumTimestamp = input.readLong();
+    }
+
+    /**
+     * Reads the full index from the file and verifies the checksum.
+     */
+    public static SegmentIndex read(Path path) throws IOException
+    {
+        CRC32C crc = new CRC32C();
+
+        try(DataInputStream input = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(path), 65536), crc)))
+        {
+            SegmentIndex index = new SegmentIndex();
+            index.readHeader(input);
+            index.mOffsets = new long[Math.max(index.mCount, 1)];
+            index.mTimestamps = new long[Math.max(index.mCount, 1)];
+
+            long offset = 0;
+            long timestamp = 0;
+
+            for(int x = 0; x < index.mCount; x++)
+            {
+                offset += EventRecord.readVarLong(input);
+                timestamp += unzigzag(EventRecord.readVarLong(input));
+                index.mOffsets[x] = offset;
+                index.mTimestamps[x] = timestamp;
+            }
+
+            for(Dimension dimension: Dimension.values())
+            {
+                Map<String,Postings> postingsMap = index.mPostings.get(dimension);
+                int keys = (int)EventRecord.readVarLong(input);
+
+                for(int x = 0; x < keys; x++)
+                {
+                    String key = EventRecord.readString(input);
+                    int size = (int)EventRecord.readVarLong(input);
+                    Postings postings = new Postings(size);
+                    int ordinal = 0;
+
+                    for(int y = 0; y < size; y++)
+                    {
+                        ordinal += (int)EventRecord.readVarLong(input);
+                        postings.add(ordinal);
+                    }
+
+                    postingsMap.put(key, postings);
+                }
+            }
+
+            int expected = (int)crc.getValue();
+
+            if(input.readInt() != expected)
+            {
+                throw new IOException("Event store segment index checksum mismatch [" + path + "]");
+            }
+
+            return index;
+        }
+    }
+
+    private static long zigzag(long value)
+    {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value)
+    {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Growable sorted list of record ordinals
+     */
+    private static class Postings
+    {
+        private int[] mOrdinals;
+        private int mSize;
+
+        Postings()
+        {
+            this(4);
+        }
+
+        Postings(int capacity)
+        {
+            mOrdinals = new int[Math.max(capacity, 1)];
+        }
+
+        void add(int ordinal)
+        {
+            if(mSize == mOrdinals.length)
+            {
+                mOrdinals = Arrays.copyOf(mOrdinals, mSize * 2);
+            }
+
+            mOrdinals[mSize++] = ordinal;
+        }
+
+        int[] toArray()
+        {
+            return Arrays.copyOf(mOrdinals, mSize);
+        }
+    }
+}
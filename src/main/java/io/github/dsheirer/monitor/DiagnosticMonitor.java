@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- * Copyright (C) 2014-2024 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -19,6 +19,7 @@
 
 package io.github.dsheirer.monitor;
 
+import io.github.dsheirer.channel.state.AbstractDecoderState;
 import io.github.dsheirer.controller.channel.ChannelProcessingManager;
 import io.github.dsheirer.log.LoggingSuppressor;
 import io.github.dsheirer.preference.UserPreferences;
@@ -188,6 +189,8 @@ public class DiagnosticMonitor
         sb.append(DIVIDER);
         sb.append(mChannelProcessingManager.getChannelMetadataModel().getDiagnosticInformation());
         sb.append(DIVIDER);
+        sb.append(AbstractDecoderState.getDuplicateEventDetector().getDiagnosticInformation());
+        sb.append(DIVIDER);
         sb.append(getThreadDumpReport());
         sb.append(DIVIDER);
 
@@ -0,0 +1,171 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.playlist;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.dataformat.xml.JacksonXmlAnnotationIntrospector;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32C;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Binary cache of a parsed playlist that is stored alongside the playlist XML file (e.g. playlist.xml.cache) to
+ * speed up application startup for large playlists.  The XML file remains the master copy and the interchange format.
+ *
+ * The cache is encoded with Jackson Smile (binary JSON) using the same annotation introspection as the XML mapper,
+ * so the cached object graph matches the XML.  The cache header records the length and a checksum of the XML file
+ * content that it was created from, and the cache is only used when the current XML content matches.
+ */
+public class PlaylistCache
+{
+    private static final Logger mLog = LoggerFactory.getLogger(PlaylistCache.class);
+    private static final int MAGIC = 0x53504C43; //SPLC
+    private static final int FORMAT_VERSION = 1;
+    private static final String CACHE_EXTENSION = ".cache";
+    private final ObjectMapper mMapper;
+    private final String mApplicationVersion;
+
+    /**
+     * Constructs an instance
+     */
+    public PlaylistCache()
+    {
+        mMapper = new SmileMapper();
+        mMapper.setAnnotationIntrospector(new JacksonXmlAnnotationIntrospector(false));
+        mMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        mApplicationVersion = String.valueOf(PlaylistCache.class.getPackage().getImplementationVersion());
+    }
+
+    /**
+     * Cache file path for the playlist
+     * @param playlist path
+     * @return cache path
+     */
+    public static Path getCachePath(Path playlist)
+    {
+        return Paths.get(playlist.toAbsolutePath() + CACHE_EXTENSION);
+    }
+
+    /**
+     * Calculates the checksum of the playlist XML content
+     */
+    public static long checksum(byte[] xml)
+    {
+        CRC32C crc = new CRC32C();
+        crc.update(xml);
+        return crc.getValue();
+    }
+
+    /**
+     * Reads the cached playlist for the playlist XML content.
+     * @param playlist path of the XML file
+     * @param xml content of the XML file
+     * @return cached playlist, or null if there is no cache or the cache doesn't match the XML content
+     */
+    public PlaylistV2 read(Path playlist, byte[] xml)
+    {
+        Path cache = getCachePath(playlist);
+
+        if(!Files.exists(cache))
+        {
+            return null;
+        }
+
+        try(DataInputStream in = new DataInputStream(Files.newInputStream(cache)))
+        {
+            if(in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION ||
+                !in.readUTF().equals(mApplicationVersion) || in.readInt() != xml.length ||
+                in.readLong() != checksum(xml))
+            {
+                mLog.info("Playlist cache is out of date - loading playlist XML");
+                return null;
+            }
+
+            return mMapper.readValue(in, PlaylistV2.class);
+        }
+        catch(Exception e)
+        {
+            mLog.warn("Unable to read playlist cache [" + cache + "] - loading playlist XML", e);
+            delete(playlist);
+        }
+
+        return null;
+    }
+
+    /**
+     * Writes the playlist to the cache.  The playlist must be the parsed or serialized form of the XML content.
+     * @param playlist path of the XML file
+     * @param xml content of the XML file
+     * @param playlistV2 to cache
+     */
+    public void write(Path playlist, byte[] xml, PlaylistV2 playlistV2)
+    {
+        Path cache = getCachePath(playlist);
+        Path temp = Paths.get(cache + ".tmp");
+
+        try
+        {
+            byte[] payload = mMapper.writeValueAsBytes(playlistV2);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length + 64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(mApplicationVersion);
+            out.writeInt(xml.length);
+            out.writeLong(checksum(xml));
+            out.write(payload);
+            out.flush();
+
+            Files.write(temp, bytes.toByteArray());
+            Files.move(temp, cache, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch(Exception e)
+        {
+            mLog.warn("Unable to write playlist cache [" + cache + "]", e);
+            delete(playlist);
+        }
+    }
+
+    /**
+     * Deletes the cache for the playlist
+     */
+    public void delete(Path playlist)
+    {
+        try
+        {
+            Files.deleteIfExists(getCachePath(playlist));
+        }
+        catch(IOException ioe)
+        {
+            mLog.warn("Unable to delete playlist cache for [" + playlist + "]", ioe);
+        }
+    }
+}
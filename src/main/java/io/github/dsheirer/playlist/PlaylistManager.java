@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- * Copyright (C) 2014-2024 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -77,6 +77,9 @@ public class PlaylistManager implements Listener<ChannelEvent>
     private UserPreferences mUserPreferences;
     private RadioReference mRadioReference;
     private AtomicBoolean mPlaylistSavePending = new AtomicBoolean();
+    private PlaylistCache mPlaylistCache = new PlaylistCache();
+    private Path mSavedPlaylistPath;
+    private long mSavedPlaylistChecksum;
     private ScheduledFuture<?> mPlaylistSaveFuture;
     private boolean mPlaylistLoading = false;
     private List<IAliasListRefreshListener> mAliasListRefreshListeners = new ArrayList<>();
@@ -366,7 +369,11 @@ public class PlaylistManager implements Listener<ChannelEvent>
         mPlaylistLoading = false;
     }
 
-    private void saveNow()
+    /**
+     * Cancels any scheduled playlist save and saves the playlist now if there are unsaved changes.  Waits for any
+     * playlist save that is in progress to complete.
+     */
+    private synchronized void saveNow()
     {
         //Complete any pending playlist save
         if(mPlaylistSaveFuture != null)
@@ -402,6 +409,9 @@ public class PlaylistManager implements Listener<ChannelEvent>
 
             mAliasModel.addAliases(playlist.getAliases());
 
+            //Configurations from older playlists are assigned a spool identifier that has to be saved
+            boolean assignedSpoolIds = playlist.getBroadcastConfigurations().stream()
+                .anyMatch(configuration -> !configuration.hasSpoolId());
 
             mBroadcastModel.addBroadcastConfigurations(playlist.getBroadcastConfigurations());
 
@@ -411,6 +421,11 @@ public class PlaylistManager implements Listener<ChannelEvent>
             mChannelModel.addChannels(playlist.getChannels());
 
             mPlaylistLoading = false;
+
+            if(assignedSpoolIds)
+            {
+                schedulePlaylistSave();
+            }
         }
     }
 
@@ -436,11 +451,13 @@ public class PlaylistManager implements Listener<ChannelEvent>
     }
 
     /**
-     * Saves the current playlist
+     * Saves the current playlist.  The playlist is serialized in memory first and the playlist file is only rewritten
+     * when the serialized playlist differs from the last saved or loaded playlist file content.
      */
-    private void save()
+    private synchronized void save()
     {
         PlaylistPreference playlistPreference = mUserPreferences.getPlaylistPreference();
+        Path path = playlistPreference.getPlaylist();
 
         PlaylistV2 playlist = new PlaylistV2();
 
@@ -450,18 +467,40 @@ public class PlaylistManager implements Listener<ChannelEvent>
         playlist.setChannelMaps(new ArrayList(mChannelMapModel.getChannelMaps()));
         playlist.setVersion(PLAYLIST_CURRENT_VERSION);
 
+        byte[] xml;
+
+        try
+        {
+            JacksonXmlModule xmlModule = new JacksonXmlModule();
+            xmlModule.setDefaultUseWrapper(false);
+            ObjectMapper objectMapper = new XmlMapper(xmlModule);
+            objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+            xml = objectMapper.writeValueAsBytes(playlist);
+        }
+        catch(Exception e)
+        {
+            mLog.error("Error while serializing playlist [" + path.toString() + "]", e);
+            return;
+        }
+
+        long checksum = PlaylistCache.checksum(xml);
+
+        if(path.equals(mSavedPlaylistPath) && checksum == mSavedPlaylistChecksum && Files.exists(path))
+        {
+            return;
+        }
+
         //Create a backup copy of the current playlist
-        if(Files.exists(playlistPreference.getPlaylist()))
+        if(Files.exists(path))
         {
             try
             {
-                Files.copy(playlistPreference.getPlaylist(), playlistPreference.getPlaylistBackup(),
-                    StandardCopyOption.REPLACE_EXISTING);
+                Files.copy(path, playlistPreference.getPlaylistBackup(), StandardCopyOption.REPLACE_EXISTING);
             }
             catch(Exception e)
             {
                 mLog.error("Error creating backup copy of current playlist prior to saving updates [" +
-                    playlistPreference.getPlaylist().toString() + "]", e);
+                    path.toString() + "]", e);
             }
         }
 
@@ -479,29 +518,30 @@ public class PlaylistManager implements Listener<ChannelEvent>
             }
         }
 
-        try(OutputStream out = Files.newOutputStream(playlistPreference.getPlaylist()))
+        try(OutputStream out = Files.newOutputStream(path))
         {
-            JacksonXmlModule xmlModule = new JacksonXmlModule();
-            xmlModule.setDefaultUseWrapper(false);
-            ObjectMapper objectMapper = new XmlMapper(xmlModule);
-            objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
-            objectMapper.writeValue(out, playlist);
+            out.write(xml);
             out.flush();
-
-            //Remove the playlist lock file to indicate that we successfully saved the file
-            if(Files.exists(playlistPreference.getPlaylistLock()))
-            {
-                Files.delete(playlistPreference.getPlaylistLock());
-            }
         }
         catch(IOException ioe)
         {
-            mLog.error("IO error while writing the playlist to a file [" + playlistPreference.getPlaylist().toString() + "]", ioe);
+            mLog.error("IO error while writing the playlist to a file [" + path.toString() + "]", ioe);
+            return;
         }
-        catch(Exception e)
+
+        try
+        {
+            //Remove the playlist lock file to indicate that we successfully saved the file
+            Files.deleteIfExists(playlistPreference.getPlaylistLock());
+        }
+        catch(IOException ioe)
         {
-            mLog.error("Error while saving playlist [" + playlistPreference.getPlaylist().toString() + "]", e);
+            mLog.error("Error removing playlist lock file [" + playlistPreference.getPlaylistLock() + "]", ioe);
         }
+
+        mSavedPlaylistPath = path;
+        mSavedPlaylistChecksum = checksum;
+        mPlaylistCache.write(path, xml, playlist);
     }
 
     /**
@@ -543,19 +583,43 @@ public class PlaylistManager implements Listener<ChannelEvent>
         {
             mLog.info("Loading playlist [" + files.getPlaylist().toString() + "]");
 
-            JacksonXmlModule xmlModule = new JacksonXmlModule();
-            xmlModule.setDefaultUseWrapper(false);
-            ObjectMapper objectMapper = new XmlMapper(xmlModule)
-                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-
-            try(InputStream in = Files.newInputStream(files.getPlaylist()))
+            try
             {
-                playlist = objectMapper.readValue(in, PlaylistV2.class);
+                byte[] xml = Files.readAllBytes(files.getPlaylist());
+                playlist = mPlaylistCache.read(files.getPlaylist(), xml);
+                boolean cached = playlist != null;
+
+                if(!cached)
+                {
+                    JacksonXmlModule xmlModule = new JacksonXmlModule();
+                    xmlModule.setDefaultUseWrapper(false);
+                    ObjectMapper objectMapper = new XmlMapper(xmlModule)
+                        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+                    playlist = objectMapper.readValue(xml, PlaylistV2.class);
+                }
+
+                mSavedPlaylistPath = files.getPlaylist();
+                mSavedPlaylistChecksum = PlaylistCache.checksum(xml);
 
                 if(PlaylistUpdater.update(playlist))
                 {
                     schedulePlaylistSave();
                 }
+                else if(!cached)
+                {
+                    //Create the cache in the background, serialized with any playlist save
+                    final PlaylistV2 parsed = playlist;
+                    final Path path = files.getPlaylist();
+                    ThreadPool.CACHED.execute(() -> {
+                        synchronized(PlaylistManager.this)
+                        {
+                            if(path.equals(mSavedPlaylistPath) && PlaylistCache.checksum(xml) == mSavedPlaylistChecksum)
+                            {
+                                mPlaylistCache.write(path, xml, parsed);
+                            }
+                        }
+                    });
+                }
             }
             catch(IOException ioe)
             {
@@ -571,9 +635,9 @@ public class PlaylistManager implements Listener<ChannelEvent>
             ObjectMapper objectMapper = new XmlMapper(xmlModule)
                 .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
-            try(InputStream in = Files.newInputStream(files.getLegacyPlaylist()))
+            try
             {
-                playlist = objectMapper.readValue(in, PlaylistV2.class);
+                playlist = objectMapper.readValue(files.getLegacyPlaylist().toFile(), PlaylistV2.class);
 
                 //Perform any updates that may be needed for the playist.
                 if(PlaylistUpdater.update(playlist))
@@ -611,23 +675,27 @@ public class PlaylistManager implements Listener<ChannelEvent>
         {
             if(mPlaylistSavePending.compareAndSet(false, true))
             {
-                mPlaylistSaveFuture = ThreadPool.SCHEDULED.schedule(new PlaylistSaveTask(), 2, TimeUnit.SECONDS);
+                mPlaylistSaveFuture = ThreadPool.SCHEDULED.schedule(() -> ThreadPool.CACHED.execute(new PlaylistSaveTask()),
+                    2, TimeUnit.SECONDS);
             }
         }
     }
 
     /**
-     * Resets the playlist save pending flag to false and proceeds to save the playlist.
+     * Resets the playlist save pending flag to false and proceeds to save the playlist.  The flag is reset before the
+     * save so that changes made while the playlist is saving schedule another save.
      */
     public class PlaylistSaveTask implements Runnable
     {
         @Override
         public void run()
         {
-            save();
-
             mPlaylistSaveFuture = null;
-            mPlaylistSavePending.set(false);
+
+            if(mPlaylistSavePending.getAndSet(false))
+            {
+                save();
+            }
         }
     }
 }
@@ -45,6 +45,12 @@ public class PlaybackPreference extends Preference
     private static final String PREFERENCE_KEY_START_TONE_VOLUME = "audio.playback.segment.start.volume";
 
     private static final String PREFERENCE_KEY_MIXER_CHANNEL_CONFIG = "audio.playback.mixer.channel.configuration";
+    private static final String PREFERENCE_KEY_OUTPUT_LATENCY = "audio.playback.output.latency";
+    private static final String PREFERENCE_KEY_MAXIMUM_MIXED_SEGMENTS = "audio.playback.maximum.mixed.segments";
+    public static final int DEFAULT_OUTPUT_LATENCY_MS = 100;
+    public static final int MINIMUM_OUTPUT_LATENCY_MS = 20;
+    public static final int MAXIMUM_OUTPUT_LATENCY_MS = 1000;
+    public static final int DEFAULT_MAXIMUM_MIXED_SEGMENTS = 3;
     private static final int TONE_LENGTH_SAMPLES = 180;
 
     private final static Logger mLog = LoggerFactory.getLogger(PlaybackPreference.class);
@@ -56,6 +62,8 @@ public class PlaybackPreference extends Preference
     private ToneFrequency mDropToneFrequency;
     private ToneVolume mDropToneVolume;
     private MixerChannelConfiguration mMixerChannelConfiguration;
+    private Integer mOutputLatency;
+    private Integer mMaximumMixedSegments;
 
     /**
      * Constructs this preference with an update listener
@@ -292,4 +300,53 @@ public class PlaybackPreference extends Preference
         mPreferences.put(PREFERENCE_KEY_MIXER_CHANNEL_CONFIG, configuration.toString());
         notifyPreferenceUpdated();
     }
+
+    /**
+     * Target amount of audio buffered in the audio output, in milliseconds.  Lower values reduce playback delay and
+     * higher values are more tolerant of scheduling jitter.
+     */
+    public int getOutputLatency()
+    {
+        if(mOutputLatency == null)
+        {
+            int latency = mPreferences.getInt(PREFERENCE_KEY_OUTPUT_LATENCY, DEFAULT_OUTPUT_LATENCY_MS);
+            mOutputLatency = Math.min(MAXIMUM_OUTPUT_LATENCY_MS, Math.max(MINIMUM_OUTPUT_LATENCY_MS, latency));
+        }
+
+        return mOutputLatency;
+    }
+
+    /**
+     * Sets the audio output latency in milliseconds
+     */
+    public void setOutputLatency(int latency)
+    {
+        mOutputLatency = Math.min(MAXIMUM_OUTPUT_LATENCY_MS, Math.max(MINIMUM_OUTPUT_LATENCY_MS, latency));
+        mPreferences.putInt(PREFERENCE_KEY_OUTPUT_LATENCY, mOutputLatency);
+        notifyPreferenceUpdated();
+    }
+
+    /**
+     * Maximum number of audio segments that are mixed simultaneously on each audio output.
+     */
+    public int getMaximumMixedSegments()
+    {
+        if(mMaximumMixedSegments == null)
+        {
+            mMaximumMixedSegments = Math.max(1, mPreferences.getInt(PREFERENCE_KEY_MAXIMUM_MIXED_SEGMENTS,
+                DEFAULT_MAXIMUM_MIXED_SEGMENTS));
+        }
+
+        return mMaximumMixedSegments;
+    }
+
+    /**
+     * Sets the maximum number of simultaneously mixed audio segments per audio output
+     */
+    public void setMaximumMixedSegments(int maximum)
+    {
+        mMaximumMixedSegments = Math.max(1, maximum);
+        mPreferences.putInt(PREFERENCE_KEY_MAXIMUM_MIXED_SEGMENTS, mMaximumMixedSegments);
+        notifyPreferenceUpdated();
+    }
 }
@@ -21,6 +21,7 @@ package io.github.dsheirer.preference.record;
 
 import io.github.dsheirer.preference.Preference;
 import io.github.dsheirer.preference.PreferenceType;
+import io.github.dsheirer.record.BasebandRecordFormat;
 import io.github.dsheirer.record.RecordFormat;
 import io.github.dsheirer.sample.Listener;
 import org.slf4j.Logger;
@@ -34,10 +35,22 @@ import java.util.prefs.Preferences;
 public class RecordPreference extends Preference
 {
     private static final String PREFERENCE_KEY_AUDIO_RECORD_FORMAT = "audio.record.format";
+    private static final String PREFERENCE_KEY_ENCODER_THREADS = "audio.record.encoder.threads";
+    private static final String PREFERENCE_KEY_WRITER_THREADS = "audio.record.writer.threads";
+    private static final String PREFERENCE_KEY_BASEBAND_RECORD_FORMAT = "baseband.record.format";
+    private static final String PREFERENCE_KEY_BASEBAND_SEGMENT_SIZE = "baseband.record.segment.size.mb";
+    private static final BasebandRecordFormat DEFAULT_BASEBAND_RECORD_FORMAT = BasebandRecordFormat.WAVE;
+    public static final int DEFAULT_BASEBAND_SEGMENT_SIZE_MB = 1024;
     private static final RecordFormat DEFAULT_RECORD_FORMAT = RecordFormat.MP3;
+    public static final int DEFAULT_ENCODER_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    public static final int DEFAULT_WRITER_THREADS = 2;
     private final static Logger mLog = LoggerFactory.getLogger(RecordPreference.class);
     private Preferences mPreferences = Preferences.userNodeForPackage(RecordPreference.class);
     private RecordFormat mAudioRecordFormat;
+    private Integer mEncoderThreads;
+    private Integer mWriterThreads;
+    private BasebandRecordFormat mBasebandRecordFormat;
+    private Integer mBasebandSegmentSize;
 
     /**
      * Constructs this preference with an update listener
@@ -90,4 +103,110 @@ public class RecordPreference extends Preference
         mPreferences.put(PREFERENCE_KEY_AUDIO_RECORD_FORMAT, audioRecordFormat.name());
         notifyPreferenceUpdated();
     }
+
+    /**
+     * Number of threads used to encode audio recordings (MP3 conversion or WAVe sample conversion).
+     */
+    public int getEncoderThreads()
+    {
+        if(mEncoderThreads == null)
+        {
+            mEncoderThreads = Math.max(1, mPreferences.getInt(PREFERENCE_KEY_ENCODER_THREADS, DEFAULT_ENCODER_THREADS));
+        }
+
+        return mEncoderThreads;
+    }
+
+    /**
+     * Sets the number of audio recording encoder threads.  Takes effect on the next application start.
+     */
+    public void setEncoderThreads(int threads)
+    {
+        mEncoderThreads = Math.max(1, threads);
+        mPreferences.putInt(PREFERENCE_KEY_ENCODER_THREADS, mEncoderThreads);
+        notifyPreferenceUpdated();
+    }
+
+    /**
+     * Number of threads used to write encoded audio recordings to disk.
+     */
+    public int getWriterThreads()
+    {
+        if(mWriterThreads == null)
+        {
+            mWriterThreads = Math.max(1, mPreferences.getInt(PREFERENCE_KEY_WRITER_THREADS, DEFAULT_WRITER_THREADS));
+        }
+
+        return mWriterThreads;
+    }
+
+    /**
+     * Sets the number of audio recording writer threads.  Takes effect on the next application start.
+     */
+    public void setWriterThreads(int threads)
+    {
+        mWriterThreads = Math.max(1, threads);
+        mPreferences.putInt(PREFERENCE_KEY_WRITER_THREADS, mWriterThreads);
+        notifyPreferenceUpdated();
+    }
+
+    /**
+     * Tuner baseband recording format
+     */
+    public BasebandRecordFormat getBasebandRecordFormat()
+    {
+        if(mBasebandRecordFormat == null)
+        {
+            try
+            {
+                String format = mPreferences.get(PREFERENCE_KEY_BASEBAND_RECORD_FORMAT, DEFAULT_BASEBAND_RECORD_FORMAT.name());
+                mBasebandRecordFormat = BasebandRecordFormat.valueOf(format);
+            }
+            catch(Exception e)
+            {
+                mLog.error("Error parsing baseband record format preference", e);
+            }
+
+            if(mBasebandRecordFormat == null)
+            {
+                mBasebandRecordFormat = DEFAULT_BASEBAND_RECORD_FORMAT;
+            }
+        }
+
+        return mBasebandRecordFormat;
+    }
+
+    /**
+     * Sets the tuner baseband recording format
+     */
+    public void setBasebandRecordFormat(BasebandRecordFormat basebandRecordFormat)
+    {
+        mBasebandRecordFormat = basebandRecordFormat;
+        mPreferences.put(PREFERENCE_KEY_BASEBAND_RECORD_FORMAT, basebandRecordFormat.name());
+        notifyPreferenceUpdated();
+    }
+
+    /**
+     * Size of each native baseband recording segment file in megabytes.
+     */
+    public int getBasebandSegmentSize()
+    {
+        if(mBasebandSegmentSize == null)
+        {
+            mBasebandSegmentSize = Math.max(64, mPreferences.getInt(PREFERENCE_KEY_BASEBAND_SEGMENT_SIZE,
+                DEFAULT_BASEBAND_SEGMENT_SIZE_MB));
+        }
+
+        return mBasebandSegmentSize;
+    }
+
+    /**
+     * Sets the size of each native baseband recording segment file in megabytes (minimum 64).
+     */
+    public void setBasebandSegmentSize(int megabytes)
+    {
+        mBasebandSegmentSize = Math.max(64, megabytes);
+        mPreferences.putInt(PREFERENCE_KEY_BASEBAND_SEGMENT_SIZE, mBasebandSegmentSize);
+        notifyPreferenceUpdated();
+    }
 }
@@ -19,10 +19,12 @@
 
 package io.github.dsheirer.preference.source;
 
+import io.github.dsheirer.dsp.filter.channelizer.occupancy.OccupancyLogFormat;
 import io.github.dsheirer.gui.preference.tuner.RspDuoSelectionMode;
 import io.github.dsheirer.preference.Preference;
 import io.github.dsheirer.preference.PreferenceType;
 import io.github.dsheirer.sample.Listener;
+import io.github.dsheirer.source.tuner.channel.DigitalDownConverterBank;
 import java.util.prefs.Preferences;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,9 +38,13 @@ public class TunerPreference extends Preference
     private Preferences mPreferences = Preferences.userNodeForPackage(TunerPreference.class);
     private static final String PREFERENCE_KEY_CHANNELIZER_TYPE = "channelizer.type";
     private static final String PREFERENCE_KEY_RSP_DUO_TUNER_MODE = "rsp.duo.tuner.mode";
+    private static final String PREFERENCE_KEY_HETERODYNE_THREADS = "heterodyne.threads";
+    private static final String PREFERENCE_KEY_OCCUPANCY_LOG_FORMAT = "occupancy.log.format";
 
     private ChannelizerType mChannelizerType;
     private RspDuoSelectionMode mRspDuoSelectionMode;
+    private Integer mHeterodyneThreads;
+    private OccupancyLogFormat mOccupancyLogFormat;
 
     /**
      * Constructs a tuner preference with the update listener
@@ -122,4 +128,64 @@ public class TunerPreference extends Preference
         mPreferences.put(PREFERENCE_KEY_RSP_DUO_TUNER_MODE, mRspDuoSelectionMode.name());
         notifyPreferenceUpdated();
     }
+
+    /**
+     * Number of threads used by each tuner's heterodyne down converter bank.
+     * @return thread count, defaulting to half of the available processors, limited to 1-4 threads
+     */
+    public int getHeterodyneThreads()
+    {
+        if(mHeterodyneThreads == null)
+        {
+            mHeterodyneThreads = mPreferences.getInt(PREFERENCE_KEY_HETERODYNE_THREADS,
+                    DigitalDownConverterBank.getDefaultThreadCount());
+        }
+
+        return mHeterodyneThreads;
+    }
+
+    /**
+     * Sets the number of threads used by each tuner's heterodyne down converter bank
+     * @param threads 1 to 4
+     */
+    public void setHeterodyneThreads(int threads)
+    {
+        mHeterodyneThreads = threads;
+        mPreferences.putInt(PREFERENCE_KEY_HETERODYNE_THREADS, threads);
+        notifyPreferenceUpdated();
+    }
+
+    /**
+     * Log file format for polyphase channelizer channel occupancy logging.
+     * @return format, defaulting to NONE (disabled)
+     */
+    public OccupancyLogFormat getOccupancyLogFormat()
+    {
+        if(mOccupancyLogFormat == null)
+        {
+            String format = mPreferences.get(PREFERENCE_KEY_OCCUPANCY_LOG_FORMAT, OccupancyLogFormat.NONE.name());
+
+            try
+            {
+                mOccupancyLogFormat = OccupancyLogFormat.valueOf(format);
+            }
+            catch(IllegalArgumentException iae)
+            {
+                mOccupancyLogFormat = OccupancyLogFormat.NONE;
+            }
+        }
+
+        return mOccupancyLogFormat;
+    }
+
+    /**
+     * Sets the log file format for polyphase channelizer channel occupancy logging
+     * @param format to use, or NONE to disable logging
+     */
+    public void setOccupancyLogFormat(OccupancyLogFormat format)
+    {
+        mOccupancyLogFormat = format;
+        mPreferences.put(PREFERENCE_KEY_OCCUPANCY_LOG_FORMAT, mOccupancyLogFormat.name());
+        notifyPreferenceUpdated();
+    }
 }
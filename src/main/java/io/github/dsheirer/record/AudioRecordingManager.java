@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- * Copyright (C) 2014-2024 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -32,13 +32,13 @@ import io.github.dsheirer.identifier.tone.ToneSequence;
 import io.github.dsheirer.preference.UserPreferences;
 import io.github.dsheirer.sample.Listener;
 import io.github.dsheirer.util.StringUtils;
-import io.github.dsheirer.util.ThreadPool;
 import io.github.dsheirer.util.TimeStamp;
+import io.github.dsheirer.util.PipelineStage;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.List;
-import java.util.concurrent.LinkedTransferQueue;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
@@ -46,13 +46,26 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Monitors audio segments and upon completion records any audio segments that have been flagged as recordable
+ * Monitors audio segments and upon completion records any audio segments that have been flagged as recordable.
+ *
+ * Completed audio segments flow through a three stage recording pipeline as soon as they complete:
+ * <ol>
+ *     <li>Naming - resolves the recording file path.  This stage uses a single thread since the duplicate file name
+ *     versioning depends on the previously generated file name.</li>
+ *     <li>Encoding - converts the audio to the recording format (MP3 or WAVe) in memory.</li>
+ *     <li>Writing - writes the encoded recording to disk with gathering file channel writes.</li>
+ * </ol>
+ * Each stage has a bounded queue and its own threads, so a slow disk or encoder applies back pressure to the
+ * pipeline without blocking the shared application thread pools.
  */
 public class AudioRecordingManager implements Listener<AudioSegment>
 {
     private final static Logger mLog = LoggerFactory.getLogger(AudioRecordingManager.class);
-    private LinkedTransferQueue<AudioSegment> mCompletedAudioSegmentQueue = new LinkedTransferQueue<>();
-    private ScheduledFuture<?> mQueueProcessorHandle;
+    private static final int STAGE_QUEUE_CAPACITY = 256;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+    private PipelineStage<AudioSegment> mNamingStage;
+    private PipelineStage<RecordingJob> mEncodingStage;
+    private PipelineStage<RecordingJob> mWritingStage;
     private UserPreferences mUserPreferences;
     private int mUnknownAudioRecordingIndex = 1;
     private int mDuplicateAudioRecordingSuffix = 1;
@@ -72,26 +85,55 @@ public class AudioRecordingManager implements Listener<AudioSegment>
      */
     public void start()
     {
-        if(mQueueProcessorHandle == null)
+        if(mNamingStage == null)
         {
-            mQueueProcessorHandle = ThreadPool.SCHEDULED.scheduleAtFixedRate(new QueueProcessor(),
-                0, 1, TimeUnit.SECONDS);
+            int encoders = mUserPreferences.getRecordPreference().getEncoderThreads();
+            int writers = mUserPreferences.getRecordPreference().getWriterThreads();
+            //Jobs abandoned at shutdown release their audio segment
+            mWritingStage = new PipelineStage<>("Recording Writer", writers, STAGE_QUEUE_CAPACITY, this::write,
+                PipelineStage.SaturationPolicy.BLOCK, RecordingJob::release);
+            mEncodingStage = new PipelineStage<>("Recording Encoder", encoders, STAGE_QUEUE_CAPACITY, this::encode,
+                PipelineStage.SaturationPolicy.BLOCK, RecordingJob::release);
+            //Audio segments are submitted to the first stage by the decoder threads, so drop rather than block when
+            //the recording pipeline can't keep up.  Later stages block to apply back pressure to the earlier stages.
+            mNamingStage = new PipelineStage<>("Recording Naming", 1, STAGE_QUEUE_CAPACITY, this::name,
+                PipelineStage.SaturationPolicy.DROP, AudioSegment::decrementConsumerCount);
         }
     }
 
     /**
-     * Stops the manager and records any remaining queued audio segments.
+     * Stops the manager and records any remaining queued audio segments.  Each stage is drained before the
+     * downstream stage is shutdown.
      */
     public void stop()
     {
-        if(mQueueProcessorHandle != null)
+        if(mNamingStage != null)
         {
-            mQueueProcessorHandle.cancel(true);
-            processAudioSegments();
-            mQueueProcessorHandle = null;
+            mNamingStage.shutdown(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            mEncodingStage.shutdown(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            mWritingStage.shutdown(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            mLog.info("Audio recording pipeline stopped - " + mNamingStage + " | " + mEncodingStage + " | " +
+                mWritingStage);
+            mNamingStage = null;
+            mEncodingStage = null;
+            mWritingStage = null;
         }
     }
 
+    /**
+     * Pipeline stages, in processing order, for access to the queue depth and latency metrics.  Returns an empty
+     * list when the manager is not started.
+     */
+    public List<PipelineStage<?>> getPipelineStages()
+    {
+        if(mNamingStage == null)
+        {
+            return List.of();
+        }
+
+        return List.of(mNamingStage, mEncodingStage, mWritingStage);
+    }
+
     /**
      * Primary receive method for incoming audio segments to be recorded
      */
@@ -107,61 +149,99 @@ public class AudioRecordingManager implements Listener<AudioSegment>
      */
     public void processCompletedAudioSegment(AudioSegment audioSegment)
     {
-        //Debug
-        if(audioSegment.getAudioBufferCount() == 0)
+        PipelineStage<AudioSegment> namingStage = mNamingStage;
+
+        if(audioSegment.recordAudioProperty().get() && namingStage != null)
         {
-//            mLog.debug("Audio Segment detected with 0 audio buffers");
+            try
+            {
+                namingStage.submit(audioSegment);
+            }
+            catch(RejectedExecutionException ree)
+            {
+                mLog.warn("Audio recording pipeline is stopped - discarding audio segment");
+                audioSegment.decrementConsumerCount();
+            }
         }
+        else
+        {
+            audioSegment.decrementConsumerCount();
+        }
+    }
 
-        List<Identifier> toIdentifiers = audioSegment.getIdentifierCollection().getIdentifiers(Role.TO);
-
-        if(toIdentifiers.isEmpty())
+    /**
+     * Naming stage: suppresses duplicate recordings and resolves the recording file path.
+     */
+    private void name(AudioSegment audioSegment)
+    {
+        if(audioSegment.isDuplicate() && mUserPreferences.getCallManagementPreference().isDuplicateRecordingSuppressionEnabled())
         {
-//            mLog.debug("Audio Segment detected with NO TO identifiers");
+            audioSegment.decrementConsumerCount();
+            return;
         }
 
-        if(audioSegment.recordAudioProperty().get())
+        RecordFormat recordFormat = mUserPreferences.getRecordPreference().getAudioRecordFormat();
+        RecordingJob job = new RecordingJob(audioSegment, recordFormat);
+
+        try
         {
-            mCompletedAudioSegmentQueue.add(audioSegment);
+            job.mPath = getAudioRecordingPath(audioSegment.getIdentifierCollection(), recordFormat);
+            mEncodingStage.submit(job);
         }
-        else
+        catch(Exception e)
         {
+            mLog.error("Error queueing audio segment for recording encoding", e);
             audioSegment.decrementConsumerCount();
         }
     }
 
     /**
-     * Processes any queued audio segments
+     * Encoding stage: converts the audio segment into the encoded file contents.  WAVe recordings are not encoded
+     * here since the writer converts the samples directly into its own reusable buffer.
      */
-    private void processAudioSegments()
+    private void encode(RecordingJob job)
     {
-        RecordFormat recordFormat = mUserPreferences.getRecordPreference().getAudioRecordFormat();
-        AudioSegment audioSegment = mCompletedAudioSegmentQueue.poll();
+        try
+        {
+            if(job.mRecordFormat != RecordFormat.WAVE)
+            {
+                job.mBuffers = AudioSegmentRecorder.encode(job.mAudioSegment, job.mRecordFormat, mUserPreferences,
+                    job.mAudioSegment.getIdentifierCollection());
+            }
 
-        while(audioSegment != null)
+            mWritingStage.submit(job);
+        }
+        catch(Exception e)
         {
-            if(audioSegment.isDuplicate() && mUserPreferences.getCallManagementPreference().isDuplicateRecordingSuppressionEnabled())
+            mLog.error("Error encoding audio segment for recording [" + job.mPath + "]", e);
+            job.mAudioSegment.decrementConsumerCount();
+        }
+    }
+
+    /**
+     * Writing stage: writes the encoded file contents to disk.
+     */
+    private void write(RecordingJob job)
+    {
+        try
+        {
+            if(job.mBuffers != null)
             {
-                audioSegment.decrementConsumerCount();
+                AudioSegmentRecorder.write(job.mPath, job.mBuffers);
             }
             else
             {
-                Path path = getAudioRecordingPath(audioSegment.getIdentifierCollection(), recordFormat);
-
-                try
-                {
-                    AudioSegmentRecorder.record(audioSegment, path, recordFormat, mUserPreferences);
-                }
-                catch(IOException ioe)
-                {
-                    mLog.error("Error recording audio segment to [" + path.toString() + "]");
-                }
-
-                audioSegment.decrementConsumerCount();
+                AudioSegmentRecorder.recordWAVE(job.mAudioSegment, job.mPath,
+                    job.mAudioSegment.getIdentifierCollection());
             }
-
-            //Grab the next one to record
-            audioSegment = mCompletedAudioSegmentQueue.poll();
+        }
+        catch(IOException ioe)
+        {
+            mLog.error("Error recording audio segment to [" + job.mPath.toString() + "]");
+        }
+        finally
+        {
+            job.mAudioSegment.decrementConsumerCount();
         }
     }
 
@@ -356,21 +436,27 @@ public class AudioRecordingManager implements Listener<AudioSegment>
     }
 
     /**
-     * Threaded queue processor to process/record each recordable audio segment
+     * Audio segment recording job that is passed between the pipeline stages.
      */
-    public class QueueProcessor implements Runnable
+    private static class RecordingJob
     {
-        @Override
-        public void run()
+        private final AudioSegment mAudioSegment;
+        private final RecordFormat mRecordFormat;
+        private Path mPath;
+        private ByteBuffer[] mBuffers;
+
+        public RecordingJob(AudioSegment audioSegment, RecordFormat recordFormat)
         {
-            try
-            {
-                processAudioSegments();
-            }
-            catch(Throwable t)
-            {
-                mLog.error("Error while processing queued audio segments to recordings", t);
-            }
+            mAudioSegment = audioSegment;
+            mRecordFormat = recordFormat;
+        }
+
+        /**
+         * Releases the audio segment when the job is abandoned without being written.
+         */
+        public void release()
+        {
+            mAudioSegment.decrementConsumerCount();
         }
     }
 }
@@ -28,13 +28,13 @@ import io.github.dsheirer.identifier.IdentifierCollection;
 import io.github.dsheirer.preference.UserPreferences;
 import io.github.dsheirer.record.wave.AudioMetadata;
 import io.github.dsheirer.record.wave.AudioMetadataUtils;
-import io.github.dsheirer.record.wave.WaveWriter;
-import io.github.dsheirer.sample.ConversionUtils;
-import java.io.FileOutputStream;
+import io.github.dsheirer.record.wave.WaveSegmentWriter;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import org.slf4j.Logger;
@@ -49,6 +49,7 @@ public class AudioSegmentRecorder
 
     public static final int MP3_BIT_RATE = 16;
     public static final boolean CONSTANT_BIT_RATE = false;
+    private static final int MAX_GATHER_BUFFERS = 1024;
 
     /**
      * Records the audio segment to the specified path using the specified recording format
@@ -74,19 +75,67 @@ public class AudioSegmentRecorder
     public static void record(AudioSegment audioSegment, Path path, RecordFormat recordFormat,
                               UserPreferences userPreferences, IdentifierCollection identifierCollection) throws IOException
     {
+        write(path, encode(audioSegment, recordFormat, userPreferences, identifierCollection));
+    }
+
+    /**
+     * Encodes the audio segment into the complete file contents for the specified recording format.
+     * @param audioSegment to encode
+     * @param recordFormat to use (WAVE, MP3)
+     * @param userPreferences for configuration
+     * @param identifierCollection to use for the recording metadata
+     * @return buffers containing the file contents in file order, or an empty array if the segment has no audio.
+     */
+    public static ByteBuffer[] encode(AudioSegment audioSegment, RecordFormat recordFormat,
+                                      UserPreferences userPreferences, IdentifierCollection identifierCollection)
+    {
+        if(!audioSegment.hasAudio())
+        {
+            return new ByteBuffer[0];
+        }
+
         switch(recordFormat)
         {
             case MP3:
-                recordMP3(audioSegment, path, userPreferences, identifierCollection);
-                break;
+                return encodeMP3(audioSegment, userPreferences, identifierCollection);
             case WAVE:
-                recordWAVE(audioSegment, path, identifierCollection);
-                break;
+                return encodeWAVE(audioSegment, identifierCollection);
             default:
                 throw new IllegalArgumentException("Unrecognized recording format [" + recordFormat.name() + "]");
         }
     }
 
+    /**
+     * Writes the encoded buffers to the file using gathering writes against a single file channel.  Nothing is
+     * written when the buffer array is empty.
+     * @param path for the recording
+     * @param buffers to write, in file order
+     * @throws IOException on any errors
+     */
+    public static void write(Path path, ByteBuffer[] buffers) throws IOException
+    {
+        if(buffers.length == 0)
+        {
+            return;
+        }
+
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            int offset = 0;
+
+            while(offset < buffers.length)
+            {
+                channel.write(buffers, offset, Math.min(MAX_GATHER_BUFFERS, buffers.length - offset));
+
+                while(offset < buffers.length && !buffers[offset].hasRemaining())
+                {
+                    offset++;
+                }
+            }
+        }
+    }
+
     /**
      * Records the audio segment as an MP3 file to the specified path.
      * @param audioSegment to record
@@ -98,47 +147,45 @@ public class AudioSegmentRecorder
     public static void recordMP3(AudioSegment audioSegment, Path path, UserPreferences userPreferences,
                                  IdentifierCollection identifierCollection) throws IOException
     {
-        if(audioSegment.hasAudio())
-        {
-            OutputStream outputStream = new FileOutputStream(path.toFile());
-
-            //Write ID3 metadata
-            Map<AudioMetadata,String> metadataMap = AudioMetadataUtils.getMetadataMap(identifierCollection,
-                audioSegment.getAliasList());
-
-            byte[] id3Bytes = AudioMetadataUtils.getMP3ID3(metadataMap);
-            outputStream.write(id3Bytes);
+        write(path, encode(audioSegment, RecordFormat.MP3, userPreferences, identifierCollection));
+    }
 
-            //Convert audio to MP3 and write to file
-            InputAudioFormat inputAudioFormat = userPreferences.getMP3Preference().getAudioSampleRate();
-            MP3Setting mp3Setting = userPreferences.getMP3Preference().getMP3Setting();
+    /**
+     * Encodes the audio segment as MP3 with a leading ID3 metadata tag.
+     */
+    private static ByteBuffer[] encodeMP3(AudioSegment audioSegment, UserPreferences userPreferences,
+                                          IdentifierCollection identifierCollection)
+    {
+        List<ByteBuffer> buffers = new ArrayList<>();
 
-            boolean normalizeAudio = userPreferences.getMP3Preference().isNormalizeAudioBeforeEncode();
+        //ID3 metadata
+        Map<AudioMetadata,String> metadataMap = AudioMetadataUtils.getMetadataMap(identifierCollection,
+            audioSegment.getAliasList());
+        buffers.add(ByteBuffer.wrap(AudioMetadataUtils.getMP3ID3(metadataMap)));
 
-            MP3AudioConverter converter = new MP3AudioConverter(inputAudioFormat, mp3Setting, normalizeAudio);
-            List<byte[]> mp3Frames = converter.convert(audioSegment.getAudioBuffers());
-            for(byte[] mp3Frame: mp3Frames)
-            {
-                outputStream.write(mp3Frame);
-            }
+        //Convert audio to MP3
+        InputAudioFormat inputAudioFormat = userPreferences.getMP3Preference().getAudioSampleRate();
+        MP3Setting mp3Setting = userPreferences.getMP3Preference().getMP3Setting();
+        boolean normalizeAudio = userPreferences.getMP3Preference().isNormalizeAudioBeforeEncode();
 
-            List<byte[]> lastFrames = converter.flush();
+        MP3AudioConverter converter = new MP3AudioConverter(inputAudioFormat, mp3Setting, normalizeAudio);
 
-            if(!lastFrames.isEmpty())
-            {
-                for(byte[] lastFrame: lastFrames)
-                {
-                    outputStream.write(lastFrame);
-                }
-            }
+        for(byte[] mp3Frame: converter.convert(audioSegment.getAudioBuffers()))
+        {
+            buffers.add(ByteBuffer.wrap(mp3Frame));
+        }
 
-            outputStream.flush();
-            outputStream.close();
+        for(byte[] lastFrame: converter.flush())
+        {
+            buffers.add(ByteBuffer.wrap(lastFrame));
         }
+
+        return buffers.toArray(new ByteBuffer[0]);
     }
 
     /**
-     * Records the audio segment as a WAVe file to the specified path.
+     * Records the audio segment as a WAVe file to the specified path.  Samples are converted directly into the
+     * calling thread's reusable direct buffer and the file is written with a single gathering write.
      * @param audioSegment to record
      * @param path for the recording
      * @param identifierCollection to use instead of the audioSegment's embedded identifier collection
@@ -148,21 +195,33 @@ public class AudioSegmentRecorder
     {
         if(audioSegment.hasAudio())
         {
-            WaveWriter writer = new WaveWriter(AudioFormats.PCM_SIGNED_8000_HZ_16_BIT_MONO, path);
-
-            for(float[] audioBuffer: audioSegment.getAudioBuffers())
-            {
-                writer.writeData(ConversionUtils.convertToSigned16BitSamples(audioBuffer));
-            }
-
             Map<AudioMetadata,String> metadataMap = AudioMetadataUtils.getMetadataMap(identifierCollection,
                 audioSegment.getAliasList());
-
             ByteBuffer listChunk = AudioMetadataUtils.getLISTChunk(metadataMap);
-            byte[] id3Bytes = AudioMetadataUtils.getMP3ID3(metadataMap);
-            ByteBuffer id3Chunk = AudioMetadataUtils.getID3Chunk(id3Bytes);
-            writer.writeMetadata(listChunk, id3Chunk);
-            writer.close();
+            ByteBuffer id3Chunk = AudioMetadataUtils.getID3Chunk(AudioMetadataUtils.getMP3ID3(metadataMap));
+            WaveSegmentWriter.write(path, AudioFormats.PCM_SIGNED_8000_HZ_16_BIT_MONO, audioSegment.getAudioBuffers(),
+                listChunk, id3Chunk);
         }
     }
+
+    /**
+     * Encodes the audio segment as 16-bit PCM WAVe with trailing LIST and ID3 metadata chunks.
+     */
+    private static ByteBuffer[] encodeWAVE(AudioSegment audioSegment, IdentifierCollection identifierCollection)
+    {
+        List<float[]> audioBuffers = audioSegment.getAudioBuffers();
+        Map<AudioMetadata,String> metadataMap = AudioMetadataUtils.getMetadataMap(identifierCollection,
+            audioSegment.getAliasList());
+        ByteBuffer listChunk = AudioMetadataUtils.getLISTChunk(metadataMap);
+        listChunk.position(0);
+        ByteBuffer id3Chunk = AudioMetadataUtils.getID3Chunk(AudioMetadataUtils.getMP3ID3(metadataMap));
+        id3Chunk.position(0);
+
+        ByteBuffer audio = ByteBuffer.allocate(WaveSegmentWriter.HEADER_SIZE + WaveSegmentWriter.getDataSize(audioBuffers));
+        WaveSegmentWriter.encode(AudioFormats.PCM_SIGNED_8000_HZ_16_BIT_MONO, audioBuffers,
+            listChunk.capacity() + id3Chunk.capacity(), audio);
+        audio.flip();
+
+        return new ByteBuffer[]{audio, listChunk, id3Chunk};
+    }
 }
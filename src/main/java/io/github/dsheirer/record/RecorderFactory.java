@@ -25,6 +25,7 @@ import io.github.dsheirer.module.decode.dmr.audio.DMRCallSequenceRecorder;
 import io.github.dsheirer.module.decode.p25.audio.P25P1CallSequenceRecorder;
 import io.github.dsheirer.module.decode.p25.audio.P25P2CallSequenceRecorder;
 import io.github.dsheirer.preference.UserPreferences;
+import io.github.dsheirer.record.baseband.NativeBasebandRecorder;
 import io.github.dsheirer.record.binary.BinaryRecorder;
 import io.github.dsheirer.record.wave.ComplexSamplesWaveRecorder;
 import io.github.dsheirer.record.wave.IRecordingStatusListener;
@@ -183,14 +184,21 @@ public class RecorderFactory
     }
 
     /**
-     * Constructs a baseband recorder for use in a processing chain.
+     * Constructs a tuner baseband recorder using the baseband recording format from the user preferences.
      */
-    public static NativeBufferWaveRecorder getTunerRecorder(String channelName, UserPreferences userPreferences,
-                                                            IRecordingStatusListener statusListener)
+    public static ITunerRecorder getTunerRecorder(String channelName, UserPreferences userPreferences,
+                                                  IRecordingStatusListener statusListener)
     {
         StringBuilder sb = new StringBuilder();
         sb.append(getRecordingBasePath(userPreferences));
         sb.append(File.separator).append(StringUtils.replaceIllegalCharacters(channelName)).append("_baseband");
+
+        if(userPreferences.getRecordPreference().getBasebandRecordFormat() == BasebandRecordFormat.NATIVE)
+        {
+            long segmentSize = userPreferences.getRecordPreference().getBasebandSegmentSize() * 1024L * 1024L;
+            return new NativeBasebandRecorder(BASEBAND_SAMPLE_RATE, sb.toString(), segmentSize, statusListener);
+        }
+
         return new NativeBufferWaveRecorder(BASEBAND_SAMPLE_RATE, sb.toString(), statusListener);
     }
 }
@@ -0,0 +1,228 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.record.baseband;
+
+import io.github.dsheirer.buffer.NativeSampleFormat;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * File header for a native baseband recording segment file.
+ *
+ * A segment file contains a fixed length file header followed by a sequence of sample records.  Each record has a
+ * fixed length record header followed by the raw samples from one tuner native buffer.  All values are little-endian.
+ *
+ * File header (64 bytes):
+ *   0  magic 'SDRTBBR1'
+ *   8  int version
+ *   12 int native sample format identifier
+ *   16 double sample rate (Hz)
+ *   24 long center frequency at the start of the segment (Hz)
+ *   32 long timestamp of the first record (millis since epoch)
+ *   40 long length of the record data following the file header (bytes)
+ *   48 int record count
+ *   52 int segment index within the recording
+ *   56 reserved
+ *
+ * Record header (32 bytes):
+ *   0  long timestamp of the first sample (millis since epoch)
+ *   8  long tuner center frequency (Hz)
+ *   16 int sample count
+ *   20 int sample data length (bytes)
+ *   24 float in-phase DC offset
+ *   28 float quadrature DC offset
+ */
+public class BasebandSegmentHeader
+{
+    public static final String FILE_EXTENSION = ".bbr";
+    public static final int VERSION = 1;
+    public static final int HEADER_LENGTH = 64;
+    public static final int RECORD_HEADER_LENGTH = 32;
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+    private static final byte[] MAGIC = "SDRTBBR1".getBytes(StandardCharsets.US_ASCII);
+
+    private NativeSampleFormat mSampleFormat;
+    private double mSampleRate;
+    private long mFrequency;
+    private long mTimestamp;
+    private long mDataLength;
+    private int mRecordCount;
+    private int mSegmentIndex;
+
+    /**
+     * Constructs an instance
+     * @param sampleFormat of the recorded samples
+     * @param sampleRate of the recorded samples
+     * @param frequency of the tuner at the start of the segment
+     * @param timestamp of the first record
+     * @param segmentIndex of this segment within the recording
+     */
+    public BasebandSegmentHeader(NativeSampleFormat sampleFormat, double sampleRate, long frequency, long timestamp,
+                                 int segmentIndex)
+    {
+        mSampleFormat = sampleFormat;
+        mSampleRate = sampleRate;
+        mFrequency = frequency;
+        mTimestamp = timestamp;
+        mSegmentIndex = segmentIndex;
+    }
+
+    /**
+     * Native sample format of the recorded samples
+     */
+    public NativeSampleFormat getSampleFormat()
+    {
+        return mSampleFormat;
+    }
+
+    /**
+     * Sample rate of the recorded samples
+     */
+    public double getSampleRate()
+    {
+        return mSampleRate;
+    }
+
+    /**
+     * Tuner center frequency at the start of the segment
+     */
+    public long getFrequency()
+    {
+        return mFrequency;
+    }
+
+    /**
+     * Timestamp of the first record in the segment
+     */
+    public long getTimestamp()
+    {
+        return mTimestamp;
+    }
+
+    /**
+     * Length of the record data that follows the file header
+     */
+    public long getDataLength()
+    {
+        return mDataLength;
+    }
+
+    /**
+     * Sets the length of the record data that follows the file header
+     */
+    public void setDataLength(long dataLength)
+    {
+        mDataLength = dataLength;
+    }
+
+    /**
+     * Number of records in the segment
+     */
+    public int getRecordCount()
+    {
+        return mRecordCount;
+    }
+
+    /**
+     * Sets the number of records in the segment
+     */
+    public void setRecordCount(int recordCount)
+    {
+        mRecordCount = recordCount;
+    }
+
+    /**
+     * Index of this segment within the recording
+     */
+    public int getSegmentIndex()
+    {
+        return mSegmentIndex;
+    }
+
+    /**
+     * Writes this header to the start of the buffer, using absolute positioning.
+     * @param buffer to write to, with little-endian byte order
+     */
+    public void write(ByteBuffer buffer)
+    {
+        buffer.put(0, MAGIC);
+        buffer.putInt(8, VERSION);
+        buffer.putInt(12, mSampleFormat.getId());
+        buffer.putDouble(16, mSampleRate);
+        buffer.putLong(24, mFrequency);
+        buffer.putLong(32, mTimestamp);
+        buffer.putLong(40, mDataLength);
+        buffer.putInt(48, mRecordCount);
+        buffer.putInt(52, mSegmentIndex);
+        buffer.putLong(56, 0);
+    }
+
+    /**
+     * Reads a header from the start of the buffer, using absolute positioning.
+     * @param buffer to read from, with little-endian byte order
+     * @return header
+     * @throws IOException if the buffer doesn't contain a supported segment file header
+     */
+    public static BasebandSegmentHeader read(ByteBuffer buffer) throws IOException
+    {
+        if(buffer.limit() < HEADER_LENGTH)
+        {
+            throw new IOException("Baseband recording file is too short to contain a header");
+        }
+
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(0, magic);
+
+        if(!Arrays.equals(MAGIC, magic))
+        {
+            throw new IOException("File is not a native baseband recording");
+        }
+
+        int version = buffer.getInt(8);
+
+        if(version != VERSION)
+        {
+            throw new IOException("Unsupported native baseband recording version [" + version + "]");
+        }
+
+        NativeSampleFormat sampleFormat = NativeSampleFormat.fromId(buffer.getInt(12));
+
+        if(sampleFormat == null)
+        {
+            throw new IOException("Unrecognized native sample format [" + buffer.getInt(12) + "]");
+        }
+
+        BasebandSegmentHeader header = new BasebandSegmentHeader(sampleFormat, buffer.getDouble(16),
+            buffer.getLong(24), buffer.getLong(32), buffer.getInt(52));
+        header.setDataLength(buffer.getLong(40));
+        header.setRecordCount(buffer.getInt(48));
+        return header;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Segment " + mSegmentIndex + " " + mSampleFormat + " Rate:" + mSampleRate + " Frequency:" + mFrequency +
+            " Records:" + mRecordCount + " Bytes:" + mDataLength;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.record.baseband;
+
+import io.github.dsheirer.buffer.INativeBuffer;
+import io.github.dsheirer.buffer.NativeSampleFormat;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes native sample buffers to a single, fixed capacity baseband recording segment file through memory-mapped
+ * regions of the file.
+ *
+ * The file is created at its full capacity by allocate() before the first sample is written, so that the file
+ * system doesn't have to grow the file while recording.  Samples are copied directly into the mapped region and
+ * the operating system writes the dirty pages to disk in the background.  Each region is unmapped as soon as the
+ * writer moves to the next region, so that the file can be truncated on close on all platforms.
+ *
+ * The file header is written when the segment is opened, with a zero data length, so that a segment that is not
+ * closed (e.g. the application crashed) can still be replayed by walking its records.  On close, the file header is
+ * updated with the final data length and record count and the file is truncated to the recorded length.
+ *
+ * Note: this class is not thread-safe.
+ */
+public class BasebandSegmentWriter
+{
+    private static final long REGION_SIZE = 32 * 1024 * 1024;
+    private final Path mPath;
+    private final long mCapacity;
+    private FileChannel mFileChannel;
+    private Arena mRegionArena;
+    private ByteBuffer mRegion;
+    private long mRegionStart;
+    private long mPosition = BasebandSegmentHeader.HEADER_LENGTH;
+    private BasebandSegmentHeader mHeader;
+
+    /**
+     * Constructs an instance
+     * @param path for the segment file
+     * @param capacity of the segment file in bytes
+     */
+    public BasebandSegmentWriter(Path path, long capacity)
+    {
+        mPath = path;
+        mCapacity = capacity;
+    }
+
+    /**
+     * Path for the segment file
+     */
+    public Path getPath()
+    {
+        return mPath;
+    }
+
+    /**
+     * Number of bytes written to the segment file, including the file header
+     */
+    public long getSize()
+    {
+        return mPosition;
+    }
+
+    /**
+     * Creates the segment file at full capacity and maps the first region.  This can be invoked on a different thread
+     * than the writing thread, ahead of the segment being needed.
+     * @throws IOException if the file can't be created
+     */
+    public void allocate() throws IOException
+    {
+        mFileChannel = FileChannel.open(mPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        mFileChannel.position(mCapacity - 1);
+        mFileChannel.write(ByteBuffer.wrap(new byte[1]));
+        map(0, REGION_SIZE);
+    }
+
+    /**
+     * Starts the segment with the header details and writes the header to the start of the file.
+     * @param header for the segment
+     */
+    public void open(BasebandSegmentHeader header)
+    {
+        mHeader = header;
+
+        //The first region is mapped from the start of the file until the first region is filled
+        if(mRegion != null && mRegionStart == 0)
+        {
+            mHeader.write(mRegion);
+        }
+    }
+
+    /**
+     * Indicates if the segment is open and can accept a record with the format, sample rate and length.
+     * @param sampleFormat of the record
+     * @param sampleRate of the record
+     * @param recordLength including the record header
+     * @return true if the record can be written to this segment
+     */
+    public boolean canWrite(NativeSampleFormat sampleFormat, double sampleRate, int recordLength)
+    {
+        return mHeader != null && mHeader.getSampleFormat() == sampleFormat && mHeader.getSampleRate() == sampleRate &&
+            (mPosition + recordLength) <= mCapacity;
+    }
+
+    /**
+     * Writes the native buffer as a record.  Invoke canWrite() first to ensure there is capacity for the record.
+     * @param nativeBuffer to write
+     * @param frequency of the tuner
+     */
+    public void write(INativeBuffer nativeBuffer, long frequency) throws IOException
+    {
+        int byteCount = nativeBuffer.getNativeByteCount();
+        int recordLength = BasebandSegmentHeader.RECORD_HEADER_LENGTH + byteCount;
+
+        if(mPosition + recordLength > mRegionStart + mRegion.capacity())
+        {
+            map(mPosition, Math.max(REGION_SIZE, recordLength));
+        }
+
+        mRegion.position((int)(mPosition - mRegionStart));
+        mRegion.putLong(nativeBuffer.getTimestamp());
+        mRegion.putLong(frequency);
+        mRegion.putInt(byteCount / nativeBuffer.getNativeSampleFormat().getBytesPerSample());
+        mRegion.putInt(byteCount);
+        mRegion.putFloat(nativeBuffer.getNativeDcOffsetI());
+        mRegion.putFloat(nativeBuffer.getNativeDcOffsetQ());
+        nativeBuffer.writeNative(mRegion);
+
+        mPosition += recordLength;
+        mHeader.setDataLength(mPosition - BasebandSegmentHeader.HEADER_LENGTH);
+        mHeader.setRecordCount(mHeader.getRecordCount() + 1);
+    }
+
+    /**
+     * Writes the final file header, truncates the file to the recorded length and closes the file.  An allocated
+     * segment that was never opened is deleted.
+     * @throws IOException if there is an error
+     */
+    public void close() throws IOException
+    {
+        if(mFileChannel == null)
+        {
+            return;
+        }
+
+        unmap();
+
+        try
+        {
+            if(mHeader != null)
+            {
+                ByteBuffer header = ByteBuffer.allocate(BasebandSegmentHeader.HEADER_LENGTH)
+                    .order(BasebandSegmentHeader.BYTE_ORDER);
+                mHeader.write(header);
+                mFileChannel.write(header, 0);
+                mFileChannel.truncate(mPosition);
+                mFileChannel.force(true);
+            }
+        }
+        finally
+        {
+            mFileChannel.close();
+            mFileChannel = null;
+        }
+
+        if(mHeader == null)
+        {
+            Files.deleteIfExists(mPath);
+        }
+    }
+
+    /**
+     * Maps a region of the file for writing, limited to the file capacity.
+     */
+    private void map(long start, long length) throws IOException
+    {
+        unmap();
+        mRegionStart = start;
+        mRegionArena = Arena.ofShared();
+        mRegion = mFileChannel.map(FileChannel.MapMode.READ_WRITE, start, Math.min(length, mCapacity - start),
+            mRegionArena).asByteBuffer().order(BasebandSegmentHeader.BYTE_ORDER);
+    }
+
+    /**
+     * Unmaps the current region.  Dirty pages are still written to the file by the operating system.
+     */
+    private void unmap()
+    {
+        mRegion = null;
+
+        if(mRegionArena != null)
+        {
+            mRegionArena.close();
+            mRegionArena = null;
+        }
+    }
+}
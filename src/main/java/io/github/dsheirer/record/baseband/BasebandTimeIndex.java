@@ -0,0 +1,326 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.record.baseband;
+
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Time index for a native baseband recording segment file that maps record timestamps to record byte offsets at a
+ * fixed time interval, so that playback can seek to any time in the segment by reading at most one interval of
+ * record headers.
+ *
+ * The index is stored in a sidecar file next to the segment (segment file name + '.idx') and is rebuilt from the
+ * segment's record headers when the sidecar is missing or was built for a different version of the segment file.
+ */
+public class BasebandTimeIndex
+{
+    private static final Logger mLog = LoggerFactory.getLogger(BasebandTimeIndex.class);
+    public static final String FILE_EXTENSION = ".idx";
+    public static final long DEFAULT_INTERVAL_MS = 1000;
+    private static final byte[] MAGIC = "SDRTBBI1".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_LENGTH = 48;
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final long mIntervalMs;
+    private final long[] mTimestamps;
+    private final long[] mOffsets;
+    private final long mEndTimestamp;
+    private final long mDataEnd;
+
+    /**
+     * Constructs an instance
+     * @param intervalMs between index entries
+     * @param timestamps of the indexed records
+     * @param offsets of the indexed records
+     * @param endTimestamp of the last record in the segment
+     * @param dataEnd offset after the last complete record in the segment
+     */
+    private BasebandTimeIndex(long intervalMs, long[] timestamps, long[] offsets, long endTimestamp, long dataEnd)
+    {
+        mIntervalMs = intervalMs;
+        mTimestamps = timestamps;
+        mOffsets = offsets;
+        mEndTimestamp = endTimestamp;
+        mDataEnd = dataEnd;
+    }
+
+    /**
+     * Number of index entries
+     */
+    public int size()
+    {
+        return mTimestamps.length;
+    }
+
+    /**
+     * Interval between index entries in milliseconds
+     */
+    public long getIntervalMs()
+    {
+        return mIntervalMs;
+    }
+
+    /**
+     * Timestamp of the first record in the segment, or 0 if the segment is empty
+     */
+    public long getStartTimestamp()
+    {
+        return mTimestamps.length > 0 ? mTimestamps[0] : 0;
+    }
+
+    /**
+     * Timestamp of the last record in the segment, or 0 if the segment is empty
+     */
+    public long getEndTimestamp()
+    {
+        return mEndTimestamp;
+    }
+
+    /**
+     * Byte offset after the last complete record in the segment
+     */
+    public long getDataEnd()
+    {
+        return mDataEnd;
+    }
+
+    /**
+     * Byte offset of the last indexed record that starts at or before the timestamp, or the first record when the
+     * timestamp precedes the segment.
+     * @param timestamp to find
+     * @return record offset or -1 if the segment is empty
+     */
+    public long getOffset(long timestamp)
+    {
+        if(mTimestamps.length == 0)
+        {
+            return -1;
+        }
+
+        int index = Arrays.binarySearch(mTimestamps, timestamp);
+
+        if(index < 0)
+        {
+            index = Math.max(0, -index - 2);
+        }
+
+        return mOffsets[index];
+    }
+
+    /**
+     * Loads the index from the sidecar file for the segment, or builds the index from the mapped segment and writes
+     * the sidecar file.  Failure to write the sidecar (e.g. read-only media) is logged and the index is still returned.
+     * @param segmentPath for the segment file
+     * @param segment memory for the segment file
+     * @param header for the segment
+     * @param intervalMs between index entries
+     * @return index
+     */
+    public static BasebandTimeIndex load(Path segmentPath, MemorySegment segment, BasebandSegmentHeader header,
+                                         long intervalMs) throws IOException
+    {
+        Path indexPath = getIndexPath(segmentPath);
+        long segmentSize = Files.size(segmentPath);
+        long lastModified = Files.getLastModifiedTime(segmentPath).toMillis();
+
+        if(Files.exists(indexPath))
+        {
+            try
+            {
+                BasebandTimeIndex index = read(indexPath, segmentSize, lastModified, intervalMs);
+
+                if(index != null)
+                {
+                    return index;
+                }
+            }
+            catch(IOException ioe)
+            {
+                mLog.warn("Unable to read baseband recording time index [" + indexPath + "] - rebuilding", ioe);
+            }
+        }
+
+        BasebandTimeIndex index = build(segment, header, intervalMs);
+
+        try
+        {
+            index.write(indexPath, segmentSize, lastModified);
+        }
+        catch(IOException ioe)
+        {
+            mLog.warn("Unable to write baseband recording time index [" + indexPath + "]", ioe);
+        }
+
+        return index;
+    }
+
+    /**
+     * Sidecar index file path for the segment file
+     */
+    public static Path getIndexPath(Path segmentPath)
+    {
+        return segmentPath.resolveSibling(segmentPath.getFileName().toString() + FILE_EXTENSION);
+    }
+
+    /**
+     * Builds the index by walking the record headers of the mapped segment.  When the header doesn't specify the
+     * data length (e.g. the recording was interrupted before the segment was closed), the records are walked until
+     * the first empty or incomplete record.
+     * @param segment memory for the segment file
+     * @param header for the segment
+     * @param intervalMs between index entries
+     * @return index
+     */
+    public static BasebandTimeIndex build(MemorySegment segment, BasebandSegmentHeader header, long intervalMs)
+    {
+        long end = header.getDataLength() > 0 ?
+            Math.min(segment.byteSize(), BasebandSegmentHeader.HEADER_LENGTH + header.getDataLength()) :
+            segment.byteSize();
+        long offset = BasebandSegmentHeader.HEADER_LENGTH;
+        long[] timestamps = new long[16];
+        long[] offsets = new long[16];
+        int count = 0;
+        long nextIndexTimestamp = Long.MIN_VALUE;
+        long endTimestamp = 0;
+        double samplesPerMillisecond = header.getSampleRate() / 1000.0;
+
+        while(offset + BasebandSegmentHeader.RECORD_HEADER_LENGTH <= end)
+        {
+            long timestamp = segment.get(LONG, offset);
+            int sampleCount = segment.get(INT, offset + 16);
+            int byteCount = segment.get(INT, offset + 20);
+
+            if(byteCount <= 0 || offset + BasebandSegmentHeader.RECORD_HEADER_LENGTH + byteCount > end)
+            {
+                break;
+            }
+
+            if(timestamp >= nextIndexTimestamp)
+            {
+                if(count == timestamps.length)
+                {
+                    timestamps = Arrays.copyOf(timestamps, count * 2);
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                }
+
+                timestamps[count] = timestamp;
+                offsets[count] = offset;
+                count++;
+                nextIndexTimestamp = timestamp + intervalMs;
+            }
+
+            endTimestamp = timestamp + (samplesPerMillisecond > 0 ? (long)(sampleCount / samplesPerMillisecond) : 0);
+            offset += BasebandSegmentHeader.RECORD_HEADER_LENGTH + byteCount;
+        }
+
+        return new BasebandTimeIndex(intervalMs, Arrays.copyOf(timestamps, count), Arrays.copyOf(offsets, count),
+            endTimestamp, offset);
+    }
+
+    /**
+     * Reads the sidecar index file.
+     * @return index or null if the index was built for a different segment file version or interval
+     */
+    private static BasebandTimeIndex read(Path indexPath, long segmentSize, long lastModified, long intervalMs)
+        throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(indexPath)).order(ByteOrder.LITTLE_ENDIAN);
+
+        if(buffer.limit() < HEADER_LENGTH)
+        {
+            throw new IOException("Index file is too short");
+        }
+
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+
+        if(!Arrays.equals(MAGIC, magic))
+        {
+            throw new IOException("File is not a baseband recording time index");
+        }
+
+        long interval = buffer.getLong();
+        long size = buffer.getLong();
+        long modified = buffer.getLong();
+        long endTimestamp = buffer.getLong();
+        long dataEnd = buffer.getLong();
+
+        if(interval != intervalMs || size != segmentSize || modified != lastModified)
+        {
+            return null;
+        }
+
+        int count = buffer.remaining() / 16;
+        long[] timestamps = new long[count];
+        long[] offsets = new long[count];
+
+        for(int x = 0; x < count; x++)
+        {
+            timestamps[x] = buffer.getLong();
+            offsets[x] = buffer.getLong();
+        }
+
+        return new BasebandTimeIndex(interval, timestamps, offsets, endTimestamp, dataEnd);
+    }
+
+    /**
+     * Writes this index to the sidecar index file.
+     */
+    private void write(Path indexPath, long segmentSize, long lastModified) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + (mTimestamps.length * 16)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(MAGIC);
+        buffer.putLong(mIntervalMs);
+        buffer.putLong(segmentSize);
+        buffer.putLong(lastModified);
+        buffer.putLong(mEndTimestamp);
+        buffer.putLong(mDataEnd);
+
+        for(int x = 0; x < mTimestamps.length; x++)
+        {
+            buffer.putLong(mTimestamps[x]);
+            buffer.putLong(mOffsets[x]);
+        }
+
+        buffer.flip();
+
+        try(FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            while(buffer.hasRemaining())
+            {
+                channel.write(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.record.baseband;
+
+import io.github.dsheirer.buffer.INativeBuffer;
+import io.github.dsheirer.record.ITunerRecorder;
+import io.github.dsheirer.record.wave.IRecordingStatusListener;
+import io.github.dsheirer.util.Dispatcher;
+import io.github.dsheirer.util.ThreadPool;
+import io.github.dsheirer.util.TimeStamp;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * High sample rate tuner recorder that stores the tuner's native buffers in their raw sample format (e.g. 8-bit RTL,
+ * 12-bit packed Airspy or 16-bit RSP samples) in a sequence of fixed size segment files.
+ *
+ * Buffers are written on a dedicated I/O thread into memory-mapped segment files.  The next segment file is
+ * allocated on the thread pool while the current segment is being written, and full segments are finalized on the
+ * thread pool, so the I/O thread switches segments without waiting on the file system and without dropping buffers.
+ * Each record holds one complete native buffer, so records never span segment files.
+ */
+public class NativeBasebandRecorder implements ITunerRecorder
+{
+    private static final Logger mLog = LoggerFactory.getLogger(NativeBasebandRecorder.class);
+    private static final long STATUS_UPDATE_BYTE_INTERVAL = 1_048_576;
+    public static final long MINIMUM_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private final Dispatcher<INativeBuffer> mDispatcher = new Dispatcher<>("sdrtrunk native baseband recorder", 20);
+    private final AtomicBoolean mRunning = new AtomicBoolean();
+    private final String mFilePrefix;
+    private final IRecordingStatusListener mStatusListener;
+    private final long mSegmentSize;
+    private volatile float mSampleRate;
+    private volatile long mFrequency;
+    private String mRecordingTimestamp;
+    private BasebandSegmentWriter mWriter;
+    private Future<BasebandSegmentWriter> mNextWriter;
+    private int mSegmentCount;
+    private long mLastReportedSize;
+
+    /**
+     * Constructs an instance
+     * @param sampleRate of the tuner
+     * @param filePrefix for the segment files, including the recording directory
+     * @param segmentSize maximum size of each segment file in bytes
+     * @param statusListener to receive recording file and size updates
+     */
+    public NativeBasebandRecorder(float sampleRate, String filePrefix, long segmentSize,
+                                  IRecordingStatusListener statusListener)
+    {
+        mSampleRate = sampleRate;
+        mFilePrefix = filePrefix;
+        mSegmentSize = Math.max(MINIMUM_SEGMENT_SIZE, segmentSize);
+        mStatusListener = statusListener;
+        mDispatcher.setListener(this::write);
+    }
+
+    @Override
+    public void setSampleRate(float sampleRate)
+    {
+        mSampleRate = sampleRate;
+    }
+
+    @Override
+    public void setFrequency(long frequency)
+    {
+        mFrequency = frequency;
+    }
+
+    @Override
+    public void start()
+    {
+        if(mRunning.compareAndSet(false, true))
+        {
+            mRecordingTimestamp = TimeStamp.getTimeStamp("_");
+            mSegmentCount = 0;
+            mNextWriter = allocate(1);
+            mDispatcher.start();
+        }
+    }
+
+    @Override
+    public void stop()
+    {
+        if(mRunning.compareAndSet(true, false))
+        {
+            mDispatcher.flushAndStop();
+            finish();
+        }
+    }
+
+    @Override
+    public void receive(INativeBuffer nativeBuffer)
+    {
+        if(mRunning.get())
+        {
+            mDispatcher.receive(nativeBuffer);
+        }
+    }
+
+    /**
+     * Writes the buffer to the current segment, rolling over to the next segment when the current segment is full or
+     * the sample format or sample rate changes.
+     *
+     * Note: this is synchronized because the final queued buffers are flushed on the thread that stops the recorder.
+     */
+    private synchronized void write(INativeBuffer nativeBuffer)
+    {
+        int recordLength = BasebandSegmentHeader.RECORD_HEADER_LENGTH + nativeBuffer.getNativeByteCount();
+
+        try
+        {
+            if(mWriter == null || !mWriter.canWrite(nativeBuffer.getNativeSampleFormat(), mSampleRate, recordLength))
+            {
+                rollover(nativeBuffer);
+            }
+
+            mWriter.write(nativeBuffer, mFrequency);
+
+            if(mWriter.getSize() > mLastReportedSize + STATUS_UPDATE_BYTE_INTERVAL)
+            {
+                mLastReportedSize = mWriter.getSize();
+                mStatusListener.update(mSegmentCount, mWriter.getPath().toString(), mLastReportedSize);
+            }
+        }
+        catch(IOException ioe)
+        {
+            mLog.error("Error writing native baseband recording - stopping recorder", ioe);
+            ThreadPool.CACHED.submit(this::stop);
+        }
+    }
+
+    /**
+     * Closes the current segment in the background and opens the pre-allocated next segment.
+     * @param nativeBuffer that will be the first record in the next segment
+     */
+    private void rollover(INativeBuffer nativeBuffer) throws IOException
+    {
+        close(mWriter);
+
+        try
+        {
+            mWriter = mNextWriter.get();
+        }
+        catch(InterruptedException | ExecutionException e)
+        {
+            mWriter = null;
+            throw new IOException("Unable to allocate baseband recording segment file", e);
+        }
+
+        mSegmentCount++;
+        mWriter.open(new BasebandSegmentHeader(nativeBuffer.getNativeSampleFormat(), mSampleRate, mFrequency,
+            nativeBuffer.getTimestamp(), mSegmentCount));
+        mLastReportedSize = 0;
+        mStatusListener.update(mSegmentCount, mWriter.getPath().toString(), 0);
+        mNextWriter = allocate(mSegmentCount + 1);
+    }
+
+    /**
+     * Closes the current segment and releases the unused pre-allocated segment.
+     */
+    private synchronized void finish()
+    {
+        close(mWriter);
+        mWriter = null;
+
+        Future<BasebandSegmentWriter> next = mNextWriter;
+        mNextWriter = null;
+
+        if(next != null)
+        {
+            ThreadPool.CACHED.submit(() ->
+            {
+                try
+                {
+                    next.get().close();
+                }
+                catch(Exception e)
+                {
+                    mLog.error("Error releasing unused baseband recording segment file", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Allocates the segment file on the thread pool.
+     * @param segment number for the file name
+     * @return future for the allocated segment writer
+     */
+    private Future<BasebandSegmentWriter> allocate(int segment)
+    {
+        Path path = Paths.get(mFilePrefix + "_" + mRecordingTimestamp + "_" + String.format("%04d", segment) +
+            BasebandSegmentHeader.FILE_EXTENSION);
+
+        return ThreadPool.CACHED.submit(() ->
+        {
+            BasebandSegmentWriter writer = new BasebandSegmentWriter(path, mSegmentSize);
+            writer.allocate();
+            return writer;
+        });
+    }
+
+    /**
+     * Finalizes and closes the segment on the thread pool.
+     */
+    private void close(BasebandSegmentWriter writer)
+    {
+        if(writer != null)
+        {
+            ThreadPool.CACHED.submit(() ->
+            {
+                try
+                {
+                    writer.close();
+                }
+                catch(IOException ioe)
+                {
+                    mLog.error("Error closing native baseband recording segment [" + writer.getPath() + "]", ioe);
+                }
+            });
+        }
+    }
+}
@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- * Copyright (C) 2014-2024 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -23,6 +23,7 @@ import com.google.common.base.Joiner;
 import com.mpatric.mp3agic.ID3v24Tag;
 import io.github.dsheirer.alias.Alias;
 import io.github.dsheirer.alias.AliasList;
+import io.github.dsheirer.alias.ResolvedAliases;
 import io.github.dsheirer.identifier.Form;
 import io.github.dsheirer.identifier.Identifier;
 import io.github.dsheirer.identifier.IdentifierClass;
@@ -89,6 +90,7 @@ public class AudioMetadataUtils
         if(identifierCollection != null)
         {
             StringBuilder sb;
+            ResolvedAliases resolvedAliases = aliasList != null ? aliasList.resolve(identifierCollection) : null;
 
             Identifier to = identifierCollection.getToIdentifier();
             if(to != null)
@@ -96,7 +98,7 @@ public class AudioMetadataUtils
                 sb = new StringBuilder();
                 sb.append(to.toString().replace("ISSI ", ""));
 
-                List<Alias> toAliases = aliasList.getAliases(to);
+                List<Alias> toAliases = resolvedAliases != null ? resolvedAliases.getToAliases() : List.of();
 
                 if(!toAliases.isEmpty())
                 {
@@ -112,7 +114,7 @@ public class AudioMetadataUtils
                 sb = new StringBuilder();
                 sb.append(from.toString().replace("ISSI ", "").replace("ROAM ", ""));
 
-                List<Alias> fromAliases = aliasList.getAliases(from);
+                List<Alias> fromAliases = resolvedAliases != null ? resolvedAliases.getFromAliases() : List.of();
 
                 for(Alias alias: fromAliases)
                 {
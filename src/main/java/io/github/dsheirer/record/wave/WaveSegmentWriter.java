@@ -0,0 +1,185 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.record.wave;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Single-pass WAVe file writer for complete audio segments.
+ *
+ * Since the full audio is available up front, the RIFF and data chunk sizes are calculated before anything is
+ * written, so the header never has to be rewritten.  Float samples are converted directly into a reusable, per-thread
+ * direct buffer that holds the header and the PCM data, and the file is written with a single gathering write of the
+ * header/data buffer and the LIST and ID3 metadata chunks.
+ */
+public class WaveSegmentWriter
+{
+    /**
+     * RIFF header (12), format chunk (24) and data chunk header (8)
+     */
+    public static final int HEADER_SIZE = 44;
+
+    /**
+     * Largest buffer retained per thread for reuse.  Larger segments use a one-time heap buffer so that an unusually
+     * long call doesn't permanently pin a large block of direct memory.
+     */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 4 * 1024 * 1024;
+    private static final int INITIAL_BUFFER_SIZE = 256 * 1024;
+    private static final ThreadLocal<ByteBuffer> REUSABLE_BUFFER = new ThreadLocal<>();
+
+    private WaveSegmentWriter()
+    {
+        //Static utility class
+    }
+
+    /**
+     * Writes the audio buffers and metadata chunks to a new WAVe file.
+     * @param path for the file
+     * @param audioFormat of the audio samples - must be 16-bit PCM
+     * @param audioBuffers containing float samples in the range -1.0 to 1.0
+     * @param listChunk containing the wave LIST metadata chunk
+     * @param id3Chunk containing the wave ID3 metadata chunk
+     * @throws IOException on any errors
+     */
+    public static void write(Path path, AudioFormat audioFormat, List<float[]> audioBuffers, ByteBuffer listChunk,
+                             ByteBuffer id3Chunk) throws IOException
+    {
+        ByteBuffer buffer = getBuffer(HEADER_SIZE + getDataSize(audioBuffers));
+        encode(audioFormat, audioBuffers, listChunk.capacity() + id3Chunk.capacity(), buffer);
+        buffer.flip();
+        listChunk.position(0);
+        id3Chunk.position(0);
+
+        ByteBuffer[] buffers = new ByteBuffer[]{buffer, listChunk, id3Chunk};
+
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            while(id3Chunk.hasRemaining())
+            {
+                channel.write(buffers);
+            }
+        }
+    }
+
+    /**
+     * Encodes the WAVe header and the 16-bit PCM audio data into the target buffer.
+     * @param audioFormat of the audio samples
+     * @param audioBuffers to convert
+     * @param metadataSize total size of the metadata chunks that will follow the data chunk in the file
+     * @param target buffer with at least HEADER_SIZE + getDataSize(audioBuffers) bytes remaining
+     */
+    public static void encode(AudioFormat audioFormat, List<float[]> audioBuffers, int metadataSize, ByteBuffer target)
+    {
+        int dataSize = getDataSize(audioBuffers);
+        target.order(ByteOrder.LITTLE_ENDIAN);
+
+        //RIFF header - size is the total file size less the 8 byte RIFF chunk header
+        target.put(WaveWriter.RIFF_ID.getBytes());
+        target.putInt(HEADER_SIZE - 8 + dataSize + metadataSize);
+        target.put(WaveWriter.WAVE_ID.getBytes());
+
+        //Format chunk
+        int blockAlign = audioFormat.getChannels() * audioFormat.getSampleSizeInBits() / 8;
+        target.put(WaveWriter.FORMAT_CHUNK_ID.getBytes());
+        target.putInt(WaveWriter.FORMAT_CHUNK_LENGTH);
+        target.putShort(WaveWriter.FORMAT_UNCOMPRESSED_PCM);
+        target.putShort((short)audioFormat.getChannels());
+        target.putInt((int)audioFormat.getSampleRate());
+        target.putInt((int)(audioFormat.getSampleRate() * blockAlign));
+        target.putShort((short)blockAlign);
+        target.putShort((short)audioFormat.getSampleSizeInBits());
+
+        //Data chunk
+        target.put(WaveWriter.DATA_CHUNK_ID.getBytes());
+        target.putInt(dataSize);
+
+        for(float[] audioBuffer: audioBuffers)
+        {
+            for(float sample: audioBuffer)
+            {
+                if(sample > 1.0f)
+                {
+                    target.putShort(Short.MAX_VALUE);
+                }
+                else if(sample < -1.0f)
+                {
+                    target.putShort((short)-Short.MAX_VALUE);
+                }
+                else
+                {
+                    target.putShort((short)(sample * Short.MAX_VALUE));
+                }
+            }
+        }
+    }
+
+    /**
+     * Size in bytes of the 16-bit PCM data chunk contents for the audio buffers
+     */
+    public static int getDataSize(List<float[]> audioBuffers)
+    {
+        int sampleCount = 0;
+
+        for(float[] audioBuffer: audioBuffers)
+        {
+            sampleCount += audioBuffer.length;
+        }
+
+        return sampleCount * 2;
+    }
+
+    /**
+     * Provides a cleared buffer with at least the requested capacity, reusing this thread's direct buffer when
+     * possible.
+     */
+    private static ByteBuffer getBuffer(int size)
+    {
+        if(size > MAX_RETAINED_BUFFER_SIZE)
+        {
+            return ByteBuffer.allocate(size);
+        }
+
+        ByteBuffer buffer = REUSABLE_BUFFER.get();
+
+        if(buffer == null || buffer.capacity() < size)
+        {
+            int capacity = INITIAL_BUFFER_SIZE;
+
+            while(capacity < size)
+            {
+                capacity *= 2;
+            }
+
+            buffer = ByteBuffer.allocateDirect(Math.min(capacity, MAX_RETAINED_BUFFER_SIZE));
+            REUSABLE_BUFFER.set(buffer);
+        }
+
+        buffer.clear();
+        return buffer;
+    }
+}
@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- * Copyright (C) 2014-2024 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -18,12 +18,13 @@
  */
 package io.github.dsheirer.source.tuner;
 
+import io.github.dsheirer.buffer.ConvertedNativeBuffer;
 import io.github.dsheirer.buffer.INativeBuffer;
 import io.github.dsheirer.buffer.INativeBufferProvider;
 import io.github.dsheirer.preference.UserPreferences;
 import io.github.dsheirer.record.RecorderFactory;
 import io.github.dsheirer.record.wave.IRecordingStatusListener;
-import io.github.dsheirer.record.wave.NativeBufferWaveRecorder;
+import io.github.dsheirer.record.ITunerRecorder;
 import io.github.dsheirer.sample.Broadcaster;
 import io.github.dsheirer.sample.Listener;
 import io.github.dsheirer.source.ISourceEventListener;
@@ -59,7 +60,7 @@ public abstract class TunerController implements Tunable, ISourceEventProcessor,
     private int mMeasuredFrequencyError;
     private double mUsableBandwidthPercentage;
     private SourceEventListenerToProcessorAdapter mSourceEventListener;
-    private NativeBufferWaveRecorder mRecorder;
+    private ITunerRecorder mRecorder;
     private ITunerErrorListener mTunerErrorListener;
     private DecimalFormat mFrequencyErrorPPMFormat = new DecimalFormat("0.0");
     private FrequencyErrorCorrectionManager mFrequencyErrorCorrectionManager;
@@ -306,6 +307,13 @@ public abstract class TunerController implements Tunable, ISourceEventProcessor,
         {
             getLock().lock();
             mFrequencyController.setFrequency(frequency);
+
+            ITunerRecorder recorder = mRecorder;
+
+            if(recorder != null)
+            {
+                recorder.setFrequency(frequency);
+            }
         }
         finally
         {
@@ -678,12 +686,30 @@ public abstract class TunerController implements Tunable, ISourceEventProcessor,
     }
 
     /**
-     * Broadcasts the buffer to any registered listeners
+     * Broadcasts the buffer to any registered listeners.  When there are multiple listeners, the buffer is wrapped so
+     * that the raw samples are converted once per sample format and shared by all listeners.  The shared samples are
+     * released after the broadcast so that buffers retained by listeners don't also retain the converted samples.
      */
-    protected void broadcast(INativeBuffer complexSamples)
+    protected void broadcast(INativeBuffer nativeBuffer)
     {
         //Note: unprotected access to the broadcaster ... the broadcaster uses thread-save internal list
-        mNativeBufferBroadcaster.broadcast(complexSamples);
+        if(mNativeBufferBroadcaster.getListenerCount() > 1 && !(nativeBuffer instanceof ConvertedNativeBuffer))
+        {
+            ConvertedNativeBuffer convertedNativeBuffer = new ConvertedNativeBuffer(nativeBuffer);
+
+            try
+            {
+                mNativeBufferBroadcaster.broadcast(convertedNativeBuffer);
+            }
+            finally
+            {
+                convertedNativeBuffer.release();
+            }
+        }
+        else
+        {
+            mNativeBufferBroadcaster.broadcast(nativeBuffer);
+        }
     }
 
     /**
@@ -749,6 +775,7 @@ public abstract class TunerController implements Tunable, ISourceEventProcessor,
         {
             mRecorder = RecorderFactory.getTunerRecorder(prefix + "_" + getFrequency(), userPreferences, statusListener);
             mRecorder.setSampleRate((float)getSampleRate());
+            mRecorder.setFrequency(getFrequency());
             mRecorder.start();
             addBufferListener(mRecorder);
         }
@@ -0,0 +1,345 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.source.tuner.channel;
+
+import io.github.dsheirer.buffer.INativeBuffer;
+import io.github.dsheirer.controller.NamingThreadFactory;
+import io.github.dsheirer.sample.Listener;
+import io.github.dsheirer.sample.complex.ComplexSamples;
+import io.github.dsheirer.util.Dispatcher;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.RejectedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shared digital down converter (DDC) bank for heterodyne channel sources.  Each native buffer from the tuner is
+ * converted to complex float samples once, and then each channel's fused mixer and first stage decimation filter is
+ * applied to the converted samples.  The channels can be split across several threads, so that the full sample rate
+ * work for many channels is spread across processor cores.  Each channel source applies its remaining (lower sample
+ * rate) decimation stages and dispatches the samples on its own thread.
+ *
+ * The bank also holds a short history of native buffers so that new channels can be preloaded with buffers that
+ * start at or just before the channel's requested start timestamp, to avoid cutting off the beginning of a channel
+ * grant transmission.
+ *
+ * Channel changes are applied on the bank's processing thread before the next buffer is processed.
+ */
+public class DigitalDownConverterBank implements Listener<INativeBuffer>
+{
+    private static final Logger mLog = LoggerFactory.getLogger(DigitalDownConverterBank.class);
+    public static final int MAXIMUM_THREAD_COUNT = 4;
+    private static int sThreadCount = getDefaultThreadCount();
+
+    private final Dispatcher<INativeBuffer> mDispatcher;
+    private final LinkedTransferQueue<ChannelRequest> mRequestQueue = new LinkedTransferQueue<>();
+    private final List<HalfBandTunerChannelSource> mChannels = new ArrayList<>();
+    private final INativeBuffer[] mHistory;
+    private final long mBufferDuration;
+    private final int mThreadCount;
+    private volatile ExecutorService mExecutorService;
+    private int mHistoryPointer;
+
+    /**
+     * Constructs an instance
+     * @param historySize number of native buffers to retain for preloading new channels
+     * @param bufferDuration in milliseconds for each native buffer
+     * @param threadName for the bank processing thread
+     */
+    public DigitalDownConverterBank(int historySize, long bufferDuration, String threadName)
+    {
+        mHistory = new INativeBuffer[Math.max(historySize, 1)];
+        mBufferDuration = bufferDuration;
+        mThreadCount = sThreadCount;
+        mDispatcher = new Dispatcher<>(threadName, 10);
+        mDispatcher.setListener(this::process);
+
+        if(mThreadCount > 1)
+        {
+            mExecutorService = Executors.newFixedThreadPool(mThreadCount - 1, new NamingThreadFactory(threadName + " worker"));
+        }
+    }
+
+    /**
+     * Default number of threads for each bank: half of the available processors, limited to 1-4 threads.
+     */
+    public static int getDefaultThreadCount()
+    {
+        return Math.max(1, Math.min(MAXIMUM_THREAD_COUNT, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    /**
+     * Sets the number of threads used by banks that are created after this call.
+     * @param threadCount 1 to 4
+     */
+    public static void setThreadCount(int threadCount)
+    {
+        sThreadCount = Math.max(1, Math.min(MAXIMUM_THREAD_COUNT, threadCount));
+    }
+
+    /**
+     * Number of threads used by this bank for down converting channels
+     */
+    public int getThreadCount()
+    {
+        return mThreadCount;
+    }
+
+    /**
+     * Starts the processing thread
+     */
+    public void start()
+    {
+        mDispatcher.start();
+    }
+
+    /**
+     * Stops processing and releases the buffer history and the worker threads.
+     */
+    public void dispose()
+    {
+        mDispatcher.stop();
+
+        if(mExecutorService != null)
+        {
+            mExecutorService.shutdown();
+            mExecutorService = null;
+        }
+
+        mRequestQueue.clear();
+
+        for(int x = 0; x < mHistory.length; x++)
+        {
+            mHistory[x] = null;
+        }
+    }
+
+    /**
+     * Primary input for native buffers from the tuner.  Buffers are queued for processing on the bank's thread.
+     */
+    @Override
+    public void receive(INativeBuffer nativeBuffer)
+    {
+        mDispatcher.receive(nativeBuffer);
+    }
+
+    /**
+     * Adds the channel to receive down converted samples.  The channel is preloaded with buffered samples that occur
+     * at or after the timestamp.
+     * @param channel to add
+     * @param timestamp of the oldest samples to preload to the channel
+     */
+    public void add(HalfBandTunerChannelSource channel, long timestamp)
+    {
+        mRequestQueue.add(new ChannelRequest(Request.ADD, channel, timestamp));
+    }
+
+    /**
+     * Removes the channel
+     */
+    public void remove(HalfBandTunerChannelSource channel)
+    {
+        mRequestQueue.add(new ChannelRequest(Request.REMOVE, channel, 0));
+    }
+
+    /**
+     * Clears the buffer history, for example after the tuner frequency changes.
+     */
+    public void clear()
+    {
+        mRequestQueue.add(new ChannelRequest(Request.CLEAR, null, 0));
+    }
+
+    /**
+     * Processes the native buffer on the bank's thread.
+     */
+    private void process(INativeBuffer nativeBuffer)
+    {
+        processRequests();
+
+        if(!mChannels.isEmpty())
+        {
+            List<ComplexSamples> converted = convert(nativeBuffer);
+            ExecutorService executorService = mExecutorService;
+
+            if(executorService == null || mChannels.size() == 1)
+            {
+                downConvert(mChannels, converted);
+            }
+            else
+            {
+                downConvertParallel(executorService, converted);
+            }
+        }
+
+        mHistory[mHistoryPointer++] = nativeBuffer;
+        mHistoryPointer %= mHistory.length;
+    }
+
+    /**
+     * Applies queued channel add/remove and history clear requests.
+     */
+    private void processRequests()
+    {
+        ChannelRequest request = mRequestQueue.poll();
+
+        while(request != null)
+        {
+            switch(request.request())
+            {
+                case ADD:
+                    preload(request.channel(), request.timestamp());
+                    mChannels.add(request.channel());
+                    break;
+                case REMOVE:
+                    mChannels.remove(request.channel());
+                    break;
+                case CLEAR:
+                    for(int x = 0; x < mHistory.length; x++)
+                    {
+                        mHistory[x] = null;
+                    }
+                    mHistoryPointer = 0;
+                    break;
+            }
+
+            request = mRequestQueue.poll();
+        }
+    }
+
+    /**
+     * Preloads the new channel with historical buffers that occur on or after the timestamp.
+     */
+    private void preload(HalfBandTunerChannelSource channel, long timestamp)
+    {
+        int pointer = mHistoryPointer;
+
+        for(int x = 0; x < mHistory.length; x++)
+        {
+            INativeBuffer nativeBuffer = mHistory[pointer];
+
+            if(nativeBuffer != null && (nativeBuffer.getTimestamp() + mBufferDuration) >= timestamp)
+            {
+                for(ComplexSamples samples: convert(nativeBuffer))
+                {
+                    channel.downConvert(samples);
+                }
+            }
+
+            pointer = (pointer + 1) % mHistory.length;
+        }
+    }
+
+    /**
+     * Converts the native buffer to complex samples.
+     */
+    private static List<ComplexSamples> convert(INativeBuffer nativeBuffer)
+    {
+        List<ComplexSamples> converted = new ArrayList<>(1);
+        Iterator<ComplexSamples> iterator = nativeBuffer.iterator();
+
+        while(iterator.hasNext())
+        {
+            converted.add(iterator.next());
+        }
+
+        return converted;
+    }
+
+    /**
+     * Down converts the samples for each of the channels on the calling thread.
+     */
+    private static void downConvert(List<HalfBandTunerChannelSource> channels, List<ComplexSamples> converted)
+    {
+        for(HalfBandTunerChannelSource channel: channels)
+        {
+            try
+            {
+                for(ComplexSamples samples: converted)
+                {
+                    channel.downConvert(samples);
+                }
+            }
+            catch(Throwable t)
+            {
+                mLog.error("Error down converting samples for channel [" + channel.getTunerChannel() + "]", t);
+            }
+        }
+    }
+
+    /**
+     * Splits the channels into groups and down converts each group on a separate thread, using this thread for the
+     * first group, and waits for all groups to complete.
+     */
+    private void downConvertParallel(ExecutorService executorService, List<ComplexSamples> converted)
+    {
+        int groupCount = Math.min(mThreadCount, mChannels.size());
+        int groupSize = (mChannels.size() + groupCount - 1) / groupCount;
+        List<Future<?>> futures = new ArrayList<>(groupCount - 1);
+
+        for(int start = groupSize; start < mChannels.size(); start += groupSize)
+        {
+            List<HalfBandTunerChannelSource> group = mChannels.subList(start, Math.min(start + groupSize, mChannels.size()));
+
+            try
+            {
+                futures.add(executorService.submit(() -> downConvert(group, converted)));
+            }
+            catch(RejectedExecutionException ree)
+            {
+                //The bank is being disposed - finish the group on this thread
+                downConvert(group, converted);
+            }
+        }
+
+        downConvert(mChannels.subList(0, Math.min(groupSize, mChannels.size())), converted);
+
+        for(Future<?> future: futures)
+        {
+            try
+            {
+                future.get();
+            }
+            catch(InterruptedException ie)
+            {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            catch(ExecutionException ee)
+            {
+                mLog.error("Error down converting channel group", ee);
+            }
+        }
+    }
+
+    private enum Request {ADD, REMOVE, CLEAR}
+
+    /**
+     * Channel change request that is applied on the bank's processing thread.
+     */
+    private record ChannelRequest(Request request, HalfBandTunerChannelSource channel, long timestamp) {}
+}
@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- * Copyright (C) 2014-2024 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -18,34 +18,31 @@
  */
 package io.github.dsheirer.source.tuner.channel;
 
-import io.github.dsheirer.buffer.INativeBuffer;
 import io.github.dsheirer.dsp.filter.decimate.DecimationFilterFactory;
 import io.github.dsheirer.dsp.filter.decimate.IRealDecimationFilter;
 import io.github.dsheirer.dsp.filter.design.FilterDesignException;
-import io.github.dsheirer.dsp.mixer.ComplexMixer;
-import io.github.dsheirer.dsp.mixer.ComplexMixerFactory;
+import io.github.dsheirer.dsp.mixer.MixingHalfBandDecimator;
 import io.github.dsheirer.sample.Listener;
 import io.github.dsheirer.sample.complex.ComplexSamples;
 import io.github.dsheirer.source.SourceEvent;
 import io.github.dsheirer.util.Dispatcher;
-import java.util.Iterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Complex sample source that provides a frequency-translated and decimated sample buffer stream.  Uses a
- * CIC decimation filter that requires the decimation rate to be an integer multiple.  Sample buffer processing
- * occurs on a scheduled runnable thread.
+ * CIC decimation filter that requires the decimation rate to be an integer multiple.
+ *
+ * The full sample rate mixing and first decimation stage are performed by a shared DigitalDownConverterBank that
+ * invokes downConvert() for each converted tuner buffer.  The remaining decimation stages and sample dispatch occur
+ * on this channel's scheduled runnable thread.
  */
-public class HalfBandTunerChannelSource<T extends INativeBuffer> extends TunerChannelSource implements Listener<T>
+public class HalfBandTunerChannelSource extends TunerChannelSource
 {
     private static final Logger mLog = LoggerFactory.getLogger(HalfBandTunerChannelSource.class);
 
-    //Maximum number of filled buffers for the blocking queue
-    private static final int BUFFER_MAX_CAPACITY = 600;
-
-    private Dispatcher<T> mBufferDispatcher;
-    private ComplexMixer mFrequencyCorrectionMixer;
+    private Dispatcher<ComplexSamples> mSamplesDispatcher;
+    private MixingHalfBandDecimator mFirstStage;
     private IRealDecimationFilter mIDecimationFilter;
     private IRealDecimationFilter mQDecimationFilter;
     private Listener<ComplexSamples> mSamplesListener;
@@ -72,32 +69,34 @@ public class HalfBandTunerChannelSource<T extends INativeBuffer> extends TunerCh
         int desiredDecimation = (int)(sampleRate / channelSpecification.getMinimumSampleRate());
         int decimation = DecimationFilterFactory.getDecimationRate(desiredDecimation);
 
-        mIDecimationFilter = DecimationFilterFactory.getRealDecimationFilter(decimation);
-        mQDecimationFilter = DecimationFilterFactory.getRealDecimationFilter(decimation);
-
-        //Set dispatcher to process 1/10 of estimated sample arrival rate, 20 times per second (up to 200% per interval)
-        mBufferDispatcher = new Dispatcher(threadName, 50, getHeartbeatManager());
-        mBufferDispatcher.setListener(new NativeBufferProcessor());
-
-        //Setup the frequency mixer to the current source frequency
-        mChannelSampleRate = sampleRate / (double)decimation;
+        //Setup the fused mixer and first decimation stage to the current source frequency, followed by the remaining
+        //decimation stages
+        mChannelSampleRate = sampleRate / (double)Math.max(decimation, 1);
         mTunerFrequency = tunerChannel.getFrequency();
         long frequencyOffset = mTunerFrequency - getTunerChannel().getFrequency();
-        mFrequencyCorrectionMixer = ComplexMixerFactory.getMixer(frequencyOffset, sampleRate);
+        mFirstStage = new MixingHalfBandDecimator(frequencyOffset, sampleRate,
+                DecimationFilterFactory.getFirstStageCoefficients(decimation));
+        mIDecimationFilter = DecimationFilterFactory.getRealDecimationFilter(decimation / 2);
+        mQDecimationFilter = DecimationFilterFactory.getRealDecimationFilter(decimation / 2);
+
+        //Set dispatcher to process 1/10 of estimated sample arrival rate, 20 times per second (up to 200% per interval)
+        mSamplesDispatcher = new Dispatcher<>(threadName, 50, getHeartbeatManager());
+        mSamplesDispatcher.setListener(new SamplesProcessor());
     }
 
     @Override
     public void start()
     {
+        //Start the dispatcher before requesting the sample stream so that preloaded samples aren't dropped
+        mSamplesDispatcher.start();
         super.start();
-        mBufferDispatcher.start();
     }
 
     @Override
     public void stop()
     {
         super.stop();
-        mBufferDispatcher.stop();
+        mSamplesDispatcher.stop();
     }
 
     @Override
@@ -106,12 +105,17 @@ public class HalfBandTunerChannelSource<T extends INativeBuffer> extends TunerCh
     }
 
     /**
-     * Primary interface for receiving incoming complex sample buffers to be frequency translated and decimated.
+     * Mixes and applies the first decimation stage to the full sample rate samples and queues the results for the
+     * remaining decimation stages on this channel's thread.  This is invoked by the down converter bank and must only
+     * be invoked by one thread at a time.
+     * @param samples at the tuner sample rate
      */
-    @Override
-    public void receive(T complexSamples)
+    void downConvert(ComplexSamples samples)
     {
-        mBufferDispatcher.receive(complexSamples);
+        if(mSamplesDispatcher.isRunning())
+        {
+            mSamplesDispatcher.receive(mFirstStage.process(samples.i(), samples.q(), samples.timestamp()));
+        }
     }
 
     /**
@@ -133,7 +137,7 @@ public class HalfBandTunerChannelSource<T extends INativeBuffer> extends TunerCh
     private void updateMixerFrequencyOffset()
     {
         long offset = mTunerFrequency - getTunerChannel().getFrequency();
-        mFrequencyCorrectionMixer.setFrequency(offset);
+        mFirstStage.setFrequency(offset);
     }
 
     /**
@@ -142,7 +146,7 @@ public class HalfBandTunerChannelSource<T extends INativeBuffer> extends TunerCh
      */
     public long getMixerFrequency()
     {
-        return (long)mFrequencyCorrectionMixer.getFrequency();
+        return (long)mFirstStage.getFrequency();
     }
 
     /**
@@ -174,34 +178,29 @@ public class HalfBandTunerChannelSource<T extends INativeBuffer> extends TunerCh
     }
 
     /**
-     * Processes native buffers received from the dispatcher and sends to the registered listener
+     * Applies the remaining decimation stages to the samples received from the dispatcher and sends to the
+     * registered listener
      */
-    public class NativeBufferProcessor implements Listener<T>
+    public class SamplesProcessor implements Listener<ComplexSamples>
     {
         @Override
-        public void receive(T nativeBuffer)
+        public void receive(ComplexSamples samples)
         {
             if(mSamplesListener != null)
             {
-                Iterator<ComplexSamples> iterator = nativeBuffer.iterator();
+                float[] i = mIDecimationFilter.decimateReal(samples.i());
+                float[] q = mQDecimationFilter.decimateReal(samples.q());
 
-                while(iterator.hasNext())
+                try
                 {
-                    ComplexSamples basebanded = mFrequencyCorrectionMixer.mix(iterator.next());
-                    float[] i = mIDecimationFilter.decimateReal(basebanded.i());
-                    float[] q = mQDecimationFilter.decimateReal(basebanded.q());
-
-                    try
-                    {
-                        mSamplesListener.receive(new ComplexSamples(i, q, basebanded.timestamp()));
-                    }
-                    catch(Throwable t)
+                    mSamplesListener.receive(new ComplexSamples(i, q, samples.timestamp()));
+                }
+                catch(Throwable t)
+                {
+                    //The listener can be made null and cause the error - only log if we have a non-null listener
+                    if(mSamplesListener != null)
                     {
-                        //The listener can be made null and cause the error - only log if we have a non-null listener
-                        if(mSamplesListener != null)
-                        {
-                            mLog.error("Error dispatching complex samples to listener [" + mSamplesListener + "]");
-                        }
+                        mLog.error("Error dispatching complex samples to listener [" + mSamplesListener + "]");
                     }
                 }
             }
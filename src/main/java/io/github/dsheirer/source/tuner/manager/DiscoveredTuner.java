@@ -24,6 +24,7 @@ import io.github.dsheirer.source.tuner.ITunerErrorListener;
 import io.github.dsheirer.source.tuner.Tuner;
 import io.github.dsheirer.source.tuner.TunerClass;
 import io.github.dsheirer.source.tuner.configuration.TunerConfiguration;
+import io.github.dsheirer.source.tuner.usb.USBTunerController;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import org.slf4j.Logger;
@@ -81,6 +82,11 @@ public abstract class DiscoveredTuner implements ITunerErrorListener
             sb.append("\n\tError:").append(getErrorMessage());
             sb.append("\n\tChannel Manager Class:").append(getTuner().getChannelSourceManager().getClass());
             sb.append("\n\tChannel Manager:").append(getTuner().getChannelSourceManager().getStateDescription());
+
+            if(getTuner().getTunerController() instanceof USBTunerController usbTunerController)
+            {
+                sb.append("\n\t").append(usbTunerController.getTransferStatistics());
+            }
         }
         else
         {
@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- * Copyright (C) 2014-2024 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -18,7 +18,6 @@
  */
 package io.github.dsheirer.source.tuner.manager;
 
-import io.github.dsheirer.buffer.NativeSampleDelayBuffer;
 import io.github.dsheirer.controller.channel.event.ChannelStopProcessingRequest;
 import io.github.dsheirer.dsp.filter.design.FilterDesignException;
 import io.github.dsheirer.eventbus.MyEventBus;
@@ -27,6 +26,7 @@ import io.github.dsheirer.source.SourceEvent;
 import io.github.dsheirer.source.SourceException;
 import io.github.dsheirer.source.tuner.TunerController;
 import io.github.dsheirer.source.tuner.channel.ChannelSpecification;
+import io.github.dsheirer.source.tuner.channel.DigitalDownConverterBank;
 import io.github.dsheirer.source.tuner.channel.HalfBandTunerChannelSource;
 import io.github.dsheirer.source.tuner.channel.TunerChannel;
 import io.github.dsheirer.source.tuner.channel.TunerChannelSource;
@@ -39,7 +39,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Channel provider for heterodyne and decimate method of channel provisioning.
+ * Channel provider for heterodyne and decimate method of channel provisioning.  Tuner sample buffers are converted
+ * once and down converted for all channels by a shared digital down converter bank.
  */
 public class HeterodyneChannelSourceManager extends ChannelSourceManager
 {
@@ -51,7 +52,7 @@ public class HeterodyneChannelSourceManager extends ChannelSourceManager
     private SortedSet<TunerChannel> mTunerChannels = new TreeSet<>();
     private TunerController mTunerController;
     private ChannelSourceEventProcessor mChannelSourceEventProcessor = new ChannelSourceEventProcessor();
-    private NativeSampleDelayBuffer mSampleDelayBuffer;
+    private DigitalDownConverterBank mDownConverterBank;
     private boolean mRunning = true;
 
     public HeterodyneChannelSourceManager(TunerController tunerController)
@@ -203,10 +204,10 @@ public class HeterodyneChannelSourceManager extends ChannelSourceManager
                 //Tuner center frequency has changed - update channels
                 updateTunerFrequency(tunerSourceEvent.getValue().longValue());
 
-                //Clear the delay buffer since any delayed samples will be centered on the previous frequency
-                if(mSampleDelayBuffer != null)
+                //Clear the buffer history since any delayed samples will be centered on the previous frequency
+                if(mDownConverterBank != null)
                 {
-                    mSampleDelayBuffer.clear();
+                    mDownConverterBank.clear();
                 }
                 break;
             case NOTIFICATION_FREQUENCY_CORRECTION_CHANGE:
@@ -255,12 +256,12 @@ public class HeterodyneChannelSourceManager extends ChannelSourceManager
     }
 
     /**
-     * Creates a complex sample delay buffer and registers it with the tuner controller to start the flow
-     * of complex sample buffers from the tuner.
+     * Creates the down converter bank and registers it with the tuner controller to start the flow of sample buffers
+     * from the tuner.
      */
-    private void startDelayBuffer()
+    private void startDownConverterBank()
     {
-        if(mSampleDelayBuffer == null)
+        if(mDownConverterBank == null)
         {
             long bufferDuration = mTunerController.getBufferDuration();
 
@@ -270,21 +271,23 @@ public class HeterodyneChannelSourceManager extends ChannelSourceManager
             }
 
             int delayBufferSize = (int)(DELAY_BUFFER_DURATION_MILLISECONDS / bufferDuration);
-            mSampleDelayBuffer = new NativeSampleDelayBuffer(delayBufferSize, mTunerController.getBufferDuration());
-            mTunerController.addBufferListener(mSampleDelayBuffer);
+            mDownConverterBank = new DigitalDownConverterBank(delayBufferSize, mTunerController.getBufferDuration(),
+                    "sdrtrunk heterodyne ddc");
+            mDownConverterBank.start();
+            mTunerController.addBufferListener(mDownConverterBank);
         }
     }
 
     /**
-     * De-registers the complex sample delay buffer and disposes of any queued reusable buffers.
+     * De-registers and disposes the down converter bank when there are no more channels.
      */
-    private void stopDelayBuffer()
+    private void stopDownConverterBank()
     {
-        if(mSampleDelayBuffer != null && !mSampleDelayBuffer.hasListeners())
+        if(mDownConverterBank != null && mChannelSources.isEmpty())
         {
-            mTunerController.removeBufferListener(mSampleDelayBuffer);
-            mSampleDelayBuffer.dispose();
-            mSampleDelayBuffer = null;
+            mTunerController.removeBufferListener(mDownConverterBank);
+            mDownConverterBank.dispose();
+            mDownConverterBank = null;
         }
     }
 
@@ -300,23 +303,26 @@ public class HeterodyneChannelSourceManager extends ChannelSourceManager
             {
 //TODO: protect start/stop processing with a reentrant lock
                 case REQUEST_START_SAMPLE_STREAM:
-                    if(sourceEvent.getSource() instanceof HalfBandTunerChannelSource)
+                    if(sourceEvent.getSource() instanceof HalfBandTunerChannelSource halfBandSource)
                     {
-                        startDelayBuffer();
+                        startDownConverterBank();
 
-                        //The start sample stream request contains a start timestamp and the delay buffer
+                        //The start sample stream request contains a start timestamp and the down converter bank
                         //will preload the channel with delayed sample buffers that either contain the
                         //timestamp or occur later/newer than the timestamp.
-                        mSampleDelayBuffer.addListener((HalfBandTunerChannelSource)sourceEvent.getSource(),
-                                sourceEvent.getValue().longValue());
+                        mDownConverterBank.add(halfBandSource, sourceEvent.getValue().longValue());
                     }
                     break;
                 case REQUEST_STOP_SAMPLE_STREAM:
                     if(sourceEvent.getSource() instanceof HalfBandTunerChannelSource halfBandSource)
                     {
-                        mSampleDelayBuffer.removeListener(halfBandSource);
-                        stopDelayBuffer();
+                        if(mDownConverterBank != null)
+                        {
+                            mDownConverterBank.remove(halfBandSource);
+                        }
+
                         mChannelSources.remove(halfBandSource);
+                        stopDownConverterBank();
                         mTunerChannels.remove(halfBandSource.getTunerChannel());
                         halfBandSource.dispose();
 
@@ -19,6 +19,7 @@
 package io.github.dsheirer.source.tuner.manager;
 
 import io.github.dsheirer.dsp.filter.channelizer.PolyphaseChannelManager;
+import io.github.dsheirer.dsp.filter.channelizer.occupancy.ChannelOccupancyMonitor;
 import io.github.dsheirer.source.SourceEvent;
 import io.github.dsheirer.source.SourceException;
 import io.github.dsheirer.source.tuner.TunerController;
@@ -66,6 +67,14 @@ public class PolyphaseChannelSourceManager extends ChannelSourceManager
         return sb.toString();
     }
 
+    /**
+     * Channel occupancy monitor for the full tuner bandwidth
+     */
+    public ChannelOccupancyMonitor getOccupancyMonitor()
+    {
+        return mPolyphaseChannelManager.getOccupancyMonitor();
+    }
+
     @Override
     public void stopAllChannels()
     {
@@ -19,6 +19,7 @@
 
 package io.github.dsheirer.source.tuner.manager;
 
+import io.github.dsheirer.dsp.filter.channelizer.occupancy.ChannelOccupancyLogger;
 import io.github.dsheirer.gui.preference.tuner.RspDuoSelectionMode;
 import io.github.dsheirer.preference.UserPreferences;
 import io.github.dsheirer.preference.source.ChannelizerType;
@@ -32,6 +33,7 @@ import io.github.dsheirer.source.tuner.TunerClass;
 import io.github.dsheirer.source.tuner.TunerFactory;
 import io.github.dsheirer.source.tuner.TunerType;
 import io.github.dsheirer.source.tuner.channel.ChannelSpecification;
+import io.github.dsheirer.source.tuner.channel.DigitalDownConverterBank;
 import io.github.dsheirer.source.tuner.channel.MultiFrequencyTunerChannelSource;
 import io.github.dsheirer.source.tuner.channel.TunerChannel;
 import io.github.dsheirer.source.tuner.channel.TunerChannelSource;
@@ -85,6 +87,9 @@ public class TunerManager implements IDiscoveredTunerStatusListener
     public TunerManager(UserPreferences userPreferences)
     {
         mUserPreferences = userPreferences;
+        DigitalDownConverterBank.setThreadCount(userPreferences.getTunerPreference().getHeterodyneThreads());
+        ChannelOccupancyLogger.setLogConfiguration(userPreferences.getTunerPreference().getOccupancyLogFormat(),
+            userPreferences.getDirectoryPreference().getDirectoryEventLog());
         mTunerConfigurationManager = new TunerConfigurationManager(userPreferences);
         mDiscoveredTunerModel = new DiscoveredTunerModel(mTunerConfigurationManager);
     }
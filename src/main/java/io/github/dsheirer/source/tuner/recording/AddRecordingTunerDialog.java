@@ -21,6 +21,7 @@ package io.github.dsheirer.source.tuner.recording;
 
 import io.github.dsheirer.preference.UserPreferences;
 import io.github.dsheirer.properties.SystemProperties;
+import io.github.dsheirer.record.baseband.BasebandSegmentHeader;
 import io.github.dsheirer.source.tuner.configuration.TunerConfigurationManager;
 import io.github.dsheirer.source.tuner.manager.DiscoveredRecordingTuner;
 import io.github.dsheirer.source.tuner.ui.DiscoveredTunerModel;
@@ -105,13 +106,14 @@ public class AddRecordingTunerDialog extends JFrame
                 @Override
                 public boolean accept(File f)
                 {
-                    return f.getAbsolutePath().endsWith(".wav") || f.isDirectory();
+                    return f.getAbsolutePath().endsWith(".wav") ||
+                        f.getAbsolutePath().endsWith(BasebandSegmentHeader.FILE_EXTENSION) || f.isDirectory();
                 }
 
                 @Override
                 public String getDescription()
                 {
-                    return "Recordings (*.wav)";
+                    return "Recordings (*.wav, *" + BasebandSegmentHeader.FILE_EXTENSION + ")";
                 }
             });
 
@@ -0,0 +1,269 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.source.tuner.recording;
+
+import io.github.dsheirer.buffer.INativeBuffer;
+import io.github.dsheirer.controller.NamingThreadFactory;
+import io.github.dsheirer.sample.Listener;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replays a baseband recording on a dedicated thread, pacing the buffers by their recording timestamps.
+ *
+ * Playback speed is a multiple of real time, or unthrottled (speed of 0) where buffers are delivered as fast as the
+ * listener accepts them, which is intended for offline analysis where the consumers can keep up or block.
+ *
+ * Replayed buffers are timestamped with the wall clock time at the start of playback (or the last seek or speed
+ * change) plus the recording time since that point, so buffer timestamps advance at the recorded sample rate
+ * independent of the playback speed.
+ *
+ * Seek and speed changes can be requested from any thread and are applied before the next buffer.
+ */
+public class BasebandReplaySource
+{
+    private static final Logger mLog = LoggerFactory.getLogger(BasebandReplaySource.class);
+    private static final long MAXIMUM_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long NO_SEEK = Long.MIN_VALUE;
+
+    private final IReplayRecording mRecording;
+    private final Listener<INativeBuffer> mListener;
+    private final AtomicLong mSeekRequest = new AtomicLong(NO_SEEK);
+    private final boolean mLoop;
+    private volatile double mSpeed = 1.0;
+    private volatile long mPosition;
+    private volatile boolean mRunning;
+    private Thread mThread;
+
+    /**
+     * Constructs an instance
+     * @param recording to replay
+     * @param listener to receive replayed buffers
+     * @param loop to restart playback at the beginning of the recording when the end is reached
+     */
+    public BasebandReplaySource(IReplayRecording recording, Listener<INativeBuffer> listener, boolean loop)
+    {
+        mRecording = recording;
+        mListener = listener;
+        mLoop = loop;
+        mPosition = recording.getStartTimestamp();
+    }
+
+    /**
+     * Recording being replayed
+     */
+    public IReplayRecording getRecording()
+    {
+        return mRecording;
+    }
+
+    /**
+     * Starts playback.  Playback restarts at the beginning of the recording when a previous playback reached the end
+     * of the recording.
+     */
+    public synchronized void start()
+    {
+        if(mThread == null || !mRunning)
+        {
+            mRunning = true;
+            mThread = new NamingThreadFactory("sdrtrunk baseband replay").newThread(this::replay);
+            mThread.start();
+        }
+    }
+
+    /**
+     * Stops playback and waits for the playback thread to finish.  The recording is not closed.
+     */
+    public synchronized void stop()
+    {
+        mRunning = false;
+
+        if(mThread != null)
+        {
+            mThread.interrupt();
+
+            try
+            {
+                mThread.join(1000);
+            }
+            catch(InterruptedException ie)
+            {
+                Thread.currentThread().interrupt();
+            }
+
+            mThread = null;
+        }
+    }
+
+    /**
+     * Indicates if playback is running.  Playback stops when it's stopped or when it reaches the end of a recording
+     * that isn't looped.
+     */
+    public boolean isRunning()
+    {
+        return mRunning;
+    }
+
+    /**
+     * Requests playback to continue from the recording timestamp.
+     */
+    public void seek(long timestamp)
+    {
+        mSeekRequest.set(timestamp);
+        LockSupport.unpark(mThread);
+    }
+
+    /**
+     * Sets the playback speed.
+     * @param speed as a multiple of real time, or 0 for unthrottled playback
+     */
+    public void setSpeed(double speed)
+    {
+        mSpeed = Math.max(0.0, speed);
+        LockSupport.unpark(mThread);
+    }
+
+    /**
+     * Current playback speed, 0 for unthrottled
+     */
+    public double getSpeed()
+    {
+        return mSpeed;
+    }
+
+    /**
+     * Recording timestamp of the most recently replayed buffer
+     */
+    public long getPosition()
+    {
+        return mPosition;
+    }
+
+    /**
+     * Playback loop
+     */
+    private void replay()
+    {
+        long anchorNanos = System.nanoTime();
+        long anchorMillis = System.currentTimeMillis();
+        long anchorPosition = mRecording.getPosition();
+        double speed = mSpeed;
+        boolean restarted = false;
+
+        try
+        {
+            if(anchorPosition < 0)
+            {
+                //Previous playback reached the end of the recording
+                mRecording.seek(mRecording.getStartTimestamp());
+                anchorPosition = mRecording.getPosition();
+            }
+
+            while(mRunning)
+            {
+                long seek = mSeekRequest.getAndSet(NO_SEEK);
+
+                if(seek != NO_SEEK)
+                {
+                    mRecording.seek(seek);
+                    speed = Double.NaN;
+                }
+
+                long position = mRecording.getPosition();
+
+                if(position < 0)
+                {
+                    if(mLoop && !restarted)
+                    {
+                        mRecording.seek(mRecording.getStartTimestamp());
+                        position = mRecording.getPosition();
+                        speed = Double.NaN;
+                        restarted = true;
+                    }
+
+                    //End of the recording, or a looped recording that has no buffers
+                    if(position < 0)
+                    {
+                        break;
+                    }
+                }
+
+                //Re-anchor the playback clock after a seek, loop, speed change or recording time discontinuity
+                if(speed != mSpeed || position < anchorPosition)
+                {
+                    speed = mSpeed;
+                    anchorNanos = System.nanoTime();
+                    anchorMillis = System.currentTimeMillis();
+                    anchorPosition = position;
+                }
+
+                if(speed > 0)
+                {
+                    long due = anchorNanos + (long)(TimeUnit.MILLISECONDS.toNanos(position - anchorPosition) / speed);
+                    long wait = due - System.nanoTime();
+
+                    if(wait > 0)
+                    {
+                        LockSupport.parkNanos(Math.min(wait, MAXIMUM_PARK_NANOS));
+                        continue;
+                    }
+                }
+
+                INativeBuffer buffer = mRecording.next(anchorMillis + (position - anchorPosition));
+
+                if(buffer != null)
+                {
+                    mPosition = position;
+                    restarted = false;
+                    mListener.receive(buffer);
+                }
+                else if(mLoop && !restarted)
+                {
+                    //End of the recording - restart playback at the beginning of the recording
+                    mRecording.seek(mRecording.getStartTimestamp());
+                    speed = Double.NaN;
+                    restarted = true;
+                }
+                else
+                {
+                    //End of the recording, or a looped recording that has no buffers
+                    break;
+                }
+            }
+        }
+        catch(IOException ioe)
+        {
+            mLog.error("Error replaying baseband recording", ioe);
+        }
+        catch(Throwable t)
+        {
+            if(mRunning)
+            {
+                mLog.error("Unexpected error replaying baseband recording", t);
+            }
+        }
+
+        mRunning = false;
+    }
+}
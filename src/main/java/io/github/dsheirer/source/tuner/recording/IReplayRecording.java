@@ -0,0 +1,81 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.source.tuner.recording;
+
+import io.github.dsheirer.buffer.INativeBuffer;
+import java.io.IOException;
+
+/**
+ * Seekable baseband recording that provides native buffers for replay.  Recording timestamps are in milliseconds.
+ *
+ * Note: implementations are not thread-safe.
+ */
+public interface IReplayRecording extends AutoCloseable
+{
+    /**
+     * Sample rate of the recording
+     */
+    double getSampleRate();
+
+    /**
+     * Center frequency of the recording, or 0 if the recording doesn't specify a frequency
+     */
+    long getFrequency();
+
+    /**
+     * Recording timestamp of the first buffer
+     */
+    long getStartTimestamp();
+
+    /**
+     * Recording timestamp of the end of the last buffer
+     */
+    long getEndTimestamp();
+
+    /**
+     * Recording timestamp of the next buffer, or -1 when the end of the recording has been reached
+     */
+    long getPosition();
+
+    /**
+     * Number of complex samples in each buffer
+     */
+    int getBufferSampleCount();
+
+    /**
+     * Moves the playback position to the buffer that contains the recording timestamp.  Timestamps outside of the
+     * recording are limited to the start or the end of the recording.
+     * @param timestamp to seek
+     */
+    void seek(long timestamp) throws IOException;
+
+    /**
+     * Reads the next buffer and advances the playback position.
+     * @param timestamp to assign to the buffer
+     * @return buffer or null when the end of the recording has been reached
+     */
+    INativeBuffer next(long timestamp) throws IOException;
+
+    /**
+     * Releases the memory-mapped recording file(s)
+     */
+    @Override
+    void close();
+}
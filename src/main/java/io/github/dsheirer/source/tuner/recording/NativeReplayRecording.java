@@ -0,0 +1,357 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.source.tuner.recording;
+
+import io.github.dsheirer.buffer.ByteNativeBuffer;
+import io.github.dsheirer.buffer.FloatNativeBuffer;
+import io.github.dsheirer.buffer.INativeBuffer;
+import io.github.dsheirer.buffer.NativeSampleFormat;
+import io.github.dsheirer.buffer.SignedByteNativeBuffer;
+import io.github.dsheirer.buffer.airspy.AirspyNativeBufferFactory;
+import io.github.dsheirer.buffer.airspy.hf.AirspyHfNativeBuffer;
+import io.github.dsheirer.record.baseband.BasebandSegmentHeader;
+import io.github.dsheirer.record.baseband.BasebandTimeIndex;
+import io.github.dsheirer.source.tuner.sdrplay.RspNativeBuffer;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replay recording for native baseband recordings (.bbr) produced by the native baseband recorder.  All segment files
+ * of the recording are memory-mapped and each segment is time indexed (see BasebandTimeIndex) so that seeking only
+ * reads the record headers for at most one index interval.
+ *
+ * Buffers are recreated with the same native buffer type that the tuner produced, so that replayed samples follow
+ * the same conversion path as live samples.
+ */
+public class NativeReplayRecording implements IReplayRecording
+{
+    private static final Logger mLog = LoggerFactory.getLogger(NativeReplayRecording.class);
+    private static final Pattern SEGMENT_PATTERN = Pattern.compile("(.*)_(\\d{4})\\" + BasebandSegmentHeader.FILE_EXTENSION);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfFloat FLOAT = ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfShort SHORT = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final Arena mArena = Arena.ofShared();
+    private final List<Segment> mSegments = new ArrayList<>();
+    private final NativeSampleFormat mSampleFormat;
+    private final double mSampleRate;
+    private final float mSamplesPerMillisecond;
+    private AirspyNativeBufferFactory mAirspyNativeBufferFactory;
+    private int mBufferSampleCount;
+    private int mSegmentIndex;
+    private long mOffset;
+
+    /**
+     * Constructs an instance and maps all segment files of the recording.
+     * @param path to any segment file of the recording
+     * @throws IOException if the recording can't be opened
+     */
+    public NativeReplayRecording(Path path) throws IOException
+    {
+        try
+        {
+            for(Path segmentPath: getSegmentPaths(path))
+            {
+                Segment segment = map(segmentPath);
+
+                if(segment.index().size() > 0)
+                {
+                    mSegments.add(segment);
+                }
+            }
+        }
+        catch(IOException ioe)
+        {
+            mArena.close();
+            throw ioe;
+        }
+
+        if(mSegments.isEmpty())
+        {
+            mArena.close();
+            throw new IOException("Native baseband recording does not contain any samples: " + path);
+        }
+
+        BasebandSegmentHeader header = mSegments.getFirst().header();
+        mSampleFormat = header.getSampleFormat();
+        mSampleRate = header.getSampleRate();
+        mSamplesPerMillisecond = (float)(mSampleRate / 1000.0);
+        mBufferSampleCount = mSegments.getFirst().memory().get(INT, BasebandSegmentHeader.HEADER_LENGTH + 16);
+
+        for(Segment segment: mSegments)
+        {
+            if(segment.header().getSampleFormat() != mSampleFormat || segment.header().getSampleRate() != mSampleRate)
+            {
+                mLog.warn("Native baseband recording segment [" + segment.path() + "] sample format or rate differs " +
+                    "from the first segment - segment will be replayed at the first segment's sample rate");
+            }
+        }
+
+        seek(getStartTimestamp());
+    }
+
+    /**
+     * Finds the segment files that belong to the same recording as the path, sorted by segment index.  A file that
+     * doesn't follow the segment file naming convention is treated as a single segment recording.
+     */
+    public static List<Path> getSegmentPaths(Path path) throws IOException
+    {
+        List<Path> paths = new ArrayList<>();
+        Matcher matcher = SEGMENT_PATTERN.matcher(path.getFileName().toString());
+
+        if(!matcher.matches())
+        {
+            paths.add(path);
+            return paths;
+        }
+
+        String prefix = matcher.group(1);
+        Path directory = path.toAbsolutePath().getParent();
+
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+            prefix + "_[0-9][0-9][0-9][0-9]" + BasebandSegmentHeader.FILE_EXTENSION))
+        {
+            for(Path candidate: stream)
+            {
+                paths.add(candidate);
+            }
+        }
+
+        paths.sort(Comparator.comparing(candidate -> candidate.getFileName().toString()));
+        return paths;
+    }
+
+    /**
+     * Maps the segment file and loads or builds its time index.
+     */
+    private Segment map(Path path) throws IOException
+    {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            MemorySegment memory = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), mArena);
+
+            if(memory.byteSize() < BasebandSegmentHeader.HEADER_LENGTH)
+            {
+                throw new IOException("Native baseband recording segment is too short: " + path);
+            }
+
+            BasebandSegmentHeader header = BasebandSegmentHeader.read(memory
+                .asSlice(0, BasebandSegmentHeader.HEADER_LENGTH).asByteBuffer().order(BasebandSegmentHeader.BYTE_ORDER));
+            BasebandTimeIndex index = BasebandTimeIndex.load(path, memory, header, BasebandTimeIndex.DEFAULT_INTERVAL_MS);
+            return new Segment(path, header, memory, index);
+        }
+    }
+
+    @Override
+    public double getSampleRate()
+    {
+        return mSampleRate;
+    }
+
+    @Override
+    public long getFrequency()
+    {
+        return mSegments.getFirst().header().getFrequency();
+    }
+
+    @Override
+    public long getStartTimestamp()
+    {
+        return mSegments.getFirst().index().getStartTimestamp();
+    }
+
+    @Override
+    public long getEndTimestamp()
+    {
+        return mSegments.getLast().index().getEndTimestamp();
+    }
+
+    @Override
+    public int getBufferSampleCount()
+    {
+        return mBufferSampleCount;
+    }
+
+    @Override
+    public long getPosition()
+    {
+        if(mSegmentIndex >= mSegments.size())
+        {
+            return -1;
+        }
+
+        return mSegments.get(mSegmentIndex).memory().get(LONG, mOffset);
+    }
+
+    @Override
+    public void seek(long timestamp)
+    {
+        int segmentIndex = 0;
+
+        while(segmentIndex < mSegments.size() - 1 && mSegments.get(segmentIndex + 1).index().getStartTimestamp() <= timestamp)
+        {
+            segmentIndex++;
+        }
+
+        Segment segment = mSegments.get(segmentIndex);
+        long offset = segment.index().getOffset(timestamp);
+
+        //Walk forward from the indexed record to the record that contains the timestamp
+        while(true)
+        {
+            long next = offset + BasebandSegmentHeader.RECORD_HEADER_LENGTH + segment.memory().get(INT, offset + 20);
+
+            if(next >= segment.index().getDataEnd() || segment.memory().get(LONG, next) > timestamp)
+            {
+                break;
+            }
+
+            offset = next;
+        }
+
+        mSegmentIndex = segmentIndex;
+        mOffset = offset;
+
+        //Residual samples from the previous position are not contiguous with the new position
+        mAirspyNativeBufferFactory = null;
+    }
+
+    @Override
+    public INativeBuffer next(long timestamp)
+    {
+        if(mSegmentIndex >= mSegments.size())
+        {
+            return null;
+        }
+
+        Segment segment = mSegments.get(mSegmentIndex);
+        MemorySegment memory = segment.memory();
+        int byteCount = memory.get(INT, mOffset + 20);
+        float dcI = memory.get(FLOAT, mOffset + 24);
+        float dcQ = memory.get(FLOAT, mOffset + 28);
+        long samplesOffset = mOffset + BasebandSegmentHeader.RECORD_HEADER_LENGTH;
+        INativeBuffer buffer = createBuffer(memory, samplesOffset, byteCount, dcI, dcQ, timestamp);
+
+        mOffset = samplesOffset + byteCount;
+
+        if(mOffset >= segment.index().getDataEnd())
+        {
+            mSegmentIndex++;
+
+            if(mSegmentIndex < mSegments.size())
+            {
+                mOffset = mSegments.get(mSegmentIndex).index().getOffset(Long.MIN_VALUE);
+            }
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Recreates the tuner's native buffer from the recorded sample bytes.
+     */
+    private INativeBuffer createBuffer(MemorySegment memory, long offset, int byteCount, float dcI, float dcQ,
+                                       long timestamp)
+    {
+        switch(mSampleFormat)
+        {
+            case UNSIGNED_8_BIT_IQ:
+                return new ByteNativeBuffer(memory.asSlice(offset, byteCount).toArray(ValueLayout.JAVA_BYTE),
+                    timestamp, dcI, mSamplesPerMillisecond);
+            case SIGNED_8_BIT_IQ:
+                return new SignedByteNativeBuffer(memory.asSlice(offset, byteCount).toArray(ValueLayout.JAVA_BYTE),
+                    timestamp, dcI, dcQ, mSamplesPerMillisecond);
+            case PACKED_12_BIT_REAL:
+                if(mAirspyNativeBufferFactory == null)
+                {
+                    mAirspyNativeBufferFactory = new AirspyNativeBufferFactory();
+                    mAirspyNativeBufferFactory.setSamplesPerMillisecond(mSamplesPerMillisecond);
+                }
+                return mAirspyNativeBufferFactory.getBuffer(unpack12(memory, offset, byteCount), dcI, timestamp);
+            case SIGNED_16_BIT_QI:
+                return new AirspyHfNativeBuffer(timestamp, mSamplesPerMillisecond, dcI,
+                    memory.asSlice(offset, byteCount).toArray(SHORT));
+            case SIGNED_16_BIT_IQ:
+                short[] interleaved = memory.asSlice(offset, byteCount).toArray(SHORT);
+                short[] i = new short[interleaved.length / 2];
+                short[] q = new short[interleaved.length / 2];
+
+                for(int x = 0; x < i.length; x++)
+                {
+                    i[x] = interleaved[2 * x];
+                    q[x] = interleaved[2 * x + 1];
+                }
+
+                return new RspNativeBuffer(i, q, timestamp, mSamplesPerMillisecond);
+            case FLOAT_32_BIT_IQ:
+            default:
+                return new FloatNativeBuffer(memory.asSlice(offset, byteCount).toArray(FLOAT), timestamp,
+                    mSamplesPerMillisecond);
+        }
+    }
+
+    /**
+     * Unpacks pairs of 12-bit samples from 3 bytes into unsigned 12-bit sample values.
+     */
+    private static short[] unpack12(MemorySegment memory, long offset, int byteCount)
+    {
+        short[] samples = new short[(byteCount / 3) * 2];
+        int pointer = 0;
+
+        for(long x = offset; x < offset + byteCount - 2; x += 3)
+        {
+            int b0 = memory.get(ValueLayout.JAVA_BYTE, x) & 0xFF;
+            int b1 = memory.get(ValueLayout.JAVA_BYTE, x + 1) & 0xFF;
+            int b2 = memory.get(ValueLayout.JAVA_BYTE, x + 2) & 0xFF;
+            samples[pointer++] = (short)(b0 | ((b1 & 0x0F) << 8));
+            samples[pointer++] = (short)((b1 >> 4) | (b2 << 4));
+        }
+
+        return samples;
+    }
+
+    @Override
+    public void close()
+    {
+        mSegments.clear();
+        mArena.close();
+    }
+
+    /**
+     * Mapped segment file with its header and time index
+     */
+    private record Segment(Path path, BasebandSegmentHeader header, MemorySegment memory, BasebandTimeIndex index) {}
+}
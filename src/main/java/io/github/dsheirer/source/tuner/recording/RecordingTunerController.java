@@ -18,21 +18,20 @@
  */
 package io.github.dsheirer.source.tuner.recording;
 
+import io.github.dsheirer.record.baseband.BasebandSegmentHeader;
 import io.github.dsheirer.source.SourceEvent;
 import io.github.dsheirer.source.SourceException;
 import io.github.dsheirer.source.tuner.ITunerErrorListener;
 import io.github.dsheirer.source.tuner.TunerController;
 import io.github.dsheirer.source.tuner.TunerType;
-import io.github.dsheirer.source.wave.ComplexWaveSource;
-import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.sound.sampled.UnsupportedAudioFileException;
-
 /**
- * Tuner controller for playback of baseband complex recording files.
+ * Tuner controller for playback of baseband complex recording files, either 16-bit complex wave recordings or
+ * native baseband (.bbr) recordings.  Recordings are memory-mapped and support seeking and variable speed playback.
  */
 public class RecordingTunerController extends TunerController
 {
@@ -40,10 +39,10 @@ public class RecordingTunerController extends TunerController
 
     public static final int DC_NOISE_BANDWIDTH = 0;
     public static final double USABLE_BANDWIDTH_PERCENTAGE = 1.00;
-    private ComplexWaveSource mComplexWaveSource;
+    private BasebandReplaySource mReplaySource;
     private String mPath;
     private long mCenterFrequency;
-    private boolean mRunning;
+    private double mPlaybackSpeed = 1.0;
 
     /**
      * Constructs an instance
@@ -65,14 +64,29 @@ public class RecordingTunerController extends TunerController
         setUsableBandwidthPercentage(USABLE_BANDWIDTH_PERCENTAGE);
     }
 
+    /**
+     * Opens the recording file as a native baseband recording or a wave recording, according to the file extension.
+     */
+    private static IReplayRecording openRecording(String path) throws IOException
+    {
+        if(path.toLowerCase().endsWith(BasebandSegmentHeader.FILE_EXTENSION))
+        {
+            return new NativeReplayRecording(Path.of(path));
+        }
+
+        return new WaveReplayRecording(Path.of(path));
+    }
+
     @Override
     public void start() throws SourceException
     {
-        if(mComplexWaveSource == null)
+        if(mReplaySource == null)
         {
+            IReplayRecording recording;
+
             try
             {
-                mComplexWaveSource = new ComplexWaveSource(new File(mPath), true);
+                recording = openRecording(mPath);
             }
             catch(IOException ioe)
             {
@@ -81,25 +95,19 @@ public class RecordingTunerController extends TunerController
                 return;
             }
 
-            mComplexWaveSource.setListener(complexSamples -> broadcast(complexSamples));
-
-            try
+            //Native recordings specify the tuned frequency of the recording
+            if(recording.getFrequency() > 0)
             {
-                mComplexWaveSource.open();
-                mComplexWaveSource.start();
-                mLog.info("Tuner Recording Loaded: " + mPath);
-            }
-            catch(IOException | UnsupportedAudioFileException e)
-            {
-                mLog.error("Error", e);
-                setErrorMessage(e.getMessage() + " File:" + mPath);
-                return;
+                mCenterFrequency = recording.getFrequency();
             }
 
+            mReplaySource = new BasebandReplaySource(recording, this, true);
+            mReplaySource.setSpeed(mPlaybackSpeed);
+
             try
             {
                 mFrequencyController.setFrequency(mCenterFrequency);
-                mFrequencyController.setSampleRate((int)mComplexWaveSource.getSampleRate());
+                mFrequencyController.setSampleRate((int)recording.getSampleRate());
                 mFrequencyController.broadcast(SourceEvent.recordingFileLoaded());
             }
             catch(SourceException e)
@@ -107,28 +115,87 @@ public class RecordingTunerController extends TunerController
                 mLog.error("Error", e);
                 setErrorMessage(e.getMessage());
             }
+
+            mReplaySource.start();
+            mLog.info("Tuner Recording Loaded: " + mPath);
         }
     }
 
     @Override
     public void stop()
     {
-        if(mComplexWaveSource != null)
+        if(mReplaySource != null)
         {
-            try
-            {
-                mComplexWaveSource.stop();
-                mComplexWaveSource.close();
-            }
-            catch(IOException ioe)
-            {
-                mLog.error("Ignoring - error stopping baseband recording playback - " + ioe.getLocalizedMessage());
-            }
+            mReplaySource.stop();
+            mReplaySource.getRecording().close();
+            mReplaySource = null;
+        }
+    }
 
-            mComplexWaveSource = null;
+    /**
+     * Recording timestamp of the start of the recording, or 0 if the recording is not loaded
+     */
+    public long getRecordingStart()
+    {
+        BasebandReplaySource replaySource = mReplaySource;
+        return replaySource != null ? replaySource.getRecording().getStartTimestamp() : 0;
+    }
+
+    /**
+     * Recording timestamp of the end of the recording, or 0 if the recording is not loaded
+     */
+    public long getRecordingEnd()
+    {
+        BasebandReplaySource replaySource = mReplaySource;
+        return replaySource != null ? replaySource.getRecording().getEndTimestamp() : 0;
+    }
+
+    /**
+     * Recording timestamp of the current playback position, or 0 if the recording is not loaded
+     */
+    public long getPlaybackPosition()
+    {
+        BasebandReplaySource replaySource = mReplaySource;
+        return replaySource != null ? replaySource.getPosition() : 0;
+    }
+
+    /**
+     * Moves playback to the recording timestamp
+     * @param timestamp between the recording start and end timestamps
+     */
+    public void seek(long timestamp)
+    {
+        BasebandReplaySource replaySource = mReplaySource;
+
+        if(replaySource != null)
+        {
+            replaySource.seek(timestamp);
+        }
+    }
+
+    /**
+     * Sets the playback speed
+     * @param speed as a multiple of real time, or 0 for unthrottled playback
+     */
+    public void setPlaybackSpeed(double speed)
+    {
+        mPlaybackSpeed = speed;
+        BasebandReplaySource replaySource = mReplaySource;
+
+        if(replaySource != null)
+        {
+            replaySource.setSpeed(speed);
         }
     }
 
+    /**
+     * Current playback speed, 0 for unthrottled playback
+     */
+    public double getPlaybackSpeed()
+    {
+        return mPlaybackSpeed;
+    }
+
     @Override
     public TunerType getTunerType()
     {
@@ -138,9 +205,9 @@ public class RecordingTunerController extends TunerController
     @Override
     public int getBufferSampleCount()
     {
-        if(mComplexWaveSource != null)
+        if(mReplaySource != null)
         {
-            return mComplexWaveSource.getBufferSampleCount();
+            return mReplaySource.getRecording().getBufferSampleCount();
         }
 
         return 0;
@@ -179,9 +246,9 @@ public class RecordingTunerController extends TunerController
     @Override
     public double getCurrentSampleRate()
     {
-        if(mComplexWaveSource != null)
+        if(mReplaySource != null)
         {
-            return mComplexWaveSource.getSampleRate();
+            return mReplaySource.getRecording().getSampleRate();
         }
 
         return 0d;
@@ -26,8 +26,10 @@ import net.miginfocom.swing.MigLayout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.swing.JComboBox;
 import javax.swing.JLabel;
 import javax.swing.JSeparator;
+import javax.swing.JSlider;
 
 /**
  * Recording tuner configuration editor
@@ -36,7 +38,11 @@ public class RecordingTunerEditor extends TunerEditor<RecordingTuner,RecordingTu
 {
     private static final long serialVersionUID = 1L;
     private final static Logger mLog = LoggerFactory.getLogger(RecordingTunerEditor.class);
+    private static final String[] PLAYBACK_SPEEDS = {"0.5x", "1x", "2x", "4x", "8x", "16x", "Unthrottled"};
     private JLabel mRecordingPath;
+    private JComboBox<String> mPlaybackSpeedComboBox;
+    private JSlider mPositionSlider;
+    private JLabel mPositionLabel;
 
     /**
      * Constructs an instance
@@ -96,6 +102,8 @@ public class RecordingTunerEditor extends TunerEditor<RecordingTuner,RecordingTu
         {
             getRecordingPath().setText(getConfiguration().getPath());
         }
+
+        updatePlaybackControls();
         setLoading(false);
     }
 
@@ -113,6 +121,13 @@ public class RecordingTunerEditor extends TunerEditor<RecordingTuner,RecordingTu
         add(new JLabel("File:"));
         add(getRecordingPath(), "wrap");
 
+        add(new JLabel("Speed:"));
+        add(getPlaybackSpeedComboBox(), "wrap");
+
+        add(new JLabel("Position:"));
+        add(getPositionSlider());
+        add(getPositionLabel(), "wrap");
+
         add(getButtonPanel(), "span,align left");
         add(new JSeparator(), "span,growx,push");
 
@@ -130,6 +145,89 @@ public class RecordingTunerEditor extends TunerEditor<RecordingTuner,RecordingTu
         return mRecordingPath;
     }
 
+    /**
+     * Updates the playback speed and position controls from the recording tuner controller.
+     */
+    private void updatePlaybackControls()
+    {
+        boolean loaded = hasTuner() && getTuner().getTunerController().getRecordingEnd() >
+            getTuner().getTunerController().getRecordingStart();
+        getPlaybackSpeedComboBox().setEnabled(loaded);
+        getPositionSlider().setEnabled(loaded);
+
+        if(loaded)
+        {
+            RecordingTunerController controller = getTuner().getTunerController();
+            double speed = controller.getPlaybackSpeed();
+            getPlaybackSpeedComboBox().setSelectedItem(speed <= 0 ? PLAYBACK_SPEEDS[PLAYBACK_SPEEDS.length - 1] :
+                (speed == Math.rint(speed) ? (int)speed + "x" : speed + "x"));
+            int duration = (int)((controller.getRecordingEnd() - controller.getRecordingStart()) / 1000);
+            getPositionSlider().setMaximum(Math.max(duration, 1));
+            getPositionSlider().setValue((int)((controller.getPlaybackPosition() - controller.getRecordingStart()) / 1000));
+        }
+
+        updatePositionLabel();
+    }
+
+    /**
+     * Updates the position label from the position slider value
+     */
+    private void updatePositionLabel()
+    {
+        int seconds = getPositionSlider().getValue();
+        getPositionLabel().setText(String.format("%d:%02d:%02d", seconds / 3600, (seconds / 60) % 60, seconds % 60));
+    }
+
+    private JComboBox<String> getPlaybackSpeedComboBox()
+    {
+        if(mPlaybackSpeedComboBox == null)
+        {
+            mPlaybackSpeedComboBox = new JComboBox<>(PLAYBACK_SPEEDS);
+            mPlaybackSpeedComboBox.setSelectedItem("1x");
+            mPlaybackSpeedComboBox.setToolTipText("Playback speed as a multiple of real time.  Unthrottled replays " +
+                "the recording as fast as it can be processed.");
+            mPlaybackSpeedComboBox.addActionListener(e -> {
+                if(!isLoading() && hasTuner() && mPlaybackSpeedComboBox.getSelectedItem() instanceof String speed)
+                {
+                    getTuner().getTunerController().setPlaybackSpeed(speed.endsWith("x") ?
+                        Double.parseDouble(speed.substring(0, speed.length() - 1)) : 0.0);
+                }
+            });
+        }
+
+        return mPlaybackSpeedComboBox;
+    }
+
+    private JSlider getPositionSlider()
+    {
+        if(mPositionSlider == null)
+        {
+            mPositionSlider = new JSlider(0, 1, 0);
+            mPositionSlider.setToolTipText("Drag to move playback to a position in the recording");
+            mPositionSlider.addChangeListener(e -> {
+                updatePositionLabel();
+
+                if(!isLoading() && hasTuner() && !mPositionSlider.getValueIsAdjusting())
+                {
+                    RecordingTunerController controller = getTuner().getTunerController();
+                    controller.seek(controller.getRecordingStart() + (mPositionSlider.getValue() * 1000L));
+                }
+            });
+        }
+
+        return mPositionSlider;
+    }
+
+    private JLabel getPositionLabel()
+    {
+        if(mPositionLabel == null)
+        {
+            mPositionLabel = new JLabel();
+        }
+
+        return mPositionLabel;
+    }
+
     @Override
     public void save()
     {
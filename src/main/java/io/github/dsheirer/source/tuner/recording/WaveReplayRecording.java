@@ -0,0 +1,204 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.source.tuner.recording;
+
+import io.github.dsheirer.buffer.FloatNativeBuffer;
+import io.github.dsheirer.buffer.INativeBuffer;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replay recording for 16-bit complex (2-channel) wave baseband recordings.  The file is memory-mapped and, since
+ * every sample frame has the same size, the byte offset for any timestamp is computed directly without an index.
+ * Recording timestamps start at 0 at the beginning of the recording.  The final buffer contains the remaining sample
+ * frames and can be shorter than the buffer sample count.
+ */
+public class WaveReplayRecording implements IReplayRecording
+{
+    private static final int BUFFER_SAMPLE_COUNT = 65536;
+    private static final int BYTES_PER_FRAME = 4;
+    private static final float SCALE = 1.0f / Short.MAX_VALUE;
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfShort SHORT = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final Arena mArena = Arena.ofShared();
+    private final MemorySegment mData;
+    private final double mSampleRate;
+    private final long mFrameCount;
+    private long mFrame;
+
+    /**
+     * Constructs an instance and maps the wave file.
+     * @param path to the wave file
+     * @throws IOException if the file can't be opened or is not a 16-bit complex wave file
+     */
+    public WaveReplayRecording(Path path) throws IOException
+    {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            MemorySegment file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), mArena);
+
+            if(file.byteSize() < 12 || file.get(INT, 0) != chunkId("RIFF") || file.get(INT, 8) != chunkId("WAVE"))
+            {
+                throw new IOException("File is not a wave file: " + path);
+            }
+
+            long offset = 12;
+            double sampleRate = 0;
+            MemorySegment data = null;
+
+            while(offset + 8 <= file.byteSize() && data == null)
+            {
+                int id = file.get(INT, offset);
+                long size = Integer.toUnsignedLong(file.get(INT, offset + 4));
+
+                if(id == chunkId("fmt "))
+                {
+                    int channels = file.get(SHORT, offset + 10);
+                    int bitsPerSample = file.get(SHORT, offset + 22);
+
+                    if(channels != 2 || bitsPerSample != 16)
+                    {
+                        throw new IOException("Unsupported wave recording - must be 2 channel 16-bit samples: " + path);
+                    }
+
+                    sampleRate = Integer.toUnsignedLong(file.get(INT, offset + 12));
+                }
+                else if(id == chunkId("data"))
+                {
+                    //Recordings that were not closed cleanly may not have a valid data chunk size
+                    long available = file.byteSize() - offset - 8;
+                    size = (size == 0 || size > available) ? available : size;
+                    data = file.asSlice(offset + 8, size - (size % BYTES_PER_FRAME));
+                }
+
+                offset += 8 + size + (size % 2);
+            }
+
+            if(sampleRate <= 0 || data == null)
+            {
+                throw new IOException("Wave recording is missing the format or data chunk: " + path);
+            }
+
+            mSampleRate = sampleRate;
+            mData = data;
+            mFrameCount = data.byteSize() / BYTES_PER_FRAME;
+        }
+        catch(IOException ioe)
+        {
+            mArena.close();
+            throw ioe;
+        }
+    }
+
+    /**
+     * Little-endian integer value of the 4 character chunk identifier
+     */
+    private static int chunkId(String id)
+    {
+        return id.charAt(0) | (id.charAt(1) << 8) | (id.charAt(2) << 16) | (id.charAt(3) << 24);
+    }
+
+    @Override
+    public double getSampleRate()
+    {
+        return mSampleRate;
+    }
+
+    @Override
+    public long getFrequency()
+    {
+        return 0;
+    }
+
+    @Override
+    public long getStartTimestamp()
+    {
+        return 0;
+    }
+
+    @Override
+    public long getEndTimestamp()
+    {
+        return getTimestamp(mFrameCount);
+    }
+
+    @Override
+    public int getBufferSampleCount()
+    {
+        return BUFFER_SAMPLE_COUNT;
+    }
+
+    @Override
+    public long getPosition()
+    {
+        return mFrame < mFrameCount ? getTimestamp(mFrame) : -1;
+    }
+
+    /**
+     * Recording timestamp for the sample frame
+     */
+    private long getTimestamp(long frame)
+    {
+        return (long)(frame * 1000.0 / mSampleRate);
+    }
+
+    @Override
+    public void seek(long timestamp)
+    {
+        long frame = (long)(Math.max(0, timestamp) * mSampleRate / 1000.0);
+        long lastBufferFrame = Math.max(0, mFrameCount - 1);
+        frame = Math.min(frame, lastBufferFrame);
+        mFrame = frame - (frame % BUFFER_SAMPLE_COUNT);
+    }
+
+    @Override
+    public INativeBuffer next(long timestamp)
+    {
+        if(mFrame >= mFrameCount)
+        {
+            return null;
+        }
+
+        int frameCount = (int)Math.min(BUFFER_SAMPLE_COUNT, mFrameCount - mFrame);
+        float[] samples = new float[frameCount * 2];
+        long offset = mFrame * BYTES_PER_FRAME;
+
+        for(int x = 0; x < samples.length; x++)
+        {
+            samples[x] = mData.get(SHORT, offset + (x * 2L)) * SCALE;
+        }
+
+        mFrame += frameCount;
+        return new FloatNativeBuffer(samples, timestamp, (float)(mSampleRate / 1000.0));
+    }
+
+    @Override
+    public void close()
+    {
+        mArena.close();
+    }
+}
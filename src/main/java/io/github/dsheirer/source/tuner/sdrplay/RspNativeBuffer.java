@@ -20,8 +20,10 @@
 package io.github.dsheirer.source.tuner.sdrplay;
 
 import io.github.dsheirer.buffer.AbstractNativeBuffer;
+import io.github.dsheirer.buffer.NativeSampleFormat;
 import io.github.dsheirer.sample.complex.ComplexSamples;
 import io.github.dsheirer.sample.complex.InterleavedComplexSamples;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 
 /**
@@ -73,6 +75,28 @@ public class RspNativeBuffer extends AbstractNativeBuffer
         return mISamples.length * 2;
     }
 
+    @Override
+    public NativeSampleFormat getNativeSampleFormat()
+    {
+        return NativeSampleFormat.SIGNED_16_BIT_IQ;
+    }
+
+    @Override
+    public int getNativeByteCount()
+    {
+        return getNativeSampleFormat().getByteCount(mISamples.length);
+    }
+
+    @Override
+    public void writeNative(ByteBuffer buffer)
+    {
+        for(int x = 0; x < mISamples.length; x++)
+        {
+            buffer.putShort(mISamples[x]);
+            buffer.putShort(mQSamples[x]);
+        }
+    }
+
     /**
      * Iterator providing (non-interleaved) complex sample buffers
      */
@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- * Copyright (C) 2014-2023 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -19,8 +19,10 @@
 
 package io.github.dsheirer.source.tuner.sdrplay;
 
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -31,15 +33,38 @@ import java.util.List;
  * problems for down-stream processing components that may be optimized for vector operations and depend on the
  * sample arrays being a power-of-2 length.  This class repackages the incoming sample stream into arrays of
  * power-of-2 length.
+ *
+ * Incoming samples are copied directly from the native stream callback memory into a preallocated off-heap ring
+ * buffer, and each emitted buffer is a single copy out of the ring, so the cost per callback is linear in the number
+ * of samples.
+ *
+ * Buffer timestamps are derived from a sample clock that is anchored to the arrival time of the callbacks, so every
+ * emitted buffer is stamped with the time of its first sample.  The clock is re-anchored when the stream is reset,
+ * when the sample rate changes, or when the arrival time of the samples drifts too far from the sample clock, for
+ * example after the API drops samples.
  */
 public class RspNativeBufferFactory
 {
+    private static final int MINIMUM_BUFFER_LENGTH = 128;
+    private static final int MINIMUM_RING_CAPACITY = 65536;
+    private static final long BYTES_PER_SAMPLE = ValueLayout.JAVA_SHORT.byteSize();
+
+    /**
+     * Maximum difference between the sample clock and the sample arrival time before the clock is re-anchored.
+     */
+    private static final double MAXIMUM_CLOCK_DRIFT_MS = 100.0;
+
     private RspSampleRate mRspSampleRate;
-    private short[] mIResidual = new short[0];
-    private short[] mQResidual = new short[0];
-    private long mResidualTimestamp = System.currentTimeMillis();
+    private MemorySegment mIRing;
+    private MemorySegment mQRing;
+    private int mRingCapacity;
+    private int mRingMask;
+    private long mReadCount;
+    private long mWriteCount;
+    private double mAnchorTimestamp;
+    private boolean mAnchored;
     private int mIncomingBufferLength = 0;
-    private int mOptimalBufferLength = 128;
+    private int mOptimalBufferLength = MINIMUM_BUFFER_LENGTH;
     private float mSamplesPerMillisecond;
 
     /**
@@ -48,67 +73,215 @@ public class RspNativeBufferFactory
      */
     public RspNativeBufferFactory(RspSampleRate sampleRate)
     {
+        allocate(MINIMUM_RING_CAPACITY);
         setSampleRate(sampleRate);
     }
 
     /**
-     * Set or update the sample rate.
+     * Set or update the sample rate.  Buffered samples from the previous sample rate are discarded.
      * @param sampleRate to set.
      */
-    public void setSampleRate(RspSampleRate sampleRate)
+    public synchronized void setSampleRate(RspSampleRate sampleRate)
     {
         mRspSampleRate = sampleRate;
         mSamplesPerMillisecond = sampleRate.getSamplesPerMillisecond();
+        reset();
+    }
+
+    /**
+     * Discards any buffered samples and re-anchors the sample clock on the next arriving samples.
+     */
+    public synchronized void reset()
+    {
+        mReadCount = 0;
+        mWriteCount = 0;
+        mAnchored = false;
+    }
+
+    /**
+     * Number of samples buffered and waiting to be emitted
+     */
+    public synchronized int getBufferedSampleCount()
+    {
+        return (int)(mWriteCount - mReadCount);
     }
 
     /**
      * Repackages the samples into optimal length buffers and returns zero or more RSP native buffers.
+     *
+     * Note: the sample memory segments are only accessed during this method call, so they can be native memory that
+     * is only valid for the duration of the stream callback.
+     *
      * @param i samples
      * @param q samples
-     * @param timestamp of samples
+     * @param sampleCount number of samples in each of the I and Q segments
+     * @param timestamp when the samples arrived, which is treated as the time of the last sample
      * @return zero or more repackaged RSP native buffers
      */
-    public List<RspNativeBuffer> get(short[] i, short[] q, long timestamp)
+    public synchronized List<RspNativeBuffer> get(MemorySegment i, MemorySegment q, int sampleCount, long timestamp)
     {
-        updateBufferLength(i.length);
+        if(sampleCount <= 0)
+        {
+            return Collections.emptyList();
+        }
 
-        short[] iCombined = new short[mIResidual.length + i.length];
-        System.arraycopy(mIResidual, 0, iCombined, 0, mIResidual.length);
-        System.arraycopy(i, 0, iCombined, mIResidual.length, i.length);
+        updateBufferLength(sampleCount);
+        updateClock(sampleCount, timestamp);
+        write(i, q, sampleCount);
 
-        short[] qCombined = new short[mQResidual.length + q.length];
-        System.arraycopy(mQResidual, 0, qCombined, 0, mQResidual.length);
-        System.arraycopy(q, 0, qCombined, mQResidual.length, q.length);
+        int available = (int)(mWriteCount - mReadCount);
 
-        if(iCombined.length < mOptimalBufferLength)
+        if(available < mOptimalBufferLength)
         {
-            mIResidual = iCombined;
-            mQResidual = qCombined;
             return Collections.emptyList();
         }
 
-        List<RspNativeBuffer> buffers = new ArrayList<>();
+        List<RspNativeBuffer> buffers = new ArrayList<>(available / mOptimalBufferLength);
 
-        while(iCombined.length >= mOptimalBufferLength)
+        while(mWriteCount - mReadCount >= mOptimalBufferLength)
         {
-            short[] iOptimal = Arrays.copyOf(iCombined, mOptimalBufferLength);
-            iCombined = Arrays.copyOfRange(iCombined, mOptimalBufferLength, iCombined.length);
+            long bufferTimestamp = (long)(mAnchorTimestamp + toMilliseconds(mReadCount, mSamplesPerMillisecond));
+            short[] iOptimal = new short[mOptimalBufferLength];
+            short[] qOptimal = new short[mOptimalBufferLength];
+            read(iOptimal, qOptimal);
+            buffers.add(new RspNativeBuffer(iOptimal, qOptimal, bufferTimestamp, mSamplesPerMillisecond));
+        }
+
+        return buffers;
+    }
+
+    /**
+     * Anchors the sample clock to the arrival time of the first samples, or re-anchors it when the arrival time of
+     * the incoming samples drifts too far from the sample clock.  Buffered samples are discarded when re-anchoring,
+     * since they are no longer contiguous with the incoming samples.
+     */
+    private void updateClock(int sampleCount, long timestamp)
+    {
+        double firstSampleTimestamp = timestamp - toMilliseconds(sampleCount, mSamplesPerMillisecond);
 
-            short[] qOptimal = Arrays.copyOf(qCombined, mOptimalBufferLength);
-            qCombined = Arrays.copyOfRange(qCombined, mOptimalBufferLength, qCombined.length);
+        if(mAnchored)
+        {
+            double expected = mAnchorTimestamp + toMilliseconds(mWriteCount, mSamplesPerMillisecond);
 
-            RspNativeBuffer buffer = new RspNativeBuffer(iOptimal, qOptimal, mResidualTimestamp, mSamplesPerMillisecond);
-            buffers.add(buffer);
-            mResidualTimestamp += (long)(mOptimalBufferLength / mSamplesPerMillisecond);
+            if(Math.abs(firstSampleTimestamp - expected) <= MAXIMUM_CLOCK_DRIFT_MS)
+            {
+                return;
+            }
         }
 
-        mIResidual = iCombined;
-        mQResidual = qCombined;
+        mReadCount = 0;
+        mWriteCount = 0;
+        mAnchorTimestamp = firstSampleTimestamp;
+        mAnchored = true;
+    }
 
-        //For simplicity, just update the residual timestamp to be the timestamp for this latest update
-        mResidualTimestamp = timestamp;
+    /**
+     * Duration of the sample count in milliseconds.  Calculated in double precision since the sample counters exceed
+     * the precision of a float after a few minutes of streaming.
+     */
+    static double toMilliseconds(long sampleCount, float samplesPerMillisecond)
+    {
+        return sampleCount / (double)samplesPerMillisecond;
+    }
 
-        return buffers;
+    /**
+     * Copies the samples into the ring buffer, growing the ring when it can't hold the buffered and incoming samples.
+     */
+    private void write(MemorySegment i, MemorySegment q, int sampleCount)
+    {
+        int buffered = (int)(mWriteCount - mReadCount);
+
+        if(buffered + sampleCount > mRingCapacity)
+        {
+            grow(buffered + sampleCount);
+        }
+
+        int offset = (int)(mWriteCount & mRingMask);
+        int first = Math.min(sampleCount, mRingCapacity - offset);
+        MemorySegment.copy(i, 0, mIRing, offset * BYTES_PER_SAMPLE, first * BYTES_PER_SAMPLE);
+        MemorySegment.copy(q, 0, mQRing, offset * BYTES_PER_SAMPLE, first * BYTES_PER_SAMPLE);
+
+        if(first < sampleCount)
+        {
+            long remaining = (sampleCount - first) * BYTES_PER_SAMPLE;
+            MemorySegment.copy(i, first * BYTES_PER_SAMPLE, mIRing, 0, remaining);
+            MemorySegment.copy(q, first * BYTES_PER_SAMPLE, mQRing, 0, remaining);
+        }
+
+        mWriteCount += sampleCount;
+    }
+
+    /**
+     * Copies the next buffer of samples out of the ring buffer into the arrays.
+     */
+    private void read(short[] i, short[] q)
+    {
+        int length = i.length;
+        int offset = (int)(mReadCount & mRingMask);
+        int first = Math.min(length, mRingCapacity - offset);
+        MemorySegment.copy(mIRing, ValueLayout.JAVA_SHORT, offset * BYTES_PER_SAMPLE, i, 0, first);
+        MemorySegment.copy(mQRing, ValueLayout.JAVA_SHORT, offset * BYTES_PER_SAMPLE, q, 0, first);
+
+        if(first < length)
+        {
+            MemorySegment.copy(mIRing, ValueLayout.JAVA_SHORT, 0, i, first, length - first);
+            MemorySegment.copy(mQRing, ValueLayout.JAVA_SHORT, 0, q, first, length - first);
+        }
+
+        mReadCount += length;
+    }
+
+    /**
+     * Grows the ring buffer to hold at least the requested number of samples, preserving the buffered samples.
+     */
+    private void grow(int required)
+    {
+        MemorySegment iRing = mIRing;
+        MemorySegment qRing = mQRing;
+        int capacity = mRingCapacity;
+        int mask = mRingMask;
+
+        int newCapacity = capacity;
+
+        while(newCapacity < required)
+        {
+            newCapacity *= 2;
+        }
+
+        allocate(newCapacity);
+
+        //Unwrap the buffered samples into the start of the new ring
+        int buffered = (int)(mWriteCount - mReadCount);
+        int offset = (int)(mReadCount & mask);
+        int first = Math.min(buffered, capacity - offset);
+        MemorySegment.copy(iRing, offset * BYTES_PER_SAMPLE, mIRing, 0, first * BYTES_PER_SAMPLE);
+        MemorySegment.copy(qRing, offset * BYTES_PER_SAMPLE, mQRing, 0, first * BYTES_PER_SAMPLE);
+
+        if(first < buffered)
+        {
+            long remaining = (buffered - first) * BYTES_PER_SAMPLE;
+            MemorySegment.copy(iRing, 0, mIRing, first * BYTES_PER_SAMPLE, remaining);
+            MemorySegment.copy(qRing, 0, mQRing, first * BYTES_PER_SAMPLE, remaining);
+        }
+
+        //Rebase the sample clock so that the read position is at the start of the new ring
+        mAnchorTimestamp += toMilliseconds(mReadCount, mSamplesPerMillisecond);
+        mReadCount = 0;
+        mWriteCount = buffered;
+    }
+
+    /**
+     * Allocates off-heap I and Q ring buffers.  The memory is released by the garbage collector once the ring is no
+     * longer referenced.
+     * @param capacity in samples, must be a power of 2
+     */
+    private void allocate(int capacity)
+    {
+        Arena arena = Arena.ofAuto();
+        mIRing = arena.allocate(capacity * BYTES_PER_SAMPLE, BYTES_PER_SAMPLE);
+        mQRing = arena.allocate(capacity * BYTES_PER_SAMPLE, BYTES_PER_SAMPLE);
+        mRingCapacity = capacity;
+        mRingMask = capacity - 1;
     }
 
     /**
@@ -120,7 +293,7 @@ public class RspNativeBufferFactory
     {
         if(mIncomingBufferLength != length)
         {
-            int optimal = 128;
+            int optimal = MINIMUM_BUFFER_LENGTH;
 
             while((optimal) < length)
             {
@@ -34,6 +34,7 @@ import io.github.dsheirer.source.tuner.sdrplay.api.parameter.event.EventType;
 import io.github.dsheirer.source.tuner.sdrplay.api.parameter.event.GainCallbackParameters;
 import io.github.dsheirer.source.tuner.sdrplay.api.parameter.event.PowerOverloadCallbackParameters;
 import io.github.dsheirer.source.tuner.sdrplay.api.parameter.event.RspDuoModeCallbackParameters;
+import java.lang.foreign.MemorySegment;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -117,17 +118,23 @@ public abstract class RspTunerController<I extends IControlRsp> extends TunerCon
     }
 
     @Override
-    public void processStream(short[] inphase, short[] quadrature,
+    public void processStream(MemorySegment inphase, MemorySegment quadrature, int sampleCount,
                               StreamCallbackParameters parameters, boolean reset)
     {
-        //The native buffer factory repackages the samples into buffers with the largest power-of-2 length that is
-        //smaller than the incoming buffer length and no smaller than 128 to ensure that down-stream vector optimized
-        //functions can process the data.
-        List<RspNativeBuffer> buffers = mNativeBufferFactory.get(inphase, quadrature, System.currentTimeMillis());
+        if(reset)
+        {
+            mNativeBufferFactory.reset();
+        }
+
+        //The native buffer factory repackages the samples into buffers with the smallest power-of-2 length that is
+        //no smaller than the incoming buffer length and no smaller than 128 to ensure that down-stream vector
+        //optimized functions can process the data.
+        List<RspNativeBuffer> buffers = mNativeBufferFactory.get(inphase, quadrature, sampleCount,
+                System.currentTimeMillis());
 
         for(RspNativeBuffer buffer: buffers)
         {
-            mNativeBufferBroadcaster.broadcast(buffer);
+            broadcast(buffer);
         }
 
         if(reset)
@@ -20,6 +20,7 @@
 package io.github.dsheirer.source.tuner.sdrplay.api.callback;
 
 import io.github.dsheirer.source.tuner.sdrplay.api.device.TunerSelect;
+import java.lang.foreign.MemorySegment;
 
 /**
  * Stream Listener interface.
@@ -27,14 +28,16 @@ import io.github.dsheirer.source.tuner.sdrplay.api.device.TunerSelect;
 public interface IStreamListener
 {
     /**
-     * Process samples from a single stream of I/Q samples
-     * @param xi array of Inphase samples
-     * @param xq array of Quadrature samples
+     * Process samples from a single stream of I/Q samples.  The sample memory segments reference native memory that
+     * is only valid for the duration of this call, so the samples must be copied before returning.
+     * @param xi segment of 16-bit Inphase samples
+     * @param xq segment of 16-bit Quadrature samples
+     * @param sampleCount number of samples in each of the I and Q segments
      * @param streamCallbackParameters stream callback parameters
      * @param reset indicates if a re-initialization has occurred within the API and that local buffering should be reset
      */
-    void processStream(short[] xi, short[] xq, StreamCallbackParameters streamCallbackParameters,
-                       boolean reset);
+    void processStream(MemorySegment xi, MemorySegment xq, int sampleCount,
+                       StreamCallbackParameters streamCallbackParameters, boolean reset);
 
     /**
      * Indicates which tuner this stream listener is for.  Note: this is used to manage asynchronous Updates to ensure
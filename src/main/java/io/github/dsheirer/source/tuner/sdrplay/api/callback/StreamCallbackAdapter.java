@@ -59,7 +59,7 @@ public class StreamCallbackAdapter implements sdrplay_api_StreamCallback_t.Funct
     }
 
     /**
-     * Receives callback of foreign memory data, transfers it to Java, and passes to the listener.
+     * Receives callback of foreign memory data and passes the native sample memory to the listener.
      * @param iSamplesPointer array foreign memory address
      * @param qSamplesPointer array foreign memory address
      * @param parametersPointer associated with the callback - foreign memory address
@@ -86,15 +86,11 @@ public class StreamCallbackAdapter implements sdrplay_api_StreamCallback_t.Funct
 
                 if(mStreamListener != null)
                 {
-                    //Allocate memory segments from I/Q pointers, transfer from native to JVM array, and send to listener
+                    //Wrap the I/Q pointers as memory segments and pass them to the listener without copying
                     long arrayByteSize = ValueLayout.JAVA_SHORT.byteSize() * sampleCount;
                     MemorySegment iSamples = iSamplesPointer.reinterpret(arrayByteSize, confinedArena, null);
                     MemorySegment qSamples = qSamplesPointer.reinterpret(arrayByteSize, confinedArena, null);
-//                    MemorySegment iSamples = MemorySegment.ofAddress(iSamplesPointer.address(), arrayByteSize, confinedArena.scope());
-//                    MemorySegment qSamples = MemorySegment.ofAddress(qSamplesPointer.address(), arrayByteSize, confinedArena.scope());
-                    short[] i = iSamples.toArray(ValueLayout.JAVA_SHORT);
-                    short[] q = qSamples.toArray(ValueLayout.JAVA_SHORT);
-                    mStreamListener.processStream(i, q, parameters, Flag.evaluate(reset));
+                    mStreamListener.processStream(iSamples, qSamples, sampleCount, parameters, Flag.evaluate(reset));
                 }
             }
         }
@@ -0,0 +1,176 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.source.tuner.usb;
+
+/**
+ * Adaptive sizing policy for the pool of USB transfers that are kept submitted to a streaming tuner.
+ *
+ * The transfers in flight must cover the longest stall of the callback (event processing) thread, otherwise the
+ * tuner overruns its internal buffer and samples are dropped.  Stalls are caused by operating system scheduling,
+ * busy USB hubs and consumers that are slow to accept the dispatched buffers, since buffers are dispatched on the
+ * callback thread.  The policy observes the callback interval and the number of transfers still in flight at each
+ * callback over a window of callbacks, and at the end of each window computes the transfer count that covers the
+ * worst observed callback interval with headroom.
+ *
+ * The pool grows immediately when more transfers are needed, and shrinks by one transfer only after several
+ * consecutive windows indicate that fewer transfers are sufficient.
+ *
+ * Note: this class is not thread-safe and is intended to be used from the USB event processing thread.
+ */
+public class AdaptiveTransferPolicy
+{
+    public static final int DEFAULT_MINIMUM_TRANSFERS = 4;
+    public static final int DEFAULT_INITIAL_TRANSFERS = 8;
+    public static final int DEFAULT_MAXIMUM_TRANSFERS = 32;
+    private static final int WINDOW_SIZE = 64;
+    private static final int SHRINK_WINDOWS = 8;
+    private static final double HEADROOM = 2.0;
+
+    private final int mMinimum;
+    private final int mMaximum;
+    private int mTarget;
+    private long mLastCallback;
+    private long mIntervalTotal;
+    private long mIntervalMax;
+    private int mIntervalCount;
+    private int mMinimumInFlight = Integer.MAX_VALUE;
+    private int mShrinkWindowCount;
+
+    /**
+     * Constructs an instance
+     * @param minimum transfer count
+     * @param initial transfer count
+     * @param maximum transfer count
+     */
+    public AdaptiveTransferPolicy(int minimum, int initial, int maximum)
+    {
+        if(minimum < 1 || minimum > initial || initial > maximum)
+        {
+            throw new IllegalArgumentException("Transfer counts must satisfy: 1 <= minimum <= initial <= maximum");
+        }
+
+        mMinimum = minimum;
+        mMaximum = maximum;
+        mTarget = initial;
+    }
+
+    /**
+     * Constructs an instance with the default transfer counts
+     */
+    public AdaptiveTransferPolicy()
+    {
+        this(DEFAULT_MINIMUM_TRANSFERS, DEFAULT_INITIAL_TRANSFERS, DEFAULT_MAXIMUM_TRANSFERS);
+    }
+
+    /**
+     * Current target number of transfers to keep in circulation
+     */
+    public int getTarget()
+    {
+        return mTarget;
+    }
+
+    /**
+     * Clears the observations, for example when streaming restarts.  The current target is retained.
+     */
+    public void reset()
+    {
+        mLastCallback = 0;
+        resetWindow();
+        mShrinkWindowCount = 0;
+    }
+
+    /**
+     * Records a transfer callback and updates the target transfer count at the end of each observation window.
+     * @param timestamp of the callback in nanoseconds
+     * @param inFlight number of transfers that are still submitted to the device at the time of the callback
+     * @return target number of transfers to keep in circulation
+     */
+    public int update(long timestamp, int inFlight)
+    {
+        mMinimumInFlight = Math.min(mMinimumInFlight, inFlight);
+
+        if(mLastCallback != 0)
+        {
+            long interval = timestamp - mLastCallback;
+            mIntervalTotal += interval;
+            mIntervalMax = Math.max(mIntervalMax, interval);
+            mIntervalCount++;
+        }
+
+        mLastCallback = timestamp;
+
+        if(mIntervalCount >= WINDOW_SIZE)
+        {
+            evaluate();
+            resetWindow();
+        }
+
+        return mTarget;
+    }
+
+    /**
+     * Computes the transfer count that covers the worst callback interval of the window with headroom.  A window where
+     * the device ran out of submitted transfers always grows the pool.
+     */
+    private void evaluate()
+    {
+        double meanInterval = (double)mIntervalTotal / mIntervalCount;
+        int required = meanInterval > 0 ? (int)Math.ceil(HEADROOM * mIntervalMax / meanInterval) : mTarget;
+
+        if(mMinimumInFlight == 0)
+        {
+            required = Math.max(required, mTarget + 2);
+        }
+
+        required = Math.max(mMinimum, Math.min(mMaximum, required));
+
+        if(required > mTarget)
+        {
+            mTarget = required;
+            mShrinkWindowCount = 0;
+        }
+        else if(required < mTarget)
+        {
+            mShrinkWindowCount++;
+
+            if(mShrinkWindowCount >= SHRINK_WINDOWS)
+            {
+                mTarget--;
+                mShrinkWindowCount = 0;
+            }
+        }
+        else
+        {
+            mShrinkWindowCount = 0;
+        }
+    }
+
+    /**
+     * Starts a new observation window
+     */
+    private void resetWindow()
+    {
+        mIntervalTotal = 0;
+        mIntervalMax = 0;
+        mIntervalCount = 0;
+        mMinimumInFlight = Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.source.tuner.usb;
+
+import io.github.dsheirer.util.LatencyHistogram;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * USB transfer statistics for a streaming tuner.
+ */
+public class USBTransferStatistics
+{
+    private final LatencyHistogram mTransferLatency = new LatencyHistogram("USB Transfer Latency", "us");
+    private final LatencyHistogram mCallbackInterval = new LatencyHistogram("USB Callback Interval", "us");
+    private final AtomicLong mTransferCount = new AtomicLong();
+    private final AtomicLong mSubmitFailures = new AtomicLong();
+    private final AtomicLong mTransferErrors = new AtomicLong();
+    private final AtomicLong mUnderruns = new AtomicLong();
+    private final AtomicLong mDroppedSamples = new AtomicLong();
+    private final AtomicInteger mAllocatedTransfers = new AtomicInteger();
+    private final AtomicInteger mTargetTransfers = new AtomicInteger();
+    private final AtomicInteger mPoolGrowCount = new AtomicInteger();
+    private final AtomicInteger mPoolShrinkCount = new AtomicInteger();
+
+    /**
+     * Time from submitting a transfer to the completed transfer callback, in microseconds
+     */
+    public LatencyHistogram getTransferLatency()
+    {
+        return mTransferLatency;
+    }
+
+    /**
+     * Time between successive transfer callbacks, in microseconds
+     */
+    public LatencyHistogram getCallbackInterval()
+    {
+        return mCallbackInterval;
+    }
+
+    /**
+     * Records a completed transfer callback
+     */
+    public void transferCompleted()
+    {
+        mTransferCount.incrementAndGet();
+    }
+
+    /**
+     * Number of completed transfers
+     */
+    public long getTransferCount()
+    {
+        return mTransferCount.get();
+    }
+
+    /**
+     * Records a failed transfer submit or resubmit attempt
+     */
+    public void submitFailed()
+    {
+        mSubmitFailures.incrementAndGet();
+    }
+
+    /**
+     * Number of failed transfer submit or resubmit attempts
+     */
+    public long getSubmitFailures()
+    {
+        return mSubmitFailures.get();
+    }
+
+    /**
+     * Records a transfer that completed with an error, stall or timeout status
+     */
+    public void transferError()
+    {
+        mTransferErrors.incrementAndGet();
+    }
+
+    /**
+     * Number of transfers that completed with an error, stall or timeout status
+     */
+    public long getTransferErrors()
+    {
+        return mTransferErrors.get();
+    }
+
+    /**
+     * Records a callback where no other transfers were submitted to the device, which indicates that the device may
+     * have overrun its internal buffer and dropped samples.
+     */
+    public void underrun()
+    {
+        mUnderruns.incrementAndGet();
+    }
+
+    /**
+     * Number of callbacks where no other transfers were submitted to the device
+     */
+    public long getUnderruns()
+    {
+        return mUnderruns.get();
+    }
+
+    /**
+     * Records samples that were lost from short or failed transfers
+     */
+    public void samplesDropped(long count)
+    {
+        mDroppedSamples.addAndGet(count);
+    }
+
+    /**
+     * Number of samples lost from short or failed transfers
+     */
+    public long getDroppedSamples()
+    {
+        return mDroppedSamples.get();
+    }
+
+    /**
+     * Updates the transfer pool size
+     * @param allocated number of allocated transfers
+     * @param target number of transfers kept in circulation
+     */
+    public void setPoolSize(int allocated, int target)
+    {
+        mAllocatedTransfers.set(allocated);
+        int previous = mTargetTransfers.getAndSet(target);
+
+        if(previous != 0 && target > previous)
+        {
+            mPoolGrowCount.incrementAndGet();
+        }
+        else if(target < previous)
+        {
+            mPoolShrinkCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Number of transfers kept in circulation
+     */
+    public int getTargetTransfers()
+    {
+        return mTargetTransfers.get();
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("USB Transfers - Completed:").append(getTransferCount());
+        sb.append(" Pool (target/allocated):").append(getTargetTransfers()).append("/").append(mAllocatedTransfers.get());
+        sb.append(" Grow:").append(mPoolGrowCount.get()).append(" Shrink:").append(mPoolShrinkCount.get());
+        sb.append(" Submit Failures:").append(getSubmitFailures());
+        sb.append(" Transfer Errors:").append(getTransferErrors());
+        sb.append(" Underruns:").append(getUnderruns());
+        sb.append(" Dropped Samples:").append(getDroppedSamples());
+        sb.append("\n\t").append(mTransferLatency);
+        sb.append("\n\t").append(mCallbackInterval);
+        return sb.toString();
+    }
+}
@@ -30,8 +30,11 @@ import io.github.dsheirer.util.ThreadPool;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.LinkedTransferQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.usb4java.Context;
@@ -52,7 +55,6 @@ public abstract class USBTunerController extends TunerController
     private Logger mLog = LoggerFactory.getLogger(USBTunerController.class);
     private static final int USB_INTERFACE = 0x0;  //Common value for all currently supported devices
     private static final int USB_CONFIGURATION = 0x1;  //Common value for all currently supported devices
-    private static final int USB_BULK_TRANSFER_BUFFER_POOL_SIZE = 8;
     protected static final byte USB_BULK_TRANSFER_ENDPOINT = (byte) 0x81;
     private static final long USB_BULK_TRANSFER_TIMEOUT_MS = 2000l;
 
@@ -469,6 +471,14 @@ public abstract class USBTunerController extends TunerController
         return mRunning;
     }
 
+    /**
+     * USB transfer statistics for this tuner
+     */
+    public USBTransferStatistics getTransferStatistics()
+    {
+        return mTransferManager.getStatistics();
+    }
+
     /**
      * Adds the IQ buffer listener and automatically starts stream buffer transfer processing, if not already started.
      */
@@ -521,49 +531,78 @@ public abstract class USBTunerController extends TunerController
     }
 
     /**
-     * Manages USB transfer (ie zero-copy) buffer processing
+     * Manages USB transfer (ie zero-copy) buffer processing.
+     *
+     * The number of transfers kept in circulation is adjusted while streaming by an adaptive transfer policy, based on
+     * the observed callback intervals and the number of transfers in flight.  Transfers that are removed from
+     * circulation are retained in a free list for reuse and are only released when the tuner is stopped.
      */
     class TransferManager implements TransferCallback
     {
-        private List<Transfer> mAvailableTransfers;
-        private LinkedTransferQueue<Transfer> mInProgressTransfers = new LinkedTransferQueue<>();
+        private final List<Transfer> mAllocatedTransfers = new CopyOnWriteArrayList<>();
+        private final ConcurrentLinkedQueue<Transfer> mFreeTransfers = new ConcurrentLinkedQueue<>();
+        private final ConcurrentLinkedQueue<Transfer> mErrorTransfers = new ConcurrentLinkedQueue<>();
+        private final LinkedTransferQueue<Transfer> mInProgressTransfers = new LinkedTransferQueue<>();
+        private final AdaptiveTransferPolicy mTransferPolicy = new AdaptiveTransferPolicy();
+        private final USBTransferStatistics mStatistics = new USBTransferStatistics();
+        private final AtomicInteger mCirculatingCount = new AtomicInteger();
         private boolean mAutoResubmitTransfers = false;
         private int mTransferErrorCount = 0;
-        private List<Transfer> mErrorTransfers = new ArrayList<>();
-        private int mResubmitFailureLogCount = 0;
+        private long mLastCallback;
+        private double mSamplesPerByte;
 
         /**
-         * Creates USB Transfers to carry the streaming sample data.  Transfer buffers are backed by native memory
-         * byte buffers outside the JVM.
+         * Transfer statistics
+         */
+        private USBTransferStatistics getStatistics()
+        {
+            return mStatistics;
+        }
+
+        /**
+         * Creates the initial set of USB Transfers to carry the streaming sample data.  Transfer buffers are backed by
+         * native memory byte buffers outside the JVM.  Previously allocated transfers are reused.
          *
          * @return list of transfers
          * @throws SourceException if there is an error creating transfers
          */
         private List<Transfer> getTransfers() throws SourceException
         {
-            if(mAvailableTransfers == null)
+            mTransferPolicy.reset();
+            mLastCallback = 0;
+            List<Transfer> transfers = new ArrayList<>();
+
+            while(transfers.size() < mTransferPolicy.getTarget())
             {
-                mAvailableTransfers = new ArrayList<>();
+                Transfer transfer = mFreeTransfers.poll();
+                transfers.add(transfer != null ? transfer : allocateTransfer());
+            }
 
-                for(int x = 0; x < USB_BULK_TRANSFER_BUFFER_POOL_SIZE; x++)
-                {
-                    Transfer transfer = LibUsb.allocTransfer();
+            mCirculatingCount.set(transfers.size());
+            mStatistics.setPoolSize(mAllocatedTransfers.size(), mTransferPolicy.getTarget());
+            return transfers;
+        }
 
-                    if(transfer == null)
-                    {
-                        throw new SourceException("Couldn't allocate USB transfer buffer - out of memory");
-                    }
+        /**
+         * Allocates a new transfer with a direct byte buffer.
+         * @throws SourceException if the transfer can't be allocated
+         */
+        private Transfer allocateTransfer() throws SourceException
+        {
+            Transfer transfer = LibUsb.allocTransfer();
 
-                    final ByteBuffer buffer = ByteBuffer.allocateDirect(getTransferBufferSize());
+            if(transfer == null)
+            {
+                throw new SourceException("Couldn't allocate USB transfer buffer - out of memory");
+            }
 
-                    LibUsb.fillBulkTransfer(transfer, mDeviceHandle, USB_BULK_TRANSFER_ENDPOINT, buffer,
-                            TransferManager.this, "Transfer Buffer " + x, USB_BULK_TRANSFER_TIMEOUT_MS);
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(getTransferBufferSize());
 
-                    mAvailableTransfers.add(transfer);
-                }
-            }
+            LibUsb.fillBulkTransfer(transfer, mDeviceHandle, USB_BULK_TRANSFER_ENDPOINT, buffer,
+                    TransferManager.this, new TransferContext(mAllocatedTransfers.size()), USB_BULK_TRANSFER_TIMEOUT_MS);
 
-            return mAvailableTransfers;
+            mAllocatedTransfers.add(transfer);
+            return transfer;
         }
 
         /**
@@ -586,6 +625,31 @@ public abstract class USBTunerController extends TunerController
             }
         }
 
+        /**
+         * Submits the transfer to the device and records the submit time.
+         * @return LibUsb status
+         */
+        private int submit(Transfer transfer)
+        {
+            if(transfer.userData() instanceof TransferContext context)
+            {
+                context.mSubmitted = System.nanoTime();
+            }
+
+            int status = LibUsb.submitTransfer(transfer);
+
+            if(status == LibUsb.SUCCESS)
+            {
+                mInProgressTransfers.add(transfer);
+            }
+            else if(status != LibUsb.ERROR_BUSY)
+            {
+                mStatistics.submitFailed();
+            }
+
+            return status;
+        }
+
         /**
          * (Re)Submits the transfer for stream processing
          *
@@ -597,28 +661,25 @@ public abstract class USBTunerController extends TunerController
          */
         private synchronized void submitTransfer(Transfer transfer)
         {
-            int status = LibUsb.submitTransfer(transfer);
+            int status = submit(transfer);
 
             if(status == LibUsb.SUCCESS)
             {
-                mInProgressTransfers.add(transfer);
-
                 //Attempt to resubmit any previous transfers that failed on submit
-                if(!mErrorTransfers.isEmpty())
+                Transfer toResubmit = mErrorTransfers.poll();
+
+                if(toResubmit != null)
                 {
-                    Transfer toResubmit = mErrorTransfers.remove(0);
-                    int resubmitStatus = LibUsb.submitTransfer(toResubmit);
+                    int resubmitStatus = submit(toResubmit);
 
                     if(resubmitStatus == LibUsb.SUCCESS)
                     {
-                        mInProgressTransfers.add(transfer);
-
-                        //Only log this if more than half of the total transfer buffers are in error-holding
-                        if(mErrorTransfers.size() >= (mAvailableTransfers.size() / 2))
+                        //Only log this if more than half of the circulating transfer buffers are in error-holding
+                        if(mErrorTransfers.size() >= (mCirculatingCount.get() / 2))
                         {
                             mLog.info("Successfully resubmitted previous error USB transfer buffer.  Current transfer buffer" +
-                                    " status (error queue/total available) [" + mErrorTransfers.size() + "/" +
-                                    mAvailableTransfers.size() + "]");
+                                    " status (error queue/total circulating) [" + mErrorTransfers.size() + "/" +
+                                    mCirculatingCount.get() + "]");
                         }
                     }
                     else if(resubmitStatus == LibUsb.ERROR_BUSY)
@@ -628,7 +689,7 @@ public abstract class USBTunerController extends TunerController
                     else
                     {
                         //Add it back to the queue to try again later.
-                        mErrorTransfers.add(transfer);
+                        mErrorTransfers.add(toResubmit);
                         mTransferErrorCount++;
                     }
                 }
@@ -645,19 +706,60 @@ public abstract class USBTunerController extends TunerController
                 mLog.error("USB transfer [" + transfer + "] submit attempt failed with error [" + LibUsb.errorName(status) +
                         "] - adding to error queue to resubmit later - this may be a temporary USB issue and has happened [" +
                         mTransferErrorCount + "] time(s) so far.  Current transfer error queue (error/total) [" +
-                        mErrorTransfers.size() + "/" + mAvailableTransfers.size() + "]");
+                        mErrorTransfers.size() + "/" + mCirculatingCount.get() + "]");
 
                 mErrorTransfers.add(transfer);
                 mTransferErrorCount++;
             }
 
-            if(mErrorTransfers.size() >= mAvailableTransfers.size())
+            if(mErrorTransfers.size() >= mCirculatingCount.get())
             {
                 mLog.error("Maximum USB transfer buffer errors reached - transfer buffers exhausted - shutting down USB tuner");
                 ThreadPool.CACHED.submit(() -> setErrorMessage("USB Error - Transfer Buffers Exhausted"));
             }
         }
 
+        /**
+         * Adjusts the number of circulating transfers toward the adaptive policy target.  When the pool shrinks, the
+         * completed transfer is moved to the free list instead of being resubmitted.  When the pool grows, free or newly
+         * allocated transfers are submitted.
+         * @param completed transfer that was just processed
+         * @return true if the completed transfer was retired to the free list and should not be resubmitted
+         */
+        private boolean adjustPool(Transfer completed)
+        {
+            int target = mTransferPolicy.getTarget();
+
+            if(mCirculatingCount.get() > target)
+            {
+                mCirculatingCount.decrementAndGet();
+                mFreeTransfers.add(completed);
+                mStatistics.setPoolSize(mAllocatedTransfers.size(), target);
+                return true;
+            }
+
+            if(mCirculatingCount.get() < target)
+            {
+                try
+                {
+                    while(mCirculatingCount.get() < target)
+                    {
+                        Transfer transfer = mFreeTransfers.poll();
+                        submitTransfer(transfer != null ? transfer : allocateTransfer());
+                        mCirculatingCount.incrementAndGet();
+                    }
+                }
+                catch(SourceException se)
+                {
+                    mLog.warn("Unable to grow USB transfer pool - " + se.getMessage());
+                }
+
+                mStatistics.setPoolSize(mAllocatedTransfers.size(), target);
+            }
+
+            return false;
+        }
+
         /**
          * Cancels any in-progress transfers to prepare for shutdown.
          *
@@ -682,45 +784,77 @@ public abstract class USBTunerController extends TunerController
          */
         private void freeTransfers()
         {
-            if(mAvailableTransfers != null)
+            for(Transfer transfer: mAllocatedTransfers)
             {
-                for(Transfer transfer: mAvailableTransfers)
+                try
                 {
-                    try
-                    {
-                        LibUsb.freeTransfer(transfer);
-                    }
-                    catch(Exception e)
-                    {
-                        mLog.error("Error releasing allocated USB transfer buffer during tuner shutdown: " +
-                                e.getLocalizedMessage());
-                    }
+                    LibUsb.freeTransfer(transfer);
                 }
+                catch(Exception e)
+                {
+                    mLog.error("Error releasing allocated USB transfer buffer during tuner shutdown: " +
+                            e.getLocalizedMessage());
+                }
+            }
+
+            mAllocatedTransfers.clear();
+            mFreeTransfers.clear();
+            mErrorTransfers.clear();
+            mCirculatingCount.set(0);
+        }
+
+        /**
+         * Updates the transfer statistics and the adaptive transfer policy for the completed transfer.
+         */
+        private void measure(Transfer transfer)
+        {
+            long now = System.nanoTime();
+            mStatistics.transferCompleted();
+
+            if(transfer.userData() instanceof TransferContext context && context.mSubmitted > 0)
+            {
+                mStatistics.getTransferLatency().add((now - context.mSubmitted) / 1000);
+            }
+
+            if(mLastCallback > 0)
+            {
+                mStatistics.getCallbackInterval().add((now - mLastCallback) / 1000);
+            }
+
+            mLastCallback = now;
+
+            int inFlight = mInProgressTransfers.size();
 
-                mAvailableTransfers.clear();
-                mAvailableTransfers = null;
+            if(inFlight == 0 && mAutoResubmitTransfers)
+            {
+                mStatistics.underrun();
             }
+
+            mTransferPolicy.update(now, inFlight);
         }
 
         @Override
         public void processTransfer(Transfer transfer)
         {
             mInProgressTransfers.remove(transfer);
+            measure(transfer);
 
-            if(mErrorTransfers.contains(transfer))
+            if(mErrorTransfers.remove(transfer))
             {
                 mLog.warn("USB transfer [" + transfer + "] that was being tracked as an error transfer, has just been " +
                         "delivered as completed with transfer status [" + LibUsb.errorName(transfer.status()) +
                         "] - removing it from the transfer error queue");
-                mErrorTransfers.remove(transfer);
             }
 
             switch(transfer.status())
             {
-                case LibUsb.TRANSFER_COMPLETED:
                 case LibUsb.TRANSFER_STALL:
                 case LibUsb.TRANSFER_TIMED_OUT:
                 case LibUsb.TRANSFER_ERROR:
+                    mStatistics.transferError();
+                    recordDroppedSamples(transfer);
+                    //Fall through to dispatch any partial data and resubmit the transfer
+                case LibUsb.TRANSFER_COMPLETED:
                 //Note: cancel flag can be set by libusb, independent of commanded cancel of transfers - we simply
                 //resubmit the transfer for continued use.
                 case LibUsb.TRANSFER_CANCELLED:
@@ -733,7 +867,7 @@ public abstract class USBTunerController extends TunerController
 
                     transfer.buffer().rewind();
 
-                    if(mAutoResubmitTransfers)
+                    if(mAutoResubmitTransfers && !adjustPool(transfer))
                     {
                         submitTransfer(transfer);
                     }
@@ -753,6 +887,20 @@ public abstract class USBTunerController extends TunerController
             }
         }
 
+        /**
+         * Records the samples missing from a failed or short transfer, estimated from the samples per byte of the
+         * previously dispatched buffers.
+         */
+        private void recordDroppedSamples(Transfer transfer)
+        {
+            int missing = transfer.buffer().capacity() - Math.max(transfer.actualLength(), 0);
+
+            if(missing > 0 && mSamplesPerByte > 0)
+            {
+                mStatistics.samplesDropped((long)(missing * mSamplesPerByte));
+            }
+        }
+
         /**
          * Makes a copy of the transfer's native memory byte array payload so that the transfer can be reused.
          * Dispatches the native buffer to registered listeners.
@@ -763,7 +911,33 @@ public abstract class USBTunerController extends TunerController
             //Pass the transfer's byte buffer so the native buffer factory can make a copy of the byte array contents
             //and package it as a native buffer.
             INativeBuffer nativeBuffer = getNativeBufferFactory().getBuffer(transfer.buffer(), System.currentTimeMillis());
-            mNativeBufferBroadcaster.broadcast(nativeBuffer);
+
+            if(mSamplesPerByte == 0 && transfer.buffer().capacity() > 0)
+            {
+                mSamplesPerByte = (double)nativeBuffer.sampleCount() / transfer.buffer().capacity();
+            }
+
+            broadcast(nativeBuffer);
+        }
+    }
+
+    /**
+     * Per-transfer context that is attached to each transfer as the LibUsb user data.
+     */
+    private static class TransferContext
+    {
+        private final int mId;
+        private volatile long mSubmitted;
+
+        private TransferContext(int id)
+        {
+            mId = id;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Transfer Buffer " + mId;
         }
     }
 
@@ -19,26 +19,26 @@
 package io.github.dsheirer.spectrum;
 
 import io.github.dsheirer.buffer.INativeBuffer;
-import io.github.dsheirer.controller.NamingThreadFactory;
-import io.github.dsheirer.dsp.window.WindowFactory;
 import io.github.dsheirer.dsp.window.WindowType;
 import io.github.dsheirer.properties.SystemProperties;
 import io.github.dsheirer.sample.Listener;
 import io.github.dsheirer.spectrum.converter.DFTResultsConverter;
-import java.io.IOException;
+import io.github.dsheirer.util.ThreadPool;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import org.jtransforms.fft.FloatFFT_1D;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Processes both complex samples or float samples and dispatches a float array of DFT results, using configurable fft
- * size and output dispatch timelines.
+ * Processes complex samples and dispatches DFT results, using configurable fft size and output dispatch timelines.
+ *
+ * The spectrum is calculated by a Welch-averaging spectrum engine that averages the overlapping segments received
+ * between frames, with an optional peak hold.  Decibel listeners receive the averaged power spectrum in decibels.
+ * Converters receive the raw complex DFT output of the most recent segment.
+ *
+ * Calculations run on the shared scheduled thread pool.
  */
 public class ComplexDftProcessor<T extends INativeBuffer> implements Listener<T>, IDFTWidthChangeProcessor
 {
@@ -46,23 +46,23 @@ public class ComplexDftProcessor<T extends INativeBuffer> implements Listener<T>
     private static final String FRAME_RATE_PROPERTY = "spectral.display.frame.rate";
 
     //The Cosine and Hann windows seem to offer the best spectral display with minimal bin leakage/smearing
-    private WindowType mWindowType = WindowType.BLACKMAN_HARRIS_7;
-    private float[] mWindow;
+    private volatile WindowType mWindowType = WindowType.BLACKMAN_HARRIS_7;
+    private volatile WindowType mNewWindowType = mWindowType;
     private DFTSize mDFTSize = DFTSize.FFT04096;
-    private DFTSize mNewDFTSize = DFTSize.FFT04096;
-    private FloatFFT_1D mFFT = new FloatFFT_1D(mDFTSize.getSize());
+    private volatile DFTSize mNewDFTSize = DFTSize.FFT04096;
+    private volatile boolean mPeakHold;
+    private volatile boolean mClearRequested;
+    private SpectrumEngine mSpectrumEngine = new SpectrumEngine(mDFTSize, mWindowType);
     private int mFrameRate;
     private AtomicBoolean mRunning = new AtomicBoolean();
     private ScheduledFuture<?> mProcessorTaskHandle;
-    private ScheduledExecutorService mExecutorService = Executors.newSingleThreadScheduledExecutor(new NamingThreadFactory("sdrtrunk dft processor"));
     private CopyOnWriteArrayList<DFTResultsConverter> mListeners = new CopyOnWriteArrayList<>();
-    private NativeBufferManager mDftBufferManager = new NativeBufferManager(mDFTSize.getSize() * 2);
-    private float[] mPreviousSamples = new float[mDFTSize.getSize() * 2];
+    private CopyOnWriteArrayList<DFTResultsListener> mDecibelListeners = new CopyOnWriteArrayList<>();
+    private float[] mPreviousDecibels;
 
     public ComplexDftProcessor()
     {
         mFrameRate = SystemProperties.getInstance().get(FRAME_RATE_PROPERTY, 20);
-        setWindowType(mWindowType);
         start();
     }
 
@@ -71,7 +71,7 @@ public class ComplexDftProcessor<T extends INativeBuffer> implements Listener<T>
         stop();
 
         mListeners.clear();
-        mWindow = null;
+        mDecibelListeners.clear();
     }
 
     public WindowType getWindowType()
@@ -79,15 +79,13 @@ public class ComplexDftProcessor<T extends INativeBuffer> implements Listener<T>
         return mWindowType;
     }
 
+    /**
+     * Queues a window type change request that is applied before the next calculation.
+     */
     public void setWindowType(WindowType windowType)
     {
         mWindowType = windowType;
-        updateWindow();
-    }
-
-    private void updateWindow()
-    {
-        mWindow = WindowFactory.getWindow(mWindowType, mDFTSize.getSize() * 2);
+        mNewWindowType = windowType;
     }
 
     /**
@@ -104,6 +102,19 @@ public class ComplexDftProcessor<T extends INativeBuffer> implements Listener<T>
         return mDFTSize;
     }
 
+    /**
+     * Enables or disables peak hold for the decibel results.  Held peaks are cleared on each change.
+     */
+    public void setPeakHold(boolean peakHold)
+    {
+        mPeakHold = peakHold;
+    }
+
+    public boolean isPeakHold()
+    {
+        return mPeakHold;
+    }
+
     public int getFrameRate()
     {
         return mFrameRate;
@@ -130,8 +141,8 @@ public class ComplexDftProcessor<T extends INativeBuffer> implements Listener<T>
             int initialDelay = 0;
             int period = (int) (1000 / mFrameRate);
 
-            mProcessorTaskHandle = mExecutorService.scheduleAtFixedRate(new DFTCalculationTask(), initialDelay, period,
-                TimeUnit.MILLISECONDS);
+            mProcessorTaskHandle = ThreadPool.SCHEDULED.scheduleAtFixedRate(new DFTCalculationTask(), initialDelay,
+                period, TimeUnit.MILLISECONDS);
         }
     }
 
@@ -157,61 +168,82 @@ public class ComplexDftProcessor<T extends INativeBuffer> implements Listener<T>
     }
 
     /**
-     * Places the sample into a transfer queue for future processing.
+     * Copies the samples into the spectrum engine's sample ring for future processing.
      */
     @Override
     public void receive(T buffer)
     {
-        mDftBufferManager.add(buffer);
+        mSpectrumEngine.receive(buffer);
     }
 
     private void calculate()
     {
-        //We always send the previous calculated samples - this should improve the screen rendering since the frame
-        //rate will always occur on an even rhythm.  Any delays caused by processing will be absorbed and not impact
-        //the screen rendering.
-        dispatch(mPreviousSamples);
-
         try
         {
-            //If this throws an IO exception, the buffer queue is (temporarily) empty and we return from the method
-            float[] samples = mDftBufferManager.get(mDFTSize.getSize());
-            WindowFactory.apply(mWindow, samples);
-            mFFT.complexForward(samples);
-            mPreviousSamples = samples;
+            float[] decibels = mSpectrumEngine.calculate();
+
+            if(decibels != null)
+            {
+                mPreviousDecibels = decibels;
+            }
         }
-        catch(IOException ioe)
+        catch(Exception e)
         {
-            //Not enough samples available, dispatch the previous samples again
+            mLog.error("Error while calculating FFT results", e);
         }
-        catch(Exception e)
+
+        //We always send results, even when there aren't enough new samples, so that the screen rendering occurs on
+        //an even rhythm.
+        dispatch();
+    }
+
+    /**
+     * Sends the current results to all registered converters and decibel listeners.
+     */
+    private void dispatch()
+    {
+        if(!mListeners.isEmpty())
         {
-            if(e instanceof InterruptedException)
+            float[] transform = mSpectrumEngine.getTransform();
+
+            for(DFTResultsConverter listener : mListeners)
             {
-                mLog.info("FFT Library interrupted exception - this is normal during application shutdown");
+                listener.receive(transform);
             }
-            else
+        }
+
+        if(mPreviousDecibels != null)
+        {
+            for(DFTResultsListener listener : mDecibelListeners)
             {
-                mLog.error("Error while calculating FFT results", e);
+                listener.receive(mPreviousDecibels);
             }
         }
     }
 
     /**
-     * Takes a calculated DFT results set, reformats the data, and sends it
-     * out to all registered listeners.
+     * Adds a converter to receive the raw complex DFT output
      */
-    private void dispatch(float[] results)
+    public void addConverter(DFTResultsConverter listener)
     {
-        for (DFTResultsConverter mListener : mListeners)
-        {
-            mListener.receive(results);
-        }
+        mListeners.add(listener);
     }
 
-    public void addConverter(DFTResultsConverter listener)
+    /**
+     * Adds a listener to receive the averaged power spectrum in decibels.  The results array is reused after the
+     * next frame, so listeners should copy any values that they need to retain.
+     */
+    public void addListener(DFTResultsListener listener)
     {
-        mListeners.add(listener);
+        mDecibelListeners.add(listener);
+    }
+
+    /**
+     * Removes the decibel results listener
+     */
+    public void removeListener(DFTResultsListener listener)
+    {
+        mDecibelListeners.remove(listener);
     }
 
     private class DFTCalculationTask implements Runnable
@@ -224,9 +256,15 @@ public class ComplexDftProcessor<T extends INativeBuffer> implements Listener<T>
 				/* Only run if we're not currently running */
                 if(mRunning.compareAndSet(false, true))
                 {
-                    checkFFTSize();
-                    calculate();
-                    mRunning.set(false);
+                    try
+                    {
+                        applyChanges();
+                        calculate();
+                    }
+                    finally
+                    {
+                        mRunning.set(false);
+                    }
                 }
             }
             catch(Exception e)
@@ -237,22 +275,41 @@ public class ComplexDftProcessor<T extends INativeBuffer> implements Listener<T>
     }
 
     /**
-     * Checks for a queued FFT width change request and applies it.  This
-     * method will only be accessed by the scheduled executor that gains
-     * access to run a calculate method, thus providing thread safety.
+     * Applies queued FFT width, window type, peak hold and clear requests.  This method will only be accessed by the
+     * scheduled executor that gains access to run a calculate method, thus providing thread safety.
      */
-    private void checkFFTSize()
+    private void applyChanges()
     {
         if(mNewDFTSize.getSize() != mDFTSize.getSize())
         {
             mDFTSize = mNewDFTSize;
-            updateWindow();
-            mFFT = new FloatFFT_1D(mDFTSize.getSize());
+            mSpectrumEngine.setDFTSize(mDFTSize);
+            mPreviousDecibels = null;
+        }
+
+        if(mNewWindowType != null)
+        {
+            mSpectrumEngine.setWindowType(mNewWindowType);
+            mNewWindowType = null;
+        }
+
+        if(mPeakHold != mSpectrumEngine.isPeakHold())
+        {
+            mSpectrumEngine.setPeakHold(mPeakHold);
+        }
+
+        if(mClearRequested)
+        {
+            mClearRequested = false;
+            mSpectrumEngine.clear();
         }
     }
 
+    /**
+     * Discards the buffered samples and held peaks
+     */
     public void clearBuffer()
     {
-        mDftBufferManager.clear();
+        mClearRequested = true;
     }
 }
@@ -39,8 +39,6 @@ import io.github.dsheirer.source.tuner.Tuner;
 import io.github.dsheirer.source.tuner.manager.DiscoveredTuner;
 import io.github.dsheirer.source.tuner.ui.DiscoveredTunerModel;
 import io.github.dsheirer.spectrum.OverlayPanel.ChannelDisplay;
-import io.github.dsheirer.spectrum.converter.ComplexDecibelConverter;
-import io.github.dsheirer.spectrum.converter.DFTResultsConverter;
 import io.github.dsheirer.spectrum.menu.AveragingItem;
 import io.github.dsheirer.spectrum.menu.DFTSizeItem;
 import io.github.dsheirer.spectrum.menu.FFTWindowTypeItem;
@@ -102,7 +100,6 @@ public class SpectralDisplayPanel extends JPanel
     private WaterfallPanel mWaterfallPanel;
     private OverlayPanel mOverlayPanel;
     private ComplexDftProcessor mComplexDftProcessor;
-    private DFTResultsConverter mDFTConverter;
     private ChannelModel mChannelModel;
     private ChannelProcessingManager mChannelProcessingManager;
     private SettingsManager mSettingsManager;
@@ -175,8 +172,6 @@ public class SpectralDisplayPanel extends JPanel
         mComplexDftProcessor.dispose();
         mComplexDftProcessor = null;
 
-        mDFTConverter.dispose();
-        mDFTConverter = null;
 
         mSpectrumPanel.dispose();
         mSpectrumPanel = null;
@@ -393,11 +388,8 @@ public class SpectralDisplayPanel extends JPanel
          * spectrum panel to receive the processed dft results
          */
         mComplexDftProcessor = new ComplexDftProcessor();
-        mDFTConverter = new ComplexDecibelConverter();
-        mComplexDftProcessor.addConverter(mDFTConverter);
-
-        mDFTConverter.addListener((DFTResultsListener)mSpectrumPanel);
-        mDFTConverter.addListener((DFTResultsListener)mWaterfallPanel);
+        mComplexDftProcessor.addListener(mSpectrumPanel);
+        mComplexDftProcessor.addListener(mWaterfallPanel);
     }
 
     /**
@@ -680,6 +672,14 @@ public class SpectralDisplayPanel extends JPanel
                     averagingMenu.add(new AveragingItem(mSpectrumPanel, 4));
                     displayMenu.add(averagingMenu);
 
+                    /**
+                     * Peak hold
+                     */
+                    JCheckBoxMenuItem peakHoldItem = new JCheckBoxMenuItem("Peak Hold");
+                    peakHoldItem.setSelected(mComplexDftProcessor.isPeakHold());
+                    peakHoldItem.addActionListener(e -> mComplexDftProcessor.setPeakHold(peakHoldItem.isSelected()));
+                    displayMenu.add(peakHoldItem);
+
                     /**
                      * Channel Display setting menu
                      */
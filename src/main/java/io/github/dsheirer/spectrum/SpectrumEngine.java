@@ -0,0 +1,365 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.spectrum;
+
+import io.github.dsheirer.buffer.INativeBuffer;
+import io.github.dsheirer.dsp.window.WindowFactory;
+import io.github.dsheirer.dsp.window.WindowType;
+import io.github.dsheirer.sample.complex.InterleavedComplexSamples;
+import java.util.Arrays;
+import java.util.Iterator;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import org.jtransforms.fft.FloatFFT_1D;
+
+/**
+ * Welch-averaged power spectrum estimator.  Incoming complex samples are retained in a ring buffer and each
+ * calculation transforms the most recent 50% overlapping windowed segments received since the previous calculation
+ * and averages the segment power spectra, so that the samples arriving between display frames improve the estimate
+ * instead of being discarded.  An optional peak hold retains the maximum averaged power for each bin.
+ *
+ * All of the working arrays are reused across calculations.  The decibel output arrays alternate between two
+ * buffers, so a listener can use the results until the next calculation completes.
+ *
+ * Decibel values are scaled the same as the ComplexDecibelConverter, with the upper and lower halves of the
+ * spectrum swapped for display.
+ *
+ * Note: receive() is thread-safe, while the configuration methods and calculate() must be invoked by a single
+ * (calculating) thread.
+ */
+public class SpectrumEngine
+{
+    private static final VectorSpecies<Float> VECTOR_SPECIES = FloatVector.SPECIES_PREFERRED;
+    public static final int MAXIMUM_SEGMENTS = 16;
+    private static final float MINIMUM_POWER = 2.5E-20f;
+
+    private final Object mRingLock = new Object();
+    private float[] mRing;
+    private int mRingMask;
+    private long mWriteCount;
+    private long mReadCount;
+
+    private int mSize;
+    private WindowType mWindowType;
+    private float[] mWindow;
+    private FloatFFT_1D mFFT;
+    private float[] mTransform;
+    private float[] mPower;
+    private float[] mPeak;
+    private boolean mPeakHold;
+    private boolean mPeakValid;
+    private final float[][] mOutputs = new float[2][];
+    private int mOutputPointer;
+    private int mSegmentCount;
+
+    /**
+     * Constructs an instance
+     * @param size of the DFT
+     * @param windowType for each segment
+     */
+    public SpectrumEngine(DFTSize size, WindowType windowType)
+    {
+        mWindowType = windowType;
+        setDFTSize(size);
+    }
+
+    /**
+     * Changes the DFT size, discarding the buffered samples and any held peaks.
+     */
+    public void setDFTSize(DFTSize size)
+    {
+        mSize = size.getSize();
+        mFFT = new FloatFFT_1D(mSize);
+        mWindow = WindowFactory.getWindow(mWindowType, mSize);
+        mTransform = new float[mSize * 2];
+        mPower = new float[mSize];
+        mPeak = new float[mSize];
+        mPeakValid = false;
+        mOutputs[0] = new float[mSize];
+        mOutputs[1] = new float[mSize];
+
+        //The ring holds enough complex samples for the maximum number of overlapping segments, with headroom
+        int ringSamples = Integer.highestOneBit(mSize * (MAXIMUM_SEGMENTS / 2 + 1)) * 2;
+
+        synchronized(mRingLock)
+        {
+            mRing = new float[ringSamples * 2];
+            mRingMask = ringSamples - 1;
+            mWriteCount = 0;
+            mReadCount = 0;
+        }
+    }
+
+    /**
+     * Current DFT size in bins
+     */
+    public int getSize()
+    {
+        return mSize;
+    }
+
+    /**
+     * Changes the window applied to each segment
+     */
+    public void setWindowType(WindowType windowType)
+    {
+        mWindowType = windowType;
+        mWindow = WindowFactory.getWindow(mWindowType, mSize);
+    }
+
+    /**
+     * Enables or disables peak hold.  Held peaks are cleared on each change.
+     */
+    public void setPeakHold(boolean peakHold)
+    {
+        mPeakHold = peakHold;
+        mPeakValid = false;
+    }
+
+    /**
+     * Indicates if peak hold is enabled
+     */
+    public boolean isPeakHold()
+    {
+        return mPeakHold;
+    }
+
+    /**
+     * Discards buffered samples and held peaks
+     */
+    public void clear()
+    {
+        synchronized(mRingLock)
+        {
+            mReadCount = mWriteCount;
+        }
+
+        mPeakValid = false;
+    }
+
+    /**
+     * Number of segments averaged in the most recent calculation
+     */
+    public int getSegmentCount()
+    {
+        return mSegmentCount;
+    }
+
+    /**
+     * Complex DFT output of the most recent segment, interleaved, in JTransforms (unshifted) order.
+     */
+    public float[] getTransform()
+    {
+        return mTransform;
+    }
+
+    /**
+     * Copies the samples from the native buffer into the sample ring.
+     */
+    public void receive(INativeBuffer nativeBuffer)
+    {
+        Iterator<InterleavedComplexSamples> iterator = nativeBuffer.iteratorInterleaved();
+
+        while(iterator.hasNext())
+        {
+            float[] samples = iterator.next().samples();
+            write(samples, 0, samples.length / 2);
+        }
+    }
+
+    /**
+     * Copies interleaved complex samples into the sample ring, overwriting the oldest samples when full.
+     * @param samples interleaved complex samples
+     * @param offset of the first complex sample
+     * @param count of complex samples
+     */
+    public void write(float[] samples, int offset, int count)
+    {
+        synchronized(mRingLock)
+        {
+            int capacity = mRingMask + 1;
+
+            if(count > capacity)
+            {
+                offset += count - capacity;
+                count = capacity;
+            }
+
+            int ringOffset = (int)(mWriteCount & mRingMask);
+            int first = Math.min(count, capacity - ringOffset);
+            System.arraycopy(samples, offset * 2, mRing, ringOffset * 2, first * 2);
+
+            if(first < count)
+            {
+                System.arraycopy(samples, (offset + first) * 2, mRing, 0, (count - first) * 2);
+            }
+
+            mWriteCount += count;
+        }
+    }
+
+    /**
+     * Calculates the Welch-averaged power spectrum from the segments received since the previous calculation.
+     * @return power spectrum in decibels, or null if a full segment hasn't been received since the previous
+     * calculation.
+     */
+    public float[] calculate()
+    {
+        int hop = mSize / 2;
+        long start;
+        int segments;
+
+        synchronized(mRingLock)
+        {
+            long available = mWriteCount - mReadCount;
+
+            if(available < mSize)
+            {
+                return null;
+            }
+
+            segments = (int)Math.min(MAXIMUM_SEGMENTS, (available - mSize) / hop + 1);
+            start = mWriteCount - mSize - (long)(segments - 1) * hop;
+            mReadCount = start + (long)segments * hop;
+        }
+
+        Arrays.fill(mPower, 0.0f);
+        int processed = 0;
+
+        for(int segment = 0; segment < segments; segment++)
+        {
+            if(load(start + (long)segment * hop))
+            {
+                mFFT.complexForward(mTransform);
+                accumulate();
+                processed++;
+            }
+        }
+
+        mSegmentCount = processed;
+
+        if(processed == 0)
+        {
+            return null;
+        }
+
+        float[] spectrum = mPower;
+
+        if(mPeakHold)
+        {
+            float scale = 1.0f / processed;
+
+            for(int x = 0; x < mSize; x++)
+            {
+                float power = mPower[x] * scale;
+                mPeak[x] = mPeakValid ? Math.max(mPeak[x], power) : power;
+            }
+
+            mPeakValid = true;
+            spectrum = mPeak;
+            processed = 1;
+        }
+
+        float[] output = mOutputs[mOutputPointer];
+        mOutputPointer ^= 1;
+        float scale = 1.0f / ((float)processed * mSize);
+        convert(spectrum, 0, output, hop, hop, scale);
+        convert(spectrum, hop, output, 0, hop, scale);
+        return output;
+    }
+
+    /**
+     * Copies the segment from the sample ring into the transform array and applies the window.
+     * @return false if the segment was overwritten in the ring before it could be processed
+     */
+    private boolean load(long segmentStart)
+    {
+        synchronized(mRingLock)
+        {
+            if(segmentStart < mWriteCount - (mRingMask + 1))
+            {
+                return false;
+            }
+
+            int ringOffset = (int)(segmentStart & mRingMask);
+            int first = Math.min(mSize, mRingMask + 1 - ringOffset);
+            System.arraycopy(mRing, ringOffset * 2, mTransform, 0, first * 2);
+
+            if(first < mSize)
+            {
+                System.arraycopy(mRing, 0, mTransform, first * 2, (mSize - first) * 2);
+            }
+        }
+
+        for(int x = 0; x < mSize; x++)
+        {
+            mTransform[2 * x] *= mWindow[x];
+            mTransform[2 * x + 1] *= mWindow[x];
+        }
+
+        return true;
+    }
+
+    /**
+     * Adds the magnitude squared of each transform bin to the power accumulator.
+     */
+    private void accumulate()
+    {
+        for(int x = 0; x < mSize; x++)
+        {
+            float i = mTransform[2 * x];
+            float q = mTransform[2 * x + 1];
+            mPower[x] += i * i + q * q;
+        }
+    }
+
+    /**
+     * Converts the scaled power values to decibels (vectorized).
+     * @param power values
+     * @param powerOffset of the first value to convert
+     * @param decibels output array
+     * @param decibelsOffset in the output array
+     * @param length to convert
+     * @param scale to apply to each power value
+     */
+    private static void convert(float[] power, int powerOffset, float[] decibels, int decibelsOffset, int length,
+                                float scale)
+    {
+        int bound = VECTOR_SPECIES.loopBound(length);
+        int x = 0;
+
+        for(; x < bound; x += VECTOR_SPECIES.length())
+        {
+            FloatVector.fromArray(VECTOR_SPECIES, power, powerOffset + x)
+                .mul(scale)
+                .max(MINIMUM_POWER)
+                .lanewise(VectorOperators.LOG10)
+                .mul(10.0f)
+                .intoArray(decibels, decibelsOffset + x);
+        }
+
+        for(; x < length; x++)
+        {
+            decibels[decibelsOffset + x] = 10.0f * (float)Math.log10(Math.max(power[powerOffset + x] * scale,
+                MINIMUM_POWER));
+        }
+    }
+}
@@ -130,7 +130,8 @@ public class SpectrumPanel extends JPanel implements DFTResultsListener, Setting
         if(mDisplayFFTBins == null ||
             mDisplayFFTBins.length != currentFFTBins.length)
         {
-            mDisplayFFTBins = currentFFTBins;
+            //Copy the bins, since the DFT processor reuses the results arrays
+            mDisplayFFTBins = currentFFTBins.clone();
         }
 
         //Apply smoothing across the bins of the DFT results
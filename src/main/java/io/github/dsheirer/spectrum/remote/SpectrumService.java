@@ -0,0 +1,499 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.spectrum.remote;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.dsheirer.controller.NamingThreadFactory;
+import io.github.dsheirer.properties.SystemProperties;
+import io.github.dsheirer.sample.Listener;
+import io.github.dsheirer.source.tuner.Tuner;
+import io.github.dsheirer.source.tuner.TunerEvent;
+import io.github.dsheirer.source.tuner.manager.DiscoveredTuner;
+import io.github.dsheirer.source.tuner.ui.DiscoveredTunerModel;
+import io.github.dsheirer.util.ThreadPool;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local HTTP service that provides spectrum and waterfall snapshots and a spectrum frame stream for each tuner, for
+ * monitoring band conditions when the application runs headless.
+ *
+ * Endpoints:
+ * <ul>
+ *     <li>GET /spectrum/tuners - JSON list of the available tuners</li>
+ *     <li>GET /spectrum/{tuner id}/snapshot.json - latest spectrum frame as JSON</li>
+ *     <li>GET /spectrum/{tuner id}/snapshot.bin - latest spectrum frame as little-endian 32-bit float decibels</li>
+ *     <li>GET /spectrum/{tuner id}/waterfall.png - rolling waterfall image, newest row at the top</li>
+ *     <li>GET /spectrum/{tuner id}/stream - server-sent event stream of JSON spectrum frames</li>
+ * </ul>
+ *
+ * Frame stream clients are served by a single scheduled push task, instead of holding a request thread per client.
+ *
+ * The service is configured in the application properties file and binds to the loopback address by default.
+ */
+public class SpectrumService implements Listener<TunerEvent>
+{
+    private static final Logger mLog = LoggerFactory.getLogger(SpectrumService.class);
+    public static final String PROPERTY_ENABLED = "spectrum.service.enabled";
+    public static final String PROPERTY_ADDRESS = "spectrum.service.address";
+    public static final String PROPERTY_PORT = "spectrum.service.port";
+    public static final String PROPERTY_FRAME_RATE = "spectrum.service.frame.rate";
+    public static final String PROPERTY_WIDTH = "spectrum.service.width";
+    private static final String CONTEXT = "/spectrum/";
+    private static final long FIRST_FRAME_TIMEOUT_MS = 2000;
+    private static final long KEEP_ALIVE_MS = 5000;
+
+    private final DiscoveredTunerModel mDiscoveredTunerModel;
+    private final Map<String,TunerSpectrum> mTunerSpectrumMap = new ConcurrentHashMap<>();
+    private final Set<StreamClient> mStreamClients = ConcurrentHashMap.newKeySet();
+    private final String mAddress;
+    private final int mPort;
+    private final int mFrameRate;
+    private final int mWidth;
+    private HttpServer mHttpServer;
+    private ScheduledExecutorService mStreamExecutor;
+
+    /**
+     * Constructs an instance
+     * @param discoveredTunerModel to access tuners
+     * @param address to bind
+     * @param port to bind
+     * @param frameRate for spectrum frames
+     * @param width in bins of each spectrum frame
+     */
+    public SpectrumService(DiscoveredTunerModel discoveredTunerModel, String address, int port, int frameRate,
+                           int width)
+    {
+        mDiscoveredTunerModel = discoveredTunerModel;
+        mAddress = address;
+        mPort = port;
+        mFrameRate = frameRate;
+        mWidth = width;
+    }
+
+    /**
+     * Creates and starts the service when it is enabled in the system properties.
+     * @param discoveredTunerModel to access tuners
+     * @return started service or null if the service is disabled or can't be started
+     */
+    public static SpectrumService create(DiscoveredTunerModel discoveredTunerModel)
+    {
+        SystemProperties properties = SystemProperties.getInstance();
+
+        if(!properties.get(PROPERTY_ENABLED, false))
+        {
+            return null;
+        }
+
+        SpectrumService service = new SpectrumService(discoveredTunerModel, properties.get(PROPERTY_ADDRESS,
+            "127.0.0.1"), properties.get(PROPERTY_PORT, 8095), properties.get(PROPERTY_FRAME_RATE, 5),
+            properties.get(PROPERTY_WIDTH, 1024));
+
+        try
+        {
+            service.start();
+            return service;
+        }
+        catch(IOException ioe)
+        {
+            mLog.error("Unable to start spectrum service on [" + service.mAddress + ":" + service.mPort + "]", ioe);
+        }
+
+        return null;
+    }
+
+    /**
+     * Starts the HTTP server
+     */
+    public void start() throws IOException
+    {
+        if(mHttpServer == null)
+        {
+            mHttpServer = HttpServer.create(new InetSocketAddress(mAddress, mPort), 0);
+            mHttpServer.createContext(CONTEXT, this::handle);
+            mHttpServer.setExecutor(ThreadPool.CACHED);
+            mHttpServer.start();
+            mStreamExecutor = Executors.newSingleThreadScheduledExecutor(
+                new NamingThreadFactory("sdrtrunk spectrum stream"));
+            long interval = 1000 / Math.max(1, Math.min(50, mFrameRate));
+            mStreamExecutor.scheduleAtFixedRate(this::push, interval, interval, TimeUnit.MILLISECONDS);
+            mDiscoveredTunerModel.addListener(this);
+            mLog.info("Spectrum service started on http://" + mAddress + ":" + mPort + CONTEXT + "tuners");
+        }
+    }
+
+    /**
+     * Stops the HTTP server and tuner monitoring
+     */
+    public void stop()
+    {
+        if(mHttpServer != null)
+        {
+            mDiscoveredTunerModel.removeListener(this);
+            mHttpServer.stop(0);
+            mHttpServer = null;
+            mStreamExecutor.shutdownNow();
+            mStreamExecutor = null;
+
+            for(StreamClient client: mStreamClients)
+            {
+                close(client);
+            }
+
+            for(TunerSpectrum tunerSpectrum: mTunerSpectrumMap.values())
+            {
+                tunerSpectrum.stop();
+            }
+
+            mTunerSpectrumMap.clear();
+        }
+    }
+
+    /**
+     * Releases the spectrum processing for tuners that are shutting down or in an error state.
+     */
+    @Override
+    public void receive(TunerEvent event)
+    {
+        if(event.getTuner() != null && (event.getEvent() == TunerEvent.Event.NOTIFICATION_SHUTTING_DOWN ||
+            event.getEvent() == TunerEvent.Event.NOTIFICATION_ERROR_STATE))
+        {
+            TunerSpectrum tunerSpectrum = mTunerSpectrumMap.remove(event.getTuner().getUniqueID());
+
+            if(tunerSpectrum != null)
+            {
+                //Disconnect the frame stream clients so that they don't restart monitoring of the tuner
+                for(StreamClient client: mStreamClients)
+                {
+                    if(client.mTunerSpectrum == tunerSpectrum)
+                    {
+                        close(client);
+                    }
+                }
+
+                tunerSpectrum.stop();
+            }
+        }
+    }
+
+    /**
+     * Finds the tuner spectrum for the tuner ID, creating it if needed.
+     * @return tuner spectrum or null if there is no available tuner with the ID
+     */
+    private TunerSpectrum getTunerSpectrum(String id)
+    {
+        TunerSpectrum tunerSpectrum = mTunerSpectrumMap.get(id);
+
+        if(tunerSpectrum != null)
+        {
+            return tunerSpectrum;
+        }
+
+        for(DiscoveredTuner discoveredTuner: mDiscoveredTunerModel.getAvailableTuners())
+        {
+            if(discoveredTuner.hasTuner() && discoveredTuner.getTuner().getUniqueID().equals(id))
+            {
+                Tuner tuner = discoveredTuner.getTuner();
+                return mTunerSpectrumMap.computeIfAbsent(id, key -> new TunerSpectrum(tuner, mWidth, mFrameRate));
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Handles all requests for the service context
+     */
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        boolean streaming = false;
+
+        try
+        {
+            if(!"GET".equals(exchange.getRequestMethod()))
+            {
+                send(exchange, 405, "text/plain", "Method not allowed");
+                return;
+            }
+
+            String path = exchange.getRequestURI().getPath().substring(CONTEXT.length());
+
+            if(path.equals("tuners"))
+            {
+                send(exchange, 200, "application/json", getTunersJson());
+                return;
+            }
+
+            int separator = path.lastIndexOf('/');
+
+            if(separator < 1)
+            {
+                send(exchange, 404, "text/plain", "Not found");
+                return;
+            }
+
+            TunerSpectrum tunerSpectrum = getTunerSpectrum(path.substring(0, separator));
+
+            if(tunerSpectrum == null)
+            {
+                send(exchange, 404, "text/plain", "Tuner not available");
+                return;
+            }
+
+            switch(path.substring(separator + 1))
+            {
+                case "snapshot.json":
+                    SpectrumSnapshot snapshot = getSnapshot(tunerSpectrum);
+
+                    if(snapshot != null)
+                    {
+                        send(exchange, 200, "application/json", snapshot.toJson());
+                    }
+                    else
+                    {
+                        send(exchange, 503, "text/plain", "Spectrum not available");
+                    }
+                    break;
+                case "snapshot.bin":
+                    SpectrumSnapshot binarySnapshot = getSnapshot(tunerSpectrum);
+
+                    if(binarySnapshot != null)
+                    {
+                        ByteBuffer buffer = ByteBuffer.allocate(binarySnapshot.decibels().length * Float.BYTES)
+                            .order(ByteOrder.LITTLE_ENDIAN);
+                        buffer.asFloatBuffer().put(binarySnapshot.decibels());
+                        exchange.getResponseHeaders().set("X-Frequency", String.valueOf(binarySnapshot.frequency()));
+                        exchange.getResponseHeaders().set("X-Sample-Rate",
+                            String.valueOf((long)binarySnapshot.sampleRate()));
+                        send(exchange, 200, "application/octet-stream", buffer.array());
+                    }
+                    else
+                    {
+                        send(exchange, 503, "text/plain", "Spectrum not available");
+                    }
+                    break;
+                case "waterfall.png":
+                    tunerSpectrum.touch();
+                    BufferedImage image = tunerSpectrum.getWaterfall().toImage();
+
+                    if(image != null)
+                    {
+                        ByteArrayOutputStream png = new ByteArrayOutputStream();
+                        ImageIO.write(image, "png", png);
+                        send(exchange, 200, "image/png", png.toByteArray());
+                    }
+                    else
+                    {
+                        send(exchange, 503, "text/plain", "Waterfall not available");
+                    }
+                    break;
+                case "stream":
+                    stream(exchange, tunerSpectrum);
+                    streaming = true;
+                    break;
+                default:
+                    send(exchange, 404, "text/plain", "Not found");
+            }
+        }
+        catch(InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            //Frame stream exchanges remain open until the client disconnects
+            if(!streaming)
+            {
+                exchange.close();
+            }
+        }
+    }
+
+    /**
+     * Latest spectrum frame for the tuner, waiting briefly for the first frame when monitoring has just started.
+     */
+    private SpectrumSnapshot getSnapshot(TunerSpectrum tunerSpectrum) throws InterruptedException
+    {
+        tunerSpectrum.touch();
+        long timeout = System.currentTimeMillis() + FIRST_FRAME_TIMEOUT_MS;
+        SpectrumSnapshot snapshot = tunerSpectrum.getLatest();
+
+        while(snapshot == null && System.currentTimeMillis() < timeout)
+        {
+            Thread.sleep(1000 / tunerSpectrum.getFrameRate());
+            snapshot = tunerSpectrum.getLatest();
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Starts a server-sent event stream of spectrum frames.  The exchange is kept open and frames are written by the
+     * push task until the client disconnects.
+     */
+    private void stream(HttpExchange exchange, TunerSpectrum tunerSpectrum) throws IOException
+    {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        exchange.getResponseBody().flush();
+        tunerSpectrum.touch();
+        mStreamClients.add(new StreamClient(exchange, tunerSpectrum));
+    }
+
+    /**
+     * Pushes the latest spectrum frame to each frame stream client, or a keep-alive comment when there is no new frame
+     * for a while.  Frames are skipped when a client can't keep up.  Invoked on the stream executor thread.
+     */
+    private void push()
+    {
+        long now = System.currentTimeMillis();
+
+        for(StreamClient client: mStreamClients)
+        {
+            client.mTunerSpectrum.touch();
+            SpectrumSnapshot snapshot = client.mTunerSpectrum.getLatest();
+            String event = null;
+
+            if(snapshot != null && snapshot != client.mLastSnapshot)
+            {
+                event = "data: " + snapshot.toJson() + "\n\n";
+                client.mLastSnapshot = snapshot;
+            }
+            else if(now - client.mLastWrite >= KEEP_ALIVE_MS)
+            {
+                //Comment lines keep the connection alive and detect disconnected clients
+                event = ": keep-alive\n\n";
+            }
+
+            if(event != null)
+            {
+                try
+                {
+                    OutputStream out = client.mExchange.getResponseBody();
+                    out.write(event.getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    client.mLastWrite = now;
+                }
+                catch(IOException ioe)
+                {
+                    //Client disconnected
+                    close(client);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the frame stream client and closes the exchange
+     */
+    private void close(StreamClient client)
+    {
+        if(mStreamClients.remove(client))
+        {
+            client.mExchange.close();
+        }
+    }
+
+    /**
+     * JSON list of the available tuners
+     */
+    private String getTunersJson()
+    {
+        StringBuilder sb = new StringBuilder("[");
+
+        for(DiscoveredTuner discoveredTuner: mDiscoveredTunerModel.getAvailableTuners())
+        {
+            if(discoveredTuner.hasTuner())
+            {
+                Tuner tuner = discoveredTuner.getTuner();
+
+                if(sb.length() > 1)
+                {
+                    sb.append(',');
+                }
+
+                sb.append("{\"id\":\"").append(escape(tuner.getUniqueID()));
+                sb.append("\",\"name\":\"").append(escape(tuner.getPreferredName()));
+                sb.append("\",\"frequency\":").append(tuner.getTunerController().getFrequency());
+                sb.append(",\"sample_rate\":").append((long)tuner.getTunerController().getSampleRate()).append('}');
+            }
+        }
+
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Escapes quotes and backslashes for a JSON string value
+     */
+    private static String escape(String value)
+    {
+        return value == null ? "" : value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException
+    {
+        send(exchange, status, contentType, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException
+    {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+
+        try(OutputStream out = exchange.getResponseBody())
+        {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Frame stream client state, accessed on the stream executor thread
+     */
+    private static class StreamClient
+    {
+        private final HttpExchange mExchange;
+        private final TunerSpectrum mTunerSpectrum;
+        private SpectrumSnapshot mLastSnapshot;
+        private long mLastWrite = System.currentTimeMillis();
+
+        private StreamClient(HttpExchange exchange, TunerSpectrum tunerSpectrum)
+        {
+            mExchange = exchange;
+            mTunerSpectrum = tunerSpectrum;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.spectrum.remote;
+
+/**
+ * Decimated spectrum frame for a tuner.
+ *
+ * @param timestamp of the frame
+ * @param frequency tuner center frequency in hertz
+ * @param sampleRate of the tuner in hertz
+ * @param decibels power spectrum bins in decibels, ordered from lowest to highest frequency
+ */
+public record SpectrumSnapshot(long timestamp, long frequency, double sampleRate, float[] decibels)
+{
+    /**
+     * Formats the frame as a JSON object
+     */
+    public String toJson()
+    {
+        StringBuilder sb = new StringBuilder(decibels.length * 7 + 100);
+        sb.append("{\"timestamp\":").append(timestamp);
+        sb.append(",\"frequency\":").append(frequency);
+        sb.append(",\"sample_rate\":").append((long)sampleRate);
+        sb.append(",\"bins\":[");
+
+        for(int x = 0; x < decibels.length; x++)
+        {
+            if(x > 0)
+            {
+                sb.append(',');
+            }
+
+            sb.append(Math.round(decibels[x] * 10.0f) / 10.0f);
+        }
+
+        sb.append("]}");
+        return sb.toString();
+    }
+}
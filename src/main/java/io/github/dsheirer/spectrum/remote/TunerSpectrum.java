@@ -0,0 +1,229 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.spectrum.remote;
+
+import io.github.dsheirer.buffer.INativeBuffer;
+import io.github.dsheirer.dsp.window.WindowType;
+import io.github.dsheirer.sample.Broadcaster;
+import io.github.dsheirer.sample.Listener;
+import io.github.dsheirer.source.tuner.Tuner;
+import io.github.dsheirer.source.tuner.TunerController;
+import io.github.dsheirer.spectrum.DFTSize;
+import io.github.dsheirer.spectrum.SpectrumEngine;
+import io.github.dsheirer.util.ThreadPool;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Headless spectrum processor for a single tuner.  Calculates Welch-averaged spectrum frames at a fixed frame rate,
+ * decimates each frame to the display width by retaining the maximum value of each group of bins, and adds each
+ * frame to a rolling waterfall.
+ *
+ * Processing only runs while the tuner is monitored.  Each snapshot request or frame stream subscription extends
+ * the monitoring period, and monitoring stops (releasing the tuner's sample stream) after the idle timeout.
+ */
+public class TunerSpectrum implements Listener<INativeBuffer>
+{
+    private static final Logger mLog = LoggerFactory.getLogger(TunerSpectrum.class);
+    private static final DFTSize DFT_SIZE = DFTSize.FFT08192;
+    private static final int WATERFALL_ROWS = 300;
+    private static final float WATERFALL_DYNAMIC_RANGE_DB = 50.0f;
+    private static final long IDLE_TIMEOUT_MS = 30000;
+
+    private final Tuner mTuner;
+    private final SpectrumEngine mSpectrumEngine = new SpectrumEngine(DFT_SIZE, WindowType.BLACKMAN_HARRIS_7);
+    private final Broadcaster<SpectrumSnapshot> mFrameBroadcaster = new Broadcaster<>();
+    private final WaterfallRing mWaterfall;
+    private final int mWidth;
+    private final int mFrameRate;
+    private ScheduledFuture<?> mFrameTask;
+    private volatile SpectrumSnapshot mLatest;
+    private volatile long mLastAccess;
+
+    /**
+     * Constructs an instance
+     * @param tuner to monitor
+     * @param width of each decimated frame in bins, limited to the DFT size
+     * @param frameRate in frames per second
+     */
+    public TunerSpectrum(Tuner tuner, int width, int frameRate)
+    {
+        mTuner = tuner;
+        mWidth = Math.max(1, Math.min(width, DFT_SIZE.getSize()));
+        mFrameRate = Math.max(1, Math.min(50, frameRate));
+        mWaterfall = new WaterfallRing(mWidth, WATERFALL_ROWS, WATERFALL_DYNAMIC_RANGE_DB);
+    }
+
+    /**
+     * Tuner monitored by this instance
+     */
+    public Tuner getTuner()
+    {
+        return mTuner;
+    }
+
+    /**
+     * Frame rate in frames per second
+     */
+    public int getFrameRate()
+    {
+        return mFrameRate;
+    }
+
+    /**
+     * Rolling waterfall
+     */
+    public WaterfallRing getWaterfall()
+    {
+        return mWaterfall;
+    }
+
+    /**
+     * Most recent spectrum frame, or null if no frames have been calculated since monitoring started
+     */
+    public SpectrumSnapshot getLatest()
+    {
+        return mLatest;
+    }
+
+    /**
+     * Starts or extends monitoring of the tuner
+     */
+    public synchronized void touch()
+    {
+        mLastAccess = System.currentTimeMillis();
+
+        if(mFrameTask == null)
+        {
+            mLog.info("Starting remote spectrum monitoring for tuner [" + mTuner.getPreferredName() + "]");
+            mSpectrumEngine.clear();
+            mWaterfall.clear();
+            mTuner.getTunerController().addBufferListener(this);
+            mFrameTask = ThreadPool.SCHEDULED.scheduleAtFixedRate(this::calculate, 0, 1000 / mFrameRate,
+                TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops monitoring the tuner
+     */
+    public synchronized void stop()
+    {
+        if(mFrameTask != null)
+        {
+            mFrameTask.cancel(false);
+            mFrameTask = null;
+            mTuner.getTunerController().removeBufferListener(this);
+            mLatest = null;
+            mLog.info("Stopped remote spectrum monitoring for tuner [" + mTuner.getPreferredName() + "]");
+        }
+    }
+
+    /**
+     * Adds a listener to receive each spectrum frame
+     */
+    public void addFrameListener(Listener<SpectrumSnapshot> listener)
+    {
+        mFrameBroadcaster.addListener(listener);
+    }
+
+    /**
+     * Removes the spectrum frame listener
+     */
+    public void removeFrameListener(Listener<SpectrumSnapshot> listener)
+    {
+        mFrameBroadcaster.removeListener(listener);
+    }
+
+    @Override
+    public void receive(INativeBuffer nativeBuffer)
+    {
+        mSpectrumEngine.receive(nativeBuffer);
+    }
+
+    /**
+     * Calculates the next frame, or stops monitoring after the idle timeout
+     */
+    private void calculate()
+    {
+        try
+        {
+            if(System.currentTimeMillis() - mLastAccess > IDLE_TIMEOUT_MS && !mFrameBroadcaster.hasListeners())
+            {
+                stop();
+                return;
+            }
+
+            float[] decibels = mSpectrumEngine.calculate();
+
+            if(decibels != null)
+            {
+                float[] decimated = decimate(decibels, mWidth);
+                TunerController controller = mTuner.getTunerController();
+                SpectrumSnapshot snapshot = new SpectrumSnapshot(System.currentTimeMillis(), controller.getFrequency(),
+                    controller.getSampleRate(), decimated);
+                mWaterfall.add(decimated);
+                mLatest = snapshot;
+                mFrameBroadcaster.broadcast(snapshot);
+            }
+        }
+        catch(Throwable t)
+        {
+            mLog.error("Error calculating remote spectrum frame", t);
+        }
+    }
+
+    /**
+     * Decimates the bins to the width, retaining the maximum value of each group of bins so that narrow signals
+     * remain visible.  When the bin count is not a multiple of the width, the groups differ in size by one bin.
+     * @param decibels to decimate
+     * @param width of the decimated frame, between 1 and the bin count
+     * @return decimated bins
+     * @throws IllegalArgumentException if the width is outside of the valid range
+     */
+    public static float[] decimate(float[] decibels, int width)
+    {
+        if(width < 1 || width > decibels.length)
+        {
+            throw new IllegalArgumentException("Width [" + width + "] must be between 1 and the bin count [" +
+                decibels.length + "]");
+        }
+
+        float[] decimated = new float[width];
+
+        for(int x = 0; x < width; x++)
+        {
+            int start = (int)((long)x * decibels.length / width);
+            int end = (int)((long)(x + 1) * decibels.length / width);
+            float max = decibels[start];
+
+            for(int y = start + 1; y < end; y++)
+            {
+                max = Math.max(max, decibels[y]);
+            }
+
+            decimated[x] = max;
+        }
+
+        return decimated;
+    }
+}
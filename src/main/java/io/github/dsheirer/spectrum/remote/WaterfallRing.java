@@ -0,0 +1,140 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.spectrum.remote;
+
+import io.github.dsheirer.spectrum.WaterfallColorModel;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+
+/**
+ * Rolling waterfall history stored as one byte per bin.  Each row is scaled across the dynamic range, starting just
+ * below the row's average (noise) level, to the 0-255 range of the waterfall color model.
+ */
+public class WaterfallRing
+{
+    private static final float NOISE_OFFSET_DB = 5.0f;
+    private final byte[] mPixels;
+    private final int mWidth;
+    private final int mRows;
+    private final float mScale;
+    private int mRowPointer;
+    private int mRowCount;
+
+    /**
+     * Constructs an instance
+     * @param width in bins of each row
+     * @param rows of history
+     * @param dynamicRangeDb range of decibel values above the lowest color
+     */
+    public WaterfallRing(int width, int rows, float dynamicRangeDb)
+    {
+        mWidth = width;
+        mRows = rows;
+        mPixels = new byte[width * rows];
+        mScale = 255.0f / dynamicRangeDb;
+    }
+
+    /**
+     * Width of each row
+     */
+    public int getWidth()
+    {
+        return mWidth;
+    }
+
+    /**
+     * Number of rows written, up to the ring capacity
+     */
+    public synchronized int getRowCount()
+    {
+        return mRowCount;
+    }
+
+    /**
+     * Adds a row of decibel values as the newest row
+     * @param decibels with a length equal to the waterfall width
+     */
+    public synchronized void add(float[] decibels)
+    {
+        int offset = mRowPointer * mWidth;
+        float sum = 0.0f;
+
+        for(int x = 0; x < mWidth; x++)
+        {
+            sum += decibels[x];
+        }
+
+        float minimum = sum / mWidth - NOISE_OFFSET_DB;
+
+        for(int x = 0; x < mWidth; x++)
+        {
+            float value = (decibels[x] - minimum) * mScale;
+            mPixels[offset + x] = (byte)(value <= 0 ? 0 : (value >= 255 ? 255 : (int)value));
+        }
+
+        mRowPointer = (mRowPointer + 1) % mRows;
+        mRowCount = Math.min(mRowCount + 1, mRows);
+    }
+
+    /**
+     * Removes all rows
+     */
+    public synchronized void clear()
+    {
+        mRowPointer = 0;
+        mRowCount = 0;
+    }
+
+    /**
+     * Copies the rows into a byte array, newest row first.
+     */
+    public synchronized byte[] getRows()
+    {
+        byte[] rows = new byte[mRowCount * mWidth];
+
+        for(int row = 0; row < mRowCount; row++)
+        {
+            int source = (mRowPointer - 1 - row + mRows) % mRows;
+            System.arraycopy(mPixels, source * mWidth, rows, row * mWidth, mWidth);
+        }
+
+        return rows;
+    }
+
+    /**
+     * Renders the waterfall as an indexed color image with the newest row at the top.
+     * @return image or null if there are no rows
+     */
+    public BufferedImage toImage()
+    {
+        byte[] rows = getRows();
+
+        if(rows.length == 0)
+        {
+            return null;
+        }
+
+        BufferedImage image = new BufferedImage(mWidth, rows.length / mWidth, BufferedImage.TYPE_BYTE_INDEXED,
+            WaterfallColorModel.getDefaultColorModel());
+        byte[] data = ((DataBufferByte)image.getRaster().getDataBuffer()).getData();
+        System.arraycopy(rows, 0, data, 0, rows.length);
+        return image;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe, fixed-size latency histogram with power-of-two buckets.  Bucket N counts values in the range
+ * [2^(N-1), 2^N) with bucket zero counting values of zero.  Values are unit-less, so the same histogram can be used
+ * for millisecond, microsecond or nanosecond measurements, as long as the producer is consistent.
+ *
+ * Recording a value is lock-free and allocation-free so that it can be used from processing threads.
+ */
+public class LatencyHistogram
+{
+    private static final int BUCKET_COUNT = 64;
+    private final String mName;
+    private final String mUnits;
+    private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong mCount = new AtomicLong();
+    private final AtomicLong mTotal = new AtomicLong();
+    private final AtomicLong mMax = new AtomicLong();
+
+    /**
+     * Constructs an instance
+     * @param name of the measurement for logging
+     * @param units label for the measured values (e.g. ms or us)
+     */
+    public LatencyHistogram(String name, String units)
+    {
+        mName = name;
+        mUnits = units;
+    }
+
+    /**
+     * Name of this histogram
+     */
+    public String getName()
+    {
+        return mName;
+    }
+
+    /**
+     * Records a latency value.  Negative values are recorded as zero.
+     * @param value to record
+     */
+    public void add(long value)
+    {
+        if(value < 0)
+        {
+            value = 0;
+        }
+
+        mBuckets.incrementAndGet(BUCKET_COUNT - Long.numberOfLeadingZeros(value));
+        mCount.incrementAndGet();
+        mTotal.addAndGet(value);
+
+        long max = mMax.get();
+
+        while(value > max && !mMax.compareAndSet(max, value))
+        {
+            max = mMax.get();
+        }
+    }
+
+    /**
+     * Number of recorded values
+     */
+    public long getCount()
+    {
+        return mCount.get();
+    }
+
+    /**
+     * Largest recorded value
+     */
+    public long getMax()
+    {
+        return mMax.get();
+    }
+
+    /**
+     * Average of the recorded values or zero if there are no recorded values.
+     */
+    public double getMean()
+    {
+        long count = mCount.get();
+        return count > 0 ? (double)mTotal.get() / count : 0.0;
+    }
+
+    /**
+     * Estimated percentile value, reported as the upper bound of the bucket that contains the requested percentile.
+     * @param percentile in range 0.0 - 1.0
+     * @return upper bucket bound for the percentile or zero if there are no recorded values.
+     */
+    public long getPercentile(double percentile)
+    {
+        long count = mCount.get();
+
+        if(count == 0)
+        {
+            return 0;
+        }
+
+        long threshold = (long)Math.ceil(count * Math.min(Math.max(percentile, 0.0), 1.0));
+        long accumulator = 0;
+
+        for(int x = 0; x < BUCKET_COUNT; x++)
+        {
+            accumulator += mBuckets.get(x);
+
+            if(accumulator >= threshold)
+            {
+                return Math.min(x == 0 ? 0 : (1L << x) - 1, getMax());
+            }
+        }
+
+        return getMax();
+    }
+
+    /**
+     * Count of values recorded in the bucket.
+     * @param bucket index 0-63
+     */
+    public long getBucketCount(int bucket)
+    {
+        return mBuckets.get(bucket);
+    }
+
+    /**
+     * Resets all counters
+     */
+    public void reset()
+    {
+        for(int x = 0; x < BUCKET_COUNT; x++)
+        {
+            mBuckets.set(x, 0);
+        }
+
+        mCount.set(0);
+        mTotal.set(0);
+        mMax.set(0);
+    }
+
+    @Override
+    public String toString()
+    {
+        return mName + " count:" + getCount() + " mean:" + String.format("%.1f", getMean()) + mUnits +
+                " p50:" + getPercentile(0.5) + mUnits + " p95:" + getPercentile(0.95) + mUnits +
+                " p99:" + getPercentile(0.99) + mUnits + " max:" + getMax() + mUnits;
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.util;
+
+import io.github.dsheirer.controller.NamingThreadFactory;
+import io.github.dsheirer.sample.Listener;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Processing stage with a dedicated, fixed size thread pool and a bounded work queue.  Stages can be chained by having
+ * the processor of one stage submit to the next stage.  The saturation policy determines what happens when the work
+ * queue is full:
+ *
+ * BLOCK: submit() blocks the caller until space is available, so that a slow downstream stage applies back pressure
+ * to upstream stages instead of growing the queue without bound.  Use this policy between stages.
+ *
+ * DROP: submit() returns immediately and the item is dropped and passed to the overflow listener.  Use this policy for
+ * the first stage when the caller is a thread that must not block (e.g. a decoder thread).
+ *
+ * Queued items that are abandoned when the stage doesn't complete within the shutdown timeout are also passed to the
+ * overflow listener, so that the owner can release any resources held by the items.
+ *
+ * Each stage tracks the time that items wait in the queue and the time spent processing each item.
+ *
+ * @param <T> type of item processed by this stage
+ */
+public class PipelineStage<T>
+{
+    private final static Logger mLog = LoggerFactory.getLogger(PipelineStage.class);
+    private static final long BLOCKING_POLL_INTERVAL_MS = 100;
+    private final String mName;
+    private final Listener<T> mProcessor;
+    private final ThreadPoolExecutor mExecutor;
+    private final LatencyHistogram mQueueLatency;
+    private final LatencyHistogram mProcessingLatency;
+    private final AtomicLong mDroppedCount = new AtomicLong();
+    private final Listener<T> mOverflowListener;
+
+    /**
+     * Saturation policy for a full work queue
+     */
+    public enum SaturationPolicy
+    {
+        BLOCK,
+        DROP
+    }
+
+    /**
+     * Constructs an instance that blocks the submitting thread when the work queue is full.
+     * @param name of the stage, used for thread naming and logging
+     * @param threads number of processing threads
+     * @param capacity of the work queue
+     * @param processor to process each submitted item
+     */
+    public PipelineStage(String name, int threads, int capacity, Listener<T> processor)
+    {
+        this(name, threads, capacity, processor, SaturationPolicy.BLOCK, null);
+    }
+
+    /**
+     * Constructs an instance
+     * @param name of the stage, used for thread naming and logging
+     * @param threads number of processing threads
+     * @param capacity of the work queue
+     * @param processor to process each submitted item
+     * @param policy for a full work queue
+     * @param overflowListener to receive items that are dropped by the DROP policy or abandoned at shutdown, or null
+     */
+    public PipelineStage(String name, int threads, int capacity, Listener<T> processor, SaturationPolicy policy,
+                         Listener<T> overflowListener)
+    {
+        mName = name;
+        mProcessor = processor;
+        mOverflowListener = overflowListener;
+        mQueueLatency = new LatencyHistogram(name + " Queue Latency", "ms");
+        mProcessingLatency = new LatencyHistogram(name + " Processing Latency", "ms");
+        int threadCount = Math.max(1, threads);
+        mExecutor = new ThreadPoolExecutor(threadCount, threadCount, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, capacity)), new NamingThreadFactory("sdrtrunk " + name),
+            policy == SaturationPolicy.DROP ? new DropPolicy() : new BlockingPolicy());
+    }
+
+    /**
+     * Name of this stage
+     */
+    public String getName()
+    {
+        return mName;
+    }
+
+    /**
+     * Number of items waiting in the work queue
+     */
+    public int getQueueSize()
+    {
+        return mExecutor.getQueue().size();
+    }
+
+    /**
+     * Number of items that were dropped because the work queue was full
+     */
+    public long getDroppedCount()
+    {
+        return mDroppedCount.get();
+    }
+
+    /**
+     * Latency from submission until processing starts
+     */
+    public LatencyHistogram getQueueLatency()
+    {
+        return mQueueLatency;
+    }
+
+    /**
+     * Latency of processing each item
+     */
+    public LatencyHistogram getProcessingLatency()
+    {
+        return mProcessingLatency;
+    }
+
+    /**
+     * Submits the item for processing.  When the work queue is full, the call blocks or the item is dropped, according
+     * to the saturation policy.
+     * @param item to process
+     * @throws RejectedExecutionException if the stage has been shutdown
+     */
+    public void submit(T item)
+    {
+        mExecutor.execute(new Task(item));
+    }
+
+    /**
+     * Stops accepting new items and waits for any queued items to be processed.  Items that are still queued after the
+     * timeout are abandoned and passed to the overflow listener.
+     * @param timeout to wait
+     * @param unit for the timeout
+     * @return true if all queued items were processed before the timeout
+     */
+    public boolean shutdown(long timeout, TimeUnit unit)
+    {
+        mExecutor.shutdown();
+
+        try
+        {
+            if(mExecutor.awaitTermination(timeout, unit))
+            {
+                return true;
+            }
+        }
+        catch(InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        List<Runnable> abandoned = mExecutor.shutdownNow();
+        mLog.warn("Pipeline stage [" + mName + "] did not complete [" + abandoned.size() + "] queued items");
+
+        if(mOverflowListener != null)
+        {
+            for(Runnable runnable: abandoned)
+            {
+                mOverflowListener.receive(((Task)runnable).mItem);
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public String toString()
+    {
+        return mName + " Queued:" + getQueueSize() + " Dropped:" + getDroppedCount() + " " + mQueueLatency + " " +
+            mProcessingLatency;
+    }
+
+    /**
+     * Wraps the submitted item to capture the submission timestamp.
+     */
+    private class Task implements Runnable
+    {
+        private final T mItem;
+        private final long mSubmitted = System.currentTimeMillis();
+
+        public Task(T item)
+        {
+            mItem = item;
+        }
+
+        @Override
+        public void run()
+        {
+            long start = System.currentTimeMillis();
+            mQueueLatency.add(start - mSubmitted);
+
+            try
+            {
+                mProcessor.receive(mItem);
+            }
+            catch(Throwable t)
+            {
+                mLog.error("Error processing item in pipeline stage [" + mName + "]", t);
+            }
+
+            mProcessingLatency.add(System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * Rejected execution handler that blocks the submitting thread until the work queue has space.  The wait is done in
+     * short intervals so that a submitting thread doesn't stay blocked on the queue of a stage that is shutdown.
+     */
+    private static class BlockingPolicy implements RejectedExecutionHandler
+    {
+        @Override
+        public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor)
+        {
+            try
+            {
+                while(!executor.isShutdown())
+                {
+                    if(executor.getQueue().offer(runnable, BLOCKING_POLL_INTERVAL_MS, TimeUnit.MILLISECONDS))
+                    {
+                        //The stage may have been shutdown and its threads terminated while waiting for space
+                        if(executor.isShutdown() && executor.getQueue().remove(runnable))
+                        {
+                            break;
+                        }
+
+                        return;
+                    }
+                }
+            }
+            catch(InterruptedException ie)
+            {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while waiting for pipeline stage queue space");
+            }
+
+            throw new RejectedExecutionException("Pipeline stage is shutdown");
+        }
+    }
+
+    /**
+     * Rejected execution handler that drops the item and passes it to the overflow listener.
+     */
+    private class DropPolicy implements RejectedExecutionHandler
+    {
+        @Override
+        @SuppressWarnings("unchecked")
+        public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor)
+        {
+            if(executor.isShutdown())
+            {
+                throw new RejectedExecutionException("Pipeline stage is shutdown");
+            }
+
+            long dropped = mDroppedCount.incrementAndGet();
+
+            if(dropped % 100 == 1)
+            {
+                mLog.warn("Pipeline stage [" + mName + "] queue is full - dropped [" + dropped + "] items");
+            }
+
+            if(mOverflowListener != null)
+            {
+                mOverflowListener.receive(((Task)runnable).mItem);
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.util;
+
+import io.github.dsheirer.sample.Listener;
+import java.awt.EventQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesces updates produced on any thread into batches that are delivered on a user interface thread at a bounded
+ * frame rate, so that a busy producer can't flood the Swing or JavaFX event queue with one runnable per update.
+ *
+ * Updates are de-duplicated by identity while they are pending, so an item that is updated several times within a
+ * frame is delivered once.  When the number of pending updates exceeds the maximum, the oldest pending updates are
+ * dropped, since they would be pushed out of the view by the newer updates anyway.  An optional dropped listener is
+ * notified of the number of dropped updates ahead of the batch that follows them.
+ *
+ * @param <T> type of update
+ */
+public class UpdateCoalescer<T>
+{
+    private static final Logger mLog = LoggerFactory.getLogger(UpdateCoalescer.class);
+    public static final int DEFAULT_FRAME_RATE = 15;
+    private final Executor mUserInterfaceExecutor;
+    private final Listener<List<T>> mBatchListener;
+    private final long mFrameInterval;
+    private final Set<T> mPendingSet = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final ArrayDeque<T> mPending = new ArrayDeque<>();
+    private Listener<Integer> mDroppedListener;
+    private int mMaximumPending;
+    private int mDropped;
+    private boolean mScheduled;
+    private long mLastDelivery;
+
+    /**
+     * Constructs an instance
+     * @param userInterfaceExecutor to execute the batch delivery on the user interface thread
+     * @param frameRate maximum number of batches per second
+     * @param maximumPending number of pending updates before the oldest pending updates are dropped
+     * @param batchListener to receive each batch of updates on the user interface thread
+     */
+    public UpdateCoalescer(Executor userInterfaceExecutor, int frameRate, int maximumPending,
+                           Listener<List<T>> batchListener)
+    {
+        mUserInterfaceExecutor = userInterfaceExecutor;
+        mFrameInterval = 1000 / Math.max(1, frameRate);
+        mMaximumPending = Math.max(1, maximumPending);
+        mBatchListener = batchListener;
+    }
+
+    /**
+     * Creates a coalescer that delivers batches on the Swing event dispatch thread at the default frame rate.
+     */
+    public static <T> UpdateCoalescer<T> forSwing(int maximumPending, Listener<List<T>> batchListener)
+    {
+        return new UpdateCoalescer<>(EventQueue::invokeLater, DEFAULT_FRAME_RATE, maximumPending, batchListener);
+    }
+
+    /**
+     * Creates a coalescer that delivers batches on the JavaFX application thread at the default frame rate.
+     */
+    public static <T> UpdateCoalescer<T> forJavaFx(int maximumPending, Listener<List<T>> batchListener)
+    {
+        return new UpdateCoalescer<>(Platform::runLater, DEFAULT_FRAME_RATE, maximumPending, batchListener);
+    }
+
+    /**
+     * Sets the listener to receive the number of updates that were dropped since the previous batch.  The listener is
+     * invoked on the user interface thread immediately before the batch listener.
+     */
+    public synchronized void setDroppedListener(Listener<Integer> droppedListener)
+    {
+        mDroppedListener = droppedListener;
+    }
+
+    /**
+     * Sets the maximum number of pending updates
+     */
+    public synchronized void setMaximumPending(int maximumPending)
+    {
+        mMaximumPending = Math.max(1, maximumPending);
+        trim();
+    }
+
+    /**
+     * Adds an update to be delivered with the next batch.  Can be invoked from any thread.
+     * @param update to add
+     */
+    public synchronized void add(T update)
+    {
+        if(update == null)
+        {
+            return;
+        }
+
+        if(mPendingSet.add(update))
+        {
+            mPending.addLast(update);
+            trim();
+        }
+
+        if(!mScheduled)
+        {
+            mScheduled = true;
+            long delay = Math.max(0, mLastDelivery + mFrameInterval - System.currentTimeMillis());
+            ThreadPool.SCHEDULED.schedule(() -> mUserInterfaceExecutor.execute(this::deliver), delay,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Discards all pending updates.
+     */
+    public synchronized void clear()
+    {
+        mPending.clear();
+        mPendingSet.clear();
+    }
+
+    /**
+     * Drops the oldest pending updates that exceed the maximum.
+     */
+    private void trim()
+    {
+        while(mPending.size() > mMaximumPending)
+        {
+            mPendingSet.remove(mPending.pollFirst());
+            mDropped++;
+        }
+    }
+
+    /**
+     * Delivers the pending updates to the batch listener on the user interface thread.
+     */
+    private void deliver()
+    {
+        List<T> pending;
+        int dropped;
+        Listener<Integer> droppedListener;
+
+        synchronized(this)
+        {
+            pending = new ArrayList<>(mPending);
+            mPending.clear();
+            mPendingSet.clear();
+            dropped = mDropped;
+            mDropped = 0;
+            droppedListener = mDroppedListener;
+            mScheduled = false;
+            mLastDelivery = System.currentTimeMillis();
+        }
+
+        if(dropped > 0 && droppedListener != null)
+        {
+            try
+            {
+                droppedListener.receive(dropped);
+            }
+            catch(Throwable t)
+            {
+                mLog.error("Error notifying dropped user interface update count", t);
+            }
+        }
+
+        if(!pending.isEmpty())
+        {
+            try
+            {
+                mBatchListener.receive(pending);
+            }
+            catch(Throwable t)
+            {
+                mLog.error("Error applying batch of [" + pending.size() + "] user interface updates", t);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.alias;
+
+import io.github.dsheirer.alias.id.talkgroup.Talkgroup;
+import io.github.dsheirer.module.decode.p25.identifier.talkgroup.APCO25Talkgroup;
+import io.github.dsheirer.protocol.Protocol;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests publication of the compiled alias index
+ */
+public class AliasListTest
+{
+    private static Alias alias(String name, int talkgroup)
+    {
+        Alias alias = new Alias(name);
+        alias.addAliasID(new Talkgroup(Protocol.APCO25, talkgroup));
+        return alias;
+    }
+
+    @Test
+    void lookupDuringRebuildUsesPreviousIndex() throws Exception
+    {
+        AliasList aliasList = new AliasList("Test Alias List");
+        Alias first = alias("First", 1);
+        aliasList.addAlias(first);
+        assertTrue(aliasList.awaitIndex(5000), "Alias index was not rebuilt");
+        long revision = aliasList.getRevision();
+
+        //Holding the alias list lock blocks the background rebuild of the edit, like a long running rebuild
+        synchronized(aliasList)
+        {
+            aliasList.addAlias(alias("Second", 2));
+            Thread.sleep(200);
+
+            List<Alias> firstAliases = CompletableFuture.supplyAsync(() ->
+                aliasList.getAliases(APCO25Talkgroup.create(1))).get(1, TimeUnit.SECONDS);
+            List<Alias> secondAliases = CompletableFuture.supplyAsync(() ->
+                aliasList.getAliases(APCO25Talkgroup.create(2))).get(1, TimeUnit.SECONDS);
+
+            assertEquals(List.of(first), firstAliases, "Lookup should use the previous index");
+            assertTrue(secondAliases.isEmpty(), "Lookup should not see the edit before the rebuild completes");
+            assertEquals(revision, aliasList.getRevision(), "Index should not be published during the rebuild");
+        }
+
+        assertTrue(aliasList.awaitIndex(5000), "Alias index was not rebuilt");
+        assertEquals(1, aliasList.getAliases(APCO25Talkgroup.create(2)).size(), "Rebuilt index should include edit");
+    }
+
+    @Test
+    void editsAreCoalescedIntoPublishedIndex()
+    {
+        AliasList aliasList = new AliasList("Test Alias List");
+
+        for(int x = 1; x <= 100; x++)
+        {
+            aliasList.addAlias(alias("Alias " + x, x));
+        }
+
+        assertTrue(aliasList.awaitIndex(5000), "Alias index was not rebuilt");
+
+        for(int x = 1; x <= 100; x++)
+        {
+            assertEquals(1, aliasList.getAliases(APCO25Talkgroup.create(x)).size(), "Missing alias " + x);
+        }
+    }
+}
@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- * Copyright (C) 2014-2024 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -36,6 +36,7 @@ import java.util.List;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class P25AliasTest
 {
@@ -57,6 +58,8 @@ public class P25AliasTest
 
         TalkgroupIdentifier talkgroupIdentifier1 = APCO25Talkgroup.create(1);
 
+        assertTrue(aliasList.awaitIndex(5000), "Alias index was not rebuilt");
+
         List<Alias> aliases = aliasList.getAliases(talkgroupIdentifier1);
         assertEquals(1, aliases.size(), "Expected 1 matching alias");
         assertEquals(correctAliasName, aliases.getFirst().getName(), "Unexpected alias name");
@@ -91,6 +94,8 @@ public class P25AliasTest
         //Identifier transmitted over the air that we want to alias
         APCO25FullyQualifiedTalkgroupIdentifier p25FQTG1 = APCO25FullyQualifiedTalkgroupIdentifier.createTo(aliasGroup, wacn, system, originalGroup);
 
+        assertTrue(aliasList.awaitIndex(5000), "Alias index was not rebuilt");
+
         List<Alias> aliases = aliasList.getAliases(p25FQTG1);
         assertEquals(1, aliases.size(), "Expected 1 matching alias");
         assertEquals(correctAliasName, aliases.getFirst().getName(), "Unexpected alias name");
@@ -119,6 +124,8 @@ public class P25AliasTest
         //Identifier transmitted over the air that we want to alias
         APCO25FullyQualifiedTalkgroupIdentifier p25FQTG1 = APCO25FullyQualifiedTalkgroupIdentifier.createTo(aliasGroup, wacn, system, originalGroup);
 
+        assertTrue(aliasList.awaitIndex(5000), "Alias index was not rebuilt");
+
         List<Alias> aliases = aliasList.getAliases(p25FQTG1);
         assertEquals(0, aliases.size(), "Expected 0 matching alias");
     }
@@ -146,6 +153,8 @@ public class P25AliasTest
         //Identifier transmitted over the air that we want to alias
         APCO25FullyQualifiedTalkgroupIdentifier p25FQTG1 = APCO25FullyQualifiedTalkgroupIdentifier.createTo(aliasGroup, wacn, system, originalGroup);
 
+        assertTrue(aliasList.awaitIndex(5000), "Alias index was not rebuilt");
+
         List<Alias> aliases = aliasList.getAliases(p25FQTG1);
         assertEquals(0, aliases.size(), "Expected 0 matching aliases");
     }
@@ -168,6 +177,8 @@ public class P25AliasTest
 
         RadioIdentifier radioIdentifier1 = APCO25RadioIdentifier.createFrom(1);
 
+        assertTrue(aliasList.awaitIndex(5000), "Alias index was not rebuilt");
+
         List<Alias> aliases = aliasList.getAliases(radioIdentifier1);
         assertEquals(1, aliases.size(), "Expected 1 matching alias");
         assertEquals(correctAliasName, aliases.getFirst().getName(), "Unexpected alias name");
@@ -202,6 +213,8 @@ public class P25AliasTest
         //Identifier transmitted over the air that we want to alias
         APCO25FullyQualifiedRadioIdentifier p25FQR1 = APCO25FullyQualifiedRadioIdentifier.createFrom(aliasRadio, wacn, system, originalRadio);
 
+        assertTrue(aliasList.awaitIndex(5000), "Alias index was not rebuilt");
+
         List<Alias> aliases = aliasList.getAliases(p25FQR1);
         assertEquals(1, aliases.size(), "Expected 1 matching alias");
         assertEquals(correctAliasName, aliases.getFirst().getName(), "Unexpected alias name");
@@ -230,6 +243,8 @@ public class P25AliasTest
         //Identifier transmitted over the air that we want to alias
         APCO25FullyQualifiedRadioIdentifier p25FQTG1 = APCO25FullyQualifiedRadioIdentifier.createFrom(aliasRadio, wacn, system, originalRadio);
 
+        assertTrue(aliasList.awaitIndex(5000), "Alias index was not rebuilt");
+
         List<Alias> aliases = aliasList.getAliases(p25FQTG1);
         assertEquals(0, aliases.size(), "Expected 0 matching aliases");
     }
@@ -257,6 +272,8 @@ public class P25AliasTest
         //Identifier transmitted over the air that we want to alias
         APCO25FullyQualifiedRadioIdentifier p25FQTG1 = APCO25FullyQualifiedRadioIdentifier.createFrom(aliasRadio, wacn, system, originalRadio);
 
+        assertTrue(aliasList.awaitIndex(5000), "Alias index was not rebuilt");
+
         List<Alias> aliases = aliasList.getAliases(p25FQTG1);
         assertEquals(0, aliases.size(), "Expected 0 matching aliases");
     }
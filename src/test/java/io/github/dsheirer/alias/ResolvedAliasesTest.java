@@ -0,0 +1,88 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.alias;
+
+import io.github.dsheirer.alias.id.broadcast.BroadcastChannel;
+import io.github.dsheirer.alias.id.priority.Priority;
+import io.github.dsheirer.alias.id.radio.Radio;
+import io.github.dsheirer.alias.id.talkgroup.Talkgroup;
+import io.github.dsheirer.identifier.MutableIdentifierCollection;
+import io.github.dsheirer.module.decode.p25.identifier.radio.APCO25RadioIdentifier;
+import io.github.dsheirer.module.decode.p25.identifier.talkgroup.APCO25Talkgroup;
+import io.github.dsheirer.protocol.Protocol;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the resolved aliases view that is cached on an identifier collection
+ */
+public class ResolvedAliasesTest
+{
+    @Test
+    void resolvedOncePerChange()
+    {
+        AliasList aliasList = new AliasList("Test Alias List");
+
+        Alias talkgroupAlias = new Alias();
+        talkgroupAlias.setName("Talkgroup");
+        talkgroupAlias.setAliasListName("Test Alias List");
+        talkgroupAlias.addAliasID(new Talkgroup(Protocol.APCO25, 100));
+        talkgroupAlias.addAliasID(new BroadcastChannel("Stream 1"));
+        aliasList.addAlias(talkgroupAlias);
+
+        Alias radioAlias = new Alias();
+        radioAlias.setName("Radio");
+        radioAlias.addAliasID(new Radio(Protocol.APCO25, 200));
+        radioAlias.setCallPriority(5);
+        aliasList.addAlias(radioAlias);
+        assertTrue(aliasList.awaitIndex(5000), "Alias index was not rebuilt");
+
+        MutableIdentifierCollection identifiers = new MutableIdentifierCollection();
+        identifiers.update(APCO25Talkgroup.create(100));
+
+        ResolvedAliases first = aliasList.resolve(identifiers);
+        assertSame(first, aliasList.resolve(identifiers), "Expected cached view when nothing changed");
+        assertTrue(first.isStreamable(), "Expected streamable talkgroup alias");
+        assertEquals(1, first.getBroadcastChannels().size());
+        assertEquals(Priority.DEFAULT_PRIORITY, first.getPlaybackPriority());
+        assertEquals(talkgroupAlias, first.getToAliases().getFirst());
+
+        //Identifier change
+        identifiers.update(APCO25RadioIdentifier.createFrom(200));
+        ResolvedAliases second = aliasList.resolve(identifiers);
+        assertNotSame(first, second, "Expected new view after identifier change");
+        assertEquals(5, second.getPlaybackPriority());
+        assertEquals(radioAlias, second.getFromAliases().getFirst());
+
+        //Alias edit
+        talkgroupAlias.setRecordable(true);
+        aliasList.updateAlias(talkgroupAlias);
+        assertTrue(aliasList.awaitIndex(5000), "Alias index was not rebuilt");
+        ResolvedAliases third = aliasList.resolve(identifiers);
+        assertNotSame(second, third, "Expected new view after alias edit");
+        assertTrue(third.isRecordable(), "Expected recordable after alias edit");
+        assertFalse(second.isRecordable(), "Previous view should be unchanged");
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.alias.index;
+
+import io.github.dsheirer.alias.Alias;
+import io.github.dsheirer.protocol.Protocol;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Tests the compiled alias index
+ */
+public class AliasIndexTest
+{
+    private static Alias alias(String name)
+    {
+        Alias alias = new Alias();
+        alias.setName(name);
+        return alias;
+    }
+
+    @Test
+    void valueTakesPrecedenceOverRange()
+    {
+        Alias talkgroup = alias("Talkgroup");
+        Alias range = alias("Range");
+
+        AliasIndex index = new AliasIndex.Builder(1)
+            .talkgroup(Protocol.APCO25, 100, talkgroup)
+            .talkgroupRange(Protocol.APCO25, 1, 65535, range)
+            .build();
+
+        assertSame(talkgroup, index.getTalkgroupAlias(Protocol.APCO25, 100));
+        assertSame(range, index.getTalkgroupAlias(Protocol.APCO25, 101));
+        assertNull(index.getTalkgroupAlias(Protocol.APCO25, 70000), "Expected no alias outside of the range");
+        assertNull(index.getTalkgroupAlias(Protocol.DMR, 100), "Expected no alias for other protocols");
+        assertNull(index.getRadioAlias(Protocol.APCO25, 100), "Expected no radio alias");
+    }
+
+    @Test
+    void narrowestRangeWins()
+    {
+        Alias wide = alias("Wide");
+        Alias narrow = alias("Narrow");
+
+        AliasIndex index = new AliasIndex.Builder(1)
+            .radioRange(Protocol.DMR, 1000, 2000, wide)
+            .radioRange(Protocol.DMR, 1500, 1510, narrow)
+            .build();
+
+        assertSame(wide, index.getRadioAlias(Protocol.DMR, 1499));
+        assertSame(narrow, index.getRadioAlias(Protocol.DMR, 1505));
+        assertSame(wide, index.getRadioAlias(Protocol.DMR, 1511));
+
+        //Repeat lookups for misses are served from the negative lookup cache
+        assertNull(index.getRadioAlias(Protocol.DMR, 999), "Expected no alias below the ranges");
+        assertNull(index.getRadioAlias(Protocol.DMR, 999), "Expected no alias below the ranges");
+    }
+
+    @Test
+    void rangeTreeMatchesLinearSearch()
+    {
+        Random random = new Random(1234);
+        int count = 500;
+        int[] minimums = new int[count];
+        int[] maximums = new int[count];
+        Alias[] aliases = new Alias[count];
+
+        for(int x = 0; x < count; x++)
+        {
+            minimums[x] = random.nextInt(100000);
+            maximums[x] = minimums[x] + x * 7 + random.nextInt(200);
+            aliases[x] = alias("Range " + x);
+        }
+
+        AliasRangeTree tree = AliasRangeTree.create(minimums, maximums, aliases, count);
+
+        for(int value = 0; value < 110000; value += 37)
+        {
+            Alias expected = null;
+            long expectedWidth = Long.MAX_VALUE;
+            int expectedMinimum = Integer.MAX_VALUE;
+
+            for(int x = 0; x < count; x++)
+            {
+                long width = (long)maximums[x] - minimums[x];
+
+                if(minimums[x] <= value && value <= maximums[x] && (width < expectedWidth ||
+                    (width == expectedWidth && minimums[x] < expectedMinimum)))
+                {
+                    expected = aliases[x];
+                    expectedWidth = width;
+                    expectedMinimum = minimums[x];
+                }
+            }
+
+            assertSame(expected, tree.get(value), "Unexpected range match for value " + value);
+        }
+    }
+
+    @Test
+    void intMapHandlesCollisions()
+    {
+        int count = 10000;
+        int[] keys = new int[count];
+        Alias[] aliases = new Alias[count];
+
+        for(int x = 0; x < count; x++)
+        {
+            keys[x] = x * 65536;
+            aliases[x] = alias("Alias " + x);
+        }
+
+        IntAliasMap map = IntAliasMap.create(keys, aliases, count);
+        assertEquals(count, map.size());
+
+        for(int x = 0; x < count; x++)
+        {
+            assertSame(aliases[x], map.get(x * 65536));
+        }
+
+        assertNull(map.get(1), "Expected no alias for an unmapped key");
+    }
+}
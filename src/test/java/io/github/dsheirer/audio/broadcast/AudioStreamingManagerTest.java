@@ -1,6 +1,6 @@
 /*
  * *****************************************************************************
- * Copyright (C) 2014-2024 Dennis Sheirer
+ * Copyright (C) 2014-2025 Dennis Sheirer
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -192,6 +192,7 @@ public class AudioStreamingManagerTest
         talkgroupAlias2.addAliasID(new Talkgroup(Protocol.APCO25, 300));
         talkgroupAlias2.addAliasID(new BroadcastChannel("Stream C"));
         aliasList.addAlias(talkgroupAlias2);
+        aliasList.awaitIndex(5000);
 
         return aliasList;
     }
@@ -0,0 +1,336 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.audio.broadcast.spool;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the persistent upload spool against a local stub HTTP server.
+ */
+public class UploadSpoolTest
+{
+    private static final long MAXIMUM_AGE = 60000;
+
+    @TempDir
+    Path mTempDirectory;
+
+    private HttpServer mServer;
+    private final AtomicInteger mReceived = new AtomicInteger();
+    private final AtomicInteger mActive = new AtomicInteger();
+    private final AtomicInteger mPeakActive = new AtomicInteger();
+    private final AtomicInteger mFailuresRemaining = new AtomicInteger();
+
+    @BeforeEach
+    void startServer() throws IOException
+    {
+        mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        mServer.setExecutor(Executors.newFixedThreadPool(8));
+        mServer.createContext("/upload", exchange -> {
+            int active = mActive.incrementAndGet();
+            mPeakActive.accumulateAndGet(active, Math::max);
+
+            try(InputStream inputStream = exchange.getRequestBody())
+            {
+                inputStream.readAllBytes();
+                Thread.sleep(50);
+            }
+            catch(InterruptedException ie)
+            {
+                Thread.currentThread().interrupt();
+            }
+
+            int status = 200;
+
+            if(mFailuresRemaining.getAndDecrement() > 0)
+            {
+                status = 503;
+            }
+            else
+            {
+                mReceived.incrementAndGet();
+            }
+
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            mActive.decrementAndGet();
+        });
+        mServer.start();
+    }
+
+    @AfterEach
+    void stopServer()
+    {
+        mServer.stop(0);
+    }
+
+    @Test
+    void uploadsWithConcurrencyLimit() throws Exception
+    {
+        int count = 12;
+        StubUploader uploader = new StubUploader(true);
+        UploadSpool spool = new UploadSpool("test", mTempDirectory.resolve("spool"), uploader, 2, MAXIMUM_AGE);
+        CountDownLatch latch = new CountDownLatch(count);
+        spool.setListener(event -> {
+            if(event.getEvent() == SpoolEvent.Event.UPLOADED)
+            {
+                latch.countDown();
+            }
+        });
+        spool.start();
+
+        for(int x = 0; x < count; x++)
+        {
+            assertTrue(spool.offer(createRecording(x), System.currentTimeMillis(), 1000, Map.of("id", "" + x)));
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS), "Spool failed to upload all recordings");
+        assertEquals(count, mReceived.get());
+        assertTrue(mPeakActive.get() <= 2, "Concurrent upload limit exceeded [" + mPeakActive.get() + "]");
+        assertEquals(0, spool.getBacklog());
+        assertEquals(count, spool.getMetrics().getUploaded());
+        assertEquals(count, spool.getMetrics().getUploadLatency().getCount());
+        spool.stop();
+    }
+
+    @Test
+    void pendingUploadsSurviveRestart() throws Exception
+    {
+        Path directory = mTempDirectory.resolve("spool");
+        StubUploader unavailable = new StubUploader(false);
+        UploadSpool spool = new UploadSpool("test", directory, unavailable, 2, MAXIMUM_AGE);
+        spool.start();
+
+        for(int x = 0; x < 3; x++)
+        {
+            assertTrue(spool.offer(createRecording(x), System.currentTimeMillis(), 1000, Map.of("id", "" + x)));
+        }
+
+        assertEquals(3, spool.getBacklog());
+        spool.stop();
+
+        StubUploader available = new StubUploader(true);
+        UploadSpool restarted = new UploadSpool("test", directory, available, 2, MAXIMUM_AGE);
+        CountDownLatch latch = new CountDownLatch(3);
+        restarted.setListener(event -> {
+            if(event.getEvent() == SpoolEvent.Event.UPLOADED)
+            {
+                assertTrue(event.getSpoolEntry().getField("id") != null, "Form fields were not recovered");
+                latch.countDown();
+            }
+        });
+        restarted.start();
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS), "Recovered recordings were not uploaded");
+        assertEquals(3, mReceived.get());
+        restarted.stop();
+
+        try(var files = Files.list(directory))
+        {
+            assertEquals(1, files.count(), "Spool directory should only contain the journal");
+        }
+    }
+
+    @Test
+    void transientFailuresAreRetried() throws Exception
+    {
+        mFailuresRemaining.set(2);
+        StubUploader uploader = new StubUploader(true);
+        UploadSpool spool = new UploadSpool("test", mTempDirectory.resolve("spool"), uploader, 1, MAXIMUM_AGE,
+            10, 100);
+        CountDownLatch latch = new CountDownLatch(1);
+        spool.setListener(event -> {
+            if(event.getEvent() == SpoolEvent.Event.UPLOADED)
+            {
+                latch.countDown();
+            }
+        });
+        spool.start();
+        spool.offer(createRecording(1), System.currentTimeMillis(), 1000, Map.of());
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS), "Recording was not uploaded after retry");
+        assertEquals(2, spool.getMetrics().getRetries());
+        spool.stop();
+    }
+
+    @Test
+    void expiredRecordingsAreAgedOff() throws Exception
+    {
+        StubUploader uploader = new StubUploader(false);
+        UploadSpool spool = new UploadSpool("test", mTempDirectory.resolve("spool"), uploader, 1, MAXIMUM_AGE);
+        CountDownLatch latch = new CountDownLatch(1);
+        spool.setListener(event -> {
+            if(event.getEvent() == SpoolEvent.Event.AGED_OFF)
+            {
+                latch.countDown();
+            }
+        });
+        spool.start();
+        spool.offer(createRecording(1), System.currentTimeMillis() - MAXIMUM_AGE - 1, 1000, Map.of());
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS), "Expired recording was not aged off");
+        assertEquals(0, spool.getBacklog());
+        spool.stop();
+    }
+
+    @Test
+    void signalDispatchesWhenUploaderBecomesAvailable() throws Exception
+    {
+        StubUploader uploader = new StubUploader(false);
+        UploadSpool spool = new UploadSpool("test", mTempDirectory.resolve("spool"), uploader, 1, MAXIMUM_AGE);
+        CountDownLatch latch = new CountDownLatch(1);
+        spool.setListener(event -> {
+            if(event.getEvent() == SpoolEvent.Event.UPLOADED)
+            {
+                latch.countDown();
+            }
+        });
+        spool.start();
+        spool.offer(createRecording(1), System.currentTimeMillis(), 1000, Map.of());
+
+        assertFalse(latch.await(200, TimeUnit.MILLISECONDS), "Recording uploaded while uploader was unavailable");
+        uploader.mAvailable.set(true);
+        spool.signal();
+        assertTrue(latch.await(5, TimeUnit.SECONDS), "Recording was not uploaded after signal");
+        spool.stop();
+    }
+
+    @Test
+    void backlogDrainsWhenUploaderReconnects() throws Exception
+    {
+        StubUploader uploader = new StubUploader(false);
+        UploadSpool spool = new UploadSpool("test", mTempDirectory.resolve("spool"), uploader, 2, MAXIMUM_AGE);
+        CountDownLatch latch = new CountDownLatch(3);
+        spool.setListener(event -> {
+            if(event.getEvent() == SpoolEvent.Event.UPLOADED)
+            {
+                latch.countDown();
+            }
+        });
+        spool.start();
+
+        for(int x = 0; x < 3; x++)
+        {
+            spool.offer(createRecording(x), System.currentTimeMillis(), 1000, Map.of());
+        }
+
+        assertFalse(latch.await(200, TimeUnit.MILLISECONDS), "Recordings uploaded while uploader was unavailable");
+
+        //No signal and no new recordings - the spool has to re-check availability on its own
+        uploader.mAvailable.set(true);
+        assertTrue(latch.await(5, TimeUnit.SECONDS), "Backlog was not drained after the uploader reconnected");
+        assertEquals(0, spool.getBacklog());
+        spool.stop();
+    }
+
+    @Test
+    void offerAfterStopIsRejected() throws Exception
+    {
+        Path directory = mTempDirectory.resolve("spool");
+        UploadSpool spool = new UploadSpool("test", directory, new StubUploader(false), 1, MAXIMUM_AGE);
+        spool.start();
+        spool.stop();
+
+        assertFalse(spool.offer(createRecording(1), System.currentTimeMillis(), 1000, Map.of()),
+            "Stopped spool accepted a recording");
+
+        try(var files = Files.list(directory))
+        {
+            assertEquals(1, files.count(), "Spool directory should only contain the journal");
+        }
+    }
+
+    /**
+     * Creates a small recording file
+     */
+    private Path createRecording(int number) throws IOException
+    {
+        Path path = mTempDirectory.resolve("recording_" + number + ".mp3");
+        Files.write(path, new byte[1024]);
+        return path;
+    }
+
+    /**
+     * Uploader that posts the spooled file to the stub server.
+     */
+    private class StubUploader implements ISpoolUploader
+    {
+        private final AtomicBoolean mAvailable;
+
+        public StubUploader(boolean available)
+        {
+            mAvailable = new AtomicBoolean(available);
+        }
+
+        @Override
+        public boolean isAvailable()
+        {
+            return mAvailable.get();
+        }
+
+        @Override
+        public long getReconnectInterval()
+        {
+            return 100;
+        }
+
+        @Override
+        public CompletableFuture<SpoolResult> upload(SpoolEntry entry, HttpClient httpClient)
+        {
+            try
+            {
+                HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("http://127.0.0.1:" + mServer.getAddress().getPort() + "/upload"))
+                    .POST(HttpRequest.BodyPublishers.ofFile(entry.getPath()))
+                    .build();
+
+                return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .thenApply(response -> response.statusCode() == 200 ? SpoolResult.SUCCESS : SpoolResult.RETRY);
+            }
+            catch(IOException ioe)
+            {
+                return CompletableFuture.completedFuture(SpoolResult.FAILED);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.audio.playback;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests mixing of audio playback tracks
+ */
+public class MixerTrackTest
+{
+    private static final float DUCKING_GAIN = 0.25f;
+
+    @Test
+    void lowerPriorityTrackIsDuckedAndSummed()
+    {
+        MixerTrack high = new MixerTrack(new float[]{0.1f, 0.2f, 0.3f, 0.4f}, 1);
+        MixerTrack low = new MixerTrack(new float[]{0.4f, 0.4f, 0.4f, 0.4f, 0.4f, 0.4f}, 5);
+        float[] accumulator = new float[]{9, 9, 9, 9, 9, 9, 9, 9};
+
+        int mixed = MixerTrack.mix(List.of(high, low), accumulator, 8, DUCKING_GAIN);
+
+        assertEquals(6, mixed, "Mixed length should be the longest available track");
+        assertArrayEquals(new float[]{0.2f, 0.3f, 0.4f, 0.5f, 0.1f, 0.1f, 0, 0}, accumulator, 0.00001f,
+            "Lower priority track should be ducked and summed with the higher priority track");
+        assertTrue(high.isFinished(), "Higher priority track should be finished");
+        assertTrue(low.isFinished(), "Lower priority track should be finished");
+    }
+
+    @Test
+    void partialReadResumesAtTheCursor()
+    {
+        MixerTrack first = new MixerTrack(new float[]{1, 2, 3, 4, 5}, 1);
+        MixerTrack second = new MixerTrack(new float[]{10, 20, 30, 40, 50}, 1);
+        float[] accumulator = new float[3];
+
+        assertEquals(3, MixerTrack.mix(List.of(first, second), accumulator, 3, DUCKING_GAIN),
+            "Partial read should mix the requested length");
+        assertArrayEquals(new float[]{11, 22, 33}, accumulator, 0.00001f,
+            "Equal priority tracks should be summed without ducking");
+        assertFalse(first.isFinished(), "Track should not be finished after a partial read");
+
+        assertEquals(2, MixerTrack.mix(List.of(first, second), accumulator, 3, DUCKING_GAIN),
+            "Second read should mix the remaining samples");
+        assertArrayEquals(new float[]{44, 55, 0}, accumulator, 0.00001f,
+            "Second read should continue from the cursor position of the partial read");
+        assertTrue(first.isFinished(), "Track should be finished once all samples are read");
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.buffer;
+
+import io.github.dsheirer.sample.complex.ComplexSamples;
+import io.github.dsheirer.sample.complex.InterleavedComplexSamples;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Tests the shared, convert-once native buffer wrapper
+ */
+public class ConvertedNativeBufferTest
+{
+    @Test
+    void convertsOncePerBufferForAllConsumers()
+    {
+        CountingNativeBuffer nativeBuffer = new CountingNativeBuffer();
+        ConvertedNativeBuffer converted = new ConvertedNativeBuffer(nativeBuffer);
+
+        ComplexSamples samples = converted.iterator().next();
+        InterleavedComplexSamples interleavedSamples = converted.iteratorInterleaved().next();
+        assertSame(samples, converted.iterator().next(), "Consumers should share the converted samples");
+        assertSame(interleavedSamples, converted.iteratorInterleaved().next(),
+                "Consumers should share the interleaved samples");
+        assertEquals(1, nativeBuffer.mConversions.get(), "Raw samples should only be converted once");
+
+        assertArrayEquals(new float[]{1, 2, 3, 4, 5, 6}, interleavedSamples.samples());
+        assertEquals(20L, interleavedSamples.timestamp());
+    }
+
+    @Test
+    void releaseDropsConvertedSamples()
+    {
+        CountingNativeBuffer nativeBuffer = new CountingNativeBuffer();
+        ConvertedNativeBuffer converted = new ConvertedNativeBuffer(nativeBuffer);
+        ComplexSamples samples = converted.iterator().next();
+        converted.release();
+
+        //After the release, each request converts the raw samples and nothing is cached
+        ComplexSamples first = converted.iterator().next();
+        ComplexSamples second = converted.iterator().next();
+        assertEquals(3, nativeBuffer.mConversions.get(), "Released buffer should not retain converted samples");
+        assertNotSame(samples, first, "Released buffer should convert the samples again");
+        assertNotSame(first, second, "Samples converted after the release should not be cached");
+        assertArrayEquals(samples.i(), second.i(), "Converted samples should be unchanged");
+    }
+
+    /**
+     * Native buffer that counts raw sample conversions
+     */
+    private static class CountingNativeBuffer implements INativeBuffer
+    {
+        private final AtomicInteger mConversions = new AtomicInteger();
+
+        @Override
+        public Iterator<ComplexSamples> iterator()
+        {
+            mConversions.incrementAndGet();
+            return List.of(new ComplexSamples(new float[]{1, 3, 5}, new float[]{2, 4, 6}, 20L)).iterator();
+        }
+
+        @Override
+        public Iterator<InterleavedComplexSamples> iteratorInterleaved()
+        {
+            mConversions.incrementAndGet();
+            return List.of(new InterleavedComplexSamples(new float[]{1, 2, 3, 4, 5, 6}, 20L)).iterator();
+        }
+
+        @Override
+        public int sampleCount()
+        {
+            return 3;
+        }
+
+        @Override
+        public long getTimestamp()
+        {
+            return 20L;
+        }
+    }
+}
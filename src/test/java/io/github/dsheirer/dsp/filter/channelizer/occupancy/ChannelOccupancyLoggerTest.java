@@ -0,0 +1,69 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.dsp.filter.channelizer.occupancy;
+
+import io.github.dsheirer.module.log.AsyncLogWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the channel occupancy logger
+ */
+public class ChannelOccupancyLoggerTest
+{
+    @TempDir
+    Path mDirectory;
+
+    @Test
+    void writesActiveChannelsOnClose() throws Exception
+    {
+        long[] frequencies = new long[]{100000000, 100200000, 100400000};
+        ChannelOccupancyLogger logger = new ChannelOccupancyLogger(OccupancyLogFormat.CSV, mDirectory);
+
+        for(long timestamp = 1000; timestamp < 1500; timestamp += 100)
+        {
+            logger.receive(new ChannelOccupancy(timestamp, 200000.0, frequencies, new float[]{-90.0f, -40.0f, -90.0f},
+                new boolean[]{false, true, false}, -95.0f));
+        }
+
+        logger.close();
+        AsyncLogWriter.closeAll(5000);
+
+        List<Path> files;
+
+        try(Stream<Path> stream = Files.list(mDirectory))
+        {
+            files = stream.toList();
+        }
+
+        assertEquals(1, files.size(), "One log file");
+        assertTrue(files.get(0).getFileName().toString().startsWith("occupancy_100200000_"), "Center frequency name");
+        List<String> lines = Files.readAllLines(files.get(0));
+        assertEquals(2, lines.size(), "Header and one active channel");
+        assertTrue(lines.get(1).startsWith("1000,100200000,"), "Active channel row");
+    }
+}
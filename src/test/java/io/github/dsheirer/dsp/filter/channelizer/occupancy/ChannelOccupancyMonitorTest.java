@@ -0,0 +1,97 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.dsp.filter.channelizer.occupancy;
+
+import io.github.dsheirer.dsp.filter.channelizer.ChannelCalculator;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the channel occupancy monitor
+ */
+public class ChannelOccupancyMonitorTest
+{
+    private static final int CHANNEL_COUNT = 8;
+    private static final int ACTIVE_INDEX = 2;
+
+    @Test
+    void strongChannelIsActive()
+    {
+        ChannelCalculator calculator = new ChannelCalculator(200000.0, CHANNEL_COUNT, 100000000.0, 2.0);
+        ChannelOccupancyMonitor monitor = new ChannelOccupancyMonitor(calculator, 100);
+        List<ChannelOccupancy> snapshots = new ArrayList<>();
+        monitor.addListener(snapshots::add);
+
+        for(long timestamp = 1; timestamp <= 250; timestamp += 10)
+        {
+            List<float[]> results = new ArrayList<>();
+
+            for(int sample = 0; sample < 16; sample++)
+            {
+                float[] channels = new float[CHANNEL_COUNT * 2];
+
+                for(int channel = 0; channel < CHANNEL_COUNT; channel++)
+                {
+                    float amplitude = channel == ACTIVE_INDEX ? 1.0f : 0.01f;
+                    channels[2 * channel] = amplitude * (float)Math.cos(sample);
+                    channels[2 * channel + 1] = amplitude * (float)Math.sin(sample);
+                }
+
+                results.add(channels);
+            }
+
+            monitor.receiveChannelResults(results, timestamp);
+        }
+
+        assertEquals(2, snapshots.size());
+        ChannelOccupancy occupancy = monitor.getLatest();
+        assertNotNull(occupancy);
+        assertEquals(1, occupancy.getActiveCount());
+
+        long activeFrequency = (long)calculator.getIndexCenterFrequency(ACTIVE_INDEX,
+            ChannelCalculator.IndexBoundaryPolicy.ADJUST_NEGATIVE);
+
+        for(int x = 0; x < occupancy.getChannelCount(); x++)
+        {
+            if(x > 0)
+            {
+                assertTrue(occupancy.frequencies()[x] > occupancy.frequencies()[x - 1], "Frequencies are ascending");
+            }
+
+            if(occupancy.frequencies()[x] == activeFrequency)
+            {
+                assertTrue(occupancy.active()[x]);
+                assertEquals(0.0f, occupancy.powerDb()[x], 0.1f);
+            }
+            else
+            {
+                assertFalse(occupancy.active()[x]);
+            }
+        }
+
+        assertEquals(-40.0f, occupancy.noiseFloorDb(), 0.1f);
+    }
+}
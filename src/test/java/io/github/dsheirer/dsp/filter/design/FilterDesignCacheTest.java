@@ -0,0 +1,95 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.dsp.filter.design;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests the process-wide filter design cache
+ */
+public class FilterDesignCacheTest
+{
+    private static final float[] TAPS = new float[]{0.1f, 0.2f, 0.4f, 0.2f, 0.1f};
+
+    @TempDir
+    Path mTempDirectory;
+
+    @AfterEach
+    void reset()
+    {
+        FilterDesignCache.getInstance().setStorageDirectory(null);
+        FilterDesignCache.getInstance().clear();
+    }
+
+    @Test
+    void designsOncePerKey() throws Exception
+    {
+        FilterDesignCache cache = FilterDesignCache.getInstance();
+        AtomicInteger designs = new AtomicInteger();
+
+        float[] first = cache.get("test:memory", () -> {
+            designs.incrementAndGet();
+            return TAPS.clone();
+        });
+        float[] second = cache.get("test:memory", () -> {
+            designs.incrementAndGet();
+            return TAPS.clone();
+        });
+
+        assertEquals(1, designs.get());
+        assertArrayEquals(TAPS, second);
+        assertNotSame(first, second, "Cache should return copies of the cached design");
+    }
+
+    @Test
+    void invalidDesignsAreNotCached() throws Exception
+    {
+        FilterDesignCache cache = FilterDesignCache.getInstance();
+        assertNull(cache.get("test:invalid", () -> null));
+        assertArrayEquals(TAPS, cache.get("test:invalid", TAPS::clone));
+    }
+
+    @Test
+    void designsArePersistedAndPreloaded() throws Exception
+    {
+        FilterDesignCache cache = FilterDesignCache.getInstance();
+        cache.setStorageDirectory(mTempDirectory);
+        cache.get("test:persisted", TAPS::clone);
+
+        //Simulate an application restart
+        cache.clear();
+        assertEquals(1, cache.preload());
+
+        float[] preloaded = cache.get("test:persisted", () -> {
+            throw new FilterDesignException("Design should have been preloaded");
+        });
+
+        assertArrayEquals(TAPS, preloaded);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.dsp.mixer;
+
+import io.github.dsheirer.sample.complex.ComplexSamples;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests the fused mixer and half-band decimator against a direct mix-then-convolve reference implementation.
+ */
+public class MixingHalfBandDecimatorTest
+{
+    private static final double SAMPLE_RATE = 2_400_000.0;
+    private static final double FREQUENCY = -312_500.0;
+    private static final float TOLERANCE = 1E-4f;
+
+    /**
+     * Windowed-sinc half-band filter with zero-valued odd index coefficients and a 0.5 center coefficient
+     */
+    private static float[] getHalfBand(int length)
+    {
+        float[] coefficients = new float[length];
+        int center = length / 2;
+
+        for(int x = 0; x < length; x++)
+        {
+            int n = x - center;
+
+            if(n == 0)
+            {
+                coefficients[x] = 0.5f;
+            }
+            else if(n % 2 != 0)
+            {
+                double window = 0.54 - 0.46 * Math.cos(2.0 * Math.PI * x / (length - 1));
+                coefficients[x] = (float)(Math.sin(Math.PI * n / 2.0) / (Math.PI * n) * window);
+            }
+        }
+
+        return coefficients;
+    }
+
+    @Test
+    void matchesMixThenDecimate()
+    {
+        float[] coefficients = getHalfBand(23);
+        MixingHalfBandDecimator decimator = new MixingHalfBandDecimator(FREQUENCY, SAMPLE_RATE, coefficients);
+        Random random = new Random(1);
+
+        //Odd buffer lengths exercise the scalar tail of the vector mixing loop
+        int[] lengths = new int[]{2048, 2048, 1030, 4096};
+        int total = 0;
+
+        for(int length: lengths)
+        {
+            total += length;
+        }
+
+        float[] i = new float[total];
+        float[] q = new float[total];
+
+        for(int x = 0; x < total; x++)
+        {
+            i[x] = random.nextFloat() * 2.0f - 1.0f;
+            q[x] = random.nextFloat() * 2.0f - 1.0f;
+        }
+
+        //Reference: mix with a double precision oscillator and convolve with the zero-padded delay line
+        double anglePerSample = 2.0 * Math.PI * FREQUENCY / SAMPLE_RATE;
+        int overlap = coefficients.length - 1;
+        double[] iMixed = new double[total + overlap];
+        double[] qMixed = new double[total + overlap];
+
+        for(int x = 0; x < total; x++)
+        {
+            double cos = Math.cos(anglePerSample * x);
+            double sin = Math.sin(anglePerSample * x);
+            iMixed[overlap + x] = cos * i[x] - sin * q[x];
+            qMixed[overlap + x] = sin * i[x] + cos * q[x];
+        }
+
+        int offset = 0;
+
+        for(int length: lengths)
+        {
+            float[] iChunk = new float[length];
+            float[] qChunk = new float[length];
+            System.arraycopy(i, offset, iChunk, 0, length);
+            System.arraycopy(q, offset, qChunk, 0, length);
+            ComplexSamples decimated = decimator.process(iChunk, qChunk, offset);
+
+            assertEquals(length / 2, decimated.i().length);
+
+            for(int x = 0; x < decimated.i().length; x++)
+            {
+                double iExpected = 0.0;
+                double qExpected = 0.0;
+                int start = offset + x * 2;
+
+                for(int tap = 0; tap < coefficients.length; tap++)
+                {
+                    iExpected += coefficients[tap] * iMixed[start + tap];
+                    qExpected += coefficients[tap] * qMixed[start + tap];
+                }
+
+                assertEquals(iExpected, decimated.i()[x], TOLERANCE);
+                assertEquals(qExpected, decimated.q()[x], TOLERANCE);
+            }
+
+            offset += length;
+        }
+    }
+
+    @Test
+    void mixesWithoutDecimation()
+    {
+        MixingHalfBandDecimator decimator = new MixingHalfBandDecimator(FREQUENCY, SAMPLE_RATE, null);
+        float[] i = new float[100];
+        float[] q = new float[100];
+        Arrays.fill(i, 1.0f);
+
+        ComplexSamples mixed = decimator.process(i, q, 0);
+        double anglePerSample = 2.0 * Math.PI * FREQUENCY / SAMPLE_RATE;
+
+        assertEquals(100, mixed.i().length);
+
+        for(int x = 0; x < 100; x++)
+        {
+            assertEquals(Math.cos(anglePerSample * x), mixed.i()[x], TOLERANCE);
+            assertEquals(Math.sin(anglePerSample * x), mixed.q()[x], TOLERANCE);
+        }
+    }
+}
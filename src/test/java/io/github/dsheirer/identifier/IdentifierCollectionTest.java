@@ -0,0 +1,84 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.identifier;
+
+import io.github.dsheirer.module.decode.p25.identifier.radio.APCO25RadioIdentifier;
+import io.github.dsheirer.module.decode.p25.identifier.talkgroup.APCO25Talkgroup;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the indexed identifier collection
+ */
+public class IdentifierCollectionTest
+{
+    @Test
+    void indexedAccessors()
+    {
+        MutableIdentifierCollection collection = new MutableIdentifierCollection();
+        Identifier talkgroup = APCO25Talkgroup.create(100);
+        Identifier radio = APCO25RadioIdentifier.createFrom(200);
+        collection.update(talkgroup);
+        collection.update(radio);
+
+        assertSame(talkgroup, collection.getToIdentifier());
+        assertSame(radio, collection.getFromIdentifier());
+        assertSame(talkgroup, collection.getIdentifier(IdentifierClass.USER, Form.TALKGROUP, Role.TO));
+        assertNull(collection.getIdentifier(IdentifierClass.USER, Form.TALKGROUP, Role.FROM), "Expected no match");
+        assertEquals(List.of(radio), collection.getIdentifiers(Role.FROM));
+        assertEquals(2, collection.getIdentifiers(IdentifierClass.USER).size());
+        assertTrue(collection.getIdentifiers(Form.PATCH_GROUP).isEmpty(), "Expected no patch groups");
+    }
+
+    @Test
+    void updateReplacesAndSnapshotsAreStable()
+    {
+        MutableIdentifierCollection collection = new MutableIdentifierCollection();
+        collection.update(APCO25Talkgroup.create(100));
+        collection.update(APCO25RadioIdentifier.createFrom(200));
+
+        IdentifierCollection snapshot = collection.copyOf();
+        int modificationCount = collection.getModificationCount();
+
+        Identifier replacement = APCO25Talkgroup.create(101);
+        collection.update(replacement);
+
+        assertEquals(2, collection.getIdentifiers().size());
+        assertSame(replacement, collection.getToIdentifier());
+        assertTrue(collection.getModificationCount() > modificationCount, "Expected modification count change");
+
+        //The snapshot is unaffected by the update
+        assertEquals(100, snapshot.getToIdentifier().getValue());
+        assertEquals(2, snapshot.getIdentifiers().size());
+
+        //Updating with an equal identifier doesn't change the collection
+        modificationCount = collection.getModificationCount();
+        collection.update(APCO25Talkgroup.create(101));
+        assertEquals(modificationCount, collection.getModificationCount());
+
+        collection.remove(IdentifierClass.USER);
+        assertTrue(collection.isEmpty(), "Expected empty collection after removing the user identifiers");
+    }
+}
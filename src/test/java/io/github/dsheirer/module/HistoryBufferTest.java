@@ -0,0 +1,143 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.module;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the fixed capacity history buffer
+ */
+public class HistoryBufferTest
+{
+    @Test
+    void evictsOldestItems()
+    {
+        HistoryBuffer<Integer> buffer = new HistoryBuffer<>(100);
+        List<Integer> evicted = new ArrayList<>();
+        buffer.setEvictionListener(evicted::add);
+
+        for(int x = 0; x < 250; x++)
+        {
+            buffer.add(Integer.valueOf(x + 1000));
+        }
+
+        List<Integer> snapshot = buffer.snapshot();
+        assertEquals(100, snapshot.size(), "Snapshot should contain the capacity");
+        assertEquals(150, evicted.size(), "Evicted items should be passed to the listener");
+
+        for(int x = 0; x < 100; x++)
+        {
+            assertEquals(x + 1150, snapshot.get(x).intValue(), "Snapshot should be ordered oldest to newest");
+        }
+    }
+
+    @Test
+    void deduplicatesByIdentity()
+    {
+        HistoryBuffer<String> buffer = new HistoryBuffer<>(4);
+        String item = new String("item");
+
+        assertTrue(buffer.add(item), "First add should succeed");
+        assertFalse(buffer.add(item), "Same instance should be rejected");
+        assertTrue(buffer.add(new String("item")), "Equal but distinct instance should be added");
+        assertEquals(2, buffer.size());
+
+        //Once evicted, the item can be added again
+        for(int x = 0; x < 4; x++)
+        {
+            buffer.add("filler" + x);
+        }
+
+        assertFalse(buffer.contains(item), "Evicted item should not be retained");
+        assertTrue(buffer.add(item), "Evicted item should be accepted again");
+    }
+
+    @Test
+    void snapshotsAreStable()
+    {
+        HistoryBuffer<String> buffer = new HistoryBuffer<>(3);
+        buffer.add("a");
+        buffer.add("b");
+        List<String> snapshot = buffer.snapshot();
+
+        buffer.add("c");
+        buffer.add("d");
+        buffer.clear();
+
+        assertEquals(List.of("a", "b"), snapshot, "Snapshot should not change after the history changes");
+        assertTrue(buffer.snapshot().isEmpty(), "Cleared history should have an empty snapshot");
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add("e"));
+    }
+
+    @Test
+    void addsAfterClear()
+    {
+        HistoryBuffer<Integer> buffer = new HistoryBuffer<>(100);
+
+        for(int x = 0; x < 150; x++)
+        {
+            buffer.add(Integer.valueOf(x + 1000));
+        }
+
+        List<Integer> before = buffer.snapshot();
+        buffer.clear();
+
+        for(int x = 0; x < 130; x++)
+        {
+            buffer.add(Integer.valueOf(x + 2000));
+        }
+
+        List<Integer> snapshot = buffer.snapshot();
+        assertEquals(100, snapshot.size(), "Snapshot should contain the capacity after clear");
+
+        for(int x = 0; x < 100; x++)
+        {
+            assertEquals(x + 2030, snapshot.get(x).intValue(), "Snapshot should be ordered oldest to newest");
+        }
+
+        assertEquals(1050, before.get(0).intValue(), "Snapshot taken before clear should not change");
+    }
+
+    @Test
+    void evictAllPassesRetainedItemsToListener()
+    {
+        HistoryBuffer<Integer> buffer = new HistoryBuffer<>(10);
+        List<Integer> evicted = new ArrayList<>();
+        buffer.setEvictionListener(evicted::add);
+
+        for(int x = 0; x < 15; x++)
+        {
+            buffer.add(Integer.valueOf(x + 1000));
+        }
+
+        buffer.evictAll();
+
+        assertEquals(15, evicted.size(), "All items should be passed to the listener");
+        assertEquals(1014, evicted.get(14).intValue(), "Retained items should be evicted oldest to newest");
+        assertEquals(0, buffer.size(), "History should be empty after evicting all items");
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+
+package io.github.dsheirer.module.decode.event;
+
+import io.github.dsheirer.identifier.MutableIdentifierCollection;
+import io.github.dsheirer.module.decode.p25.identifier.radio.APCO25RadioIdentifier;
+import io.github.dsheirer.module.decode.p25.identifier.talkgroup.APCO25Talkgroup;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the time bucketed duplicate event detector
+ */
+public class DecodeEventDuplicateDetectorTest
+{
+    private static IDecodeEvent event(DecodeEventType type, int talkgroup, int radio, String details, long timestamp)
+    {
+        MutableIdentifierCollection identifiers = new MutableIdentifierCollection();
+        identifiers.update(APCO25Talkgroup.create(talkgroup));
+        identifiers.update(APCO25RadioIdentifier.createFrom(radio));
+        return DecodeEvent.builder(type, timestamp).identifiers(identifiers).details(details).build();
+    }
+
+    @Test
+    void detectsDuplicatesWithinWindow()
+    {
+        DecodeEventDuplicateDetector detector = new DecodeEventDuplicateDetector();
+        long now = 1_000_000_000l;
+
+        assertFalse(detector.isDuplicate(event(DecodeEventType.STATUS, 100, 200, "STATUS 1", now), now),
+                "First event should not be a duplicate");
+        assertTrue(detector.isDuplicate(event(DecodeEventType.STATUS, 100, 200, "STATUS 1", now), now + 1000),
+                "Same event from another receiver should be a duplicate");
+        assertFalse(detector.isDuplicate(event(DecodeEventType.STATUS, 100, 201, "STATUS 1", now), now + 1000),
+                "Event from a different radio should not be a duplicate");
+        assertFalse(detector.isDuplicate(event(DecodeEventType.STATUS, 100, 200, "STATUS 2", now), now + 1000),
+                "Event with different details should not be a duplicate");
+        assertFalse(detector.isDuplicate(event(DecodeEventType.CALL_GROUP, 100, 200, "STATUS 1", now), now + 1000),
+                "Voice call events should not be tracked");
+        assertFalse(detector.isDuplicate(event(DecodeEventType.STATUS, 100, 200, "STATUS 1", now), now + 120000),
+                "Event should not be a duplicate after the window expires");
+        assertEquals(1, detector.getTrackedCount(), "Expired signatures should be removed");
+    }
+
+    @Test
+    void detectsDuplicatesWithEmptyDetails()
+    {
+        DecodeEventDuplicateDetector detector = new DecodeEventDuplicateDetector();
+        long now = 1_000_000_000l;
+
+        assertFalse(detector.isDuplicate(event(DecodeEventType.STATUS, 100, 200, "", now), now),
+                "First event should not be a duplicate");
+        assertTrue(detector.isDuplicate(event(DecodeEventType.STATUS, 100, 200, "", now), now + 1000),
+                "Same event with empty details should be a duplicate");
+        assertFalse(detector.isDuplicate(event(DecodeEventType.STATUS, 100, 201, "", now), now + 1000),
+                "Event with empty details from a different radio should not be a duplicate");
+    }
+
+    @Test
+    void eventsWithCollidingHashCodesAreNotDuplicates()
+    {
+        DecodeEventDuplicateDetector detector = new DecodeEventDuplicateDetector();
+        long now = 1_000_000_000l;
+
+        //"Aa" and "BB" have the same String hash code
+        assertFalse(detector.isDuplicate(event(DecodeEventType.STATUS, 100, 200, "Aa", now), now),
+                "First event should not be a duplicate");
+        assertFalse(detector.isDuplicate(event(DecodeEventType.STATUS, 100, 200, "BB", now), now + 1000),
+                "Event with different details and the same details hash code should not be a duplicate");
+        assertEquals(2, detector.getTrackedCount(), "Both events should be tracked");
+    }
+
+    @Test
+    void tracksDuplicateRatePerSource()
+    {
+        DecodeEventDuplicateDetector detector = new DecodeEventDuplicateDetector();
+        long now = 1_000_000_000l;
+
+        for(int x = 0; x < 4; x++)
+        {
+            detector.isDuplicate(event(DecodeEventType.STATUS, 100, 200, "STATUS", now), now);
+        }
+
+        assertEquals(1, detector.getSourceStatistics().size(), "Events without a channel name share one source");
+        assertEquals(0.75, detector.getSourceStatistics().get(0).getDuplicateRate(), 0.001,
+                "Three of four events should be duplicates");
+    }
+}
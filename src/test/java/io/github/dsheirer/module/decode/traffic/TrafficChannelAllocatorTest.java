@@ -0,0 +1,161 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+
+package io.github.dsheirer.module.decode.traffic;
+
+import io.github.dsheirer.controller.channel.Channel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the traffic channel allocator
+ */
+public class TrafficChannelAllocatorTest
+{
+    @Test
+    void allocatesAndReleasesChannels()
+    {
+        TrafficChannelAllocator allocator = new TrafficChannelAllocator("test");
+        Queue<Channel> pool = new ConcurrentLinkedQueue<>();
+        Channel channel1 = new Channel("1");
+        Channel channel2 = new Channel("2");
+        pool.add(channel1);
+        pool.add(channel2);
+
+        assertSame(channel1, allocator.allocate(851000000l, pool), "First pooled channel should be allocated");
+        assertNull(allocator.allocate(851000000l, pool), "Allocated frequency should not be allocated twice");
+        assertSame(channel2, allocator.allocate(852000000l, pool), "Second pooled channel should be allocated");
+        assertNull(allocator.allocate(853000000l, pool), "Empty pool should not allocate a channel");
+        assertEquals(1, allocator.getPoolExhaustedCount(), "Pool exhaustion should be counted");
+
+        assertEquals(851000000l, allocator.release(channel1, pool).longValue(), "Release should return the frequency");
+        assertNull(allocator.release(channel1, pool), "Released channel should not be released twice");
+        assertEquals(1, pool.size(), "Released channel should be returned to the pool");
+        assertSame(channel1, allocator.allocate(853000000l, pool), "Released channel should be reused");
+        assertEquals(3, allocator.getAllocationCount(), "Allocations should be counted");
+    }
+
+    @Test
+    void reservedFrequencyIsNotAllocated()
+    {
+        TrafficChannelAllocator allocator = new TrafficChannelAllocator("test");
+        Queue<Channel> pool = new ConcurrentLinkedQueue<>();
+        pool.add(new Channel("traffic"));
+        Channel control = new Channel("control");
+
+        allocator.lockAll();
+
+        try
+        {
+            allocator.reserve(851000000l, control);
+        }
+        finally
+        {
+            allocator.unlockAll();
+        }
+
+        assertTrue(allocator.isAllocated(851000000l), "Reserved frequency should be allocated");
+        assertNull(allocator.allocate(851000000l, pool), "Reserved frequency should not be allocated");
+        assertEquals(1, pool.size(), "Pooled channel should not be consumed");
+        assertNotNull(allocator.getFrequency(control), "Reserved channel should be found");
+        assertEquals(1, allocator.getAllocatedFrequencies().size(), "One frequency should be allocated");
+    }
+
+    @Test
+    void concurrentAllocateAndReleaseDoesNotDoubleAllocate() throws Exception
+    {
+        TrafficChannelAllocator allocator = new TrafficChannelAllocator("test");
+        Queue<Channel> pool = new ConcurrentLinkedQueue<>();
+        List<Channel> channels = new ArrayList<>();
+
+        for(int x = 0; x < 4; x++)
+        {
+            Channel channel = new Channel("traffic" + x);
+            channels.add(channel);
+            pool.add(channel);
+        }
+
+        Set<Channel> inUse = ConcurrentHashMap.newKeySet();
+        AtomicInteger doubleAllocations = new AtomicInteger();
+        int threadCount = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threadCount);
+
+        for(int t = 0; t < threadCount; t++)
+        {
+            long frequency = 851000000l + (t * 12500);
+
+            new Thread(() -> {
+                try
+                {
+                    start.await();
+
+                    for(int x = 0; x < 20000; x++)
+                    {
+                        Channel channel = allocator.allocate(frequency, pool);
+
+                        if(channel != null)
+                        {
+                            if(!inUse.add(channel))
+                            {
+                                doubleAllocations.incrementAndGet();
+                            }
+
+                            inUse.remove(channel);
+                            allocator.release(channel, pool);
+                        }
+                    }
+                }
+                catch(InterruptedException ie)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                finally
+                {
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        start.countDown();
+        done.await();
+
+        assertEquals(0, doubleAllocations.get(), "A channel should never be allocated to two frequencies");
+        assertTrue(allocator.getAllocatedChannels().isEmpty(), "All channels should be released");
+        assertEquals(channels.size(), pool.size(), "Each channel should be pooled once");
+        assertEquals(channels.size(), new HashSet<>(pool).size(), "Pool should not contain duplicate channels");
+        assertNull(allocator.release(channels.get(0), pool), "Released channel should not be pooled again");
+        assertEquals(channels.size(), pool.size(), "Repeated release should not add the channel to the pool");
+    }
+}
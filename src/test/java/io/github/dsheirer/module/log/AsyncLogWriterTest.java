@@ -0,0 +1,156 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+
+package io.github.dsheirer.module.log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the asynchronous log writer
+ */
+public class AsyncLogWriterTest
+{
+    @TempDir
+    Path mDirectory;
+
+    private Supplier<Path> paths()
+    {
+        AtomicInteger counter = new AtomicInteger();
+        return () -> mDirectory.resolve("log_" + counter.incrementAndGet() + ".log");
+    }
+
+    private List<Path> files(String suffix) throws IOException
+    {
+        try(Stream<Path> stream = Files.list(mDirectory))
+        {
+            return stream.filter(path -> path.toString().endsWith(suffix)).sorted().toList();
+        }
+    }
+
+    @Test
+    void writesHeaderAndLines() throws Exception
+    {
+        AsyncLogWriter writer = new AsyncLogWriter(paths(), "HEADER");
+        writer.start();
+
+        for(int x = 0; x < 1000; x++)
+        {
+            writer.write("line " + x);
+        }
+
+        writer.close().get(5, TimeUnit.SECONDS);
+
+        List<String> lines = Files.readAllLines(mDirectory.resolve("log_1.log"));
+        assertEquals(1001, lines.size(), "Header and all lines should be written");
+        assertEquals("HEADER", lines.get(0), "Header should be the first line");
+        assertEquals("line 999", lines.get(1000), "Lines should be written in order");
+    }
+
+    @Test
+    void createsLogFileAtStartWithNewlineTerminators() throws Exception
+    {
+        AsyncLogWriter writer = new AsyncLogWriter(paths(), "HEADER");
+        writer.start();
+        Path path = mDirectory.resolve("log_1.log");
+        long timeout = System.currentTimeMillis() + 5000;
+
+        while(!Files.exists(path) && System.currentTimeMillis() < timeout)
+        {
+            Thread.sleep(10);
+        }
+
+        assertTrue(Files.exists(path), "Log file should be created when the writer starts");
+
+        writer.write("line");
+        writer.close().get(5, TimeUnit.SECONDS);
+        assertEquals("HEADER\nline\n", Files.readString(path), "Lines should be terminated with a newline");
+    }
+
+    @Test
+    void rotatesAndCompressesBySize() throws Exception
+    {
+        AsyncLogWriter writer = new AsyncLogWriter(paths(), "HEADER");
+        writer.setRotation(1000, 0, true);
+        writer.start();
+
+        for(int x = 0; x < 500; x++)
+        {
+            writer.write("0123456789 " + x);
+        }
+
+        writer.close().get(5, TimeUnit.SECONDS);
+
+        assertTrue(files(".log").isEmpty(), "Closed log files should be compressed");
+        List<Path> compressed = files(".gz");
+        assertTrue(compressed.size() > 5, "Log should be rotated when it exceeds the maximum size");
+
+        int lineCount = 0;
+
+        for(Path path: compressed)
+        {
+            try(InputStream in = new GZIPInputStream(Files.newInputStream(path)))
+            {
+                String[] lines = new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\\R");
+                assertEquals("HEADER", lines[0], "Each rotated log should start with the header");
+                lineCount += lines.length - 1;
+            }
+        }
+
+        assertEquals(500, lineCount, "All lines should be written across the rotated logs");
+    }
+
+    @Test
+    void closeAllWaitsForClosedWriters() throws Exception
+    {
+        AsyncLogWriter running = new AsyncLogWriter(() -> mDirectory.resolve("running.log"), null);
+        AsyncLogWriter closed = new AsyncLogWriter(() -> mDirectory.resolve("closed.log"), null);
+        running.start();
+        closed.start();
+
+        for(int x = 0; x < 1000; x++)
+        {
+            running.write("line " + x);
+            closed.write("line " + x);
+        }
+
+        closed.close();
+        AsyncLogWriter.closeAll(5000);
+
+        assertEquals(1000, Files.readAllLines(mDirectory.resolve("running.log")).size(),
+                "Running writer should be closed with all lines written");
+        assertEquals(1000, Files.readAllLines(mDirectory.resolve("closed.log")).size(),
+                "Closed writer should finish writing all lines");
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+
+package io.github.dsheirer.module.log.store;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests the segment based decode event store
+ */
+public class EventStoreTest
+{
+    @TempDir
+    Path mDirectory;
+
+    private static EventRecord record(long timestamp, long duration, String talkgroup, String radio, int eventId)
+    {
+        return new EventRecord(timestamp, duration, "APCO-25", "Group Call", radio, talkgroup, talkgroup, radio,
+                null, "BEE00", "1", "1-100", 851000000l, 0, null, eventId);
+    }
+
+    @Test
+    void queriesByTalkgroupRadioAndTime() throws Exception
+    {
+        EventStore store = new EventStore(mDirectory, false);
+        store.setSegmentLimits(4096, Long.MAX_VALUE);
+        store.open();
+
+        for(int x = 0; x < 1000; x++)
+        {
+            store.add(record(x * 1000l, 500, String.valueOf(x % 10), String.valueOf(x % 7), x));
+
+            if(x % 50 == 0)
+            {
+                store.flush();
+            }
+        }
+
+        store.flush();
+        assertEquals(true, store.getSegmentCount() > 1, "Segments should roll at the maximum size");
+
+        List<EventRecord> talkgroup = store.query(EventQuery.builder().talkgroup("3").build());
+        assertEquals(100, talkgroup.size(), "Every tenth event should match the talkgroup");
+        assertEquals(993000l, talkgroup.get(0).timestamp(), "Results should be ordered newest first");
+
+        List<EventRecord> combined = store.query(EventQuery.builder().talkgroup("3").radio("0")
+                .start(0).end(500000).build());
+        assertEquals(7, combined.size(), "Talkgroup, radio and time criteria should be combined");
+
+        assertEquals(5, store.query(EventQuery.builder().limit(5).build()).size(), "Results should be limited");
+        store.close();
+
+        EventStore reopened = new EventStore(mDirectory, true);
+        reopened.open();
+        assertEquals(100, reopened.query(EventQuery.builder().talkgroup("3").build()).size(),
+                "Reopened store should return the same events");
+        reopened.close();
+    }
+
+    @Test
+    void compactionAndRetention() throws Exception
+    {
+        EventStore store = new EventStore(mDirectory, false);
+        store.setSegmentLimits(1, Long.MAX_VALUE);
+        store.open();
+
+        //Each flush creates a new segment, with 3 versions of each event across the segments
+        for(int version = 1; version <= 3; version++)
+        {
+            for(int x = 0; x < 10; x++)
+            {
+                store.add(record(x * 1000l, version * 100, "1", "2", x));
+            }
+
+            store.flush();
+        }
+
+        store.close();
+        assertEquals(30, countAll(mDirectory), "Raw store should hold all versions");
+
+        store = new EventStore(mDirectory, false);
+        store.setSegmentLimits(1024 * 1024, Long.MAX_VALUE);
+        store.open();
+        assertEquals(3, store.getSegmentCount(), "Each flush should have created a segment");
+        assertEquals(2, store.compact(), "Small segments should be compacted into one");
+        assertEquals(1, store.getSegmentCount(), "One segment should remain");
+
+        List<EventRecord> records = store.query(EventQuery.builder().build());
+        assertEquals(10, records.size(), "Query should return one version per event");
+        assertEquals(300, records.get(0).duration(), "Query should return the latest version");
+
+        assertEquals(0, store.applyRetention(5000), "Segment with recent events should be retained");
+        assertEquals(1, store.applyRetention(100000), "Segment with only old events should be deleted");
+        assertEquals(0, store.query(EventQuery.builder().build()).size(), "Store should be empty");
+        store.close();
+    }
+
+    @Test
+    void compactionDoesNotSpanMoreThanSegmentAge() throws Exception
+    {
+        EventStore store = new EventStore(mDirectory, false);
+        store.setSegmentLimits(1, Long.MAX_VALUE);
+        store.open();
+
+        //Three segments, one hour apart
+        for(int segment = 0; segment < 3; segment++)
+        {
+            for(int x = 0; x < 10; x++)
+            {
+                store.add(record((segment * 3600000l) + (x * 1000l), 100, "1", "2", (segment * 10) + x));
+            }
+
+            store.flush();
+        }
+
+        store.close();
+
+        store = new EventStore(mDirectory, false);
+        store.setSegmentLimits(1024 * 1024, 5400000l);
+        store.open();
+        assertEquals(1, store.compact(), "Only the first two segments fit within the segment age");
+        assertEquals(2, store.getSegmentCount(), "Last segment should not be merged");
+        assertEquals(1, store.applyRetention(3700000l), "Merged segment should age out with its events");
+        assertEquals(10, store.query(EventQuery.builder().build()).size(), "Newest events should be retained");
+        store.close();
+    }
+
+    @Test
+    void appendsAndQueriesContinueDuringCompaction() throws Exception
+    {
+        EventStore store = new EventStore(mDirectory, false);
+        store.setSegmentLimits(1, Long.MAX_VALUE);
+        store.open();
+
+        for(int segment = 0; segment < 50; segment++)
+        {
+            for(int x = 0; x < 100; x++)
+            {
+                store.add(record(x * 1000l, segment, "1", "2", x));
+            }
+
+            store.flush();
+        }
+
+        store.setSegmentLimits(64 * 1024 * 1024, Long.MAX_VALUE);
+        CompletableFuture<Integer> compaction = CompletableFuture.supplyAsync(() -> {
+            try
+            {
+                return store.compact();
+            }
+            catch(Exception e)
+            {
+                throw new RuntimeException(e);
+            }
+        });
+
+        for(int x = 0; x < 100; x++)
+        {
+            store.add(record(200000l + x, 0, "3", "4", 1000 + x));
+            store.flush();
+            assertEquals(100, store.query(EventQuery.builder().talkgroup("1").build()).size(),
+                    "Queries should see one version per event while compacting");
+        }
+
+        compaction.get(10, TimeUnit.SECONDS);
+        assertEquals(0, store.compact(), "Compaction should leave no mergeable runs");
+        assertEquals(2, store.getSegmentCount(), "Compacted segments plus the active segment should remain");
+
+        List<EventRecord> records = store.query(EventQuery.builder().talkgroup("1").build());
+        assertEquals(100, records.size(), "Query should return one version per event");
+        assertEquals(49, records.get(0).duration(), "Query should return the latest version");
+        assertEquals(100, store.query(EventQuery.builder().talkgroup("3").build()).size(),
+                "Events appended during compaction should be retained");
+        store.close();
+    }
+
+    private static int countAll(Path directory) throws Exception
+    {
+        int count = 0;
+
+        for(long sequence = 0; sequence < 3; sequence++)
+        {
+            Segment segment = Segment.open(directory, sequence, true);
+            count += segment.getCount();
+            segment.close();
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.playlist;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.xml.JacksonXmlModule;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import io.github.dsheirer.alias.Alias;
+import io.github.dsheirer.alias.action.beep.BeepAction;
+import io.github.dsheirer.alias.id.priority.Priority;
+import io.github.dsheirer.alias.id.radio.Radio;
+import io.github.dsheirer.alias.id.record.Record;
+import io.github.dsheirer.alias.id.talkgroup.Talkgroup;
+import io.github.dsheirer.controller.channel.Channel;
+import io.github.dsheirer.controller.channel.map.ChannelMap;
+import io.github.dsheirer.module.decode.p25.phase1.DecodeConfigP25Phase1;
+import io.github.dsheirer.module.decode.p25.phase1.Modulation;
+import io.github.dsheirer.module.log.EventLogType;
+import io.github.dsheirer.module.log.config.EventLogConfiguration;
+import io.github.dsheirer.protocol.Protocol;
+import io.github.dsheirer.record.RecorderType;
+import io.github.dsheirer.record.config.RecordConfiguration;
+import io.github.dsheirer.source.config.SourceConfigTuner;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests the binary playlist cache
+ */
+public class PlaylistCacheTest
+{
+    @TempDir
+    Path mTempDirectory;
+
+    @Test
+    void cacheIsUsedWhenXmlMatches() throws Exception
+    {
+        Path path = mTempDirectory.resolve("playlist.xml");
+        byte[] xml = "<playlist version=\"4\"/>".getBytes(StandardCharsets.UTF_8);
+        Files.write(path, xml);
+
+        PlaylistV2 playlist = new PlaylistV2();
+        playlist.getChannelMaps().add(new ChannelMap("Test Map"));
+
+        PlaylistCache cache = new PlaylistCache();
+        cache.write(path, xml, playlist);
+
+        PlaylistV2 cached = cache.read(path, xml);
+        assertNotNull(cached, "Cache should be used when the XML content matches");
+        assertEquals(1, cached.getChannelMaps().size());
+        assertEquals("Test Map", cached.getChannelMaps().get(0).getName());
+    }
+
+    @Test
+    void cachedPlaylistMatchesXmlPlaylist() throws Exception
+    {
+        Alias alias = new Alias("Dispatch");
+        alias.setAliasListName("Test Alias List");
+        alias.setGroup("Fire");
+        alias.setColor(-16776961);
+        alias.addAliasID(new Talkgroup(Protocol.APCO25, 100));
+        alias.addAliasID(new Radio(Protocol.APCO25, 1234567));
+        alias.addAliasID(new Priority(2));
+        alias.addAliasID(new Record());
+        alias.addAliasAction(new BeepAction());
+
+        DecodeConfigP25Phase1 decodeConfig = new DecodeConfigP25Phase1();
+        decodeConfig.setModulation(Modulation.CQPSK);
+        SourceConfigTuner sourceConfig = new SourceConfigTuner();
+        sourceConfig.setFrequency(851012500l);
+        RecordConfiguration recordConfig = new RecordConfiguration();
+        recordConfig.addRecorder(RecorderType.BASEBAND);
+        EventLogConfiguration eventLogConfig = new EventLogConfiguration();
+        eventLogConfig.addLogger(EventLogType.CALL_EVENT);
+
+        Channel channel = new Channel("Control");
+        channel.setSystem("County");
+        channel.setSite("North");
+        channel.setAliasListName("Test Alias List");
+        channel.setDecodeConfiguration(decodeConfig);
+        channel.setSourceConfiguration(sourceConfig);
+        channel.setRecordConfiguration(recordConfig);
+        channel.setEventLogConfiguration(eventLogConfig);
+
+        PlaylistV2 playlist = new PlaylistV2();
+        playlist.getAliases().add(alias);
+        playlist.getChannels().add(channel);
+        playlist.getChannelMaps().add(new ChannelMap("Test Map"));
+
+        //Load the playlist from XML, the same as the playlist manager
+        JacksonXmlModule xmlModule = new JacksonXmlModule();
+        xmlModule.setDefaultUseWrapper(false);
+        ObjectMapper xmlMapper = new XmlMapper(xmlModule)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        byte[] xml = xmlMapper.writeValueAsBytes(playlist);
+        PlaylistV2 parsed = xmlMapper.readValue(xml, PlaylistV2.class);
+
+        Path path = mTempDirectory.resolve("playlist.xml");
+        Files.write(path, xml);
+        PlaylistCache cache = new PlaylistCache();
+        cache.write(path, xml, parsed);
+
+        PlaylistV2 cached = cache.read(path, xml);
+        assertNotNull(cached, "Cache should be used when the XML content matches");
+        assertEquals(1, cached.getAliases().size(), "Cached playlist should contain the alias");
+        assertEquals(4, cached.getAliases().get(0).getAliasIdentifiers().size(),
+            "Cached alias should contain each alias identifier");
+        assertEquals(1, cached.getChannels().size(), "Cached playlist should contain the channel");
+        assertEquals(new String(xmlMapper.writeValueAsBytes(parsed), StandardCharsets.UTF_8),
+            new String(xmlMapper.writeValueAsBytes(cached), StandardCharsets.UTF_8),
+            "Cached playlist should be identical to the playlist parsed from the XML");
+    }
+
+    @Test
+    void cacheIsIgnoredWhenXmlChanges() throws Exception
+    {
+        Path path = mTempDirectory.resolve("playlist.xml");
+        byte[] xml = "<playlist version=\"4\"/>".getBytes(StandardCharsets.UTF_8);
+
+        PlaylistCache cache = new PlaylistCache();
+        cache.write(path, xml, new PlaylistV2());
+
+        byte[] edited = "<playlist version=\"5\"/>".getBytes(StandardCharsets.UTF_8);
+        assertNull(cache.read(path, edited), "Cache should be ignored when the XML content changes");
+
+        Files.write(PlaylistCache.getCachePath(path), new byte[]{1, 2, 3});
+        assertNull(cache.read(path, xml), "Corrupt cache should be ignored");
+        assertFalse(Files.exists(PlaylistCache.getCachePath(path)), "Corrupt cache should be deleted");
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.record.baseband;
+
+import io.github.dsheirer.buffer.ByteNativeBuffer;
+import io.github.dsheirer.buffer.NativeSampleFormat;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Tests the native baseband recording segment writer
+ */
+public class BasebandSegmentWriterTest
+{
+    private static final long CAPACITY = 1024 * 1024;
+
+    @TempDir
+    Path mTempDirectory;
+
+    @Test
+    void writesRecordsAndTruncatesOnClose() throws Exception
+    {
+        byte[] samples = new byte[8192];
+
+        for(int x = 0; x < samples.length; x++)
+        {
+            samples[x] = (byte)x;
+        }
+
+        Path path = mTempDirectory.resolve("segment" + BasebandSegmentHeader.FILE_EXTENSION);
+        BasebandSegmentWriter writer = new BasebandSegmentWriter(path, CAPACITY);
+        writer.allocate();
+        assertEquals(CAPACITY, Files.size(path));
+
+        writer.open(new BasebandSegmentHeader(NativeSampleFormat.UNSIGNED_8_BIT_IQ, 2.4e6, 851_000_000, 1000, 1));
+        writer.write(new ByteNativeBuffer(samples, 1000, 0.25f, 2400.0f), 851_000_000);
+        writer.write(new ByteNativeBuffer(samples, 1002, 0.25f, 2400.0f), 852_000_000);
+        writer.close();
+
+        int recordLength = BasebandSegmentHeader.RECORD_HEADER_LENGTH + samples.length;
+        ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(path)).order(BasebandSegmentHeader.BYTE_ORDER);
+        assertEquals(BasebandSegmentHeader.HEADER_LENGTH + (2 * recordLength), file.capacity());
+
+        BasebandSegmentHeader header = BasebandSegmentHeader.read(file);
+        assertEquals(NativeSampleFormat.UNSIGNED_8_BIT_IQ, header.getSampleFormat());
+        assertEquals(2, header.getRecordCount());
+        assertEquals(2 * recordLength, header.getDataLength());
+
+        file.position(BasebandSegmentHeader.HEADER_LENGTH + recordLength);
+        assertEquals(1002, file.getLong());
+        assertEquals(852_000_000, file.getLong());
+        assertEquals(samples.length / 2, file.getInt());
+        assertEquals(samples.length, file.getInt());
+        assertEquals(0.25f, file.getFloat());
+        assertEquals(0.25f, file.getFloat());
+        byte[] recorded = new byte[samples.length];
+        file.get(recorded);
+        assertArrayEquals(samples, recorded);
+    }
+
+    @Test
+    void headerIsWrittenOnOpen() throws Exception
+    {
+        Path path = mTempDirectory.resolve("open" + BasebandSegmentHeader.FILE_EXTENSION);
+        BasebandSegmentWriter writer = new BasebandSegmentWriter(path, CAPACITY);
+        writer.allocate();
+
+        try
+        {
+            writer.open(new BasebandSegmentHeader(NativeSampleFormat.UNSIGNED_8_BIT_IQ, 2.4e6, 851_000_000, 1000, 3));
+            writer.write(new ByteNativeBuffer(new byte[8192], 1000, 0.25f, 2400.0f), 851_000_000);
+
+            //An unclosed segment has a valid header with an unspecified data length
+            ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(path)).order(BasebandSegmentHeader.BYTE_ORDER);
+            BasebandSegmentHeader header = BasebandSegmentHeader.read(file);
+            assertEquals(3, header.getSegmentIndex());
+            assertEquals(851_000_000, header.getFrequency());
+            assertEquals(0, header.getDataLength());
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+
+    @Test
+    void unusedSegmentIsDeletedOnClose() throws Exception
+    {
+        Path path = mTempDirectory.resolve("unused" + BasebandSegmentHeader.FILE_EXTENSION);
+        BasebandSegmentWriter writer = new BasebandSegmentWriter(path, CAPACITY);
+        writer.allocate();
+        writer.close();
+        assertFalse(Files.exists(path));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.record.baseband;
+
+import io.github.dsheirer.buffer.ByteNativeBuffer;
+import io.github.dsheirer.buffer.NativeSampleFormat;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the native baseband recording segment time index
+ */
+public class BasebandTimeIndexTest
+{
+    private static final int SAMPLE_BYTES = 8192;
+    private static final int RECORD_LENGTH = BasebandSegmentHeader.RECORD_HEADER_LENGTH + SAMPLE_BYTES;
+
+    @TempDir
+    Path mTempDirectory;
+
+    @Test
+    void indexesRecordsAndPersistsSidecar() throws Exception
+    {
+        Path path = mTempDirectory.resolve("segment" + BasebandSegmentHeader.FILE_EXTENSION);
+        BasebandSegmentWriter writer = new BasebandSegmentWriter(path, 1024 * 1024);
+        writer.allocate();
+        writer.open(new BasebandSegmentHeader(NativeSampleFormat.UNSIGNED_8_BIT_IQ, 2.4e6, 851_000_000, 1000, 1));
+
+        //Records every 2 ms from 1000 to 1038
+        for(int x = 0; x < 20; x++)
+        {
+            writer.write(new ByteNativeBuffer(new byte[SAMPLE_BYTES], 1000 + (2 * x), 0.0f, 2400.0f), 851_000_000);
+        }
+
+        writer.close();
+
+        try(Arena arena = Arena.ofConfined(); FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            MemorySegment memory = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            BasebandSegmentHeader header = BasebandSegmentHeader.read(memory
+                .asSlice(0, BasebandSegmentHeader.HEADER_LENGTH).asByteBuffer().order(BasebandSegmentHeader.BYTE_ORDER));
+
+            BasebandTimeIndex index = BasebandTimeIndex.load(path, memory, header, 5);
+            assertTrue(Files.exists(BasebandTimeIndex.getIndexPath(path)));
+            assertEquals(7, index.size());
+            assertEquals(1000, index.getStartTimestamp());
+            assertEquals(BasebandSegmentHeader.HEADER_LENGTH, index.getOffset(900));
+            assertEquals(BasebandSegmentHeader.HEADER_LENGTH + (3 * RECORD_LENGTH), index.getOffset(1011));
+            assertEquals(BasebandSegmentHeader.HEADER_LENGTH + (18 * RECORD_LENGTH), index.getOffset(5000));
+            assertEquals(BasebandSegmentHeader.HEADER_LENGTH + (20 * RECORD_LENGTH), index.getDataEnd());
+
+            BasebandTimeIndex reloaded = BasebandTimeIndex.load(path, memory, header, 5);
+            assertEquals(index.size(), reloaded.size());
+            assertEquals(index.getEndTimestamp(), reloaded.getEndTimestamp());
+            assertEquals(index.getOffset(1011), reloaded.getOffset(1011));
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.source.tuner.channel;
+
+import io.github.dsheirer.buffer.INativeBuffer;
+import io.github.dsheirer.dsp.filter.design.FilterDesignException;
+import io.github.dsheirer.sample.complex.ComplexSamples;
+import io.github.dsheirer.sample.complex.InterleavedComplexSamples;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Digital down converter bank channel preloading, removal and multi-threaded processing.
+ */
+public class DigitalDownConverterBankTest
+{
+    private static final double SAMPLE_RATE = 100_000.0;
+    private static final long BUFFER_DURATION = 10;
+    private static final int SAMPLE_COUNT = 64;
+    private static final long TIMEOUT_MS = 5000;
+
+    private final List<DigitalDownConverterBank> mBanks = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown()
+    {
+        for(DigitalDownConverterBank bank: mBanks)
+        {
+            bank.dispose();
+        }
+
+        DigitalDownConverterBank.setThreadCount(DigitalDownConverterBank.getDefaultThreadCount());
+    }
+
+    @Test
+    public void addedChannelIsPreloadedFromTheStartTimestamp() throws Exception
+    {
+        DigitalDownConverterBank bank = createBank(1);
+        RecordingChannel probe = new RecordingChannel(1);
+        bank.add(probe, 0);
+
+        for(int x = 0; x < 10; x++)
+        {
+            bank.receive(new TestNativeBuffer(x * BUFFER_DURATION));
+        }
+
+        waitFor(() -> probe.getTimestamps().size() == 10, "Probe channel should receive each buffer");
+
+        //Buffer 50 spans the requested timestamp, so it and each later buffer should be preloaded
+        RecordingChannel channel = new RecordingChannel(2);
+        bank.add(channel, 55);
+        bank.receive(new TestNativeBuffer(100));
+
+        waitFor(() -> probe.getTimestamps().size() == 11, "Probe channel should receive the new buffer");
+        assertEquals(List.of(50L, 60L, 70L, 80L, 90L, 100L), channel.getTimestamps(),
+                "Channel should only receive history buffers at or after its start timestamp");
+    }
+
+    @Test
+    public void removedChannelReceivesNothingMore() throws Exception
+    {
+        DigitalDownConverterBank bank = createBank(1);
+        RecordingChannel removed = new RecordingChannel(1);
+        RecordingChannel remaining = new RecordingChannel(2);
+        bank.add(removed, 0);
+        bank.add(remaining, 0);
+
+        for(int x = 0; x < 5; x++)
+        {
+            bank.receive(new TestNativeBuffer(x * BUFFER_DURATION));
+        }
+
+        waitFor(() -> removed.getTimestamps().size() == 5, "Channel should receive each buffer before removal");
+        bank.remove(removed);
+
+        for(int x = 5; x < 10; x++)
+        {
+            bank.receive(new TestNativeBuffer(x * BUFFER_DURATION));
+        }
+
+        waitFor(() -> remaining.getTimestamps().size() == 10, "Remaining channel should receive each buffer");
+        assertEquals(List.of(0L, 10L, 20L, 30L, 40L), removed.getTimestamps(),
+                "Removed channel should not receive buffers after the removal");
+    }
+
+    @Test
+    public void multipleThreadsMatchSingleThreadOutput() throws Exception
+    {
+        int channelCount = 7;
+        List<RecordingChannel> single = process(1, channelCount);
+        List<RecordingChannel> parallel = process(DigitalDownConverterBank.MAXIMUM_THREAD_COUNT, channelCount);
+
+        for(int x = 0; x < channelCount; x++)
+        {
+            List<float[]> expected = single.get(x).getSamples();
+            List<float[]> actual = parallel.get(x).getSamples();
+            assertEquals(single.get(x).getTimestamps(), parallel.get(x).getTimestamps(),
+                    "Channel " + x + " should receive the same buffers in the same order");
+            assertEquals(expected.size(), actual.size(), "Channel " + x + " sample buffer count");
+
+            for(int y = 0; y < expected.size(); y++)
+            {
+                assertArrayEquals(expected.get(y), actual.get(y), "Channel " + x + " buffer " + y + " samples");
+            }
+        }
+    }
+
+    /**
+     * Sends a series of buffers through a bank with the thread count and returns the channel recordings.
+     */
+    private List<RecordingChannel> process(int threadCount, int channelCount) throws Exception
+    {
+        DigitalDownConverterBank bank = createBank(threadCount);
+        assertEquals(threadCount, bank.getThreadCount(), "Bank thread count");
+        List<RecordingChannel> channels = new ArrayList<>();
+
+        for(int x = 0; x < channelCount; x++)
+        {
+            RecordingChannel channel = new RecordingChannel(x + 1);
+            channels.add(channel);
+            bank.add(channel, 0);
+        }
+
+        for(int x = 0; x < 20; x++)
+        {
+            bank.receive(new TestNativeBuffer(x * BUFFER_DURATION));
+        }
+
+        waitFor(() -> channels.stream().allMatch(channel -> channel.getTimestamps().size() == 20),
+                "Each channel should receive each buffer");
+        return channels;
+    }
+
+    private DigitalDownConverterBank createBank(int threadCount)
+    {
+        DigitalDownConverterBank.setThreadCount(threadCount);
+        DigitalDownConverterBank bank = new DigitalDownConverterBank(10, BUFFER_DURATION, "test ddc bank");
+        mBanks.add(bank);
+        bank.start();
+        return bank;
+    }
+
+    private static void waitFor(BooleanSupplier condition, String message) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+
+        while(!condition.getAsBoolean() && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(5);
+        }
+
+        assertTrue(condition.getAsBoolean(), message);
+    }
+
+    /**
+     * Channel source that records the samples it receives from the bank, mixed with a channel-specific offset so that
+     * each channel's output depends on its own state.
+     */
+    private static class RecordingChannel extends HalfBandTunerChannelSource
+    {
+        private final List<Long> mTimestamps = new CopyOnWriteArrayList<>();
+        private final List<float[]> mSamples = new CopyOnWriteArrayList<>();
+        private final float mOffset;
+        private float mAccumulator;
+
+        RecordingChannel(int channel) throws FilterDesignException
+        {
+            super(null, new TunerChannel(100_000_000L + channel * 10_000L, 12_500), SAMPLE_RATE,
+                    new ChannelSpecification(25_000.0, 12_500, 6_500.0, 7_200.0), "test channel " + channel);
+            mOffset = channel;
+        }
+
+        @Override
+        void downConvert(ComplexSamples samples)
+        {
+            float[] output = new float[samples.i().length];
+
+            for(int x = 0; x < output.length; x++)
+            {
+                mAccumulator += samples.i()[x] * mOffset - samples.q()[x];
+                output[x] = mAccumulator;
+            }
+
+            mTimestamps.add(samples.timestamp());
+            mSamples.add(output);
+        }
+
+        List<Long> getTimestamps()
+        {
+            return new ArrayList<>(mTimestamps);
+        }
+
+        List<float[]> getSamples()
+        {
+            return new ArrayList<>(mSamples);
+        }
+    }
+
+    /**
+     * Native buffer with deterministic samples derived from the buffer timestamp
+     */
+    private static class TestNativeBuffer implements INativeBuffer
+    {
+        private final long mTimestamp;
+
+        TestNativeBuffer(long timestamp)
+        {
+            mTimestamp = timestamp;
+        }
+
+        private float[] samples(int phase)
+        {
+            float[] samples = new float[SAMPLE_COUNT];
+
+            for(int x = 0; x < SAMPLE_COUNT; x++)
+            {
+                samples[x] = (float)Math.sin((mTimestamp + x) * 0.1 + phase);
+            }
+
+            return samples;
+        }
+
+        @Override
+        public Iterator<ComplexSamples> iterator()
+        {
+            return List.of(new ComplexSamples(samples(0), samples(1), mTimestamp)).iterator();
+        }
+
+        @Override
+        public Iterator<InterleavedComplexSamples> iteratorInterleaved()
+        {
+            float[] i = samples(0);
+            float[] q = samples(1);
+            float[] interleaved = new float[SAMPLE_COUNT * 2];
+
+            for(int x = 0; x < SAMPLE_COUNT; x++)
+            {
+                interleaved[x * 2] = i[x];
+                interleaved[x * 2 + 1] = q[x];
+            }
+
+            return List.of(new InterleavedComplexSamples(interleaved, mTimestamp)).iterator();
+        }
+
+        @Override
+        public int sampleCount()
+        {
+            return SAMPLE_COUNT;
+        }
+
+        @Override
+        public long getTimestamp()
+        {
+            return mTimestamp;
+        }
+    }
+}
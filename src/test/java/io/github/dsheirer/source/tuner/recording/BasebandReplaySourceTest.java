@@ -0,0 +1,97 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.source.tuner.recording;
+
+import io.github.dsheirer.buffer.INativeBuffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Tests the baseband recording replay source
+ */
+public class BasebandReplaySourceTest
+{
+    private static final int SAMPLE_RATE = 100000;
+
+    @TempDir
+    Path mDirectory;
+
+    /**
+     * Creates a 2 channel 16-bit wave file with the number of sample frames
+     */
+    private Path create(int frames) throws Exception
+    {
+        int dataLength = frames * 4;
+        ByteBuffer buffer = ByteBuffer.allocate(44 + dataLength).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(36 + dataLength);
+        buffer.put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        buffer.put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(16).putShort((short)1).putShort((short)2);
+        buffer.putInt(SAMPLE_RATE).putInt(SAMPLE_RATE * 4).putShort((short)4).putShort((short)16);
+        buffer.put("data".getBytes(StandardCharsets.US_ASCII)).putInt(dataLength);
+        Path path = mDirectory.resolve("recording.wav");
+        Files.write(path, buffer.array());
+        return path;
+    }
+
+    @Test
+    void recordingCanBeReplayedAgainAfterTheEnd() throws Exception
+    {
+        List<INativeBuffer> buffers = new CopyOnWriteArrayList<>();
+
+        try(WaveReplayRecording recording = new WaveReplayRecording(create(150000)))
+        {
+            BasebandReplaySource source = new BasebandReplaySource(recording, buffers::add, false);
+            source.setSpeed(0);
+
+            source.start();
+            awaitEnd(source);
+            assertEquals(3, buffers.size(), "First playback should replay every buffer");
+
+            source.start();
+            awaitEnd(source);
+            assertEquals(6, buffers.size(), "Second playback should replay the recording from the beginning");
+            assertEquals(buffers.get(0).sampleCount(), buffers.get(3).sampleCount(),
+                    "Second playback should start with the first buffer");
+            source.stop();
+        }
+    }
+
+    private static void awaitEnd(BasebandReplaySource source) throws InterruptedException
+    {
+        long timeout = System.currentTimeMillis() + 5000;
+
+        while(source.isRunning() && System.currentTimeMillis() < timeout)
+        {
+            Thread.sleep(10);
+        }
+
+        assertFalse(source.isRunning(), "Playback should stop at the end of the recording");
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.source.tuner.recording;
+
+import io.github.dsheirer.buffer.INativeBuffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests the wave baseband replay recording
+ */
+public class WaveReplayRecordingTest
+{
+    private static final double SAMPLE_RATE = 100000.0;
+
+    @TempDir
+    Path mDirectory;
+
+    /**
+     * Creates a 2 channel 16-bit wave file with the number of sample frames
+     */
+    private Path create(int frames) throws Exception
+    {
+        int dataLength = frames * 4;
+        ByteBuffer buffer = ByteBuffer.allocate(44 + dataLength).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(36 + dataLength);
+        buffer.put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        buffer.put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(16).putShort((short)1).putShort((short)2);
+        buffer.putInt((int)SAMPLE_RATE).putInt((int)SAMPLE_RATE * 4).putShort((short)4).putShort((short)16);
+        buffer.put("data".getBytes(StandardCharsets.US_ASCII)).putInt(dataLength);
+        Path path = mDirectory.resolve("recording_" + frames + ".wav");
+        Files.write(path, buffer.array());
+        return path;
+    }
+
+    @Test
+    void finalPartialBufferIsReplayed() throws Exception
+    {
+        try(WaveReplayRecording recording = new WaveReplayRecording(create(70000)))
+        {
+            INativeBuffer first = recording.next(0);
+            assertEquals(65536, first.sampleCount(), "First buffer should be a full buffer");
+            assertEquals(655, recording.getPosition(), "Position should be the start of the final buffer");
+
+            INativeBuffer last = recording.next(0);
+            assertEquals(70000 - 65536, last.sampleCount(), "Final buffer should contain the remaining frames");
+            assertEquals(-1, recording.getPosition(), "Position should indicate the end of the recording");
+            assertNull(recording.next(0), "No buffer should be returned at the end of the recording");
+
+            recording.seek(Long.MAX_VALUE);
+            assertEquals(655, recording.getPosition(), "Seek past the end should move to the final buffer");
+        }
+    }
+
+    @Test
+    void shortRecordingIsReplayed() throws Exception
+    {
+        try(WaveReplayRecording recording = new WaveReplayRecording(create(1000)))
+        {
+            assertEquals(0, recording.getPosition(), "Recording shorter than a buffer should have a position");
+            assertEquals(1000, recording.next(0).sampleCount(), "Buffer should contain all frames");
+            assertEquals(-1, recording.getPosition(), "Position should indicate the end of the recording");
+
+            recording.seek(5);
+            assertEquals(0, recording.getPosition(), "Seek should move to the only buffer");
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.source.tuner.sdrplay;
+
+import io.github.dsheirer.sample.complex.ComplexSamples;
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests repackaging of RSP stream callback samples into power-of-2 length native buffers.
+ */
+public class RspNativeBufferFactoryTest
+{
+    private static final int CALLBACK_LENGTH = 2016;
+
+    @Test
+    void samplesAreRepackagedInOrder()
+    {
+        RspNativeBufferFactory factory = new RspNativeBufferFactory(RspSampleRate.RATE_8_000);
+        List<RspNativeBuffer> buffers = new ArrayList<>();
+        long timestamp = 1_000_000;
+        short sample = 0;
+
+        //Enough callbacks to wrap the ring buffer several times
+        for(int callback = 0; callback < 200; callback++)
+        {
+            short[] i = new short[CALLBACK_LENGTH];
+            short[] q = new short[CALLBACK_LENGTH];
+
+            for(int x = 0; x < CALLBACK_LENGTH; x++)
+            {
+                i[x] = sample;
+                q[x] = (short)-sample;
+                sample++;
+            }
+
+            timestamp += (long)(CALLBACK_LENGTH / RspSampleRate.RATE_8_000.getSamplesPerMillisecond());
+            buffers.addAll(factory.get(MemorySegment.ofArray(i), MemorySegment.ofArray(q), CALLBACK_LENGTH, timestamp));
+        }
+
+        assertEquals(200 * CALLBACK_LENGTH, buffers.size() * 2048 + factory.getBufferedSampleCount());
+
+        short expected = 0;
+
+        for(RspNativeBuffer buffer: buffers)
+        {
+            assertEquals(4096, buffer.sampleCount());
+            ComplexSamples samples = buffer.iterator().next();
+
+            for(int x = 0; x < samples.i().length; x++)
+            {
+                assertEquals((short)expected * (1.0f / 32768.0f), samples.i()[x], 0.0f);
+                assertEquals((short)-expected * (1.0f / 32768.0f), samples.q()[x], 0.0f);
+                expected++;
+            }
+        }
+    }
+
+    @Test
+    void timestampsFollowTheSampleClock()
+    {
+        RspNativeBufferFactory factory = new RspNativeBufferFactory(RspSampleRate.RATE_0_250);
+        float samplesPerMillisecond = RspSampleRate.RATE_0_250.getSamplesPerMillisecond();
+        short[] samples = new short[CALLBACK_LENGTH];
+        List<RspNativeBuffer> buffers = new ArrayList<>();
+        long start = 1_000_000;
+
+        for(int callback = 1; callback <= 100; callback++)
+        {
+            //Callback arrival time jitters by a few milliseconds
+            long arrival = start + (long)(callback * CALLBACK_LENGTH / samplesPerMillisecond) + (callback % 3);
+            buffers.addAll(factory.get(MemorySegment.ofArray(samples), MemorySegment.ofArray(samples), CALLBACK_LENGTH,
+                arrival));
+        }
+
+        for(int x = 1; x < buffers.size(); x++)
+        {
+            long delta = buffers.get(x).getTimestamp() - buffers.get(x - 1).getTimestamp();
+            long expected = (long)(2048 / samplesPerMillisecond);
+            assertTrue(Math.abs(delta - expected) <= 1, "Buffer timestamps should be spaced by the buffer duration");
+        }
+
+        assertTrue(Math.abs(buffers.getFirst().getTimestamp() - start) <= 1, "First buffer should start at the first sample");
+    }
+
+    @Test
+    void sampleClockIsPreciseForLargeSampleCounts()
+    {
+        float samplesPerMillisecond = RspSampleRate.RATE_0_250.getSamplesPerMillisecond();
+        long sampleCount = (1l << 31) + 250;
+        long expected = (long)(sampleCount / (double)samplesPerMillisecond);
+
+        assertEquals(expected, (long)RspNativeBufferFactory.toMilliseconds(sampleCount, samplesPerMillisecond),
+            "Sample counter beyond 2^31 samples should convert to milliseconds without losing precision");
+        assertEquals(expected + 1, (long)RspNativeBufferFactory.toMilliseconds(sampleCount + 250, samplesPerMillisecond),
+            "Sample clock should advance by one millisecond per millisecond of samples");
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.source.tuner.usb;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the adaptive USB transfer pool sizing policy
+ */
+public class AdaptiveTransferPolicyTest
+{
+    private static final long INTERVAL = 1_000_000;
+
+    /**
+     * Simulates a window of callbacks with a steady interval and an optional single stall.
+     */
+    private static long window(AdaptiveTransferPolicy policy, long timestamp, long stall, int inFlight)
+    {
+        for(int x = 0; x < 64; x++)
+        {
+            timestamp += (x == 32 ? stall : INTERVAL);
+            policy.update(timestamp, inFlight);
+        }
+
+        return timestamp;
+    }
+
+    @Test
+    void growsToCoverCallbackStalls()
+    {
+        AdaptiveTransferPolicy policy = new AdaptiveTransferPolicy(4, 8, 32);
+        policy.update(1, 6);
+        long timestamp = window(policy, 1, INTERVAL, 6);
+        assertEquals(8, policy.getTarget());
+
+        //A 10x stall requires ~20 transfers with headroom
+        window(policy, timestamp, 10 * INTERVAL, 6);
+        assertTrue(policy.getTarget() >= 18, "Pool should grow to cover the stall");
+    }
+
+    @Test
+    void growsOnUnderrunAndShrinksSlowly()
+    {
+        AdaptiveTransferPolicy policy = new AdaptiveTransferPolicy(4, 8, 32);
+        policy.update(1, 6);
+        long timestamp = window(policy, 1, INTERVAL, 0);
+        assertEquals(10, policy.getTarget());
+
+        //Steady callbacks only need the minimum, but the pool shrinks by one transfer per 8 windows
+        for(int x = 0; x < 8; x++)
+        {
+            timestamp = window(policy, timestamp, INTERVAL, 6);
+        }
+
+        assertEquals(9, policy.getTarget());
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.spectrum;
+
+import io.github.dsheirer.dsp.window.WindowType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the Welch-averaging spectrum engine
+ */
+public class SpectrumEngineTest
+{
+    private static final int SIZE = 512;
+    private static final int TONE_BIN = 64;
+
+    /**
+     * Interleaved complex tone centered on the DFT bin
+     */
+    private static float[] tone(int sampleCount, float amplitude)
+    {
+        float[] samples = new float[sampleCount * 2];
+
+        for(int x = 0; x < sampleCount; x++)
+        {
+            double angle = 2.0 * Math.PI * TONE_BIN * x / SIZE;
+            samples[2 * x] = amplitude * (float)Math.cos(angle);
+            samples[2 * x + 1] = amplitude * (float)Math.sin(angle);
+        }
+
+        return samples;
+    }
+
+    private static int peakIndex(float[] decibels)
+    {
+        int peak = 0;
+
+        for(int x = 1; x < decibels.length; x++)
+        {
+            if(decibels[x] > decibels[peak])
+            {
+                peak = x;
+            }
+        }
+
+        return peak;
+    }
+
+    @Test
+    void averagesOverlappingSegments()
+    {
+        SpectrumEngine engine = new SpectrumEngine(DFTSize.FFT00512, WindowType.HANN);
+        assertNull(engine.calculate(), "No samples received");
+
+        //Two and a half segments worth of samples yields four 50% overlapping segments
+        engine.write(tone(SIZE * 5 / 2, 0.5f), 0, SIZE * 5 / 2);
+        float[] decibels = engine.calculate();
+        assertNotNull(decibels);
+        assertEquals(4, engine.getSegmentCount());
+        assertEquals(SIZE, decibels.length);
+
+        //Positive frequency bins are shifted to the upper half of the display
+        assertEquals(SIZE / 2 + TONE_BIN, peakIndex(decibels));
+
+        //Half segment remains from the previous calculation, so another half segment completes the next segment
+        assertNull(engine.calculate());
+        engine.write(tone(SIZE / 2, 0.5f), 0, SIZE / 2);
+        assertNotNull(engine.calculate());
+        assertEquals(1, engine.getSegmentCount());
+    }
+
+    @Test
+    void peakHoldRetainsMaximum()
+    {
+        SpectrumEngine engine = new SpectrumEngine(DFTSize.FFT00512, WindowType.HANN);
+        engine.setPeakHold(true);
+        engine.write(tone(SIZE, 0.5f), 0, SIZE);
+        float peak = engine.calculate()[SIZE / 2 + TONE_BIN];
+
+        engine.write(new float[SIZE * 2], 0, SIZE);
+        float[] held = engine.calculate();
+        assertEquals(peak, held[SIZE / 2 + TONE_BIN], 0.01f);
+
+        engine.setPeakHold(false);
+        engine.write(new float[SIZE * 2], 0, SIZE);
+        assertTrue(engine.calculate()[SIZE / 2 + TONE_BIN] < peak - 60.0f, "Peak cleared when disabled");
+    }
+}
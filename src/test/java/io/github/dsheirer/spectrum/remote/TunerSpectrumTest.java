@@ -0,0 +1,56 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.spectrum.remote;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests the tuner spectrum frame decimation
+ */
+public class TunerSpectrumTest
+{
+    @Test
+    void decimatesByMaximumOfEachGroup()
+    {
+        float[] decibels = {-90, -80, -70, -95, -60, -99, -98, -97};
+        assertArrayEquals(new float[]{-80, -70, -60, -97}, TunerSpectrum.decimate(decibels, 4));
+    }
+
+    @Test
+    void decimatesWidthThatIsNotADivisor()
+    {
+        float[] decibels = {-90, -80, -70, -95, -60, -99, -98, -97};
+
+        //Groups of 2, 3 and 3 bins
+        assertArrayEquals(new float[]{-80, -60, -97}, TunerSpectrum.decimate(decibels, 3));
+        assertArrayEquals(decibels, TunerSpectrum.decimate(decibels, 8));
+    }
+
+    @Test
+    void rejectsInvalidWidth()
+    {
+        float[] decibels = new float[8];
+        assertThrows(IllegalArgumentException.class, () -> TunerSpectrum.decimate(decibels, 0));
+        assertThrows(IllegalArgumentException.class, () -> TunerSpectrum.decimate(decibels, 9));
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.spectrum.remote;
+
+import java.awt.image.BufferedImage;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests the headless spectrum waterfall ring and frame decimation
+ */
+public class WaterfallRingTest
+{
+    @Test
+    void rowsAreNewestFirst()
+    {
+        WaterfallRing ring = new WaterfallRing(4, 2, 50.0f);
+        assertNull(ring.toImage());
+
+        ring.add(new float[]{-100, -100, -100, -100});
+        ring.add(new float[]{-100, -100, -100, -40});
+        ring.add(new float[]{-40, -100, -100, -100});
+
+        //Oldest row is overwritten, and the strong bin is scaled relative to the row's noise level
+        byte[] rows = ring.getRows();
+        assertEquals(8, rows.length);
+        assertEquals(2, ring.getRowCount());
+        assertEquals((byte)255, rows[0]);
+        assertEquals((byte)255, rows[7]);
+        assertEquals(rows[1], rows[4]);
+
+        BufferedImage image = ring.toImage();
+        assertEquals(4, image.getWidth());
+        assertEquals(2, image.getHeight());
+    }
+
+    @Test
+    void decimationRetainsPeaks()
+    {
+        float[] bins = new float[]{-100, -20, -100, -100, -90, -100, -100, -95};
+        assertArrayEquals(new float[]{-20, -100, -90, -95}, TunerSpectrum.decimate(bins, 4));
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.util;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the pipeline stage saturation policies
+ */
+public class PipelineStageTest
+{
+    @Test
+    void blockPolicyBlocksUntilQueueHasSpace() throws Exception
+    {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> processed = new CopyOnWriteArrayList<>();
+        PipelineStage<Integer> stage = new PipelineStage<>("test", 1, 1, item -> {
+            await(release);
+            processed.add(item);
+        });
+
+        stage.submit(1);
+        stage.submit(2);
+
+        Thread submitter = new Thread(() -> stage.submit(3));
+        submitter.start();
+        submitter.join(200);
+        assertTrue(submitter.isAlive(), "Submit should block while the queue is full");
+
+        release.countDown();
+        submitter.join(5000);
+        assertFalse(submitter.isAlive(), "Submit should complete once the queue has space");
+        assertTrue(stage.shutdown(5, TimeUnit.SECONDS), "Queued items should be processed");
+        assertEquals(List.of(1, 2, 3), processed, "All items should be processed in order");
+        assertEquals(0, stage.getDroppedCount(), "Blocking stage should not drop items");
+    }
+
+    @Test
+    void dropPolicyDoesNotBlock() throws Exception
+    {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> processed = new CopyOnWriteArrayList<>();
+        List<Integer> dropped = new CopyOnWriteArrayList<>();
+        PipelineStage<Integer> stage = new PipelineStage<>("test", 1, 1, item -> {
+            started.countDown();
+            await(release);
+            processed.add(item);
+        }, PipelineStage.SaturationPolicy.DROP, dropped::add);
+
+        stage.submit(1);
+        assertTrue(started.await(5, TimeUnit.SECONDS), "First item should be processing");
+        stage.submit(2);
+        stage.submit(3);
+        stage.submit(4);
+
+        assertEquals(List.of(3, 4), dropped, "Items submitted to a full queue should be dropped");
+        assertEquals(2, stage.getDroppedCount(), "Dropped items should be counted");
+
+        release.countDown();
+        assertTrue(stage.shutdown(5, TimeUnit.SECONDS), "Queued items should be processed");
+        assertEquals(List.of(1, 2), processed, "Accepted items should be processed");
+    }
+
+    @Test
+    void shutdownReleasesBlockedProducerAndAbandonedItems() throws Exception
+    {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> abandoned = new CopyOnWriteArrayList<>();
+        PipelineStage<Integer> stage = new PipelineStage<>("test", 1, 1, item -> {
+            started.countDown();
+            await(release);
+        }, PipelineStage.SaturationPolicy.BLOCK, abandoned::add);
+
+        stage.submit(1);
+        assertTrue(started.await(5, TimeUnit.SECONDS), "First item should be processing");
+        stage.submit(2);
+
+        AtomicBoolean rejected = new AtomicBoolean();
+        Thread submitter = new Thread(() -> {
+            try
+            {
+                stage.submit(3);
+            }
+            catch(RejectedExecutionException ree)
+            {
+                rejected.set(true);
+            }
+        });
+        submitter.start();
+        submitter.join(200);
+        assertTrue(submitter.isAlive(), "Submit should block while the queue is full");
+
+        assertFalse(stage.shutdown(200, TimeUnit.MILLISECONDS), "Stage should not complete while processing blocks");
+        submitter.join(5000);
+        assertFalse(submitter.isAlive(), "Blocked submit should return once the stage is shutdown");
+        assertTrue(rejected.get(), "Blocked submit should be rejected by the shutdown stage");
+        assertEquals(List.of(2), abandoned, "Queued item should be passed to the overflow listener at shutdown");
+        release.countDown();
+    }
+
+    private static void await(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await(5, TimeUnit.SECONDS);
+        }
+        catch(InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
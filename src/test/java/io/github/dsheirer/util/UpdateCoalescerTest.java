@@ -0,0 +1,121 @@
+/*
+ * *****************************************************************************
+ * Copyright (C) 2014-2025 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * ****************************************************************************
+ */
+
+package io.github.dsheirer.util;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests coalescing of user interface updates
+ */
+public class UpdateCoalescerTest
+{
+    @Test
+    void coalescesUpdatesIntoBatches() throws Exception
+    {
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        CountDownLatch added = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(1);
+        UpdateCoalescer<String> coalescer = new UpdateCoalescer<>(gated(added), 10, 100, batch -> {
+            batches.add(batch);
+            latch.countDown();
+        });
+
+        String a = "a";
+        coalescer.add(a);
+        coalescer.add("b");
+        coalescer.add(a);
+        coalescer.add("c");
+
+        added.countDown();
+        assertTrue(latch.await(2, TimeUnit.SECONDS), "Batch should be delivered");
+        assertEquals(1, batches.size(), "Updates should be delivered in a single batch");
+        assertEquals(List.of("a", "b", "c"), batches.get(0), "Duplicate updates should be coalesced");
+    }
+
+    @Test
+    void dropsOldestPendingUpdates() throws Exception
+    {
+        List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        CountDownLatch added = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(1);
+        UpdateCoalescer<Integer> coalescer = new UpdateCoalescer<>(gated(added), 10, 3, batch -> {
+            batches.add(batch);
+            latch.countDown();
+        });
+
+        for(int x = 0; x < 10; x++)
+        {
+            coalescer.add(Integer.valueOf(x + 1000));
+        }
+
+        added.countDown();
+        assertTrue(latch.await(2, TimeUnit.SECONDS), "Batch should be delivered");
+        assertEquals(List.of(1007, 1008, 1009), batches.get(0), "Only the newest updates should be delivered");
+    }
+
+    @Test
+    void reportsDroppedUpdatesBeforeBatch() throws Exception
+    {
+        List<String> deliveries = new CopyOnWriteArrayList<>();
+        CountDownLatch added = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(1);
+        UpdateCoalescer<Integer> coalescer = new UpdateCoalescer<>(gated(added), 10, 3, batch -> {
+            deliveries.add("batch " + batch.size());
+            latch.countDown();
+        });
+        coalescer.setDroppedListener(dropped -> deliveries.add("dropped " + dropped));
+
+        for(int x = 0; x < 10; x++)
+        {
+            coalescer.add(Integer.valueOf(x + 1000));
+        }
+
+        added.countDown();
+        assertTrue(latch.await(2, TimeUnit.SECONDS), "Batch should be delivered");
+        assertEquals(List.of("dropped 7", "batch 3"), deliveries, "Dropped count should be reported ahead of the batch");
+    }
+
+    /**
+     * Executor that holds the batch delivery until all updates have been added.
+     */
+    private static Executor gated(CountDownLatch added)
+    {
+        return runnable -> {
+            try
+            {
+                added.await(2, TimeUnit.SECONDS);
+            }
+            catch(InterruptedException ie)
+            {
+                Thread.currentThread().interrupt();
+            }
+
+            runnable.run();
+        };
+    }
+}